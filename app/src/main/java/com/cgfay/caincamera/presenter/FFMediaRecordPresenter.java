@@ -21,6 +21,7 @@ import com.cgfay.camera.camera.ICameraController;
 import com.cgfay.camera.camera.OnFrameAvailableListener;
 import com.cgfay.camera.camera.OnSurfaceTextureListener;
 import com.cgfay.camera.camera.PreviewCallback;
+import com.cgfay.camera.camera.PreviewFrameQueue;
 import com.cgfay.camera.utils.PathConstraints;
 
 import com.cgfay.media.recorder.AVFormatter;
@@ -41,6 +42,8 @@ public class FFMediaRecordPresenter implements PreviewCallback, FFAudioRecorder.
 
     private static final String TAG = "FFMediaRecordPresenter";
     private static final boolean VERBOSE = true;
+    // 最多等待编码的预览帧数，编码跟不上时丢帧
+    private static final int MAX_PENDING_FRAMES = 2;
 
     private FragmentActivity mActivity;
     private FFMediaRecordFragment mFragment;
@@ -59,6 +62,7 @@ public class FFMediaRecordPresenter implements PreviewCallback, FFAudioRecorder.
     private FFMediaRecorder mMediaRecorder;
     private boolean mIsRecording;
     private Handler mHandler;
+    private final PreviewFrameQueue mFrameQueue = new PreviewFrameQueue(MAX_PENDING_FRAMES);
 
     private final List<VideoInfo> mVideoList;
 
@@ -167,6 +171,7 @@ public class FFMediaRecordPresenter implements PreviewCallback, FFAudioRecorder.
                 .setAudioParams(mFFAudioRecorder.getSampleRate(), AVFormatter.getSampleFormat(mFFAudioRecorder.getSampleFormat()), mFFAudioRecorder.getChannels())
                 .create();
         mMediaRecorder.setRecordListener(this);
+        mFrameQueue.resetStatistics();
         mMediaRecorder.startRecord();
         mFFAudioRecorder.start();
     }
@@ -251,7 +256,10 @@ public class FFMediaRecordPresenter implements PreviewCallback, FFAudioRecorder.
         mFragment.showViews();
         mFragment.showToast("录制成功");
         if (VERBOSE) {
-            Log.d(TAG, "onRecordFinish: " + success + ", duration：" + duration);
+            Log.d(TAG, "onRecordFinish: " + success + ", duration：" + duration
+                    + ", frames: " + mFrameQueue.getAcceptedCount()
+                    + ", dropped: " + mFrameQueue.getDroppedCount()
+                    + ", peak pending: " + mFrameQueue.getPeakPendingCount());
         }
     }
 
@@ -278,12 +286,32 @@ public class FFMediaRecordPresenter implements PreviewCallback, FFAudioRecorder.
     }
 
     @Override
-    public void onPreviewFrame(byte[] data) {
-        if (mMediaRecorder != null && mIsRecording) {
-            mHandler.post(() -> mMediaRecorder.recordVideoFrame(data, data.length,
-                    mRecordWidth, mRecordHeight,
-                    AVFormatter.PIXEL_FORMAT_NV21));
+    public boolean onPreviewFrame(byte[] data) {
+        if (mMediaRecorder == null || !mIsRecording) {
+            return false;
         }
+        // 等待编码的帧达到上限时丢弃当前帧，不在Handler中堆积
+        if (!mFrameQueue.tryAcquire()) {
+            return false;
+        }
+        mHandler.post(() -> {
+            if (mMediaRecorder != null) {
+                mMediaRecorder.recordVideoFrame(data, data.length,
+                        mRecordWidth, mRecordHeight,
+                        AVFormatter.PIXEL_FORMAT_NV21);
+            }
+            mFrameQueue.release();
+            mCameraController.releasePreviewBuffer(data);
+        });
+        return true;
+    }
+
+    /**
+     * 获取预览帧的排队情况，包括待编码帧数和丢帧数
+     * @return
+     */
+    public PreviewFrameQueue getFrameQueue() {
+        return mFrameQueue;
     }
 
     /**
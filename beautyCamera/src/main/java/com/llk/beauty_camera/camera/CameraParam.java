@@ -4,6 +4,7 @@ import android.hardware.Camera;
 
 import com.llk.beauty_camera.camera.listener.OnCaptureListener;
 import com.llk.beauty_camera.camera.listener.OnFpsListener;
+import com.llk.beauty_camera.camera.listener.OnFrameStatsListener;
 import com.llk.beauty_camera.camera.listener.OnPreviewCaptureListener;
 import com.llk.beauty_camera.camera.model.AspectRatio;
 import com.llk.beauty_camera.camera.model.GalleryType;
@@ -89,6 +90,8 @@ public final class CameraParam {
     public OnCaptureListener captureCallback;
     // fps回调
     public OnFpsListener fpsCallback;
+    // 渲染帧统计回调
+    public OnFrameStatsListener frameStatsCallback;
     // 是否关闭所有滤镜
     public boolean isCloseBeautyFilter;
     // 是否拍照
@@ -138,6 +141,7 @@ public final class CameraParam {
         captureListener = null;
         captureCallback = null;
         fpsCallback = null;
+        frameStatsCallback = null;
         isCloseBeautyFilter = false;
         isTakePicture = false;
         enableDepthBlur = false;
@@ -5,5 +5,10 @@ package com.llk.beauty_camera.camera;
  */
 public interface PreviewCallback {
 
+    /**
+     * 预览帧数据，NV21格式
+     * 数组会在之后的帧中复用，需要在回调之外长期保留时自行拷贝
+     * @param data
+     */
     void onPreviewFrame(byte[] data);
 }
@@ -14,9 +14,15 @@ public class PreviewCallbackAnalyzer implements ImageAnalysis.Analyzer {
 
     private static final String TAG = "PreviewCallbackAnalyzer";
     private static final boolean VERBOSE = false;
+    // 输出数据的个数，轮流复用
+    private static final int BUFFER_COUNT = 3;
 
     private PreviewCallback mPreviewCallback;
 
+    private final YuvConverter mConverter = new YuvConverter();
+    private final byte[][] mBuffers = new byte[BUFFER_COUNT][];
+    private int mBufferIndex;
+
 
     public PreviewCallbackAnalyzer(PreviewCallback previewCallback) {
         mPreviewCallback = previewCallback;
@@ -32,11 +38,10 @@ public class PreviewCallbackAnalyzer implements ImageAnalysis.Analyzer {
                     " - " + image.getFormat());
         }
         if (mPreviewCallback != null && image.getImage() != null) {
-            byte[] data = ImageConvert.getDataFromImage(image.getImage(),
-                    ImageConvert.COLOR_FORMAT_NV21);
-            if (data != null) {
-                mPreviewCallback.onPreviewFrame(data);
-            }
+            byte[] data = obtainBuffer(YuvConverter.getBufferSize(
+                    image.getCropRect().width(), image.getCropRect().height()));
+            mConverter.convert(image.getImage(), 0, false, YuvConverter.FORMAT_NV21, data);
+            mPreviewCallback.onPreviewFrame(data);
         }
         // 使用完需要释放，否则下一次不会回调了
         image.close();
@@ -44,4 +49,17 @@ public class PreviewCallbackAnalyzer implements ImageAnalysis.Analyzer {
             Log.d(TAG, "convert cost time - " + (System.currentTimeMillis() - start));
         }
     }
+
+    /**
+     * 获取下一个输出数组，大小变化时重新分配
+     */
+    private byte[] obtainBuffer(int size) {
+        mBufferIndex = (mBufferIndex + 1) % BUFFER_COUNT;
+        byte[] buffer = mBuffers[mBufferIndex];
+        if (buffer == null || buffer.length != size) {
+            buffer = new byte[size];
+            mBuffers[mBufferIndex] = buffer;
+        }
+        return buffer;
+    }
 }
@@ -51,8 +51,8 @@ public class CameraRenderer extends Thread {
     private int mCurrentTexture;
     // 渲染管理器
     private final RenderManager mRenderManager;
-    // 计算帧率
-    private final FrameRateMeter mFrameRateMeter;
+    // 渲染帧统计
+    private final FrameTelemetry mTelemetry;
     // 预览参数
     private CameraParam mCameraParam;
 
@@ -67,7 +67,7 @@ public class CameraRenderer extends Thread {
         mWeakPresenter = new WeakReference<>(presenter);
         mCameraParam = CameraParam.getInstance();
         mRenderManager = new RenderManager();
-        mFrameRateMeter = new FrameRateMeter();
+        mTelemetry = new FrameTelemetry();
         mThreadStarted = false;
     }
 
@@ -173,6 +173,7 @@ public class CameraRenderer extends Thread {
             OpenGLUtils.deleteTexture(mInputTexture);
             mInputTexture = OpenGLUtils.GL_NOT_TEXTURE;
         }
+        mRenderManager.setTelemetry(null);
         mRenderManager.release();
         if (mWeakSurfaceTexture != null) {
             mWeakSurfaceTexture.clear();
@@ -212,6 +213,14 @@ public class CameraRenderer extends Thread {
         getHandler().sendEmptyMessage(CameraRenderHandler.MSG_RENDER);
     }
 
+    /**
+     * 获取渲染帧统计
+     * @return
+     */
+    public FrameTelemetry getFrameTelemetry() {
+        return mTelemetry;
+    }
+
     // ---------------------------------------- 渲染内部处理方法 -------------------------------------
     /**
      * 初始化渲染器
@@ -232,6 +241,7 @@ public class CameraRenderer extends Thread {
 
         // 渲染器初始化
         mRenderManager.init(mWeakPresenter.get().getContext());
+        initTelemetry();
 
         if (mWeakPresenter.get() != null) {
             mWeakPresenter.get().onBindSharedContext(mEglCore.getEGLContext());
@@ -254,12 +264,22 @@ public class CameraRenderer extends Thread {
 
         // 渲染器初始化
         mRenderManager.init(mWeakPresenter.get().getContext());
+        initTelemetry();
 
         if (mWeakPresenter.get() != null) {
             mWeakPresenter.get().onBindSharedContext(mEglCore.getEGLContext());
         }
     }
 
+    /**
+     * 初始化渲染帧统计
+     */
+    private void initTelemetry() {
+        mTelemetry.setExpectedFrameRate(mCameraParam.expectFps);
+        mTelemetry.reset();
+        mRenderManager.setTelemetry(mTelemetry);
+    }
+
     /**
      * 设置预览大小
      * @param width
@@ -291,6 +311,8 @@ public class CameraRenderer extends Thread {
         if (mInputTexture == OpenGLUtils.GL_NOT_TEXTURE) {
             return;
         }
+        // 开始统计这一帧
+        mTelemetry.beginFrame(System.nanoTime());
         // 绘制渲染
         mCurrentTexture = mRenderManager.drawFrame(mInputTexture, mMatrix);
 
@@ -369,12 +391,15 @@ public class CameraRenderer extends Thread {
     }
 
     /**
-     * 计算fps
+     * 结束这一帧的统计，回调fps，每个统计周期回调一次帧统计
      */
     private void calculateFps() {
-        if ((mCameraParam).fpsCallback != null) {
-            mFrameRateMeter.drawFrameCount();
-            (mCameraParam).fpsCallback.onFpsCallback(mFrameRateMeter.getFPS());
+        boolean updated = mTelemetry.endFrame(System.nanoTime());
+        if (mCameraParam.fpsCallback != null) {
+            mCameraParam.fpsCallback.onFpsCallback(mTelemetry.getFps());
+        }
+        if (updated && mCameraParam.frameStatsCallback != null) {
+            mCameraParam.frameStatsCallback.onFrameStats(mTelemetry.getStats());
         }
     }
 
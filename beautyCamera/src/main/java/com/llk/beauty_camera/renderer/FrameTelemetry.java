@@ -0,0 +1,287 @@
+package com.llk.beauty_camera.renderer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 渲染帧统计，替代原来按秒计算平均帧率的FrameRateMeter
+ * 记录帧间隔、每个RenderIndex阶段的CPU/GPU耗时、丢帧数以及录制帧的编码延迟，每个统计周期汇总一次到FrameStats。
+ * 时间统一使用System.nanoTime，由调用方传入，方便测试。
+ * 除了onFrameEncoded在编码线程中调用之外，其余方法都在渲染线程中调用。
+ * 所有数据保存在预先分配的基本类型环形缓冲中，跨线程的两个缓冲都只有一个写入方，用原子变量发布，不需要加锁，
+ * 稳定状态下每帧不分配内存。
+ */
+public final class FrameTelemetry {
+
+    // 阶段个数，包括显示和人脸关键点
+    public static final int STAGE_COUNT = RenderIndex.NumberIndex;
+
+    // 默认统计周期
+    public static final long DEFAULT_REPORT_INTERVAL_NANOS = 1000000000L;
+    // 帧间隔超过期望间隔的倍数时认为丢帧
+    private static final float DROP_THRESHOLD = 1.5f;
+    // 环形缓冲的大小，需要是2的幂
+    private static final int HISTORY = 256;
+    private static final int HISTORY_MASK = HISTORY - 1;
+    // 等待编码的录制帧记录个数，需要是2的幂
+    private static final int SUBMIT_HISTORY = 16;
+    private static final int SUBMIT_MASK = SUBMIT_HISTORY - 1;
+    private static final float NANOS_PER_MS = 1000000f;
+
+    private final long mReportIntervalNanos;
+    private long mExpectedIntervalNanos;
+
+    // 帧间隔，只保存当前统计周期的数据
+    private final long[] mIntervals = new long[HISTORY];
+    private int mIntervalCount;
+    private long mLastFrameNanos = -1;
+    private long mWindowStartNanos = -1;
+    private int mFrameCount;
+    private int mDroppedFrames;
+
+    // 各个阶段的耗时
+    private final long[] mStageStartNanos = new long[STAGE_COUNT];
+    private final int[] mStageFrames = new int[STAGE_COUNT];
+    private final long[] mStageCpuSum = new long[STAGE_COUNT];
+    private final long[] mStageCpuMax = new long[STAGE_COUNT];
+    private final int[] mStageGpuCount = new int[STAGE_COUNT];
+    private final long[] mStageGpuSum = new long[STAGE_COUNT];
+
+    // 提交给编码线程的录制帧，每一项为 (时间戳, 提交时间)，渲染线程写入，编码线程读取
+    private final AtomicLongArray mSubmitted = new AtomicLongArray(SUBMIT_HISTORY * 2);
+    private int mSubmitCount;
+    // 编码延迟，编码线程写入，渲染线程读取
+    private final long[] mEncoderLatency = new long[HISTORY];
+    private final AtomicInteger mEncoderWriteCount = new AtomicInteger();
+    private int mEncoderReadCount;
+
+    // 排序用的临时数组
+    private final long[] mScratch = new long[HISTORY];
+    private final FrameStats mStats = new FrameStats();
+
+    public FrameTelemetry() {
+        this(DEFAULT_REPORT_INTERVAL_NANOS);
+    }
+
+    public FrameTelemetry(long reportIntervalNanos) {
+        mReportIntervalNanos = reportIntervalNanos;
+        setExpectedFrameRate(30);
+    }
+
+    /**
+     * 设置期望帧率，用于判断丢帧
+     * @param fps
+     */
+    public void setExpectedFrameRate(int fps) {
+        mExpectedIntervalNanos = 1000000000L / Math.max(fps, 1);
+    }
+
+    /**
+     * 重新开始统计，比如预览中断之后，避免把中断的时间算作帧间隔
+     */
+    public void reset() {
+        mLastFrameNanos = -1;
+        mWindowStartNanos = -1;
+        resetWindow();
+    }
+
+    /**
+     * 开始一帧
+     * @param nowNanos
+     */
+    public void beginFrame(long nowNanos) {
+        if (mWindowStartNanos < 0) {
+            mWindowStartNanos = nowNanos;
+        }
+        if (mLastFrameNanos >= 0) {
+            long interval = nowNanos - mLastFrameNanos;
+            mIntervals[mIntervalCount & HISTORY_MASK] = interval;
+            mIntervalCount++;
+            if (interval > mExpectedIntervalNanos * DROP_THRESHOLD) {
+                // 间隔内完整的期望帧数减去实际绘制的一帧
+                mDroppedFrames += Math.max(1, (int) (interval / mExpectedIntervalNanos) - 1);
+            }
+        }
+        mLastFrameNanos = nowNanos;
+        mFrameCount++;
+    }
+
+    /**
+     * 开始一个阶段
+     * @param stage     RenderIndex
+     * @param nowNanos
+     */
+    public void beginStage(int stage, long nowNanos) {
+        mStageStartNanos[stage] = nowNanos;
+    }
+
+    /**
+     * 结束一个阶段
+     * @param stage     RenderIndex
+     * @param nowNanos
+     */
+    public void endStage(int stage, long nowNanos) {
+        long elapsed = nowNanos - mStageStartNanos[stage];
+        mStageFrames[stage]++;
+        mStageCpuSum[stage] += elapsed;
+        if (elapsed > mStageCpuMax[stage]) {
+            mStageCpuMax[stage] = elapsed;
+        }
+    }
+
+    /**
+     * 记录阶段的GPU耗时，计时查询的结果通常会延迟几帧才能拿到
+     * @param stage         RenderIndex
+     * @param elapsedNanos
+     */
+    public void recordGpuTime(int stage, long elapsedNanos) {
+        mStageGpuCount[stage]++;
+        mStageGpuSum[stage] += elapsedNanos;
+    }
+
+    /**
+     * 录制帧提交给编码线程
+     * @param timestamp 帧的时间戳，用于在编码完成时查找提交时间
+     * @param nowNanos
+     */
+    public void onFrameSubmitted(long timestamp, long nowNanos) {
+        if (timestamp == 0) {
+            return;
+        }
+        int index = (mSubmitCount++ & SUBMIT_MASK) * 2;
+        // 先清空时间戳，编码线程读到一半被覆盖的记录时会校验失败
+        mSubmitted.set(index, 0);
+        mSubmitted.set(index + 1, nowNanos);
+        mSubmitted.set(index, timestamp);
+    }
+
+    /**
+     * 录制帧编码完成，在编码线程中调用
+     * 编码线程落后太多，提交记录已被覆盖时忽略这一帧
+     * @param timestamp 帧的时间戳
+     * @param nowNanos
+     */
+    public void onFrameEncoded(long timestamp, long nowNanos) {
+        if (timestamp == 0) {
+            return;
+        }
+        for (int i = 0; i < SUBMIT_HISTORY; i++) {
+            int index = i * 2;
+            if (mSubmitted.get(index) != timestamp) {
+                continue;
+            }
+            long submitNanos = mSubmitted.get(index + 1);
+            if (mSubmitted.get(index) != timestamp) {
+                return;
+            }
+            int count = mEncoderWriteCount.get();
+            mEncoderLatency[count & HISTORY_MASK] = nowNanos - submitNanos;
+            mEncoderWriteCount.lazySet(count + 1);
+            return;
+        }
+    }
+
+    /**
+     * 结束一帧，统计周期结束时汇总数据
+     * @param nowNanos
+     * @return 是否生成了新的统计数据，可以通过getStats获取
+     */
+    public boolean endFrame(long nowNanos) {
+        if (mWindowStartNanos < 0 || nowNanos - mWindowStartNanos < mReportIntervalNanos) {
+            return false;
+        }
+        summarize(nowNanos - mWindowStartNanos);
+        mWindowStartNanos = nowNanos;
+        resetWindow();
+        return true;
+    }
+
+    /**
+     * 获取最近一个统计周期的数据，对象会被复用，只能在渲染线程中读取
+     * @return
+     */
+    public FrameStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * 获取最近一个统计周期的平均帧率
+     * @return
+     */
+    public float getFps() {
+        return mStats.fps;
+    }
+
+    private void summarize(long durationNanos) {
+        FrameStats stats = mStats;
+        stats.durationMs = durationNanos / NANOS_PER_MS;
+        stats.frameCount = mFrameCount;
+        stats.fps = durationNanos > 0 ? mFrameCount * 1e9f / durationNanos : 0;
+        stats.droppedFrames = mDroppedFrames;
+
+        // 帧间隔，超过缓冲大小时只统计最近的部分
+        int count = Math.min(mIntervalCount, HISTORY);
+        long jitterSum = 0;
+        for (int i = 0; i < count; i++) {
+            int index = (mIntervalCount - count + i) & HISTORY_MASK;
+            mScratch[i] = mIntervals[index];
+            if (i > 0) {
+                jitterSum += Math.abs(mIntervals[index] - mIntervals[(index - 1) & HISTORY_MASK]);
+            }
+        }
+        stats.jitterMs = count > 1 ? jitterSum / (count - 1) / NANOS_PER_MS : 0;
+        Arrays.sort(mScratch, 0, count);
+        stats.intervalP50Ms = percentile(mScratch, count, 0.50f);
+        stats.intervalP95Ms = percentile(mScratch, count, 0.95f);
+        stats.intervalP99Ms = percentile(mScratch, count, 0.99f);
+        stats.intervalMaxMs = count > 0 ? mScratch[count - 1] / NANOS_PER_MS : 0;
+
+        // 阶段耗时
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            int frames = mStageFrames[i];
+            stats.stageFrames[i] = frames;
+            stats.stageCpuMs[i] = frames > 0 ? mStageCpuSum[i] / frames / NANOS_PER_MS : 0;
+            stats.stageCpuMaxMs[i] = mStageCpuMax[i] / NANOS_PER_MS;
+            stats.stageGpuMs[i] = mStageGpuCount[i] > 0
+                    ? mStageGpuSum[i] / mStageGpuCount[i] / NANOS_PER_MS : -1;
+        }
+
+        // 编码延迟
+        int writeCount = mEncoderWriteCount.get();
+        int samples = Math.min(writeCount - mEncoderReadCount, HISTORY);
+        for (int i = 0; i < samples; i++) {
+            mScratch[i] = mEncoderLatency[(writeCount - samples + i) & HISTORY_MASK];
+        }
+        mEncoderReadCount = writeCount;
+        Arrays.sort(mScratch, 0, samples);
+        stats.encoderSamples = samples;
+        stats.encoderLatencyP50Ms = percentile(mScratch, samples, 0.50f);
+        stats.encoderLatencyP95Ms = percentile(mScratch, samples, 0.95f);
+        stats.encoderLatencyMaxMs = samples > 0 ? mScratch[samples - 1] / NANOS_PER_MS : 0;
+    }
+
+    private void resetWindow() {
+        mIntervalCount = 0;
+        mFrameCount = 0;
+        mDroppedFrames = 0;
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            mStageFrames[i] = 0;
+            mStageCpuSum[i] = 0;
+            mStageCpuMax[i] = 0;
+            mStageGpuCount[i] = 0;
+            mStageGpuSum[i] = 0;
+        }
+    }
+
+    /**
+     * 取排序后数组的分位数(最近秩)
+     */
+    private static float percentile(long[] sorted, int count, float fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))] / NANOS_PER_MS;
+    }
+}
@@ -42,6 +42,8 @@ public final class RenderManager {
     private CameraParam mCameraParam;
     // 上下文
     private Context mContext;
+    // 渲染帧统计
+    private FrameTelemetry mTelemetry;
 
     /**
      * 初始化
@@ -61,6 +63,34 @@ public final class RenderManager {
         mContext = null;
     }
 
+    /**
+     * 设置渲染帧统计，绘制时记录每个阶段的CPU耗时
+     * @param telemetry 帧统计
+     */
+    public void setTelemetry(FrameTelemetry telemetry) {
+        mTelemetry = telemetry;
+    }
+
+    /**
+     * 开始统计一个阶段的耗时
+     * @param stage RenderIndex
+     */
+    private void beginStage(int stage) {
+        if (mTelemetry != null) {
+            mTelemetry.beginStage(stage, System.nanoTime());
+        }
+    }
+
+    /**
+     * 结束统计一个阶段的耗时
+     * @param stage RenderIndex
+     */
+    private void endStage(int stage) {
+        if (mTelemetry != null) {
+            mTelemetry.endStage(stage, System.nanoTime());
+        }
+    }
+
     /**
      * 释放滤镜
      */
@@ -135,8 +165,10 @@ public final class RenderManager {
         if (mFilterArrays.get(RenderIndex.CameraIndex) instanceof GLImageOESInputFilter) {
             ((GLImageOESInputFilter)mFilterArrays.get(RenderIndex.CameraIndex)).setTextureTransformMatrix(mMatrix);
         }
+        beginStage(RenderIndex.CameraIndex);
         currentTexture = mFilterArrays.get(RenderIndex.CameraIndex)
                 .drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
+        endStage(RenderIndex.CameraIndex);
         if (!mCameraParam.isCloseBeautyFilter) {
             // 美颜滤镜
             if (mFilterArrays.get(RenderIndex.BeautyIndex) != null) {
@@ -144,12 +176,16 @@ public final class RenderManager {
                         && mCameraParam.beauty != null) {
                     ((IBeautify) mFilterArrays.get(RenderIndex.BeautyIndex)).onBeauty(mCameraParam.beauty);
                 }
+                beginStage(RenderIndex.BeautyIndex);
                 currentTexture = mFilterArrays.get(RenderIndex.BeautyIndex).drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
+                endStage(RenderIndex.BeautyIndex);
             }
         }
 
         // 显示输出，需要调整视口大小
+        beginStage(RenderIndex.DisplayIndex);
         mFilterArrays.get(RenderIndex.DisplayIndex).drawFrame(currentTexture, mDisplayVertexBuffer, mDisplayTextureBuffer);
+        endStage(RenderIndex.DisplayIndex);
 
         return currentTexture;
     }
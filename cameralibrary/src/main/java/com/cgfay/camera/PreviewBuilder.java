@@ -8,6 +8,7 @@ import androidx.fragment.app.Fragment;
 import com.cgfay.cameralibrary.R;
 import com.cgfay.camera.activity.CameraActivity;
 import com.cgfay.camera.camera.CameraParam;
+import com.cgfay.camera.listener.OnFrameStatsListener;
 import com.cgfay.camera.listener.OnPreviewCaptureListener;
 import com.cgfay.camera.model.AspectRatio;
 
@@ -165,6 +166,16 @@ public final class PreviewBuilder {
         return this;
     }
 
+    /**
+     * 设置渲染帧统计监听器，每秒回调一次帧间隔、丢帧、各阶段耗时和编码延迟
+     * @param listener
+     * @return
+     */
+    public PreviewBuilder setFrameStatsListener(OnFrameStatsListener listener) {
+        mCameraParam.frameStatsCallback = listener;
+        return this;
+    }
+
     /**
      * 打开预览
      */
@@ -1,6 +1,7 @@
 package com.cgfay.camera.camera;
 
 import android.app.Activity;
+import android.graphics.ImageFormat;
 import android.graphics.Rect;
 import android.graphics.SurfaceTexture;
 import android.hardware.Camera;
@@ -27,6 +28,8 @@ public class CameraController implements ICameraController, Camera.PreviewCallba
     // 16:9的默认宽高(理想值)
     private static final int DEFAULT_16_9_WIDTH = 1280;
     private static final int DEFAULT_16_9_HEIGHT = 720;
+    // 预览帧数组个数，全部被回调保留时相机丢弃新的帧
+    private static final int PREVIEW_BUFFER_COUNT = 3;
 
     // 期望的fps
     private int mExpectFps = CameraParam.DESIRED_PREVIEW_FPS;
@@ -44,6 +47,10 @@ public class CameraController implements ICameraController, Camera.PreviewCallba
     private OnSurfaceTextureListener mSurfaceTextureListener;
     // 预览数据回调
     private PreviewCallback mPreviewCallback;
+    // 预览帧数组，以及是否被回调保留
+    private final Object mPreviewBufferLock = new Object();
+    private byte[][] mPreviewBuffers;
+    private final boolean[] mPreviewBufferRetained = new boolean[PREVIEW_BUFFER_COUNT];
     // 输出纹理更新回调
     private OnFrameAvailableListener mFrameAvailableListener;
     // 相机输出的SurfaceTexture
@@ -89,7 +96,8 @@ public class CameraController implements ICameraController, Camera.PreviewCallba
         mOutputTexture = createDetachedSurfaceTexture();
         try {
             mCamera.setPreviewTexture(mOutputTexture);
-            mCamera.setPreviewCallback(this);
+            mCamera.setPreviewCallbackWithBuffer(this);
+            addPreviewBuffers();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -99,6 +107,38 @@ public class CameraController implements ICameraController, Camera.PreviewCallba
         }
     }
 
+    /**
+     * 把预览帧数组交给相机，尺寸变化时重新分配，仍被回调保留的数组在归还时再交给相机
+     */
+    private void addPreviewBuffers() {
+        int size = mPreviewWidth * mPreviewHeight * ImageFormat.getBitsPerPixel(ImageFormat.NV21) / 8;
+        synchronized (mPreviewBufferLock) {
+            if (mPreviewBuffers == null || mPreviewBuffers[0].length != size) {
+                mPreviewBuffers = new byte[PREVIEW_BUFFER_COUNT][];
+                for (int i = 0; i < PREVIEW_BUFFER_COUNT; i++) {
+                    mPreviewBuffers[i] = new byte[size];
+                    mPreviewBufferRetained[i] = false;
+                }
+            }
+            for (int i = 0; i < PREVIEW_BUFFER_COUNT; i++) {
+                if (!mPreviewBufferRetained[i]) {
+                    mCamera.addCallbackBuffer(mPreviewBuffers[i]);
+                }
+            }
+        }
+    }
+
+    private int indexOfPreviewBuffer(byte[] data) {
+        if (mPreviewBuffers != null) {
+            for (int i = 0; i < PREVIEW_BUFFER_COUNT; i++) {
+                if (mPreviewBuffers[i] == data) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
     /**
      * 创建一个SurfaceTexture并
      * @return
@@ -182,10 +222,36 @@ public class CameraController implements ICameraController, Camera.PreviewCallba
         }
     }
 
+    @Override
+    public void releasePreviewBuffer(byte[] data) {
+        synchronized (mPreviewBufferLock) {
+            int index = indexOfPreviewBuffer(data);
+            if (index < 0 || !mPreviewBufferRetained[index]) {
+                return;
+            }
+            mPreviewBufferRetained[index] = false;
+            if (mCamera != null) {
+                mCamera.addCallbackBuffer(data);
+            }
+        }
+    }
+
     @Override
     public void onPreviewFrame(byte[] data, Camera camera) {
-        if (mPreviewCallback != null) {
-            mPreviewCallback.onPreviewFrame(data);
+        if (data == null) {
+            return;
+        }
+        int index;
+        // 回调之前先标记为保留，异步处理的一方可能在回调返回之前就归还
+        synchronized (mPreviewBufferLock) {
+            index = indexOfPreviewBuffer(data);
+            if (index >= 0) {
+                mPreviewBufferRetained[index] = true;
+            }
+        }
+        boolean retained = mPreviewCallback != null && mPreviewCallback.onPreviewFrame(data);
+        if (!retained && index >= 0) {
+            releasePreviewBuffer(data);
         }
     }
 
@@ -4,6 +4,7 @@ import android.hardware.Camera;
 
 import com.cgfay.camera.listener.OnCaptureListener;
 import com.cgfay.camera.listener.OnFpsListener;
+import com.cgfay.camera.listener.OnFrameStatsListener;
 import com.cgfay.camera.model.AspectRatio;
 import com.cgfay.camera.model.GalleryType;
 import com.cgfay.camera.listener.OnPreviewCaptureListener;
@@ -89,6 +90,8 @@ public final class CameraParam {
     public OnCaptureListener captureCallback;
     // fps回调
     public OnFpsListener fpsCallback;
+    // 渲染帧统计回调
+    public OnFrameStatsListener frameStatsCallback;
     // 是否显示对比效果
     public boolean showCompare;
     // 是否拍照
@@ -138,6 +141,7 @@ public final class CameraParam {
         captureListener = null;
         captureCallback = null;
         fpsCallback = null;
+        frameStatsCallback = null;
         showCompare = false;
         isTakePicture = false;
         enableDepthBlur = false;
@@ -59,6 +59,7 @@ public class CameraXController implements ICameraController {
     private ImageAnalysis mPreviewAnalyzer;
     // 预览回调
     private PreviewCallback mPreviewCallback;
+    private PreviewCallbackAnalyzer mPreviewCallbackAnalyzer;
     // SurfaceTexture准备监听器
     private OnSurfaceTextureListener mSurfaceTextureListener;
     // 纹理更新监听器
@@ -124,7 +125,8 @@ public class CameraXController implements ICameraController {
                 .setTargetResolution(new Size(mPreviewWidth, mPreviewHeight))
                 .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                 .build();
-        mPreviewAnalyzer.setAnalyzer(mExecutor, new PreviewCallbackAnalyzer(mPreviewCallback));
+        mPreviewCallbackAnalyzer = new PreviewCallbackAnalyzer(mPreviewCallback);
+        mPreviewAnalyzer.setAnalyzer(mExecutor, mPreviewCallbackAnalyzer);
 
         // 前后置摄像头选择器
         CameraSelector cameraSelector =
@@ -188,6 +190,14 @@ public class CameraXController implements ICameraController {
         mPreviewCallback = callback;
     }
 
+    @Override
+    public void releasePreviewBuffer(byte[] data) {
+        PreviewCallbackAnalyzer analyzer = mPreviewCallbackAnalyzer;
+        if (analyzer != null) {
+            analyzer.releaseBuffer(data);
+        }
+    }
+
     @Override
     public void setOnFrameAvailableListener(OnFrameAvailableListener listener) {
         mFrameAvailableListener = listener;
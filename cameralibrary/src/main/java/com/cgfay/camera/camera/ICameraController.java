@@ -29,6 +29,12 @@ public interface ICameraController {
      */
     void setPreviewCallback(PreviewCallback callback);
 
+    /**
+     * 归还PreviewCallback中保留的预览帧数组
+     * @param data
+     */
+    void releasePreviewBuffer(byte[] data);
+
     /**
      * 设置纹理更新回调
      */
@@ -0,0 +1,85 @@
+package com.cgfay.camera.camera;
+
+import java.util.ArrayDeque;
+
+/**
+ * 预览帧数组池
+ * 最多分配capacity个数组，全部被占用时obtain返回null，调用方丢弃这一帧，不会无限制地分配内存。
+ * 尺寸变化后，旧尺寸的数组在归还时直接丢弃。
+ */
+public final class PreviewBufferPool {
+
+    private final int mCapacity;
+    private final ArrayDeque<byte[]> mFreeBuffers;
+    private int mBufferSize;
+    // 已经分配的当前尺寸的数组个数
+    private int mAllocatedCount;
+    // 取不到数组而丢弃的帧数
+    private long mDroppedCount;
+
+    public PreviewBufferPool(int capacity) {
+        mCapacity = capacity;
+        mFreeBuffers = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * 设置数组大小，大小变化时丢弃空闲的数组
+     * @param size
+     */
+    public synchronized void setBufferSize(int size) {
+        if (mBufferSize != size) {
+            mBufferSize = size;
+            mFreeBuffers.clear();
+            mAllocatedCount = 0;
+        }
+    }
+
+    public synchronized int getBufferSize() {
+        return mBufferSize;
+    }
+
+    /**
+     * 获取一个数组
+     * @return 全部被占用时返回null
+     */
+    public synchronized byte[] obtain() {
+        byte[] buffer = mFreeBuffers.pollFirst();
+        if (buffer == null) {
+            if (mAllocatedCount >= mCapacity || mBufferSize <= 0) {
+                mDroppedCount++;
+                return null;
+            }
+            buffer = new byte[mBufferSize];
+            mAllocatedCount++;
+        }
+        return buffer;
+    }
+
+    /**
+     * 归还数组
+     * @param buffer
+     */
+    public synchronized void release(byte[] buffer) {
+        if (buffer == null || buffer.length != mBufferSize
+                || mFreeBuffers.size() >= mAllocatedCount) {
+            return;
+        }
+        for (byte[] free : mFreeBuffers) {
+            if (free == buffer) {
+                return;
+            }
+        }
+        mFreeBuffers.addLast(buffer);
+    }
+
+    /**
+     * 正在使用中的数组个数
+     */
+    public synchronized int getInUseCount() {
+        return mAllocatedCount - mFreeBuffers.size();
+    }
+
+    public synchronized long getDroppedCount() {
+        return mDroppedCount;
+    }
+}
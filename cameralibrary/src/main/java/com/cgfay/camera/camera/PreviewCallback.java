@@ -5,5 +5,11 @@ package com.cgfay.camera.camera;
  */
 public interface PreviewCallback {
 
-    void onPreviewFrame(byte[] data);
+    /**
+     * 预览帧数据，NV21格式，数组来自复用的缓冲池
+     * @param data
+     * @return 是否保留data异步处理。返回false时data在回调返回后立即复用；
+     *         返回true时处理完毕后需要调用ICameraController.releasePreviewBuffer归还，归还之前相机不会再写入
+     */
+    boolean onPreviewFrame(byte[] data);
 }
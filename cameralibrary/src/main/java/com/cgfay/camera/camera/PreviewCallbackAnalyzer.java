@@ -14,9 +14,14 @@ public class PreviewCallbackAnalyzer implements ImageAnalysis.Analyzer {
 
     private static final String TAG = "PreviewCallbackAnalyzer";
     private static final boolean VERBOSE = false;
+    // 预览帧数组的个数，全部被占用时丢弃新的帧
+    private static final int BUFFER_COUNT = 3;
 
     private PreviewCallback mPreviewCallback;
 
+    private final YuvConverter mConverter = new YuvConverter();
+    private final PreviewBufferPool mBufferPool = new PreviewBufferPool(BUFFER_COUNT);
+
 
     public PreviewCallbackAnalyzer(PreviewCallback previewCallback) {
         mPreviewCallback = previewCallback;
@@ -32,10 +37,16 @@ public class PreviewCallbackAnalyzer implements ImageAnalysis.Analyzer {
                     " - " + image.getFormat());
         }
         if (mPreviewCallback != null && image.getImage() != null) {
-            byte[] data = ImageConvert.getDataFromImage(image.getImage(),
-                    ImageConvert.COLOR_FORMAT_NV21);
+            mBufferPool.setBufferSize(YuvConverter.getBufferSize(
+                    image.getCropRect().width(), image.getCropRect().height()));
+            byte[] data = mBufferPool.obtain();
             if (data != null) {
-                mPreviewCallback.onPreviewFrame(data);
+                mConverter.convert(image.getImage(), 0, false, YuvConverter.FORMAT_NV21, data);
+                if (!mPreviewCallback.onPreviewFrame(data)) {
+                    mBufferPool.release(data);
+                }
+            } else if (VERBOSE) {
+                Log.d(TAG, "analyze: all buffers in use, dropped - " + mBufferPool.getDroppedCount());
             }
         }
         // 使用完需要释放，否则下一次不会回调了
@@ -44,4 +55,12 @@ public class PreviewCallbackAnalyzer implements ImageAnalysis.Analyzer {
             Log.d(TAG, "convert cost time - " + (System.currentTimeMillis() - start));
         }
     }
+
+    /**
+     * 归还回调中保留的数组
+     * @param data
+     */
+    public void releaseBuffer(byte[] data) {
+        mBufferPool.release(data);
+    }
 }
@@ -0,0 +1,80 @@
+package com.cgfay.camera.camera;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 预览帧异步处理的背压控制
+ * 预览回调线程把帧投递到其它线程(录制、检测等)处理时，先调用tryAcquire，
+ * 待处理的帧达到上限说明处理跟不上，直接丢弃这一帧，不会在Handler中无限堆积消息；处理完毕后调用release。
+ */
+public final class PreviewFrameQueue {
+
+    private final int mMaxPending;
+    private final AtomicInteger mPending = new AtomicInteger();
+    // 待处理帧数的峰值
+    private final AtomicInteger mPeakPending = new AtomicInteger();
+    private final AtomicLong mAcceptedCount = new AtomicLong();
+    private final AtomicLong mDroppedCount = new AtomicLong();
+
+    public PreviewFrameQueue(int maxPending) {
+        mMaxPending = maxPending;
+    }
+
+    /**
+     * 尝试投递一帧
+     * @return 待处理的帧已满时返回false，该帧应当丢弃
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int pending = mPending.get();
+            if (pending >= mMaxPending) {
+                mDroppedCount.incrementAndGet();
+                return false;
+            }
+            if (mPending.compareAndSet(pending, pending + 1)) {
+                mAcceptedCount.incrementAndGet();
+                int peak;
+                do {
+                    peak = mPeakPending.get();
+                } while (pending + 1 > peak && !mPeakPending.compareAndSet(peak, pending + 1));
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 一帧处理完毕
+     */
+    public void release() {
+        mPending.decrementAndGet();
+    }
+
+    /**
+     * 当前待处理的帧数
+     */
+    public int getPendingCount() {
+        return mPending.get();
+    }
+
+    public int getPeakPendingCount() {
+        return mPeakPending.get();
+    }
+
+    public long getAcceptedCount() {
+        return mAcceptedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+
+    /**
+     * 重置统计数据，不影响待处理的帧
+     */
+    public void resetStatistics() {
+        mPeakPending.set(mPending.get());
+        mAcceptedCount.set(0);
+        mDroppedCount.set(0);
+    }
+}
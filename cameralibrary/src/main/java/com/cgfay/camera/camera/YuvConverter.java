@@ -0,0 +1,214 @@
+package com.cgfay.camera.camera;
+
+import android.graphics.Rect;
+import android.media.Image;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.ByteBuffer;
+
+/**
+ * YUV_420_888数据转换
+ * 把带行填充和像素间隔的三个平面转换为紧密排列的I420/NV21/NV12，可以同时旋转和左右镜像。
+ * 输出写入调用方提供的数组，同一个对象只在行缓冲不够时分配内存，稳定状态下每帧不分配内存。
+ * 像素间隔为1且不旋转时整行拷贝，否则先整行读取到行缓冲中，再按旋转后的位置写入，旋转不需要额外的一遍拷贝。
+ * 不是线程安全的，每个线程使用自己的对象。
+ */
+public final class YuvConverter {
+
+    public static final int FORMAT_I420 = 1;
+    public static final int FORMAT_NV21 = 2;
+    public static final int FORMAT_NV12 = 3;
+    @IntDef(value = {FORMAT_I420, FORMAT_NV21, FORMAT_NV12})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface Format {}
+
+    // 行缓冲
+    private byte[] mRowBuffer = new byte[0];
+
+    /**
+     * 获取输出数据的大小
+     * @param width     宽度
+     * @param height    高度
+     * @return
+     */
+    public static int getBufferSize(int width, int height) {
+        return width * height * 3 / 2;
+    }
+
+    /**
+     * 转换Image中裁剪区域的数据
+     * @param image     YUV_420_888格式的Image
+     * @param rotation  顺时针旋转角度，0/90/180/270
+     * @param mirror    旋转之后是否左右镜像
+     * @param format    输出格式
+     * @param output    输出数组，大小不小于getBufferSize
+     */
+    public void convert(@NonNull Image image, int rotation, boolean mirror,
+                        @Format int format, @NonNull byte[] output) {
+        Image.Plane[] planes = image.getPlanes();
+        Rect crop = image.getCropRect();
+        convert(planes[0].getBuffer(), planes[0].getRowStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[1].getRowStride(), planes[1].getPixelStride(),
+                crop.left, crop.top, crop.width(), crop.height(),
+                rotation, mirror, format, output);
+    }
+
+    /**
+     * 转换YUV_420_888的三个平面，Y平面的像素间隔为1，U、V平面的行间隔和像素间隔相同
+     * 平面数据从buffer的当前position开始读取，读取完毕后position不变
+     * @param yPlane        Y平面
+     * @param yRowStride    Y平面行间隔
+     * @param uPlane        U平面
+     * @param vPlane        V平面
+     * @param uvRowStride   U、V平面行间隔
+     * @param uvPixelStride U、V平面像素间隔
+     * @param left          裁剪区域左边
+     * @param top           裁剪区域上边
+     * @param width         裁剪区域宽度，必须为偶数
+     * @param height        裁剪区域高度，必须为偶数
+     * @param rotation      顺时针旋转角度，0/90/180/270，90和270时输出宽高互换
+     * @param mirror        旋转之后是否左右镜像
+     * @param format        输出格式
+     * @param output        输出数组，大小不小于getBufferSize
+     */
+    public void convert(@NonNull ByteBuffer yPlane, int yRowStride,
+                        @NonNull ByteBuffer uPlane, @NonNull ByteBuffer vPlane,
+                        int uvRowStride, int uvPixelStride,
+                        int left, int top, int width, int height,
+                        int rotation, boolean mirror, @Format int format, @NonNull byte[] output) {
+        if (format != FORMAT_I420 && format != FORMAT_NV21 && format != FORMAT_NV12) {
+            throw new IllegalArgumentException("unsupported format " + format);
+        }
+        if (rotation != 0 && rotation != 90 && rotation != 180 && rotation != 270) {
+            throw new IllegalArgumentException("unsupported rotation " + rotation);
+        }
+        if ((width & 1) != 0 || (height & 1) != 0 || (left & 1) != 0 || (top & 1) != 0) {
+            throw new IllegalArgumentException("crop must be even: " + left + ", " + top
+                    + ", " + width + "x" + height);
+        }
+        if (output.length < getBufferSize(width, height)) {
+            throw new IllegalArgumentException("output too small: " + output.length
+                    + " < " + getBufferSize(width, height));
+        }
+        int ySize = width * height;
+        int chromaWidth = width >> 1;
+        int chromaHeight = height >> 1;
+        int chromaSize = chromaWidth * chromaHeight;
+
+        // Y平面
+        copyPlane(yPlane, top * yRowStride + left, yRowStride, 1,
+                width, height, rotation, mirror, output, 0, 1);
+        // U、V平面，I420分开存放，NV21为VU交错，NV12为UV交错
+        int uvOffset = (top >> 1) * uvRowStride + (left >> 1) * uvPixelStride;
+        switch (format) {
+            case FORMAT_I420:
+                copyPlane(uPlane, uvOffset, uvRowStride, uvPixelStride,
+                        chromaWidth, chromaHeight, rotation, mirror, output, ySize, 1);
+                copyPlane(vPlane, uvOffset, uvRowStride, uvPixelStride,
+                        chromaWidth, chromaHeight, rotation, mirror, output, ySize + chromaSize, 1);
+                break;
+
+            case FORMAT_NV21:
+                copyPlane(vPlane, uvOffset, uvRowStride, uvPixelStride,
+                        chromaWidth, chromaHeight, rotation, mirror, output, ySize, 2);
+                copyPlane(uPlane, uvOffset, uvRowStride, uvPixelStride,
+                        chromaWidth, chromaHeight, rotation, mirror, output, ySize + 1, 2);
+                break;
+
+            case FORMAT_NV12:
+                copyPlane(uPlane, uvOffset, uvRowStride, uvPixelStride,
+                        chromaWidth, chromaHeight, rotation, mirror, output, ySize, 2);
+                copyPlane(vPlane, uvOffset, uvRowStride, uvPixelStride,
+                        chromaWidth, chromaHeight, rotation, mirror, output, ySize + 1, 2);
+                break;
+        }
+    }
+
+    /**
+     * 拷贝一个平面
+     * @param plane         源平面
+     * @param offset        裁剪区域在平面中的偏移
+     * @param rowStride     行间隔
+     * @param pixelStride   像素间隔
+     * @param width         平面宽度
+     * @param height        平面高度
+     * @param rotation      旋转角度
+     * @param mirror        是否镜像
+     * @param output        输出数组
+     * @param outputOffset  平面在输出数组中的偏移
+     * @param outputStride  输出的像素间隔，交错存放时为2
+     */
+    private void copyPlane(ByteBuffer plane, int offset, int rowStride, int pixelStride,
+                           int width, int height, int rotation, boolean mirror,
+                           byte[] output, int outputOffset, int outputStride) {
+        int outputWidth = rotation == 90 || rotation == 270 ? height : width;
+        // 源数据第row行第col列输出到 (x, y)，x = x0 + dx * col，y = y0 + dy * col，x0、y0随行变化
+        int rowBytes = (width - 1) * pixelStride + 1;
+        if (mRowBuffer.length < rowBytes) {
+            mRowBuffer = new byte[rowBytes];
+        }
+        byte[] rowBuffer = mRowBuffer;
+        int start = plane.position();
+        try {
+            for (int row = 0; row < height; row++) {
+                int x0;
+                int y0;
+                int dx;
+                int dy;
+                switch (rotation) {
+                    case 90:
+                        x0 = height - 1 - row;
+                        y0 = 0;
+                        dx = 0;
+                        dy = 1;
+                        break;
+
+                    case 180:
+                        x0 = width - 1;
+                        y0 = height - 1 - row;
+                        dx = -1;
+                        dy = 0;
+                        break;
+
+                    case 270:
+                        x0 = row;
+                        y0 = width - 1;
+                        dx = 0;
+                        dy = -1;
+                        break;
+
+                    default:
+                        x0 = 0;
+                        y0 = row;
+                        dx = 1;
+                        dy = 0;
+                        break;
+                }
+                if (mirror) {
+                    x0 = outputWidth - 1 - x0;
+                    dx = -dx;
+                }
+                int index = (y0 * outputWidth + x0) * outputStride + outputOffset;
+                int step = (dy * outputWidth + dx) * outputStride;
+                plane.position(start + offset + row * rowStride);
+                if (pixelStride == 1 && step == 1) {
+                    // 整行拷贝
+                    plane.get(output, index, width);
+                    continue;
+                }
+                plane.get(rowBuffer, 0, rowBytes);
+                for (int col = 0, src = 0; col < width; col++, src += pixelStride) {
+                    output[index] = rowBuffer[src];
+                    index += step;
+                }
+            }
+        } finally {
+            plane.position(start);
+        }
+    }
+}
@@ -8,6 +8,6 @@ import android.graphics.Bitmap;
  * Created by cain.huang on 2017/12/27.
  */
 public interface OnCaptureListener {
-    // 截帧回调
+    // 截帧回调，bitmap归监听器所有，使用完之后由监听器回收
     void onCapture(Bitmap bitmap);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.cgfay.camera.listener;
+
+import com.cgfay.camera.render.FrameStats;
+
+/**
+ * 渲染帧统计监听器
+ */
+public interface OnFrameStatsListener {
+    // 每个统计周期回调一次，在渲染线程中调用，stats会被复用，需要保存时自行拷贝
+    void onFrameStats(FrameStats stats);
+}
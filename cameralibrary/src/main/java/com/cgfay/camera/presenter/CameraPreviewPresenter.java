@@ -25,6 +25,7 @@ import com.cgfay.camera.listener.OnFpsListener;
 import com.cgfay.camera.fragment.CameraPreviewFragment;
 import com.cgfay.camera.listener.OnPreviewCaptureListener;
 import com.cgfay.camera.render.CameraRenderer;
+import com.cgfay.camera.render.FrameTelemetry;
 import com.cgfay.camera.utils.PathConstraints;
 import com.cgfay.filter.glfilter.color.bean.DynamicColor;
 import com.cgfay.filter.glfilter.makeup.bean.DynamicMakeup;
@@ -376,6 +377,10 @@ public class CameraPreviewPresenter extends PreviewPresenter<CameraPreviewFragme
         }
         if (mHWMediaRecorder == null) {
             mHWMediaRecorder = new HWMediaRecorder(this);
+            // 统计录制帧从提交到编码完成的延迟
+            final FrameTelemetry telemetry = mCameraRenderer.getFrameTelemetry();
+            mHWMediaRecorder.setOnFrameEncodedListener(timestamp ->
+                    telemetry.onFrameEncoded(timestamp, System.nanoTime()));
         }
         mHWMediaRecorder.startRecord(mVideoParams, mAudioParams);
         mOperateStarted = true;
@@ -486,10 +491,11 @@ public class CameraPreviewPresenter extends PreviewPresenter<CameraPreviewFragme
 
     // ---------------------------------- 相机预览数据回调 ------------------------------------------
     @Override
-    public void onPreviewFrame(byte[] data) {
+    public boolean onPreviewFrame(byte[] data) {
         Log.d(TAG, "onPreviewFrame: width - " + mCameraController.getPreviewWidth()
                 + ", height - " + mCameraController.getPreviewHeight());
         mCameraRenderer.requestRender();
+        return false;
     }
 
     // ------------------------------ SurfaceTexture帧可用回调 --------------------------------------
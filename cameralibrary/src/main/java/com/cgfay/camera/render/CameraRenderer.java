@@ -1,7 +1,6 @@
 package com.cgfay.camera.render;
 
 import android.graphics.SurfaceTexture;
-import android.opengl.GLES30;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Process;
@@ -15,12 +14,15 @@ import androidx.annotation.Nullable;
 import com.cgfay.camera.camera.CameraParam;
 import com.cgfay.camera.presenter.PreviewPresenter;
 import com.cgfay.filter.gles.EglCore;
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.gles.GLStateCache;
 import com.cgfay.filter.gles.WindowSurface;
 import com.cgfay.filter.glfilter.color.bean.DynamicColor;
 import com.cgfay.filter.glfilter.makeup.bean.DynamicMakeup;
 import com.cgfay.filter.glfilter.stickers.StaticStickerNormalFilter;
 import com.cgfay.filter.glfilter.stickers.bean.DynamicSticker;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+import com.cgfay.landmark.LandmarkEngine;
 
 import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
@@ -57,8 +59,12 @@ public class CameraRenderer extends Thread {
     private int mCurrentTexture;
     // 渲染管理器
     private final RenderManager mRenderManager;
-    // 计算帧率
-    private final FrameRateMeter mFrameRateMeter;
+    // 渲染线程的GL状态缓存
+    private GLStateCache mStateCache;
+    // 渲染帧统计
+    private final FrameTelemetry mTelemetry;
+    // 各个阶段的GPU计时，不支持计时查询时为null
+    private GpuStageTimer mGpuTimer;
     // 预览参数
     private CameraParam mCameraParam;
 
@@ -73,7 +79,7 @@ public class CameraRenderer extends Thread {
         mWeakPresenter = new WeakReference<>(presenter);
         mCameraParam = CameraParam.getInstance();
         mRenderManager = new RenderManager();
-        mFrameRateMeter = new FrameRateMeter();
+        mTelemetry = new FrameTelemetry();
         mThreadStarted = false;
     }
 
@@ -125,6 +131,38 @@ public class CameraRenderer extends Thread {
         handler.sendMessage(handler.obtainMessage(CameraRenderHandler.MSG_INIT, surfaceTexture));
     }
 
+    /**
+     * 渲染线程的GL调用经过状态缓存，丢弃滤镜链中重复的状态切换
+     */
+    private void initStateCache() {
+        if (mStateCache == null) {
+            mStateCache = new GLStateCache(GLES.getBackend());
+            GLES.setThreadBackend(mStateCache);
+        }
+        mStateCache.invalidate();
+    }
+
+    /**
+     * 初始化渲染帧统计，支持计时查询时同时统计各个阶段的GPU耗时
+     */
+    private void initTelemetry() {
+        mTelemetry.setExpectedFrameRate(mCameraParam.expectFps);
+        mTelemetry.reset();
+        if (mGpuTimer == null && GpuStageTimer.isSupported(mEglCore.getGlVersion())) {
+            mGpuTimer = new GpuStageTimer();
+            mGpuTimer.init();
+        }
+        mRenderManager.setTelemetry(mTelemetry, mGpuTimer);
+    }
+
+    /**
+     * 获取渲染帧统计
+     * @return
+     */
+    public FrameTelemetry getFrameTelemetry() {
+        return mTelemetry;
+    }
+
     /**
      * 设置预览大小
      * @param width
@@ -150,9 +188,11 @@ public class CameraRenderer extends Thread {
      */
     public void setTextureSize(int width, int height) {
         mRenderManager.setTextureSize(width, height);
-        if (mImageReader != null) {
-            mImageReader.init(width, height);
-        }
+        queueEvent(() -> {
+            if (mImageReader != null) {
+                mImageReader.init(width, height);
+            }
+        });
     }
 
     /**
@@ -179,6 +219,11 @@ public class CameraRenderer extends Thread {
             OpenGLUtils.deleteTexture(mInputTexture);
             mInputTexture = OpenGLUtils.GL_NOT_TEXTURE;
         }
+        if (mGpuTimer != null) {
+            mGpuTimer.release();
+            mGpuTimer = null;
+        }
+        mRenderManager.setTelemetry(null, null);
         mRenderManager.release();
         if (mWeakSurfaceTexture != null) {
             mWeakSurfaceTexture.clear();
@@ -191,6 +236,10 @@ public class CameraRenderer extends Thread {
             mEglCore.release();
             mEglCore = null;
         }
+        if (mStateCache != null) {
+            GLES.setThreadBackend(null);
+            mStateCache = null;
+        }
     }
 
     /**
@@ -289,14 +338,16 @@ public class CameraRenderer extends Thread {
         mEglCore = new EglCore(null, EglCore.FLAG_RECORDABLE);
         mDisplaySurface = new WindowSurface(mEglCore, surface, false);
         mDisplaySurface.makeCurrent();
+        initStateCache();
 
-        GLES30.glDisable(GL10.GL_DITHER);
-        GLES30.glClearColor(0,0, 0, 0);
-        GLES30.glEnable(GL10.GL_CULL_FACE);
-        GLES30.glEnable(GL10.GL_DEPTH_TEST);
+        GLES.glDisable(GL10.GL_DITHER);
+        GLES.glClearColor(0,0, 0, 0);
+        GLES.glEnable(GL10.GL_CULL_FACE);
+        GLES.glEnable(GL10.GL_DEPTH_TEST);
 
         // 渲染器初始化
         mRenderManager.init(mWeakPresenter.get().getContext());
+        initTelemetry();
 
         if (mWeakPresenter.get() != null) {
             mWeakPresenter.get().onBindSharedContext(mEglCore.getEGLContext());
@@ -311,14 +362,16 @@ public class CameraRenderer extends Thread {
         mEglCore = new EglCore(null, EglCore.FLAG_RECORDABLE);
         mDisplaySurface = new WindowSurface(mEglCore, surfaceTexture);
         mDisplaySurface.makeCurrent();
+        initStateCache();
 
-        GLES30.glDisable(GL10.GL_DITHER);
-        GLES30.glClearColor(0,0, 0, 0);
-        GLES30.glEnable(GL10.GL_CULL_FACE);
-        GLES30.glEnable(GL10.GL_DEPTH_TEST);
+        GLES.glDisable(GL10.GL_DITHER);
+        GLES.glClearColor(0,0, 0, 0);
+        GLES.glEnable(GL10.GL_CULL_FACE);
+        GLES.glEnable(GL10.GL_DEPTH_TEST);
 
         // 渲染器初始化
         mRenderManager.init(mWeakPresenter.get().getContext());
+        initTelemetry();
 
         if (mWeakPresenter.get() != null) {
             mWeakPresenter.get().onBindSharedContext(mEglCore.getEGLContext());
@@ -351,16 +404,30 @@ public class CameraRenderer extends Thread {
             updateSurfaceTexture(surfaceTexture);
             timeStamp = surfaceTexture.getTimestamp();
         }
+        // updateTexImage会在GL内部绑定OES纹理
+        GLES.invalidateState();
+        if (mStateCache != null) {
+            mStateCache.beginFrame();
+        }
 
         // 如果不存在外部输入纹理，则直接返回，不做处理
         if (mInputTexture == OpenGLUtils.GL_NOT_TEXTURE) {
             return;
         }
+        // 开始统计这一帧
+        final long frameStartNanos = System.nanoTime();
+        mTelemetry.beginFrame(frameStartNanos);
+        if (mGpuTimer != null) {
+            mGpuTimer.beginFrame(mTelemetry);
+        }
+        // 人脸关键点平滑并外推到当前帧的渲染时间，检测时间戳同样使用System.nanoTime
+        LandmarkEngine.getInstance().setRenderTimestamp(frameStartNanos);
         // 绘制渲染
         mCurrentTexture = mRenderManager.drawFrame(mInputTexture, mMatrix);
 
         // 录制视频
         if (mWeakPresenter.get() != null) {
+            mTelemetry.onFrameSubmitted(timeStamp, System.nanoTime());
             mWeakPresenter.get().onRecordFrameAvailable(mCurrentTexture, timeStamp);
         }
 
@@ -374,21 +441,27 @@ public class CameraRenderer extends Thread {
         synchronized (mSync) {
             if (mCameraParam.isTakePicture) {
                 if (mImageReader == null) {
-                    mImageReader = new GLImageReader(mEglCore.getEGLContext(), bitmap -> {
+                    mImageReader = new GLImageReader(mEglCore.getEGLContext(), mEglCore.getGlVersion(), bitmap -> {
                         if (mCameraParam.captureCallback != null) {
                             mCameraParam.captureCallback.onCapture(bitmap);
+                        } else {
+                            bitmap.recycle();
                         }
                     });
                     mImageReader.init(mRenderManager.getTextureWidth(), mRenderManager.getTextureHeight());
                 }
-                if (mImageReader != null) {
-                    mImageReader.drawFrame(mCurrentTexture);
+                // PBO全部在读取中时保留拍照请求，下一帧再读取
+                if (mImageReader.drawFrame(mCurrentTexture)) {
+                    mCameraParam.isTakePicture = false;
                 }
-                mCameraParam.isTakePicture = false;
             }
         }
+        // 异步读取完成时回调拍照结果
+        if (mImageReader != null) {
+            mImageReader.pollFrame();
+        }
 
-        // 计算渲染帧率
+        // 统计渲染帧率和耗时
         calculateFps();
     }
 
@@ -434,12 +507,15 @@ public class CameraRenderer extends Thread {
     }
 
     /**
-     * 计算fps
+     * 结束这一帧的统计，回调fps，每个统计周期回调一次帧统计
      */
     private void calculateFps() {
-        if ((mCameraParam).fpsCallback != null) {
-            mFrameRateMeter.drawFrameCount();
-            (mCameraParam).fpsCallback.onFpsCallback(mFrameRateMeter.getFPS());
+        boolean updated = mTelemetry.endFrame(System.nanoTime());
+        if (mCameraParam.fpsCallback != null) {
+            mCameraParam.fpsCallback.onFpsCallback(mTelemetry.getFps());
+        }
+        if (updated && mCameraParam.frameStatsCallback != null) {
+            mCameraParam.frameStatsCallback.onFrameStats(mTelemetry.getStats());
         }
     }
 
@@ -0,0 +1,73 @@
+package com.cgfay.camera.render;
+
+/**
+ * 一个统计周期内的渲染帧数据，由FrameTelemetry在渲染线程中填充并复用
+ * 时间单位均为毫秒，阶段索引与RenderIndex一致，没有执行的阶段帧数为0
+ */
+public final class FrameStats {
+
+    // 统计周期的时长
+    public float durationMs;
+    // 周期内绘制的帧数
+    public int frameCount;
+    // 平均帧率
+    public float fps;
+
+    // 帧间隔分位数
+    public float intervalP50Ms;
+    public float intervalP95Ms;
+    public float intervalP99Ms;
+    public float intervalMaxMs;
+    // 抖动，相邻两帧间隔之差的平均值
+    public float jitterMs;
+    // 间隔超过期望间隔1.5倍时，按间隔估算的丢帧数
+    public int droppedFrames;
+
+    // 每个阶段执行的帧数、CPU平均/最大耗时
+    public final int[] stageFrames = new int[FrameTelemetry.STAGE_COUNT];
+    public final float[] stageCpuMs = new float[FrameTelemetry.STAGE_COUNT];
+    public final float[] stageCpuMaxMs = new float[FrameTelemetry.STAGE_COUNT];
+    // 每个阶段的GPU平均耗时，不支持计时查询的设备上为-1
+    public final float[] stageGpuMs = new float[FrameTelemetry.STAGE_COUNT];
+
+    // 录制帧从提交到编码线程绘制完成的延迟，周期内没有录制时样本数为0
+    public int encoderSamples;
+    public float encoderLatencyP50Ms;
+    public float encoderLatencyP95Ms;
+    public float encoderLatencyMaxMs;
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("FrameStats{fps=").append(fps)
+                .append(", frames=").append(frameCount)
+                .append(", interval p50/p95/p99/max=").append(intervalP50Ms)
+                .append('/').append(intervalP95Ms)
+                .append('/').append(intervalP99Ms)
+                .append('/').append(intervalMaxMs)
+                .append(", jitter=").append(jitterMs)
+                .append(", dropped=").append(droppedFrames);
+        builder.append(", stages[index: cpu/max/gpu]={");
+        boolean first = true;
+        for (int i = 0; i < stageFrames.length; i++) {
+            if (stageFrames[i] == 0) {
+                continue;
+            }
+            if (!first) {
+                builder.append(", ");
+            }
+            first = false;
+            builder.append(i).append(": ").append(stageCpuMs[i])
+                    .append('/').append(stageCpuMaxMs[i])
+                    .append('/').append(stageGpuMs[i]);
+        }
+        builder.append('}');
+        if (encoderSamples > 0) {
+            builder.append(", encoder p50/p95/max=").append(encoderLatencyP50Ms)
+                    .append('/').append(encoderLatencyP95Ms)
+                    .append('/').append(encoderLatencyMaxMs);
+        }
+        builder.append('}');
+        return builder.toString();
+    }
+}
@@ -5,23 +5,42 @@ import android.graphics.PixelFormat;
 import android.media.Image;
 import android.media.ImageReader;
 import android.opengl.EGLContext;
+import android.opengl.GLES30;
+import android.util.Log;
 
 import com.cgfay.filter.gles.EglCore;
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.gles.WindowSurface;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+import com.cgfay.filter.glfilter.utils.Rotation;
 import com.cgfay.filter.glfilter.utils.TextureRotationUtils;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
 /**
  * 从GPU中读取读取纹理数据
+ * GLES3.0及以上使用两个PBO异步读取：drawFrame时在渲染线程中绘制到FBO并发起glReadPixels，
+ * 之后每帧调用pollFrame检查fence，GPU完成后映射PBO直接拷贝到Bitmap，渲染线程不会等待GPU。
+ * GLES2.0时使用ImageReader，去掉行填充后拷贝到Bitmap。
+ * 回调的Bitmap交给监听器，之后由监听器负责回收，下一次读取时重新创建。
  */
 public class GLImageReader {
 
+    private static final String TAG = "GLImageReader";
+
     // 最大存储图像数
     private static final int MAX_IMAGE_NUMBER = 1;
+    // PBO个数
+    private static final int PBO_COUNT = 2;
+    // PBO全部在读取中时等待最早一个的超时时间
+    private static final long SYNC_TIMEOUT_NS = 100_000_000L;
+
+    private final boolean mUsePixelBuffer;
+    private EGLContext mSharedContext;
     private WindowSurface mWindowSurface;
     private EglCore mEglCore;
     private ImageReader mImageReader;
@@ -31,34 +50,188 @@ public class GLImageReader {
     private FloatBuffer mVertexBuffer;
     private FloatBuffer mTextureBuffer;
 
-    public GLImageReader(EGLContext context, ImageReceiveListener listener) {
+    private int mWidth;
+    private int mHeight;
+    // 下一次读取使用的Bitmap，回调之后交给监听器
+    private Bitmap mBitmap;
+    // ImageReader带行填充时去掉填充后的数据
+    private ByteBuffer mPackBuffer;
+
+    // PBO及其对应的fence，fence为0表示空闲
+    private final int[] mPixelBuffers = new int[PBO_COUNT];
+    private final long[] mFences = new long[PBO_COUNT];
+    // 下一个写入的PBO，以及最早发起读取的PBO
+    private int mWriteIndex;
+    private int mReadIndex;
+
+    /**
+     * @param context       渲染线程的EGLContext
+     * @param glVersion     渲染线程的GLES版本，3及以上使用PBO在渲染线程中读取
+     * @param listener      图片回调
+     */
+    public GLImageReader(EGLContext context, int glVersion, ImageReceiveListener listener) {
         mListener = listener;
-        mEglCore = new EglCore(context, EglCore.FLAG_RECORDABLE);
+        mUsePixelBuffer = glVersion >= 3;
+        mSharedContext = context;
         mVertexBuffer = OpenGLUtils.createFloatBuffer(TextureRotationUtils.CubeVertices);
-        mTextureBuffer = OpenGLUtils.createFloatBuffer(TextureRotationUtils.TextureVertices);
-
+        if (mUsePixelBuffer) {
+            // glReadPixels读出的第一行是图像底部，绘制时上下翻转，读出的数据可以直接拷贝到Bitmap
+            mTextureBuffer = OpenGLUtils.createFloatBuffer(
+                    TextureRotationUtils.getRotation(Rotation.NORMAL, false, true));
+        } else {
+            mTextureBuffer = OpenGLUtils.createFloatBuffer(TextureRotationUtils.TextureVertices);
+        }
     }
 
+    /**
+     * 初始化，PBO方式需要在渲染线程中调用
+     * @param width
+     * @param height
+     */
     public void init(int width, int height) {
-        if (mImageReader == null) {
+        if (mWidth != width || mHeight != height) {
+            releaseBuffers();
+            mWidth = width;
+            mHeight = height;
+        }
+        if (mUsePixelBuffer) {
+            initPixelBuffers();
+        } else if (mImageReader == null) {
+            if (mEglCore == null) {
+                mEglCore = new EglCore(mSharedContext, EglCore.FLAG_RECORDABLE);
+            }
             mImageReader = ImageReader.newInstance(width, height, PixelFormat.RGBA_8888, MAX_IMAGE_NUMBER);
             mImageReader.setOnImageAvailableListener(new ImageAvailable(), null);
             mWindowSurface = new WindowSurface(mEglCore, mImageReader.getSurface(), true);
         }
         if (mImageFilter == null) {
+            if (!mUsePixelBuffer) {
+                makeCurrent();
+            }
             // 创建录制用的滤镜
             mImageFilter = new GLImageFilter(null);
-            mImageFilter.onInputSizeChanged(width, height);
-            mImageFilter.onDisplaySizeChanged(width, height);
+        }
+        mImageFilter.onInputSizeChanged(width, height);
+        mImageFilter.onDisplaySizeChanged(width, height);
+        if (mUsePixelBuffer) {
+            mImageFilter.initFrameBuffer(width, height);
         }
     }
 
-    public void drawFrame(int texture) {
-        makeCurrent();
-        if (mImageFilter != null) {
+    /**
+     * 创建PBO
+     */
+    private void initPixelBuffers() {
+        if (mPixelBuffers[0] != 0) {
+            return;
+        }
+        int size = mWidth * mHeight * PixelPacker.BYTES_PER_PIXEL;
+        GLES.glGenBuffers(PBO_COUNT, mPixelBuffers, 0);
+        for (int i = 0; i < PBO_COUNT; i++) {
+            GLES.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, mPixelBuffers[i]);
+            GLES.glBufferData(GLES30.GL_PIXEL_PACK_BUFFER, size, null, GLES30.GL_STREAM_READ);
+        }
+        GLES.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+        mWriteIndex = 0;
+        mReadIndex = 0;
+    }
+
+    /**
+     * 读取纹理，PBO方式下在渲染线程中调用，结果在之后的pollFrame中回调
+     * @param texture
+     * @return 返回false表示PBO全部在读取中，这一帧没有读取，调用方需要保留请求在下一帧重试
+     */
+    public boolean drawFrame(int texture) {
+        if (mImageFilter == null) {
+            return true;
+        }
+        if (!mUsePixelBuffer) {
+            makeCurrent();
             mImageFilter.drawFrame(texture, mVertexBuffer, mTextureBuffer);
+            swapBuffers();
+            return true;
+        }
+        if (mFences[mWriteIndex] != 0) {
+            // 两个PBO都在读取中，等待最早的一个完成
+            pollFrame(SYNC_TIMEOUT_NS);
+            if (mFences[mWriteIndex] != 0) {
+                Log.w(TAG, "drawFrame: pixel buffers busy, retry on next frame");
+                return false;
+            }
+        }
+        mImageFilter.bindFrameBuffer();
+        mImageFilter.onDrawTexture(texture, mVertexBuffer, mTextureBuffer);
+        GLES.glPixelStorei(GLES30.GL_PACK_ALIGNMENT, PixelPacker.BYTES_PER_PIXEL);
+        GLES.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, mPixelBuffers[mWriteIndex]);
+        GLES.glReadPixels(0, 0, mWidth, mHeight, GLES30.GL_RGBA, GLES30.GL_UNSIGNED_BYTE, 0);
+        GLES.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+        mFences[mWriteIndex] = GLES.glFenceSync(GLES30.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        mImageFilter.unBindFrameBuffer();
+        mWriteIndex = (mWriteIndex + 1) % PBO_COUNT;
+        return true;
+    }
+
+    /**
+     * 检查异步读取是否完成，完成时拷贝到Bitmap并回调，需要在渲染线程中每帧调用
+     */
+    public void pollFrame() {
+        pollFrame(0);
+    }
+
+    private void pollFrame(long timeoutNs) {
+        while (mFences[mReadIndex] != 0) {
+            int result = GLES.glClientWaitSync(mFences[mReadIndex],
+                    timeoutNs > 0 ? GLES30.GL_SYNC_FLUSH_COMMANDS_BIT : 0, timeoutNs);
+            if (result == GLES30.GL_TIMEOUT_EXPIRED) {
+                return;
+            }
+            GLES.glDeleteSync(mFences[mReadIndex]);
+            mFences[mReadIndex] = 0;
+            if (result != GLES30.GL_WAIT_FAILED) {
+                readPixelBuffer(mPixelBuffers[mReadIndex]);
+            }
+            mReadIndex = (mReadIndex + 1) % PBO_COUNT;
+            timeoutNs = 0;
         }
-        swapBuffers();
+    }
+
+    /**
+     * 映射PBO并拷贝到Bitmap
+     */
+    private void readPixelBuffer(int pixelBuffer) {
+        int size = mWidth * mHeight * PixelPacker.BYTES_PER_PIXEL;
+        GLES.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, pixelBuffer);
+        Buffer buffer = GLES.glMapBufferRange(GLES30.GL_PIXEL_PACK_BUFFER, 0, size, GLES30.GL_MAP_READ_BIT);
+        if (buffer != null) {
+            obtainBitmap().copyPixelsFromBuffer(buffer);
+            GLES.glUnmapBuffer(GLES30.GL_PIXEL_PACK_BUFFER);
+        }
+        GLES.glBindBuffer(GLES30.GL_PIXEL_PACK_BUFFER, 0);
+        if (buffer != null) {
+            deliverBitmap();
+        }
+    }
+
+    /**
+     * 获取用于读取的Bitmap，之前的已经交给监听器时重新创建
+     */
+    private Bitmap obtainBitmap() {
+        if (mBitmap == null || mBitmap.isRecycled()) {
+            mBitmap = Bitmap.createBitmap(mWidth, mHeight, Bitmap.Config.ARGB_8888);
+        }
+        return mBitmap;
+    }
+
+    /**
+     * 把读取到的Bitmap交给监听器，之后不再使用
+     */
+    private void deliverBitmap() {
+        Bitmap bitmap = mBitmap;
+        if (mListener == null || bitmap == null) {
+            return;
+        }
+        mBitmap = null;
+        mListener.onImageReceive(bitmap);
     }
 
     private void makeCurrent() {
@@ -73,20 +246,51 @@ public class GLImageReader {
         }
     }
 
-    public void release() {
-        makeCurrent();
+    /**
+     * 释放与尺寸相关的资源
+     */
+    private void releaseBuffers() {
+        if (mPixelBuffers[0] != 0) {
+            for (int i = 0; i < PBO_COUNT; i++) {
+                if (mFences[i] != 0) {
+                    GLES.glDeleteSync(mFences[i]);
+                    mFences[i] = 0;
+                }
+            }
+            GLES.glDeleteBuffers(PBO_COUNT, mPixelBuffers, 0);
+            mPixelBuffers[0] = 0;
+            mPixelBuffers[1] = 0;
+        }
         if (mImageReader != null) {
+            if (mImageFilter != null) {
+                // 滤镜属于ImageReader对应的EGLContext，重新创建Surface前先释放
+                makeCurrent();
+                mImageFilter.release();
+                mImageFilter = null;
+            }
             mImageReader.close();
             mImageReader = null;
         }
-        if (mImageFilter != null) {
-            mImageFilter.release();
-            mImageFilter = null;
-        }
         if (mWindowSurface != null) {
             mWindowSurface.release();
             mWindowSurface = null;
         }
+        if (mBitmap != null) {
+            mBitmap.recycle();
+            mBitmap = null;
+        }
+        mPackBuffer = null;
+    }
+
+    /**
+     * 释放资源，PBO方式需要在渲染线程中调用
+     */
+    public void release() {
+        releaseBuffers();
+        if (mImageFilter != null) {
+            mImageFilter.release();
+            mImageFilter = null;
+        }
         if (mEglCore != null) {
             mEglCore.release();
             mEglCore = null;
@@ -101,43 +305,36 @@ public class GLImageReader {
 
         @Override
         public void onImageAvailable(ImageReader reader) {
+            Image image = reader.acquireNextImage();
+            if (image == null) {
+                return;
+            }
             if (mListener == null) {
+                image.close();
                 return;
             }
-            Image image = reader.acquireNextImage();
-            Image.Plane[] planes = image.getPlanes();
-            int width = image.getWidth();//设置的宽
-            int height = image.getHeight();//设置的高
-            int pixelStride = planes[0].getPixelStride();//像素个数，RGBA为4
-            int rowStride = planes[0].getRowStride();//这里除pixelStride就是真实宽度
-            int rowPadding = rowStride - pixelStride * width;//计算多余宽度
-
-            byte[] data = new byte[rowStride * height];
-            ByteBuffer buffer = planes[0].getBuffer();
-            buffer.get(data);
-
-            int[] pixelData = new int[width * height];
-
-            int offset = 0;
-            int index = 0;
-            for (int i = 0; i < height; ++i) {
-                for (int j = 0; j < width; ++j) {
-                    int pixel = 0;
-                    pixel |= (data[offset] & 0xff) << 16;     // R
-                    pixel |= (data[offset + 1] & 0xff) << 8;  // G
-                    pixel |= (data[offset + 2] & 0xff);       // B
-                    pixel |= (data[offset + 3] & 0xff) << 24; // A
-                    pixelData[index++] = pixel;
-                    offset += pixelStride;
+            Image.Plane plane = image.getPlanes()[0];
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int pixelStride = plane.getPixelStride();
+            int rowStride = plane.getRowStride();
+            ByteBuffer buffer = plane.getBuffer();
+            Bitmap bitmap = obtainBitmap();
+            if (PixelPacker.isPacked(width, pixelStride, rowStride)) {
+                bitmap.copyPixelsFromBuffer(buffer);
+            } else {
+                // 去掉行填充
+                if (mPackBuffer == null) {
+                    mPackBuffer = ByteBuffer.allocateDirect(width * height * PixelPacker.BYTES_PER_PIXEL)
+                            .order(ByteOrder.nativeOrder());
                 }
-                offset += rowPadding;
+                mPackBuffer.clear();
+                PixelPacker.pack(buffer, width, height, pixelStride, rowStride, mPackBuffer);
+                mPackBuffer.flip();
+                bitmap.copyPixelsFromBuffer(mPackBuffer);
             }
-            Bitmap bitmap = Bitmap.createBitmap(pixelData,
-                    width, height,
-                    Bitmap.Config.ARGB_8888);
-
             image.close();
-            mListener.onImageReceive(bitmap);
+            deliverBitmap();
         }
     }
 
@@ -146,6 +343,10 @@ public class GLImageReader {
      */
     public interface ImageReceiveListener {
 
+        /**
+         * 读取到图片，bitmap归监听器所有，不再使用时由监听器回收
+         * @param bitmap
+         */
         void onImageReceive(Bitmap bitmap);
     }
 
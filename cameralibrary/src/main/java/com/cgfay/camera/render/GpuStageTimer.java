@@ -0,0 +1,127 @@
+package com.cgfay.camera.render;
+
+import android.opengl.GLES30;
+
+import androidx.annotation.NonNull;
+
+import com.cgfay.filter.gles.GLES;
+
+/**
+ * 各个渲染阶段的GPU耗时，使用GL_EXT_disjoint_timer_query的计时查询
+ * 每个阶段一个TIME_ELAPSED查询，查询结果要等GPU执行完才能拿到，这里保留几帧的查询对象轮流使用，
+ * 在复用之前读取上一轮的结果，不会阻塞渲染线程。GPU频率变化等导致计时不可信(disjoint)时丢弃这一轮的结果。
+ * 需要GLES 3.0的Java接口，只能在渲染线程中调用。
+ */
+public final class GpuStageTimer {
+
+    private static final String EXTENSION = "GL_EXT_disjoint_timer_query";
+    private static final int GL_TIME_ELAPSED_EXT = 0x88BF;
+    private static final int GL_GPU_DISJOINT_EXT = 0x8FBB;
+    // 同时在途的帧数
+    private static final int FRAMES_IN_FLIGHT = 3;
+
+    private final int[] mQueries = new int[FRAMES_IN_FLIGHT * FrameTelemetry.STAGE_COUNT];
+    // 已经发出、还没有读取结果的查询
+    private final boolean[] mPending = new boolean[mQueries.length];
+    private final int[] mResult = new int[1];
+    private int mFrame;
+    private int mActiveStage = -1;
+    private boolean mInitialized;
+
+    /**
+     * 当前context是否支持计时查询，需要在GL线程中调用
+     * @param glVersion GL版本
+     * @return
+     */
+    public static boolean isSupported(int glVersion) {
+        if (glVersion < 3) {
+            return false;
+        }
+        String extensions = GLES.glGetString(GLES30.GL_EXTENSIONS);
+        return extensions != null && extensions.contains(EXTENSION);
+    }
+
+    /**
+     * 创建查询对象
+     */
+    public void init() {
+        if (!mInitialized) {
+            GLES.glGenQueries(mQueries.length, mQueries, 0);
+            mInitialized = true;
+        }
+    }
+
+    /**
+     * 开始一帧，读取即将复用的那一轮查询的结果
+     * @param telemetry 结果写入的统计
+     */
+    public void beginFrame(@NonNull FrameTelemetry telemetry) {
+        if (!mInitialized) {
+            return;
+        }
+        mFrame = (mFrame + 1) % FRAMES_IN_FLIGHT;
+        // 读取disjoint状态会清除标记，期间的所有结果都不可信
+        GLES.glGetIntegerv(GL_GPU_DISJOINT_EXT, mResult, 0);
+        boolean disjoint = mResult[0] != 0;
+        int base = mFrame * FrameTelemetry.STAGE_COUNT;
+        for (int stage = 0; stage < FrameTelemetry.STAGE_COUNT; stage++) {
+            int index = base + stage;
+            if (!mPending[index]) {
+                continue;
+            }
+            mPending[index] = false;
+            if (disjoint) {
+                continue;
+            }
+            GLES.glGetQueryObjectuiv(mQueries[index], GLES30.GL_QUERY_RESULT_AVAILABLE, mResult, 0);
+            if (mResult[0] == GLES30.GL_FALSE) {
+                // GPU落后太多，丢弃这一次的结果
+                continue;
+            }
+            GLES.glGetQueryObjectuiv(mQueries[index], GLES30.GL_QUERY_RESULT, mResult, 0);
+            telemetry.recordGpuTime(stage, mResult[0] & 0xffffffffL);
+        }
+    }
+
+    /**
+     * 开始一个阶段，同一时间只能有一个阶段在计时
+     * @param stage RenderIndex
+     */
+    public void beginStage(int stage) {
+        if (!mInitialized || mActiveStage >= 0) {
+            return;
+        }
+        GLES.glBeginQuery(GL_TIME_ELAPSED_EXT, mQueries[mFrame * FrameTelemetry.STAGE_COUNT + stage]);
+        mActiveStage = stage;
+    }
+
+    /**
+     * 结束一个阶段
+     * @param stage RenderIndex
+     */
+    public void endStage(int stage) {
+        if (mActiveStage != stage) {
+            return;
+        }
+        GLES.glEndQuery(GL_TIME_ELAPSED_EXT);
+        mPending[mFrame * FrameTelemetry.STAGE_COUNT + stage] = true;
+        mActiveStage = -1;
+    }
+
+    /**
+     * 释放查询对象
+     */
+    public void release() {
+        if (mInitialized) {
+            if (mActiveStage >= 0) {
+                GLES.glEndQuery(GL_TIME_ELAPSED_EXT);
+                mActiveStage = -1;
+            }
+            GLES.glDeleteQueries(mQueries.length, mQueries, 0);
+            for (int i = 0; i < mPending.length; i++) {
+                mPending[i] = false;
+            }
+            mInitialized = false;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cgfay.camera.render;
+
+import java.nio.ByteBuffer;
+
+/**
+ * RGBA像素拷贝
+ * Bitmap.copyPixelsFromBuffer需要按行紧密排列的像素，ARGB_8888在内存中的字节顺序本身就是R、G、B、A，
+ * 因此读取到的RGBA数据只需要去掉每行末尾的填充，不需要再逐个像素转换成int
+ */
+public final class PixelPacker {
+
+    // RGBA每个像素的字节数
+    public static final int BYTES_PER_PIXEL = 4;
+
+    private PixelPacker() {
+
+    }
+
+    /**
+     * 数据是否已经紧密排列，可以直接拷贝到Bitmap
+     * @param width         宽度
+     * @param pixelStride   像素间隔
+     * @param rowStride     行间隔
+     * @return
+     */
+    public static boolean isPacked(int width, int pixelStride, int rowStride) {
+        return pixelStride == BYTES_PER_PIXEL && rowStride == width * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * 去掉行填充和像素间隔，把src中的RGBA数据紧密排列写入dst
+     * src从当前position开始读取，读取完毕后position和limit保持不变，方便直接使用Image.Plane中的buffer
+     * dst从当前position开始写入width * height * 4个字节，写入后position移到末尾
+     * @param src           源数据
+     * @param width         宽度
+     * @param height        高度
+     * @param pixelStride   像素间隔，不小于4
+     * @param rowStride     行间隔，最后一行可以不带填充
+     * @param dst           目标数据
+     */
+    public static void pack(ByteBuffer src, int width, int height,
+                            int pixelStride, int rowStride, ByteBuffer dst) {
+        if (pixelStride < BYTES_PER_PIXEL || rowStride < pixelStride * width) {
+            throw new IllegalArgumentException("invalid stride, pixelStride: " + pixelStride
+                    + ", rowStride: " + rowStride + ", width: " + width);
+        }
+        int rowBytes = width * BYTES_PER_PIXEL;
+        if (dst.remaining() < rowBytes * height) {
+            throw new IllegalArgumentException("dst too small: " + dst.remaining()
+                    + " < " + rowBytes * height);
+        }
+        int start = src.position();
+        int limit = src.limit();
+        try {
+            if (pixelStride == BYTES_PER_PIXEL) {
+                // 每一行整块拷贝
+                for (int row = 0; row < height; row++) {
+                    int offset = start + row * rowStride;
+                    src.limit(offset + rowBytes);
+                    src.position(offset);
+                    dst.put(src);
+                }
+            } else {
+                for (int row = 0; row < height; row++) {
+                    int offset = start + row * rowStride;
+                    for (int col = 0; col < width; col++) {
+                        dst.put(src.get(offset));
+                        dst.put(src.get(offset + 1));
+                        dst.put(src.get(offset + 2));
+                        dst.put(src.get(offset + 3));
+                        offset += pixelStride;
+                    }
+                }
+            }
+        } finally {
+            src.limit(limit);
+            src.position(start);
+        }
+    }
+}
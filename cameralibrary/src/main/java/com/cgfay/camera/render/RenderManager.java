@@ -7,10 +7,13 @@ import android.view.MotionEvent;
 
 import com.badlogic.gdx.math.Vector3;
 import com.cgfay.camera.camera.CameraParam;
+import com.cgfay.filter.glfilter.base.FrameBufferPool;
 import com.cgfay.filter.glfilter.base.GLImageDepthBlurFilter;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
+import com.cgfay.filter.glfilter.base.GLImageGroupFilter;
 import com.cgfay.filter.glfilter.base.GLImageOESInputFilter;
 import com.cgfay.filter.glfilter.base.GLImageVignetteFilter;
+import com.cgfay.filter.glfilter.base.RenderGraph;
 import com.cgfay.filter.glfilter.beauty.GLImageBeautyFilter;
 import com.cgfay.filter.glfilter.beauty.bean.IBeautify;
 import com.cgfay.filter.glfilter.face.GLImageFaceReshapeFilter;
@@ -25,9 +28,11 @@ import com.cgfay.filter.glfilter.stickers.GestureHelp;
 import com.cgfay.filter.glfilter.stickers.StaticStickerNormalFilter;
 import com.cgfay.filter.glfilter.stickers.bean.DynamicSticker;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+import com.cgfay.filter.glfilter.utils.ProgramCache;
 import com.cgfay.filter.glfilter.utils.TextureRotationUtils;
 import com.cgfay.landmark.LandmarkEngine;
 
+import java.io.File;
 import java.nio.FloatBuffer;
 
 /**
@@ -41,6 +46,10 @@ public final class RenderManager {
 
     // 滤镜列表
     private SparseArray<GLImageFilter> mFilterArrays = new SparseArray<GLImageFilter>();
+    // 渲染图，规划从相机输入到显示之前各个阶段使用的共享FBO
+    private final RenderGraph mRenderGraph = new RenderGraph();
+    // 共享FBO池
+    private final FrameBufferPool mFrameBufferPool = new FrameBufferPool();
 
     // 坐标缓冲
     private ScaleType mScaleType = ScaleType.CENTER_CROP;
@@ -60,15 +69,31 @@ public final class RenderManager {
     // 上下文
     private Context mContext;
 
+    // 渲染帧统计和GPU计时，不统计时为null
+    private FrameTelemetry mTelemetry;
+    private GpuStageTimer mGpuTimer;
+
     /**
      * 初始化
      */
     public void init(Context context) {
+        // 持久化program二进制，冷启动时不需要重新编译shader
+        ProgramCache.getInstance().setBinaryDirectory(new File(context.getCacheDir(), "program"));
         initBuffers();
         initFilters(context);
         mContext = context;
     }
 
+    /**
+     * 设置渲染帧统计，绘制时记录每个阶段的耗时
+     * @param telemetry 帧统计
+     * @param gpuTimer  GPU计时，不支持计时查询时为null
+     */
+    public void setTelemetry(FrameTelemetry telemetry, GpuStageTimer gpuTimer) {
+        mTelemetry = telemetry;
+        mGpuTimer = gpuTimer;
+    }
+
     /**
      * 释放资源
      */
@@ -88,6 +113,7 @@ public final class RenderManager {
             }
         }
         mFilterArrays.clear();
+        mFrameBufferPool.release();
     }
 
     /**
@@ -186,7 +212,7 @@ public final class RenderManager {
         }
         GLImageDynamicColorFilter filter = new GLImageDynamicColorFilter(mContext, color);
         filter.onInputSizeChanged(mTextureWidth, mTextureHeight);
-        filter.initFrameBuffer(mTextureWidth, mTextureHeight);
+        initFrameBuffer(filter);
         filter.onDisplaySizeChanged(mViewWidth, mViewHeight);
         mFilterArrays.put(RenderIndex.FilterIndex, filter);
     }
@@ -201,7 +227,7 @@ public final class RenderManager {
         } else {
             GLImageMakeupFilter filter = new GLImageMakeupFilter(mContext, dynamicMakeup);
             filter.onInputSizeChanged(mTextureWidth, mTextureHeight);
-            filter.initFrameBuffer(mTextureWidth, mTextureHeight);
+            initFrameBuffer(filter);
             filter.onDisplaySizeChanged(mViewWidth, mViewHeight);
             mFilterArrays.put(RenderIndex.MakeupIndex, filter);
         }
@@ -221,7 +247,7 @@ public final class RenderManager {
         }
         GLImageDynamicColorFilter filter = new GLImageDynamicColorFilter(mContext, color);
         filter.onInputSizeChanged(mTextureWidth, mTextureHeight);
-        filter.initFrameBuffer(mTextureWidth, mTextureHeight);
+        initFrameBuffer(filter);
         filter.onDisplaySizeChanged(mViewWidth, mViewHeight);
         mFilterArrays.put(RenderIndex.ResourceIndex, filter);
     }
@@ -242,7 +268,7 @@ public final class RenderManager {
         GLImageDynamicStickerFilter filter = new GLImageDynamicStickerFilter(mContext, sticker);
         // 设置输入输入大小，初始化fbo等
         filter.onInputSizeChanged(mTextureWidth, mTextureHeight);
-        filter.initFrameBuffer(mTextureWidth, mTextureHeight);
+        initFrameBuffer(filter);
         filter.onDisplaySizeChanged(mViewWidth, mViewHeight);
         mFilterArrays.put(RenderIndex.ResourceIndex, filter);
     }
@@ -262,59 +288,106 @@ public final class RenderManager {
         if (mFilterArrays.get(RenderIndex.CameraIndex) instanceof GLImageOESInputFilter) {
             ((GLImageOESInputFilter)mFilterArrays.get(RenderIndex.CameraIndex)).setTextureTransformMatrix(mMatrix);
         }
-        currentTexture = mFilterArrays.get(RenderIndex.CameraIndex)
-                .drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
-        // 如果处于对比状态，不做处理
-        if (!mCameraParam.showCompare) {
-            // 美颜滤镜
-            if (mFilterArrays.get(RenderIndex.BeautyIndex) != null) {
-                if (mFilterArrays.get(RenderIndex.BeautyIndex) instanceof IBeautify
-                        && mCameraParam.beauty != null) {
-                    ((IBeautify) mFilterArrays.get(RenderIndex.BeautyIndex)).onBeauty(mCameraParam.beauty);
-                }
-                currentTexture = mFilterArrays.get(RenderIndex.BeautyIndex).drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
-            }
+        // 美颜参数
+        if (mFilterArrays.get(RenderIndex.BeautyIndex) instanceof IBeautify
+                && mCameraParam.beauty != null) {
+            ((IBeautify) mFilterArrays.get(RenderIndex.BeautyIndex)).onBeauty(mCameraParam.beauty);
+        }
+        // 美型参数
+        if (mFilterArrays.get(RenderIndex.FaceAdjustIndex) instanceof IBeautify) {
+            ((IBeautify) mFilterArrays.get(RenderIndex.FaceAdjustIndex)).onBeauty(mCameraParam.beauty);
+        }
 
-            // 彩妆滤镜
-            if (mFilterArrays.get(RenderIndex.MakeupIndex) != null) {
-                currentTexture = mFilterArrays.get(RenderIndex.MakeupIndex).drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
+        // 规划各个阶段的FBO，未启用的阶段直接跳过
+        planRenderGraph();
+        for (int i = 0; i < RenderIndex.DisplayIndex; i++) {
+            if (!mRenderGraph.isStageEnabled(i)) {
+                continue;
             }
-
-            // 美型滤镜
-            if (mFilterArrays.get(RenderIndex.FaceAdjustIndex) != null) {
-                if (mFilterArrays.get(RenderIndex.FaceAdjustIndex) instanceof IBeautify) {
-                    ((IBeautify) mFilterArrays.get(RenderIndex.FaceAdjustIndex)).onBeauty(mCameraParam.beauty);
-                }
-                currentTexture = mFilterArrays.get(RenderIndex.FaceAdjustIndex).drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
+            GLImageFilter filter = mFilterArrays.get(i);
+            int slot = mRenderGraph.getOutputSlot(i);
+            if (slot != RenderGraph.SLOT_NONE) {
+                mFrameBufferPool.bindFilter(filter, slot);
             }
+            beginStage(i);
+            currentTexture = filter.drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
+            endStage(i);
+        }
 
-            // 绘制颜色滤镜
-            if (mFilterArrays.get(RenderIndex.FilterIndex) != null) {
-                currentTexture = mFilterArrays.get(RenderIndex.FilterIndex).drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
-            }
+        // 显示输出，需要调整视口大小
+        beginStage(RenderIndex.DisplayIndex);
+        mFilterArrays.get(RenderIndex.DisplayIndex).drawFrame(currentTexture, mDisplayVertexBuffer, mDisplayTextureBuffer);
+        endStage(RenderIndex.DisplayIndex);
 
-            // 资源滤镜，可以是贴纸、滤镜甚至是彩妆类型
-            if (mFilterArrays.get(RenderIndex.ResourceIndex) != null) {
-                currentTexture = mFilterArrays.get(RenderIndex.ResourceIndex).drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
-            }
+        return currentTexture;
+    }
 
-            // 景深
-            if (mFilterArrays.get(RenderIndex.DepthBlurIndex) != null) {
-                mFilterArrays.get(RenderIndex.DepthBlurIndex).setFilterEnable(mCameraParam.enableDepthBlur);
-                currentTexture = mFilterArrays.get(RenderIndex.DepthBlurIndex).drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
-            }
+    /**
+     * 根据当前的滤镜和相机参数构建渲染图，并确保共享FBO足够
+     * 渲染图的阶段索引跟RenderIndex一致
+     */
+    private void planRenderGraph() {
+        mRenderGraph.reset();
+        // 输出纹理会交给录制线程异步读取，需要保留到下一帧
+        mRenderGraph.setRetainOutput(true);
+        for (int i = 0; i <= RenderIndex.DisplayIndex; i++) {
+            GLImageFilter filter = mFilterArrays.get(i);
+            mRenderGraph.addStage(getStageType(i, filter), isStageEnabled(i, filter));
+        }
+        mRenderGraph.plan();
+        mFrameBufferPool.ensure(mRenderGraph.getSlotCount(), mTextureWidth, mTextureHeight);
+    }
 
-            // 暗角
-            if (mFilterArrays.get(RenderIndex.VignetteIndex) != null) {
-                mFilterArrays.get(RenderIndex.VignetteIndex).setFilterEnable(mCameraParam.enableVignette);
-                currentTexture = mFilterArrays.get(RenderIndex.VignetteIndex).drawFrameBuffer(currentTexture, mVertexBuffer, mTextureBuffer);
-            }
+    /**
+     * 获取阶段类型
+     * @param index     RenderIndex
+     * @param filter
+     * @return
+     */
+    private static int getStageType(int index, GLImageFilter filter) {
+        if (index == RenderIndex.DisplayIndex) {
+            return RenderGraph.TYPE_SCREEN;
         }
+        // 组合滤镜的输出来自内部子滤镜的FBO
+        if (filter instanceof GLImageBeautyFilter || filter instanceof GLImageGroupFilter) {
+            return RenderGraph.TYPE_OWNED;
+        }
+        return RenderGraph.TYPE_POOLED;
+    }
 
-        // 显示输出，需要调整视口大小
-        mFilterArrays.get(RenderIndex.DisplayIndex).drawFrame(currentTexture, mDisplayVertexBuffer, mDisplayTextureBuffer);
+    /**
+     * 判断阶段是否启用
+     * @param index     RenderIndex
+     * @param filter
+     * @return
+     */
+    private boolean isStageEnabled(int index, GLImageFilter filter) {
+        if (filter == null) {
+            return false;
+        }
+        if (index == RenderIndex.CameraIndex || index == RenderIndex.DisplayIndex) {
+            return true;
+        }
+        // 如果处于对比状态，不做处理
+        if (mCameraParam.showCompare) {
+            return false;
+        }
+        if (index == RenderIndex.DepthBlurIndex) {
+            return mCameraParam.enableDepthBlur;
+        }
+        if (index == RenderIndex.VignetteIndex) {
+            return mCameraParam.enableVignette;
+        }
+        return true;
+    }
 
-        return currentTexture;
+    /**
+     * 初始化显示之前的滤镜FBO，滤镜自身只保留内部多个pass使用的FBO，输出使用共享FBO
+     * @param filter
+     */
+    private void initFrameBuffer(GLImageFilter filter) {
+        filter.setExternalFrameBuffer(true);
+        filter.initFrameBuffer(mTextureWidth, mTextureHeight);
     }
 
     /**
@@ -324,11 +397,39 @@ public final class RenderManager {
     public void drawFacePoint(int mCurrentTexture) {
         if (mFilterArrays.get(RenderIndex.FacePointIndex) != null) {
             if (mCameraParam.drawFacePoints && LandmarkEngine.getInstance().hasFace()) {
+                beginStage(RenderIndex.FacePointIndex);
                 mFilterArrays.get(RenderIndex.FacePointIndex).drawFrame(mCurrentTexture, mDisplayVertexBuffer, mDisplayTextureBuffer);
+                endStage(RenderIndex.FacePointIndex);
             }
         }
     }
 
+    /**
+     * 开始统计一个阶段的耗时
+     * @param stage RenderIndex
+     */
+    private void beginStage(int stage) {
+        if (mTelemetry != null) {
+            mTelemetry.beginStage(stage, System.nanoTime());
+        }
+        if (mGpuTimer != null) {
+            mGpuTimer.beginStage(stage);
+        }
+    }
+
+    /**
+     * 结束统计一个阶段的耗时
+     * @param stage RenderIndex
+     */
+    private void endStage(int stage) {
+        if (mGpuTimer != null) {
+            mGpuTimer.endStage(stage);
+        }
+        if (mTelemetry != null) {
+            mTelemetry.endStage(stage, System.nanoTime());
+        }
+    }
+
     /**
      * 设置输入纹理大小
      * @param width
@@ -380,9 +481,9 @@ public final class RenderManager {
         for (int i = 0; i < RenderIndex.NumberIndex; i++) {
             if (mFilterArrays.get(i) != null) {
                 mFilterArrays.get(i).onInputSizeChanged(mTextureWidth, mTextureHeight);
-                // 到显示之前都需要创建FBO，这里限定是防止创建多余的FBO，节省GPU资源
+                // 到显示之前的输出使用渲染图分配的共享FBO，这里只创建滤镜内部需要的FBO
                 if (i < RenderIndex.DisplayIndex) {
-                    mFilterArrays.get(i).initFrameBuffer(mTextureWidth, mTextureHeight);
+                    initFrameBuffer(mFilterArrays.get(i));
                 }
                 mFilterArrays.get(i).onDisplaySizeChanged(mViewWidth, mViewHeight);
             }
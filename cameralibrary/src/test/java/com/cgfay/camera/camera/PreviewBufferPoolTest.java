@@ -0,0 +1,53 @@
+package com.cgfay.camera.camera;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 预览帧数组池测试
+ */
+public class PreviewBufferPoolTest {
+
+    @Test
+    public void obtainIsBoundedByCapacity() {
+        PreviewBufferPool pool = new PreviewBufferPool(2);
+        pool.setBufferSize(16);
+        byte[] first = pool.obtain();
+        byte[] second = pool.obtain();
+        assertNotNull(first);
+        assertNotNull(second);
+        // 全部被占用时丢帧，不再分配
+        assertNull(pool.obtain());
+        assertEquals(1, pool.getDroppedCount());
+        assertEquals(2, pool.getInUseCount());
+
+        pool.release(first);
+        assertEquals(1, pool.getInUseCount());
+        assertSame(first, pool.obtain());
+    }
+
+    @Test
+    public void releaseIgnoresUnknownBuffers() {
+        PreviewBufferPool pool = new PreviewBufferPool(2);
+        pool.setBufferSize(16);
+        byte[] buffer = pool.obtain();
+        pool.release(buffer);
+        // 重复归还以及不是从池中取出的数组都不会放回
+        pool.release(buffer);
+        pool.release(new byte[16]);
+        assertEquals(0, pool.getInUseCount());
+        assertSame(buffer, pool.obtain());
+        assertNotNull(pool.obtain());
+        assertNull(pool.obtain());
+
+        // 尺寸变化后旧数组归还时直接丢弃
+        pool.setBufferSize(32);
+        pool.release(buffer);
+        assertEquals(0, pool.getInUseCount());
+        assertEquals(32, pool.obtain().length);
+    }
+}
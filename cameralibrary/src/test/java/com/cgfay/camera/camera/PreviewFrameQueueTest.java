@@ -0,0 +1,76 @@
+package com.cgfay.camera.camera;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 预览帧背压测试
+ */
+public class PreviewFrameQueueTest {
+
+    @Test
+    public void dropsFramesWhenConsumerFallsBehind() {
+        PreviewFrameQueue queue = new PreviewFrameQueue(2);
+        assertTrue(queue.tryAcquire());
+        assertTrue(queue.tryAcquire());
+        assertFalse(queue.tryAcquire());
+        assertFalse(queue.tryAcquire());
+        assertEquals(2, queue.getPendingCount());
+        assertEquals(2, queue.getDroppedCount());
+
+        queue.release();
+        assertTrue(queue.tryAcquire());
+        assertEquals(3, queue.getAcceptedCount());
+        assertEquals(2, queue.getPeakPendingCount());
+
+        queue.release();
+        queue.release();
+        queue.resetStatistics();
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(0, queue.getPeakPendingCount());
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void pendingNeverExceedsLimitWithSlowConsumer() throws InterruptedException {
+        final PreviewFrameQueue queue = new PreviewFrameQueue(3);
+        ExecutorService consumer = Executors.newSingleThreadExecutor();
+        int frames = 200;
+        final CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < frames; i++) {
+            if (queue.tryAcquire()) {
+                consumer.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            Thread.sleep(1);
+                        } catch (InterruptedException e) {
+                            // ignore
+                        }
+                        queue.release();
+                    }
+                });
+            }
+        }
+        consumer.execute(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        consumer.shutdown();
+        assertTrue(queue.getPeakPendingCount() <= 3);
+        assertEquals(frames, queue.getAcceptedCount() + queue.getDroppedCount());
+        assertTrue(queue.getDroppedCount() > 0);
+        assertEquals(0, queue.getPendingCount());
+    }
+}
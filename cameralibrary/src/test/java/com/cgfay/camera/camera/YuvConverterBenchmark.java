@@ -0,0 +1,175 @@
+package com.cgfay.camera.camera;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * YUV数据转换耗时测试，720p、1080p、4K预览帧分别转换为I420/NV21/NV12，以及旋转和镜像
+ * 源数据包括像素间隔为1和2两种情况，行都带有填充，每种情况先跟逐像素的参考实现对比结果
+ */
+public class YuvConverterBenchmark {
+
+    private static final int[][] SIZES = {{1280, 720}, {1920, 1080}, {3840, 2160}};
+    private static final int[] PIXEL_STRIDES = {1, 2};
+    // 行填充，模拟硬件对齐后的rowStride
+    private static final int ROW_PADDING = 64;
+    private static final int[] FORMATS = {
+            YuvConverter.FORMAT_I420, YuvConverter.FORMAT_NV21, YuvConverter.FORMAT_NV12
+    };
+    private static final String[] FORMAT_NAMES = {"", "I420", "NV21", "NV12"};
+    // 旋转角度与镜像的组合
+    private static final int[] ROTATIONS = {0, 90, 270};
+    private static final boolean[] MIRRORS = {false, false, true};
+    // 每种情况处理的像素总数，分辨率越高迭代次数越少
+    private static final long PIXELS_PER_CASE = 1920L * 1080 * 30;
+    private static final int WARMUP = 3;
+
+    /**
+     * 随机内容的YUV_420_888三个平面，像素间隔为2时U、V平面交错存放在同一块内存中
+     */
+    private static class Planes {
+        final int yRowStride;
+        final int uvRowStride;
+        final int uvPixelStride;
+        final ByteBuffer y;
+        final ByteBuffer u;
+        final ByteBuffer v;
+
+        Planes(int width, int height, int uvPixelStride, Random random) {
+            this.uvPixelStride = uvPixelStride;
+            yRowStride = width + ROW_PADDING;
+            uvRowStride = (width >> 1) * uvPixelStride + ROW_PADDING;
+            y = fill(ByteBuffer.allocateDirect(yRowStride * (height - 1) + width), random);
+            int size = uvRowStride * ((height >> 1) - 1) + ((width >> 1) - 1) * uvPixelStride + 1;
+            if (uvPixelStride == 2) {
+                ByteBuffer vu = fill(ByteBuffer.allocateDirect(size + 1), random);
+                vu.limit(size);
+                v = vu.slice();
+                vu.limit(size + 1).position(1);
+                u = vu.slice();
+            } else {
+                u = fill(ByteBuffer.allocateDirect(size), random);
+                v = fill(ByteBuffer.allocateDirect(size), random);
+            }
+        }
+
+        private static ByteBuffer fill(ByteBuffer buffer, Random random) {
+            byte[] data = new byte[buffer.capacity()];
+            random.nextBytes(data);
+            buffer.put(data).clear();
+            return buffer;
+        }
+    }
+
+    /**
+     * 参考实现：每个输出像素按旋转和镜像计算源坐标后逐个读取
+     */
+    private static byte[] reference(Planes planes, int width, int height,
+                                    int rotation, boolean mirror, int format) {
+        boolean swap = rotation == 90 || rotation == 270;
+        int outWidth = swap ? height : width;
+        int outHeight = swap ? width : height;
+        int ySize = outWidth * outHeight;
+        byte[] out = new byte[width * height * 3 / 2];
+        for (int plane = 0; plane < 3; plane++) {
+            int shift = plane == 0 ? 0 : 1;
+            int w = outWidth >> shift;
+            int h = outHeight >> shift;
+            int srcWidth = width >> shift;
+            int srcHeight = height >> shift;
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    int ox = mirror ? w - 1 - x : x;
+                    int sx;
+                    int sy;
+                    if (rotation == 90) {
+                        sx = y;
+                        sy = srcHeight - 1 - ox;
+                    } else if (rotation == 270) {
+                        sx = srcWidth - 1 - y;
+                        sy = ox;
+                    } else {
+                        sx = ox;
+                        sy = y;
+                    }
+                    if (plane == 0) {
+                        out[y * w + x] = planes.y.get(sy * planes.yRowStride + sx);
+                        continue;
+                    }
+                    ByteBuffer source = plane == 1 ? planes.u : planes.v;
+                    byte value = source.get(sy * planes.uvRowStride + sx * planes.uvPixelStride);
+                    int index;
+                    if (format == YuvConverter.FORMAT_I420) {
+                        index = ySize + (plane - 1) * w * h + y * w + x;
+                    } else {
+                        boolean first = (format == YuvConverter.FORMAT_NV12) == (plane == 1);
+                        index = ySize + (y * w + x) * 2 + (first ? 0 : 1);
+                    }
+                    out[index] = value;
+                }
+            }
+        }
+        return out;
+    }
+
+    private static void convert(YuvConverter converter, Planes planes, int width, int height,
+                                int rotation, boolean mirror, int format, byte[] output) {
+        converter.convert(planes.y, planes.yRowStride, planes.u, planes.v,
+                planes.uvRowStride, planes.uvPixelStride, 0, 0, width, height,
+                rotation, mirror, format, output);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void measureConversion() {
+        Random random = new Random(42);
+        YuvConverter converter = new YuvConverter();
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+            int iterations = (int) Math.max(1, PIXELS_PER_CASE / ((long) width * height));
+            byte[] output = new byte[YuvConverter.getBufferSize(width, height)];
+            for (int pixelStride : PIXEL_STRIDES) {
+                Planes planes = new Planes(width, height, pixelStride, random);
+                for (int format : FORMATS) {
+                    for (int i = 0; i < ROTATIONS.length; i++) {
+                        int rotation = ROTATIONS[i];
+                        boolean mirror = MIRRORS[i];
+                        String name = String.format("%dx%d pixelStride=%d %s rotation=%d mirror=%b",
+                                width, height, pixelStride, FORMAT_NAMES[format], rotation, mirror);
+                        convert(converter, planes, width, height, rotation, mirror, format, output);
+                        assertArrayEquals(name, reference(planes, width, height, rotation, mirror,
+                                format), output);
+
+                        for (int n = 0; n < WARMUP; n++) {
+                            convert(converter, planes, width, height, rotation, mirror, format, output);
+                        }
+                        long bytes = allocatedBytes();
+                        long start = System.nanoTime();
+                        for (int n = 0; n < iterations; n++) {
+                            convert(converter, planes, width, height, rotation, mirror, format, output);
+                        }
+                        long elapsed = System.nanoTime() - start;
+                        long allocated = allocatedBytes() - bytes;
+                        System.out.println(String.format("%s: %.2f ms/frame, %.0f MPixel/s, %d bytes allocated",
+                                name, elapsed / 1e6 / iterations,
+                                (double) width * height * iterations * 1e3 / elapsed, allocated));
+                        // 行缓冲在之前的转换中已经分配，稳定状态下转换不分配内存，
+                        // 统计接口本身会分配少量内存，远小于一帧的数据量
+                        assertTrue(name + " allocated " + allocated, allocated < 4096);
+                    }
+                }
+            }
+        }
+    }
+}
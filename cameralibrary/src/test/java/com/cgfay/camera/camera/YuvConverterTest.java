@@ -0,0 +1,194 @@
+package com.cgfay.camera.camera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * YUV数据转换测试，跟逐像素的参考实现对比
+ */
+public class YuvConverterTest {
+
+    private static final int WIDTH = 12;
+    private static final int HEIGHT = 8;
+    private static final int[] ROTATIONS = {0, 90, 180, 270};
+    private static final int[] FORMATS = {
+            YuvConverter.FORMAT_I420, YuvConverter.FORMAT_NV21, YuvConverter.FORMAT_NV12
+    };
+
+    /**
+     * 模拟YUV_420_888的三个平面，U、V平面的像素间隔为2时共用一块交错存放的内存
+     */
+    private static class Planes {
+        final int width;
+        final int height;
+        final int yRowStride;
+        final int uvRowStride;
+        final int uvPixelStride;
+        final ByteBuffer y;
+        final ByteBuffer u;
+        final ByteBuffer v;
+
+        Planes(int width, int height, int rowPadding, int uvPixelStride) {
+            this.width = width;
+            this.height = height;
+            this.yRowStride = width + rowPadding;
+            this.uvPixelStride = uvPixelStride;
+            this.uvRowStride = (width >> 1) * uvPixelStride + rowPadding;
+            // 最后一行不带填充
+            y = ByteBuffer.allocateDirect(yRowStride * (height - 1) + width);
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    y.put(row * yRowStride + col, luma(col, row));
+                }
+            }
+            int chromaWidth = width >> 1;
+            int chromaHeight = height >> 1;
+            int size = uvRowStride * (chromaHeight - 1) + (chromaWidth - 1) * uvPixelStride + 1;
+            if (uvPixelStride == 2) {
+                // 跟大部分设备一样，V平面比U平面提前一个字节，两者交错
+                ByteBuffer vu = ByteBuffer.allocateDirect(size + 1);
+                for (int row = 0; row < chromaHeight; row++) {
+                    for (int col = 0; col < chromaWidth; col++) {
+                        vu.put(row * uvRowStride + col * 2, chromaV(col, row));
+                        vu.put(row * uvRowStride + col * 2 + 1, chromaU(col, row));
+                    }
+                }
+                vu.limit(size);
+                v = vu.slice();
+                vu.limit(size + 1).position(1);
+                u = vu.slice();
+            } else {
+                u = ByteBuffer.allocateDirect(size);
+                v = ByteBuffer.allocateDirect(size);
+                for (int row = 0; row < chromaHeight; row++) {
+                    for (int col = 0; col < chromaWidth; col++) {
+                        u.put(row * uvRowStride + col, chromaU(col, row));
+                        v.put(row * uvRowStride + col, chromaV(col, row));
+                    }
+                }
+            }
+        }
+    }
+
+    private static byte luma(int x, int y) {
+        return (byte) (y * 16 + x);
+    }
+
+    private static byte chromaU(int x, int y) {
+        return (byte) (0x80 + y * 8 + x);
+    }
+
+    private static byte chromaV(int x, int y) {
+        return (byte) (0xC0 + y * 8 + x);
+    }
+
+    /**
+     * 参考实现：先计算每个输出像素对应的源坐标，再逐个取值
+     */
+    private static byte[] reference(int left, int top, int width, int height,
+                                    int rotation, boolean mirror, int format) {
+        boolean swap = rotation == 90 || rotation == 270;
+        int outWidth = swap ? height : width;
+        int outHeight = swap ? width : height;
+        byte[] out = new byte[width * height * 3 / 2];
+        for (int plane = 0; plane < 3; plane++) {
+            int shift = plane == 0 ? 0 : 1;
+            int w = outWidth >> shift;
+            int h = outHeight >> shift;
+            int srcWidth = width >> shift;
+            int srcHeight = height >> shift;
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    int ox = mirror ? w - 1 - x : x;
+                    int sx;
+                    int sy;
+                    switch (rotation) {
+                        case 90:
+                            sx = y;
+                            sy = srcHeight - 1 - ox;
+                            break;
+                        case 180:
+                            sx = srcWidth - 1 - ox;
+                            sy = srcHeight - 1 - y;
+                            break;
+                        case 270:
+                            sx = srcWidth - 1 - y;
+                            sy = ox;
+                            break;
+                        default:
+                            sx = ox;
+                            sy = y;
+                            break;
+                    }
+                    sx += left >> shift;
+                    sy += top >> shift;
+                    if (plane == 0) {
+                        out[y * w + x] = luma(sx, sy);
+                        continue;
+                    }
+                    byte value = plane == 1 ? chromaU(sx, sy) : chromaV(sx, sy);
+                    int ySize = outWidth * outHeight;
+                    int index;
+                    if (format == YuvConverter.FORMAT_I420) {
+                        index = ySize + (plane - 1) * w * h + y * w + x;
+                    } else {
+                        boolean first = (format == YuvConverter.FORMAT_NV12) == (plane == 1);
+                        index = ySize + (y * w + x) * 2 + (first ? 0 : 1);
+                    }
+                    out[index] = value;
+                }
+            }
+        }
+        return out;
+    }
+
+    private static void assertConversion(Planes planes, int left, int top, int width, int height) {
+        YuvConverter converter = new YuvConverter();
+        byte[] output = new byte[YuvConverter.getBufferSize(width, height)];
+        for (int format : FORMATS) {
+            for (int rotation : ROTATIONS) {
+                for (boolean mirror : new boolean[] {false, true}) {
+                    converter.convert(planes.y, planes.yRowStride, planes.u, planes.v,
+                            planes.uvRowStride, planes.uvPixelStride,
+                            left, top, width, height, rotation, mirror, format, output);
+                    assertArrayEquals("format " + format + ", rotation " + rotation
+                                    + ", mirror " + mirror,
+                            reference(left, top, width, height, rotation, mirror, format), output);
+                }
+            }
+        }
+        // 不修改源数据的position
+        assertEquals(0, planes.y.position());
+        assertEquals(0, planes.u.position());
+    }
+
+    @Test
+    public void convertsPlanarSource() {
+        assertConversion(new Planes(WIDTH, HEIGHT, 0, 1), 0, 0, WIDTH, HEIGHT);
+        assertConversion(new Planes(WIDTH, HEIGHT, 4, 1), 0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void convertsSemiPlanarSource() {
+        assertConversion(new Planes(WIDTH, HEIGHT, 0, 2), 0, 0, WIDTH, HEIGHT);
+        assertConversion(new Planes(WIDTH, HEIGHT, 8, 2), 0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void convertsCropRect() {
+        assertConversion(new Planes(WIDTH, HEIGHT, 4, 2), 2, 2, 8, 4);
+        assertConversion(new Planes(WIDTH, HEIGHT, 4, 1), 4, 0, 6, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSmallOutput() {
+        Planes planes = new Planes(WIDTH, HEIGHT, 0, 1);
+        new YuvConverter().convert(planes.y, planes.yRowStride, planes.u, planes.v,
+                planes.uvRowStride, planes.uvPixelStride, 0, 0, WIDTH, HEIGHT,
+                0, false, YuvConverter.FORMAT_NV21, new byte[WIDTH * HEIGHT]);
+    }
+}
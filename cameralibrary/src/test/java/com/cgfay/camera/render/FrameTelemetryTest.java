@@ -0,0 +1,173 @@
+package com.cgfay.camera.render;
+
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.gles.RecordingGLBackend;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 渲染帧统计测试，时间由测试传入，结果可以精确计算
+ */
+public class FrameTelemetryTest {
+
+    private static final long MS = 1000000L;
+    private static final float DELTA = 0.001f;
+
+    @After
+    public void tearDown() {
+        GLES.setBackend(null);
+    }
+
+    /**
+     * 按给定的间隔绘制帧，每帧执行相机输入和显示两个阶段
+     */
+    private static long drawFrames(FrameTelemetry telemetry, long now, long[] intervals) {
+        for (long interval : intervals) {
+            now += interval;
+            telemetry.beginFrame(now);
+            telemetry.beginStage(RenderIndex.CameraIndex, now);
+            telemetry.endStage(RenderIndex.CameraIndex, now + 2 * MS);
+            telemetry.beginStage(RenderIndex.DisplayIndex, now + 2 * MS);
+            telemetry.endStage(RenderIndex.DisplayIndex, now + 3 * MS);
+            telemetry.endFrame(now + 3 * MS);
+        }
+        return now;
+    }
+
+    @Test
+    public void intervalsPercentilesAndDrops() {
+        FrameTelemetry telemetry = new FrameTelemetry(10000 * MS);
+        telemetry.setExpectedFrameRate(50);
+        // 20ms一帧，其中一个50ms(丢1帧)，一个100ms(丢4帧)
+        long[] intervals = new long[100];
+        for (int i = 0; i < intervals.length; i++) {
+            intervals[i] = 20 * MS;
+        }
+        intervals[40] = 50 * MS;
+        intervals[80] = 100 * MS;
+        long now = drawFrames(telemetry, 0, intervals);
+        assertFalse(telemetry.endFrame(now));
+        now += 10000 * MS;
+        assertTrue(telemetry.endFrame(now));
+
+        FrameStats stats = telemetry.getStats();
+        // 第一帧只作为起点，剩下97个20ms、一个50ms和一个100ms的间隔
+        assertEquals(100, stats.frameCount);
+        assertEquals(20f, stats.intervalP50Ms, DELTA);
+        assertEquals(20f, stats.intervalP95Ms, DELTA);
+        assertEquals(100f, stats.intervalP99Ms, DELTA);
+        assertEquals(100f, stats.intervalMaxMs, DELTA);
+        assertEquals(5, stats.droppedFrames);
+        // 间隔变化 30+30+80+80 ms，分布在98个相邻间隔上
+        assertEquals(220f / 98, stats.jitterMs, DELTA);
+
+        assertEquals(100, stats.stageFrames[RenderIndex.CameraIndex]);
+        assertEquals(2f, stats.stageCpuMs[RenderIndex.CameraIndex], DELTA);
+        assertEquals(1f, stats.stageCpuMs[RenderIndex.DisplayIndex], DELTA);
+        assertEquals(0, stats.stageFrames[RenderIndex.BeautyIndex]);
+        assertEquals(-1f, stats.stageGpuMs[RenderIndex.CameraIndex], DELTA);
+        assertEquals(0, stats.encoderSamples);
+
+        // 新的统计周期从0开始
+        now = drawFrames(telemetry, now, new long[] {20 * MS, 20 * MS});
+        assertTrue(telemetry.endFrame(now + 10000 * MS));
+        assertEquals(2, telemetry.getStats().frameCount);
+        assertEquals(0, telemetry.getStats().stageFrames[RenderIndex.BeautyIndex]);
+    }
+
+    @Test
+    public void encoderLatencyAcrossThreads() throws InterruptedException {
+        final FrameTelemetry telemetry = new FrameTelemetry(1000 * MS);
+        telemetry.beginFrame(0);
+        // 每帧提交后过 (i + 1) ms 编码完成
+        final int frames = 10;
+        for (int i = 0; i < frames; i++) {
+            telemetry.onFrameSubmitted(1000 + i, i * 10 * MS);
+        }
+        Thread encoder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < frames; i++) {
+                    telemetry.onFrameEncoded(1000 + i, i * 10 * MS + (i + 1) * MS);
+                }
+                // 没有提交记录的帧被忽略
+                telemetry.onFrameEncoded(5000, 0);
+            }
+        });
+        encoder.start();
+        encoder.join();
+
+        assertTrue(telemetry.endFrame(1000 * MS));
+        FrameStats stats = telemetry.getStats();
+        assertEquals(frames, stats.encoderSamples);
+        assertEquals(5f, stats.encoderLatencyP50Ms, DELTA);
+        assertEquals(10f, stats.encoderLatencyP95Ms, DELTA);
+        assertEquals(10f, stats.encoderLatencyMaxMs, DELTA);
+
+        // 已经读取过的样本不会重复统计
+        telemetry.beginFrame(1000 * MS);
+        assertTrue(telemetry.endFrame(2000 * MS));
+        assertEquals(0, telemetry.getStats().encoderSamples);
+    }
+
+    @Test
+    public void gpuTimesFromTimerQueries() {
+        RecordingGLBackend backend = new RecordingGLBackend();
+        GLES.setBackend(backend);
+        assertFalse(GpuStageTimer.isSupported(3));
+        backend.setExtensions("GL_EXT_color_buffer_float GL_EXT_disjoint_timer_query");
+        assertFalse(GpuStageTimer.isSupported(2));
+        assertTrue(GpuStageTimer.isSupported(3));
+
+        FrameTelemetry telemetry = new FrameTelemetry(1000 * MS);
+        GpuStageTimer timer = new GpuStageTimer();
+        timer.init();
+        for (int frame = 0; frame < 10; frame++) {
+            telemetry.beginFrame(frame * 20 * MS);
+            timer.beginFrame(telemetry);
+            // 显示阶段画两次
+            timer.beginStage(RenderIndex.CameraIndex);
+            GLES.glDrawArrays(0, 0, 4);
+            timer.endStage(RenderIndex.CameraIndex);
+            timer.beginStage(RenderIndex.DisplayIndex);
+            GLES.glDrawArrays(0, 0, 4);
+            GLES.glDrawArrays(0, 0, 4);
+            timer.endStage(RenderIndex.DisplayIndex);
+        }
+        assertTrue(telemetry.endFrame(1000 * MS));
+        FrameStats stats = telemetry.getStats();
+        float drawMs = RecordingGLBackend.SIMULATED_DRAW_NANOS / (float) MS;
+        assertEquals(drawMs, stats.stageGpuMs[RenderIndex.CameraIndex], DELTA);
+        assertEquals(2 * drawMs, stats.stageGpuMs[RenderIndex.DisplayIndex], DELTA);
+        assertEquals(-1f, stats.stageGpuMs[RenderIndex.BeautyIndex], DELTA);
+
+        timer.release();
+        assertEquals(0, backend.getLiveQueryCount());
+    }
+
+    @Test
+    public void steadyStateDoesNotAllocate() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        FrameTelemetry telemetry = new FrameTelemetry(100 * MS);
+        long[] intervals = new long[] {16 * MS, 17 * MS, 40 * MS};
+        long now = drawFrames(telemetry, 0, intervals);
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        int frames = 30000;
+        for (int i = 0; i < frames / intervals.length; i++) {
+            now = drawFrames(telemetry, now, intervals);
+            telemetry.onFrameSubmitted(i + 1, now);
+            telemetry.onFrameEncoded(i + 1, now + MS);
+        }
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < frames);
+    }
+}
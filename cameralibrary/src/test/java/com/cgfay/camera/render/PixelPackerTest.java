@@ -0,0 +1,93 @@
+package com.cgfay.camera.render;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * RGBA像素拷贝测试
+ */
+public class PixelPackerTest {
+
+    /**
+     * 创建带填充的RGBA数据，像素值按 行、列、通道 编码，填充部分为0xEE
+     */
+    private static ByteBuffer createPlane(int width, int height, int pixelStride, int rowStride) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(rowStride * (height - 1) + pixelStride * width);
+        for (int i = 0; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0xEE);
+        }
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                for (int c = 0; c < PixelPacker.BYTES_PER_PIXEL; c++) {
+                    buffer.put(row * rowStride + col * pixelStride + c, value(row, col, c));
+                }
+            }
+        }
+        return buffer;
+    }
+
+    private static byte value(int row, int col, int channel) {
+        return (byte) (row * 31 + col * 7 + channel);
+    }
+
+    private static void assertPacked(ByteBuffer dst, int width, int height) {
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                for (int c = 0; c < PixelPacker.BYTES_PER_PIXEL; c++) {
+                    assertEquals(value(row, col, c),
+                            dst.get((row * width + col) * PixelPacker.BYTES_PER_PIXEL + c));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void removesRowPadding() {
+        int width = 5;
+        int height = 3;
+        // 最后一行不带填充，跟部分设备上Image.Plane的buffer大小一致
+        ByteBuffer src = createPlane(width, height, 4, 32);
+        ByteBuffer dst = ByteBuffer.allocateDirect(width * height * 4);
+        PixelPacker.pack(src, width, height, 4, 32, dst);
+        assertEquals(dst.capacity(), dst.position());
+        assertPacked(dst, width, height);
+        // 源数据的position和limit不变
+        assertEquals(0, src.position());
+        assertEquals(src.capacity(), src.limit());
+    }
+
+    @Test
+    public void removesPixelStride() {
+        int width = 4;
+        int height = 2;
+        ByteBuffer src = createPlane(width, height, 6, 28);
+        ByteBuffer dst = ByteBuffer.allocate(width * height * 4);
+        PixelPacker.pack(src, width, height, 6, 28, dst);
+        assertPacked(dst, width, height);
+    }
+
+    @Test
+    public void packedDataIsCopiedAsIs() {
+        assertTrue(PixelPacker.isPacked(8, 4, 32));
+        assertFalse(PixelPacker.isPacked(8, 4, 64));
+        assertFalse(PixelPacker.isPacked(8, 8, 64));
+
+        ByteBuffer src = createPlane(8, 4, 4, 32);
+        src.position(0);
+        ByteBuffer dst = ByteBuffer.allocate(src.capacity());
+        PixelPacker.pack(src, 8, 4, 4, 32, dst);
+        src.rewind();
+        dst.rewind();
+        assertEquals(src, dst);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSmallDestination() {
+        PixelPacker.pack(createPlane(4, 4, 4, 16), 4, 4, 4, 16, ByteBuffer.allocate(63));
+    }
+}
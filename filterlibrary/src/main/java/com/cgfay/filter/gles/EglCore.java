@@ -281,6 +281,8 @@ public final class EglCore {
         if (!EGL14.eglMakeCurrent(mEGLDisplay, eglSurface, eglSurface, mEGLContext)) {
             throw new RuntimeException("eglMakeCurrent failed");
         }
+        // GL state belongs to the context, drop anything cached for the previous one.
+        GLES.invalidateState();
     }
 
     /**
@@ -294,6 +296,7 @@ public final class EglCore {
         if (!EGL14.eglMakeCurrent(mEGLDisplay, drawSurface, readSurface, mEGLContext)) {
             throw new RuntimeException("eglMakeCurrent(draw,read) failed");
         }
+        GLES.invalidateState();
     }
 
     /**
@@ -304,6 +307,7 @@ public final class EglCore {
                 EGL14.EGL_NO_CONTEXT)) {
             throw new RuntimeException("eglMakeCurrent failed");
         }
+        GLES.invalidateState();
     }
 
     /**
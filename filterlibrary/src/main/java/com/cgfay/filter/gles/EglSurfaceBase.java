@@ -155,7 +155,7 @@ public class EglSurfaceBase {
         int height = getHeight();
         ByteBuffer buf = ByteBuffer.allocateDirect(width * height * 4);
         buf.order(ByteOrder.LITTLE_ENDIAN);
-        GLES30.glReadPixels(0, 0, width, height,
+        GLES.glReadPixels(0, 0, width, height,
                 GLES30.GL_RGBA, GLES30.GL_UNSIGNED_BYTE, buf);
         OpenGLUtils.checkGlError("glReadPixels");
         buf.rewind();
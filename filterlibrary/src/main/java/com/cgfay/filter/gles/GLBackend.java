@@ -0,0 +1,170 @@
+package com.cgfay.filter.gles;
+
+import android.graphics.Bitmap;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+
+/**
+ * GL调用接口，滤镜统一通过GLES调用，方法与GLES30/GLUtils中的同名方法一致
+ * 设备上使用AndroidGLBackend，JVM测试中可以替换为RecordingGLBackend统计渲染链路的调用
+ */
+public interface GLBackend {
+
+    void glActiveTexture(int texture);
+
+    void glAttachShader(int program, int shader);
+
+    void glBeginQuery(int target, int id);
+
+    void glBindBuffer(int target, int buffer);
+
+    void glBindFramebuffer(int target, int framebuffer);
+
+    void glBindTexture(int target, int texture);
+
+    void glBlendEquation(int mode);
+
+    void glBlendFunc(int sfactor, int dfactor);
+
+    void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha);
+
+    void glBufferData(int target, int size, Buffer data, int usage);
+
+    void glClear(int mask);
+
+    void glClearColor(float red, float green, float blue, float alpha);
+
+    int glClientWaitSync(long sync, int flags, long timeout);
+
+    void glCompileShader(int shader);
+
+    int glCreateProgram();
+
+    int glCreateShader(int type);
+
+    void glDeleteBuffers(int n, int[] buffers, int offset);
+
+    void glDeleteFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glDeleteProgram(int program);
+
+    void glDeleteQueries(int n, int[] ids, int offset);
+
+    void glDeleteShader(int shader);
+
+    void glDeleteTextures(int n, int[] textures, int offset);
+
+    void glDeleteSync(long sync);
+
+    void glDetachShader(int program, int shader);
+
+    void glDisable(int cap);
+
+    void glDisableVertexAttribArray(int index);
+
+    void glDrawArrays(int mode, int first, int count);
+
+    void glDrawElements(int mode, int count, int type, Buffer indices);
+
+    void glEnable(int cap);
+
+    void glEnableVertexAttribArray(int index);
+
+    void glEndQuery(int target);
+
+    long glFenceSync(int condition, int flags);
+
+    void glFlush();
+
+    void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level);
+
+    void glGenBuffers(int n, int[] buffers, int offset);
+
+    void glGenFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glGenQueries(int n, int[] ids, int offset);
+
+    void glGenTextures(int n, int[] textures, int offset);
+
+    int glGetAttribLocation(int program, String name);
+
+    int glGetError();
+
+    void glGetIntegerv(int pname, int[] params, int offset);
+
+    void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                            int[] binaryFormat, int binaryFormatOffset, Buffer binary);
+
+    String glGetProgramInfoLog(int program);
+
+    void glGetProgramiv(int program, int pname, int[] params, int offset);
+
+    void glGetQueryObjectuiv(int id, int pname, int[] params, int offset);
+
+    String glGetShaderInfoLog(int shader);
+
+    void glGetShaderiv(int shader, int pname, int[] params, int offset);
+
+    String glGetString(int name);
+
+    int glGetUniformLocation(int program, String name);
+
+    void glLinkProgram(int program);
+
+    Buffer glMapBufferRange(int target, int offset, int length, int access);
+
+    void glPixelStorei(int pname, int param);
+
+    void glProgramBinary(int program, int binaryFormat, Buffer binary, int length);
+
+    void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels);
+
+    void glReadPixels(int x, int y, int width, int height, int format, int type, int offset);
+
+    void glShaderSource(int shader, String string);
+
+    void glTexImage2D(int target, int level, int internalformat, int width, int height, int border, int format, int type, Buffer pixels);
+
+    void glTexParameterf(int target, int pname, float param);
+
+    void glTexParameteri(int target, int pname, int param);
+
+    void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height, int format, int type, Buffer pixels);
+
+    void glUniform1f(int location, float x);
+
+    void glUniform1fv(int location, int count, float[] v, int offset);
+
+    void glUniform1fv(int location, int count, FloatBuffer v);
+
+    void glUniform1i(int location, int x);
+
+    void glUniform2fv(int location, int count, float[] v, int offset);
+
+    void glUniform2fv(int location, int count, FloatBuffer v);
+
+    void glUniform3fv(int location, int count, float[] v, int offset);
+
+    void glUniform3fv(int location, int count, FloatBuffer v);
+
+    void glUniform4fv(int location, int count, float[] v, int offset);
+
+    void glUniform4fv(int location, int count, FloatBuffer v);
+
+    void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    boolean glUnmapBuffer(int target);
+
+    void glUseProgram(int program);
+
+    void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, Buffer ptr);
+
+    void glViewport(int x, int y, int width, int height);
+
+    void texImage2D(int target, int level, Bitmap bitmap, int border);
+
+    void texSubImage2D(int target, int level, int xoffset, int yoffset, Bitmap bitmap);
+}
@@ -0,0 +1,388 @@
+package com.cgfay.filter.gles;
+
+import android.graphics.Bitmap;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+
+/**
+ * GL调用入口，所有滤镜通过这里调用GL，具体实现由GLBackend决定
+ * 可以给某一个线程(通常是渲染线程)单独设置实现，比如GLStateCache，其它线程不受影响
+ * 常量仍然使用GLES30中的定义
+ */
+public final class GLES {
+
+    private static volatile GLBackend sBackend = new AndroidGLBackend();
+    // 指定线程使用的实现及其所在的线程
+    private static volatile GLBackend sThreadBackend;
+    private static volatile Thread sThread;
+
+    private GLES() {
+
+    }
+
+    /**
+     * 获取当前的GL实现
+     * @return
+     */
+    public static GLBackend getBackend() {
+        return sBackend;
+    }
+
+    /**
+     * 替换GL实现，需要在GL线程开始渲染之前设置
+     * @param backend    为null时恢复为AndroidGLBackend
+     */
+    public static void setBackend(GLBackend backend) {
+        sBackend = backend != null ? backend : new AndroidGLBackend();
+    }
+
+    /**
+     * 给当前线程设置单独的GL实现，只有当前线程的调用会经过它
+     * GL状态跟EGLContext绑定，状态缓存这类实现只能在拥有该context的线程中使用
+     * @param backend   为null时取消，当前线程恢复使用全局的实现
+     */
+    public static void setThreadBackend(GLBackend backend) {
+        if (backend == null) {
+            sThreadBackend = null;
+            sThread = null;
+        } else {
+            sThread = Thread.currentThread();
+            sThreadBackend = backend;
+        }
+    }
+
+    /**
+     * 当前线程的GL状态在外部发生了变化(切换EGLContext、SurfaceTexture更新纹理等)，丢弃缓存的状态
+     */
+    public static void invalidateState() {
+        GLBackend backend = backend();
+        if (backend instanceof GLStateCache) {
+            ((GLStateCache) backend).invalidate();
+        }
+    }
+
+    /**
+     * 获取当前线程使用的实现
+     */
+    private static GLBackend backend() {
+        GLBackend backend = sThreadBackend;
+        if (backend != null && sThread == Thread.currentThread()) {
+            return backend;
+        }
+        return sBackend;
+    }
+
+    public static void glActiveTexture(int texture) {
+        backend().glActiveTexture(texture);
+    }
+
+    public static void glAttachShader(int program, int shader) {
+        backend().glAttachShader(program, shader);
+    }
+
+    public static void glBeginQuery(int target, int id) {
+        backend().glBeginQuery(target, id);
+    }
+
+    public static void glBindBuffer(int target, int buffer) {
+        backend().glBindBuffer(target, buffer);
+    }
+
+    public static void glBindFramebuffer(int target, int framebuffer) {
+        backend().glBindFramebuffer(target, framebuffer);
+    }
+
+    public static void glBindTexture(int target, int texture) {
+        backend().glBindTexture(target, texture);
+    }
+
+    public static void glBlendEquation(int mode) {
+        backend().glBlendEquation(mode);
+    }
+
+    public static void glBlendFunc(int sfactor, int dfactor) {
+        backend().glBlendFunc(sfactor, dfactor);
+    }
+
+    public static void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
+        backend().glBlendFuncSeparate(srcRGB, dstRGB, srcAlpha, dstAlpha);
+    }
+
+    public static void glBufferData(int target, int size, Buffer data, int usage) {
+        backend().glBufferData(target, size, data, usage);
+    }
+
+    public static void glClear(int mask) {
+        backend().glClear(mask);
+    }
+
+    public static void glClearColor(float red, float green, float blue, float alpha) {
+        backend().glClearColor(red, green, blue, alpha);
+    }
+
+    public static int glClientWaitSync(long sync, int flags, long timeout) {
+        return backend().glClientWaitSync(sync, flags, timeout);
+    }
+
+    public static void glCompileShader(int shader) {
+        backend().glCompileShader(shader);
+    }
+
+    public static int glCreateProgram() {
+        return backend().glCreateProgram();
+    }
+
+    public static int glCreateShader(int type) {
+        return backend().glCreateShader(type);
+    }
+
+    public static void glDeleteBuffers(int n, int[] buffers, int offset) {
+        backend().glDeleteBuffers(n, buffers, offset);
+    }
+
+    public static void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        backend().glDeleteFramebuffers(n, framebuffers, offset);
+    }
+
+    public static void glDeleteProgram(int program) {
+        backend().glDeleteProgram(program);
+    }
+
+    public static void glDeleteQueries(int n, int[] ids, int offset) {
+        backend().glDeleteQueries(n, ids, offset);
+    }
+
+    public static void glDeleteShader(int shader) {
+        backend().glDeleteShader(shader);
+    }
+
+    public static void glDeleteTextures(int n, int[] textures, int offset) {
+        backend().glDeleteTextures(n, textures, offset);
+    }
+
+    public static void glDeleteSync(long sync) {
+        backend().glDeleteSync(sync);
+    }
+
+    public static void glDetachShader(int program, int shader) {
+        backend().glDetachShader(program, shader);
+    }
+
+    public static void glDisable(int cap) {
+        backend().glDisable(cap);
+    }
+
+    public static void glDisableVertexAttribArray(int index) {
+        backend().glDisableVertexAttribArray(index);
+    }
+
+    public static void glDrawArrays(int mode, int first, int count) {
+        backend().glDrawArrays(mode, first, count);
+    }
+
+    public static void glDrawElements(int mode, int count, int type, Buffer indices) {
+        backend().glDrawElements(mode, count, type, indices);
+    }
+
+    public static void glEnable(int cap) {
+        backend().glEnable(cap);
+    }
+
+    public static void glEnableVertexAttribArray(int index) {
+        backend().glEnableVertexAttribArray(index);
+    }
+
+    public static void glEndQuery(int target) {
+        backend().glEndQuery(target);
+    }
+
+    public static long glFenceSync(int condition, int flags) {
+        return backend().glFenceSync(condition, flags);
+    }
+
+    public static void glFlush() {
+        backend().glFlush();
+    }
+
+    public static void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        backend().glFramebufferTexture2D(target, attachment, textarget, texture, level);
+    }
+
+    public static void glGenBuffers(int n, int[] buffers, int offset) {
+        backend().glGenBuffers(n, buffers, offset);
+    }
+
+    public static void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        backend().glGenFramebuffers(n, framebuffers, offset);
+    }
+
+    public static void glGenQueries(int n, int[] ids, int offset) {
+        backend().glGenQueries(n, ids, offset);
+    }
+
+    public static void glGenTextures(int n, int[] textures, int offset) {
+        backend().glGenTextures(n, textures, offset);
+    }
+
+    public static int glGetAttribLocation(int program, String name) {
+        return backend().glGetAttribLocation(program, name);
+    }
+
+    public static int glGetError() {
+        return backend().glGetError();
+    }
+
+    public static void glGetIntegerv(int pname, int[] params, int offset) {
+        backend().glGetIntegerv(pname, params, offset);
+    }
+
+    public static void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                                   int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+        backend().glGetProgramBinary(program, bufSize, length, lengthOffset, binaryFormat, binaryFormatOffset, binary);
+    }
+
+    public static String glGetProgramInfoLog(int program) {
+        return backend().glGetProgramInfoLog(program);
+    }
+
+    public static void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        backend().glGetProgramiv(program, pname, params, offset);
+    }
+
+    public static void glGetQueryObjectuiv(int id, int pname, int[] params, int offset) {
+        backend().glGetQueryObjectuiv(id, pname, params, offset);
+    }
+
+    public static String glGetShaderInfoLog(int shader) {
+        return backend().glGetShaderInfoLog(shader);
+    }
+
+    public static void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        backend().glGetShaderiv(shader, pname, params, offset);
+    }
+
+    public static String glGetString(int name) {
+        return backend().glGetString(name);
+    }
+
+    public static int glGetUniformLocation(int program, String name) {
+        return backend().glGetUniformLocation(program, name);
+    }
+
+    public static void glLinkProgram(int program) {
+        backend().glLinkProgram(program);
+    }
+
+    public static Buffer glMapBufferRange(int target, int offset, int length, int access) {
+        return backend().glMapBufferRange(target, offset, length, access);
+    }
+
+    public static void glPixelStorei(int pname, int param) {
+        backend().glPixelStorei(pname, param);
+    }
+
+    public static void glProgramBinary(int program, int binaryFormat, Buffer binary, int length) {
+        backend().glProgramBinary(program, binaryFormat, binary, length);
+    }
+
+    public static void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels) {
+        backend().glReadPixels(x, y, width, height, format, type, pixels);
+    }
+
+    public static void glReadPixels(int x, int y, int width, int height, int format, int type, int offset) {
+        backend().glReadPixels(x, y, width, height, format, type, offset);
+    }
+
+    public static void glShaderSource(int shader, String string) {
+        backend().glShaderSource(shader, string);
+    }
+
+    public static void glTexImage2D(int target, int level, int internalformat, int width, int height, int border, int format, int type, Buffer pixels) {
+        backend().glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+    }
+
+    public static void glTexParameterf(int target, int pname, float param) {
+        backend().glTexParameterf(target, pname, param);
+    }
+
+    public static void glTexParameteri(int target, int pname, int param) {
+        backend().glTexParameteri(target, pname, param);
+    }
+
+    public static void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height, int format, int type, Buffer pixels) {
+        backend().glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+    }
+
+    public static void glUniform1f(int location, float x) {
+        backend().glUniform1f(location, x);
+    }
+
+    public static void glUniform1fv(int location, int count, float[] v, int offset) {
+        backend().glUniform1fv(location, count, v, offset);
+    }
+
+    public static void glUniform1fv(int location, int count, FloatBuffer v) {
+        backend().glUniform1fv(location, count, v);
+    }
+
+    public static void glUniform1i(int location, int x) {
+        backend().glUniform1i(location, x);
+    }
+
+    public static void glUniform2fv(int location, int count, float[] v, int offset) {
+        backend().glUniform2fv(location, count, v, offset);
+    }
+
+    public static void glUniform2fv(int location, int count, FloatBuffer v) {
+        backend().glUniform2fv(location, count, v);
+    }
+
+    public static void glUniform3fv(int location, int count, float[] v, int offset) {
+        backend().glUniform3fv(location, count, v, offset);
+    }
+
+    public static void glUniform3fv(int location, int count, FloatBuffer v) {
+        backend().glUniform3fv(location, count, v);
+    }
+
+    public static void glUniform4fv(int location, int count, float[] v, int offset) {
+        backend().glUniform4fv(location, count, v, offset);
+    }
+
+    public static void glUniform4fv(int location, int count, FloatBuffer v) {
+        backend().glUniform4fv(location, count, v);
+    }
+
+    public static void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset) {
+        backend().glUniformMatrix3fv(location, count, transpose, value, offset);
+    }
+
+    public static void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        backend().glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    public static boolean glUnmapBuffer(int target) {
+        return backend().glUnmapBuffer(target);
+    }
+
+    public static void glUseProgram(int program) {
+        backend().glUseProgram(program);
+    }
+
+    public static void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, Buffer ptr) {
+        backend().glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+    }
+
+    public static void glViewport(int x, int y, int width, int height) {
+        backend().glViewport(x, y, width, height);
+    }
+
+    public static void texImage2D(int target, int level, Bitmap bitmap, int border) {
+        backend().texImage2D(target, level, bitmap, border);
+    }
+
+    public static void texSubImage2D(int target, int level, int xoffset, int yoffset, Bitmap bitmap) {
+        backend().texSubImage2D(target, level, xoffset, yoffset, bitmap);
+    }
+}
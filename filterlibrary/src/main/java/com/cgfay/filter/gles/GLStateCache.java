@@ -0,0 +1,892 @@
+package com.cgfay.filter.gles;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES11Ext;
+import android.opengl.GLES30;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+
+/**
+ * GL状态缓存
+ * 滤镜每次绘制都会重新设置视口、FBO、program、顶点属性和纹理，绘制完又全部解绑，下一个滤镜再重新设置。
+ * 这里把这些状态的设置延迟到真正需要的时候(绘制、清屏、上传uniform/纹理等)，
+ * 只在目标状态跟GL中的实际状态不一致时才下发调用，中间被覆盖的设置和重复的设置都被丢弃。
+ * 状态跟EGLContext绑定，只能通过GLES.setThreadBackend在渲染线程中使用，
+ * 在外部改变了GL状态之后(切换context、SurfaceTexture.updateTexImage等)需要调用invalidate。
+ */
+public final class GLStateCache implements GLBackend {
+
+    // 状态未知
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+    // 缓存的纹理单元个数
+    private static final int MAX_TEXTURE_UNITS = 16;
+    // 缓存的纹理target：GL_TEXTURE_2D、GL_TEXTURE_EXTERNAL_OES
+    private static final int TEXTURE_TARGETS = 2;
+    // 缓存的顶点属性个数
+    private static final int MAX_VERTEX_ATTRIBS = 16;
+    // 缓存的功能开关
+    private static final int[] CAPS = {
+            GLES30.GL_BLEND, GLES30.GL_DEPTH_TEST, GLES30.GL_CULL_FACE,
+            GLES30.GL_DITHER, GLES30.GL_SCISSOR_TEST, GLES30.GL_STENCIL_TEST,
+    };
+
+    private final GLBackend mDelegate;
+
+    // 目标状态，即调用方最后一次设置的状态
+    private int mFramebuffer = UNKNOWN;
+    private int mProgram = UNKNOWN;
+    private int mActiveTexture = GLES30.GL_TEXTURE0;
+    private final int[] mViewport = { UNKNOWN, UNKNOWN, UNKNOWN, UNKNOWN };
+    private final int[] mTextures = new int[MAX_TEXTURE_UNITS * TEXTURE_TARGETS];
+    private final int[] mVertexAttribs = new int[MAX_VERTEX_ATTRIBS];
+    private final int[] mCaps = new int[CAPS.length];
+
+    // GL中的实际状态
+    private int mActualFramebuffer;
+    private int mActualProgram;
+    private int mActualActiveTexture;
+    private final int[] mActualViewport = new int[4];
+    private final int[] mActualTextures = new int[MAX_TEXTURE_UNITS * TEXTURE_TARGETS];
+    private final int[] mActualVertexAttribs = new int[MAX_VERTEX_ATTRIBS];
+    private final int[] mActualCaps = new int[CAPS.length];
+    // 直接下发并去重的状态
+    private final float[] mClearColor = new float[4];
+    private final int[] mBlend = new int[5];
+    // 设置过的最大纹理单元
+    private int mTextureUnitCount;
+
+    // 当前帧收到的调用次数和实际下发的调用次数
+    private int mRequestCount;
+    private int mIssueCount;
+    // 上一帧的调用次数
+    private int mLastRequestCount;
+    private int mLastIssueCount;
+    // 累计的调用次数
+    private long mTotalRequestCount;
+    private long mTotalIssueCount;
+
+    public GLStateCache(GLBackend delegate) {
+        mDelegate = delegate;
+        fill(mTextures, UNKNOWN);
+        fill(mVertexAttribs, UNKNOWN);
+        fill(mCaps, UNKNOWN);
+        invalidate();
+    }
+
+    private static void fill(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = value;
+        }
+    }
+
+    /**
+     * 丢弃缓存的实际状态，后续用到的状态都会重新下发
+     */
+    public void invalidate() {
+        mActualFramebuffer = UNKNOWN;
+        mActualProgram = UNKNOWN;
+        mActualActiveTexture = UNKNOWN;
+        fill(mActualViewport, UNKNOWN);
+        fill(mActualTextures, UNKNOWN);
+        fill(mActualVertexAttribs, UNKNOWN);
+        fill(mActualCaps, UNKNOWN);
+        mClearColor[0] = Float.NaN;
+        fill(mBlend, UNKNOWN);
+    }
+
+    /**
+     * 开始新的一帧，记录上一帧的调用次数
+     */
+    public void beginFrame() {
+        mLastRequestCount = mRequestCount;
+        mLastIssueCount = mIssueCount;
+        mRequestCount = 0;
+        mIssueCount = 0;
+    }
+
+    /**
+     * 当前帧实际下发的调用次数
+     * @return
+     */
+    public int getIssuedCount() {
+        return mIssueCount;
+    }
+
+    /**
+     * 当前帧被丢弃的调用次数
+     * @return
+     */
+    public int getElidedCount() {
+        return Math.max(0, mRequestCount - mIssueCount);
+    }
+
+    /**
+     * 上一帧实际下发的调用次数
+     * @return
+     */
+    public int getLastFrameIssuedCount() {
+        return mLastIssueCount;
+    }
+
+    /**
+     * 上一帧被丢弃的调用次数
+     * @return
+     */
+    public int getLastFrameElidedCount() {
+        return Math.max(0, mLastRequestCount - mLastIssueCount);
+    }
+
+    public long getTotalIssuedCount() {
+        return mTotalIssueCount;
+    }
+
+    public long getTotalElidedCount() {
+        return Math.max(0, mTotalRequestCount - mTotalIssueCount);
+    }
+
+    // ---------------------------------------- 状态同步 -------------------------------------------
+
+    private void request() {
+        mRequestCount++;
+        mTotalRequestCount++;
+    }
+
+    private void issue() {
+        mIssueCount++;
+        mTotalIssueCount++;
+    }
+
+    /**
+     * 直接下发的调用
+     */
+    private void pass() {
+        request();
+        issue();
+    }
+
+    private static int textureTargetIndex(int target) {
+        if (target == GLES30.GL_TEXTURE_2D) {
+            return 0;
+        } else if (target == GLES11Ext.GL_TEXTURE_EXTERNAL_OES) {
+            return 1;
+        }
+        return -1;
+    }
+
+    private static int capIndex(int cap) {
+        for (int i = 0; i < CAPS.length; i++) {
+            if (CAPS[i] == cap) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void flushFramebuffer() {
+        if (mFramebuffer != UNKNOWN && mFramebuffer != mActualFramebuffer) {
+            issue();
+            mDelegate.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, mFramebuffer);
+            mActualFramebuffer = mFramebuffer;
+        }
+    }
+
+    private void flushProgram() {
+        if (mProgram != UNKNOWN && mProgram != mActualProgram) {
+            issue();
+            mDelegate.glUseProgram(mProgram);
+            mActualProgram = mProgram;
+        }
+    }
+
+    private void flushViewport() {
+        if (mViewport[0] == UNKNOWN) {
+            return;
+        }
+        if (mViewport[0] != mActualViewport[0] || mViewport[1] != mActualViewport[1]
+                || mViewport[2] != mActualViewport[2] || mViewport[3] != mActualViewport[3]) {
+            issue();
+            mDelegate.glViewport(mViewport[0], mViewport[1], mViewport[2], mViewport[3]);
+            System.arraycopy(mViewport, 0, mActualViewport, 0, 4);
+        }
+    }
+
+    private void flushActiveTexture() {
+        if (mActiveTexture != mActualActiveTexture) {
+            issue();
+            mDelegate.glActiveTexture(mActiveTexture);
+            mActualActiveTexture = mActiveTexture;
+        }
+    }
+
+    private void flushTextureBinding(int unit, int targetIndex) {
+        int index = unit * TEXTURE_TARGETS + targetIndex;
+        int texture = mTextures[index];
+        if (texture != UNKNOWN && texture != mActualTextures[index]) {
+            int activeTexture = GLES30.GL_TEXTURE0 + unit;
+            if (mActualActiveTexture != activeTexture) {
+                issue();
+                mDelegate.glActiveTexture(activeTexture);
+                mActualActiveTexture = activeTexture;
+            }
+            issue();
+            mDelegate.glBindTexture(targetIndex == 0
+                    ? GLES30.GL_TEXTURE_2D : GLES11Ext.GL_TEXTURE_EXTERNAL_OES, texture);
+            mActualTextures[index] = texture;
+        }
+    }
+
+    private void flushTextures() {
+        for (int unit = 0; unit < mTextureUnitCount; unit++) {
+            for (int target = 0; target < TEXTURE_TARGETS; target++) {
+                flushTextureBinding(unit, target);
+            }
+        }
+        flushActiveTexture();
+    }
+
+    /**
+     * 上传纹理数据、设置纹理参数之前，同步当前纹理单元上的绑定
+     * @param target
+     */
+    private void flushBoundTexture(int target) {
+        int unit = mActiveTexture - GLES30.GL_TEXTURE0;
+        int targetIndex = textureTargetIndex(target);
+        if (unit >= 0 && unit < MAX_TEXTURE_UNITS && targetIndex >= 0) {
+            flushTextureBinding(unit, targetIndex);
+        }
+        flushActiveTexture();
+    }
+
+    private void flushVertexAttribs() {
+        for (int i = 0; i < MAX_VERTEX_ATTRIBS; i++) {
+            int enabled = mVertexAttribs[i];
+            if (enabled != UNKNOWN && enabled != mActualVertexAttribs[i]) {
+                issue();
+                if (enabled != 0) {
+                    mDelegate.glEnableVertexAttribArray(i);
+                } else {
+                    mDelegate.glDisableVertexAttribArray(i);
+                }
+                mActualVertexAttribs[i] = enabled;
+            }
+        }
+    }
+
+    private void flushCaps() {
+        for (int i = 0; i < CAPS.length; i++) {
+            int enabled = mCaps[i];
+            if (enabled != UNKNOWN && enabled != mActualCaps[i]) {
+                issue();
+                if (enabled != 0) {
+                    mDelegate.glEnable(CAPS[i]);
+                } else {
+                    mDelegate.glDisable(CAPS[i]);
+                }
+                mActualCaps[i] = enabled;
+            }
+        }
+    }
+
+    /**
+     * 绘制之前同步所有状态
+     */
+    private void flushDrawState() {
+        flushFramebuffer();
+        flushViewport();
+        flushProgram();
+        flushTextures();
+        flushVertexAttribs();
+        flushCaps();
+    }
+
+    // ---------------------------------------- 缓存的状态 -----------------------------------------
+
+    @Override
+    public void glActiveTexture(int texture) {
+        request();
+        mActiveTexture = texture;
+    }
+
+    @Override
+    public void glBeginQuery(int target, int id) {
+        pass();
+        mDelegate.glBeginQuery(target, id);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        pass();
+        mDelegate.glBindBuffer(target, buffer);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        request();
+        if (target == GLES30.GL_FRAMEBUFFER) {
+            mFramebuffer = framebuffer;
+        } else {
+            issue();
+            mDelegate.glBindFramebuffer(target, framebuffer);
+            mActualFramebuffer = UNKNOWN;
+        }
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        request();
+        int unit = mActiveTexture - GLES30.GL_TEXTURE0;
+        int targetIndex = textureTargetIndex(target);
+        if (unit >= 0 && unit < MAX_TEXTURE_UNITS && targetIndex >= 0) {
+            mTextures[unit * TEXTURE_TARGETS + targetIndex] = texture;
+            if (unit >= mTextureUnitCount) {
+                mTextureUnitCount = unit + 1;
+            }
+        } else {
+            flushActiveTexture();
+            issue();
+            mDelegate.glBindTexture(target, texture);
+        }
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        request();
+        int index = capIndex(cap);
+        if (index >= 0) {
+            mCaps[index] = 0;
+        } else {
+            issue();
+            mDelegate.glDisable(cap);
+        }
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        request();
+        int index = capIndex(cap);
+        if (index >= 0) {
+            mCaps[index] = 1;
+        } else {
+            issue();
+            mDelegate.glEnable(cap);
+        }
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index) {
+        request();
+        if (index >= 0 && index < MAX_VERTEX_ATTRIBS) {
+            mVertexAttribs[index] = 0;
+        } else {
+            issue();
+            mDelegate.glDisableVertexAttribArray(index);
+        }
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        request();
+        if (index >= 0 && index < MAX_VERTEX_ATTRIBS) {
+            mVertexAttribs[index] = 1;
+        } else {
+            issue();
+            mDelegate.glEnableVertexAttribArray(index);
+        }
+    }
+
+    @Override
+    public boolean glUnmapBuffer(int target) {
+        pass();
+        return mDelegate.glUnmapBuffer(target);
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        request();
+        mProgram = program;
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        request();
+        mViewport[0] = x;
+        mViewport[1] = y;
+        mViewport[2] = width;
+        mViewport[3] = height;
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        request();
+        if (mClearColor[0] != red || mClearColor[1] != green
+                || mClearColor[2] != blue || mClearColor[3] != alpha) {
+            issue();
+            mDelegate.glClearColor(red, green, blue, alpha);
+            mClearColor[0] = red;
+            mClearColor[1] = green;
+            mClearColor[2] = blue;
+            mClearColor[3] = alpha;
+        }
+    }
+
+    @Override
+    public void glBlendEquation(int mode) {
+        request();
+        if (mBlend[0] != mode) {
+            issue();
+            mDelegate.glBlendEquation(mode);
+            mBlend[0] = mode;
+        }
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        glBlendFuncSeparate(sfactor, dfactor, sfactor, dfactor);
+    }
+
+    @Override
+    public void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
+        request();
+        if (mBlend[1] != srcRGB || mBlend[2] != dstRGB || mBlend[3] != srcAlpha || mBlend[4] != dstAlpha) {
+            issue();
+            mDelegate.glBlendFuncSeparate(srcRGB, dstRGB, srcAlpha, dstAlpha);
+            mBlend[1] = srcRGB;
+            mBlend[2] = dstRGB;
+            mBlend[3] = srcAlpha;
+            mBlend[4] = dstAlpha;
+        }
+    }
+
+    // ---------------------------------------- 依赖状态的调用 -------------------------------------
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        pass();
+        mDelegate.glBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void glClear(int mask) {
+        pass();
+        flushFramebuffer();
+        flushCaps();
+        mDelegate.glClear(mask);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        pass();
+        flushDrawState();
+        mDelegate.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, Buffer indices) {
+        pass();
+        flushDrawState();
+        mDelegate.glDrawElements(mode, count, type, indices);
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels) {
+        pass();
+        flushFramebuffer();
+        mDelegate.glReadPixels(x, y, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        pass();
+        flushFramebuffer();
+        mDelegate.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height,
+                             int border, int format, int type, Buffer pixels) {
+        pass();
+        flushBoundTexture(target);
+        mDelegate.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height,
+                                int format, int type, Buffer pixels) {
+        pass();
+        flushBoundTexture(target);
+        mDelegate.glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+        pass();
+        flushBoundTexture(target);
+        mDelegate.texImage2D(target, level, bitmap, border);
+    }
+
+    @Override
+    public void texSubImage2D(int target, int level, int xoffset, int yoffset, Bitmap bitmap) {
+        pass();
+        flushBoundTexture(target);
+        mDelegate.texSubImage2D(target, level, xoffset, yoffset, bitmap);
+    }
+
+    @Override
+    public void glTexParameterf(int target, int pname, float param) {
+        pass();
+        flushBoundTexture(target);
+        mDelegate.glTexParameterf(target, pname, param);
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        pass();
+        flushBoundTexture(target);
+        mDelegate.glTexParameteri(target, pname, param);
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        pass();
+        flushProgram();
+        mDelegate.glUniform1f(location, x);
+    }
+
+    @Override
+    public void glUniform1fv(int location, int count, float[] v, int offset) {
+        pass();
+        flushProgram();
+        mDelegate.glUniform1fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform1fv(int location, int count, FloatBuffer v) {
+        pass();
+        flushProgram();
+        mDelegate.glUniform1fv(location, count, v);
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        pass();
+        flushProgram();
+        mDelegate.glUniform1i(location, x);
+    }
+
+    @Override
+    public void glUniform2fv(int location, int count, float[] v, int offset) {
+        pass();
+        flushProgram();
+        mDelegate.glUniform2fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform2fv(int location, int count, FloatBuffer v) {
+        pass();
+        flushProgram();
+        mDelegate.glUniform2fv(location, count, v);
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, float[] v, int offset) {
+        pass();
+        flushProgram();
+        mDelegate.glUniform3fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, FloatBuffer v) {
+        pass();
+        flushProgram();
+        mDelegate.glUniform3fv(location, count, v);
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] v, int offset) {
+        pass();
+        flushProgram();
+        mDelegate.glUniform4fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, FloatBuffer v) {
+        pass();
+        flushProgram();
+        mDelegate.glUniform4fv(location, count, v);
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset) {
+        pass();
+        flushProgram();
+        mDelegate.glUniformMatrix3fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        pass();
+        flushProgram();
+        mDelegate.glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    // ---------------------------------------- 对象删除 -------------------------------------------
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        pass();
+        mDelegate.glDeleteBuffers(n, buffers, offset);
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        pass();
+        // 删除当前绑定的FBO时，GL会自动绑定回0
+        for (int i = 0; i < n; i++) {
+            int framebuffer = framebuffers[offset + i];
+            if (mActualFramebuffer == framebuffer) {
+                mActualFramebuffer = 0;
+            }
+            if (mFramebuffer == framebuffer) {
+                mFramebuffer = 0;
+            }
+        }
+        mDelegate.glDeleteFramebuffers(n, framebuffers, offset);
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        pass();
+        // 删除已绑定的纹理时，GL会自动解绑
+        for (int i = 0; i < n; i++) {
+            int texture = textures[offset + i];
+            for (int j = 0; j < mTextures.length; j++) {
+                if (mActualTextures[j] == texture) {
+                    mActualTextures[j] = 0;
+                }
+                if (mTextures[j] == texture) {
+                    mTextures[j] = 0;
+                }
+            }
+        }
+        mDelegate.glDeleteTextures(n, textures, offset);
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        pass();
+        // 正在使用的program删除后仍然有效，直到切换为其它program，这里直接当作状态未知处理
+        if (mActualProgram == program) {
+            mActualProgram = UNKNOWN;
+        }
+        mDelegate.glDeleteProgram(program);
+    }
+
+    // ---------------------------------------- 直接下发的调用 -------------------------------------
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        pass();
+        mDelegate.glAttachShader(program, shader);
+    }
+
+    @Override
+    public int glClientWaitSync(long sync, int flags, long timeout) {
+        pass();
+        return mDelegate.glClientWaitSync(sync, flags, timeout);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        pass();
+        mDelegate.glCompileShader(shader);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        pass();
+        return mDelegate.glCreateProgram();
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        pass();
+        return mDelegate.glCreateShader(type);
+    }
+
+    @Override
+    public void glDeleteQueries(int n, int[] ids, int offset) {
+        pass();
+        mDelegate.glDeleteQueries(n, ids, offset);
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        pass();
+        mDelegate.glDeleteShader(shader);
+    }
+
+    @Override
+    public void glDeleteSync(long sync) {
+        pass();
+        mDelegate.glDeleteSync(sync);
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader) {
+        pass();
+        mDelegate.glDetachShader(program, shader);
+    }
+
+    @Override
+    public void glEndQuery(int target) {
+        pass();
+        mDelegate.glEndQuery(target);
+    }
+
+    @Override
+    public long glFenceSync(int condition, int flags) {
+        pass();
+        return mDelegate.glFenceSync(condition, flags);
+    }
+
+    @Override
+    public void glFlush() {
+        pass();
+        mDelegate.glFlush();
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        pass();
+        mDelegate.glGenBuffers(n, buffers, offset);
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        pass();
+        mDelegate.glGenFramebuffers(n, framebuffers, offset);
+    }
+
+    @Override
+    public void glGenQueries(int n, int[] ids, int offset) {
+        pass();
+        mDelegate.glGenQueries(n, ids, offset);
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        pass();
+        mDelegate.glGenTextures(n, textures, offset);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        pass();
+        return mDelegate.glGetAttribLocation(program, name);
+    }
+
+    @Override
+    public int glGetError() {
+        pass();
+        return mDelegate.glGetError();
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        pass();
+        mDelegate.glGetIntegerv(pname, params, offset);
+    }
+
+    @Override
+    public void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                                   int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+        pass();
+        mDelegate.glGetProgramBinary(program, bufSize, length, lengthOffset, binaryFormat, binaryFormatOffset, binary);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        pass();
+        return mDelegate.glGetProgramInfoLog(program);
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        pass();
+        mDelegate.glGetProgramiv(program, pname, params, offset);
+    }
+
+    @Override
+    public void glGetQueryObjectuiv(int id, int pname, int[] params, int offset) {
+        pass();
+        mDelegate.glGetQueryObjectuiv(id, pname, params, offset);
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        pass();
+        return mDelegate.glGetShaderInfoLog(shader);
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        pass();
+        mDelegate.glGetShaderiv(shader, pname, params, offset);
+    }
+
+    @Override
+    public String glGetString(int name) {
+        pass();
+        return mDelegate.glGetString(name);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        pass();
+        return mDelegate.glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        pass();
+        mDelegate.glLinkProgram(program);
+    }
+
+    @Override
+    public Buffer glMapBufferRange(int target, int offset, int length, int access) {
+        pass();
+        return mDelegate.glMapBufferRange(target, offset, length, access);
+    }
+
+    @Override
+    public void glPixelStorei(int pname, int param) {
+        pass();
+        mDelegate.glPixelStorei(pname, param);
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, Buffer binary, int length) {
+        pass();
+        mDelegate.glProgramBinary(program, binaryFormat, binary, length);
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, int offset) {
+        pass();
+        flushFramebuffer();
+        mDelegate.glReadPixels(x, y, width, height, format, type, offset);
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string) {
+        pass();
+        mDelegate.glShaderSource(shader, string);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, Buffer ptr) {
+        pass();
+        mDelegate.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+    }
+}
@@ -0,0 +1,779 @@
+package com.cgfay.filter.gles;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES30;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 记录GL调用的实现，不依赖GPU，可以在JVM中运行
+ * 按帧统计绘制次数、状态切换、纹理绑定、FBO切换等调用次数，并模拟对象的创建和销毁，
+ * 用于在没有设备的情况下检查滤镜链路的调用是否发生变化
+ */
+public class RecordingGLBackend implements GLBackend {
+
+    // 绘制调用，glDrawArrays/glDrawElements
+    public static final int COUNTER_DRAW = 0;
+    // 状态切换，glUseProgram/glViewport/glEnable/glBlendFunc/glActiveTexture等
+    public static final int COUNTER_STATE = 1;
+    // 纹理绑定
+    public static final int COUNTER_TEXTURE_BIND = 2;
+    // FBO切换
+    public static final int COUNTER_FRAMEBUFFER_BIND = 3;
+    // uniform上传
+    public static final int COUNTER_UNIFORM = 4;
+    // 纹理数据上传/读取
+    public static final int COUNTER_TRANSFER = 5;
+    // 对象创建、销毁等其余调用
+    public static final int COUNTER_OTHER = 6;
+    private static final int COUNTER_COUNT = 7;
+
+    // 模拟的program二进制格式和长度
+    public static final int PROGRAM_BINARY_FORMAT = 1;
+    private static final int PROGRAM_BINARY_LENGTH = 16;
+    // 模拟的计时查询结果，每次绘制计为固定的GPU耗时
+    public static final long SIMULATED_DRAW_NANOS = 100000;
+
+    // 当前帧的调用次数
+    private final int[] mFrameCounters = new int[COUNTER_COUNT];
+    // 所有帧的调用次数
+    private final long[] mTotalCounters = new long[COUNTER_COUNT];
+    // 帧数
+    private int mFrameCount;
+
+    // 记录调用名称
+    private boolean mRecordCalls;
+    private final List<String> mCalls = new ArrayList<>();
+
+    // 对象id
+    private int mNextId = 1;
+    private int mLiveTextures;
+    private int mLiveFramebuffers;
+    private int mLivePrograms;
+    private int mLiveShaders;
+    // buffer对象的数据，key为buffer id
+    private final Map<Integer, ByteBuffer> mBuffers = new HashMap<>();
+    private int mPixelPackBuffer;
+    // 计时查询的结果，key为query id
+    private final Map<Integer, Integer> mQueryResults = new HashMap<>();
+    private int mActiveQuery;
+    private long mActiveQueryDraws;
+    // glGetString(GL_EXTENSIONS)返回的扩展
+    private String mExtensions = "";
+    // uniform/attribute的location，按名称分配
+    private final Map<String, Integer> mLocations = new HashMap<>();
+
+    // 当前绑定的状态
+    private int mProgram;
+    private int mFramebuffer;
+    private int mActiveTexture = GLES30.GL_TEXTURE0;
+    private final int[] mViewport = new int[4];
+    // 纹理绑定，key为 纹理单元/target
+    private final Map<String, Integer> mTextureBindings = new HashMap<>();
+    // 已启用的顶点属性和功能
+    private final Set<Integer> mEnabledAttribs = new HashSet<>();
+    private final Set<Integer> mEnabledCaps = new HashSet<>();
+    // 加载二进制失败的program
+    private final Set<Integer> mUnlinkedPrograms = new HashSet<>();
+
+    /**
+     * 开始新的一帧，清空当前帧的调用次数
+     */
+    public void beginFrame() {
+        for (int i = 0; i < COUNTER_COUNT; i++) {
+            mFrameCounters[i] = 0;
+        }
+        mCalls.clear();
+        mFrameCount++;
+    }
+
+    /**
+     * 设置支持的扩展，用于模拟不同的设备
+     * @param extensions
+     */
+    public void setExtensions(String extensions) {
+        mExtensions = extensions;
+    }
+
+    /**
+     * 获取未删除的计时查询个数
+     * @return
+     */
+    public int getLiveQueryCount() {
+        return mQueryResults.size();
+    }
+
+    /**
+     * 设置是否记录调用名称
+     * @param recordCalls
+     */
+    public void setRecordCalls(boolean recordCalls) {
+        mRecordCalls = recordCalls;
+    }
+
+    /**
+     * 获取当前帧记录的调用名称
+     * @return
+     */
+    public List<String> getCalls() {
+        return mCalls;
+    }
+
+    /**
+     * 获取当前帧的调用次数
+     * @param counter   COUNTER_XXX
+     * @return
+     */
+    public int getFrameCount(int counter) {
+        return mFrameCounters[counter];
+    }
+
+    /**
+     * 获取当前帧所有调用的次数
+     * @return
+     */
+    public int getFrameCallCount() {
+        int count = 0;
+        for (int i = 0; i < COUNTER_COUNT; i++) {
+            count += mFrameCounters[i];
+        }
+        return count;
+    }
+
+    /**
+     * 获取所有帧的调用次数
+     * @param counter   COUNTER_XXX
+     * @return
+     */
+    public long getTotalCount(int counter) {
+        return mTotalCounters[counter];
+    }
+
+    /**
+     * 已经开始的帧数
+     * @return
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    public int getDrawCount() {
+        return mFrameCounters[COUNTER_DRAW];
+    }
+
+    public int getStateChangeCount() {
+        return mFrameCounters[COUNTER_STATE];
+    }
+
+    public int getTextureBindCount() {
+        return mFrameCounters[COUNTER_TEXTURE_BIND];
+    }
+
+    public int getFramebufferBindCount() {
+        return mFrameCounters[COUNTER_FRAMEBUFFER_BIND];
+    }
+
+    public int getUniformCount() {
+        return mFrameCounters[COUNTER_UNIFORM];
+    }
+
+    public int getLiveTextureCount() {
+        return mLiveTextures;
+    }
+
+    public int getLiveFramebufferCount() {
+        return mLiveFramebuffers;
+    }
+
+    public int getLiveProgramCount() {
+        return mLivePrograms;
+    }
+
+    public int getLiveShaderCount() {
+        return mLiveShaders;
+    }
+
+    public int getLiveBufferCount() {
+        return mBuffers.size();
+    }
+
+    public int getCurrentProgram() {
+        return mProgram;
+    }
+
+    public int getCurrentFramebuffer() {
+        return mFramebuffer;
+    }
+
+    public int getActiveTexture() {
+        return mActiveTexture;
+    }
+
+    /**
+     * 获取纹理单元上绑定的纹理
+     * @param unit      GL_TEXTURE0 + i
+     * @param target    GL_TEXTURE_2D等
+     * @return
+     */
+    public int getBoundTexture(int unit, int target) {
+        Integer texture = mTextureBindings.get(unit + "/" + target);
+        return texture != null ? texture : 0;
+    }
+
+    public boolean isVertexAttribArrayEnabled(int index) {
+        return mEnabledAttribs.contains(index);
+    }
+
+    public boolean isEnabled(int cap) {
+        return mEnabledCaps.contains(cap);
+    }
+
+    /**
+     * 获取当前视口，返回的数组只读
+     * @return
+     */
+    public int[] getViewport() {
+        return mViewport;
+    }
+
+    /**
+     * 记录一次调用
+     * @param counter
+     * @param name
+     */
+    protected void record(int counter, String name) {
+        mFrameCounters[counter]++;
+        mTotalCounters[counter]++;
+        if (mRecordCalls) {
+            mCalls.add(name);
+        }
+    }
+
+    private void generate(int n, int[] ids, int offset) {
+        for (int i = 0; i < n; i++) {
+            ids[offset + i] = mNextId++;
+        }
+    }
+
+    private int getLocation(String key) {
+        Integer location = mLocations.get(key);
+        if (location == null) {
+            location = mLocations.size();
+            mLocations.put(key, location);
+        }
+        return location;
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        mActiveTexture = texture;
+        record(COUNTER_STATE, "glActiveTexture");
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        record(COUNTER_OTHER, "glAttachShader");
+    }
+
+    @Override
+    public void glBeginQuery(int target, int id) {
+        record(COUNTER_OTHER, "glBeginQuery");
+        mActiveQuery = id;
+        mActiveQueryDraws = mTotalCounters[COUNTER_DRAW];
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        record(COUNTER_STATE, "glBindBuffer");
+        if (target == GLES30.GL_PIXEL_PACK_BUFFER) {
+            mPixelPackBuffer = buffer;
+        }
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        mFramebuffer = framebuffer;
+        record(COUNTER_FRAMEBUFFER_BIND, "glBindFramebuffer");
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        mTextureBindings.put(mActiveTexture + "/" + target, texture);
+        record(COUNTER_TEXTURE_BIND, "glBindTexture");
+    }
+
+    @Override
+    public void glBlendEquation(int mode) {
+        record(COUNTER_STATE, "glBlendEquation");
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        record(COUNTER_STATE, "glBlendFunc");
+    }
+
+    @Override
+    public void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
+        record(COUNTER_STATE, "glBlendFuncSeparate");
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        record(COUNTER_TRANSFER, "glBufferData");
+        if (target == GLES30.GL_PIXEL_PACK_BUFFER && mPixelPackBuffer != 0) {
+            mBuffers.put(mPixelPackBuffer, ByteBuffer.allocateDirect(size));
+        }
+    }
+
+    @Override
+    public void glClear(int mask) {
+        record(COUNTER_OTHER, "glClear");
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        record(COUNTER_STATE, "glClearColor");
+    }
+
+    @Override
+    public int glClientWaitSync(long sync, int flags, long timeout) {
+        record(COUNTER_OTHER, "glClientWaitSync");
+        return GLES30.GL_ALREADY_SIGNALED;
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        record(COUNTER_OTHER, "glCompileShader");
+    }
+
+    @Override
+    public int glCreateProgram() {
+        record(COUNTER_OTHER, "glCreateProgram");
+        mLivePrograms++;
+        return mNextId++;
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        record(COUNTER_OTHER, "glCreateShader");
+        mLiveShaders++;
+        return mNextId++;
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        record(COUNTER_OTHER, "glDeleteBuffers");
+        for (int i = 0; i < n; i++) {
+            mBuffers.remove(buffers[offset + i]);
+        }
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        record(COUNTER_OTHER, "glDeleteFramebuffers");
+        mLiveFramebuffers -= n;
+        for (int i = 0; i < n; i++) {
+            if (framebuffers[offset + i] == mFramebuffer) {
+                mFramebuffer = 0;
+            }
+        }
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        record(COUNTER_OTHER, "glDeleteProgram");
+        mUnlinkedPrograms.remove(program);
+        if (program != 0) {
+            mLivePrograms--;
+        }
+    }
+
+    @Override
+    public void glDeleteQueries(int n, int[] ids, int offset) {
+        record(COUNTER_OTHER, "glDeleteQueries");
+        for (int i = 0; i < n; i++) {
+            mQueryResults.remove(ids[offset + i]);
+        }
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        record(COUNTER_OTHER, "glDeleteShader");
+        if (shader != 0) {
+            mLiveShaders--;
+        }
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        record(COUNTER_OTHER, "glDeleteTextures");
+        mLiveTextures -= n;
+        for (int i = 0; i < n; i++) {
+            // 删除已绑定的纹理时，GL会自动解绑
+            mTextureBindings.values().removeAll(Collections.singleton(textures[offset + i]));
+        }
+    }
+
+    @Override
+    public void glDeleteSync(long sync) {
+        record(COUNTER_OTHER, "glDeleteSync");
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader) {
+        record(COUNTER_OTHER, "glDetachShader");
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        mEnabledCaps.remove(cap);
+        record(COUNTER_STATE, "glDisable");
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index) {
+        mEnabledAttribs.remove(index);
+        record(COUNTER_STATE, "glDisableVertexAttribArray");
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        record(COUNTER_DRAW, "glDrawArrays");
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, Buffer indices) {
+        record(COUNTER_DRAW, "glDrawElements");
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        mEnabledCaps.add(cap);
+        record(COUNTER_STATE, "glEnable");
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        mEnabledAttribs.add(index);
+        record(COUNTER_STATE, "glEnableVertexAttribArray");
+    }
+
+    @Override
+    public void glEndQuery(int target) {
+        record(COUNTER_OTHER, "glEndQuery");
+        mQueryResults.put(mActiveQuery,
+                (int) ((mTotalCounters[COUNTER_DRAW] - mActiveQueryDraws) * SIMULATED_DRAW_NANOS));
+        mActiveQuery = 0;
+    }
+
+    @Override
+    public long glFenceSync(int condition, int flags) {
+        record(COUNTER_OTHER, "glFenceSync");
+        return mNextId++;
+    }
+
+    @Override
+    public void glFlush() {
+        record(COUNTER_OTHER, "glFlush");
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        record(COUNTER_OTHER, "glFramebufferTexture2D");
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        record(COUNTER_OTHER, "glGenBuffers");
+        generate(n, buffers, offset);
+        for (int i = 0; i < n; i++) {
+            mBuffers.put(buffers[offset + i], null);
+        }
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        record(COUNTER_OTHER, "glGenFramebuffers");
+        generate(n, framebuffers, offset);
+        mLiveFramebuffers += n;
+    }
+
+    @Override
+    public void glGenQueries(int n, int[] ids, int offset) {
+        record(COUNTER_OTHER, "glGenQueries");
+        generate(n, ids, offset);
+        for (int i = 0; i < n; i++) {
+            mQueryResults.put(ids[offset + i], 0);
+        }
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        record(COUNTER_OTHER, "glGenTextures");
+        generate(n, textures, offset);
+        mLiveTextures += n;
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        record(COUNTER_OTHER, "glGetAttribLocation");
+        return getLocation(program + "/attribute/" + name);
+    }
+
+    @Override
+    public int glGetError() {
+        record(COUNTER_OTHER, "glGetError");
+        return GLES30.GL_NO_ERROR;
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        record(COUNTER_OTHER, "glGetIntegerv");
+        params[offset] = 0;
+    }
+
+    @Override
+    public void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+                                   int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+        record(COUNTER_TRANSFER, "glGetProgramBinary");
+        // 模拟的二进制数据只包含program id
+        int size = Math.min(bufSize, PROGRAM_BINARY_LENGTH);
+        for (int i = 0; i < size; i++) {
+            ((ByteBuffer) binary).put((byte) (program >> (i % 4 * 8)));
+        }
+        length[lengthOffset] = size;
+        binaryFormat[binaryFormatOffset] = PROGRAM_BINARY_FORMAT;
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        return "";
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        record(COUNTER_OTHER, "glGetProgramiv");
+        if (pname == GLES30.GL_LINK_STATUS) {
+            params[offset] = mUnlinkedPrograms.contains(program) ? GLES30.GL_FALSE : GLES30.GL_TRUE;
+        } else if (pname == GLES30.GL_PROGRAM_BINARY_LENGTH) {
+            params[offset] = PROGRAM_BINARY_LENGTH;
+        } else {
+            params[offset] = 0;
+        }
+    }
+
+    @Override
+    public void glGetQueryObjectuiv(int id, int pname, int[] params, int offset) {
+        record(COUNTER_OTHER, "glGetQueryObjectuiv");
+        if (pname == GLES30.GL_QUERY_RESULT_AVAILABLE) {
+            params[offset] = GLES30.GL_TRUE;
+        } else {
+            Integer result = mQueryResults.get(id);
+            params[offset] = result != null ? result : 0;
+        }
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        return "";
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        record(COUNTER_OTHER, "glGetShaderiv");
+        params[offset] = pname == GLES30.GL_COMPILE_STATUS ? GLES30.GL_TRUE : 0;
+    }
+
+    @Override
+    public String glGetString(int name) {
+        record(COUNTER_OTHER, "glGetString");
+        return name == GLES30.GL_EXTENSIONS ? mExtensions : "";
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        record(COUNTER_OTHER, "glGetUniformLocation");
+        return getLocation(program + "/uniform/" + name);
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        record(COUNTER_OTHER, "glLinkProgram");
+    }
+
+    @Override
+    public Buffer glMapBufferRange(int target, int offset, int length, int access) {
+        record(COUNTER_TRANSFER, "glMapBufferRange");
+        ByteBuffer buffer = target == GLES30.GL_PIXEL_PACK_BUFFER ? mBuffers.get(mPixelPackBuffer) : null;
+        if (buffer == null || offset + length > buffer.capacity()) {
+            return null;
+        }
+        buffer.limit(offset + length).position(offset);
+        ByteBuffer mapped = buffer.slice();
+        buffer.clear();
+        return mapped;
+    }
+
+    @Override
+    public void glPixelStorei(int pname, int param) {
+        record(COUNTER_STATE, "glPixelStorei");
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, Buffer binary, int length) {
+        record(COUNTER_TRANSFER, "glProgramBinary");
+        // 格式不对时跟驱动更新后一样，链接失败
+        if (binaryFormat != PROGRAM_BINARY_FORMAT || length != PROGRAM_BINARY_LENGTH) {
+            mUnlinkedPrograms.add(program);
+        }
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels) {
+        record(COUNTER_TRANSFER, "glReadPixels");
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, int offset) {
+        record(COUNTER_TRANSFER, "glReadPixels");
+        // 读取到PBO，模拟的像素值为当前FBO的id
+        ByteBuffer buffer = mBuffers.get(mPixelPackBuffer);
+        if (buffer != null) {
+            for (int i = offset; i < offset + width * height * 4 && i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) mFramebuffer);
+            }
+        }
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string) {
+        record(COUNTER_OTHER, "glShaderSource");
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height,
+                             int border, int format, int type, Buffer pixels) {
+        record(COUNTER_TRANSFER, "glTexImage2D");
+    }
+
+    @Override
+    public void glTexParameterf(int target, int pname, float param) {
+        record(COUNTER_STATE, "glTexParameterf");
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        record(COUNTER_STATE, "glTexParameteri");
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height,
+                                int format, int type, Buffer pixels) {
+        record(COUNTER_TRANSFER, "glTexSubImage2D");
+    }
+
+    @Override
+    public void glUniform1f(int location, float x) {
+        record(COUNTER_UNIFORM, "glUniform1f");
+    }
+
+    @Override
+    public void glUniform1fv(int location, int count, float[] v, int offset) {
+        record(COUNTER_UNIFORM, "glUniform1fv");
+    }
+
+    @Override
+    public void glUniform1fv(int location, int count, FloatBuffer v) {
+        record(COUNTER_UNIFORM, "glUniform1fv");
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        record(COUNTER_UNIFORM, "glUniform1i");
+    }
+
+    @Override
+    public void glUniform2fv(int location, int count, float[] v, int offset) {
+        record(COUNTER_UNIFORM, "glUniform2fv");
+    }
+
+    @Override
+    public void glUniform2fv(int location, int count, FloatBuffer v) {
+        record(COUNTER_UNIFORM, "glUniform2fv");
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, float[] v, int offset) {
+        record(COUNTER_UNIFORM, "glUniform3fv");
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, FloatBuffer v) {
+        record(COUNTER_UNIFORM, "glUniform3fv");
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] v, int offset) {
+        record(COUNTER_UNIFORM, "glUniform4fv");
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, FloatBuffer v) {
+        record(COUNTER_UNIFORM, "glUniform4fv");
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset) {
+        record(COUNTER_UNIFORM, "glUniformMatrix3fv");
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        record(COUNTER_UNIFORM, "glUniformMatrix4fv");
+    }
+
+    @Override
+    public boolean glUnmapBuffer(int target) {
+        record(COUNTER_TRANSFER, "glUnmapBuffer");
+        return true;
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        mProgram = program;
+        record(COUNTER_STATE, "glUseProgram");
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, Buffer ptr) {
+        record(COUNTER_STATE, "glVertexAttribPointer");
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        mViewport[0] = x;
+        mViewport[1] = y;
+        mViewport[2] = width;
+        mViewport[3] = height;
+        record(COUNTER_STATE, "glViewport");
+    }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+        record(COUNTER_TRANSFER, "texImage2D");
+    }
+
+    @Override
+    public void texSubImage2D(int target, int level, int xoffset, int yoffset, Bitmap bitmap) {
+        record(COUNTER_TRANSFER, "texSubImage2D");
+    }
+}
@@ -1,9 +1,12 @@
 package com.cgfay.filter.glfilter.adjust;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
+import com.cgfay.filter.glfilter.fusion.BrightnessOp;
+import com.cgfay.filter.glfilter.fusion.ColorOp;
+import com.cgfay.filter.glfilter.fusion.ColorOpFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -13,10 +16,12 @@ import com.cgfay.filter.glfilter.utils.OpenGLUtils;
  * Created by cain on 2017/7/30.
  */
 
-public class GLImageBrightnessFilter extends GLImageFilter {
+public class GLImageBrightnessFilter extends GLImageFilter implements ColorOpFilter {
 
     private int mBrightnessHandle;
     private float mBrightness;
+    // 合并到颜色管线时使用
+    private BrightnessOp mColorOp;
 
     public GLImageBrightnessFilter(Context context) {
         this(context, VERTEX_SHADER, OpenGLUtils.getShaderFromAssets(context,
@@ -30,7 +35,7 @@ public class GLImageBrightnessFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mBrightnessHandle = GLES30.glGetUniformLocation(mProgramHandle, "brightness");
+        mBrightnessHandle = GLES.glGetUniformLocation(mProgramHandle, "brightness");
         setBrightness(0);
     }
 
@@ -47,4 +52,13 @@ public class GLImageBrightnessFilter extends GLImageFilter {
         mBrightness = brightness;
         setFloat(mBrightnessHandle, mBrightness);
     }
+
+    @Override
+    public ColorOp getColorOp() {
+        if (mColorOp == null) {
+            mColorOp = new BrightnessOp();
+        }
+        mColorOp.setBrightness(mBrightness);
+        return mColorOp;
+    }
 }
@@ -1,9 +1,12 @@
 package com.cgfay.filter.glfilter.adjust;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
+import com.cgfay.filter.glfilter.fusion.ColorOp;
+import com.cgfay.filter.glfilter.fusion.ColorOpFilter;
+import com.cgfay.filter.glfilter.fusion.ContrastOp;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -11,10 +14,12 @@ import com.cgfay.filter.glfilter.utils.OpenGLUtils;
  * Created by cain.huang on 2017/8/8.
  */
 
-public class GLImageContrastFilter extends GLImageFilter {
+public class GLImageContrastFilter extends GLImageFilter implements ColorOpFilter {
 
     private int mContrastHandle;
     private float mContrast;
+    // 合并到颜色管线时使用
+    private ContrastOp mColorOp;
 
     public GLImageContrastFilter(Context context) {
         this(context, VERTEX_SHADER, OpenGLUtils.getShaderFromAssets(context,
@@ -28,7 +33,7 @@ public class GLImageContrastFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mContrastHandle = GLES30.glGetUniformLocation(mProgramHandle, "contrast");
+        mContrastHandle = GLES.glGetUniformLocation(mProgramHandle, "contrast");
         setContrast(1.0f);
     }
 
@@ -45,4 +50,13 @@ public class GLImageContrastFilter extends GLImageFilter {
         mContrast = contrast;
         setFloat(mContrastHandle, mContrast);
     }
+
+    @Override
+    public ColorOp getColorOp() {
+        if (mColorOp == null) {
+            mColorOp = new ContrastOp();
+        }
+        mColorOp.setContrast(mContrast);
+        return mColorOp;
+    }
 }
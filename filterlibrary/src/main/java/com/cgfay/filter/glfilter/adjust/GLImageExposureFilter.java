@@ -1,9 +1,12 @@
 package com.cgfay.filter.glfilter.adjust;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
+import com.cgfay.filter.glfilter.fusion.ColorOp;
+import com.cgfay.filter.glfilter.fusion.ColorOpFilter;
+import com.cgfay.filter.glfilter.fusion.ExposureOp;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -11,10 +14,12 @@ import com.cgfay.filter.glfilter.utils.OpenGLUtils;
  * Created by cain.huang on 2017/8/8.
  */
 
-public class GLImageExposureFilter extends GLImageFilter {
+public class GLImageExposureFilter extends GLImageFilter implements ColorOpFilter {
 
     private int mExposureHandle;
     private float mExposure;
+    // 合并到颜色管线时使用
+    private ExposureOp mColorOp;
 
     public GLImageExposureFilter(Context context) {
         this(context, VERTEX_SHADER, OpenGLUtils.getShaderFromAssets(context,
@@ -28,7 +33,7 @@ public class GLImageExposureFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mExposureHandle = GLES30.glGetUniformLocation(mProgramHandle, "exposure");
+        mExposureHandle = GLES.glGetUniformLocation(mProgramHandle, "exposure");
         setExposure(0);
     }
 
@@ -45,4 +50,13 @@ public class GLImageExposureFilter extends GLImageFilter {
         mExposure = exposure;
         setFloat(mExposureHandle, mExposure);
     }
+
+    @Override
+    public ColorOp getColorOp() {
+        if (mColorOp == null) {
+            mColorOp = new ExposureOp();
+        }
+        mColorOp.setExposure(mExposure);
+        return mColorOp;
+    }
 }
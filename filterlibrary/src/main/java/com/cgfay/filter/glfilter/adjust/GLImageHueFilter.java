@@ -1,9 +1,12 @@
 package com.cgfay.filter.glfilter.adjust;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
+import com.cgfay.filter.glfilter.fusion.ColorOp;
+import com.cgfay.filter.glfilter.fusion.ColorOpFilter;
+import com.cgfay.filter.glfilter.fusion.HueOp;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -12,10 +15,12 @@ import com.cgfay.filter.glfilter.utils.OpenGLUtils;
  * Created by cain on 2017/7/30.
  */
 
-public class GLImageHueFilter extends GLImageFilter {
+public class GLImageHueFilter extends GLImageFilter implements ColorOpFilter {
 
     private int mHueAdjustHandle;
     private float mHue;
+    // 合并到颜色管线时使用
+    private HueOp mColorOp;
 
     public GLImageHueFilter(Context context) {
         this(context, VERTEX_SHADER, OpenGLUtils.getShaderFromAssets(context, "shader/adjust/fragment_hue.glsl"));
@@ -28,7 +33,7 @@ public class GLImageHueFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mHueAdjustHandle = GLES30.glGetUniformLocation(mProgramHandle, "hueAdjust");
+        mHueAdjustHandle = GLES.glGetUniformLocation(mProgramHandle, "hueAdjust");
         setHue(0);
     }
 
@@ -41,4 +46,13 @@ public class GLImageHueFilter extends GLImageFilter {
         float hueAdjust = (mHue % 360.0f) * (float) Math.PI / 180.0f;
         setFloat(mHueAdjustHandle, hueAdjust);
     }
+
+    @Override
+    public ColorOp getColorOp() {
+        if (mColorOp == null) {
+            mColorOp = new HueOp();
+        }
+        mColorOp.setHueAdjust((mHue % 360.0f) * (float) Math.PI / 180.0f);
+        return mColorOp;
+    }
 }
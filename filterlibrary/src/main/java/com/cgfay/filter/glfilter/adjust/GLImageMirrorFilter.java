@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.adjust;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
@@ -32,9 +32,9 @@ public class GLImageMirrorFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mAngleHandle = GLES30.glGetUniformLocation(mProgramHandle, "Angle");
-        mMirrorXHandle = GLES30.glGetUniformLocation(mProgramHandle, "MirrorX");
-        mMirrorYHandle = GLES30.glGetUniformLocation(mProgramHandle, "MirrorY");
+        mAngleHandle = GLES.glGetUniformLocation(mProgramHandle, "Angle");
+        mMirrorXHandle = GLES.glGetUniformLocation(mProgramHandle, "MirrorX");
+        mMirrorYHandle = GLES.glGetUniformLocation(mProgramHandle, "MirrorY");
         setAngle(0.0f);
         setMirrorX(0.0f);
         setMirrorY(0.0f);
@@ -1,9 +1,12 @@
 package com.cgfay.filter.glfilter.adjust;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
+import com.cgfay.filter.glfilter.fusion.ColorOp;
+import com.cgfay.filter.glfilter.fusion.ColorOpFilter;
+import com.cgfay.filter.glfilter.fusion.SaturationOp;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -12,13 +15,15 @@ import com.cgfay.filter.glfilter.utils.OpenGLUtils;
  * 饱和度是某种色光纯度的反映，饱和度越高，则深色越深
  * Created by cain.huang on 2017/7/21.
  */
-public class GLImageSaturationFilter extends GLImageFilter {
+public class GLImageSaturationFilter extends GLImageFilter implements ColorOpFilter {
 
     private int mRangeMinHandle;
     private int mRangeMaxHandle;
     private int mInputLevelHandle;
 
     private float mSaturation;
+    // 合并到颜色管线时使用
+    private SaturationOp mColorOp;
 
     public GLImageSaturationFilter(Context context) {
         this(context, VERTEX_SHADER, OpenGLUtils.getShaderFromAssets(context,
@@ -32,9 +37,9 @@ public class GLImageSaturationFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mRangeMinHandle = GLES30.glGetUniformLocation(mProgramHandle, "rangeMin");
-        mRangeMaxHandle = GLES30.glGetUniformLocation(mProgramHandle, "rangeMax");
-        mInputLevelHandle = GLES30.glGetUniformLocation(mProgramHandle, "inputLevel");
+        mRangeMinHandle = GLES.glGetUniformLocation(mProgramHandle, "rangeMin");
+        mRangeMaxHandle = GLES.glGetUniformLocation(mProgramHandle, "rangeMax");
+        mInputLevelHandle = GLES.glGetUniformLocation(mProgramHandle, "inputLevel");
         setSaturationMin(new float[]{0.0f, 0.0f, 0.0f});
         setSaturationMax(new float[]{1.0f, 1.0f, 1.0f});
         setSaturation(1.0f);
@@ -69,4 +74,13 @@ public class GLImageSaturationFilter extends GLImageFilter {
     public void setSaturationMax(float[] matrix) {
         setFloatVec3(mRangeMaxHandle, matrix);
     }
+
+    @Override
+    public ColorOp getColorOp() {
+        if (mColorOp == null) {
+            mColorOp = new SaturationOp();
+        }
+        mColorOp.setSaturation(mSaturation);
+        return mColorOp;
+    }
 }
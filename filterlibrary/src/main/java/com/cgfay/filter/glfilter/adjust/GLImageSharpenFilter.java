@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.adjust;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
@@ -30,9 +30,9 @@ public class GLImageSharpenFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mImageWidthFactorHandle = GLES30.glGetUniformLocation(mProgramHandle, "imageWidthFactor");
-        mImageHeightFactorHandle = GLES30.glGetUniformLocation(mProgramHandle, "imageHeightFactor");
-        mSharpnessLoc = GLES30.glGetUniformLocation(mProgramHandle, "sharpness");
+        mImageWidthFactorHandle = GLES.glGetUniformLocation(mProgramHandle, "imageWidthFactor");
+        mImageHeightFactorHandle = GLES.glGetUniformLocation(mProgramHandle, "imageHeightFactor");
+        mSharpnessLoc = GLES.glGetUniformLocation(mProgramHandle, "sharpness");
         setSharpness(0);
     }
 
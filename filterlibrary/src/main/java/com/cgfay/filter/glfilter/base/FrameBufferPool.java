@@ -0,0 +1,87 @@
+package com.cgfay.filter.glfilter.base;
+
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+
+/**
+ * 共享FBO池，按照RenderGraph的规划结果创建FBO，所有FBO尺寸相同
+ * 只能在GL线程中使用
+ */
+public final class FrameBufferPool {
+
+    private int[] mFrameBuffers = new int[0];
+    private int[] mFrameBufferTextures = new int[0];
+    // 已创建的FBO个数
+    private int mCount;
+    private int mWidth;
+    private int mHeight;
+
+    /**
+     * 确保池中恰好有count个指定大小的FBO，尺寸变化时全部重建，多余的FBO直接销毁
+     * @param count
+     * @param width
+     * @param height
+     */
+    public void ensure(int count, int width, int height) {
+        if (width != mWidth || height != mHeight) {
+            release();
+            mWidth = width;
+            mHeight = height;
+        }
+        if (count > mFrameBuffers.length) {
+            int[] frameBuffers = new int[count];
+            int[] frameBufferTextures = new int[count];
+            System.arraycopy(mFrameBuffers, 0, frameBuffers, 0, mCount);
+            System.arraycopy(mFrameBufferTextures, 0, frameBufferTextures, 0, mCount);
+            mFrameBuffers = frameBuffers;
+            mFrameBufferTextures = frameBufferTextures;
+        }
+        if (count > mCount) {
+            int[] frameBuffer = new int[1];
+            int[] frameBufferTexture = new int[1];
+            for (int i = mCount; i < count; i++) {
+                OpenGLUtils.createFrameBuffer(frameBuffer, frameBufferTexture, width, height);
+                mFrameBuffers[i] = frameBuffer[0];
+                mFrameBufferTextures[i] = frameBufferTexture[0];
+            }
+        } else if (count < mCount) {
+            GLES.glDeleteTextures(mCount - count, mFrameBufferTextures, count);
+            GLES.glDeleteFramebuffers(mCount - count, mFrameBuffers, count);
+        }
+        mCount = count;
+    }
+
+    /**
+     * 绑定共享FBO到滤镜，滤镜绘制时输出到该FBO
+     * @param filter
+     * @param slot      RenderGraph分配的编号
+     */
+    public void bindFilter(GLImageFilter filter, int slot) {
+        filter.setFrameBuffer(mFrameBuffers[slot], mFrameBufferTextures[slot], mWidth, mHeight);
+    }
+
+    public int getFrameBuffer(int slot) {
+        return mFrameBuffers[slot];
+    }
+
+    public int getTexture(int slot) {
+        return mFrameBufferTextures[slot];
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * 销毁所有FBO
+     */
+    public void release() {
+        if (mCount > 0) {
+            GLES.glDeleteTextures(mCount, mFrameBufferTextures, 0);
+            GLES.glDeleteFramebuffers(mCount, mFrameBuffers, 0);
+        }
+        mCount = 0;
+        mWidth = 0;
+        mHeight = 0;
+    }
+}
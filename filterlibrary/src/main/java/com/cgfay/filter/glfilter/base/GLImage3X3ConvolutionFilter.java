@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.base;
 
 import android.content.Context;
-import android.opengl.GLES20;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 public class GLImage3X3ConvolutionFilter extends GLImage3x3TextureSamplingFilter {
@@ -27,7 +27,7 @@ public class GLImage3X3ConvolutionFilter extends GLImage3x3TextureSamplingFilter
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mUniformConvolutionMatrix = GLES20.glGetUniformLocation(mProgramHandle, "convolutionMatrix");
+        mUniformConvolutionMatrix = GLES.glGetUniformLocation(mProgramHandle, "convolutionMatrix");
         setConvolutionKernel(new float[] {
                 -1.0f, 0.0f, 1.0f,
                 -2.0f, 0.0f, 2.0f,
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.base;
 
 import android.content.Context;
-import android.opengl.GLES20;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 public class GLImage3x3TextureSamplingFilter extends GLImageFilter {
@@ -27,8 +27,8 @@ public class GLImage3x3TextureSamplingFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mUniformTexelWidthLocation = GLES20.glGetUniformLocation(mProgramHandle, "texelWidth");
-        mUniformTexelHeightLocation = GLES20.glGetUniformLocation(mProgramHandle, "texelHeight");
+        mUniformTexelWidthLocation = GLES.glGetUniformLocation(mProgramHandle, "texelWidth");
+        mUniformTexelHeightLocation = GLES.glGetUniformLocation(mProgramHandle, "texelHeight");
         if (mTexelWidth != 0) {
             updateTexelValues();
         }
@@ -1,8 +1,11 @@
 package com.cgfay.filter.glfilter.base;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.glfilter.fusion.ColorOp;
+import com.cgfay.filter.glfilter.fusion.ColorOpFilter;
+import com.cgfay.filter.glfilter.fusion.LookupTableOp;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -10,7 +13,7 @@ import com.cgfay.filter.glfilter.utils.OpenGLUtils;
  * Created by cain.huang on 2018/3/8.
  */
 
-public class GLImage512LookupTableFilter extends GLImageFilter {
+public class GLImage512LookupTableFilter extends GLImageFilter implements ColorOpFilter {
 
     private float mStrength;
     private int mStrengthHandle;
@@ -18,6 +21,9 @@ public class GLImage512LookupTableFilter extends GLImageFilter {
 
     private int mCurveTexture = OpenGLUtils.GL_NOT_INIT;
 
+    // 合并到颜色管线时使用
+    private LookupTableOp mColorOp;
+
     public GLImage512LookupTableFilter(Context context) {
         this(context, VERTEX_SHADER, OpenGLUtils.getShaderFromAssets(context,
                 "shader/base/fragment_lookup_table_512.glsl"));
@@ -30,8 +36,8 @@ public class GLImage512LookupTableFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mStrengthHandle = GLES30.glGetUniformLocation(mProgramHandle, "strength");
-        mLookupTableTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "lookupTableTexture");
+        mStrengthHandle = GLES.glGetUniformLocation(mProgramHandle, "strength");
+        mLookupTableTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "lookupTableTexture");
         setStrength(1.0f);
     }
 
@@ -39,15 +45,23 @@ public class GLImage512LookupTableFilter extends GLImageFilter {
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
         OpenGLUtils.bindTexture(mLookupTableTextureHandle, mCurveTexture, 1);
-        GLES30.glUniform1f(mStrengthHandle, mStrength);
+        GLES.glUniform1f(mStrengthHandle, mStrength);
     }
 
     @Override
     public void release() {
-        GLES30.glDeleteTextures(1, new int[]{ mCurveTexture }, 0);
+        GLES.glDeleteTextures(1, new int[]{ mCurveTexture }, 0);
         super.release();
     }
 
+    /**
+     * 设置查找表纹理，纹理由滤镜负责释放
+     * @param texture
+     */
+    public void setLookupTable(int texture) {
+        mCurveTexture = texture;
+    }
+
     /**
      *  设置变化值，0.0f ~ 1.0f
      * @param value
@@ -64,4 +78,14 @@ public class GLImage512LookupTableFilter extends GLImageFilter {
         mStrength = opacity;
         setFloat(mStrengthHandle, mStrength);
     }
+
+    @Override
+    public ColorOp getColorOp() {
+        if (mColorOp == null) {
+            mColorOp = new LookupTableOp();
+        }
+        mColorOp.setTexture(mCurveTexture);
+        mColorOp.setStrength(mStrength);
+        return mColorOp;
+    }
 }
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.base;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -29,8 +29,8 @@ public class GLImage64LookupTableFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mStrengthHandle = GLES30.glGetUniformLocation(mProgramHandle, "strength");
-        mLookupTableTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "lookupTableTexture");
+        mStrengthHandle = GLES.glGetUniformLocation(mProgramHandle, "strength");
+        mLookupTableTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "lookupTableTexture");
         setStrength(1.0f);
     }
 
@@ -38,12 +38,12 @@ public class GLImage64LookupTableFilter extends GLImageFilter {
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
         OpenGLUtils.bindTexture(mLookupTableTextureHandle, mCurveTexture, 1);
-        GLES30.glUniform1f(mStrengthHandle, mStrength);
+        GLES.glUniform1f(mStrengthHandle, mStrength);
     }
 
     @Override
     public void release() {
-        GLES30.glDeleteTextures(1, new int[]{ mCurveTexture }, 0);
+        GLES.glDeleteTextures(1, new int[]{ mCurveTexture }, 0);
         super.release();
     }
 
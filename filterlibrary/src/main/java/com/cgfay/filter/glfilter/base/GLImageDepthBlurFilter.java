@@ -2,8 +2,8 @@ package com.cgfay.filter.glfilter.base;
 
 import android.content.Context;
 import android.graphics.PointF;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 import java.nio.FloatBuffer;
@@ -46,15 +46,15 @@ public class GLImageDepthBlurFilter extends GLImageFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mBlurImageHandle = GLES30.glGetUniformLocation(mProgramHandle, "blurImageTexture");
-            mInnerHandle = GLES30.glGetUniformLocation(mProgramHandle, "inner");
-            mOuterHandle = GLES30.glGetUniformLocation(mProgramHandle, "outer");
-            mWidthHandle = GLES30.glGetUniformLocation(mProgramHandle, "width");
-            mHeightHandle = GLES30.glGetUniformLocation(mProgramHandle, "height");
-            mCenterHandle = GLES30.glGetUniformLocation(mProgramHandle, "center");
-            mLine1Handle = GLES30.glGetUniformLocation(mProgramHandle, "line1");
-            mLine2Handle = GLES30.glGetUniformLocation(mProgramHandle, "line2");
-            mIntensityHandle = GLES30.glGetUniformLocation(mProgramHandle, "intensity");
+            mBlurImageHandle = GLES.glGetUniformLocation(mProgramHandle, "blurImageTexture");
+            mInnerHandle = GLES.glGetUniformLocation(mProgramHandle, "inner");
+            mOuterHandle = GLES.glGetUniformLocation(mProgramHandle, "outer");
+            mWidthHandle = GLES.glGetUniformLocation(mProgramHandle, "width");
+            mHeightHandle = GLES.glGetUniformLocation(mProgramHandle, "height");
+            mCenterHandle = GLES.glGetUniformLocation(mProgramHandle, "center");
+            mLine1Handle = GLES.glGetUniformLocation(mProgramHandle, "line1");
+            mLine2Handle = GLES.glGetUniformLocation(mProgramHandle, "line2");
+            mIntensityHandle = GLES.glGetUniformLocation(mProgramHandle, "intensity");
             initUniformData();
         }
     }
@@ -137,7 +137,7 @@ public class GLImageDepthBlurFilter extends GLImageFilter {
             mGaussianBlurFilter = null;
         }
         if (mBlurTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-            GLES30.glDeleteTextures(1, new int[]{mBlurTexture}, 0);
+            GLES.glDeleteTextures(1, new int[]{mBlurTexture}, 0);
         }
     }
 }
@@ -3,6 +3,7 @@ package com.cgfay.filter.glfilter.base;
 import android.content.Context;
 import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 import com.cgfay.filter.glfilter.utils.TextureRotationUtils;
 
@@ -49,7 +50,7 @@ public class GLImageDrawElementsFilter extends GLImageFilter {
     protected void onDrawFrame() {
         // 如果不存在索引缓冲，则直接用glDrawArrays绘制
         if (mIndexBuffer != null) {
-            GLES30.glDrawElements(GLES30.GL_TRIANGLES, mIndexLength, GLES30.GL_UNSIGNED_SHORT, mIndexBuffer);
+            GLES.glDrawElements(GLES30.GL_TRIANGLES, mIndexLength, GLES30.GL_UNSIGNED_SHORT, mIndexBuffer);
         } else {
             super.onDrawFrame();
         }
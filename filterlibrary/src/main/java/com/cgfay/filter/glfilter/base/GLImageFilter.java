@@ -5,11 +5,14 @@ import android.graphics.PointF;
 import android.opengl.GLES30;
 import android.text.TextUtils;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+import com.cgfay.filter.glfilter.utils.ProgramCache;
 import com.cgfay.filter.glfilter.utils.TextureRotationUtils;
+import com.cgfay.filter.glfilter.utils.UniformUpdateQueue;
 
 import java.nio.FloatBuffer;
-import java.util.LinkedList;
+import java.util.ArrayList;
 
 /**
  * 基类滤镜
@@ -40,7 +43,11 @@ public class GLImageFilter {
 
     protected Context mContext;
 
-    private final LinkedList<Runnable> mRunOnDraw;
+    // 延时任务，只用于uniform以外的操作
+    private final ArrayList<Runnable> mRunOnDraw;
+    private final ArrayList<Runnable> mRunningOnDraw;
+    // 待更新的uniform
+    private final UniformUpdateQueue mUniformQueue;
 
     // 纹理字符串
     protected String mVertexShader;
@@ -77,6 +84,8 @@ public class GLImageFilter {
     // FBO
     protected int[] mFrameBuffers;
     protected int[] mFrameBufferTextures;
+    // FBO是否由外部提供(比如RenderGraph分配的共享FBO)，此时不创建也不销毁自身的FBO
+    private boolean mExternalFrameBuffer;
 
     public GLImageFilter(Context context) {
         this(context, VERTEX_SHADER, FRAGMENT_SHADER);
@@ -84,7 +93,9 @@ public class GLImageFilter {
 
     public GLImageFilter(Context context, String vertexShader, String fragmentShader) {
         mContext = context;
-        mRunOnDraw = new LinkedList<>();
+        mRunOnDraw = new ArrayList<>();
+        mRunningOnDraw = new ArrayList<>();
+        mUniformQueue = new UniformUpdateQueue();
         // 记录shader数据
         mVertexShader = vertexShader;
         mFragmentShader = fragmentShader;
@@ -98,10 +109,10 @@ public class GLImageFilter {
     public void initProgramHandle() {
         // 只有在shader都不为空的情况下才初始化程序句柄
         if (!TextUtils.isEmpty(mVertexShader) && !TextUtils.isEmpty(mFragmentShader)) {
-            mProgramHandle = OpenGLUtils.createProgram(mVertexShader, mFragmentShader);
-            mPositionHandle = GLES30.glGetAttribLocation(mProgramHandle, "aPosition");
-            mTextureCoordinateHandle = GLES30.glGetAttribLocation(mProgramHandle, "aTextureCoord");
-            mInputTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "inputTexture");
+            mProgramHandle = ProgramCache.getInstance().acquire(mVertexShader, mFragmentShader);
+            mPositionHandle = GLES.glGetAttribLocation(mProgramHandle, "aPosition");
+            mTextureCoordinateHandle = GLES.glGetAttribLocation(mProgramHandle, "aTextureCoord");
+            mInputTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "inputTexture");
             mIsInitialized = true;
         } else {
             mPositionHandle = OpenGLUtils.GL_NOT_INIT;
@@ -145,12 +156,12 @@ public class GLImageFilter {
         }
 
         // 设置视口大小
-        GLES30.glViewport(0, 0, mDisplayWidth, mDisplayHeight);
-        GLES30.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
-        GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT);
+        GLES.glViewport(0, 0, mDisplayWidth, mDisplayHeight);
+        GLES.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
+        GLES.glClear(GLES30.GL_COLOR_BUFFER_BIT);
 
         // 使用当前的program
-        GLES30.glUseProgram(mProgramHandle);
+        GLES.glUseProgram(mProgramHandle);
         // 运行延时任务
         runPendingOnDrawTasks();
 
@@ -188,17 +199,17 @@ public class GLImageFilter {
 
     public void bindFrameBuffer() {
         // 绑定FBO
-        GLES30.glViewport(0, 0, mFrameWidth, mFrameHeight);
-        GLES30.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, mFrameBuffers[0]);
+        GLES.glViewport(0, 0, mFrameWidth, mFrameHeight);
+        GLES.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, mFrameBuffers[0]);
         // 使用当前的program
-        GLES30.glUseProgram(mProgramHandle);
+        GLES.glUseProgram(mProgramHandle);
         // 运行延时任务，这个要放在glUseProgram之后，要不然某些设置项会不生效
         runPendingOnDrawTasks();
     }
 
     public int unBindFrameBuffer() {
-        GLES30.glUseProgram(0);
-        GLES30.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+        GLES.glUseProgram(0);
+        GLES.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
         return mFrameBufferTextures[0];
     }
 
@@ -210,12 +221,12 @@ public class GLImageFilter {
         }
 
         // 绑定FBO
-        GLES30.glViewport(0, 0, mFrameWidth, mFrameHeight);
-        GLES30.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, mFrameBuffers[0]);
-        GLES30.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
-        GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT);
+        GLES.glViewport(0, 0, mFrameWidth, mFrameHeight);
+        GLES.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, mFrameBuffers[0]);
+        GLES.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
+        GLES.glClear(GLES30.GL_COLOR_BUFFER_BIT);
         // 使用当前的program
-        GLES30.glUseProgram(mProgramHandle);
+        GLES.glUseProgram(mProgramHandle);
         // 运行延时任务，这个要放在glUseProgram之后，要不然某些设置项会不生效
         runPendingOnDrawTasks();
 
@@ -235,25 +246,25 @@ public class GLImageFilter {
     public void onDrawTexture(int textureId, FloatBuffer vertexBuffer, FloatBuffer textureBuffer) {
         // 绑定顶点坐标缓冲
         vertexBuffer.position(0);
-        GLES30.glVertexAttribPointer(mPositionHandle, mCoordsPerVertex,
+        GLES.glVertexAttribPointer(mPositionHandle, mCoordsPerVertex,
                 GLES30.GL_FLOAT, false, 0, vertexBuffer);
-        GLES30.glEnableVertexAttribArray(mPositionHandle);
+        GLES.glEnableVertexAttribArray(mPositionHandle);
         // 绑定纹理坐标缓冲
         textureBuffer.position(0);
-        GLES30.glVertexAttribPointer(mTextureCoordinateHandle, 2,
+        GLES.glVertexAttribPointer(mTextureCoordinateHandle, 2,
                 GLES30.GL_FLOAT, false, 0, textureBuffer);
-        GLES30.glEnableVertexAttribArray(mTextureCoordinateHandle);
+        GLES.glEnableVertexAttribArray(mTextureCoordinateHandle);
         // 绑定纹理
-        GLES30.glActiveTexture(GLES30.GL_TEXTURE0);
-        GLES30.glBindTexture(getTextureType(), textureId);
-        GLES30.glUniform1i(mInputTextureHandle, 0);
+        GLES.glActiveTexture(GLES30.GL_TEXTURE0);
+        GLES.glBindTexture(getTextureType(), textureId);
+        GLES.glUniform1i(mInputTextureHandle, 0);
         onDrawFrameBegin();
         onDrawFrame();
         onDrawFrameAfter();
         // 解绑
-        GLES30.glDisableVertexAttribArray(mPositionHandle);
-        GLES30.glDisableVertexAttribArray(mTextureCoordinateHandle);
-        GLES30.glBindTexture(getTextureType(), 0);
+        GLES.glDisableVertexAttribArray(mPositionHandle);
+        GLES.glDisableVertexAttribArray(mTextureCoordinateHandle);
+        GLES.glBindTexture(getTextureType(), 0);
 
     }
 
@@ -268,7 +279,7 @@ public class GLImageFilter {
      * 绘制图像
      */
     protected void onDrawFrame() {
-        GLES30.glDrawArrays(GLES30.GL_TRIANGLE_STRIP, 0, mVertexCount);
+        GLES.glDrawArrays(GLES30.GL_TRIANGLE_STRIP, 0, mVertexCount);
     }
 
     /**
@@ -295,7 +306,7 @@ public class GLImageFilter {
      */
     public void release() {
         if (mIsInitialized) {
-            GLES30.glDeleteProgram(mProgramHandle);
+            ProgramCache.getInstance().release(mVertexShader, mFragmentShader, mProgramHandle);
             mProgramHandle = OpenGLUtils.GL_NOT_INIT;
         }
         destroyFrameBuffer();
@@ -307,7 +318,7 @@ public class GLImageFilter {
      * @param height
      */
     public void initFrameBuffer(int width, int height) {
-        if (!isInitialized()) {
+        if (!isInitialized() || mExternalFrameBuffer) {
             return;
         }
         if (mFrameBuffers != null && (mFrameWidth != width || mFrameHeight != height)) {
@@ -329,19 +340,74 @@ public class GLImageFilter {
         if (!mIsInitialized) {
             return;
         }
+        if (mExternalFrameBuffer) {
+            mFrameBuffers = null;
+            mFrameBufferTextures = null;
+            return;
+        }
         if (mFrameBufferTextures != null) {
-            GLES30.glDeleteTextures(1, mFrameBufferTextures, 0);
+            GLES.glDeleteTextures(1, mFrameBufferTextures, 0);
             mFrameBufferTextures = null;
         }
 
         if (mFrameBuffers != null) {
-            GLES30.glDeleteFramebuffers(1, mFrameBuffers, 0);
+            GLES.glDeleteFramebuffers(1, mFrameBuffers, 0);
             mFrameBuffers = null;
         }
         mFrameWidth = -1;
         mFrameWidth = -1;
     }
 
+    /**
+     * 设置是否使用外部提供的FBO，切换时释放当前的FBO
+     * 使用外部FBO时，initFrameBuffer不再创建自身的FBO，子类内部多个pass使用的FBO不受影响
+     * @param external
+     */
+    public void setExternalFrameBuffer(boolean external) {
+        if (mExternalFrameBuffer == external) {
+            return;
+        }
+        if (external) {
+            // 只释放基类自身的FBO，不能调用destroyFrameBuffer，子类会连同内部的FBO一起销毁
+            if (mFrameBufferTextures != null) {
+                GLES.glDeleteTextures(1, mFrameBufferTextures, 0);
+            }
+            if (mFrameBuffers != null) {
+                GLES.glDeleteFramebuffers(1, mFrameBuffers, 0);
+            }
+        }
+        mFrameBuffers = null;
+        mFrameBufferTextures = null;
+        mExternalFrameBuffer = external;
+    }
+
+    /**
+     * 设置外部提供的FBO，绘制到FBO时输出到该FBO，FBO的生命周期由外部管理
+     * @param frameBuffer           FBO
+     * @param frameBufferTexture    FBO绑定的纹理
+     * @param width                 FBO宽度
+     * @param height                FBO高度
+     */
+    public void setFrameBuffer(int frameBuffer, int frameBufferTexture, int width, int height) {
+        setExternalFrameBuffer(true);
+        if (mFrameBuffers == null) {
+            mFrameBuffers = new int[1];
+            mFrameBufferTextures = new int[1];
+        }
+        mFrameBuffers[0] = frameBuffer;
+        mFrameBufferTextures[0] = frameBufferTexture;
+        mFrameWidth = width;
+        mFrameHeight = height;
+    }
+
+    /**
+     * 是否使用外部提供的FBO
+     * @return
+     */
+    public boolean isExternalFrameBuffer() {
+        return mExternalFrameBuffer;
+    }
+
     /**
      * 判断是否初始化
      * @return
@@ -358,6 +424,14 @@ public class GLImageFilter {
         mFilterEnable = enable;
     }
 
+    /**
+     * 滤镜是否可用
+     * @return
+     */
+    public boolean isFilterEnable() {
+        return mFilterEnable;
+    }
+
     /**
      * 获取输出宽度
      * @return
@@ -376,90 +450,39 @@ public class GLImageFilter {
 
     ///------------------ 统一变量(uniform)设置 ------------------------///
     protected void setInteger(final int location, final int intValue) {
-        runOnDraw(new Runnable() {
-            @Override
-            public void run() {
-                GLES30.glUniform1i(location, intValue);
-            }
-        });
+        mUniformQueue.setInteger(location, intValue);
     }
 
     protected void setFloat(final int location, final float floatValue) {
-        runOnDraw(new Runnable() {
-            @Override
-            public void run() {
-                GLES30.glUniform1f(location, floatValue);
-            }
-        });
+        mUniformQueue.setFloat(location, floatValue);
     }
 
     protected void setFloatVec2(final int location, final float[] arrayValue) {
-        runOnDraw(new Runnable() {
-            @Override
-            public void run() {
-                GLES30.glUniform2fv(location, 1, FloatBuffer.wrap(arrayValue));
-            }
-        });
+        mUniformQueue.setFloatVec2(location, arrayValue);
     }
 
     protected void setFloatVec3(final int location, final float[] arrayValue) {
-        runOnDraw(new Runnable() {
-            @Override
-            public void run() {
-                GLES30.glUniform3fv(location, 1, FloatBuffer.wrap(arrayValue));
-            }
-        });
+        mUniformQueue.setFloatVec3(location, arrayValue);
     }
 
     protected void setFloatVec4(final int location, final float[] arrayValue) {
-        runOnDraw(new Runnable() {
-            @Override
-            public void run() {
-                GLES30.glUniform4fv(location, 1, FloatBuffer.wrap(arrayValue));
-            }
-        });
+        mUniformQueue.setFloatVec4(location, arrayValue);
     }
 
     protected void setFloatArray(final int location, final float[] arrayValue) {
-        runOnDraw(new Runnable() {
-            @Override
-            public void run() {
-                GLES30.glUniform1fv(location, arrayValue.length, FloatBuffer.wrap(arrayValue));
-            }
-        });
+        mUniformQueue.setFloatArray(location, arrayValue);
     }
 
     protected void setPoint(final int location, final PointF point) {
-        runOnDraw(new Runnable() {
-
-            @Override
-            public void run() {
-                float[] vec2 = new float[2];
-                vec2[0] = point.x;
-                vec2[1] = point.y;
-                GLES30.glUniform2fv(location, 1, vec2, 0);
-            }
-        });
+        mUniformQueue.setFloatVec2(location, point.x, point.y);
     }
 
     protected void setUniformMatrix3f(final int location, final float[] matrix) {
-        runOnDraw(new Runnable() {
-
-            @Override
-            public void run() {
-                GLES30.glUniformMatrix3fv(location, 1, false, matrix, 0);
-            }
-        });
+        mUniformQueue.setUniformMatrix3f(location, matrix);
     }
 
     protected void setUniformMatrix4f(final int location, final float[] matrix) {
-        runOnDraw(new Runnable() {
-
-            @Override
-            public void run() {
-                GLES30.glUniformMatrix4fv(location, 1, false, matrix, 0);
-            }
-        });
+        mUniformQueue.setUniformMatrix4f(location, matrix);
     }
 
     /**
@@ -468,17 +491,27 @@ public class GLImageFilter {
      */
     protected void runOnDraw(final Runnable runnable) {
         synchronized (mRunOnDraw) {
-            mRunOnDraw.addLast(runnable);
+            mRunOnDraw.add(runnable);
         }
     }
 
     /**
-     * 运行延时任务
+     * 运行延时任务，先运行普通任务，任务中设置的uniform在同一帧提交
      */
     protected void runPendingOnDrawTasks() {
-        while (!mRunOnDraw.isEmpty()) {
-            mRunOnDraw.removeFirst().run();
+        synchronized (mRunOnDraw) {
+            if (!mRunOnDraw.isEmpty()) {
+                mRunningOnDraw.addAll(mRunOnDraw);
+                mRunOnDraw.clear();
+            }
+        }
+        if (!mRunningOnDraw.isEmpty()) {
+            for (int i = 0; i < mRunningOnDraw.size(); i++) {
+                mRunningOnDraw.get(i).run();
+            }
+            mRunningOnDraw.clear();
         }
+        mUniformQueue.drain();
     }
 
     protected static float clamp(float value, float min, float max) {
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.base;
 
 import android.content.Context;
-import android.opengl.GLES20;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -30,8 +30,8 @@ class GLImageGaussPassFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mTexelWidthOffsetHandle = GLES20.glGetUniformLocation(mProgramHandle, "texelWidthOffset");
-        mTexelHeightOffsetHandle = GLES20.glGetUniformLocation(mProgramHandle, "texelHeightOffset");
+        mTexelWidthOffsetHandle = GLES.glGetUniformLocation(mProgramHandle, "texelWidthOffset");
+        mTexelHeightOffsetHandle = GLES.glGetUniformLocation(mProgramHandle, "texelHeightOffset");
     }
 
     /**
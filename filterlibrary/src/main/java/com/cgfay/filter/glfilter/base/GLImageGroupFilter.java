@@ -1,7 +1,10 @@
 package com.cgfay.filter.glfilter.base;
 
 import android.content.Context;
-import android.opengl.GLES30;
+
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.glfilter.fusion.ColorPipeline;
+import com.cgfay.filter.glfilter.fusion.GLImageColorPipelineFilter;
 
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
@@ -14,6 +17,10 @@ import java.util.List;
 public abstract class GLImageGroupFilter extends GLImageFilter {
 
     protected List<GLImageFilter> mFilters = new ArrayList<GLImageFilter>();
+    // 实际绘制的滤镜链，连续的颜色滤镜合并成一个GLImageColorPipelineFilter，在initFrameBuffer时生成
+    private List<GLImageFilter> mDrawFilters;
+    // mDrawFilters中合并生成的滤镜，与mDrawFilters一起生成，由滤镜组负责释放
+    private final List<GLImageFilter> mPipelineFilters = new ArrayList<>();
 
     public GLImageGroupFilter(Context context) {
         super(context, null, null);
@@ -39,6 +46,9 @@ public abstract class GLImageGroupFilter extends GLImageFilter {
                 mFilters.get(i).onInputSizeChanged(width, height);
             }
         }
+        for (int i = 0; i < mPipelineFilters.size(); i++) {
+            mPipelineFilters.get(i).onInputSizeChanged(width, height);
+        }
     }
 
     /**
@@ -54,6 +64,9 @@ public abstract class GLImageGroupFilter extends GLImageFilter {
                 mFilters.get(i).onDisplaySizeChanged(width, height);
             }
         }
+        for (int i = 0; i < mPipelineFilters.size(); i++) {
+            mPipelineFilters.get(i).onDisplaySizeChanged(width, height);
+        }
     }
 
     /**
@@ -65,23 +78,24 @@ public abstract class GLImageGroupFilter extends GLImageFilter {
      */
     @Override
     public boolean drawFrame(int textureId, FloatBuffer vertexBuffer, FloatBuffer textureBuffer) {
-        if (mFilters.size() == 0) {
+        List<GLImageFilter> filters = getDrawFilters();
+        if (filters.size() == 0) {
             return false;
         }
         boolean result = super.drawFrame(textureId, vertexBuffer, textureBuffer);
         int currentTexture = textureId;
-        int size = mFilters.size();
+        int size = filters.size();
         for (int i = 0; i < size; i++) {
             if (i == size - 1) {
-                int displayWidth = mFilters.get(i).getDisplayWidth();
-                int displayHeight = mFilters.get(i).getDisplayHeight();
-                GLES30.glViewport(0, 0, displayWidth, displayHeight);
-                if (mFilters.get(i) != null) {
-                    result = mFilters.get(i).drawFrame(currentTexture, vertexBuffer, textureBuffer);
+                int displayWidth = filters.get(i).getDisplayWidth();
+                int displayHeight = filters.get(i).getDisplayHeight();
+                GLES.glViewport(0, 0, displayWidth, displayHeight);
+                if (filters.get(i) != null) {
+                    result = filters.get(i).drawFrame(currentTexture, vertexBuffer, textureBuffer);
                 }
             } else {
-                if (mFilters.get(i) != null) {
-                    currentTexture = mFilters.get(i)
+                if (filters.get(i) != null) {
+                    currentTexture = filters.get(i)
                             .drawFrameBuffer(currentTexture, vertexBuffer, textureBuffer);
                 }
             }
@@ -98,14 +112,15 @@ public abstract class GLImageGroupFilter extends GLImageFilter {
      */
     @Override
     public int drawFrameBuffer(int textureId, FloatBuffer vertexBuffer, FloatBuffer textureBuffer) {
-        if (mFilters.size() == 0) {
+        List<GLImageFilter> filters = getDrawFilters();
+        if (filters.size() == 0) {
             return textureId;
         }
-        int size = mFilters.size();
+        int size = filters.size();
         int currentTexture = textureId;
         for (int i = 0; i < size; i++) {
-            if (mFilters.get(i) != null) {
-                currentTexture = mFilters.get(i)
+            if (filters.get(i) != null) {
+                currentTexture = filters.get(i)
                         .drawFrameBuffer(currentTexture, vertexBuffer, textureBuffer);
             }
         }
@@ -123,10 +138,23 @@ public abstract class GLImageGroupFilter extends GLImageFilter {
         if (mFilters.size() == 0) {
             return;
         }
-        int size = mFilters.size();
+        if (mDrawFilters == null) {
+            mDrawFilters = ColorPipeline.fuse(mContext, mFilters);
+            for (int i = 0; i < mDrawFilters.size(); i++) {
+                GLImageFilter filter = mDrawFilters.get(i);
+                if (filter instanceof GLImageColorPipelineFilter) {
+                    filter.onInputSizeChanged(mImageWidth, mImageHeight);
+                    filter.onDisplaySizeChanged(mDisplayWidth, mDisplayHeight);
+                    mPipelineFilters.add(filter);
+                }
+            }
+        }
+        // 被合并的滤镜不再单独绘制，不需要创建FBO
+        List<GLImageFilter> filters = getDrawFilters();
+        int size = filters.size();
         for (int i = 0; i < size; i++) {
-            if (mFilters.get(i) != null) {
-                mFilters.get(i).initFrameBuffer(width, height);
+            if (filters.get(i) != null) {
+                filters.get(i).initFrameBuffer(width, height);
             }
         }
     }
@@ -144,6 +172,26 @@ public abstract class GLImageGroupFilter extends GLImageFilter {
             }
         }
         mFilters.clear();
+        releaseDrawFilters();
+    }
+
+    /**
+     * 获取实际绘制的滤镜链
+     * @return
+     */
+    protected List<GLImageFilter> getDrawFilters() {
+        return mDrawFilters != null ? mDrawFilters : mFilters;
+    }
+
+    /**
+     * 释放合并生成的滤镜，被合并的原始滤镜由mFilters管理
+     */
+    private void releaseDrawFilters() {
+        for (int i = 0; i < mPipelineFilters.size(); i++) {
+            mPipelineFilters.get(i).release();
+        }
+        mPipelineFilters.clear();
+        mDrawFilters = null;
     }
 
     public List<GLImageFilter> getmFilters() {
@@ -151,6 +199,7 @@ public abstract class GLImageGroupFilter extends GLImageFilter {
     }
 
     public void setmFilters(List<GLImageFilter> mFilters) {
+        releaseDrawFilters();
         this.mFilters = mFilters;
     }
 }
@@ -2,8 +2,8 @@ package com.cgfay.filter.glfilter.base;
 
 import android.content.Context;
 import android.opengl.GLES11Ext;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -28,7 +28,7 @@ public class GLImageOESInputFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mTransformMatrixHandle = GLES30.glGetUniformLocation(mProgramHandle, "transformMatrix");
+        mTransformMatrixHandle = GLES.glGetUniformLocation(mProgramHandle, "transformMatrix");
     }
 
     @Override
@@ -39,7 +39,7 @@ public class GLImageOESInputFilter extends GLImageFilter {
     @Override
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
-        GLES30.glUniformMatrix4fv(mTransformMatrixHandle, 1, false, mTransformMatrix, 0);
+        GLES.glUniformMatrix4fv(mTransformMatrixHandle, 1, false, mTransformMatrix, 0);
     }
 
     /**
@@ -2,14 +2,17 @@ package com.cgfay.filter.glfilter.base;
 
 import android.content.Context;
 import android.graphics.PointF;
-import android.opengl.GLES20;
 
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.glfilter.fusion.ColorOp;
+import com.cgfay.filter.glfilter.fusion.ColorOpFilter;
+import com.cgfay.filter.glfilter.fusion.VignetteOp;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
  * 暗角(虚光照)滤镜
  */
-public class GLImageVignetteFilter extends GLImageFilter {
+public class GLImageVignetteFilter extends GLImageFilter implements ColorOpFilter {
 
     private int mVignetteCenterHandle;
     private int mVignetteColorHandle;
@@ -24,6 +27,9 @@ public class GLImageVignetteFilter extends GLImageFilter {
 
     private float mVignetteEnd;
 
+    // 合并到颜色管线时使用
+    private VignetteOp mColorOp;
+
     public GLImageVignetteFilter(Context context) {
         this(context, VERTEX_SHADER, OpenGLUtils.getShaderFromAssets(context,
                 "shader/base/fragment_vignette.glsl"));
@@ -36,10 +42,10 @@ public class GLImageVignetteFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mVignetteCenterHandle = GLES20.glGetUniformLocation(mProgramHandle, "vignetteCenter");
-        mVignetteColorHandle = GLES20.glGetUniformLocation(mProgramHandle, "vignetteColor");
-        mVignetteStartHandle = GLES20.glGetUniformLocation(mProgramHandle, "vignetteStart");
-        mVignetteEndHandle = GLES20.glGetUniformLocation(mProgramHandle, "vignetteEnd");
+        mVignetteCenterHandle = GLES.glGetUniformLocation(mProgramHandle, "vignetteCenter");
+        mVignetteColorHandle = GLES.glGetUniformLocation(mProgramHandle, "vignetteColor");
+        mVignetteStartHandle = GLES.glGetUniformLocation(mProgramHandle, "vignetteStart");
+        mVignetteEndHandle = GLES.glGetUniformLocation(mProgramHandle, "vignetteEnd");
         setVignetteCenter(new PointF(0.5f, 0.5f));
         setVignetteColor(new float[] {0.0f, 0.0f, 0.0f});
         setVignetteStart(0.3f);
@@ -81,4 +87,16 @@ public class GLImageVignetteFilter extends GLImageFilter {
         mVignetteEnd = vignetteEnd;
         setFloat(mVignetteEndHandle, mVignetteEnd);
     }
+
+    @Override
+    public ColorOp getColorOp() {
+        if (mColorOp == null) {
+            mColorOp = new VignetteOp();
+        }
+        mColorOp.setCenter(mVignetteCenter.x, mVignetteCenter.y);
+        mColorOp.setColor(mVignetteColor);
+        mColorOp.setStart(mVignetteStart);
+        mColorOp.setEnd(mVignetteEnd);
+        return mColorOp;
+    }
 }
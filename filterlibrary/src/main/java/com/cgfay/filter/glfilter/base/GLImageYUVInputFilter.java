@@ -4,6 +4,7 @@ import android.content.Context;
 import android.opengl.GLES20;
 import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 import java.nio.Buffer;
@@ -63,21 +64,21 @@ public class GLImageYUVInputFilter extends GLImageFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mRenderYUVHandle = GLES30.glGetUniformLocation(mProgramHandle, "renderYUV");
-            mInputTexture2Handle = GLES30.glGetUniformLocation(mProgramHandle, "inputTexture2");
-            mInputTexture3Handle = GLES30.glGetUniformLocation(mProgramHandle, "inputTexture3");
+            mRenderYUVHandle = GLES.glGetUniformLocation(mProgramHandle, "renderYUV");
+            mInputTexture2Handle = GLES.glGetUniformLocation(mProgramHandle, "inputTexture2");
+            mInputTexture3Handle = GLES.glGetUniformLocation(mProgramHandle, "inputTexture3");
         }
-        GLES30.glGenTextures(3, mInputTexture, 0);
+        GLES.glGenTextures(3, mInputTexture, 0);
         for (int i = 0; i < 3; i++) {
             // 绑定纹理空间
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, mInputTexture[i]);
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, mInputTexture[i]);
             //设置属性 当显示的纹理比加载的纹理大时 使用纹理坐标中最接近的若干个颜色 通过加权算法获得绘制颜色
-            GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
+            GLES.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
             // 比加载的小
-            GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR);
+            GLES.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR);
             // 如果纹理坐标超出范围 0,0-1,1 坐标会被截断在范围内
-            GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
-            GLES30.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
+            GLES.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
+            GLES.glTexParameteri(GLES30.GL_TEXTURE_2D, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
         }
     }
 
@@ -138,25 +139,25 @@ public class GLImageYUVInputFilter extends GLImageFilter {
         mRenderYUV = 1;
         if (yBuffer != null && uBuffer != null && vBuffer != null) {
             // 绑定Y纹理
-            GLES30.glActiveTexture(GLES30.GL_TEXTURE0);
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, mInputTexture[0]);
-            GLES30.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_LUMINANCE,
+            GLES.glActiveTexture(GLES30.GL_TEXTURE0);
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, mInputTexture[0]);
+            GLES.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_LUMINANCE,
                     yLinesize, mImageHeight, 0, GLES30.GL_LUMINANCE, GLES20.GL_UNSIGNED_BYTE, yBuffer);
-            GLES30.glUniform1i(mInputTextureHandle, 0);
+            GLES.glUniform1i(mInputTextureHandle, 0);
 
             // 绑定U纹理
-            GLES30.glActiveTexture(GLES30.GL_TEXTURE1);
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, mInputTexture[1]);
-            GLES30.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_LUMINANCE,
+            GLES.glActiveTexture(GLES30.GL_TEXTURE1);
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, mInputTexture[1]);
+            GLES.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_LUMINANCE,
                     uLinesize, mImageHeight, 0, GLES30.GL_LUMINANCE, GLES20.GL_UNSIGNED_BYTE, uBuffer);
-            GLES30.glUniform1i(mInputTextureHandle, 1);
+            GLES.glUniform1i(mInputTextureHandle, 1);
 
             // 绑定V纹理
-            GLES30.glActiveTexture(GLES30.GL_TEXTURE2);
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, mInputTexture[2]);
-            GLES30.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_LUMINANCE,
+            GLES.glActiveTexture(GLES30.GL_TEXTURE2);
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, mInputTexture[2]);
+            GLES.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_LUMINANCE,
                     vLinesize, mImageHeight, 0, GLES30.GL_LUMINANCE, GLES20.GL_UNSIGNED_BYTE, vBuffer);
-            GLES30.glUniform1i(mInputTextureHandle, 2);
+            GLES.glUniform1i(mInputTextureHandle, 2);
         }
         if (yBuffer != null) {
             yBuffer.clear();
@@ -179,11 +180,11 @@ public class GLImageYUVInputFilter extends GLImageFilter {
         mRenderYUV = 0;
         if (yBuffer != null) {
             // 绑定Y纹理
-            GLES30.glActiveTexture(GLES30.GL_TEXTURE0);
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, mInputTexture[0]);
-            GLES30.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA,
+            GLES.glActiveTexture(GLES30.GL_TEXTURE0);
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, mInputTexture[0]);
+            GLES.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA,
                     yLinesize, mImageHeight, 0, GLES30.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, yBuffer);
-            GLES30.glUniform1i(mInputTextureHandle, 0);
+            GLES.glUniform1i(mInputTextureHandle, 0);
         }
 
         if (yBuffer != null) {
@@ -203,35 +204,35 @@ public class GLImageYUVInputFilter extends GLImageFilter {
     @Override
     public void onDrawTexture(int textureId, FloatBuffer vertexBuffer, FloatBuffer textureBuffer) {
 
-        GLES30.glPixelStorei(GLES30.GL_UNPACK_ALIGNMENT, 1);
-        GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT);
+        GLES.glPixelStorei(GLES30.GL_UNPACK_ALIGNMENT, 1);
+        GLES.glClear(GLES30.GL_COLOR_BUFFER_BIT);
 
         // 绑定顶点坐标缓冲
         vertexBuffer.position(0);
-        GLES30.glVertexAttribPointer(mPositionHandle, mCoordsPerVertex,
+        GLES.glVertexAttribPointer(mPositionHandle, mCoordsPerVertex,
                 GLES30.GL_FLOAT, false, 0, vertexBuffer);
-        GLES30.glEnableVertexAttribArray(mPositionHandle);
+        GLES.glEnableVertexAttribArray(mPositionHandle);
         // 绑定纹理坐标缓冲
         textureBuffer.position(0);
-        GLES30.glVertexAttribPointer(mTextureCoordinateHandle, 2,
+        GLES.glVertexAttribPointer(mTextureCoordinateHandle, 2,
                 GLES30.GL_FLOAT, false, 0, textureBuffer);
-        GLES30.glEnableVertexAttribArray(mTextureCoordinateHandle);
+        GLES.glEnableVertexAttribArray(mTextureCoordinateHandle);
         // 绑定纹理
         if (mRenderYUV == 1) {
             updateYUV();
         } else {
             updateBGRA();
         }
-        GLES30.glUniform1i(mRenderYUVHandle, mRenderYUV);
+        GLES.glUniform1i(mRenderYUVHandle, mRenderYUV);
         onDrawFrameBegin();
         onDrawFrame();
         onDrawFrameAfter();
         // 解绑
-        GLES30.glDisableVertexAttribArray(mPositionHandle);
-        GLES30.glDisableVertexAttribArray(mTextureCoordinateHandle);
-        GLES30.glBindTexture(getTextureType(), 0);
+        GLES.glDisableVertexAttribArray(mPositionHandle);
+        GLES.glDisableVertexAttribArray(mTextureCoordinateHandle);
+        GLES.glBindTexture(getTextureType(), 0);
 
-        GLES30.glUseProgram(0);
+        GLES.glUseProgram(0);
     }
 
     /**
@@ -0,0 +1,211 @@
+package com.cgfay.filter.glfilter.base;
+
+/**
+ * 渲染图
+ * 滤镜链中每个阶段的输出纹理只会被下一个启用的阶段读取，根据各个输出纹理的生命周期，
+ * 让生命周期不重叠的阶段复用同一个FBO，线性链路最终只需要在少量FBO之间来回切换(ping-pong)。
+ * 未启用的阶段直接跳过，不占用FBO。
+ * 这里只做规划，不涉及GL调用，FBO由FrameBufferPool按照规划结果统一创建。
+ */
+public final class RenderGraph {
+
+    // 绘制到共享FBO的阶段
+    public static final int TYPE_POOLED = 0;
+    // 使用自身FBO的阶段，比如内部有多个pass的组合滤镜，输出纹理由滤镜自己管理
+    public static final int TYPE_OWNED = 1;
+    // 直接绘制到屏幕的阶段
+    public static final int TYPE_SCREEN = 2;
+
+    // 没有分配FBO
+    public static final int SLOT_NONE = -1;
+
+    // RGBA每个像素的字节数
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // 阶段类型
+    private int[] mTypes = new int[DEFAULT_CAPACITY];
+    // 阶段是否启用
+    private boolean[] mEnabled = new boolean[DEFAULT_CAPACITY];
+    // 输出纹理最后一次被读取的阶段
+    private int[] mLastUse = new int[DEFAULT_CAPACITY];
+    // 输出纹理所在的FBO
+    private int[] mOutputSlots = new int[DEFAULT_CAPACITY];
+    // 每个FBO被占用到哪个阶段
+    private int[] mSlotBusyUntil = new int[DEFAULT_CAPACITY];
+    // 阶段个数
+    private int mStageCount;
+    // 需要的FBO个数
+    private int mSlotCount;
+    // 最终输出纹理所在的阶段
+    private int mOutputStage = -1;
+    // 最终输出纹理是否需要保留到下一帧开始之后(比如交给录制线程读取)
+    private boolean mRetainOutput;
+
+    /**
+     * 清空所有阶段，重新构建
+     */
+    public void reset() {
+        mStageCount = 0;
+        mSlotCount = 0;
+        mOutputStage = -1;
+    }
+
+    /**
+     * 添加一个阶段，阶段按照添加顺序串联
+     * @param type      阶段类型
+     * @param enabled   是否启用，未启用的阶段直接跳过
+     * @return          阶段索引
+     */
+    public int addStage(int type, boolean enabled) {
+        if (mStageCount == mTypes.length) {
+            grow(mTypes.length * 2);
+        }
+        int stage = mStageCount++;
+        mTypes[stage] = type;
+        mEnabled[stage] = enabled;
+        mLastUse[stage] = -1;
+        mOutputSlots[stage] = SLOT_NONE;
+        return stage;
+    }
+
+    /**
+     * 设置最终输出纹理是否需要保留
+     * 保留时，最终输出独占一个FBO，下一帧的前面几个阶段不会覆盖它
+     * @param retainOutput
+     */
+    public void setRetainOutput(boolean retainOutput) {
+        mRetainOutput = retainOutput;
+    }
+
+    /**
+     * 计算各个输出纹理的生命周期并分配FBO，不分配内存
+     */
+    public void plan() {
+        // 生命周期，每个阶段的输出由下一个启用的阶段读取
+        int producer = -1;
+        for (int i = 0; i < mStageCount; i++) {
+            mOutputSlots[i] = SLOT_NONE;
+            mLastUse[i] = -1;
+            if (!mEnabled[i]) {
+                continue;
+            }
+            if (producer >= 0) {
+                mLastUse[producer] = i;
+            }
+            if (mTypes[i] != TYPE_SCREEN) {
+                producer = i;
+            }
+        }
+        // 最终输出在整个滤镜链结束之后仍然会被读取
+        mOutputStage = producer;
+        if (producer >= 0) {
+            mLastUse[producer] = mStageCount;
+        }
+
+        // 分配FBO，优先复用编号最小的空闲FBO
+        mSlotCount = 0;
+        boolean reserved = mRetainOutput && producer >= 0 && mTypes[producer] == TYPE_POOLED;
+        if (reserved) {
+            // 最终输出从帧开始就被占用，其它阶段都不能写入
+            mOutputSlots[producer] = 0;
+            mSlotBusyUntil[0] = mStageCount;
+            mSlotCount = 1;
+        }
+        for (int i = 0; i < mStageCount; i++) {
+            if (!mEnabled[i] || mTypes[i] != TYPE_POOLED || (reserved && i == producer)) {
+                continue;
+            }
+            int slot = 0;
+            while (slot < mSlotCount && mSlotBusyUntil[slot] >= i) {
+                slot++;
+            }
+            if (slot == mSlotCount) {
+                mSlotCount++;
+            }
+            mOutputSlots[i] = slot;
+            mSlotBusyUntil[slot] = mLastUse[i];
+        }
+    }
+
+    /**
+     * 扩容
+     */
+    private void grow(int capacity) {
+        int[] types = new int[capacity];
+        boolean[] enabled = new boolean[capacity];
+        System.arraycopy(mTypes, 0, types, 0, mStageCount);
+        System.arraycopy(mEnabled, 0, enabled, 0, mStageCount);
+        mTypes = types;
+        mEnabled = enabled;
+        mLastUse = new int[capacity];
+        mOutputSlots = new int[capacity];
+        mSlotBusyUntil = new int[capacity];
+    }
+
+    public int getStageCount() {
+        return mStageCount;
+    }
+
+    public boolean isStageEnabled(int stage) {
+        return mEnabled[stage];
+    }
+
+    public int getStageType(int stage) {
+        return mTypes[stage];
+    }
+
+    /**
+     * 获取阶段输出的FBO编号
+     * @param stage
+     * @return  编号，未启用或者不使用共享FBO时返回SLOT_NONE
+     */
+    public int getOutputSlot(int stage) {
+        return mOutputSlots[stage];
+    }
+
+    /**
+     * 获取阶段输出纹理最后一次被读取的阶段，整个链路结束之后仍被读取时为阶段个数
+     * @param stage
+     * @return  未启用的阶段返回-1
+     */
+    public int getLastUse(int stage) {
+        return mLastUse[stage];
+    }
+
+    /**
+     * 获取最终输出纹理所在的阶段
+     * @return  没有启用任何离屏阶段时返回-1
+     */
+    public int getOutputStage() {
+        return mOutputStage;
+    }
+
+    /**
+     * 需要的FBO个数
+     * @return
+     */
+    public int getSlotCount() {
+        return mSlotCount;
+    }
+
+    /**
+     * 共享FBO占用的显存大小
+     * @param width
+     * @param height
+     * @return  字节数
+     */
+    public long getFrameBufferBytes(int width, int height) {
+        return mSlotCount * getFrameBytes(width, height);
+    }
+
+    /**
+     * 一个RGBA FBO占用的显存大小
+     * @param width
+     * @param height
+     * @return
+     */
+    public static long getFrameBytes(int width, int height) {
+        return (long) width * height * BYTES_PER_PIXEL;
+    }
+}
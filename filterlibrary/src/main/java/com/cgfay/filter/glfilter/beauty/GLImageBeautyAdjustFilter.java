@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.beauty;
 
 import android.content.Context;
-import android.opengl.GLES20;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
@@ -32,9 +32,9 @@ class GLImageBeautyAdjustFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mBlurTextureHandle = GLES20.glGetUniformLocation(mProgramHandle, "blurTexture");
-        mBlurTexture2Handle = GLES20.glGetUniformLocation(mProgramHandle, "highPassBlurTexture");
-        mIntensityHandle = GLES20.glGetUniformLocation(mProgramHandle, "intensity");
+        mBlurTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "blurTexture");
+        mBlurTexture2Handle = GLES.glGetUniformLocation(mProgramHandle, "highPassBlurTexture");
+        mIntensityHandle = GLES.glGetUniformLocation(mProgramHandle, "intensity");
         mIntensity = 1.0f;
     }
 
@@ -43,7 +43,7 @@ class GLImageBeautyAdjustFilter extends GLImageFilter {
         super.onDrawFrameBegin();
         OpenGLUtils.bindTexture(mBlurTextureHandle, mBlurTexture, 1);
         OpenGLUtils.bindTexture(mBlurTexture2Handle, mHighPassBlurTexture, 2);
-        GLES20.glUniform1f(mIntensityHandle, mIntensity);
+        GLES.glUniform1f(mIntensityHandle, mIntensity);
     }
 
     /**
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.beauty;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
@@ -37,11 +37,11 @@ public class GLImageBeautyComplexionFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        grayTextureLoc = GLES30.glGetUniformLocation(mProgramHandle, "grayTexture");
-        lookupTextureLoc = GLES30.glGetUniformLocation(mProgramHandle, "lookupTexture");
-        levelRangeInvLoc = GLES30.glGetUniformLocation(mProgramHandle, "levelRangeInv");
-        levelBlackLoc = GLES30.glGetUniformLocation(mProgramHandle, "levelBlack");
-        alphaLoc = GLES30.glGetUniformLocation(mProgramHandle, "alpha");
+        grayTextureLoc = GLES.glGetUniformLocation(mProgramHandle, "grayTexture");
+        lookupTextureLoc = GLES.glGetUniformLocation(mProgramHandle, "lookupTexture");
+        levelRangeInvLoc = GLES.glGetUniformLocation(mProgramHandle, "levelRangeInv");
+        levelBlackLoc = GLES.glGetUniformLocation(mProgramHandle, "levelBlack");
+        alphaLoc = GLES.glGetUniformLocation(mProgramHandle, "alpha");
         createTexture();
         levelRangeInv = 1.040816f;
         levelBlack = 0.01960784f;
@@ -58,15 +58,15 @@ public class GLImageBeautyComplexionFilter extends GLImageFilter {
         super.onDrawFrameBegin();
         OpenGLUtils.bindTexture(grayTextureLoc, mGrayTexture, 1);
         OpenGLUtils.bindTexture(lookupTextureLoc, mLookupTexture, 2);
-        GLES30.glUniform1f(levelRangeInvLoc, levelRangeInv);
-        GLES30.glUniform1f(levelBlackLoc, levelBlack);
-        GLES30.glUniform1f(alphaLoc, alpha);
+        GLES.glUniform1f(levelRangeInvLoc, levelRangeInv);
+        GLES.glUniform1f(levelBlackLoc, levelBlack);
+        GLES.glUniform1f(alphaLoc, alpha);
     }
 
     @Override
     public void release() {
         super.release();
-        GLES30.glDeleteTextures(2, new int[]{ mGrayTexture, mLookupTexture }, 0);
+        GLES.glDeleteTextures(2, new int[]{ mGrayTexture, mLookupTexture }, 0);
     }
 
     /**
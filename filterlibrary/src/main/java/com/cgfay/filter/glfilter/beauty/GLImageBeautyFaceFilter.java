@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.beauty;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageDrawElementsFilter;
 import com.cgfay.filter.glfilter.base.GLImageGaussianBlurFilter;
 import com.cgfay.filter.glfilter.beauty.bean.BeautyParam;
@@ -117,17 +117,17 @@ public class GLImageBeautyFaceFilter extends GLImageDrawElementsFilter implement
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mBlurTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "blurTexture");
-            mBlurTexture2Handle = GLES30.glGetUniformLocation(mProgramHandle, "blurTexture2");
-            mMaskTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "maskTexture");
-            mTeethLookupTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "teethLookupTexture");
-
-            mBrightEyeStrengthHandle = GLES30.glGetUniformLocation(mProgramHandle, "brightEyeStrength");
-            mTeethStrengthHandle = GLES30.glGetUniformLocation(mProgramHandle, "teethStrength");
-            mNasolabialStrengthHandle = GLES30.glGetUniformLocation(mProgramHandle, "nasolabialStrength");
-            mFurrowStrengthHandle = GLES30.glGetUniformLocation(mProgramHandle, "furrowStrength");
-            mEyeBagStrengthHandle = GLES30.glGetUniformLocation(mProgramHandle, "eyeBagStrength");
-            mProcessTypeHandle = GLES30.glGetUniformLocation(mProgramHandle, "processType");
+            mBlurTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "blurTexture");
+            mBlurTexture2Handle = GLES.glGetUniformLocation(mProgramHandle, "blurTexture2");
+            mMaskTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "maskTexture");
+            mTeethLookupTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "teethLookupTexture");
+
+            mBrightEyeStrengthHandle = GLES.glGetUniformLocation(mProgramHandle, "brightEyeStrength");
+            mTeethStrengthHandle = GLES.glGetUniformLocation(mProgramHandle, "teethStrength");
+            mNasolabialStrengthHandle = GLES.glGetUniformLocation(mProgramHandle, "nasolabialStrength");
+            mFurrowStrengthHandle = GLES.glGetUniformLocation(mProgramHandle, "furrowStrength");
+            mEyeBagStrengthHandle = GLES.glGetUniformLocation(mProgramHandle, "eyeBagStrength");
+            mProcessTypeHandle = GLES.glGetUniformLocation(mProgramHandle, "processType");
         }
     }
 
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.beauty;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
@@ -26,7 +26,7 @@ class GLImageBeautyHighPassFilter extends GLImageFilter {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mBlurTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "blurTexture");
+        mBlurTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "blurTexture");
     }
 
     @Override
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.beauty;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.beauty.bean.BeautyParam;
 import com.cgfay.filter.glfilter.beauty.bean.IBeautify;
@@ -38,9 +38,9 @@ public class GLImageOldBeautyFilter extends GLImageFilter implements IBeautify {
     @Override
     public void initProgramHandle() {
         super.initProgramHandle();
-        mWidthLoc = GLES30.glGetUniformLocation(mProgramHandle, "width");
-        mHeightLoc = GLES30.glGetUniformLocation(mProgramHandle, "height");
-        mOpacityLoc = GLES30.glGetUniformLocation(mProgramHandle, "opacity");
+        mWidthLoc = GLES.glGetUniformLocation(mProgramHandle, "width");
+        mHeightLoc = GLES.glGetUniformLocation(mProgramHandle, "height");
+        mOpacityLoc = GLES.glGetUniformLocation(mProgramHandle, "opacity");
         setSkinBeautyLevel(1.0f);
     }
 
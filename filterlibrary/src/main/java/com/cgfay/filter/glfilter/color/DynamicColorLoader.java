@@ -2,16 +2,16 @@ package com.cgfay.filter.glfilter.color;
 
 import android.graphics.Bitmap;
 import android.net.Uri;
-import android.opengl.GLES30;
 import android.text.TextUtils;
 import android.util.Log;
 import android.util.Pair;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.color.bean.DynamicColorData;
 import com.cgfay.filter.glfilter.resource.ResourceCodec;
 import com.cgfay.filter.glfilter.resource.ResourceDataCodec;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
-import com.cgfay.uitls.utils.BitmapUtils;
+import com.cgfay.uitls.utils.BitmapPool;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
@@ -85,11 +85,11 @@ public class DynamicColorLoader {
                 bitmap = mResourceCodec.loadBitmap(mColorData.uniformDataList.get(dataIndex).value);
             }
             if (bitmap == null) {
-                bitmap = BitmapUtils.getBitmapFromFile(mFolderPath + "/" + String.format(mColorData.uniformDataList.get(dataIndex).value));
+                bitmap = BitmapPool.getInstance().decodeFile(mFolderPath + "/" + String.format(mColorData.uniformDataList.get(dataIndex).value));
             }
             if (bitmap != null) {
                 mTextureList[dataIndex] = OpenGLUtils.createTexture(bitmap);
-                bitmap.recycle();
+                BitmapPool.getInstance().put(bitmap);
             } else {
                 mTextureList[dataIndex] = OpenGLUtils.GL_NOT_TEXTURE;
             }
@@ -105,17 +105,17 @@ public class DynamicColorLoader {
         if (programHandle == OpenGLUtils.GL_NOT_INIT || mColorData == null) {
             return;
         }
-        mStrengthHandle = GLES30.glGetUniformLocation(programHandle, "strength");
+        mStrengthHandle = GLES.glGetUniformLocation(programHandle, "strength");
         if (mColorData.texelOffset) {
-            mTexelWidthOffsetHandle = GLES30.glGetUniformLocation(programHandle, "texelWidthOffset");
-            mTexelHeightOffsetHandle = GLES30.glGetUniformLocation(programHandle, "texelHeightOffset");
+            mTexelWidthOffsetHandle = GLES.glGetUniformLocation(programHandle, "texelWidthOffset");
+            mTexelHeightOffsetHandle = GLES.glGetUniformLocation(programHandle, "texelHeightOffset");
         } else {
             mTexelWidthOffsetHandle = OpenGLUtils.GL_NOT_INIT;
             mTexelHeightOffsetHandle = OpenGLUtils.GL_NOT_INIT;
         }
         for (int uniformIndex = 0; uniformIndex < mColorData.uniformList.size(); uniformIndex++) {
             String uniformString = mColorData.uniformList.get(uniformIndex);
-            int handle = GLES30.glGetUniformLocation(programHandle, uniformString);
+            int handle = GLES.glGetUniformLocation(programHandle, uniformString);
             mUniformHandleList.put(uniformString, handle);
         }
     }
@@ -135,13 +135,13 @@ public class DynamicColorLoader {
      */
     public void onDrawFrameBegin() {
         if (mStrengthHandle != OpenGLUtils.GL_NOT_INIT) {
-            GLES30.glUniform1f(mStrengthHandle, mStrength);
+            GLES.glUniform1f(mStrengthHandle, mStrength);
         }
         if (mTexelWidthOffsetHandle != OpenGLUtils.GL_NOT_INIT) {
-            GLES30.glUniform1f(mTexelWidthOffsetHandle, mTexelWidthOffset);
+            GLES.glUniform1f(mTexelWidthOffsetHandle, mTexelWidthOffset);
         }
         if (mTexelHeightOffsetHandle != OpenGLUtils.GL_NOT_INIT) {
-            GLES30.glUniform1f(mTexelHeightOffsetHandle, mTexelHeightOffset);
+            GLES.glUniform1f(mTexelHeightOffsetHandle, mTexelHeightOffset);
         }
 
         if (mTextureList == null || mColorData == null) {
@@ -164,7 +164,7 @@ public class DynamicColorLoader {
      */
     public void release() {
         if (mTextureList != null && mTextureList.length > 0) {
-            GLES30.glDeleteTextures(mTextureList.length, mTextureList, 0);
+            GLES.glDeleteTextures(mTextureList.length, mTextureList, 0);
             mTextureList = null;
         }
         if (mWeakFilter.get() != null) {
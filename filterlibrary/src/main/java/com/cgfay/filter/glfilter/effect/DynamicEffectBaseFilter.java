@@ -2,17 +2,17 @@ package com.cgfay.filter.glfilter.effect;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.opengl.GLES30;
 import android.text.TextUtils;
 import android.util.Log;
 import android.util.Pair;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.effect.bean.DynamicEffectData;
 import com.cgfay.filter.glfilter.resource.ResourceCodec;
 import com.cgfay.filter.glfilter.resource.ResourceDataCodec;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
-import com.cgfay.uitls.utils.BitmapUtils;
+import com.cgfay.uitls.utils.BitmapPool;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -81,7 +81,7 @@ public class DynamicEffectBaseFilter extends GLImageFilter {
                 for (int i = 0; i < mDynamicEffectData.uniformSamplerList.size(); i++) {
                     DynamicEffectData.UniformSampler sampler = mDynamicEffectData.uniformSamplerList.get(i);
                     if (sampler != null) {
-                        int uniform = GLES30.glGetUniformLocation(mProgramHandle, sampler.uniform);
+                        int uniform = GLES.glGetUniformLocation(mProgramHandle, sampler.uniform);
                         mUniformSamplerHandleList.put(sampler.uniform, uniform);
                         // 创建纹理
                         Bitmap bitmap = null;
@@ -89,11 +89,11 @@ public class DynamicEffectBaseFilter extends GLImageFilter {
                             bitmap = mResourceCodec.loadBitmap(sampler.value);
                         }
                         if (bitmap == null) {
-                            bitmap = BitmapUtils.getBitmapFromFile(mFolderPath + "/" + sampler.value);
+                            bitmap = BitmapPool.getInstance().decodeFile(mFolderPath + "/" + sampler.value);
                         }
                         if (bitmap != null) {
                             mTextureList[i] = OpenGLUtils.createTexture(bitmap);
-                            bitmap.recycle();
+                            BitmapPool.getInstance().put(bitmap);
                         } else {
                             mTextureList[i] = OpenGLUtils.GL_NOT_TEXTURE;
                         }
@@ -106,7 +106,7 @@ public class DynamicEffectBaseFilter extends GLImageFilter {
                 for (int i = 0; i < mDynamicEffectData.uniformDataList.size(); i++) {
                     DynamicEffectData.UniformData uniformData = mDynamicEffectData.uniformDataList.get(i);
                     if (uniformData != null) {
-                        int uniform = GLES30.glGetUniformLocation(mProgramHandle, uniformData.uniform);
+                        int uniform = GLES.glGetUniformLocation(mProgramHandle, uniformData.uniform);
                         mUniformDataHandleList.put(uniformData.uniform, uniform);
                     }
                 }
@@ -114,8 +114,8 @@ public class DynamicEffectBaseFilter extends GLImageFilter {
 
             // 是否需要绑定宽高
             if (mDynamicEffectData.texelSize) {
-                mTextureWidthHandle = GLES30.glGetUniformLocation(mProgramHandle, "textureWidth");
-                mTextureHeightHandle = GLES30.glGetUniformLocation(mProgramHandle, "textureHeight");
+                mTextureWidthHandle = GLES.glGetUniformLocation(mProgramHandle, "textureWidth");
+                mTextureHeightHandle = GLES.glGetUniformLocation(mProgramHandle, "textureHeight");
             } else {
                 mTextureWidthHandle = OpenGLUtils.GL_NOT_INIT;
                 mTextureHeightHandle = OpenGLUtils.GL_NOT_INIT;
@@ -139,7 +139,7 @@ public class DynamicEffectBaseFilter extends GLImageFilter {
                     // 绑定实际数值
                     int currentIndex = frameIndex % uniformData.value.length;
                     if (mUniformDataHandleList.get(uniformData.uniform) != null) {
-                        GLES30.glUniform1f(mUniformDataHandleList.get(uniformData.uniform), uniformData.value[currentIndex]);
+                        GLES.glUniform1f(mUniformDataHandleList.get(uniformData.uniform), uniformData.value[currentIndex]);
                     }
                 }
             }
@@ -156,8 +156,8 @@ public class DynamicEffectBaseFilter extends GLImageFilter {
 
         // 是否需要绑定宽高
         if (mDynamicEffectData.texelSize) {
-            GLES30.glUniform1i(mTextureWidthHandle, mImageWidth);
-            GLES30.glUniform1i(mTextureHeightHandle, mImageHeight);
+            GLES.glUniform1i(mTextureWidthHandle, mImageWidth);
+            GLES.glUniform1i(mTextureHeightHandle, mImageHeight);
         }
     }
 
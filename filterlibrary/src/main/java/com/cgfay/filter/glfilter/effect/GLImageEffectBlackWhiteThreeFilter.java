@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.effect;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -26,13 +26,13 @@ public class GLImageEffectBlackWhiteThreeFilter extends GLImageEffectFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mScaleHandle = GLES30.glGetUniformLocation(mProgramHandle, "scale");
+            mScaleHandle = GLES.glGetUniformLocation(mProgramHandle, "scale");
         }
     }
 
     @Override
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
-        GLES30.glUniform1f(mScaleHandle, mScale);
+        GLES.glUniform1f(mScaleHandle, mScale);
     }
 }
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.effect;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -25,14 +25,14 @@ public class GLImageEffectGlitterWhiteFilter extends GLImageEffectFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mColorHandle = GLES30.glGetUniformLocation(mProgramHandle, "color");
+            mColorHandle = GLES.glGetUniformLocation(mProgramHandle, "color");
         }
     }
 
     @Override
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
-        GLES30.glUniform1f(mColorHandle, color);
+        GLES.glUniform1f(mColorHandle, color);
     }
 
     @Override
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.effect;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageGaussianBlurFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
@@ -41,9 +41,9 @@ public class GLImageEffectMultiBlurFilter extends GLImageEffectFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mBlurTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "blurTexture");
-            mBlurOffsetYHandle = GLES30.glGetUniformLocation(mProgramHandle, "blurOffsetY");
-            mScaleHandle = GLES30.glGetUniformLocation(mProgramHandle, "scale");
+            mBlurTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "blurTexture");
+            mBlurOffsetYHandle = GLES.glGetUniformLocation(mProgramHandle, "blurOffsetY");
+            mScaleHandle = GLES.glGetUniformLocation(mProgramHandle, "scale");
             setBlurOffset(0.33f);
         }
     }
@@ -54,7 +54,7 @@ public class GLImageEffectMultiBlurFilter extends GLImageEffectFilter {
         if (mBlurTexture != OpenGLUtils.GL_NOT_TEXTURE) {
             OpenGLUtils.bindTexture(mBlurTextureHandle, mBlurTexture, 1);
         }
-        GLES30.glUniform1f(mScaleHandle, mScale);
+        GLES.glUniform1f(mScaleHandle, mScale);
     }
 
     @Override
@@ -114,7 +114,7 @@ public class GLImageEffectMultiBlurFilter extends GLImageEffectFilter {
             mGaussianBlurFilter = null;
         }
         if (mBlurTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-            GLES30.glDeleteTextures(1, new int[]{mBlurTexture}, 0);
+            GLES.glDeleteTextures(1, new int[]{mBlurTexture}, 0);
         }
     }
 
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.effect;
 
 import android.content.Context;
-import android.opengl.GLES20;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
 /**
@@ -27,14 +27,14 @@ public class GLImageEffectSoulStuffFilter extends GLImageEffectFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mScaleHandle = GLES20.glGetUniformLocation(mProgramHandle, "scale");
+            mScaleHandle = GLES.glGetUniformLocation(mProgramHandle, "scale");
         }
     }
 
     @Override
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
-        GLES20.glUniform1f(mScaleHandle, mScale);
+        GLES.glUniform1f(mScaleHandle, mScale);
     }
 
     @Override
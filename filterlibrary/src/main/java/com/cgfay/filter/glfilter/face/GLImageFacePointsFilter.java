@@ -3,12 +3,12 @@ package com.cgfay.filter.glfilter.face;
 import android.content.Context;
 import android.opengl.GLES30;
 import android.text.TextUtils;
-import android.util.SparseArray;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+import com.cgfay.filter.glfilter.utils.ProgramCache;
 import com.cgfay.landmark.LandmarkEngine;
-import com.cgfay.landmark.OneFace;
 
 import java.nio.FloatBuffer;
 
@@ -54,9 +54,9 @@ public class GLImageFacePointsFilter extends GLImageFilter {
     public void initProgramHandle() {
         // 只有在shader都不为空的情况下才初始化程序句柄
         if (!TextUtils.isEmpty(mVertexShader) && !TextUtils.isEmpty(mFragmentShader)) {
-            mProgramHandle = OpenGLUtils.createProgram(mVertexShader, mFragmentShader);
-            mPositionHandle = GLES30.glGetAttribLocation(mProgramHandle, "aPosition");
-            mColorHandle = GLES30.glGetUniformLocation(mProgramHandle, "color");
+            mProgramHandle = ProgramCache.getInstance().acquire(mVertexShader, mFragmentShader);
+            mPositionHandle = GLES.glGetAttribLocation(mProgramHandle, "aPosition");
+            mColorHandle = GLES.glGetUniformLocation(mProgramHandle, "color");
             mIsInitialized = true;
         } else {
             mPositionHandle = OpenGLUtils.GL_NOT_INIT;
@@ -80,35 +80,31 @@ public class GLImageFacePointsFilter extends GLImageFilter {
             return false;
         }
         // 设置视口大小
-        GLES30.glViewport(0, 0, mDisplayWidth, mDisplayHeight);
+        GLES.glViewport(0, 0, mDisplayWidth, mDisplayHeight);
         // 使用当前的program
-        GLES30.glUseProgram(mProgramHandle);
+        GLES.glUseProgram(mProgramHandle);
         // 运行延时任务
         runPendingOnDrawTasks();
         // 使能顶点句柄
-        GLES30.glEnableVertexAttribArray(mPositionHandle);
+        GLES.glEnableVertexAttribArray(mPositionHandle);
         // 绑定颜色
-        GLES30.glUniform4fv(mColorHandle, 1, color, 0);
+        GLES.glUniform4fv(mColorHandle, 1, color, 0);
         onDrawFrameBegin();
         // 逐个顶点绘制出来
         synchronized (this) {
-            if (LandmarkEngine.getInstance().getFaceSize() > 0) {
-                SparseArray<OneFace> faceArrays = LandmarkEngine.getInstance().getFaceArrays();
-                for (int i = 0; i < faceArrays.size(); i++) {
-                    if (faceArrays.get(i).vertexPoints != null) {
-                        LandmarkEngine.getInstance().calculateExtraFacePoints(mPoints, i);
-                        mPointVertexBuffer.clear();
-                        mPointVertexBuffer.put(mPoints, 0, mPoints.length);
-                        mPointVertexBuffer.position(0);
-                        GLES30.glVertexAttribPointer(mPositionHandle, 2,
-                                GLES30.GL_FLOAT, false, 8, mPointVertexBuffer);
-                        GLES30.glDrawArrays(GLES30.GL_POINTS, 0, mPointCount);
-                    }
-                }
+            int faceCount = LandmarkEngine.getInstance().getFaceSize();
+            for (int i = 0; i < faceCount; i++) {
+                LandmarkEngine.getInstance().calculateExtraFacePoints(mPoints, i);
+                mPointVertexBuffer.clear();
+                mPointVertexBuffer.put(mPoints, 0, mPoints.length);
+                mPointVertexBuffer.position(0);
+                GLES.glVertexAttribPointer(mPositionHandle, 2,
+                        GLES30.GL_FLOAT, false, 8, mPointVertexBuffer);
+                GLES.glDrawArrays(GLES30.GL_POINTS, 0, mPointCount);
             }
         }
         onDrawFrameAfter();
-        GLES30.glDisableVertexAttribArray(mPositionHandle);
+        GLES.glDisableVertexAttribArray(mPositionHandle);
         return true;
     }
 
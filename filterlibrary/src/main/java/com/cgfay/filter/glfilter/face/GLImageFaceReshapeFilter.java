@@ -1,9 +1,9 @@
 package com.cgfay.filter.glfilter.face;
 
 import android.content.Context;
-import android.opengl.GLES20;
 import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageDrawElementsFilter;
 import com.cgfay.filter.glfilter.beauty.bean.BeautyParam;
 import com.cgfay.filter.glfilter.beauty.bean.IBeautify;
@@ -57,11 +57,11 @@ public class GLImageFaceReshapeFilter extends GLImageDrawElementsFilter implemen
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mCartesianPointsHandle = GLES30.glGetUniformLocation(mProgramHandle, "cartesianPoints");
-            mReshapeIntensityHandle = GLES30.glGetUniformLocation(mProgramHandle, "reshapeIntensity");
-            mTextureWidthHandle = GLES30.glGetUniformLocation(mProgramHandle, "textureWidth");
-            mTextureHeightHandle = GLES30.glGetUniformLocation(mProgramHandle, "textureHeight");
-            mEnableReshapeHandle = GLES30.glGetUniformLocation(mProgramHandle, "enableReshape");
+            mCartesianPointsHandle = GLES.glGetUniformLocation(mProgramHandle, "cartesianPoints");
+            mReshapeIntensityHandle = GLES.glGetUniformLocation(mProgramHandle, "reshapeIntensity");
+            mTextureWidthHandle = GLES.glGetUniformLocation(mProgramHandle, "textureWidth");
+            mTextureHeightHandle = GLES.glGetUniformLocation(mProgramHandle, "textureHeight");
+            mEnableReshapeHandle = GLES.glGetUniformLocation(mProgramHandle, "enableReshape");
         }
     }
 
@@ -123,11 +123,11 @@ public class GLImageFaceReshapeFilter extends GLImageDrawElementsFilter implemen
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
         // 不能开启GL_CULL_FACE，会导致索引绘制出错
-        GLES30.glDisable(GL10.GL_CULL_FACE);
-        GLES30.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
-        GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT);
-        GLES20.glUniform1fv(mReshapeIntensityHandle, 7, FloatBuffer.wrap(mReshapeIntensity));
-        GLES30.glUniform2fv(mCartesianPointsHandle, FacePoints, mCartesianBuffer);
+        GLES.glDisable(GL10.GL_CULL_FACE);
+        GLES.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
+        GLES.glClear(GLES30.GL_COLOR_BUFFER_BIT);
+        GLES.glUniform1fv(mReshapeIntensityHandle, 7, FloatBuffer.wrap(mReshapeIntensity));
+        GLES.glUniform2fv(mCartesianPointsHandle, FacePoints, mCartesianBuffer);
     }
 
     /**
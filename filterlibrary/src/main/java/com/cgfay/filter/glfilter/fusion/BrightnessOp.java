@@ -0,0 +1,45 @@
+package com.cgfay.filter.glfilter.fusion;
+
+import com.cgfay.filter.gles.GLES;
+
+/**
+ * 亮度，对应fragment_brightness.glsl
+ */
+public class BrightnessOp extends ColorOp {
+
+    private static final String[] TYPES = { "lowp float" };
+    private static final String[] NAMES = { "brightness" };
+
+    private float mBrightness;
+
+    public void setBrightness(float brightness) {
+        mBrightness = brightness;
+    }
+
+    @Override
+    public String[] getUniformTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public String[] getUniformNames() {
+        return NAMES;
+    }
+
+    @Override
+    public String getFunctionBody() {
+        return "    return vec4(color.rgb + vec3($brightness), color.a);\n";
+    }
+
+    @Override
+    public void uploadUniforms(int[] locations, int textureUnit) {
+        GLES.glUniform1f(locations[0], mBrightness);
+    }
+
+    @Override
+    public void apply(float[] rgba, float u, float v) {
+        for (int i = 0; i < 3; i++) {
+            rgba[i] += mBrightness;
+        }
+    }
+}
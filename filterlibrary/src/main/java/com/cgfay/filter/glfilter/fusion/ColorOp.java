@@ -0,0 +1,58 @@
+package com.cgfay.filter.glfilter.fusion;
+
+/**
+ * 逐像素的颜色运算，可以跟相邻的颜色运算合并到同一个shader中
+ * 每个运算生成一个GLSL函数 vec4 name(vec4 color, vec2 uv)，uniform名称中的'$'会被替换成该阶段的前缀，
+ * 同时提供一份CPU参考实现，用于校验生成的shader
+ */
+public abstract class ColorOp {
+
+    /**
+     * uniform声明，跟getUniformNames一一对应，比如 "lowp float"
+     * @return
+     */
+    public abstract String[] getUniformTypes();
+
+    /**
+     * uniform名称，不带前缀
+     * @return
+     */
+    public abstract String[] getUniformNames();
+
+    /**
+     * GLSL函数体，输入为color和uv，返回处理后的颜色，uniform通过'$'+名称引用
+     * @return
+     */
+    public abstract String getFunctionBody();
+
+    /**
+     * 上传uniform的值
+     * @param locations     跟getUniformNames一一对应的句柄
+     * @param textureUnit   可以使用的第一个纹理单元
+     */
+    public abstract void uploadUniforms(int[] locations, int textureUnit);
+
+    /**
+     * 占用的纹理单元个数
+     * @return
+     */
+    public int getTextureCount() {
+        return 0;
+    }
+
+    /**
+     * CPU参考实现
+     * @param rgba  输入输出颜色，0.0 ~ 1.0
+     * @param u     纹理坐标
+     * @param v     纹理坐标
+     */
+    public abstract void apply(float[] rgba, float u, float v);
+
+    static float clamp(float value) {
+        return value < 0.0f ? 0.0f : (value > 1.0f ? 1.0f : value);
+    }
+
+    static float mix(float x, float y, float a) {
+        return x * (1.0f - a) + y * a;
+    }
+}
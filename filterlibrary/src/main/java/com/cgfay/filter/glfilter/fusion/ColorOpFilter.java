@@ -0,0 +1,13 @@
+package com.cgfay.filter.glfilter.fusion;
+
+/**
+ * 可以合并到颜色管线中的滤镜
+ */
+public interface ColorOpFilter {
+
+    /**
+     * 获取滤镜对应的颜色运算，返回的对象带有滤镜当前的参数
+     * @return
+     */
+    ColorOp getColorOp();
+}
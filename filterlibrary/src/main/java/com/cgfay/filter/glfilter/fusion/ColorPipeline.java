@@ -0,0 +1,111 @@
+package com.cgfay.filter.glfilter.fusion;
+
+import android.content.Context;
+
+import com.cgfay.filter.glfilter.base.GLImageFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 颜色管线
+ * 把连续的逐像素颜色运算合并到一个shader中，原本每个运算一次全屏绘制和一个FBO，合并之后只需要一次。
+ * 分开绘制时每个阶段的结果写入RGBA8的FBO，会被截断到0.0 ~ 1.0，合并后的shader在每个阶段之后clamp，保持结果一致。
+ */
+public final class ColorPipeline {
+
+    private ColorPipeline() {
+
+    }
+
+    /**
+     * 第index个阶段的uniform前缀
+     * @param index
+     * @return
+     */
+    public static String getPrefix(int index) {
+        return "s" + index + "_";
+    }
+
+    /**
+     * 生成合并后的fragment shader
+     * @param ops
+     * @return
+     */
+    public static String buildFragmentShader(List<ColorOp> ops) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("precision mediump float;\n")
+                .append("varying highp vec2 textureCoordinate;\n")
+                .append("uniform sampler2D inputTexture;\n");
+        for (int i = 0; i < ops.size(); i++) {
+            String[] types = ops.get(i).getUniformTypes();
+            String[] names = ops.get(i).getUniformNames();
+            for (int j = 0; j < names.length; j++) {
+                builder.append("uniform ").append(types[j]).append(' ')
+                        .append(getPrefix(i)).append(names[j]).append(";\n");
+            }
+        }
+        for (int i = 0; i < ops.size(); i++) {
+            builder.append('\n')
+                    .append("highp vec4 stage").append(i).append("(highp vec4 color, highp vec2 uv) {\n")
+                    .append(ops.get(i).getFunctionBody().replace("$", getPrefix(i)))
+                    .append("}\n");
+        }
+        builder.append('\n')
+                .append("void main() {\n")
+                .append("    highp vec4 color = texture2D(inputTexture, textureCoordinate);\n");
+        for (int i = 0; i < ops.size(); i++) {
+            builder.append("    color = clamp(stage").append(i)
+                    .append("(color, textureCoordinate), 0.0, 1.0);\n");
+        }
+        builder.append("    gl_FragColor = color;\n")
+                .append("}\n");
+        return builder.toString();
+    }
+
+    /**
+     * CPU参考实现，依次执行每个运算，每个阶段之后截断到0.0 ~ 1.0
+     * @param ops
+     * @param rgba
+     * @param u
+     * @param v
+     */
+    public static void apply(List<ColorOp> ops, float[] rgba, float u, float v) {
+        for (int i = 0; i < ops.size(); i++) {
+            ops.get(i).apply(rgba, u, v);
+            for (int j = 0; j < 4; j++) {
+                rgba[j] = ColorOp.clamp(rgba[j]);
+            }
+        }
+    }
+
+    /**
+     * 合并滤镜链中连续的颜色滤镜，不足两个的不合并
+     * @param context
+     * @param filters   原始滤镜链，不会被修改
+     * @return 合并后用于绘制的滤镜链，没有可合并的滤镜时返回原始滤镜链
+     */
+    public static List<GLImageFilter> fuse(Context context, List<GLImageFilter> filters) {
+        List<GLImageFilter> result = new ArrayList<>();
+        List<GLImageFilter> run = new ArrayList<>();
+        boolean fused = false;
+        for (int i = 0; i <= filters.size(); i++) {
+            GLImageFilter filter = i < filters.size() ? filters.get(i) : null;
+            if (filter instanceof ColorOpFilter) {
+                run.add(filter);
+                continue;
+            }
+            if (run.size() > 1) {
+                result.add(new GLImageColorPipelineFilter(context, run));
+                fused = true;
+            } else {
+                result.addAll(run);
+            }
+            run = new ArrayList<>();
+            if (filter != null) {
+                result.add(filter);
+            }
+        }
+        return fused ? result : filters;
+    }
+}
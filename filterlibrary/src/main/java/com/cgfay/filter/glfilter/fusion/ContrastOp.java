@@ -0,0 +1,45 @@
+package com.cgfay.filter.glfilter.fusion;
+
+import com.cgfay.filter.gles.GLES;
+
+/**
+ * 对比度，对应fragment_contrast.glsl
+ */
+public class ContrastOp extends ColorOp {
+
+    private static final String[] TYPES = { "lowp float" };
+    private static final String[] NAMES = { "contrast" };
+
+    private float mContrast = 1.0f;
+
+    public void setContrast(float contrast) {
+        mContrast = contrast;
+    }
+
+    @Override
+    public String[] getUniformTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public String[] getUniformNames() {
+        return NAMES;
+    }
+
+    @Override
+    public String getFunctionBody() {
+        return "    return vec4((color.rgb - vec3(0.5)) * $contrast + vec3(0.5), color.a);\n";
+    }
+
+    @Override
+    public void uploadUniforms(int[] locations, int textureUnit) {
+        GLES.glUniform1f(locations[0], mContrast);
+    }
+
+    @Override
+    public void apply(float[] rgba, float u, float v) {
+        for (int i = 0; i < 3; i++) {
+            rgba[i] = (rgba[i] - 0.5f) * mContrast + 0.5f;
+        }
+    }
+}
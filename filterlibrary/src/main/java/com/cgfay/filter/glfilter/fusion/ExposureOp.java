@@ -0,0 +1,46 @@
+package com.cgfay.filter.glfilter.fusion;
+
+import com.cgfay.filter.gles.GLES;
+
+/**
+ * 曝光，对应fragment_exposure.glsl
+ */
+public class ExposureOp extends ColorOp {
+
+    private static final String[] TYPES = { "highp float" };
+    private static final String[] NAMES = { "exposure" };
+
+    private float mExposure;
+
+    public void setExposure(float exposure) {
+        mExposure = exposure;
+    }
+
+    @Override
+    public String[] getUniformTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public String[] getUniformNames() {
+        return NAMES;
+    }
+
+    @Override
+    public String getFunctionBody() {
+        return "    return vec4(color.rgb * pow(2.0, $exposure), color.a);\n";
+    }
+
+    @Override
+    public void uploadUniforms(int[] locations, int textureUnit) {
+        GLES.glUniform1f(locations[0], mExposure);
+    }
+
+    @Override
+    public void apply(float[] rgba, float u, float v) {
+        float scale = (float) Math.pow(2.0, mExposure);
+        for (int i = 0; i < 3; i++) {
+            rgba[i] *= scale;
+        }
+    }
+}
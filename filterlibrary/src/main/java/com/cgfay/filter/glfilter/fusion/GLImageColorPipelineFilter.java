@@ -0,0 +1,129 @@
+package com.cgfay.filter.glfilter.fusion;
+
+import android.content.Context;
+
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.glfilter.base.GLImageFilter;
+import com.cgfay.filter.glfilter.utils.ProgramCache;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 合并后的颜色滤镜，一次绘制完成多个颜色滤镜
+ * 参数仍然通过原来的滤镜设置，绘制时从各个滤镜读取；某个滤镜被禁用时重新生成不包含它的shader
+ */
+public class GLImageColorPipelineFilter extends GLImageFilter {
+
+    // 合并的滤镜
+    private final List<GLImageFilter> mMembers;
+    // 当前shader中包含的运算，以及对应的uniform句柄
+    private final List<ColorOp> mOps = new ArrayList<>();
+    private final List<int[]> mLocations = new ArrayList<>();
+    // 当前shader中包含的滤镜
+    private long mEnableMask;
+
+    public GLImageColorPipelineFilter(Context context, List<GLImageFilter> members) {
+        super(context, VERTEX_SHADER, null);
+        mMembers = new ArrayList<>(members);
+        if (mMembers.size() > Long.SIZE) {
+            throw new IllegalArgumentException("too many filters to fuse: " + mMembers.size());
+        }
+        rebuildProgram(getEnableMask());
+    }
+
+    /**
+     * 获取合并的滤镜
+     * @return
+     */
+    public List<GLImageFilter> getMembers() {
+        return mMembers;
+    }
+
+    /**
+     * 获取当前生成的shader
+     * @return
+     */
+    public String getFragmentShader() {
+        return mFragmentShader;
+    }
+
+    private long getEnableMask() {
+        long mask = 0;
+        for (int i = 0; i < mMembers.size(); i++) {
+            if (mMembers.get(i).isFilterEnable()) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 根据启用的滤镜重新生成program
+     * @param mask
+     */
+    private void rebuildProgram(long mask) {
+        if (mIsInitialized) {
+            ProgramCache.getInstance().release(mVertexShader, mFragmentShader, mProgramHandle);
+        }
+        mEnableMask = mask;
+        mOps.clear();
+        for (int i = 0; i < mMembers.size(); i++) {
+            if ((mask & (1L << i)) != 0) {
+                mOps.add(((ColorOpFilter) mMembers.get(i)).getColorOp());
+            }
+        }
+        mFragmentShader = ColorPipeline.buildFragmentShader(mOps);
+        initProgramHandle();
+        mLocations.clear();
+        for (int i = 0; i < mOps.size(); i++) {
+            String[] names = mOps.get(i).getUniformNames();
+            int[] locations = new int[names.length];
+            for (int j = 0; j < names.length; j++) {
+                locations[j] = GLES.glGetUniformLocation(mProgramHandle,
+                        ColorPipeline.getPrefix(i) + names[j]);
+            }
+            mLocations.add(locations);
+        }
+    }
+
+    @Override
+    public boolean drawFrame(int textureId, FloatBuffer vertexBuffer, FloatBuffer textureBuffer) {
+        checkEnableMask();
+        return super.drawFrame(textureId, vertexBuffer, textureBuffer);
+    }
+
+    @Override
+    public int drawFrameBuffer(int textureId, FloatBuffer vertexBuffer, FloatBuffer textureBuffer) {
+        checkEnableMask();
+        return super.drawFrameBuffer(textureId, vertexBuffer, textureBuffer);
+    }
+
+    /**
+     * 启用的滤镜发生变化时重新生成program，全部禁用时直接跳过
+     */
+    private void checkEnableMask() {
+        long mask = getEnableMask();
+        if (mask != mEnableMask) {
+            rebuildProgram(mask);
+        }
+        mFilterEnable = mask != 0;
+    }
+
+    @Override
+    public void onDrawFrameBegin() {
+        super.onDrawFrameBegin();
+        // 输入纹理占用0号纹理单元
+        int textureUnit = 1;
+        int index = 0;
+        for (int i = 0; i < mMembers.size(); i++) {
+            if ((mEnableMask & (1L << i)) != 0) {
+                // 读取滤镜当前的参数
+                ColorOp op = ((ColorOpFilter) mMembers.get(i)).getColorOp();
+                op.uploadUniforms(mLocations.get(index++), textureUnit);
+                textureUnit += op.getTextureCount();
+            }
+        }
+    }
+}
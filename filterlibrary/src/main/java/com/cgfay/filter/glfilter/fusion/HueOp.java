@@ -0,0 +1,64 @@
+package com.cgfay.filter.glfilter.fusion;
+
+import com.cgfay.filter.gles.GLES;
+
+/**
+ * 色调，对应fragment_hue.glsl，在YIQ空间中旋转色相
+ */
+public class HueOp extends ColorOp {
+
+    private static final String[] TYPES = { "mediump float" };
+    private static final String[] NAMES = { "hueAdjust" };
+
+    // 弧度
+    private float mHueAdjust;
+
+    public void setHueAdjust(float hueAdjust) {
+        mHueAdjust = hueAdjust;
+    }
+
+    @Override
+    public String[] getUniformTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public String[] getUniformNames() {
+        return NAMES;
+    }
+
+    @Override
+    public String getFunctionBody() {
+        return "    highp float YPrime = dot(color.rgb, vec3(0.299, 0.587, 0.114));\n"
+                + "    highp float I = dot(color.rgb, vec3(0.595716, -0.274453, -0.321263));\n"
+                + "    highp float Q = dot(color.rgb, vec3(0.211456, -0.522591, 0.31135));\n"
+                + "    highp float hue = atan(Q, I) - $hueAdjust;\n"
+                + "    highp float chroma = sqrt(I * I + Q * Q);\n"
+                + "    highp vec3 yIQ = vec3(YPrime, chroma * cos(hue), chroma * sin(hue));\n"
+                + "    return vec4(dot(yIQ, vec3(1.0, 0.9563, 0.6210)),\n"
+                + "                dot(yIQ, vec3(1.0, -0.2721, -0.6474)),\n"
+                + "                dot(yIQ, vec3(1.0, -1.1070, 1.7046)), color.a);\n";
+    }
+
+    @Override
+    public void uploadUniforms(int[] locations, int textureUnit) {
+        GLES.glUniform1f(locations[0], mHueAdjust);
+    }
+
+    @Override
+    public void apply(float[] rgba, float u, float v) {
+        float r = rgba[0];
+        float g = rgba[1];
+        float b = rgba[2];
+        double y = 0.299 * r + 0.587 * g + 0.114 * b;
+        double i = 0.595716 * r - 0.274453 * g - 0.321263 * b;
+        double q = 0.211456 * r - 0.522591 * g + 0.31135 * b;
+        double hue = Math.atan2(q, i) - mHueAdjust;
+        double chroma = Math.sqrt(i * i + q * q);
+        i = chroma * Math.cos(hue);
+        q = chroma * Math.sin(hue);
+        rgba[0] = (float) (y + 0.9563 * i + 0.6210 * q);
+        rgba[1] = (float) (y - 0.2721 * i - 0.6474 * q);
+        rgba[2] = (float) (y - 1.1070 * i + 1.7046 * q);
+    }
+}
@@ -0,0 +1,114 @@
+package com.cgfay.filter.glfilter.fusion;
+
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+
+/**
+ * 512 x 512的查找表，对应fragment_lookup_table_512.glsl
+ */
+public class LookupTableOp extends ColorOp {
+
+    private static final int SIZE = 512;
+    private static final String[] TYPES = { "sampler2D", "lowp float" };
+    private static final String[] NAMES = { "lookupTableTexture", "strength" };
+
+    private int mTexture = OpenGLUtils.GL_NOT_TEXTURE;
+    private float mStrength = 1.0f;
+    // CPU参考实现使用的查找表像素(ARGB)，GPU绘制时不需要
+    private int[] mPixels;
+
+    public void setTexture(int texture) {
+        mTexture = texture;
+    }
+
+    public void setStrength(float strength) {
+        mStrength = strength;
+    }
+
+    public void setPixels(int[] pixels) {
+        mPixels = pixels;
+    }
+
+    @Override
+    public String[] getUniformTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public String[] getUniformNames() {
+        return NAMES;
+    }
+
+    @Override
+    public int getTextureCount() {
+        return 1;
+    }
+
+    @Override
+    public String getFunctionBody() {
+        return "    mediump float blueColor = color.b * 63.0;\n"
+                + "    mediump vec2 quad1;\n"
+                + "    quad1.y = floor(blueColor / 8.0);\n"
+                + "    quad1.x = floor(blueColor) - (quad1.y * 8.0);\n"
+                + "    mediump vec2 quad2;\n"
+                + "    quad2.y = floor(ceil(blueColor) / 7.999);\n"
+                + "    quad2.x = ceil(blueColor) - (quad2.y * 8.0);\n"
+                + "    highp vec2 offset = 0.5 / 512.0 + (0.125 - 1.0 / 512.0) * color.rg;\n"
+                + "    lowp vec4 newColor1 = texture2D($lookupTableTexture, quad1 * 0.125 + offset);\n"
+                + "    lowp vec4 newColor2 = texture2D($lookupTableTexture, quad2 * 0.125 + offset);\n"
+                + "    lowp vec4 newColor = mix(newColor1, newColor2, fract(blueColor));\n"
+                + "    return mix(color, vec4(newColor.rgb, color.a), $strength);\n";
+    }
+
+    @Override
+    public void uploadUniforms(int[] locations, int textureUnit) {
+        OpenGLUtils.bindTexture(locations[0], mTexture, textureUnit);
+        GLES.glUniform1f(locations[1], mStrength);
+    }
+
+    @Override
+    public void apply(float[] rgba, float u, float v) {
+        if (mPixels == null) {
+            return;
+        }
+        float blueColor = rgba[2] * 63.0f;
+        float quad1y = (float) Math.floor(blueColor / 8.0f);
+        float quad1x = (float) Math.floor(blueColor) - quad1y * 8.0f;
+        float quad2y = (float) Math.floor(Math.ceil(blueColor) / 7.999f);
+        float quad2x = (float) Math.ceil(blueColor) - quad2y * 8.0f;
+        float offsetX = 0.5f / SIZE + (0.125f - 1.0f / SIZE) * rgba[0];
+        float offsetY = 0.5f / SIZE + (0.125f - 1.0f / SIZE) * rgba[1];
+        float[] color1 = new float[3];
+        float[] color2 = new float[3];
+        sample(quad1x * 0.125f + offsetX, quad1y * 0.125f + offsetY, color1);
+        sample(quad2x * 0.125f + offsetX, quad2y * 0.125f + offsetY, color2);
+        float fract = blueColor - (float) Math.floor(blueColor);
+        for (int i = 0; i < 3; i++) {
+            rgba[i] = mix(rgba[i], mix(color1[i], color2[i], fract), mStrength);
+        }
+    }
+
+    /**
+     * 双线性采样，跟GL_LINEAR一致
+     */
+    private void sample(float s, float t, float[] out) {
+        float x = s * SIZE - 0.5f;
+        float y = t * SIZE - 0.5f;
+        int x0 = (int) Math.floor(x);
+        int y0 = (int) Math.floor(y);
+        float fx = x - x0;
+        float fy = y - y0;
+        for (int i = 0; i < 3; i++) {
+            int shift = 16 - i * 8;
+            float top = mix(texel(x0, y0, shift), texel(x0 + 1, y0, shift), fx);
+            float bottom = mix(texel(x0, y0 + 1, shift), texel(x0 + 1, y0 + 1, shift), fx);
+            out[i] = mix(top, bottom, fy);
+        }
+    }
+
+    private float texel(int x, int y, int shift) {
+        x = Math.max(0, Math.min(SIZE - 1, x));
+        y = Math.max(0, Math.min(SIZE - 1, y));
+        return ((mPixels[y * SIZE + x] >> shift) & 0xff) / 255.0f;
+    }
+}
@@ -0,0 +1,47 @@
+package com.cgfay.filter.glfilter.fusion;
+
+import com.cgfay.filter.gles.GLES;
+
+/**
+ * 饱和度，对应fragment_saturation.glsl
+ */
+public class SaturationOp extends ColorOp {
+
+    private static final String[] TYPES = { "lowp float" };
+    private static final String[] NAMES = { "inputLevel" };
+
+    private float mSaturation = 1.0f;
+
+    public void setSaturation(float saturation) {
+        mSaturation = saturation;
+    }
+
+    @Override
+    public String[] getUniformTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public String[] getUniformNames() {
+        return NAMES;
+    }
+
+    @Override
+    public String getFunctionBody() {
+        return "    lowp float luminance = dot(color.rgb, vec3(0.2125, 0.7154, 0.0721));\n"
+                + "    return vec4(mix(vec3(luminance), color.rgb, $inputLevel), color.a);\n";
+    }
+
+    @Override
+    public void uploadUniforms(int[] locations, int textureUnit) {
+        GLES.glUniform1f(locations[0], mSaturation);
+    }
+
+    @Override
+    public void apply(float[] rgba, float u, float v) {
+        float luminance = rgba[0] * 0.2125f + rgba[1] * 0.7154f + rgba[2] * 0.0721f;
+        for (int i = 0; i < 3; i++) {
+            rgba[i] = mix(luminance, rgba[i], mSaturation);
+        }
+    }
+}
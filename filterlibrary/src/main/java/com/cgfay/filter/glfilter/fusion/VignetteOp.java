@@ -0,0 +1,70 @@
+package com.cgfay.filter.glfilter.fusion;
+
+import com.cgfay.filter.gles.GLES;
+
+/**
+ * 暗角，对应fragment_vignette.glsl
+ */
+public class VignetteOp extends ColorOp {
+
+    private static final String[] TYPES = { "lowp vec2", "lowp vec3", "highp float", "highp float" };
+    private static final String[] NAMES = { "vignetteCenter", "vignetteColor", "vignetteStart", "vignetteEnd" };
+
+    private final float[] mCenter = { 0.5f, 0.5f };
+    private final float[] mColor = { 0.0f, 0.0f, 0.0f };
+    private float mStart = 0.3f;
+    private float mEnd = 0.75f;
+
+    public void setCenter(float x, float y) {
+        mCenter[0] = x;
+        mCenter[1] = y;
+    }
+
+    public void setColor(float[] color) {
+        System.arraycopy(color, 0, mColor, 0, 3);
+    }
+
+    public void setStart(float start) {
+        mStart = start;
+    }
+
+    public void setEnd(float end) {
+        mEnd = end;
+    }
+
+    @Override
+    public String[] getUniformTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public String[] getUniformNames() {
+        return NAMES;
+    }
+
+    @Override
+    public String getFunctionBody() {
+        return "    lowp float percent = smoothstep($vignetteStart, $vignetteEnd, distance(uv, $vignetteCenter));\n"
+                + "    return vec4(mix(color.rgb, $vignetteColor, percent), 1.0);\n";
+    }
+
+    @Override
+    public void uploadUniforms(int[] locations, int textureUnit) {
+        GLES.glUniform2fv(locations[0], 1, mCenter, 0);
+        GLES.glUniform3fv(locations[1], 1, mColor, 0);
+        GLES.glUniform1f(locations[2], mStart);
+        GLES.glUniform1f(locations[3], mEnd);
+    }
+
+    @Override
+    public void apply(float[] rgba, float u, float v) {
+        float dx = u - mCenter[0];
+        float dy = v - mCenter[1];
+        float t = clamp(((float) Math.sqrt(dx * dx + dy * dy) - mStart) / (mEnd - mStart));
+        float percent = t * t * (3.0f - 2.0f * t);
+        for (int i = 0; i < 3; i++) {
+            rgba[i] = mix(rgba[i], mColor[i], percent);
+        }
+        rgba[3] = 1.0f;
+    }
+}
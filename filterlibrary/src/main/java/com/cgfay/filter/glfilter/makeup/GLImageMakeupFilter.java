@@ -4,6 +4,7 @@ import android.content.Context;
 import android.opengl.GLES30;
 import android.util.SparseArray;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.makeup.bean.DynamicMakeup;
 import com.cgfay.filter.glfilter.makeup.bean.MakeupBaseData;
@@ -60,10 +61,10 @@ public class GLImageMakeupFilter extends GLImageFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mMaskTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "maskTexture");
-            mMaterialTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "materialTexture");
-            mStrengthHandle = GLES30.glGetUniformLocation(mProgramHandle, "strength");
-            mMakeupTypeHandle = GLES30.glGetUniformLocation(mProgramHandle, "makeupType");
+            mMaskTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "maskTexture");
+            mMaterialTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "materialTexture");
+            mStrengthHandle = GLES.glGetUniformLocation(mProgramHandle, "strength");
+            mMakeupTypeHandle = GLES.glGetUniformLocation(mProgramHandle, "makeupType");
         }
     }
 
@@ -71,7 +72,7 @@ public class GLImageMakeupFilter extends GLImageFilter {
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
         // 直接绘制原图时需要用到
-        GLES30.glUniform1i(mMakeupTypeHandle, 0);
+        GLES.glUniform1i(mMakeupTypeHandle, 0);
     }
 
     @Override
@@ -217,56 +218,56 @@ public class GLImageMakeupFilter extends GLImageFilter {
             return;
         }
 
-        GLES30.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, frameBuffer);
-        GLES30.glUseProgram(mProgramHandle);
+        GLES.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, frameBuffer);
+        GLES.glUseProgram(mProgramHandle);
         runPendingOnDrawTasks();
         // 使能混合功能
-        GLES30.glEnable(GLES30.GL_BLEND);
-        GLES30.glBlendFunc(GLES30.GL_ONE, GLES30.GL_ONE_MINUS_SRC_COLOR);
+        GLES.glEnable(GLES30.GL_BLEND);
+        GLES.glBlendFunc(GLES30.GL_ONE, GLES30.GL_ONE_MINUS_SRC_COLOR);
         // 绑定顶点坐标缓冲
         if (vertexBuffer != null) {
             vertexBuffer.position(0);
-            GLES30.glVertexAttribPointer(mPositionHandle, 2,
+            GLES.glVertexAttribPointer(mPositionHandle, 2,
                     GLES30.GL_FLOAT, false, 0, vertexBuffer);
-            GLES30.glEnableVertexAttribArray(mPositionHandle);
+            GLES.glEnableVertexAttribArray(mPositionHandle);
         }
         // 绑定纹理坐标缓冲，绘制彩妆时，需要绑定遮罩的纹理坐标缓冲，这里是为了节省资源做的复用流程
         if (textureBuffer != null) {
             textureBuffer.position(0);
-            GLES30.glVertexAttribPointer(mTextureCoordinateHandle, 2,
+            GLES.glVertexAttribPointer(mTextureCoordinateHandle, 2,
                     GLES30.GL_FLOAT, false, 0, textureBuffer);
-            GLES30.glEnableVertexAttribArray(mTextureCoordinateHandle);
+            GLES.glEnableVertexAttribArray(mTextureCoordinateHandle);
         }
 
         // 绑定输入纹理
-        GLES30.glActiveTexture(GLES30.GL_TEXTURE0);
-        GLES30.glBindTexture(getTextureType(), inputTexture);
-        GLES30.glUniform1i(mInputTextureHandle, 0);
+        GLES.glActiveTexture(GLES30.GL_TEXTURE0);
+        GLES.glBindTexture(getTextureType(), inputTexture);
+        GLES.glUniform1i(mInputTextureHandle, 0);
 
         // 绑定素材纹理，素材纹理可能不存在，不存在时不需要绑定
         if (materialTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-            GLES30.glActiveTexture(GLES30.GL_TEXTURE1);
-            GLES30.glBindTexture(getTextureType(), materialTexture);
-            GLES30.glUniform1i(mMaterialTextureHandle, 1);
+            GLES.glActiveTexture(GLES30.GL_TEXTURE1);
+            GLES.glBindTexture(getTextureType(), materialTexture);
+            GLES.glUniform1i(mMaterialTextureHandle, 1);
         }
 
         // 绑定遮罩纹理，遮罩纹理有可能不存在，不存在时不需要绑定
         if (maskTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-            GLES30.glActiveTexture(GLES30.GL_TEXTURE2);
-            GLES30.glBindTexture(getTextureType(), maskTexture);
-            GLES30.glUniform1i(mMaskTextureHandle, 2);
+            GLES.glActiveTexture(GLES30.GL_TEXTURE2);
+            GLES.glBindTexture(getTextureType(), maskTexture);
+            GLES.glUniform1i(mMaskTextureHandle, 2);
         }
-        GLES30.glUniform1i(mMakeupTypeHandle, makeupType);
-        GLES30.glUniform1f(mStrengthHandle, strength);
+        GLES.glUniform1i(mMakeupTypeHandle, makeupType);
+        GLES.glUniform1f(mStrengthHandle, strength);
 
-        GLES30.glDrawElements(GLES30.GL_TRIANGLES, indexBuffer.capacity(), GLES30.GL_UNSIGNED_SHORT, indexBuffer);
+        GLES.glDrawElements(GLES30.GL_TRIANGLES, indexBuffer.capacity(), GLES30.GL_UNSIGNED_SHORT, indexBuffer);
 
-        GLES30.glDisableVertexAttribArray(mPositionHandle);
-        GLES30.glDisableVertexAttribArray(mTextureCoordinateHandle);
-        GLES30.glBindTexture(getTextureType(), 0);
-        GLES30.glDisable(GLES30.GL_BLEND);
+        GLES.glDisableVertexAttribArray(mPositionHandle);
+        GLES.glDisableVertexAttribArray(mTextureCoordinateHandle);
+        GLES.glBindTexture(getTextureType(), 0);
+        GLES.glDisable(GLES30.GL_BLEND);
 
-        GLES30.glUseProgram(0);
-        GLES30.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+        GLES.glUseProgram(0);
+        GLES.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
     }
 }
@@ -2,16 +2,17 @@ package com.cgfay.filter.glfilter.makeup;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.opengl.GLES30;
 import android.util.Log;
 import android.util.Pair;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.makeup.bean.MakeupBaseData;
 import com.cgfay.filter.glfilter.makeup.bean.MakeupLipstickData;
 import com.cgfay.filter.glfilter.makeup.bean.MakeupNormaData;
 import com.cgfay.filter.glfilter.resource.ResourceCodec;
 import com.cgfay.filter.glfilter.resource.ResourceDataCodec;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+import com.cgfay.uitls.utils.BitmapPool;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
@@ -141,7 +142,7 @@ public abstract class MakeupBaseLoader {
         // 如果数据为空，则需要销毁旧的素材纹理数据
         if (mMakeupData == null) {
             if (mMaterialTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-                GLES30.glDeleteTextures(1, new int[] { mMaterialTexture }, 0);
+                GLES.glDeleteTextures(1, new int[] { mMaterialTexture }, 0);
                 mMaterialTexture = OpenGLUtils.GL_NOT_TEXTURE;
             }
             return;
@@ -170,11 +171,11 @@ public abstract class MakeupBaseLoader {
         // 判断是否取得素材或者lut纹理图片
         if (bitmap != null) {
             if (mMaterialTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-                GLES30.glDeleteTextures(1, new int[] { mMaterialTexture }, 0);
+                GLES.glDeleteTextures(1, new int[] { mMaterialTexture }, 0);
                 mMaterialTexture = OpenGLUtils.GL_NOT_TEXTURE;
             }
             mMaterialTexture = OpenGLUtils.createTexture(bitmap);
-            bitmap.recycle();
+            BitmapPool.getInstance().put(bitmap);
         } else {
             mMaterialTexture = OpenGLUtils.GL_NOT_TEXTURE;
         }
@@ -196,7 +197,7 @@ public abstract class MakeupBaseLoader {
      */
     public void reset() {
         if (mMaskTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-            GLES30.glDeleteTextures(1, new int[] { mMaskTexture }, 0);
+            GLES.glDeleteTextures(1, new int[] { mMaskTexture }, 0);
             mMaskTexture = OpenGLUtils.GL_NOT_TEXTURE;
         }
         mEnableRender = false;
@@ -207,11 +208,11 @@ public abstract class MakeupBaseLoader {
      */
     public void release() {
         if (mMaskTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-            GLES30.glDeleteTextures(1, new int[] { mMaskTexture }, 0);
+            GLES.glDeleteTextures(1, new int[] { mMaskTexture }, 0);
             mMaskTexture = OpenGLUtils.GL_NOT_TEXTURE;
         }
         if (mMaterialTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-            GLES30.glDeleteTextures(1, new int[] { mMaterialTexture }, 0);
+            GLES.glDeleteTextures(1, new int[] { mMaterialTexture }, 0);
             mMaterialTexture = OpenGLUtils.GL_NOT_TEXTURE;
         }
         mWeakFilter.clear();
@@ -278,7 +279,7 @@ public abstract class MakeupBaseLoader {
         } else {
             mStrength = 0.0f;
             if (mMaterialTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-                GLES30.glDeleteTextures(1, new int[] {mMaterialTexture}, 0);
+                GLES.glDeleteTextures(1, new int[] {mMaterialTexture}, 0);
                 mMaterialTexture = OpenGLUtils.GL_NOT_TEXTURE;
             }
         }
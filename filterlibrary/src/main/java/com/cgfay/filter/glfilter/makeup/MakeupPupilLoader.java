@@ -1,7 +1,6 @@
 package com.cgfay.filter.glfilter.makeup;
 
-import android.opengl.GLES30;
-
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.makeup.bean.MakeupBaseData;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 import com.cgfay.landmark.LandmarkEngine;
@@ -91,12 +90,12 @@ public class MakeupPupilLoader extends MakeupBaseLoader {
      */
     private void destroyFrameBuffer() {
         if (mFrameBufferTexture != null) {
-            GLES30.glDeleteTextures(1, mFrameBufferTexture, 0);
+            GLES.glDeleteTextures(1, mFrameBufferTexture, 0);
             mFrameBufferTexture = null;
         }
 
         if (mFrameBuffer != null) {
-            GLES30.glDeleteFramebuffers(1, mFrameBuffer, 0);
+            GLES.glDeleteFramebuffers(1, mFrameBuffer, 0);
             mFrameBuffer = null;
         }
     }
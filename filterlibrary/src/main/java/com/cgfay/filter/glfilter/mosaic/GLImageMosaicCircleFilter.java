@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.mosaic;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
@@ -30,9 +30,9 @@ public class GLImageMosaicCircleFilter extends GLImageFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mImageWidthHandle = GLES30.glGetUniformLocation(mProgramHandle, "imageWidth");
-            mImageHeightHandle = GLES30.glGetUniformLocation(mProgramHandle, "imageHeight");
-            mMosaicSizeLoc = GLES30.glGetUniformLocation(mProgramHandle, "mosaicSize");
+            mImageWidthHandle = GLES.glGetUniformLocation(mProgramHandle, "imageWidth");
+            mImageHeightHandle = GLES.glGetUniformLocation(mProgramHandle, "imageHeight");
+            mMosaicSizeLoc = GLES.glGetUniformLocation(mProgramHandle, "mosaicSize");
             setMosaicSize(30.0f);
         }
     }
@@ -40,9 +40,9 @@ public class GLImageMosaicCircleFilter extends GLImageFilter {
     @Override
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
-        GLES30.glUniform1f(mMosaicSizeLoc, mMosaicSize);
-        GLES30.glUniform1f(mImageWidthHandle, mImageWidth);
-        GLES30.glUniform1f(mImageHeightHandle, mImageHeight);
+        GLES.glUniform1f(mMosaicSizeLoc, mMosaicSize);
+        GLES.glUniform1f(mImageWidthHandle, mImageWidth);
+        GLES.glUniform1f(mImageHeightHandle, mImageHeight);
     }
 
     /**
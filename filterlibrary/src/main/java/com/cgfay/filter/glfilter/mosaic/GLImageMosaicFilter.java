@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.mosaic;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
@@ -25,9 +25,9 @@ public class GLImageMosaicFilter extends GLImageFilter {
 
     public GLImageMosaicFilter(Context context, String vertexShader, String fragmentShader) {
         super(context, vertexShader, fragmentShader);
-        mImageWidthFactorLoc = GLES30.glGetUniformLocation(mProgramHandle, "imageWidthFactor");
-        mImageHeightFactorLoc = GLES30.glGetUniformLocation(mProgramHandle, "imageHeightFactor");
-        mMosaicSizeLoc = GLES30.glGetUniformLocation(mProgramHandle, "mosaicSize");
+        mImageWidthFactorLoc = GLES.glGetUniformLocation(mProgramHandle, "imageWidthFactor");
+        mImageHeightFactorLoc = GLES.glGetUniformLocation(mProgramHandle, "imageHeightFactor");
+        mMosaicSizeLoc = GLES.glGetUniformLocation(mProgramHandle, "mosaicSize");
         setMosaicSize(1.0f);
     }
 
@@ -41,9 +41,9 @@ public class GLImageMosaicFilter extends GLImageFilter {
     @Override
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
-        GLES30.glUniform1f(mMosaicSizeLoc, mMosaicSize);
-        GLES30.glUniform1f(mImageWidthFactorLoc, mImageWidthFactor);
-        GLES30.glUniform1f(mImageHeightFactorLoc, mImageHeightFactor);
+        GLES.glUniform1f(mMosaicSizeLoc, mMosaicSize);
+        GLES.glUniform1f(mImageWidthFactorLoc, mImageWidthFactor);
+        GLES.glUniform1f(mImageHeightFactorLoc, mImageHeightFactor);
     }
 
     /**
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.mosaic;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
@@ -27,7 +27,7 @@ public class GLImageMosaicHexagonFilter extends GLImageFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mMosaicSizeHandle = GLES30.glGetUniformLocation(mProgramHandle, "mosaicSize");
+            mMosaicSizeHandle = GLES.glGetUniformLocation(mProgramHandle, "mosaicSize");
             setMosaicSize(30.0f);
         }
     }
@@ -35,7 +35,7 @@ public class GLImageMosaicHexagonFilter extends GLImageFilter {
     @Override
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
-        GLES30.glUniform1f(mMosaicSizeHandle, mMosaicSize * (1.0f / Math.min(mImageWidth, mImageHeight)));
+        GLES.glUniform1f(mMosaicSizeHandle, mMosaicSize * (1.0f / Math.min(mImageWidth, mImageHeight)));
     }
 
     /**
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.multiframe;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 
@@ -27,7 +27,7 @@ public class GLImageDrosteFilter extends GLImageFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mRepeatHandle = GLES30.glGetUniformLocation(mProgramHandle, "repeat");
+            mRepeatHandle = GLES.glGetUniformLocation(mProgramHandle, "repeat");
             setRepeat(4);
         }
     }
@@ -1,8 +1,8 @@
 package com.cgfay.filter.glfilter.multiframe;
 
 import android.content.Context;
-import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageGaussianBlurFilter;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
@@ -41,9 +41,9 @@ public class GLImageFrameEdgeBlurFilter extends GLImageFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mBlurTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "blurTexture");
-            mBlurOffsetXHandle = GLES30.glGetUniformLocation(mProgramHandle, "blurOffsetX");
-            mBlurOffsetYHandle = GLES30.glGetUniformLocation(mProgramHandle, "blurOffsetY");
+            mBlurTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "blurTexture");
+            mBlurOffsetXHandle = GLES.glGetUniformLocation(mProgramHandle, "blurOffsetX");
+            mBlurOffsetYHandle = GLES.glGetUniformLocation(mProgramHandle, "blurOffsetY");
             setBlurOffset(0.15f, 0.15f);
         }
     }
@@ -113,7 +113,7 @@ public class GLImageFrameEdgeBlurFilter extends GLImageFilter {
             mGaussianBlurFilter = null;
         }
         if (mBlurTexture != OpenGLUtils.GL_NOT_TEXTURE) {
-            GLES30.glDeleteTextures(1, new int[]{mBlurTexture}, 0);
+            GLES.glDeleteTextures(1, new int[]{mBlurTexture}, 0);
         }
     }
 
@@ -1,15 +1,16 @@
 package com.cgfay.filter.glfilter.resource;
 
+import android.graphics.Bitmap;
 import android.text.TextUtils;
 import android.util.Log;
 import android.util.Pair;
 
+import com.cgfay.uitls.utils.BitmapPool;
 import com.cgfay.uitls.utils.FileUtils;
 
 import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -38,9 +39,11 @@ public class ResourceCodec {
     // 数据文件路径
     private String mDataPath;
 
-    // 索引绑定
-    protected Map<String, Pair<Integer, Integer>> mIndexMap;
-    // 数据缓冲
+    // 资源索引
+    protected ResourceIndex mIndex;
+    // 数据文件
+    protected ResourceDataFile mDataFile;
+    // 数据缓冲，只读的映射区域
     protected ByteBuffer mDataBuffer;
 
     public ResourceCodec(String indexPath, String dataPath) {
@@ -53,80 +56,56 @@ public class ResourceCodec {
      * @throws Exception
      */
     public void init() throws IOException {
-        mIndexMap = parseIndexFile(mIndexPath);
-        File file = new File(mDataPath);
-        // 将资源数据读入缓存中
-        mDataBuffer = ByteBuffer.allocateDirect((int)file.length());
-        FileInputStream inputStream = new FileInputStream(file);
-        byte[] buffer = new byte[2048];
-        boolean result = false;
-        try {
-            int length;
-            while ((length = inputStream.read(buffer)) != -1) {
-                mDataBuffer.put(buffer, 0, length);
-            }
-            result = true;
-        } catch (IOException e) {
-            Log.e(TAG, "init: ", e);
-        } finally {
-            FileUtils.safetyClose(inputStream);
-        }
-        if (!result) {
-            throw new IOException("Failed to parse data file!");
-        }
+        mIndex = parseIndexFile(mIndexPath);
+        // 将资源数据映射到内存，耗时与数据文件大小无关
+        mDataFile = ResourceDataFile.open(mDataPath);
+        mDataBuffer = mDataFile.getBuffer();
     }
 
     /**
-     * 解码Index索引文件
-     * @param indexPath
+     * 从映射区域中直接解码图片，解码时复用BitmapPool中的Bitmap，使用完毕后应放回BitmapPool
+     * @param offset    资源起始位置
+     * @param length    资源大小
      * @return
-     * @throws IOException
      */
-    private static Map<String, Pair<Integer, Integer>> parseIndexFile(String indexPath) throws IOException {
-        String indexString = FileUtils.convertToString(new FileInputStream(new File(indexPath)));
-        HashMap<String, Pair<Integer, Integer>> map = new HashMap<>();
-        // 拆分得到贴纸索引
-        String[] indexArray = indexString.split(";");
-        for (int i = 0; i < indexArray.length; ++i) {
-            if (!TextUtils.isEmpty(indexArray[i])) {
-                // ":" 分成3个，第一个是贴纸名，第二是文件起始位置，第三个是贴纸大小
-                String[] subIndexArray = indexArray[i].split(":");
-                if (subIndexArray.length == 3) {
-                    int offset = parseInt(subIndexArray[1], -1);
-                    int length = parseInt(subIndexArray[2], -1);
-                    if (-1 == offset || -1 == length) {
-                        throw new IOException("Failed to parse offset or length for " + indexArray[i]);
-                    }
-                    map.put(subIndexArray[0], new Pair<>(offset, length));
-                }
-            }
+    protected Bitmap decodeBitmap(int offset, int length) {
+        if (mDataFile == null) {
+            return null;
         }
-        return map;
+        InputStream inputStream = mDataFile.openStream(offset, length);
+        if (inputStream == null) {
+            return null;
+        }
+        return BitmapPool.getInstance().decodeStream(inputStream);
     }
 
     /**
-     * 将字符串转成整型数
-     * @param str
-     * @param defaultValue
+     * 读取索引文件，旧版文本索引在读取后转换为二进制索引，下次直接读取二进制索引
+     * @param indexPath
      * @return
+     * @throws IOException
      */
-    private static int parseInt(String str, int defaultValue) {
-        int result = defaultValue;
-        try {
-            result = Integer.parseInt(str);
-        } catch (NumberFormatException e) {
-            Log.e(TAG, "parseInt: ", e);
+    private static ResourceIndex parseIndexFile(String indexPath) throws IOException {
+        File file = new File(indexPath);
+        ResourceIndex index = ResourceIndex.read(file);
+        if (ResourceIndex.LEGACY_INDEX_NAME.equals(file.getName())) {
+            try {
+                index.write(new File(file.getParentFile(), ResourceIndex.BINARY_INDEX_NAME));
+            } catch (IOException e) {
+                Log.e(TAG, "parseIndexFile: failed to convert legacy index", e);
+            }
         }
-        return result;
+        return index;
     }
 
     /**
-     * 获取资源的路径，Pair对象包括索引文件和数据文件
+     * 获取资源的路径，Pair对象包括索引文件和数据文件，二进制索引优先于旧版文本索引
      * @param folder
      * @return
      */
     public static Pair<String, String> getResourceFile(String folder) {
         String index = null;
+        String legacyIndex = null;
         String data = null;
         File file = new File(folder);
         String[] list = file.list();
@@ -134,12 +113,17 @@ public class ResourceCodec {
             return null;
         }
         for (int i = 0; i < list.length; ++i) {
-            if (list[i].equals("index.idx")) {
+            if (list[i].equals(ResourceIndex.BINARY_INDEX_NAME)) {
                 index = list[i];
+            } else if (list[i].equals(ResourceIndex.LEGACY_INDEX_NAME)) {
+                legacyIndex = list[i];
             } else if (list[i].equals("resource.res")) {
                 data = list[i];
             }
         }
+        if (TextUtils.isEmpty(index)) {
+            index = legacyIndex;
+        }
         if (!TextUtils.isEmpty(index) && !TextUtils.isEmpty(data)) {
             return new Pair<>(index, data);
         } else {
@@ -224,37 +208,21 @@ public class ResourceCodec {
                 sizeHashMap.put(fileName, (int)fileDescription.size);
             }
 
-            // 创建索引字符串
+            // 写入二进制索引文件
             sizeMap.put((String) entry.getKey(), offsetHashMap);
-            StringBuilder builder = new StringBuilder();
-            Iterator indexIterator = offsetHashMap.entrySet().iterator();
-            while (indexIterator.hasNext()) {
-                Map.Entry indexEntry = (Map.Entry)indexIterator.next();
-                builder.append((String)indexEntry.getKey())
-                        .append(':')
-                        .append(indexEntry.getValue())
-                        .append(':')
-                        .append(sizeHashMap.get(indexEntry.getKey()))
-                        .append(';');
-            }
-
-            // 写入索引文件
-            boolean success = false;
-            FileOutputStream outputStream = null;
-            File file;
-            try {
-                file = new File(folder + "/" + (String)entry.getKey(), "index.idx");
-                outputStream = new FileOutputStream(file);
-                outputStream.write(builder.toString().getBytes("UTF-8"));
-                success = true;
-            } catch (Exception e) {
-                Log.e(TAG, "writeLinesToFile failed!", e);
-            } finally {
-                FileUtils.safetyClose(outputStream);
-            }
-            if(!success) {
-                throw new IOException("write index file failed!");
+            int count = offsetHashMap.size();
+            String[] names = new String[count];
+            int[] offsets = new int[count];
+            int[] lengths = new int[count];
+            int position = 0;
+            for (Map.Entry<String, Integer> indexEntry : offsetHashMap.entrySet()) {
+                names[position] = indexEntry.getKey();
+                offsets[position] = indexEntry.getValue();
+                lengths[position] = sizeHashMap.get(indexEntry.getKey());
+                position++;
             }
+            File file = new File(folder + "/" + (String)entry.getKey(), ResourceIndex.BINARY_INDEX_NAME);
+            ResourceIndex.create(names, offsets, lengths).write(file);
 
             // 创建AccessFile用于写入data数据
             file = new File(folder + "/" + (String)entry.getKey(), "resource.res");
@@ -313,6 +281,10 @@ public class ResourceCodec {
                         outputStream.close();
                     }
 
+                    // 旧版文本索引转换为二进制索引
+                    if (ResourceIndex.LEGACY_INDEX_NAME.equals(file.getName())) {
+                        ResourceIndex.convertLegacy(file);
+                    }
                 }
 
             }
@@ -1,9 +1,10 @@
 package com.cgfay.filter.glfilter.resource;
 
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.util.Pair;
 
+import java.nio.ByteBuffer;
+
 /**
  * 数据解码器
  */
@@ -19,20 +20,19 @@ public class ResourceDataCodec extends ResourceCodec {
      * @return
      */
     public Bitmap loadBitmap(String name) {
-        Pair pair = mIndexMap.get(name);
-        if (pair == null) {
+        int index = mIndex.indexOf(name);
+        if (index < 0) {
             return null;
         }
-        return BitmapFactory.decodeByteArray(mDataBuffer.array(),
-                mDataBuffer.arrayOffset() + (Integer) pair.first, (Integer) pair.second);
+        return decodeBitmap(mIndex.getOffset(index), mIndex.getLength(index));
     }
 
     /**
      * 获取文件缓冲
-     * @return
+     * @return 数据文件经过内存映射，不存在堆数组，返回只读的映射缓冲
      */
-    public byte[] getBufferArray() {
-        return mDataBuffer.array();
+    public ByteBuffer getDataBuffer() {
+        return mDataBuffer;
     }
 
     /**
@@ -41,11 +41,10 @@ public class ResourceDataCodec extends ResourceCodec {
      * @return
      */
     public Pair<Integer, Integer> getResourcePair(String path) {
-        Pair pair = (Pair) mIndexMap.get(path);
-        if (pair == null) {
+        int index = mIndex.indexOf(path);
+        if (index < 0) {
             return null;
         }
-        return new Pair<>(((Integer) pair.first) + mDataBuffer.arrayOffset(),
-                (Integer) pair.second);
+        return new Pair<>(mIndex.getOffset(index), mIndex.getLength(index));
     }
 }
@@ -0,0 +1,108 @@
+package com.cgfay.filter.glfilter.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 资源数据文件，通过FileChannel.map将resource.res映射到内存
+ * 映射操作与数据文件大小无关，读取资源时直接从映射区域切片解码，不再整体拷贝到堆内存中
+ */
+public class ResourceDataFile {
+
+    // 映射后的数据缓冲
+    private final MappedByteBuffer mBuffer;
+
+    private ResourceDataFile(MappedByteBuffer buffer) {
+        mBuffer = buffer;
+    }
+
+    /**
+     * 以只读方式映射数据文件
+     * @param path  数据文件路径
+     * @return      数据文件对象
+     * @throws IOException
+     */
+    public static ResourceDataFile open(String path) throws IOException {
+        return open(new File(path));
+    }
+
+    /**
+     * 以只读方式映射数据文件
+     * @param file  数据文件
+     * @return      数据文件对象
+     * @throws IOException
+     */
+    public static ResourceDataFile open(File file) throws IOException {
+        RandomAccessFile accessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = accessFile.getChannel();
+            // 映射建立之后，关闭文件通道不会影响已映射的区域
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ResourceDataFile(buffer);
+        } finally {
+            accessFile.close();
+        }
+    }
+
+    /**
+     * 数据文件大小
+     * @return
+     */
+    public int size() {
+        return mBuffer.capacity();
+    }
+
+    /**
+     * 获取整个映射缓冲的只读视图
+     * @return
+     */
+    public ByteBuffer getBuffer() {
+        return mBuffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * 判断资源区间是否合法
+     * @param offset    起始位置
+     * @param length    资源大小
+     * @return
+     */
+    public boolean contains(int offset, int length) {
+        return offset >= 0 && length >= 0 && offset <= mBuffer.capacity() - length;
+    }
+
+    /**
+     * 获取资源所在的切片，切片与映射区域共享内存，不发生拷贝
+     * @param offset    起始位置
+     * @param length    资源大小
+     * @return          资源切片，区间非法时返回null
+     */
+    public ByteBuffer slice(int offset, int length) {
+        if (!contains(offset, length)) {
+            return null;
+        }
+        // duplicate 之后再修改position/limit，避免多个线程同时读取时互相影响
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.limit(offset + length);
+        buffer.position(offset);
+        return buffer.slice();
+    }
+
+    /**
+     * 打开资源输入流，用于BitmapFactory.decodeStream直接从映射区域解码
+     * @param offset    起始位置
+     * @param length    资源大小
+     * @return          输入流，区间非法时返回null
+     */
+    public InputStream openStream(int offset, int length) {
+        ByteBuffer buffer = slice(offset, length);
+        if (buffer == null) {
+            return null;
+        }
+        return new ByteBufferInputStream(buffer);
+    }
+}
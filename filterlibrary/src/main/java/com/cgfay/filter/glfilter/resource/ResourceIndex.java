@@ -0,0 +1,336 @@
+package com.cgfay.filter.glfilter.resource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 资源索引，文件名按字典序排列，偏移和大小保存在int数组中，避免装箱
+ * 二进制格式(index.bin)：
+ *   int magic, int version, int count,
+ *   count * (UTF name, int offset, int length, int frame)
+ * 查找时通过开放寻址的哈希表得到文件名下标，复杂度O(1)
+ */
+public final class ResourceIndex {
+
+    // 二进制索引文件名
+    public static final String BINARY_INDEX_NAME = "index.bin";
+    // 旧版文本索引文件名
+    public static final String LEGACY_INDEX_NAME = "index.idx";
+
+    // 文件头标识 "CRIX"
+    private static final int MAGIC = 0x43524958;
+    // 格式版本
+    private static final int VERSION = 1;
+
+    // 文件名列表，字典序
+    private final String[] mNames;
+    // 资源起始位置
+    private final int[] mOffsets;
+    // 资源大小
+    private final int[] mLengths;
+    // 帧序号，文件名不含序号时为-1
+    private final int[] mFrames;
+    // 哈希槽，保存文件名下标 + 1，0表示空槽
+    private final int[] mSlots;
+    // 最大帧序号
+    private final int mMaxFrame;
+
+    private ResourceIndex(String[] names, int[] offsets, int[] lengths, int[] frames) {
+        mNames = names;
+        mOffsets = offsets;
+        mLengths = lengths;
+        mFrames = frames;
+        int maxFrame = -1;
+        for (int frame : frames) {
+            maxFrame = Math.max(maxFrame, frame);
+        }
+        mMaxFrame = maxFrame;
+        // 装载因子不超过0.5
+        int capacity = Integer.highestOneBit(Math.max(names.length, 1) * 2 - 1) << 1;
+        mSlots = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < names.length; i++) {
+            int slot = mix(names[i].hashCode()) & mask;
+            while (mSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            mSlots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * 根据未排序的条目创建索引，文件名重复时与旧版一样以最后一个条目为准
+     * @param names     文件名
+     * @param offsets   起始位置
+     * @param lengths   资源大小
+     * @return
+     */
+    public static ResourceIndex create(final String[] names, int[] offsets, int[] lengths) {
+        int count = names.length;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return names[o1].compareTo(names[o2]);
+            }
+        });
+        String[] sortedNames = new String[count];
+        int[] sortedOffsets = new int[count];
+        int[] sortedLengths = new int[count];
+        int[] frames = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int index = order[i];
+            // 排序是稳定的，同名条目保持原来的先后顺序，后面的覆盖前面的
+            int position = size > 0 && names[index].equals(sortedNames[size - 1]) ? size - 1 : size++;
+            sortedNames[position] = names[index];
+            sortedOffsets[position] = offsets[index];
+            sortedLengths[position] = lengths[index];
+            frames[position] = parseFrame(names[index]);
+        }
+        if (size < count) {
+            sortedNames = Arrays.copyOf(sortedNames, size);
+            sortedOffsets = Arrays.copyOf(sortedOffsets, size);
+            sortedLengths = Arrays.copyOf(sortedLengths, size);
+            frames = Arrays.copyOf(frames, size);
+        }
+        return new ResourceIndex(sortedNames, sortedOffsets, sortedLengths, frames);
+    }
+
+    /**
+     * 读取索引文件，优先读取二进制索引，否则解析旧版文本索引
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static ResourceIndex read(File file) throws IOException {
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            if (LEGACY_INDEX_NAME.equals(file.getName())) {
+                return parseLegacy(readString(inputStream));
+            }
+            return readBinary(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * 读取二进制索引
+     * @param stream
+     * @return
+     * @throws IOException
+     */
+    public static ResourceIndex readBinary(InputStream stream) throws IOException {
+        DataInputStream inputStream = new DataInputStream(stream);
+        if (inputStream.readInt() != MAGIC) {
+            throw new IOException("Not a binary resource index");
+        }
+        int version = inputStream.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported resource index version: " + version);
+        }
+        int count = inputStream.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid resource index count: " + count);
+        }
+        String[] names = new String[count];
+        int[] offsets = new int[count];
+        int[] lengths = new int[count];
+        int[] frames = new int[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = inputStream.readUTF();
+            offsets[i] = inputStream.readInt();
+            lengths[i] = inputStream.readInt();
+            frames[i] = inputStream.readInt();
+            if (i > 0 && names[i - 1].compareTo(names[i]) >= 0) {
+                throw new IOException("Resource index is not sorted at " + names[i]);
+            }
+        }
+        return new ResourceIndex(names, offsets, lengths, frames);
+    }
+
+    /**
+     * 解析旧版文本索引，格式为 name:offset:length;name:offset:length;...
+     * @param indexString
+     * @return
+     * @throws IOException
+     */
+    public static ResourceIndex parseLegacy(String indexString) throws IOException {
+        String[] indexArray = indexString.split(";");
+        String[] names = new String[indexArray.length];
+        int[] offsets = new int[indexArray.length];
+        int[] lengths = new int[indexArray.length];
+        int count = 0;
+        for (int i = 0; i < indexArray.length; ++i) {
+            if (indexArray[i].isEmpty()) {
+                continue;
+            }
+            // ":" 分成3个，第一个是贴纸名，第二是文件起始位置，第三个是贴纸大小
+            String[] subIndexArray = indexArray[i].split(":");
+            if (subIndexArray.length != 3) {
+                continue;
+            }
+            try {
+                offsets[count] = Integer.parseInt(subIndexArray[1]);
+                lengths[count] = Integer.parseInt(subIndexArray[2]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Failed to parse offset or length for " + indexArray[i]);
+            }
+            names[count] = subIndexArray[0];
+            count++;
+        }
+        return create(Arrays.copyOf(names, count), Arrays.copyOf(offsets, count),
+                Arrays.copyOf(lengths, count));
+    }
+
+    /**
+     * 将旧版文本索引转换为同目录下的二进制索引
+     * @param legacyFile    index.idx
+     * @return              二进制索引文件
+     * @throws IOException
+     */
+    public static File convertLegacy(File legacyFile) throws IOException {
+        ResourceIndex index = read(legacyFile);
+        File binaryFile = new File(legacyFile.getParentFile(), BINARY_INDEX_NAME);
+        index.write(binaryFile);
+        return binaryFile;
+    }
+
+    /**
+     * 写入二进制索引文件，先写临时文件再重命名，避免中途失败留下不完整的索引
+     * @param file
+     * @throws IOException
+     */
+    public void write(File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile));
+        try {
+            write(outputStream);
+        } finally {
+            outputStream.close();
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Failed to write resource index " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * 写入二进制索引
+     * @param stream
+     * @throws IOException
+     */
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream outputStream = new DataOutputStream(stream);
+        outputStream.writeInt(MAGIC);
+        outputStream.writeInt(VERSION);
+        outputStream.writeInt(mNames.length);
+        for (int i = 0; i < mNames.length; i++) {
+            outputStream.writeUTF(mNames[i]);
+            outputStream.writeInt(mOffsets[i]);
+            outputStream.writeInt(mLengths[i]);
+            outputStream.writeInt(mFrames[i]);
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * 查找文件名所在的下标
+     * @param name
+     * @return 下标，不存在时返回-1
+     */
+    public int indexOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        int mask = mSlots.length - 1;
+        int slot = mix(name.hashCode()) & mask;
+        int value;
+        while ((value = mSlots[slot]) != 0) {
+            if (mNames[value - 1].equals(name)) {
+                return value - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int size() {
+        return mNames.length;
+    }
+
+    public String getName(int index) {
+        return mNames[index];
+    }
+
+    public int getOffset(int index) {
+        return mOffsets[index];
+    }
+
+    public int getLength(int index) {
+        return mLengths[index];
+    }
+
+    public int getFrame(int index) {
+        return mFrames[index];
+    }
+
+    /**
+     * 最大帧序号，不存在序列帧时返回-1
+     * @return
+     */
+    public int getMaxFrame() {
+        return mMaxFrame;
+    }
+
+    /**
+     * 从文件名中提取帧序号
+     * 文件名类似：xxx_001.png，后length -7 ~ length - 4即为序号
+     * @param fileName
+     * @return 帧序号，不存在时返回-1
+     */
+    static int parseFrame(String fileName) {
+        int end = fileName.length() - 4;
+        if (end < 3) {
+            return -1;
+        }
+        int frame = 0;
+        for (int i = end - 3; i < end; i++) {
+            char c = fileName.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            frame = frame * 10 + (c - '0');
+        }
+        return frame;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static String readString(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, length);
+        }
+        return outputStream.toString("UTF-8");
+    }
+}
@@ -3,6 +3,7 @@ package com.cgfay.filter.glfilter.stickers;
 import android.content.Context;
 import android.opengl.GLES30;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.stickers.bean.DynamicSticker;
 import com.cgfay.filter.glfilter.stickers.bean.DynamicStickerFrameData;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
@@ -47,9 +48,9 @@ public class DynamicStickerFrameFilter extends DynamicStickerBaseFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mStickerCoordHandle = GLES30.glGetAttribLocation(mProgramHandle, "aStickerCoord");
-            mStickerTextureHandle = GLES30.glGetUniformLocation(mProgramHandle, "stickerTexture");
-            mEnableStickerHandle = GLES30.glGetUniformLocation(mProgramHandle, "enableSticker");
+            mStickerCoordHandle = GLES.glGetAttribLocation(mProgramHandle, "aStickerCoord");
+            mStickerTextureHandle = GLES.glGetUniformLocation(mProgramHandle, "stickerTexture");
+            mEnableStickerHandle = GLES.glGetUniformLocation(mProgramHandle, "enableSticker");
         }
     }
 
@@ -75,21 +76,21 @@ public class DynamicStickerFrameFilter extends DynamicStickerBaseFilter {
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
         mStickerBuffer.position(0);
-        GLES30.glVertexAttribPointer(mStickerCoordHandle, 2,
+        GLES.glVertexAttribPointer(mStickerCoordHandle, 2,
                 GLES30.GL_FLOAT, false, 0, mStickerBuffer);
-        GLES30.glEnableVertexAttribArray(mStickerCoordHandle);
+        GLES.glEnableVertexAttribArray(mStickerCoordHandle);
         if (mStickerTexture != OpenGLUtils.GL_NOT_TEXTURE) {
             OpenGLUtils.bindTexture(mStickerTextureHandle, mStickerTexture, 1);
-            GLES30.glUniform1i(mEnableStickerHandle, 1);
+            GLES.glUniform1i(mEnableStickerHandle, 1);
         } else {
-            GLES30.glUniform1i(mEnableStickerHandle, 0);
+            GLES.glUniform1i(mEnableStickerHandle, 0);
         }
     }
 
     @Override
     public void onDrawFrameAfter() {
         super.onDrawFrameAfter();
-        GLES30.glDisableVertexAttribArray(mStickerCoordHandle);
+        GLES.glDisableVertexAttribArray(mStickerCoordHandle);
     }
 
     @Override
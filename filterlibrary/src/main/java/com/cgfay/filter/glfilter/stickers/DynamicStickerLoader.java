@@ -11,10 +11,13 @@ import com.cgfay.filter.glfilter.resource.ResourceIndexCodec;
 import com.cgfay.filter.glfilter.stickers.bean.DynamicStickerData;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
 import com.cgfay.landmark.LandmarkEngine;
-import com.cgfay.uitls.utils.BitmapUtils;
+import com.cgfay.uitls.utils.BitmapPool;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * 动态贴纸加载器
@@ -24,6 +27,18 @@ public class DynamicStickerLoader {
     public boolean isStaticSticker=false;
     private static final String TAG = "DynamicStickerLoader";
 
+    // 预解码的帧数
+    private static final int PREFETCH_FRAMES = 3;
+    // 所有贴纸共用的解码线程
+    private static final ExecutorService sDecodeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "StickerDecoder");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     // 贴纸纹理
     private int mStickerTexture;
     // 暂存纹理id，用于复用
@@ -34,6 +49,8 @@ public class DynamicStickerLoader {
     private DynamicStickerData mStickerData;
     // 索引索引加载器
     private ResourceIndexCodec mResourceIndexCodec;
+    // 序列帧预解码器
+    private StickerFramePrefetcher<Bitmap> mPrefetcher;
     // 当前索引
     private int mFrameIndex = -1;
     // 当前时间
@@ -61,6 +78,21 @@ public class DynamicStickerLoader {
         }
         mStickerTexture = OpenGLUtils.GL_NOT_TEXTURE;
         mRestoreTexture = OpenGLUtils.GL_NOT_TEXTURE;
+        // 在解码线程中提前解码序列帧，GL线程只负责上传纹理
+        if (mStickerData.frames > 0) {
+            mPrefetcher = new StickerFramePrefetcher<>(new StickerFramePrefetcher.FrameDecoder<Bitmap>() {
+                @Override
+                public Bitmap decode(int frame) {
+                    return decodeFrame(frame);
+                }
+
+                @Override
+                public void recycle(Bitmap data) {
+                    BitmapPool.getInstance().put(data);
+                }
+            }, sDecodeExecutor, mStickerData.frames, PREFETCH_FRAMES);
+            mPrefetcher.start();
+        }
         // 如果存在的音乐路径，则播放需要初始化路径
         if (!TextUtils.isEmpty(mStickerData.audioPath)) {
             String str;
@@ -128,14 +160,13 @@ public class DynamicStickerLoader {
                 mWeakFilter.get().restartPlayer();
             }
         }
-        // 根据帧索引读取贴纸
+        // 根据帧索引读取贴纸，优先使用预解码的帧，未命中时同步解码
         Bitmap bitmap = null;
-        if (mResourceIndexCodec != null) {
-            bitmap = mResourceIndexCodec.loadResource(frameIndex);
+        if (mPrefetcher != null) {
+            bitmap = mPrefetcher.acquire(frameIndex);
         }
         if (bitmap == null) {
-            String path = String.format(mStickerData.stickerName + "_%03d.png", new Object[]{frameIndex});
-            bitmap = BitmapUtils.getBitmapFromFile(mFolderPath + "/" + path);
+            bitmap = decodeFrame(frameIndex);
         }
         if (null != bitmap) {
             // 如果此时暂存的纹理ID存在，则复用该ID
@@ -150,7 +181,8 @@ public class DynamicStickerLoader {
             }
             mRestoreTexture = mStickerTexture;
             mFrameIndex = frameIndex;
-            bitmap.recycle();
+            // 上传之后放回复用池，下一帧解码时复用
+            BitmapPool.getInstance().put(bitmap);
         } else {
             mRestoreTexture = mStickerTexture;
             mStickerTexture = OpenGLUtils.GL_NOT_TEXTURE;
@@ -158,10 +190,32 @@ public class DynamicStickerLoader {
         }
     }
 
+    /**
+     * 解码贴纸帧，可能在解码线程中调用
+     * @param frameIndex
+     * @return
+     */
+    private Bitmap decodeFrame(int frameIndex) {
+        Bitmap bitmap = null;
+        if (mResourceIndexCodec != null) {
+            bitmap = mResourceIndexCodec.loadResource(frameIndex);
+        }
+        if (bitmap == null) {
+            String path = String.format(mStickerData.stickerName + "_%03d.png", new Object[]{frameIndex});
+            bitmap = BitmapPool.getInstance().decodeFile(mFolderPath + "/" + path);
+        }
+        return bitmap;
+    }
+
     /**
      * 释放资源
      */
     public void release() {
+        if (mPrefetcher != null) {
+            Log.d(TAG, "release: " + mStickerData.stickerName + " " + mPrefetcher);
+            mPrefetcher.release();
+            mPrefetcher = null;
+        }
         if (mStickerTexture == OpenGLUtils.GL_NOT_TEXTURE) {
             mStickerTexture = mRestoreTexture;
         }
@@ -173,6 +227,14 @@ public class DynamicStickerLoader {
         }
     }
 
+    /**
+     * 获取预解码器，用于统计命中情况
+     * @return
+     */
+    public StickerFramePrefetcher<Bitmap> getPrefetcher() {
+        return mPrefetcher;
+    }
+
     /**
      * 获取贴纸纹理
      * @return
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.opengl.GLES30;
 import android.opengl.Matrix;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.stickers.bean.DynamicSticker;
 import com.cgfay.filter.glfilter.stickers.bean.DynamicStickerNormalData;
 import com.cgfay.filter.glfilter.utils.OpenGLUtils;
@@ -96,7 +97,7 @@ public class DynamicStickerNormalFilter extends DynamicStickerBaseFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mMVPMatrixHandle = GLES30.glGetUniformLocation(mProgramHandle, "uMVPMatrix");
+            mMVPMatrixHandle = GLES.glGetUniformLocation(mProgramHandle, "uMVPMatrix");
         } else {
             mMVPMatrixHandle = OpenGLUtils.GL_NOT_INIT;
         }
@@ -114,6 +115,12 @@ public class DynamicStickerNormalFilter extends DynamicStickerBaseFilter {
     public void release() {
         super.release();
         releaseBuffer();
+        for (int i = 0; i < mStickerLoaderList.size(); i++) {
+            if (mStickerLoaderList.get(i) != null) {
+                mStickerLoaderList.get(i).release();
+            }
+        }
+        mStickerLoaderList.clear();
     }
 
     @Override
@@ -147,7 +154,7 @@ public class DynamicStickerNormalFilter extends DynamicStickerBaseFilter {
                     }
                 }
             }
-            GLES30.glFlush();
+            GLES.glFlush();
         }
         return mFrameBufferTextures[0];
     }
@@ -156,18 +163,18 @@ public class DynamicStickerNormalFilter extends DynamicStickerBaseFilter {
     public void onDrawFrameBegin() {
         super.onDrawFrameBegin();
         if (mMVPMatrixHandle != OpenGLUtils.GL_NOT_INIT) {
-            GLES30.glUniformMatrix4fv(mMVPMatrixHandle, 1, false, mMVPMatrix, 0);
+            GLES.glUniformMatrix4fv(mMVPMatrixHandle, 1, false, mMVPMatrix, 0);
         }
         // 绘制到FBO中，需要开启混合模式
-        GLES30.glEnable(GLES30.GL_BLEND);
-        GLES30.glBlendEquation(GLES30.GL_FUNC_ADD);
-        GLES30.glBlendFuncSeparate(GLES30.GL_ONE, GLES30.GL_ONE_MINUS_SRC_ALPHA, GLES30.GL_ONE, GLES30.GL_ONE);
+        GLES.glEnable(GLES30.GL_BLEND);
+        GLES.glBlendEquation(GLES30.GL_FUNC_ADD);
+        GLES.glBlendFuncSeparate(GLES30.GL_ONE, GLES30.GL_ONE_MINUS_SRC_ALPHA, GLES30.GL_ONE, GLES30.GL_ONE);
     }
 
     @Override
     public void onDrawFrameAfter() {
         super.onDrawFrameAfter();
-        GLES30.glDisable(GLES30.GL_BLEND);
+        GLES.glDisable(GLES30.GL_BLEND);
     }
 
     /**
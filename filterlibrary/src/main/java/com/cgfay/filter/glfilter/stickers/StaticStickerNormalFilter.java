@@ -8,6 +8,7 @@ import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.OrthographicCamera;
 import com.badlogic.gdx.math.Vector3;
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.stickers.bean.DynamicSticker;
 import com.cgfay.filter.glfilter.stickers.bean.StaticStickerNormalData;
 
@@ -89,7 +90,7 @@ public class StaticStickerNormalFilter extends DynamicStickerBaseFilter {
     public void initProgramHandle() {
         super.initProgramHandle();
         if (mProgramHandle != OpenGLUtils.GL_NOT_INIT) {
-            mMVPMatrixHandle = GLES30.glGetUniformLocation(mProgramHandle, "uMVPMatrix");
+            mMVPMatrixHandle = GLES.glGetUniformLocation(mProgramHandle, "uMVPMatrix");
         } else {
             mMVPMatrixHandle = OpenGLUtils.GL_NOT_INIT;
         }
@@ -244,19 +245,19 @@ public class StaticStickerNormalFilter extends DynamicStickerBaseFilter {
 
         combinedMatrix.set(projectionMatrix).mul(transformMatrix);
         if (mMVPMatrixHandle != OpenGLUtils.GL_NOT_INIT) {
-            GLES30.glUniformMatrix4fv(mMVPMatrixHandle, 1, false, combinedMatrix.val, 0);
+            GLES.glUniformMatrix4fv(mMVPMatrixHandle, 1, false, combinedMatrix.val, 0);
         }
         // 绘制到FBO中，需要开启混合模式
         // 绘制到FBO中，需要开启混合模式
-        GLES30.glEnable(GLES30.GL_BLEND);
-        GLES30.glBlendEquation(GLES30.GL_FUNC_ADD);
-        GLES30.glBlendFuncSeparate(GLES30.GL_ONE, GLES30.GL_ONE_MINUS_SRC_ALPHA, GLES30.GL_ONE, GLES30.GL_ONE);
+        GLES.glEnable(GLES30.GL_BLEND);
+        GLES.glBlendEquation(GLES30.GL_FUNC_ADD);
+        GLES.glBlendFuncSeparate(GLES30.GL_ONE, GLES30.GL_ONE_MINUS_SRC_ALPHA, GLES30.GL_ONE, GLES30.GL_ONE);
     }
 
     @Override
     public void onDrawFrameAfter() {
         super.onDrawFrameAfter();
-        GLES30.glDisable(GLES30.GL_BLEND);
+        GLES.glDisable(GLES30.GL_BLEND);
     }
 
 
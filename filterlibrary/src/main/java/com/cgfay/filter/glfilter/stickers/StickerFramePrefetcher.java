@@ -0,0 +1,315 @@
+package com.cgfay.filter.glfilter.stickers;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 贴纸序列帧预解码器
+ * 在工作线程中按照贴纸的帧时间线提前解码接下来的若干帧，放入固定大小的环形缓存中，
+ * GL线程只负责取出已解码的帧并上传纹理。不依赖Android类，调度逻辑可以在JVM中测试。
+ * @param <T> 解码后的帧类型，贴纸中为Bitmap
+ */
+public class StickerFramePrefetcher<T> {
+
+    /**
+     * 帧解码器，decode在工作线程中调用
+     */
+    public interface FrameDecoder<T> {
+
+        /**
+         * 解码指定帧
+         * @param frame 帧序号
+         * @return 解码结果，失败时返回null
+         */
+        T decode(int frame);
+
+        /**
+         * 回收未被使用的帧
+         * @param data
+         */
+        void recycle(T data);
+    }
+
+    private final Object mLock = new Object();
+
+    private final FrameDecoder<T> mDecoder;
+    private final Executor mExecutor;
+    // 贴纸总帧数
+    private final int mFrameCount;
+    // 预解码窗口大小，不超过总帧数
+    private final int mCapacity;
+
+    // 环形缓存，槽位中的帧序号，-1表示空槽
+    private final int[] mSlotFrames;
+    // 环形缓存，槽位中的解码结果
+    private final Object[] mSlotData;
+    // 下一个写入的槽位
+    private int mWriteSlot;
+
+    // 当前播放到的帧，-1表示尚未开始
+    private int mPlayhead = -1;
+    // 正在解码的帧
+    private int mDecodingFrame = -1;
+    // 解码失败的帧，播放位置变化之前不再重试
+    private int mFailedFrame = -1;
+    // 是否已经提交了解码任务
+    private boolean mScheduled;
+    // 是否已释放
+    private boolean mReleased;
+
+    // 命中次数
+    private int mHitCount;
+    // 未命中次数
+    private int mMissCount;
+    // 请求时目标帧仍在解码中的次数
+    private int mLateCount;
+
+    // 解码任务，每次只解码一帧，避免多个贴纸共用工作线程时互相阻塞
+    private final Runnable mDecodeTask = new Runnable() {
+        @Override
+        public void run() {
+            decodeNext();
+        }
+    };
+
+    /**
+     * @param decoder       帧解码器
+     * @param executor      工作线程
+     * @param frameCount    贴纸总帧数
+     * @param capacity      预解码的帧数
+     */
+    public StickerFramePrefetcher(FrameDecoder<T> decoder, Executor executor, int frameCount, int capacity) {
+        if (frameCount <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("frameCount and capacity must be positive");
+        }
+        mDecoder = decoder;
+        mExecutor = executor;
+        mFrameCount = frameCount;
+        mCapacity = Math.min(capacity, frameCount);
+        mSlotFrames = new int[mCapacity];
+        mSlotData = new Object[mCapacity];
+        for (int i = 0; i < mCapacity; i++) {
+            mSlotFrames[i] = -1;
+        }
+    }
+
+    /**
+     * 开始预解码起始的帧
+     */
+    public void start() {
+        synchronized (mLock) {
+            scheduleLocked();
+        }
+    }
+
+    /**
+     * 获取已解码的帧，并将播放位置移动到该帧，之后的帧会在工作线程中继续解码
+     * 返回结果的所有权交给调用者；返回null时调用者需要自行解码
+     * @param frame 帧序号
+     * @return 已解码的帧，未命中时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire(int frame) {
+        T result = null;
+        synchronized (mLock) {
+            if (mReleased) {
+                return null;
+            }
+            mPlayhead = frame;
+            mFailedFrame = -1;
+            for (int i = 0; i < mCapacity; i++) {
+                if (mSlotFrames[i] == -1) {
+                    continue;
+                }
+                if (mSlotFrames[i] == frame && result == null) {
+                    result = (T) mSlotData[i];
+                } else if (inWindowLocked(mSlotFrames[i])) {
+                    continue;
+                } else {
+                    // 跳帧或者时间线重置后，窗口外的帧不会再被使用
+                    mDecoder.recycle((T) mSlotData[i]);
+                }
+                mSlotFrames[i] = -1;
+                mSlotData[i] = null;
+            }
+            if (result != null) {
+                mHitCount++;
+            } else if (mDecodingFrame == frame) {
+                mLateCount++;
+            } else {
+                mMissCount++;
+            }
+            scheduleLocked();
+        }
+        return result;
+    }
+
+    /**
+     * 释放缓存中的所有帧，正在解码的帧在解码完成后回收
+     */
+    @SuppressWarnings("unchecked")
+    public void release() {
+        synchronized (mLock) {
+            mReleased = true;
+            for (int i = 0; i < mCapacity; i++) {
+                if (mSlotFrames[i] != -1) {
+                    mDecoder.recycle((T) mSlotData[i]);
+                }
+                mSlotFrames[i] = -1;
+                mSlotData[i] = null;
+            }
+        }
+    }
+
+    public int getHitCount() {
+        synchronized (mLock) {
+            return mHitCount;
+        }
+    }
+
+    public int getMissCount() {
+        synchronized (mLock) {
+            return mMissCount;
+        }
+    }
+
+    public int getLateCount() {
+        synchronized (mLock) {
+            return mLateCount;
+        }
+    }
+
+    /**
+     * 缓存中已解码的帧数
+     * @return
+     */
+    public int getBufferedCount() {
+        synchronized (mLock) {
+            int count = 0;
+            for (int i = 0; i < mCapacity; i++) {
+                if (mSlotFrames[i] != -1) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (mLock) {
+            return "StickerFramePrefetcher{hit=" + mHitCount + ", miss=" + mMissCount
+                    + ", late=" + mLateCount + "}";
+        }
+    }
+
+    /**
+     * 工作线程中解码一帧，之后如果窗口中仍有缺失的帧则继续提交任务
+     */
+    private void decodeNext() {
+        int frame;
+        synchronized (mLock) {
+            mScheduled = false;
+            frame = mReleased ? -1 : nextMissingFrameLocked();
+            if (frame == -1) {
+                return;
+            }
+            mDecodingFrame = frame;
+        }
+        T data = null;
+        try {
+            data = mDecoder.decode(frame);
+        } finally {
+            boolean stored = false;
+            synchronized (mLock) {
+                mDecodingFrame = -1;
+                if (data == null) {
+                    mFailedFrame = frame;
+                } else if (!mReleased && inWindowLocked(frame) && !containsLocked(frame)) {
+                    int slot = freeSlotLocked();
+                    if (slot != -1) {
+                        mSlotFrames[slot] = frame;
+                        mSlotData[slot] = data;
+                        stored = true;
+                    }
+                }
+                scheduleLocked();
+            }
+            if (data != null && !stored) {
+                mDecoder.recycle(data);
+            }
+        }
+    }
+
+    private void scheduleLocked() {
+        if (mScheduled || mReleased || mDecodingFrame != -1 || nextMissingFrameLocked() == -1) {
+            return;
+        }
+        mScheduled = true;
+        mExecutor.execute(mDecodeTask);
+    }
+
+    /**
+     * 按照播放顺序找到窗口中第一个尚未解码的帧
+     * @return 帧序号，窗口已满时返回-1
+     */
+    private int nextMissingFrameLocked() {
+        int size = windowSizeLocked();
+        for (int distance = 0; distance < size; distance++) {
+            int frame = frameAtLocked(distance);
+            if (frame != mDecodingFrame && frame != mFailedFrame && !containsLocked(frame)) {
+                return frame;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 判断帧是否处于预解码窗口中，窗口为播放位置之后的mCapacity帧，超出总帧数时回到第0帧
+     * @param frame
+     * @return
+     */
+    private boolean inWindowLocked(int frame) {
+        if (frame < 0 || frame >= mFrameCount) {
+            return false;
+        }
+        int distance;
+        if (mPlayhead < 0) {
+            distance = frame;
+        } else {
+            distance = (frame - mPlayhead - 1 + mFrameCount) % mFrameCount;
+        }
+        return distance < windowSizeLocked();
+    }
+
+    private int windowSizeLocked() {
+        // 当前帧已经交给GL线程，不需要再次解码
+        return mPlayhead < 0 ? mCapacity : Math.min(mCapacity, mFrameCount - 1);
+    }
+
+    private int frameAtLocked(int distance) {
+        if (mPlayhead < 0) {
+            return distance;
+        }
+        return (mPlayhead + 1 + distance) % mFrameCount;
+    }
+
+    private boolean containsLocked(int frame) {
+        for (int i = 0; i < mCapacity; i++) {
+            if (mSlotFrames[i] == frame) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int freeSlotLocked() {
+        for (int i = 0; i < mCapacity; i++) {
+            int slot = (mWriteSlot + i) % mCapacity;
+            if (mSlotFrames[slot] == -1) {
+                mWriteSlot = (slot + 1) % mCapacity;
+                return slot;
+            }
+        }
+        return -1;
+    }
+}
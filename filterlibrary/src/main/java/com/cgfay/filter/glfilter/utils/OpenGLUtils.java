@@ -5,11 +5,11 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.opengl.GLES11Ext;
 import android.opengl.GLES30;
-import android.opengl.GLUtils;
 import android.opengl.Matrix;
 import android.text.TextUtils;
 import android.util.Log;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.uitls.utils.BitmapUtils;
 
 import java.io.BufferedReader;
@@ -129,31 +129,31 @@ public class OpenGLUtils {
             return 0;
         }
 
-        int program = GLES30.glCreateProgram();
+        int program = GLES.glCreateProgram();
         checkGlError("glCreateProgram");
         if (program == 0) {
             Log.e(TAG, "Could not create program");
         }
-        GLES30.glAttachShader(program, vertexShader);
+        GLES.glAttachShader(program, vertexShader);
         checkGlError("glAttachShader");
-        GLES30.glAttachShader(program, fragmentShader);
+        GLES.glAttachShader(program, fragmentShader);
         checkGlError("glAttachShader");
-        GLES30.glLinkProgram(program);
+        GLES.glLinkProgram(program);
         int[] linkStatus = new int[1];
-        GLES30.glGetProgramiv(program, GLES30.GL_LINK_STATUS, linkStatus, 0);
+        GLES.glGetProgramiv(program, GLES30.GL_LINK_STATUS, linkStatus, 0);
         if (linkStatus[0] != GLES30.GL_TRUE) {
             Log.e(TAG, "Could not link program: ");
-            Log.e(TAG, GLES30.glGetProgramInfoLog(program));
-            GLES30.glDeleteProgram(program);
+            Log.e(TAG, GLES.glGetProgramInfoLog(program));
+            GLES.glDeleteProgram(program);
             program = 0;
         }
         if (vertexShader > 0) {
-            GLES30.glDetachShader(program, vertexShader);
-            GLES30.glDeleteShader(vertexShader);
+            GLES.glDetachShader(program, vertexShader);
+            GLES.glDeleteShader(vertexShader);
         }
         if (fragmentShader > 0) {
-            GLES30.glDetachShader(program, fragmentShader);
-            GLES30.glDeleteShader(fragmentShader);
+            GLES.glDetachShader(program, fragmentShader);
+            GLES.glDeleteShader(fragmentShader);
         }
         return program;
     }
@@ -165,16 +165,16 @@ public class OpenGLUtils {
      * @return
      */
     public static int loadShader(int shaderType, String source) {
-        int shader = GLES30.glCreateShader(shaderType);
+        int shader = GLES.glCreateShader(shaderType);
         checkGlError("glCreateShader type=" + shaderType);
-        GLES30.glShaderSource(shader, source);
-        GLES30.glCompileShader(shader);
+        GLES.glShaderSource(shader, source);
+        GLES.glCompileShader(shader);
         int[] compiled = new int[1];
-        GLES30.glGetShaderiv(shader, GLES30.GL_COMPILE_STATUS, compiled, 0);
+        GLES.glGetShaderiv(shader, GLES30.GL_COMPILE_STATUS, compiled, 0);
         if (compiled[0] == 0) {
             Log.e(TAG, "Could not compile shader " + shaderType + ":");
-            Log.e(TAG, " " + GLES30.glGetShaderInfoLog(shader));
-            GLES30.glDeleteShader(shader);
+            Log.e(TAG, " " + GLES.glGetShaderInfoLog(shader));
+            GLES.glDeleteShader(shader);
             shader = 0;
         }
         return shader;
@@ -185,7 +185,7 @@ public class OpenGLUtils {
      * @param op
      */
     public static void checkGlError(String op) {
-        int error = GLES30.glGetError();
+        int error = GLES.glGetError();
         if (error != GLES30.GL_NO_ERROR) {
             String msg = op + ": glError 0x" + Integer.toHexString(error);
             Log.e(TAG, msg);
@@ -256,25 +256,25 @@ public class OpenGLUtils {
      */
     public static void createFrameBuffer(int[] frameBuffer, int[] frameBufferTexture,
                                          int width, int height) {
-        GLES30.glGenFramebuffers(frameBuffer.length, frameBuffer, 0);
-        GLES30.glGenTextures(frameBufferTexture.length, frameBufferTexture, 0);
+        GLES.glGenFramebuffers(frameBuffer.length, frameBuffer, 0);
+        GLES.glGenTextures(frameBufferTexture.length, frameBufferTexture, 0);
         for (int i = 0; i < frameBufferTexture.length; i++) {
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, frameBufferTexture[i]);
-            GLES30.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA, width, height, 0,
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, frameBufferTexture[i]);
+            GLES.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA, width, height, 0,
                     GLES30.GL_RGBA, GLES30.GL_UNSIGNED_BYTE, null);
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR);
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
-            GLES30.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, frameBuffer[i]);
-            GLES30.glFramebufferTexture2D(GLES30.GL_FRAMEBUFFER, GLES30.GL_COLOR_ATTACHMENT0,
+            GLES.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, frameBuffer[i]);
+            GLES.glFramebufferTexture2D(GLES30.GL_FRAMEBUFFER, GLES30.GL_COLOR_ATTACHMENT0,
                     GLES30.GL_TEXTURE_2D, frameBufferTexture[i], 0);
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, 0);
-            GLES30.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, 0);
+            GLES.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
         }
         checkGlError("createFrameBuffer");
     }
@@ -286,15 +286,15 @@ public class OpenGLUtils {
      */
     public static int createTexture(int textureType) {
         int[] textures = new int[1];
-        GLES30.glGenTextures(1, textures, 0);
+        GLES.glGenTextures(1, textures, 0);
         OpenGLUtils.checkGlError("glGenTextures");
         int textureId = textures[0];
-        GLES30.glBindTexture(textureType, textureId);
+        GLES.glBindTexture(textureType, textureId);
         OpenGLUtils.checkGlError("glBindTexture " + textureId);
-        GLES30.glTexParameterf(textureType, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_NEAREST);
-        GLES30.glTexParameterf(textureType, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
-        GLES30.glTexParameterf(textureType, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
-        GLES30.glTexParameterf(textureType, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
+        GLES.glTexParameterf(textureType, GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_NEAREST);
+        GLES.glTexParameterf(textureType, GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
+        GLES.glTexParameterf(textureType, GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
+        GLES.glTexParameterf(textureType, GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
         OpenGLUtils.checkGlError("glTexParameter");
         return textureId;
     }
@@ -308,24 +308,24 @@ public class OpenGLUtils {
         int[] texture = new int[1];
         if (bitmap != null && !bitmap.isRecycled()) {
             //生成纹理
-            GLES30.glGenTextures(1, texture, 0);
+            GLES.glGenTextures(1, texture, 0);
             checkGlError("glGenTexture");
             //生成纹理
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, texture[0]);
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, texture[0]);
             //设置缩小过滤为使用纹理中坐标最接近的一个像素的颜色作为需要绘制的像素颜色
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_NEAREST);
             //设置放大过滤为使用纹理中坐标最接近的若干个颜色，通过加权平均算法得到需要绘制的像素颜色
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
             //设置环绕方向S，截取纹理坐标到[1/2n,1-1/2n]。将导致永远不会与border融合
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
             //设置环绕方向T，截取纹理坐标到[1/2n,1-1/2n]。将导致永远不会与border融合
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
             //根据以上指定的参数，生成一个2D纹理
-            GLUtils.texImage2D(GLES30.GL_TEXTURE_2D, 0, bitmap, 0);
+            GLES.texImage2D(GLES30.GL_TEXTURE_2D, 0, bitmap, 0);
             return texture[0];
         }
         return 0;
@@ -344,8 +344,8 @@ public class OpenGLUtils {
         } else {
             result[0] = texture;
             if (bitmap != null && !bitmap.isRecycled()) {
-                GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, result[0]);
-                GLUtils.texSubImage2D(GLES30.GL_TEXTURE_2D, 0, 0, 0, bitmap);
+                GLES.glBindTexture(GLES30.GL_TEXTURE_2D, result[0]);
+                GLES.texSubImage2D(GLES30.GL_TEXTURE_2D, 0, 0, 0, bitmap);
             }
         }
         return result[0];
@@ -390,29 +390,29 @@ public class OpenGLUtils {
             throw new RuntimeException("Illegal byte array");
         }
         final int[] texture = new int[1];
-        GLES30.glGenTextures(1, texture, 0);
+        GLES.glGenTextures(1, texture, 0);
         if (texture[0] == 0) {
             Log.d(TAG,"Failed at glGenTextures");
             return 0;
         }
 
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, texture[0]);
+        GLES.glBindTexture(GLES30.GL_TEXTURE_2D, texture[0]);
 
-        GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+        GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                 GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
-        GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+        GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                 GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR);
-        GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+        GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                 GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
-        GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+        GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                 GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
-        GLES30.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA,
+        GLES.glTexImage2D(GLES30.GL_TEXTURE_2D, 0, GLES30.GL_RGBA,
                 width,height, 0,
                 GLES30.GL_RGBA,
                 GLES30.GL_UNSIGNED_BYTE,
                 byteBuffer);
 
-        GLES30.glBindTexture(GLES30.GL_TEXTURE_2D,0);
+        GLES.glBindTexture(GLES30.GL_TEXTURE_2D,0);
         return texture[0];
     }
 
@@ -433,8 +433,8 @@ public class OpenGLUtils {
         if (texture == GL_NOT_TEXTURE) {
             return createTexture(byteBuffer, width, height);
         } else {
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, texture);
-            GLES30.glTexSubImage2D(GLES30.GL_TEXTURE_2D,0,0,0,
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, texture);
+            GLES.glTexSubImage2D(GLES30.GL_TEXTURE_2D,0,0,0,
                     width, height,
                     GLES30.GL_RGBA,
                     GLES30.GL_UNSIGNED_BYTE,
@@ -456,20 +456,20 @@ public class OpenGLUtils {
         if (TextUtils.isEmpty(filePath)) {
             return GL_NOT_TEXTURE;
         }
-        GLES30.glGenTextures(1, textureHandle, 0);
+        GLES.glGenTextures(1, textureHandle, 0);
         if (textureHandle[0] != 0) {
             Bitmap bitmap = BitmapFactory.decodeFile(filePath);
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, textureHandle[0]);
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, textureHandle[0]);
 
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR);
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
-            GLUtils.texImage2D(GLES30.GL_TEXTURE_2D, 0, bitmap, 0);
+            GLES.texImage2D(GLES30.GL_TEXTURE_2D, 0, bitmap, 0);
             bitmap.recycle();
         }
         if (textureHandle[0] == 0) {
@@ -488,20 +488,20 @@ public class OpenGLUtils {
      */
     public static int createTextureFromAssets(Context context, String name) {
         int[] textureHandle = new int[1];
-        GLES30.glGenTextures(1, textureHandle, 0);
+        GLES.glGenTextures(1, textureHandle, 0);
         if (textureHandle[0] != 0) {
             Bitmap bitmap = BitmapUtils.getImageFromAssetsFile(context, name);
-            GLES30.glBindTexture(GLES30.GL_TEXTURE_2D, textureHandle[0]);
+            GLES.glBindTexture(GLES30.GL_TEXTURE_2D, textureHandle[0]);
 
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_MAG_FILTER, GLES30.GL_LINEAR);
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_MIN_FILTER, GLES30.GL_LINEAR);
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_WRAP_S, GLES30.GL_CLAMP_TO_EDGE);
-            GLES30.glTexParameterf(GLES30.GL_TEXTURE_2D,
+            GLES.glTexParameterf(GLES30.GL_TEXTURE_2D,
                     GLES30.GL_TEXTURE_WRAP_T, GLES30.GL_CLAMP_TO_EDGE);
-            GLUtils.texImage2D(GLES30.GL_TEXTURE_2D, 0, bitmap, 0);
+            GLES.texImage2D(GLES30.GL_TEXTURE_2D, 0, bitmap, 0);
             bitmap.recycle();
         }
         if (textureHandle[0] == 0) {
@@ -525,7 +525,7 @@ public class OpenGLUtils {
     public static void deleteTexture(int texture) {
         int[] textures = new int[1];
         textures[0] = texture;
-        GLES30.glDeleteTextures(1, textures, 0);
+        GLES.glDeleteTextures(1, textures, 0);
     }
 
     /**
@@ -550,9 +550,9 @@ public class OpenGLUtils {
         if (index > 31) {
             throw new IllegalArgumentException("index must be no more than 31!");
         }
-        GLES30.glActiveTexture(GLES30.GL_TEXTURE0 + index);
-        GLES30.glBindTexture(textureType, texture);
-        GLES30.glUniform1i(location, index);
+        GLES.glActiveTexture(GLES30.GL_TEXTURE0 + index);
+        GLES.glBindTexture(textureType, texture);
+        GLES.glUniform1i(location, index);
     }
 
 
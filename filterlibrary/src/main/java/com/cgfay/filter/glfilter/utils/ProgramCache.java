@@ -0,0 +1,441 @@
+package com.cgfay.filter.glfilter.utils;
+
+import android.opengl.GLES30;
+import android.util.Log;
+
+import com.cgfay.filter.gles.GLES;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * program缓存
+ * 以shader源码的哈希为key，缓存链接后的program二进制(glGetProgramBinary)，
+ * 相同shader的滤镜再次创建时直接通过glProgramBinary加载，不再编译链接，切换滤镜时不会卡顿。
+ * 滤镜通过runOnDraw延迟设置uniform，多个滤镜共用同一个program对象会互相覆盖uniform，
+ * 因此每次acquire都会返回新的program对象，共享的是二进制数据，按引用计数释放。
+ * 设置了缓存目录时二进制会持久化到磁盘，冷启动时也不需要编译。
+ * 写磁盘放在单独的后台线程中，不阻塞GL线程；磁盘上的文件按最近使用时间淘汰，跟内存一样最多保留32个。
+ */
+public final class ProgramCache {
+
+    private static final String TAG = "ProgramCache";
+
+    // 没有引用的条目最多保留的个数
+    private static final int MAX_UNUSED_ENTRIES = 32;
+    // 磁盘上最多保留的二进制文件个数
+    private static final int MAX_DISK_ENTRIES = MAX_UNUSED_ENTRIES;
+    // 磁盘文件标识和版本
+    private static final int FILE_MAGIC = 0x50524F47;
+    private static final int FILE_VERSION = 1;
+    private static final String FILE_SUFFIX = ".bin";
+
+    private static class ProgramCacheHolder {
+        public static ProgramCache instance = new ProgramCache();
+    }
+
+    ProgramCache() {
+        this(createDiskExecutor());
+    }
+
+    ProgramCache(Executor diskExecutor) {
+        mDiskExecutor = diskExecutor;
+    }
+
+    public static ProgramCache getInstance() {
+        return ProgramCacheHolder.instance;
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class Entry {
+        final String vertexShader;
+        final String fragmentShader;
+        // 引用计数
+        int refCount;
+        // program二进制
+        int binaryFormat;
+        byte[] binary;
+
+        Entry(String vertexShader, String fragmentShader) {
+            this.vertexShader = vertexShader;
+            this.fragmentShader = fragmentShader;
+        }
+    }
+
+    // 按访问顺序排列，方便淘汰最久没有使用的条目
+    private final Map<Long, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    // 二进制持久化目录
+    private File mBinaryDirectory;
+    // 读写磁盘的后台线程
+    private final Executor mDiskExecutor;
+
+    // 内存命中次数
+    private int mHitCount;
+    // 磁盘命中次数
+    private int mDiskHitCount;
+    // 未命中需要编译的次数
+    private int mMissCount;
+    // 编译链接耗时
+    private long mCompileTimeNs;
+    // 加载二进制耗时
+    private long mLoadTimeNs;
+
+    /**
+     * 设置program二进制的持久化目录，为null时只缓存在内存中
+     * @param directory
+     */
+    public synchronized void setBinaryDirectory(File directory) {
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "setBinaryDirectory: failed to create " + directory);
+            directory = null;
+        }
+        mBinaryDirectory = directory;
+    }
+
+    /**
+     * 获取program，需要在GL线程中调用，使用完毕后调用release
+     * @param vertexShader
+     * @param fragmentShader
+     * @return program句柄，失败时返回0
+     */
+    public synchronized int acquire(String vertexShader, String fragmentShader) {
+        long key = hash(vertexShader, fragmentShader);
+        Entry entry = mEntries.get(key);
+        if (entry != null && (!vertexShader.equals(entry.vertexShader)
+                || !fragmentShader.equals(entry.fragmentShader))) {
+            // 哈希冲突，不缓存
+            return compile(vertexShader, fragmentShader, null);
+        }
+        if (entry == null) {
+            entry = new Entry(vertexShader, fragmentShader);
+            mEntries.put(key, entry);
+        }
+
+        int program = 0;
+        if (entry.binary != null) {
+            program = loadBinary(entry);
+            if (program != 0) {
+                mHitCount++;
+            }
+        } else if (readBinary(key, entry)) {
+            program = loadBinary(entry);
+            if (program != 0) {
+                mDiskHitCount++;
+                touchBinary(key);
+            }
+        }
+        if (program == 0) {
+            program = compile(vertexShader, fragmentShader, entry);
+            if (entry.binary != null) {
+                writeBinaryAsync(key, entry);
+            }
+        }
+        if (program != 0) {
+            entry.refCount++;
+        }
+        trimUnusedEntries();
+        return program;
+    }
+
+    /**
+     * 释放acquire得到的program
+     * @param vertexShader
+     * @param fragmentShader
+     * @param program
+     */
+    public synchronized void release(String vertexShader, String fragmentShader, int program) {
+        if (program == 0 || program == OpenGLUtils.GL_NOT_INIT) {
+            return;
+        }
+        GLES.glDeleteProgram(program);
+        Entry entry = mEntries.get(hash(vertexShader, fragmentShader));
+        if (entry != null && entry.refCount > 0 && vertexShader.equals(entry.vertexShader)
+                && fragmentShader.equals(entry.fragmentShader)) {
+            entry.refCount--;
+            trimUnusedEntries();
+        }
+    }
+
+    /**
+     * 清空内存中的缓存，不影响正在使用的program
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getDiskHitCount() {
+        return mDiskHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized long getCompileTimeNs() {
+        return mCompileTimeNs;
+    }
+
+    public synchronized long getLoadTimeNs() {
+        return mLoadTimeNs;
+    }
+
+    /**
+     * 获取shader的引用计数
+     * @param vertexShader
+     * @param fragmentShader
+     * @return
+     */
+    public synchronized int getRefCount(String vertexShader, String fragmentShader) {
+        Entry entry = mEntries.get(hash(vertexShader, fragmentShader));
+        return entry != null ? entry.refCount : 0;
+    }
+
+    /**
+     * shader源码的64位FNV-1a哈希
+     */
+    static long hash(String vertexShader, String fragmentShader) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < vertexShader.length(); i++) {
+            hash = (hash ^ vertexShader.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ 0xffff) * 0x100000001b3L;
+        for (int i = 0; i < fragmentShader.length(); i++) {
+            hash = (hash ^ fragmentShader.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 编译链接program，并读取二进制保存到条目中
+     */
+    private int compile(String vertexShader, String fragmentShader, Entry entry) {
+        mMissCount++;
+        long start = System.nanoTime();
+        int program = OpenGLUtils.createProgram(vertexShader, fragmentShader);
+        mCompileTimeNs += System.nanoTime() - start;
+        if (program == 0 || entry == null) {
+            return program;
+        }
+        int[] length = new int[1];
+        GLES.glGetProgramiv(program, GLES30.GL_PROGRAM_BINARY_LENGTH, length, 0);
+        if (length[0] > 0) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(length[0]).order(ByteOrder.nativeOrder());
+            int[] format = new int[1];
+            GLES.glGetProgramBinary(program, length[0], length, 0, format, 0, buffer);
+            if (length[0] > 0) {
+                entry.binaryFormat = format[0];
+                entry.binary = new byte[length[0]];
+                buffer.position(0);
+                buffer.get(entry.binary);
+            }
+        }
+        return program;
+    }
+
+    /**
+     * 通过二进制创建program，驱动更新等原因导致加载失败时丢弃二进制
+     */
+    private int loadBinary(Entry entry) {
+        long start = System.nanoTime();
+        int program = GLES.glCreateProgram();
+        if (program == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(entry.binary.length).order(ByteOrder.nativeOrder());
+        buffer.put(entry.binary).position(0);
+        GLES.glProgramBinary(program, entry.binaryFormat, buffer, entry.binary.length);
+        int[] linkStatus = new int[1];
+        GLES.glGetProgramiv(program, GLES30.GL_LINK_STATUS, linkStatus, 0);
+        mLoadTimeNs += System.nanoTime() - start;
+        if (linkStatus[0] != GLES30.GL_TRUE) {
+            Log.w(TAG, "loadBinary: program binary rejected, recompiling");
+            GLES.glDeleteProgram(program);
+            entry.binary = null;
+            return 0;
+        }
+        return program;
+    }
+
+    /**
+     * 淘汰没有引用的条目
+     */
+    private void trimUnusedEntries() {
+        int unused = 0;
+        for (Entry entry : mEntries.values()) {
+            if (entry.refCount == 0) {
+                unused++;
+            }
+        }
+        Iterator<Entry> iterator = mEntries.values().iterator();
+        while (unused > MAX_UNUSED_ENTRIES && iterator.hasNext()) {
+            if (iterator.next().refCount == 0) {
+                iterator.remove();
+                unused--;
+            }
+        }
+    }
+
+    private File getBinaryFile(long key) {
+        return new File(mBinaryDirectory, Long.toHexString(key) + FILE_SUFFIX);
+    }
+
+    /**
+     * 从磁盘读取二进制
+     */
+    private boolean readBinary(long key, Entry entry) {
+        if (mBinaryDirectory == null) {
+            return false;
+        }
+        File file = getBinaryFile(key);
+        if (!file.exists()) {
+            return false;
+        }
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new FileInputStream(file));
+            if (input.readInt() != FILE_MAGIC || input.readInt() != FILE_VERSION
+                    || !entry.vertexShader.equals(input.readUTF())
+                    || !entry.fragmentShader.equals(input.readUTF())) {
+                return false;
+            }
+            int format = input.readInt();
+            byte[] binary = new byte[input.readInt()];
+            input.readFully(binary);
+            entry.binaryFormat = format;
+            entry.binary = binary;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "readBinary: " + file, e);
+            return false;
+        } finally {
+            closeQuietly(input);
+        }
+    }
+
+    private static Executor createDiskExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), runnable -> {
+                    Thread thread = new Thread(runnable, TAG);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // 写磁盘只在编译新的program时发生，空闲时不保留线程
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 在后台线程中写入二进制，写完后淘汰多余的文件
+     * 条目中的二进制数组创建后不再修改，只会整体替换，这里直接传给后台线程
+     */
+    private void writeBinaryAsync(long key, Entry entry) {
+        final File directory = mBinaryDirectory;
+        if (directory == null) {
+            return;
+        }
+        final File file = getBinaryFile(key);
+        final String vertexShader = entry.vertexShader;
+        final String fragmentShader = entry.fragmentShader;
+        final int binaryFormat = entry.binaryFormat;
+        final byte[] binary = entry.binary;
+        mDiskExecutor.execute(() -> {
+            if (writeBinary(directory, file, vertexShader, fragmentShader, binaryFormat, binary)) {
+                trimDiskEntries(directory, file);
+            }
+        });
+    }
+
+    /**
+     * 从磁盘加载成功时更新文件的修改时间，作为淘汰时的最近使用时间
+     */
+    private void touchBinary(long key) {
+        final File file = getBinaryFile(key);
+        mDiskExecutor.execute(() -> file.setLastModified(System.currentTimeMillis()));
+    }
+
+    /**
+     * 淘汰最久没有使用的文件，刚写入的文件不淘汰
+     */
+    private static void trimDiskEntries(File directory, File keep) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null || files.length <= MAX_DISK_ENTRIES) {
+            return;
+        }
+        final long[] lastModified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(lastModified[a], lastModified[b]));
+        int remaining = files.length;
+        for (int i = 0; i < order.length && remaining > MAX_DISK_ENTRIES; i++) {
+            File file = files[order[i]];
+            if (!file.equals(keep) && file.delete()) {
+                remaining--;
+            }
+        }
+    }
+
+    /**
+     * 写入二进制到磁盘，先写临时文件再重命名，避免写到一半时退出留下损坏的文件
+     */
+    private static boolean writeBinary(File directory, File file, String vertexShader,
+                                       String fragmentShader, int binaryFormat, byte[] binary) {
+        File temp = new File(directory, file.getName() + ".tmp");
+        DataOutputStream output = null;
+        boolean success = false;
+        try {
+            output = new DataOutputStream(new FileOutputStream(temp));
+            output.writeInt(FILE_MAGIC);
+            output.writeInt(FILE_VERSION);
+            output.writeUTF(vertexShader);
+            output.writeUTF(fragmentShader);
+            output.writeInt(binaryFormat);
+            output.writeInt(binary.length);
+            output.write(binary);
+            output.close();
+            output = null;
+            success = temp.renameTo(file);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "writeBinary: " + file, e);
+        } finally {
+            closeQuietly(output);
+            if (!success) {
+                temp.delete();
+            }
+        }
+        return success;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
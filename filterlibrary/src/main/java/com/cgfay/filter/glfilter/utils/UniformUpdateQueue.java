@@ -0,0 +1,248 @@
+package com.cgfay.filter.glfilter.utils;
+
+import com.cgfay.filter.gles.GLES;
+
+/**
+ * uniform更新队列
+ * 滑杆等参数在UI线程中每帧都会设置，原来每次设置都会创建一个Runnable放到链表中。
+ * 这里用预先分配的基本类型数组保存待更新的uniform，同一个location在一帧内多次写入时只保留最后一次的值，
+ * 在GL线程中调用drain统一提交。稳定状态下入队和提交都不会分配内存。
+ * 写入方可能同时有UI线程和GL线程(比如onInputSizeChanged中设置uniform)，因此使用两组缓冲区交换，
+ * 锁只在写入和交换时持有，提交GL调用时不持有锁。
+ */
+public final class UniformUpdateQueue {
+
+    private static final int TYPE_INT = 0;
+    private static final int TYPE_FLOAT = 1;
+    private static final int TYPE_VEC2 = 2;
+    private static final int TYPE_VEC3 = 3;
+    private static final int TYPE_VEC4 = 4;
+    private static final int TYPE_FLOAT_ARRAY = 5;
+    private static final int TYPE_MAT3 = 6;
+    private static final int TYPE_MAT4 = 7;
+
+    private static final int INITIAL_SLOTS = 8;
+    private static final int INITIAL_VALUES = 32;
+
+    /**
+     * 一组待提交的uniform，每个槽位对应一个location，数值保存在共用的float数组中
+     */
+    private static final class Slots {
+        int count;
+        int[] types = new int[INITIAL_SLOTS];
+        int[] locations = new int[INITIAL_SLOTS];
+        int[] ints = new int[INITIAL_SLOTS];
+        // 数值在values中的偏移、长度和可用容量
+        int[] offsets = new int[INITIAL_SLOTS];
+        int[] lengths = new int[INITIAL_SLOTS];
+        int[] capacities = new int[INITIAL_SLOTS];
+        float[] values = new float[INITIAL_VALUES];
+        int valueSize;
+
+        /**
+         * 查找location对应的槽位，不存在时追加一个
+         */
+        int obtain(int location, int type, int length) {
+            int slot = -1;
+            for (int i = 0; i < count; i++) {
+                if (locations[i] == location) {
+                    slot = i;
+                    break;
+                }
+            }
+            if (slot < 0) {
+                if (count == types.length) {
+                    grow();
+                }
+                slot = count++;
+                locations[slot] = location;
+                capacities[slot] = 0;
+            }
+            types[slot] = type;
+            lengths[slot] = length;
+            if (capacities[slot] < length) {
+                // 容量不够时在尾部重新分配，旧的区域在提交后随缓冲区一起回收
+                if (valueSize + length > values.length) {
+                    float[] newValues = new float[Math.max(values.length * 2, valueSize + length)];
+                    System.arraycopy(values, 0, newValues, 0, valueSize);
+                    values = newValues;
+                }
+                offsets[slot] = valueSize;
+                capacities[slot] = length;
+                valueSize += length;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int size = types.length * 2;
+            types = copyOf(types, size);
+            locations = copyOf(locations, size);
+            ints = copyOf(ints, size);
+            offsets = copyOf(offsets, size);
+            lengths = copyOf(lengths, size);
+            capacities = copyOf(capacities, size);
+        }
+
+        void clear() {
+            count = 0;
+            valueSize = 0;
+        }
+    }
+
+    private final Object mLock = new Object();
+    // 写入方使用的缓冲区
+    private Slots mPending = new Slots();
+    // GL线程提交时使用的缓冲区
+    private Slots mDraining = new Slots();
+
+    public void setInteger(int location, int value) {
+        if (location < 0) {
+            return;
+        }
+        synchronized (mLock) {
+            int slot = mPending.obtain(location, TYPE_INT, 0);
+            mPending.ints[slot] = value;
+        }
+    }
+
+    public void setFloat(int location, float value) {
+        if (location < 0) {
+            return;
+        }
+        synchronized (mLock) {
+            int slot = mPending.obtain(location, TYPE_FLOAT, 1);
+            mPending.values[mPending.offsets[slot]] = value;
+        }
+    }
+
+    public void setFloatVec2(int location, float x, float y) {
+        if (location < 0) {
+            return;
+        }
+        synchronized (mLock) {
+            int slot = mPending.obtain(location, TYPE_VEC2, 2);
+            int offset = mPending.offsets[slot];
+            mPending.values[offset] = x;
+            mPending.values[offset + 1] = y;
+        }
+    }
+
+    public void setFloatVec2(int location, float[] value) {
+        put(location, TYPE_VEC2, value, 2);
+    }
+
+    public void setFloatVec3(int location, float[] value) {
+        put(location, TYPE_VEC3, value, 3);
+    }
+
+    public void setFloatVec4(int location, float[] value) {
+        put(location, TYPE_VEC4, value, 4);
+    }
+
+    public void setFloatArray(int location, float[] value) {
+        put(location, TYPE_FLOAT_ARRAY, value, value.length);
+    }
+
+    public void setUniformMatrix3f(int location, float[] matrix) {
+        put(location, TYPE_MAT3, matrix, 9);
+    }
+
+    public void setUniformMatrix4f(int location, float[] matrix) {
+        put(location, TYPE_MAT4, matrix, 16);
+    }
+
+    /**
+     * 复制数组的值，之后调用方修改数组不会影响已经入队的值
+     */
+    private void put(int location, int type, float[] value, int length) {
+        if (location < 0) {
+            return;
+        }
+        synchronized (mLock) {
+            int slot = mPending.obtain(location, type, length);
+            System.arraycopy(value, 0, mPending.values, mPending.offsets[slot], length);
+        }
+    }
+
+    /**
+     * 是否有待提交的uniform
+     * @return
+     */
+    public boolean isEmpty() {
+        synchronized (mLock) {
+            return mPending.count == 0;
+        }
+    }
+
+    /**
+     * 丢弃所有待提交的uniform
+     */
+    public void clear() {
+        synchronized (mLock) {
+            mPending.clear();
+        }
+    }
+
+    /**
+     * 提交所有待更新的uniform，需要在GL线程中glUseProgram之后调用
+     * @return 提交的uniform个数
+     */
+    public int drain() {
+        Slots slots;
+        synchronized (mLock) {
+            if (mPending.count == 0) {
+                return 0;
+            }
+            slots = mPending;
+            mPending = mDraining;
+            mDraining = slots;
+        }
+        int count = slots.count;
+        for (int i = 0; i < count; i++) {
+            int location = slots.locations[i];
+            int offset = slots.offsets[i];
+            switch (slots.types[i]) {
+                case TYPE_INT:
+                    GLES.glUniform1i(location, slots.ints[i]);
+                    break;
+
+                case TYPE_FLOAT:
+                    GLES.glUniform1f(location, slots.values[offset]);
+                    break;
+
+                case TYPE_VEC2:
+                    GLES.glUniform2fv(location, 1, slots.values, offset);
+                    break;
+
+                case TYPE_VEC3:
+                    GLES.glUniform3fv(location, 1, slots.values, offset);
+                    break;
+
+                case TYPE_VEC4:
+                    GLES.glUniform4fv(location, 1, slots.values, offset);
+                    break;
+
+                case TYPE_FLOAT_ARRAY:
+                    GLES.glUniform1fv(location, slots.lengths[i], slots.values, offset);
+                    break;
+
+                case TYPE_MAT3:
+                    GLES.glUniformMatrix3fv(location, 1, false, slots.values, offset);
+                    break;
+
+                case TYPE_MAT4:
+                    GLES.glUniformMatrix4fv(location, 1, false, slots.values, offset);
+                    break;
+            }
+        }
+        slots.clear();
+        return count;
+    }
+
+    private static int[] copyOf(int[] array, int size) {
+        int[] result = new int[size];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
@@ -10,6 +10,7 @@ import android.util.AttributeSet;
 import android.view.ViewGroup;
 import android.widget.Toast;
 
+import com.cgfay.filter.gles.GLES;
 import com.cgfay.filter.glfilter.base.GLImageFilter;
 import com.cgfay.filter.glfilter.base.GLImageInputFilter;
 import com.cgfay.filter.glfilter.color.GLImageDynamicColorFilter;
@@ -97,10 +98,10 @@ public class GLImageSurfaceView extends GLSurfaceView implements GLSurfaceView.R
 
     @Override
     public void onSurfaceCreated(GL10 gl, EGLConfig config) {
-        GLES30.glDisable(GL10.GL_DITHER);
-        GLES30.glClearColor(0,0, 0, 0);
-        GLES30.glEnable(GL10.GL_CULL_FACE);
-        GLES30.glEnable(GL10.GL_DEPTH_TEST);
+        GLES.glDisable(GL10.GL_DITHER);
+        GLES.glClearColor(0,0, 0, 0);
+        GLES.glEnable(GL10.GL_CULL_FACE);
+        GLES.glEnable(GL10.GL_DEPTH_TEST);
         initFilters();
     }
 
@@ -108,7 +109,7 @@ public class GLImageSurfaceView extends GLSurfaceView implements GLSurfaceView.R
     public void onSurfaceChanged(GL10 gl, int width, int height) {
         mViewWidth = width;
         mViewHeight = height;
-        GLES30.glViewport(0,0,width, height);
+        GLES.glViewport(0,0,width, height);
         if (mInputTexture == OpenGLUtils.GL_NOT_TEXTURE) {
             mInputTexture = OpenGLUtils.createTexture(mBitmap, mInputTexture);
         }
@@ -171,8 +172,8 @@ public class GLImageSurfaceView extends GLSurfaceView implements GLSurfaceView.R
 
     @Override
     public void onDrawFrame(GL10 gl) {
-        GLES30.glClearColor(0,0, 0, 0);
-        GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT | GLES30.GL_DEPTH_BUFFER_BIT);
+        GLES.glClearColor(0,0, 0, 0);
+        GLES.glClear(GLES30.GL_COLOR_BUFFER_BIT | GLES30.GL_DEPTH_BUFFER_BIT);
         if (mDisplayFilter == null) {
             return;
         }
@@ -189,7 +190,7 @@ public class GLImageSurfaceView extends GLSurfaceView implements GLSurfaceView.R
             int height = getHeight();
             ByteBuffer buf = ByteBuffer.allocateDirect(width * height * 4);
             buf.order(ByteOrder.LITTLE_ENDIAN);
-            GLES30.glReadPixels(0, 0, width, height,
+            GLES.glReadPixels(0, 0, width, height,
                     GLES30.GL_RGBA, GLES30.GL_UNSIGNED_BYTE, buf);
             OpenGLUtils.checkGlError("glReadPixels");
             buf.rewind();
@@ -0,0 +1,203 @@
+package com.cgfay.filter.gles;
+
+import android.opengl.GLES30;
+
+import com.cgfay.filter.glfilter.base.GLImageFilter;
+import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+import com.cgfay.filter.glfilter.utils.TextureRotationUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 状态缓存测试：丢弃冗余调用之后，每次绘制时的GL状态与不使用缓存时完全一致
+ */
+public class GLStateCacheTest {
+
+    private static final int WIDTH = 720;
+    private static final int HEIGHT = 1280;
+    private static final int INPUT_TEXTURE = 1000;
+    private static final int FILTER_COUNT = 3;
+
+    /**
+     * 在每次绘制时记录当前的GL状态，对象id按出现顺序编号，不受创建方式影响
+     */
+    private static class SnapshotGLBackend extends RecordingGLBackend {
+
+        final List<String> mSnapshots = new ArrayList<>();
+        private final Map<Integer, Integer> mNames = new HashMap<>();
+
+        private int name(int id) {
+            if (id == 0 || id == INPUT_TEXTURE) {
+                return id;
+            }
+            Integer name = mNames.get(id);
+            if (name == null) {
+                name = -(mNames.size() + 1);
+                mNames.put(id, name);
+            }
+            return name;
+        }
+
+        @Override
+        public void glDrawArrays(int mode, int first, int count) {
+            super.glDrawArrays(mode, first, count);
+            mSnapshots.add("program=" + name(getCurrentProgram())
+                    + " fbo=" + name(getCurrentFramebuffer())
+                    + " viewport=" + Arrays.toString(getViewport())
+                    + " texture0=" + name(getBoundTexture(GLES30.GL_TEXTURE0, GLES30.GL_TEXTURE_2D))
+                    + " attrib0=" + isVertexAttribArrayEnabled(0)
+                    + " attrib1=" + isVertexAttribArrayEnabled(1)
+                    + " blend=" + isEnabled(GLES30.GL_BLEND));
+        }
+    }
+
+    private FloatBuffer mVertexBuffer;
+    private FloatBuffer mTextureBuffer;
+
+    @Before
+    public void setUp() {
+        mVertexBuffer = OpenGLUtils.createFloatBuffer(TextureRotationUtils.CubeVertices);
+        mTextureBuffer = OpenGLUtils.createFloatBuffer(TextureRotationUtils.TextureVertices);
+    }
+
+    @After
+    public void tearDown() {
+        GLES.setThreadBackend(null);
+        GLES.setBackend(null);
+    }
+
+    private GLImageFilter[] createFilters() {
+        GLImageFilter[] filters = new GLImageFilter[FILTER_COUNT];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = new GLImageFilter(null);
+            filters[i].onInputSizeChanged(WIDTH, HEIGHT);
+            filters[i].onDisplaySizeChanged(WIDTH, HEIGHT);
+            filters[i].initFrameBuffer(WIDTH, HEIGHT);
+        }
+        return filters;
+    }
+
+    private void drawChain(GLImageFilter[] filters) {
+        int texture = INPUT_TEXTURE;
+        for (GLImageFilter filter : filters) {
+            texture = filter.drawFrameBuffer(texture, mVertexBuffer, mTextureBuffer);
+        }
+        filters[filters.length - 1].drawFrame(texture, mVertexBuffer, mTextureBuffer);
+    }
+
+    @Test
+    public void cachedChainMatchesUncachedState() {
+        SnapshotGLBackend direct = new SnapshotGLBackend();
+        GLES.setBackend(direct);
+        GLImageFilter[] filters = createFilters();
+        drawChain(filters);
+        drawChain(filters);
+
+        SnapshotGLBackend cached = new SnapshotGLBackend();
+        GLStateCache cache = new GLStateCache(cached);
+        GLES.setBackend(cached);
+        GLES.setThreadBackend(cache);
+        filters = createFilters();
+        drawChain(filters);
+        drawChain(filters);
+
+        assertEquals(2 * (FILTER_COUNT + 1), direct.mSnapshots.size());
+        assertEquals(direct.mSnapshots, cached.mSnapshots);
+    }
+
+    @Test
+    public void redundantStateChangesAreElided() {
+        RecordingGLBackend direct = new RecordingGLBackend();
+        GLES.setBackend(direct);
+        GLImageFilter[] filters = createFilters();
+        direct.beginFrame();
+        drawChain(filters);
+        int directCalls = direct.getFrameCallCount();
+
+        RecordingGLBackend recording = new RecordingGLBackend();
+        GLStateCache cache = new GLStateCache(recording);
+        GLES.setBackend(recording);
+        GLES.setThreadBackend(cache);
+        filters = createFilters();
+        // 第一帧需要建立状态，从第二帧开始统计
+        drawChain(filters);
+        cache.beginFrame();
+        recording.beginFrame();
+        drawChain(filters);
+
+        assertEquals(FILTER_COUNT + 1, recording.getDrawCount());
+        assertEquals(directCalls, cache.getIssuedCount() + cache.getElidedCount());
+        assertEquals(recording.getFrameCallCount(), cache.getIssuedCount());
+        assertTrue(cache.getElidedCount() > 0);
+        assertTrue(recording.getStateChangeCount() < direct.getStateChangeCount());
+        // 每个阶段的FBO只绑定一次，绘制完的解绑被下一次绑定覆盖
+        assertEquals(FILTER_COUNT + 1, recording.getFramebufferBindCount());
+        assertTrue(recording.getTextureBindCount() < direct.getTextureBindCount());
+
+        cache.beginFrame();
+        assertEquals(0, cache.getIssuedCount());
+        assertEquals(recording.getFrameCallCount(), cache.getLastFrameIssuedCount());
+        assertEquals(directCalls - recording.getFrameCallCount(), cache.getLastFrameElidedCount());
+    }
+
+    @Test
+    public void invalidateReissuesState() {
+        RecordingGLBackend recording = new RecordingGLBackend();
+        GLStateCache cache = new GLStateCache(recording);
+        GLES.setBackend(recording);
+        GLES.setThreadBackend(cache);
+
+        GLES.glUseProgram(5);
+        GLES.glUniform1i(0, 0);
+        GLES.glUseProgram(5);
+        GLES.glUniform1i(0, 0);
+        assertEquals(1, recording.getStateChangeCount());
+
+        // 外部切换了context，缓存的状态不再可信
+        GLES.invalidateState();
+        GLES.glUseProgram(5);
+        GLES.glUniform1i(0, 0);
+        assertEquals(2, recording.getStateChangeCount());
+        assertEquals(5, recording.getCurrentProgram());
+
+        // 删除当前绑定的FBO之后，GL绑定回0
+        int[] frameBuffer = new int[1];
+        GLES.glGenFramebuffers(1, frameBuffer, 0);
+        GLES.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, frameBuffer[0]);
+        GLES.glClear(GLES30.GL_COLOR_BUFFER_BIT);
+        GLES.glDeleteFramebuffers(1, frameBuffer, 0);
+        GLES.glBindFramebuffer(GLES30.GL_FRAMEBUFFER, 0);
+        GLES.glClear(GLES30.GL_COLOR_BUFFER_BIT);
+        assertEquals(1, recording.getFramebufferBindCount());
+        assertEquals(0, recording.getCurrentFramebuffer());
+    }
+
+    @Test
+    public void otherThreadsBypassCache() throws InterruptedException {
+        final RecordingGLBackend recording = new RecordingGLBackend();
+        GLES.setBackend(recording);
+        GLES.setThreadBackend(new GLStateCache(recording));
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                GLES.glUseProgram(1);
+                GLES.glUseProgram(1);
+            }
+        });
+        thread.start();
+        thread.join();
+        assertEquals(2, recording.getStateChangeCount());
+    }
+}
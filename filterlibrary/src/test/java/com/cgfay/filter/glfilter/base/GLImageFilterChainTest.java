@@ -0,0 +1,154 @@
+package com.cgfay.filter.glfilter.base;
+
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.gles.RecordingGLBackend;
+import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+import com.cgfay.filter.glfilter.utils.TextureRotationUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 通过RecordingGLBackend在JVM中运行滤镜链路，统计每帧的GL调用
+ */
+public class GLImageFilterChainTest {
+
+    private static final int WIDTH = 720;
+    private static final int HEIGHT = 1280;
+    private static final int INPUT_TEXTURE = 1000;
+
+    private RecordingGLBackend mGL;
+    private FloatBuffer mVertexBuffer;
+    private FloatBuffer mTextureBuffer;
+
+    @Before
+    public void setUp() {
+        mGL = new RecordingGLBackend();
+        GLES.setBackend(mGL);
+        mVertexBuffer = OpenGLUtils.createFloatBuffer(TextureRotationUtils.CubeVertices);
+        mTextureBuffer = OpenGLUtils.createFloatBuffer(TextureRotationUtils.TextureVertices);
+    }
+
+    @After
+    public void tearDown() {
+        GLES.setBackend(null);
+    }
+
+    private GLImageFilter createFilter() {
+        GLImageFilter filter = new GLImageFilter(null);
+        filter.onInputSizeChanged(WIDTH, HEIGHT);
+        filter.onDisplaySizeChanged(WIDTH, HEIGHT);
+        return filter;
+    }
+
+    @Test
+    public void drawFrameBufferChainCounts() {
+        GLImageFilter[] filters = new GLImageFilter[3];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = createFilter();
+            filters[i].initFrameBuffer(WIDTH, HEIGHT);
+        }
+        assertEquals(3, mGL.getLiveProgramCount());
+        assertEquals(3, mGL.getLiveFramebufferCount());
+
+        mGL.beginFrame();
+        int texture = INPUT_TEXTURE;
+        for (GLImageFilter filter : filters) {
+            int output = filter.drawFrameBuffer(texture, mVertexBuffer, mTextureBuffer);
+            assertNotEquals(texture, output);
+            texture = output;
+        }
+        // 每个阶段一次绘制，绑定/解绑FBO各一次，绑定/解绑纹理各一次
+        assertEquals(3, mGL.getDrawCount());
+        assertEquals(6, mGL.getFramebufferBindCount());
+        assertEquals(6, mGL.getTextureBindCount());
+        assertEquals(3, mGL.getUniformCount());
+        // 视口、program、两个顶点属性的设置/启用/关闭、激活纹理单元、解绑program
+        assertEquals(30, mGL.getStateChangeCount());
+        assertEquals(0, mGL.getCurrentFramebuffer());
+        assertEquals(0, mGL.getCurrentProgram());
+        assertTrue(Arrays.equals(new int[] { 0, 0, WIDTH, HEIGHT }, mGL.getViewport()));
+
+        for (GLImageFilter filter : filters) {
+            filter.release();
+        }
+        assertEquals(0, mGL.getLiveProgramCount());
+        assertEquals(0, mGL.getLiveFramebufferCount());
+        assertEquals(0, mGL.getLiveTextureCount());
+    }
+
+    @Test
+    public void disabledFilterIssuesNoCalls() {
+        GLImageFilter filter = createFilter();
+        filter.initFrameBuffer(WIDTH, HEIGHT);
+        filter.setFilterEnable(false);
+
+        mGL.beginFrame();
+        assertEquals(INPUT_TEXTURE, filter.drawFrameBuffer(INPUT_TEXTURE, mVertexBuffer, mTextureBuffer));
+        assertEquals(0, mGL.getFrameCallCount());
+    }
+
+    @Test
+    public void groupFilterDrawsEveryChild() {
+        GLImageGroupFilter group = new GLImageGroupFilter(null,
+                Arrays.asList(createFilter(), createFilter())) {
+        };
+        group.onInputSizeChanged(WIDTH, HEIGHT);
+        group.initFrameBuffer(WIDTH, HEIGHT);
+
+        mGL.beginFrame();
+        mGL.setRecordCalls(true);
+        group.drawFrameBuffer(INPUT_TEXTURE, mVertexBuffer, mTextureBuffer);
+        assertEquals(2, mGL.getDrawCount());
+        assertEquals(4, mGL.getFramebufferBindCount());
+        assertEquals("glViewport", mGL.getCalls().get(0));
+        assertEquals("glBindFramebuffer", mGL.getCalls().get(mGL.getCalls().size() - 1));
+    }
+
+    @Test
+    public void pooledChainUsesPlannedFrameBuffers() {
+        RenderGraph graph = new RenderGraph();
+        FrameBufferPool pool = new FrameBufferPool();
+        GLImageFilter[] filters = new GLImageFilter[5];
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = createFilter();
+            filters[i].setExternalFrameBuffer(true);
+            filters[i].initFrameBuffer(WIDTH, HEIGHT);
+            graph.addStage(RenderGraph.TYPE_POOLED, true);
+        }
+        graph.addStage(RenderGraph.TYPE_SCREEN, true);
+        graph.plan();
+        pool.ensure(graph.getSlotCount(), WIDTH, HEIGHT);
+        // 滤镜自身不创建FBO，只有共享的两个
+        assertEquals(2, mGL.getLiveFramebufferCount());
+        assertEquals(2, mGL.getLiveTextureCount());
+
+        mGL.beginFrame();
+        int texture = INPUT_TEXTURE;
+        for (int i = 0; i < filters.length; i++) {
+            pool.bindFilter(filters[i], graph.getOutputSlot(i));
+            int output = filters[i].drawFrameBuffer(texture, mVertexBuffer, mTextureBuffer);
+            assertEquals(pool.getTexture(graph.getOutputSlot(i)), output);
+            assertNotEquals(texture, output);
+            texture = output;
+        }
+        assertEquals(5, mGL.getDrawCount());
+
+        // 释放滤镜不会销毁共享FBO
+        for (GLImageFilter filter : filters) {
+            filter.release();
+        }
+        assertEquals(2, mGL.getLiveFramebufferCount());
+        pool.release();
+        assertEquals(0, mGL.getLiveFramebufferCount());
+        assertEquals(0, mGL.getLiveTextureCount());
+    }
+}
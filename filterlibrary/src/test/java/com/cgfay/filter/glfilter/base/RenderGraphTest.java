@@ -0,0 +1,174 @@
+package com.cgfay.filter.glfilter.base;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 渲染图规划测试，阶段顺序与相机预览的滤镜链一致：
+ * 相机输入 -> 美颜 -> 彩妆 -> 美型 -> 颜色滤镜 -> 资源 -> 景深 -> 暗角 -> 显示
+ */
+public class RenderGraphTest {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 720;
+
+    private static final int CAMERA = 0;
+    private static final int BEAUTY = 1;
+    private static final int MAKEUP = 2;
+    private static final int FACE_ADJUST = 3;
+    private static final int FILTER = 4;
+    private static final int RESOURCE = 5;
+    private static final int DEPTH_BLUR = 6;
+    private static final int VIGNETTE = 7;
+    private static final int DISPLAY = 8;
+
+    private static final int[] TYPES = {
+            RenderGraph.TYPE_POOLED,    // 相机输入
+            RenderGraph.TYPE_OWNED,     // 美颜
+            RenderGraph.TYPE_POOLED,    // 彩妆
+            RenderGraph.TYPE_POOLED,    // 美型
+            RenderGraph.TYPE_OWNED,     // 颜色滤镜
+            RenderGraph.TYPE_OWNED,     // 资源
+            RenderGraph.TYPE_POOLED,    // 景深
+            RenderGraph.TYPE_POOLED,    // 暗角
+            RenderGraph.TYPE_SCREEN,    // 显示
+    };
+
+    private static RenderGraph plan(boolean retainOutput, boolean... enabled) {
+        RenderGraph graph = new RenderGraph();
+        graph.setRetainOutput(retainOutput);
+        for (int i = 0; i < TYPES.length; i++) {
+            graph.addStage(TYPES[i], enabled[i]);
+        }
+        graph.plan();
+        return graph;
+    }
+
+    /**
+     * 检查规划结果：每个阶段的输出在被读取完之前，不会被其它阶段覆盖
+     */
+    private static void assertNoOverwrite(RenderGraph graph) {
+        for (int i = 0; i < graph.getStageCount(); i++) {
+            int slot = graph.getOutputSlot(i);
+            if (slot == RenderGraph.SLOT_NONE) {
+                continue;
+            }
+            for (int j = i + 1; j <= graph.getLastUse(i) && j < graph.getStageCount(); j++) {
+                assertNotEquals("stage " + j + " overwrites output of stage " + i,
+                        slot, graph.getOutputSlot(j));
+            }
+        }
+    }
+
+    @Test
+    public void fullChainPingPongsBetweenTwoFrameBuffers() {
+        RenderGraph graph = plan(false, true, true, true, true, true, true, true, true, true);
+        assertNoOverwrite(graph);
+        // 原来每个阶段一个FBO，共享之后只需要两个
+        assertEquals(2, graph.getSlotCount());
+        assertEquals(2 * RenderGraph.getFrameBytes(WIDTH, HEIGHT), graph.getFrameBufferBytes(WIDTH, HEIGHT));
+        // 美颜输出到自身的FBO，相机输入的FBO在美颜之后就可以被彩妆复用
+        assertEquals(RenderGraph.SLOT_NONE, graph.getOutputSlot(BEAUTY));
+        assertEquals(graph.getOutputSlot(CAMERA), graph.getOutputSlot(MAKEUP));
+        assertNotEquals(graph.getOutputSlot(MAKEUP), graph.getOutputSlot(FACE_ADJUST));
+        assertNotEquals(graph.getOutputSlot(DEPTH_BLUR), graph.getOutputSlot(VIGNETTE));
+        assertEquals(VIGNETTE, graph.getOutputStage());
+        assertEquals(graph.getStageCount(), graph.getLastUse(VIGNETTE));
+    }
+
+    @Test
+    public void disabledStagesAreSkipped() {
+        // 只有相机输入和显示
+        RenderGraph graph = plan(false, true, false, false, false, false, false, false, false, true);
+        assertEquals(1, graph.getSlotCount());
+        assertEquals(RenderGraph.getFrameBytes(WIDTH, HEIGHT), graph.getFrameBufferBytes(WIDTH, HEIGHT));
+        for (int i = BEAUTY; i <= VIGNETTE; i++) {
+            assertEquals(RenderGraph.SLOT_NONE, graph.getOutputSlot(i));
+            assertEquals(-1, graph.getLastUse(i));
+        }
+        assertEquals(CAMERA, graph.getOutputStage());
+        assertEquals(graph.getStageCount(), graph.getLastUse(CAMERA));
+        assertEquals(-1, graph.getLastUse(DISPLAY));
+
+        // 景深和暗角关闭时不占用FBO
+        graph = plan(false, true, true, true, true, false, false, false, false, true);
+        assertNoOverwrite(graph);
+        assertEquals(2, graph.getSlotCount());
+        assertEquals(RenderGraph.SLOT_NONE, graph.getOutputSlot(DEPTH_BLUR));
+        assertEquals(RenderGraph.SLOT_NONE, graph.getOutputSlot(VIGNETTE));
+        assertEquals(FACE_ADJUST, graph.getOutputStage());
+    }
+
+    @Test
+    public void ownedStagesReleaseTheirInput() {
+        // 相机输入 -> 美颜 -> 暗角，美颜读取完相机输入之后，暗角可以直接复用同一个FBO
+        RenderGraph graph = plan(false, true, true, false, false, false, false, false, true, true);
+        assertNoOverwrite(graph);
+        assertEquals(1, graph.getSlotCount());
+        assertEquals(BEAUTY, graph.getLastUse(CAMERA));
+        assertEquals(VIGNETTE, graph.getLastUse(BEAUTY));
+    }
+
+    @Test
+    public void retainedOutputIsNotOverwrittenByNextFrame() {
+        RenderGraph graph = plan(true, true, true, true, true, true, true, true, true, true);
+        assertNoOverwrite(graph);
+        int outputSlot = graph.getOutputSlot(graph.getOutputStage());
+        // 最终输出独占一个FBO，下一帧前面的阶段不会覆盖它
+        for (int i = 0; i < graph.getStageCount(); i++) {
+            if (i != graph.getOutputStage()) {
+                assertNotEquals(outputSlot, graph.getOutputSlot(i));
+            }
+        }
+        assertEquals(3, graph.getSlotCount());
+
+        // 两个共享阶段时天然不冲突，不需要额外的FBO
+        graph = plan(true, true, false, false, false, false, false, false, true, true);
+        assertEquals(2, graph.getSlotCount());
+
+        // 最终输出来自组合滤镜自身的FBO时，不需要保留共享FBO
+        graph = plan(true, true, true, false, false, false, false, false, false, true);
+        assertEquals(1, graph.getSlotCount());
+        assertEquals(BEAUTY, graph.getOutputStage());
+    }
+
+    @Test
+    public void pooledMemoryNeverExceedsPerStageMemory() {
+        int stages = TYPES.length;
+        for (int mask = 0; mask < (1 << stages); mask++) {
+            boolean[] enabled = new boolean[stages];
+            int pooledStages = 0;
+            for (int i = 0; i < stages; i++) {
+                enabled[i] = (mask & (1 << i)) != 0;
+                if (enabled[i] && TYPES[i] == RenderGraph.TYPE_POOLED) {
+                    pooledStages++;
+                }
+            }
+            for (int retain = 0; retain < 2; retain++) {
+                RenderGraph graph = plan(retain == 1, enabled);
+                assertNoOverwrite(graph);
+                assertTrue(graph.getSlotCount() <= Math.min(pooledStages, retain == 1 ? 3 : 2));
+                assertTrue(graph.getFrameBufferBytes(WIDTH, HEIGHT)
+                        <= pooledStages * RenderGraph.getFrameBytes(WIDTH, HEIGHT));
+            }
+        }
+    }
+
+    @Test
+    public void replanReusesState() {
+        RenderGraph graph = new RenderGraph();
+        for (int round = 0; round < 3; round++) {
+            graph.reset();
+            for (int i = 0; i < 40; i++) {
+                graph.addStage(RenderGraph.TYPE_POOLED, i % 3 != 1);
+            }
+            graph.plan();
+            assertNoOverwrite(graph);
+            assertEquals(40, graph.getStageCount());
+            assertEquals(2, graph.getSlotCount());
+        }
+    }
+}
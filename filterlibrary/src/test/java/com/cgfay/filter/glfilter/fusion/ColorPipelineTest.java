@@ -0,0 +1,246 @@
+package com.cgfay.filter.glfilter.fusion;
+
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.gles.RecordingGLBackend;
+import com.cgfay.filter.glfilter.adjust.GLImageBrightnessFilter;
+import com.cgfay.filter.glfilter.adjust.GLImageContrastFilter;
+import com.cgfay.filter.glfilter.adjust.GLImageHueFilter;
+import com.cgfay.filter.glfilter.base.GLImageFilter;
+import com.cgfay.filter.glfilter.base.GLImageGroupFilter;
+import com.cgfay.filter.glfilter.utils.OpenGLUtils;
+import com.cgfay.filter.glfilter.utils.TextureRotationUtils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 颜色管线测试：检查生成的GLSL，并用CPU参考实现校验每个运算
+ */
+public class ColorPipelineTest {
+
+    private static final float EPSILON = 1e-4f;
+    // 查找表采样的误差，8位量化
+    private static final float LUT_EPSILON = 2.0f / 255.0f;
+    private static final String VERTEX_SHADER = "attribute vec4 aPosition;\nvoid main() { gl_Position = aPosition; }\n";
+    private static final String FRAGMENT_SHADER = "void main() { gl_FragColor = vec4(1.0); }\n";
+
+    @After
+    public void tearDown() {
+        GLES.setBackend(null);
+    }
+
+    private static float[] apply(ColorOp op, float r, float g, float b) {
+        float[] rgba = { r, g, b, 1.0f };
+        op.apply(rgba, 0.5f, 0.5f);
+        return rgba;
+    }
+
+    private static void assertColor(float[] expected, float[] actual, float epsilon) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("channel " + i, expected[i], actual[i], epsilon);
+        }
+    }
+
+    @Test
+    public void generatedShaderChainsStages() {
+        BrightnessOp brightness = new BrightnessOp();
+        ContrastOp contrast = new ContrastOp();
+        VignetteOp vignette = new VignetteOp();
+        String shader = ColorPipeline.buildFragmentShader(
+                Arrays.<ColorOp>asList(brightness, contrast, vignette));
+
+        assertTrue(shader.contains("uniform lowp float s0_brightness;\n"));
+        assertTrue(shader.contains("uniform lowp float s1_contrast;\n"));
+        assertTrue(shader.contains("uniform lowp vec2 s2_vignetteCenter;\n"));
+        assertTrue(shader.contains("uniform highp float s2_vignetteEnd;\n"));
+        assertTrue(shader.contains("vec3(s0_brightness)"));
+        assertTrue(shader.contains("distance(uv, s2_vignetteCenter)"));
+        assertFalse(shader.contains("$"));
+        // 只采样一次输入纹理
+        assertEquals(shader.indexOf("texture2D(inputTexture"), shader.lastIndexOf("texture2D(inputTexture"));
+        // 按顺序执行，每个阶段之后截断
+        int stage0 = shader.indexOf("color = clamp(stage0(color, textureCoordinate), 0.0, 1.0);");
+        int stage1 = shader.indexOf("color = clamp(stage1(color, textureCoordinate), 0.0, 1.0);");
+        int stage2 = shader.indexOf("color = clamp(stage2(color, textureCoordinate), 0.0, 1.0);");
+        assertTrue(stage0 > 0 && stage0 < stage1 && stage1 < stage2);
+        assertTrue(shader.indexOf("gl_FragColor = color;") > stage2);
+
+        // 同一种运算出现两次时uniform不冲突
+        shader = ColorPipeline.buildFragmentShader(Arrays.<ColorOp>asList(new HueOp(), new HueOp()));
+        assertTrue(shader.contains("uniform mediump float s0_hueAdjust;"));
+        assertTrue(shader.contains("uniform mediump float s1_hueAdjust;"));
+    }
+
+    @Test
+    public void adjustOpsMatchReference() {
+        BrightnessOp brightness = new BrightnessOp();
+        brightness.setBrightness(0.25f);
+        assertColor(new float[] { 0.45f, 0.55f, 0.65f, 1.0f }, apply(brightness, 0.2f, 0.3f, 0.4f), EPSILON);
+
+        ContrastOp contrast = new ContrastOp();
+        contrast.setContrast(2.0f);
+        assertColor(new float[] { 0.1f, 0.5f, 0.9f, 1.0f }, apply(contrast, 0.3f, 0.5f, 0.7f), EPSILON);
+
+        ExposureOp exposure = new ExposureOp();
+        exposure.setExposure(1.0f);
+        assertColor(new float[] { 0.4f, 0.6f, 0.8f, 1.0f }, apply(exposure, 0.2f, 0.3f, 0.4f), EPSILON);
+
+        // 饱和度为0时变成灰度
+        SaturationOp saturation = new SaturationOp();
+        saturation.setSaturation(0.0f);
+        float luminance = 0.2f * 0.2125f + 0.3f * 0.7154f + 0.4f * 0.0721f;
+        assertColor(new float[] { luminance, luminance, luminance, 1.0f },
+                apply(saturation, 0.2f, 0.3f, 0.4f), EPSILON);
+        saturation.setSaturation(1.0f);
+        assertColor(new float[] { 0.2f, 0.3f, 0.4f, 1.0f }, apply(saturation, 0.2f, 0.3f, 0.4f), EPSILON);
+    }
+
+    @Test
+    public void hueRotationPreservesLuma() {
+        HueOp hue = new HueOp();
+        // YIQ转换矩阵只有4位有效数字，往返存在少量误差
+        assertColor(new float[] { 0.2f, 0.3f, 0.4f, 1.0f }, apply(hue, 0.2f, 0.3f, 0.4f), 1e-3f);
+        hue.setHueAdjust((float) (Math.PI * 2.0));
+        assertColor(new float[] { 0.2f, 0.3f, 0.4f, 1.0f }, apply(hue, 0.2f, 0.3f, 0.4f), 1e-3f);
+
+        hue.setHueAdjust((float) Math.PI);
+        float[] rotated = apply(hue, 0.8f, 0.2f, 0.2f);
+        float lumaBefore = 0.299f * 0.8f + 0.587f * 0.2f + 0.114f * 0.2f;
+        float lumaAfter = 0.299f * rotated[0] + 0.587f * rotated[1] + 0.114f * rotated[2];
+        assertEquals(lumaBefore, lumaAfter, 1e-3f);
+        // 红色旋转180度之后变成青色
+        assertTrue(rotated[0] < rotated[1] && rotated[0] < rotated[2]);
+    }
+
+    @Test
+    public void vignetteDarkensEdges() {
+        VignetteOp vignette = new VignetteOp();
+        float[] center = { 0.2f, 0.3f, 0.4f, 0.5f };
+        vignette.apply(center, 0.5f, 0.5f);
+        assertColor(new float[] { 0.2f, 0.3f, 0.4f, 1.0f }, center, EPSILON);
+
+        // 角落到中心的距离超过结束位置，完全变成暗角颜色
+        vignette.setEnd(0.7f);
+        vignette.setColor(new float[] { 0.1f, 0.1f, 0.1f });
+        float[] corner = { 0.2f, 0.3f, 0.4f, 1.0f };
+        vignette.apply(corner, 0.0f, 0.0f);
+        assertColor(new float[] { 0.1f, 0.1f, 0.1f, 1.0f }, corner, EPSILON);
+        vignette.setEnd(0.75f);
+        vignette.setColor(new float[] { 0.0f, 0.0f, 0.0f });
+
+        // 开始和结束中间按smoothstep过渡
+        float[] middle = { 1.0f, 1.0f, 1.0f, 1.0f };
+        vignette.apply(middle, 0.5f + 0.525f, 0.5f);
+        assertEquals(0.5f, middle[0], EPSILON);
+    }
+
+    @Test
+    public void identityLookupTableKeepsColor() {
+        int[] pixels = new int[512 * 512];
+        for (int b = 0; b < 64; b++) {
+            int quadX = b % 8;
+            int quadY = b / 8;
+            for (int y = 0; y < 64; y++) {
+                for (int x = 0; x < 64; x++) {
+                    int r = Math.round(x * 255.0f / 63.0f);
+                    int g = Math.round(y * 255.0f / 63.0f);
+                    int blue = Math.round(b * 255.0f / 63.0f);
+                    pixels[(quadY * 64 + y) * 512 + quadX * 64 + x] = 0xff000000 | (r << 16) | (g << 8) | blue;
+                }
+            }
+        }
+        LookupTableOp lookup = new LookupTableOp();
+        lookup.setPixels(pixels);
+        float[][] colors = { { 0.0f, 0.0f, 0.0f }, { 1.0f, 1.0f, 1.0f }, { 0.2f, 0.5f, 0.8f }, { 0.37f, 0.91f, 0.13f } };
+        for (float[] color : colors) {
+            float[] result = apply(lookup, color[0], color[1], color[2]);
+            assertColor(new float[] { color[0], color[1], color[2], 1.0f }, result, LUT_EPSILON);
+        }
+        // 强度为0时不变
+        lookup.setPixels(new int[512 * 512]);
+        lookup.setStrength(0.0f);
+        assertColor(new float[] { 0.2f, 0.5f, 0.8f, 1.0f }, apply(lookup, 0.2f, 0.5f, 0.8f), EPSILON);
+    }
+
+    @Test
+    public void pipelineClampsBetweenStages() {
+        BrightnessOp brightness = new BrightnessOp();
+        brightness.setBrightness(0.6f);
+        ContrastOp contrast = new ContrastOp();
+        contrast.setContrast(0.5f);
+        List<ColorOp> ops = Arrays.<ColorOp>asList(brightness, contrast);
+        float[] rgba = { 0.8f, 0.2f, 0.0f, 1.0f };
+        ColorPipeline.apply(ops, rgba, 0.5f, 0.5f);
+        // 分开绘制时亮度的结果先被截断到1.0
+        assertColor(new float[] { 0.75f, 0.65f, 0.55f, 1.0f }, rgba, EPSILON);
+    }
+
+    @Test
+    public void groupFusesConsecutiveColorFilters() {
+        RecordingGLBackend gl = new RecordingGLBackend();
+        GLES.setBackend(gl);
+        final GLImageBrightnessFilter brightness = new GLImageBrightnessFilter(null,
+                VERTEX_SHADER, FRAGMENT_SHADER);
+        final GLImageContrastFilter contrast = new GLImageContrastFilter(null,
+                VERTEX_SHADER, FRAGMENT_SHADER);
+        GLImageFilter sharpen = new GLImageFilter(null);
+        GLImageHueFilter hue = new GLImageHueFilter(null, VERTEX_SHADER, FRAGMENT_SHADER);
+        GLImageGroupFilter group = new GLImageGroupFilter(null,
+                Arrays.asList(brightness, contrast, sharpen, hue)) {
+        };
+        group.onInputSizeChanged(720, 1280);
+        group.onDisplaySizeChanged(720, 1280);
+        group.initFrameBuffer(720, 1280);
+        FloatBuffer vertexBuffer = OpenGLUtils.createFloatBuffer(TextureRotationUtils.CubeVertices);
+        FloatBuffer textureBuffer = OpenGLUtils.createFloatBuffer(TextureRotationUtils.TextureVertices);
+
+        // 亮度和对比度合并成一次绘制，单独的色调不合并
+        gl.beginFrame();
+        group.drawFrameBuffer(1000, vertexBuffer, textureBuffer);
+        assertEquals(3, gl.getDrawCount());
+
+        // 禁用其中一个滤镜时重新生成shader
+        contrast.setFilterEnable(false);
+        gl.beginFrame();
+        group.drawFrameBuffer(1000, vertexBuffer, textureBuffer);
+        assertEquals(3, gl.getDrawCount());
+
+        // 全部禁用时跳过合并的滤镜
+        brightness.setFilterEnable(false);
+        gl.beginFrame();
+        group.drawFrameBuffer(1000, vertexBuffer, textureBuffer);
+        assertEquals(2, gl.getDrawCount());
+
+        group.release();
+        assertEquals(0, gl.getLiveProgramCount());
+        assertEquals(0, gl.getLiveFramebufferCount());
+    }
+
+    @Test
+    public void pipelineFilterTracksEnabledMembers() {
+        GLES.setBackend(new RecordingGLBackend());
+        GLImageBrightnessFilter brightness = new GLImageBrightnessFilter(null,
+                VERTEX_SHADER, FRAGMENT_SHADER);
+        GLImageContrastFilter contrast = new GLImageContrastFilter(null,
+                VERTEX_SHADER, FRAGMENT_SHADER);
+        GLImageColorPipelineFilter pipeline = new GLImageColorPipelineFilter(null,
+                Arrays.<GLImageFilter>asList(brightness, contrast));
+        assertTrue(pipeline.getFragmentShader().contains("s1_contrast"));
+
+        contrast.setFilterEnable(false);
+        pipeline.initFrameBuffer(720, 1280);
+        pipeline.drawFrameBuffer(1000,
+                OpenGLUtils.createFloatBuffer(TextureRotationUtils.CubeVertices),
+                OpenGLUtils.createFloatBuffer(TextureRotationUtils.TextureVertices));
+        assertTrue(pipeline.getFragmentShader().contains("s0_brightness"));
+        assertFalse(pipeline.getFragmentShader().contains("contrast"));
+    }
+}
@@ -0,0 +1,134 @@
+package com.cgfay.filter.glfilter.resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 资源数据文件映射测试，数据包按照unzipToFolder的格式生成：16字节的0作为文件头，之后依次为各个资源
+ */
+public class ResourceDataFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int HEADER = 16;
+
+    private static byte[] entry(int seed, int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (seed * 31 + i);
+        }
+        return data;
+    }
+
+    private File writePack(byte[]... entries) throws IOException {
+        File file = folder.newFile("resource.res");
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(new byte[HEADER]);
+            for (byte[] entry : entries) {
+                outputStream.write(entry);
+            }
+        } finally {
+            outputStream.close();
+        }
+        return file;
+    }
+
+    private static byte[] readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7];
+        int length;
+        while ((length = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, length);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    public void mapsWholeFile() throws IOException {
+        File file = writePack(entry(1, 100), entry(2, 3000));
+        ResourceDataFile dataFile = ResourceDataFile.open(file);
+        assertEquals(file.length(), dataFile.size());
+        assertTrue(dataFile.getBuffer().isReadOnly());
+    }
+
+    @Test
+    public void slicesShareMappedRegion() throws IOException {
+        byte[] first = entry(1, 100);
+        byte[] second = entry(2, 3000);
+        ResourceDataFile dataFile = ResourceDataFile.open(writePack(first, second));
+
+        ByteBuffer slice = dataFile.slice(HEADER + first.length, second.length);
+        assertNotNull(slice);
+        assertEquals(second.length, slice.remaining());
+        assertEquals(0, slice.position());
+        byte[] read = new byte[second.length];
+        slice.get(read);
+        assertArrayEquals(second, read);
+    }
+
+    @Test
+    public void streamsEntries() throws IOException {
+        byte[] first = entry(1, 100);
+        byte[] second = entry(2, 3000);
+        byte[] third = entry(3, 1);
+        ResourceDataFile dataFile = ResourceDataFile.open(writePack(first, second, third));
+
+        assertArrayEquals(first, readAll(dataFile.openStream(HEADER, first.length)));
+        assertArrayEquals(second, readAll(dataFile.openStream(HEADER + first.length, second.length)));
+        assertArrayEquals(third, readAll(dataFile.openStream(HEADER + first.length + second.length,
+                third.length)));
+    }
+
+    @Test
+    public void concurrentSlicesAreIndependent() throws IOException {
+        byte[] first = entry(1, 64);
+        byte[] second = entry(2, 64);
+        ResourceDataFile dataFile = ResourceDataFile.open(writePack(first, second));
+
+        InputStream a = dataFile.openStream(HEADER, first.length);
+        InputStream b = dataFile.openStream(HEADER + first.length, second.length);
+        assertEquals(first[0] & 0xFF, a.read());
+        assertEquals(second[0] & 0xFF, b.read());
+        assertEquals(first[1] & 0xFF, a.read());
+        assertEquals(first.length - 2, a.available());
+        assertEquals(second.length - 1, b.available());
+    }
+
+    @Test
+    public void streamSupportsMarkAndSkip() throws IOException {
+        byte[] data = entry(5, 32);
+        ResourceDataFile dataFile = ResourceDataFile.open(writePack(data));
+        InputStream inputStream = dataFile.openStream(HEADER, data.length);
+
+        assertTrue(inputStream.markSupported());
+        inputStream.mark(data.length);
+        assertEquals(10, inputStream.skip(10));
+        assertEquals(data[10] & 0xFF, inputStream.read());
+        inputStream.reset();
+        assertEquals(data[0] & 0xFF, inputStream.read());
+        assertEquals(data.length - 1, inputStream.skip(100));
+        assertEquals(-1, inputStream.read());
+    }
+
+    @Test
+    public void rejectsOutOfRangeEntries() throws IOException {
+        ResourceDataFile dataFile = ResourceDataFile.open(writePack(entry(1, 10)));
+        assertNull(dataFile.slice(-1, 4));
+        assertNull(dataFile.slice(0, -1));
+        assertNull(dataFile.slice(HEADER, 11));
+        assertNull(dataFile.openStream(HEADER + 10, 1));
+        assertNotNull(dataFile.slice(HEADER + 10, 0));
+    }
+}
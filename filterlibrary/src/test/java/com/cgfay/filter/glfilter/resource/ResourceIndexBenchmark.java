@@ -0,0 +1,97 @@
+package com.cgfay.filter.glfilter.resource;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 索引解析基准：比较旧版文本索引与二进制索引的解析耗时和常驻堆内存
+ * 数据量对应一个较大的序列帧贴纸，结果输出到标准输出
+ */
+public class ResourceIndexBenchmark {
+
+    private static final int ENTRIES = 2000;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    private static String legacyIndex() {
+        StringBuilder builder = new StringBuilder();
+        int offset = 16;
+        for (int i = 0; i < ENTRIES; i++) {
+            int length = 4096 + i;
+            builder.append(String.format("frame%04d_%03d.png", i / 1000, i % 1000))
+                    .append(':').append(offset)
+                    .append(':').append(length)
+                    .append(';');
+            offset += length;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 旧版实现：拆分字符串并装箱到HashMap
+     */
+    private static Map<String, int[]> parseLegacyMap(String indexString) {
+        HashMap<String, int[]> map = new HashMap<>();
+        for (String item : indexString.split(";")) {
+            String[] sub = item.split(":");
+            if (sub.length == 3) {
+                map.put(sub[0], new int[] { Integer.valueOf(sub[1]), Integer.valueOf(sub[2]) });
+            }
+        }
+        return map;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    public void measureParse() throws IOException {
+        String legacy = legacyIndex();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ResourceIndex.parseLegacy(legacy).write(outputStream);
+        byte[] binary = outputStream.toByteArray();
+
+        for (int i = 0; i < WARMUP; i++) {
+            parseLegacyMap(legacy);
+            ResourceIndex.readBinary(new ByteArrayInputStream(binary));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            parseLegacyMap(legacy);
+        }
+        long legacyNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            ResourceIndex.readBinary(new ByteArrayInputStream(binary));
+        }
+        long binaryNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        long before = usedMemory();
+        Map<String, int[]> legacyMap = parseLegacyMap(legacy);
+        long legacyBytes = usedMemory() - before;
+
+        before = usedMemory();
+        ResourceIndex index = ResourceIndex.readBinary(new ByteArrayInputStream(binary));
+        long binaryBytes = usedMemory() - before;
+
+        System.out.println(String.format("index entries=%d legacy: %d us, ~%d KB; binary: %d us, ~%d KB, %d bytes on disk",
+                ENTRIES, legacyNanos / 1000, legacyBytes / 1024, binaryNanos / 1000, binaryBytes / 1024,
+                binary.length));
+
+        assertEquals(legacyMap.size(), index.size());
+    }
+}
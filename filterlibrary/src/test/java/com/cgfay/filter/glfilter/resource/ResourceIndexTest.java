@@ -0,0 +1,128 @@
+package com.cgfay.filter.glfilter.resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 资源索引测试，覆盖二进制索引的读写、旧版文本索引的解析与转换
+ */
+public class ResourceIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ResourceIndex sample() {
+        return ResourceIndex.create(
+                new String[] { "sticker_002.png", "sticker_000.png", "lookup.png", "sticker_001.png" },
+                new int[] { 316, 16, 516, 116 },
+                new int[] { 200, 100, 50, 200 });
+    }
+
+    @Test
+    public void sortsEntriesAndExtractsFrames() {
+        ResourceIndex index = sample();
+        assertEquals(4, index.size());
+        assertEquals("lookup.png", index.getName(0));
+        assertEquals("sticker_000.png", index.getName(1));
+        assertEquals("sticker_002.png", index.getName(3));
+        assertEquals(-1, index.getFrame(0));
+        assertEquals(0, index.getFrame(1));
+        assertEquals(2, index.getFrame(3));
+        assertEquals(2, index.getMaxFrame());
+    }
+
+    @Test
+    public void looksUpByName() {
+        ResourceIndex index = sample();
+        int position = index.indexOf("sticker_001.png");
+        assertTrue(position >= 0);
+        assertEquals(116, index.getOffset(position));
+        assertEquals(200, index.getLength(position));
+        assertEquals(516, index.getOffset(index.indexOf("lookup.png")));
+        assertEquals(-1, index.indexOf("missing.png"));
+        assertEquals(-1, index.indexOf(null));
+    }
+
+    @Test
+    public void binaryRoundTrip() throws IOException {
+        ResourceIndex index = sample();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        index.write(outputStream);
+        ResourceIndex read = ResourceIndex.readBinary(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(index.size(), read.size());
+        for (int i = 0; i < index.size(); i++) {
+            assertEquals(index.getName(i), read.getName(i));
+            assertEquals(index.getOffset(i), read.getOffset(i));
+            assertEquals(index.getLength(i), read.getLength(i));
+            assertEquals(index.getFrame(i), read.getFrame(i));
+            assertEquals(i, read.indexOf(index.getName(i)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsLegacyAsBinary() throws IOException {
+        ResourceIndex.readBinary(new ByteArrayInputStream("a.png:16:10;".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void parsesLegacyIndex() throws IOException {
+        ResourceIndex index = ResourceIndex.parseLegacy("b_001.png:26:4;a_000.png:16:10;;broken;");
+        assertEquals(2, index.size());
+        assertEquals("a_000.png", index.getName(0));
+        assertEquals(26, index.getOffset(index.indexOf("b_001.png")));
+        assertEquals(4, index.getLength(index.indexOf("b_001.png")));
+        assertEquals(1, index.getMaxFrame());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMalformedLegacyOffsets() throws IOException {
+        ResourceIndex.parseLegacy("a.png:x:10;");
+    }
+
+    @Test
+    public void lastDuplicateNameWins() throws IOException {
+        ResourceIndex index = ResourceIndex.create(new String[] { "a.png", "b.png", "a.png" },
+                new int[] { 16, 26, 36 }, new int[] { 10, 10, 12 });
+        assertEquals(2, index.size());
+        assertEquals(36, index.getOffset(index.indexOf("a.png")));
+        assertEquals(12, index.getLength(index.indexOf("a.png")));
+        // 旧版文本索引同样以最后一个为准
+        index = ResourceIndex.parseLegacy("x_000.png:16:10;x_000.png:26:4;");
+        assertEquals(1, index.size());
+        assertEquals(26, index.getOffset(0));
+    }
+
+    @Test
+    public void convertsLegacyFile() throws IOException {
+        File legacy = folder.newFile(ResourceIndex.LEGACY_INDEX_NAME);
+        FileOutputStream outputStream = new FileOutputStream(legacy);
+        try {
+            outputStream.write("x_000.png:16:10;x_001.png:26:12;".getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+        File binary = ResourceIndex.convertLegacy(legacy);
+        assertEquals(ResourceIndex.BINARY_INDEX_NAME, binary.getName());
+        ResourceIndex index = ResourceIndex.read(binary);
+        assertEquals(2, index.size());
+        assertEquals(26, index.getOffset(index.indexOf("x_001.png")));
+        assertEquals(12, index.getLength(index.indexOf("x_001.png")));
+    }
+
+    @Test
+    public void handlesEmptyIndex() throws IOException {
+        ResourceIndex index = ResourceIndex.parseLegacy("");
+        assertEquals(0, index.size());
+        assertEquals(-1, index.getMaxFrame());
+        assertEquals(-1, index.indexOf("a.png"));
+    }
+}
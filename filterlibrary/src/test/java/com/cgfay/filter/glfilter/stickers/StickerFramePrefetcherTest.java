@@ -0,0 +1,199 @@
+package com.cgfay.filter.glfilter.stickers;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * 贴纸预解码调度测试，解码任务放入手动执行的队列中，保证调度顺序可控
+ */
+public class StickerFramePrefetcherTest {
+
+    /**
+     * 手动执行的工作线程
+     */
+    private static class ManualExecutor implements Executor {
+
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        boolean runOne() {
+            Runnable task = tasks.poll();
+            if (task == null) {
+                return false;
+            }
+            task.run();
+            return true;
+        }
+
+        void runAll() {
+            while (runOne()) {
+                ;
+            }
+        }
+    }
+
+    /**
+     * 记录解码和回收顺序的解码器
+     */
+    private static class RecordingDecoder implements StickerFramePrefetcher.FrameDecoder<String> {
+
+        final List<Integer> decoded = new ArrayList<>();
+        final List<String> recycled = new ArrayList<>();
+        int failFrame = -1;
+
+        @Override
+        public String decode(int frame) {
+            decoded.add(frame);
+            return frame == failFrame ? null : "frame" + frame;
+        }
+
+        @Override
+        public void recycle(String data) {
+            recycled.add(data);
+        }
+    }
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private final RecordingDecoder decoder = new RecordingDecoder();
+
+    @Test
+    public void prefetchesLeadingFramesOnStart() {
+        StickerFramePrefetcher<String> prefetcher = new StickerFramePrefetcher<>(decoder, executor, 10, 3);
+        prefetcher.start();
+        executor.runAll();
+        assertEquals(3, prefetcher.getBufferedCount());
+        assertEquals("[0, 1, 2]", decoder.decoded.toString());
+    }
+
+    @Test
+    public void hitsFollowTheTimeline() {
+        StickerFramePrefetcher<String> prefetcher = new StickerFramePrefetcher<>(decoder, executor, 10, 3);
+        prefetcher.start();
+        executor.runAll();
+        for (int frame = 0; frame < 10; frame++) {
+            assertEquals("frame" + frame, prefetcher.acquire(frame));
+            executor.runAll();
+        }
+        assertEquals(10, prefetcher.getHitCount());
+        assertEquals(0, prefetcher.getMissCount());
+        assertEquals(0, prefetcher.getLateCount());
+        assertTrue(decoder.recycled.isEmpty());
+    }
+
+    @Test
+    public void windowWrapsAroundForLooping() {
+        StickerFramePrefetcher<String> prefetcher = new StickerFramePrefetcher<>(decoder, executor, 4, 3);
+        prefetcher.start();
+        executor.runAll();
+        prefetcher.acquire(0);
+        executor.runAll();
+        prefetcher.acquire(1);
+        executor.runAll();
+        prefetcher.acquire(2);
+        executor.runAll();
+        prefetcher.acquire(3);
+        executor.runAll();
+        assertEquals("frame0", prefetcher.acquire(0));
+        assertEquals(5, prefetcher.getHitCount());
+    }
+
+    @Test
+    public void countsMissWhenWorkerFallsBehind() {
+        StickerFramePrefetcher<String> prefetcher = new StickerFramePrefetcher<>(decoder, executor, 10, 3);
+        prefetcher.start();
+        assertNull(prefetcher.acquire(0));
+        assertEquals(1, prefetcher.getMissCount());
+        executor.runAll();
+        assertEquals("[1, 2, 3]", decoder.decoded.toString());
+    }
+
+    @Test
+    public void countsLateWhenFrameIsDecoding() {
+        final StickerFramePrefetcher<String>[] holder = new StickerFramePrefetcher[1];
+        final String[] acquired = new String[1];
+        StickerFramePrefetcher.FrameDecoder<String> slowDecoder = new StickerFramePrefetcher.FrameDecoder<String>() {
+            @Override
+            public String decode(int frame) {
+                // GL线程在解码过程中请求同一帧
+                if (frame == 0) {
+                    acquired[0] = holder[0].acquire(0);
+                }
+                return decoder.decode(frame);
+            }
+
+            @Override
+            public void recycle(String data) {
+                decoder.recycle(data);
+            }
+        };
+        holder[0] = new StickerFramePrefetcher<>(slowDecoder, executor, 10, 3);
+        holder[0].start();
+        executor.runOne();
+        assertNull(acquired[0]);
+        assertEquals(1, holder[0].getLateCount());
+        // 晚到的帧已经由GL线程同步解码，工作线程的结果被回收
+        assertEquals("[frame0]", decoder.recycled.toString());
+        executor.runAll();
+        assertEquals(3, holder[0].getBufferedCount());
+    }
+
+    @Test
+    public void skippingFramesRecyclesStaleEntries() {
+        StickerFramePrefetcher<String> prefetcher = new StickerFramePrefetcher<>(decoder, executor, 20, 3);
+        prefetcher.start();
+        executor.runAll();
+        assertNull(prefetcher.acquire(10));
+        assertEquals(1, prefetcher.getMissCount());
+        assertEquals(3, decoder.recycled.size());
+        executor.runAll();
+        assertEquals("frame11", prefetcher.acquire(11));
+    }
+
+    @Test
+    public void singleFrameStickerDecodesOnce() {
+        StickerFramePrefetcher<String> prefetcher = new StickerFramePrefetcher<>(decoder, executor, 1, 3);
+        prefetcher.start();
+        executor.runAll();
+        assertEquals("frame0", prefetcher.acquire(0));
+        executor.runAll();
+        assertEquals(0, prefetcher.getBufferedCount());
+        assertEquals("[0]", decoder.decoded.toString());
+    }
+
+    @Test
+    public void failedFrameIsSkippedUntilNextRequest() {
+        decoder.failFrame = 1;
+        StickerFramePrefetcher<String> prefetcher = new StickerFramePrefetcher<>(decoder, executor, 10, 3);
+        prefetcher.start();
+        executor.runAll();
+        assertEquals("[0, 1, 2]", decoder.decoded.toString());
+        assertEquals(2, prefetcher.getBufferedCount());
+        assertEquals("frame0", prefetcher.acquire(0));
+        executor.runAll();
+        assertEquals("[0, 1, 2, 1, 3]", decoder.decoded.toString());
+    }
+
+    @Test
+    public void releaseRecyclesBufferedFrames() {
+        StickerFramePrefetcher<String> prefetcher = new StickerFramePrefetcher<>(decoder, executor, 10, 3);
+        prefetcher.start();
+        executor.runOne();
+        executor.runOne();
+        prefetcher.release();
+        assertEquals(2, decoder.recycled.size());
+        executor.runAll();
+        assertNull(prefetcher.acquire(0));
+        assertEquals(2, decoder.recycled.size());
+        assertTrue(executor.tasks.isEmpty());
+    }
+}
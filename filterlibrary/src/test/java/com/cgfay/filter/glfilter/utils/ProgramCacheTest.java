@@ -0,0 +1,172 @@
+package com.cgfay.filter.glfilter.utils;
+
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.gles.RecordingGLBackend;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * program缓存测试
+ */
+public class ProgramCacheTest {
+
+    private static final String VERTEX_SHADER = "attribute vec4 aPosition;\nvoid main() { gl_Position = aPosition; }\n";
+    private static final String FRAGMENT_SHADER = "void main() { gl_FragColor = vec4(1.0); }\n";
+    private static final String OTHER_FRAGMENT_SHADER = "void main() { gl_FragColor = vec4(0.0); }\n";
+
+    private RecordingGLBackend mGL;
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mGL = new RecordingGLBackend();
+        mGL.setRecordCalls(true);
+        GLES.setBackend(mGL);
+        mDirectory = File.createTempFile("program", "");
+        mDirectory.delete();
+    }
+
+    @After
+    public void tearDown() {
+        GLES.setBackend(null);
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+
+    private int getCompileCount() {
+        return Collections.frequency(mGL.getCalls(), "glCompileShader");
+    }
+
+    @Test
+    public void acquireSharesBinaryBetweenInstances() {
+        ProgramCache cache = new ProgramCache();
+        int first = cache.acquire(VERTEX_SHADER, FRAGMENT_SHADER);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, getCompileCount());
+
+        int second = cache.acquire(VERTEX_SHADER, FRAGMENT_SHADER);
+        // 每个滤镜拥有自己的program，uniform互不影响
+        assertNotEquals(first, second);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, getCompileCount());
+        assertTrue(mGL.getCalls().contains("glProgramBinary"));
+        assertEquals(2, cache.getRefCount(VERTEX_SHADER, FRAGMENT_SHADER));
+
+        cache.acquire(VERTEX_SHADER, OTHER_FRAGMENT_SHADER);
+        assertEquals(2, cache.getMissCount());
+
+        cache.release(VERTEX_SHADER, FRAGMENT_SHADER, first);
+        cache.release(VERTEX_SHADER, FRAGMENT_SHADER, second);
+        assertEquals(0, cache.getRefCount(VERTEX_SHADER, FRAGMENT_SHADER));
+        assertEquals(1, mGL.getLiveProgramCount());
+
+        // 没有引用之后仍然保留二进制，切换回来时不需要重新编译
+        cache.acquire(VERTEX_SHADER, FRAGMENT_SHADER);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, getCompileCount());
+    }
+
+    @Test
+    public void binaryPersistsAcrossColdStart() {
+        ProgramCache cache = new ProgramCache(Runnable::run);
+        cache.setBinaryDirectory(mDirectory);
+        cache.acquire(VERTEX_SHADER, FRAGMENT_SHADER);
+        assertEquals(1, mDirectory.listFiles().length);
+
+        mGL.getCalls().clear();
+        ProgramCache coldCache = new ProgramCache(Runnable::run);
+        coldCache.setBinaryDirectory(mDirectory);
+        assertTrue(coldCache.acquire(VERTEX_SHADER, FRAGMENT_SHADER) > 0);
+        assertEquals(1, coldCache.getDiskHitCount());
+        assertEquals(0, coldCache.getMissCount());
+        assertEquals(0, getCompileCount());
+    }
+
+    @Test
+    public void rejectedBinaryIsRecompiled() throws IOException {
+        // 模拟驱动更新后旧的二进制不可用
+        File file = new File(mDirectory, Long.toHexString(
+                ProgramCache.hash(VERTEX_SHADER, FRAGMENT_SHADER)) + ".bin");
+        mDirectory.mkdirs();
+        DataOutputStream output = new DataOutputStream(new FileOutputStream(file));
+        output.writeInt(0x50524F47);
+        output.writeInt(1);
+        output.writeUTF(VERTEX_SHADER);
+        output.writeUTF(FRAGMENT_SHADER);
+        output.writeInt(RecordingGLBackend.PROGRAM_BINARY_FORMAT + 1);
+        output.writeInt(4);
+        output.write(new byte[4]);
+        output.close();
+
+        ProgramCache cache = new ProgramCache(Runnable::run);
+        cache.setBinaryDirectory(mDirectory);
+        assertTrue(cache.acquire(VERTEX_SHADER, FRAGMENT_SHADER) > 0);
+        assertEquals(0, cache.getDiskHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, getCompileCount());
+        // 加载失败的program已经删除，重新编译后覆盖旧文件
+        assertEquals(1, mGL.getLiveProgramCount());
+
+        ProgramCache coldCache = new ProgramCache(Runnable::run);
+        coldCache.setBinaryDirectory(mDirectory);
+        coldCache.acquire(VERTEX_SHADER, FRAGMENT_SHADER);
+        assertEquals(1, coldCache.getDiskHitCount());
+    }
+
+    @Test
+    public void binaryIsWrittenOffTheCallingThread() {
+        List<Runnable> tasks = new ArrayList<>();
+        ProgramCache cache = new ProgramCache(tasks::add);
+        cache.setBinaryDirectory(mDirectory);
+        cache.acquire(VERTEX_SHADER, FRAGMENT_SHADER);
+        // GL线程中只提交任务，不写文件
+        assertEquals(1, tasks.size());
+        assertEquals(0, mDirectory.listFiles().length);
+
+        tasks.get(0).run();
+        assertEquals(1, mDirectory.listFiles().length);
+    }
+
+    @Test
+    public void diskEntriesAreTrimmed() {
+        ProgramCache cache = new ProgramCache(Runnable::run);
+        cache.setBinaryDirectory(mDirectory);
+        int count = 40;
+        for (int i = 0; i < count; i++) {
+            String fragmentShader = "void main() { gl_FragColor = vec4(" + i + ".0); }\n";
+            int program = cache.acquire(VERTEX_SHADER, fragmentShader);
+            cache.release(VERTEX_SHADER, fragmentShader, program);
+            File file = new File(mDirectory, Long.toHexString(
+                    ProgramCache.hash(VERTEX_SHADER, fragmentShader)) + ".bin");
+            // 文件时间精度可能只有秒，这里手动设置写入顺序
+            file.setLastModified(1000000L * (i + 1));
+        }
+        File[] files = mDirectory.listFiles();
+        assertEquals(32, files.length);
+        // 最早写入的文件被淘汰
+        assertFalse(new File(mDirectory, Long.toHexString(ProgramCache.hash(VERTEX_SHADER,
+                "void main() { gl_FragColor = vec4(0.0); }\n")) + ".bin").exists());
+        assertTrue(new File(mDirectory, Long.toHexString(ProgramCache.hash(VERTEX_SHADER,
+                "void main() { gl_FragColor = vec4(39.0); }\n")) + ".bin").exists());
+    }
+}
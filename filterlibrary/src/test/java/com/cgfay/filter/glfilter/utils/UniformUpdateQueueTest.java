@@ -0,0 +1,166 @@
+package com.cgfay.filter.glfilter.utils;
+
+import com.cgfay.filter.gles.GLES;
+import com.cgfay.filter.gles.RecordingGLBackend;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * uniform更新队列测试
+ */
+public class UniformUpdateQueueTest {
+
+    /**
+     * 记录每次提交的uniform及其数值
+     */
+    private static class UniformGLBackend extends RecordingGLBackend {
+
+        final List<String> mUniforms = new ArrayList<>();
+
+        @Override
+        public void glUniform1i(int location, int x) {
+            super.glUniform1i(location, x);
+            mUniforms.add(location + ":i" + x);
+        }
+
+        @Override
+        public void glUniform1f(int location, float x) {
+            super.glUniform1f(location, x);
+            mUniforms.add(location + ":f" + x);
+        }
+
+        @Override
+        public void glUniform2fv(int location, int count, float[] v, int offset) {
+            super.glUniform2fv(location, count, v, offset);
+            mUniforms.add(location + ":v" + Arrays.toString(Arrays.copyOfRange(v, offset, offset + 2)));
+        }
+
+        @Override
+        public void glUniform1fv(int location, int count, float[] v, int offset) {
+            super.glUniform1fv(location, count, v, offset);
+            mUniforms.add(location + ":a" + Arrays.toString(Arrays.copyOfRange(v, offset, offset + count)));
+        }
+
+        @Override
+        public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+            super.glUniformMatrix4fv(location, count, transpose, value, offset);
+            mUniforms.add(location + ":m" + value[offset] + "," + value[offset + 15]);
+        }
+    }
+
+    private UniformGLBackend mGL;
+
+    @Before
+    public void setUp() {
+        mGL = new UniformGLBackend();
+        GLES.setBackend(mGL);
+    }
+
+    @After
+    public void tearDown() {
+        GLES.setBackend(null);
+    }
+
+    @Test
+    public void repeatedWritesAreCoalesced() {
+        UniformUpdateQueue queue = new UniformUpdateQueue();
+        for (int i = 0; i < 10; i++) {
+            queue.setFloat(3, i);
+            queue.setInteger(1, i);
+        }
+        queue.setFloatVec2(5, 0.5f, 0.25f);
+        // 不存在的uniform直接丢弃
+        queue.setFloat(-1, 1.0f);
+        assertEquals(3, queue.drain());
+        assertEquals(Arrays.asList("3:f9.0", "1:i9", "5:v[0.5, 0.25]"), mGL.mUniforms);
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.drain());
+    }
+
+    @Test
+    public void arrayValuesAreCopiedOnWrite() {
+        UniformUpdateQueue queue = new UniformUpdateQueue();
+        float[] matrix = new float[16];
+        matrix[0] = 1.0f;
+        matrix[15] = 2.0f;
+        queue.setUniformMatrix4f(2, matrix);
+        matrix[0] = 5.0f;
+        queue.setFloatArray(4, new float[] {1.0f, 2.0f});
+        // 同一个location的数组变长时重新分配空间
+        queue.setFloatArray(4, new float[] {1.0f, 2.0f, 3.0f});
+        queue.drain();
+        assertEquals(Arrays.asList("2:m1.0,2.0", "4:a[1.0, 2.0, 3.0]"), mGL.mUniforms);
+
+        mGL.mUniforms.clear();
+        queue.setFloatArray(4, new float[] {4.0f});
+        queue.setUniformMatrix4f(2, matrix);
+        queue.drain();
+        assertEquals(Arrays.asList("4:a[4.0]", "2:m5.0,2.0"), mGL.mUniforms);
+    }
+
+    @Test
+    public void steadyStateDoesNotAllocate() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        GLES.setBackend(new RecordingGLBackend());
+        UniformUpdateQueue queue = new UniformUpdateQueue();
+        float[] matrix = new float[16];
+        float[] vec4 = new float[4];
+        // 预热，让缓冲区扩充到稳定大小
+        for (int i = 0; i < 1000; i++) {
+            update(queue, matrix, vec4, i);
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        int frames = 100000;
+        for (int i = 0; i < frames; i++) {
+            update(queue, matrix, vec4, i);
+        }
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        // 原来每次设置至少分配一个Runnable和一个链表节点，这里平均每帧不到一个字节
+        assertTrue("allocated " + allocated + " bytes", allocated < frames);
+    }
+
+    @Test
+    public void updateLatency() {
+        GLES.setBackend(new RecordingGLBackend());
+        UniformUpdateQueue queue = new UniformUpdateQueue();
+        float[] matrix = new float[16];
+        float[] vec4 = new float[4];
+        // 预热，让JIT编译完成
+        for (int i = 0; i < 20000; i++) {
+            update(queue, matrix, vec4, i);
+        }
+        int frames = 100000;
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            update(queue, matrix, vec4, i);
+        }
+        long elapsed = System.nanoTime() - start;
+        // 每帧5次设置加一次提交
+        double nanosPerUpdate = (double) elapsed / (frames * 5);
+        System.out.println(String.format("UniformUpdateQueue: %.1f ns/update, %.1f ns/frame",
+                nanosPerUpdate, (double) elapsed / frames));
+        // 宽松的上限，只用来发现明显的退化，比如每次设置都重新分配或者长时间持有锁
+        assertTrue("update took " + nanosPerUpdate + " ns", nanosPerUpdate < 10000);
+    }
+
+    private static void update(UniformUpdateQueue queue, float[] matrix, float[] vec4, int frame) {
+        queue.setFloat(0, frame);
+        queue.setFloat(0, frame + 1);
+        queue.setInteger(1, frame);
+        queue.setFloatVec4(2, vec4);
+        queue.setUniformMatrix4f(3, matrix);
+        queue.drain();
+    }
+}
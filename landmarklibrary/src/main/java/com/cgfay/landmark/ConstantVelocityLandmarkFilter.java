@@ -0,0 +1,45 @@
+package com.cgfay.landmark;
+
+/**
+ * 匀速模型滤波器(α-β滤波，即匀速模型下的稳态卡尔曼滤波)
+ * 每次检测结果到来时，先按当前速度把位置外推到检测时刻，再用检测残差按α、β修正位置和速度。
+ * 匀速运动时没有稳态滞后，静止时抑制抖动；α = β = 1时退化为不做平滑的纯外推
+ */
+public class ConstantVelocityLandmarkFilter extends LandmarkFilter {
+
+    // 位置修正系数，取值(0, 1]，越小越平滑
+    private final float mAlpha;
+    // 速度修正系数，取值(0, 1]
+    private final float mBeta;
+
+    /**
+     * 默认α = 0.5，β按临界阻尼取 α * α / (2 - α)
+     */
+    public ConstantVelocityLandmarkFilter() {
+        this(0.5f, 0.5f * 0.5f / (2 - 0.5f));
+    }
+
+    /**
+     * @param alpha 位置修正系数，取值(0, 1]
+     * @param beta  速度修正系数，取值(0, 1]
+     */
+    public ConstantVelocityLandmarkFilter(float alpha, float beta) {
+        if (alpha <= 0 || alpha > 1 || beta <= 0 || beta > 1) {
+            throw new IllegalArgumentException("alpha and beta must be in (0, 1]");
+        }
+        mAlpha = alpha;
+        mBeta = beta;
+    }
+
+    @Override
+    protected void onUpdate(float[] points, int offset, int base, int length, float dt) {
+        float velocityGain = mBeta / dt;
+        for (int i = 0; i < length; i++) {
+            float velocity = mVelocity[base + i];
+            float predicted = mPosition[base + i] + velocity * dt;
+            float residual = points[offset + i] - predicted;
+            mPosition[base + i] = predicted + residual * mAlpha;
+            mVelocity[base + i] = velocity + residual * velocityGain;
+        }
+    }
+}
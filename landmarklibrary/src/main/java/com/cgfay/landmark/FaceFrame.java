@@ -0,0 +1,272 @@
+package com.cgfay.landmark;
+
+/**
+ * 一帧的人脸数据，所有人脸的关键点连续存放在同一个float数组中
+ * 由FaceFrameBuffer管理，检测线程写入，渲染线程读取，读取时不要修改其中的数据
+ */
+public final class FaceFrame {
+
+    // 默认最大人脸数
+    public static final int DEFAULT_MAX_FACES = 5;
+    // 默认每个人脸的关键点坐标个数，106个关键点
+    public static final int DEFAULT_POINT_STRIDE = 106 * 2;
+
+    // 人脸个数
+    private int mFaceCount;
+    // 每个人脸的关键点坐标个数(x、y分开计算)
+    private int mPointStride;
+    // 关键点坐标，第i个人脸从 i * mPointStride 开始
+    private float[] mVertexPoints;
+    // 置信度
+    private float[] mConfidence;
+    // 俯仰角
+    private float[] mPitch;
+    // 偏航角
+    private float[] mYaw;
+    // 翻滚角
+    private float[] mRoll;
+    // 年龄
+    private float[] mAge;
+    // 性别
+    private int[] mGender;
+    // 检测时间戳，单位：纳秒
+    private long mTimestamp;
+    // 发布序号
+    private long mSequence;
+
+    public FaceFrame() {
+        this(DEFAULT_MAX_FACES, DEFAULT_POINT_STRIDE);
+    }
+
+    public FaceFrame(int maxFaces, int pointStride) {
+        allocate(maxFaces, pointStride);
+    }
+
+    /**
+     * 分配缓冲，只在人脸数或关键点个数超出当前容量时发生
+     */
+    private void allocate(int maxFaces, int pointStride) {
+        mPointStride = pointStride;
+        mVertexPoints = new float[maxFaces * pointStride];
+        mConfidence = new float[maxFaces];
+        mPitch = new float[maxFaces];
+        mYaw = new float[maxFaces];
+        mRoll = new float[maxFaces];
+        mAge = new float[maxFaces];
+        mGender = new int[maxFaces];
+    }
+
+    /**
+     * 确保容量足够，超出容量时重新分配，原有数据丢弃
+     * @param faceCount     人脸个数
+     * @param pointStride   每个人脸的关键点坐标个数
+     */
+    void ensureCapacity(int faceCount, int pointStride) {
+        if (pointStride != mPointStride || faceCount > mConfidence.length) {
+            allocate(Math.max(faceCount, mConfidence.length), pointStride);
+            mFaceCount = 0;
+        }
+    }
+
+    /**
+     * 写入一个人脸的数据，人脸个数自动扩展到index + 1
+     * @param index         人脸索引
+     * @param confidence    置信度
+     * @param pitch         俯仰角
+     * @param yaw           偏航角
+     * @param roll          翻滚角
+     * @param age           年龄
+     * @param gender        性别
+     * @param points        关键点坐标
+     * @param offset        关键点在points中的起始位置
+     */
+    public void setFace(int index, float confidence, float pitch, float yaw, float roll,
+                        float age, int gender, float[] points, int offset) {
+        if (index >= mConfidence.length) {
+            growFaces(index + 1);
+        }
+        mConfidence[index] = confidence;
+        mPitch[index] = pitch;
+        mYaw[index] = yaw;
+        mRoll[index] = roll;
+        mAge[index] = age;
+        mGender[index] = gender;
+        System.arraycopy(points, offset, mVertexPoints, index * mPointStride, mPointStride);
+        if (index >= mFaceCount) {
+            mFaceCount = index + 1;
+        }
+    }
+
+    /**
+     * 写入一个人脸对象
+     * @param index
+     * @param oneFace
+     */
+    public void setFace(int index, OneFace oneFace) {
+        if (oneFace.vertexPoints.length != mPointStride) {
+            ensureCapacity(Math.max(mFaceCount, index + 1), oneFace.vertexPoints.length);
+        }
+        setFace(index, oneFace.confidence, oneFace.pitch, oneFace.yaw, oneFace.roll,
+                oneFace.age, oneFace.gender, oneFace.vertexPoints, 0);
+    }
+
+    /**
+     * 扩容人脸数，保留已有数据
+     * @param maxFaces
+     */
+    private void growFaces(int maxFaces) {
+        float[] vertexPoints = new float[maxFaces * mPointStride];
+        System.arraycopy(mVertexPoints, 0, vertexPoints, 0, mVertexPoints.length);
+        mVertexPoints = vertexPoints;
+        mConfidence = copyOf(mConfidence, maxFaces);
+        mPitch = copyOf(mPitch, maxFaces);
+        mYaw = copyOf(mYaw, maxFaces);
+        mRoll = copyOf(mRoll, maxFaces);
+        mAge = copyOf(mAge, maxFaces);
+        int[] gender = new int[maxFaces];
+        System.arraycopy(mGender, 0, gender, 0, mGender.length);
+        mGender = gender;
+    }
+
+    private static float[] copyOf(float[] origin, int length) {
+        float[] copy = new float[length];
+        System.arraycopy(origin, 0, copy, 0, origin.length);
+        return copy;
+    }
+
+    /**
+     * 复制另一帧的数据，容量足够时不分配内存
+     * @param other
+     */
+    public void copyFrom(FaceFrame other) {
+        ensureCapacity(other.mFaceCount, other.mPointStride);
+        int faceCount = other.mFaceCount;
+        System.arraycopy(other.mVertexPoints, 0, mVertexPoints, 0, faceCount * mPointStride);
+        System.arraycopy(other.mConfidence, 0, mConfidence, 0, faceCount);
+        System.arraycopy(other.mPitch, 0, mPitch, 0, faceCount);
+        System.arraycopy(other.mYaw, 0, mYaw, 0, faceCount);
+        System.arraycopy(other.mRoll, 0, mRoll, 0, faceCount);
+        System.arraycopy(other.mAge, 0, mAge, 0, faceCount);
+        System.arraycopy(other.mGender, 0, mGender, 0, faceCount);
+        mFaceCount = faceCount;
+        mTimestamp = other.mTimestamp;
+    }
+
+    /**
+     * 设置人脸个数，多出的人脸数据被丢弃
+     * @param faceCount
+     */
+    public void setFaceCount(int faceCount) {
+        if (faceCount > mConfidence.length) {
+            growFaces(faceCount);
+        }
+        mFaceCount = Math.max(faceCount, 0);
+    }
+
+    public void setTimestamp(long timestamp) {
+        mTimestamp = timestamp;
+    }
+
+    void setSequence(long sequence) {
+        mSequence = sequence;
+    }
+
+    public int getFaceCount() {
+        return mFaceCount;
+    }
+
+    public int getPointStride() {
+        return mPointStride;
+    }
+
+    /**
+     * 获取所有人脸的关键点坐标，只读
+     * @return
+     */
+    public float[] getVertexPoints() {
+        return mVertexPoints;
+    }
+
+    /**
+     * 获取人脸关键点在getVertexPoints()中的起始位置
+     * @param faceIndex
+     * @return
+     */
+    public int getVertexOffset(int faceIndex) {
+        return faceIndex * mPointStride;
+    }
+
+    /**
+     * 获取关键点x坐标
+     * @param faceIndex     人脸索引
+     * @param pointIndex    关键点索引
+     * @return
+     */
+    public float getX(int faceIndex, int pointIndex) {
+        return mVertexPoints[faceIndex * mPointStride + pointIndex * 2];
+    }
+
+    /**
+     * 获取关键点y坐标
+     * @param faceIndex     人脸索引
+     * @param pointIndex    关键点索引
+     * @return
+     */
+    public float getY(int faceIndex, int pointIndex) {
+        return mVertexPoints[faceIndex * mPointStride + pointIndex * 2 + 1];
+    }
+
+    public float getConfidence(int faceIndex) {
+        return mConfidence[faceIndex];
+    }
+
+    public float getPitch(int faceIndex) {
+        return mPitch[faceIndex];
+    }
+
+    public float getYaw(int faceIndex) {
+        return mYaw[faceIndex];
+    }
+
+    public float getRoll(int faceIndex) {
+        return mRoll[faceIndex];
+    }
+
+    public float getAge(int faceIndex) {
+        return mAge[faceIndex];
+    }
+
+    public int getGender(int faceIndex) {
+        return mGender[faceIndex];
+    }
+
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    /**
+     * 发布序号，每次发布递增，用于判断数据是否更新
+     * @return
+     */
+    public long getSequence() {
+        return mSequence;
+    }
+
+    /**
+     * 将人脸数据复制到OneFace对象中，容量足够时不分配内存
+     * @param faceIndex
+     * @param oneFace
+     */
+    public void copyTo(int faceIndex, OneFace oneFace) {
+        oneFace.confidence = mConfidence[faceIndex];
+        oneFace.pitch = mPitch[faceIndex];
+        oneFace.yaw = mYaw[faceIndex];
+        oneFace.roll = mRoll[faceIndex];
+        oneFace.age = mAge[faceIndex];
+        oneFace.gender = mGender[faceIndex];
+        if (oneFace.vertexPoints == null || oneFace.vertexPoints.length != mPointStride) {
+            oneFace.vertexPoints = new float[mPointStride];
+        }
+        System.arraycopy(mVertexPoints, faceIndex * mPointStride, oneFace.vertexPoints, 0, mPointStride);
+    }
+}
@@ -0,0 +1,75 @@
+package com.cgfay.landmark;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 人脸数据三缓冲
+ * 检测线程在后台缓冲中写入一帧数据后发布，渲染线程取得最近发布的一帧，
+ * 双方只通过一次原子交换传递缓冲，读写都不需要加锁，也不分配内存。
+ * 写入端只能有一个线程，读取端只能有一个线程(渲染线程)。
+ */
+public final class FaceFrameBuffer {
+
+    // 中间缓冲索引的标志位，表示存在尚未被读取的新数据
+    private static final int FLAG_NEW = 0x4;
+    private static final int INDEX_MASK = 0x3;
+
+    private final FaceFrame[] mFrames = new FaceFrame[3];
+
+    // 中间缓冲索引，写入端和读取端通过交换它来传递缓冲
+    private final AtomicInteger mMiddle = new AtomicInteger(1);
+    // 后台缓冲索引，只由写入端访问
+    private int mBack = 0;
+    // 前台缓冲索引，只由读取端访问
+    private int mFront = 2;
+    // 发布序号，只由写入端访问
+    private long mSequence;
+
+    public FaceFrameBuffer() {
+        this(FaceFrame.DEFAULT_MAX_FACES, FaceFrame.DEFAULT_POINT_STRIDE);
+    }
+
+    public FaceFrameBuffer(int maxFaces, int pointStride) {
+        for (int i = 0; i < mFrames.length; i++) {
+            mFrames[i] = new FaceFrame(maxFaces, pointStride);
+        }
+    }
+
+    /**
+     * 获取后台缓冲用于写入，写入端调用
+     * 后台缓冲中保存的是任意一帧旧数据，需要完整写入后再发布
+     * @return
+     */
+    public FaceFrame getBackFrame() {
+        return mFrames[mBack];
+    }
+
+    /**
+     * 发布后台缓冲，写入端调用
+     */
+    public void publish() {
+        FaceFrame frame = mFrames[mBack];
+        frame.setSequence(++mSequence);
+        mBack = mMiddle.getAndSet(mBack | FLAG_NEW) & INDEX_MASK;
+    }
+
+    /**
+     * 取得最近发布的一帧，读取端调用
+     * 返回的数据在读取端下一次调用acquire之前保持不变
+     * @return
+     */
+    public FaceFrame acquire() {
+        if ((mMiddle.get() & FLAG_NEW) != 0) {
+            mFront = mMiddle.getAndSet(mFront) & INDEX_MASK;
+        }
+        return mFrames[mFront];
+    }
+
+    /**
+     * 是否存在尚未被读取的新数据
+     * @return
+     */
+    public boolean hasNewFrame() {
+        return (mMiddle.get() & FLAG_NEW) != 0;
+    }
+}
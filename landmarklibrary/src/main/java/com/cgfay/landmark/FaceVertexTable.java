@@ -0,0 +1,220 @@
+package com.cgfay.landmark;
+
+/**
+ * 预计算的顶点索引表
+ * 每个输出顶点都是若干个检测关键点的线性组合(直接复制、两点中心、外推等)，扩展关键点也展开为检测关键点的组合，
+ * 计算时只需要按表读取源坐标，不需要额外的临时缓冲，也不分配内存
+ */
+public final class FaceVertexTable {
+
+    // 检测得到的关键点个数
+    public static final int LANDMARK_COUNT = 106;
+    // 每个输出顶点最多由多少个关键点组合而成
+    private static final int MAX_TERMS = 3;
+
+    // 扩展关键点(106 ~ 113)展开后的组合，每行为 {索引, 权重} * MAX_TERMS
+    private static final float[][] EXTRA_TERMS = new float[8][];
+
+    static {
+        // 嘴唇中心
+        EXTRA_TERMS[FaceLandmark.mouthCenter - LANDMARK_COUNT] =
+                center(FaceLandmark.mouthUpperLipBottom, FaceLandmark.mouthLowerLipTop);
+        // 左眉心
+        EXTRA_TERMS[FaceLandmark.leftEyebrowCenter - LANDMARK_COUNT] =
+                center(FaceLandmark.leftEyebrowUpperMiddle, FaceLandmark.leftEyebrowLowerMiddle);
+        // 右眉心
+        EXTRA_TERMS[FaceLandmark.rightEyebrowCenter - LANDMARK_COUNT] =
+                center(FaceLandmark.rightEyebrowUpperMiddle, FaceLandmark.rightEyebrowLowerMiddle);
+        // 额头中心，两眼中心关于鼻孔中心的对称点
+        EXTRA_TERMS[FaceLandmark.headCenter - LANDMARK_COUNT] =
+                new float[] { FaceLandmark.eyeCenter, 2.0f, FaceLandmark.noseLowerMiddle, -1.0f, -1, 0 };
+        // 额头左侧，左眉毛左顶角与额头中心的中心
+        EXTRA_TERMS[FaceLandmark.leftHead - LANDMARK_COUNT] = new float[] {
+                FaceLandmark.leftEyebrowLeftTopCorner, 0.5f,
+                FaceLandmark.eyeCenter, 1.0f,
+                FaceLandmark.noseLowerMiddle, -0.5f };
+        // 额头右侧，右眉毛右顶角与额头中心的中心
+        EXTRA_TERMS[FaceLandmark.rightHead - LANDMARK_COUNT] = new float[] {
+                FaceLandmark.rightEyebrowRightTopCorner, 0.5f,
+                FaceLandmark.eyeCenter, 1.0f,
+                FaceLandmark.noseLowerMiddle, -0.5f };
+        // 左脸颊中心
+        EXTRA_TERMS[FaceLandmark.leftCheekCenter - LANDMARK_COUNT] =
+                center(FaceLandmark.leftCheekEdgeCenter, FaceLandmark.noseLeft);
+        // 右脸颊中心
+        EXTRA_TERMS[FaceLandmark.rightCheekCenter - LANDMARK_COUNT] =
+                center(FaceLandmark.rightCheekEdgeCenter, FaceLandmark.noseRight);
+    }
+
+    /**
+     * 扩展关键点，8个，依次对应FaceLandmark中106 ~ 113
+     */
+    public static final FaceVertexTable EXTRA_POINTS = new Builder()
+            .point(FaceLandmark.mouthCenter)
+            .point(FaceLandmark.leftEyebrowCenter)
+            .point(FaceLandmark.rightEyebrowCenter)
+            .point(FaceLandmark.leftHead)
+            .point(FaceLandmark.headCenter)
+            .point(FaceLandmark.rightHead)
+            .point(FaceLandmark.leftCheekCenter)
+            .point(FaceLandmark.rightCheekCenter)
+            .build();
+
+    /**
+     * 眼睛(眼影、眼线等)，40个顶点，可参考assets目录下的 眼睛遮罩标注.jpg
+     */
+    public static final FaceVertexTable EYE = new Builder()
+            // 关键点0 ~ 3，index = 0 ~ 3 4个
+            .range(0, 4)
+            // 关键点29 ~ 33，index = 4 ~ 8 5个
+            .range(29, 34)
+            // 关键点42 ~ 44，index = 9 ~ 11 3个
+            .range(42, 45)
+            // 关键点52 ~ 73，index = 12 ~ 33 22个
+            .range(52, 74)
+            // 右眼上中心、右眼下中心、关键点78、关键点79
+            .point(75).point(76).point(78).point(79)
+            // 左眉毛下方中心点、右眉毛下方中心点
+            .center(3, 44)
+            .center(29, 44)
+            .build();
+
+    /**
+     * 嘴唇(唇彩)，关键点84 ~ 103，20个顶点
+     */
+    public static final FaceVertexTable LIPS = new Builder()
+            .range(84, 104)
+            .build();
+
+    /**
+     * 亮眼，16个顶点
+     */
+    public static final FaceVertexTable BRIGHT_EYE = new Builder()
+            // 眼睛边沿部分 index = 0 ~ 11
+            .range(52, 64)
+            .point(72).point(73).point(75).point(76)
+            .build();
+
+    /**
+     * 美牙，嘴巴周围12个顶点
+     */
+    public static final FaceVertexTable BEAUTY_TEETH = new Builder()
+            .range(84, 96)
+            .build();
+
+    // 关键点索引，每个顶点MAX_TERMS个，未使用的为-1
+    private final int[] mIndices;
+    // 对应的权重
+    private final float[] mWeights;
+    // 顶点个数
+    private final int mVertexCount;
+
+    private FaceVertexTable(int[] indices, float[] weights, int vertexCount) {
+        mIndices = indices;
+        mWeights = weights;
+        mVertexCount = vertexCount;
+    }
+
+    /**
+     * 输出的顶点个数
+     * @return
+     */
+    public int getVertexCount() {
+        return mVertexCount;
+    }
+
+    /**
+     * 按表计算顶点坐标
+     * @param src       关键点坐标
+     * @param srcOffset 关键点在src中的起始位置
+     * @param dst       输出顶点坐标，至少需要getVertexCount() * 2个
+     * @param dstOffset 输出的起始位置
+     */
+    public void apply(float[] src, int srcOffset, float[] dst, int dstOffset) {
+        int term = 0;
+        for (int vertex = 0; vertex < mVertexCount; vertex++) {
+            float x = 0;
+            float y = 0;
+            for (int i = 0; i < MAX_TERMS; i++, term++) {
+                int index = mIndices[term];
+                if (index >= 0) {
+                    float weight = mWeights[term];
+                    x += src[srcOffset + index * 2] * weight;
+                    y += src[srcOffset + index * 2 + 1] * weight;
+                }
+            }
+            dst[dstOffset + vertex * 2] = x;
+            dst[dstOffset + vertex * 2 + 1] = y;
+        }
+    }
+
+    private static float[] center(int index1, int index2) {
+        return new float[] { index1, 0.5f, index2, 0.5f, -1, 0 };
+    }
+
+    /**
+     * 索引表构建器，只在类加载时使用
+     */
+    private static final class Builder {
+
+        private int[] mIndices = new int[16 * MAX_TERMS];
+        private float[] mWeights = new float[16 * MAX_TERMS];
+        private int mCount;
+
+        /**
+         * 添加一个关键点，扩展关键点会展开为检测关键点的组合
+         */
+        Builder point(int index) {
+            if (index >= LANDMARK_COUNT) {
+                float[] terms = EXTRA_TERMS[index - LANDMARK_COUNT];
+                return add((int) terms[0], terms[1], (int) terms[2], terms[3], (int) terms[4], terms[5]);
+            }
+            return add(index, 1.0f, -1, 0, -1, 0);
+        }
+
+        /**
+         * 添加[start, end)范围内的关键点
+         */
+        Builder range(int start, int end) {
+            for (int i = start; i < end; i++) {
+                point(i);
+            }
+            return this;
+        }
+
+        /**
+         * 添加两个检测关键点的中心点
+         */
+        Builder center(int index1, int index2) {
+            return add(index1, 0.5f, index2, 0.5f, -1, 0);
+        }
+
+        private Builder add(int index1, float weight1, int index2, float weight2, int index3, float weight3) {
+            if ((mCount + 1) * MAX_TERMS > mIndices.length) {
+                int[] indices = new int[mIndices.length * 2];
+                float[] weights = new float[mWeights.length * 2];
+                System.arraycopy(mIndices, 0, indices, 0, mIndices.length);
+                System.arraycopy(mWeights, 0, weights, 0, mWeights.length);
+                mIndices = indices;
+                mWeights = weights;
+            }
+            int base = mCount * MAX_TERMS;
+            mIndices[base] = index1;
+            mWeights[base] = weight1;
+            mIndices[base + 1] = index2;
+            mWeights[base + 1] = weight2;
+            mIndices[base + 2] = index3;
+            mWeights[base + 2] = weight3;
+            mCount++;
+            return this;
+        }
+
+        FaceVertexTable build() {
+            int[] indices = new int[mCount * MAX_TERMS];
+            float[] weights = new float[mCount * MAX_TERMS];
+            System.arraycopy(mIndices, 0, indices, 0, indices.length);
+            System.arraycopy(mWeights, 0, weights, 0, weights.length);
+            return new FaceVertexTable(indices, weights, mCount);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.cgfay.landmark;
 
-import android.util.SparseArray;
-
 /**
  * 人脸关键点引擎
+ * 检测线程通过beginFaceUpdate/endFaceUpdate(或者setFaceSize/putOneFace)写入一整帧人脸数据，
+ * 写完后通过一次原子交换发布，渲染线程读取最近发布的一帧快照，读写两端都不加锁，也不分配内存。
+ * 写入端只能有一个线程(检测线程)。
+ * 渲染线程每帧调用setRenderTimestamp后，读取到的是经过时域滤波并外推到渲染时间戳的关键点
  */
 public final class LandmarkEngine {
 
@@ -12,18 +14,28 @@ public final class LandmarkEngine {
     }
 
     private LandmarkEngine() {
-        mFaceArrays = new SparseArray<OneFace>();
+        mFaceBuffer = new FaceFrameBuffer();
     }
 
     public static LandmarkEngine getInstance() {
         return EngineHolder.instance;
     }
 
-    private final Object mSyncFence = new Object();
-
-    // 人脸对象列表
-    // 由于人脸数据个数有限，图像中的人脸个数小于千级，而且人脸索引是连续的，用SparseArray比Hashmap性能要更好
-    private final SparseArray<OneFace> mFaceArrays;
+    // 人脸数据三缓冲
+    private final FaceFrameBuffer mFaceBuffer;
+    // setFaceSize设置的当前帧人脸数，putOneFace写满后发布，只由写入端访问
+    private int mPendingFaces;
+    // 当前帧已经写入的人脸数，只由写入端访问
+    private int mPutFaces;
+    // 渲染线程复用的人脸对象
+    private OneFace[] mReadFaces = new OneFace[0];
+
+    // 关键点时域滤波器，为null时直接使用检测结果
+    private volatile LandmarkFilter mLandmarkFilter = new ConstantVelocityLandmarkFilter();
+    // 渲染线程当前使用的滤波器
+    private LandmarkFilter mActiveFilter;
+    // 滤波后的人脸数据，只由渲染线程访问
+    private final FaceFrame mFilteredFrame = new FaceFrame();
 
     // 手机当前的方向，0表示正屏幕，3表示倒过来，1表示左屏幕，2表示右屏幕
     private float mOrientation;
@@ -46,78 +58,159 @@ public final class LandmarkEngine {
     }
 
     /**
-     * 设置人脸数
+     * 设置关键点时域滤波器，可以在任意线程调用，渲染线程下一次调用setRenderTimestamp时生效
+     * @param filter    滤波器，为null时不做滤波
+     */
+    public void setLandmarkFilter(LandmarkFilter filter) {
+        mLandmarkFilter = filter;
+    }
+
+    // ---------------------------------------- 写入端 ----------------------------------------
+
+    /**
+     * 开始写入一帧人脸数据，写入完成后调用endFaceUpdate发布
+     * 返回的是三缓冲的后台缓冲，人脸个数已经清零，需要写入这一帧的全部人脸，
+     * 写入期间渲染线程看不到这一帧，发布时整帧通过一次原子交换对渲染线程可见。
+     * @return
+     */
+    public FaceFrame beginFaceUpdate() {
+        FaceFrame frame = mFaceBuffer.getBackFrame();
+        frame.setFaceCount(0);
+        // 检测时间戳需要每次重新设置
+        frame.setTimestamp(0);
+        mPendingFaces = 0;
+        mPutFaces = 0;
+        return frame;
+    }
+
+    /**
+     * 发布写入的人脸数据，写入端没有设置检测时间戳时使用当前时间
+     * 检测时间戳需要与渲染时间戳使用同一个时钟(System.nanoTime)
+     */
+    public void endFaceUpdate() {
+        FaceFrame frame = mFaceBuffer.getBackFrame();
+        if (frame.getTimestamp() == 0) {
+            frame.setTimestamp(System.nanoTime());
+        }
+        mPendingFaces = 0;
+        mFaceBuffer.publish();
+    }
+
+    /**
+     * 设置人脸数，开始写入新的一帧，之后通过putOneFace写入每个人脸
+     * 全部人脸写入之后整帧一起发布，渲染线程不会看到只更新了部分人脸的数据
      * @param size
      */
     public void setFaceSize(int size) {
-        synchronized (mSyncFence) {
-            // 剔除脏数据，有可能在前一次检测的人脸多余当前人脸
-            if (mFaceArrays.size() > size) {
-                mFaceArrays.removeAtRange(size, mFaceArrays.size() - size);
-            }
+        beginFaceUpdate();
+        if (size <= 0) {
+            endFaceUpdate();
+            return;
         }
+        mPendingFaces = size;
     }
 
     /**
-     * 是否存在人脸
-     * @return
+     * 插入一个人脸关键点数据对象，需要先调用setFaceSize
+     * @param index
      */
-    public boolean hasFace() {
-        boolean result;
-        synchronized (mSyncFence) {
-            result = mFaceArrays.size() > 0;
+    public void putOneFace(int index, OneFace oneFace) {
+        if (oneFace == null || oneFace.vertexPoints == null
+                || index < 0 || index >= mPendingFaces) {
+            return;
+        }
+        FaceFrame frame = mFaceBuffer.getBackFrame();
+        frame.setFace(index, oneFace);
+        if (++mPutFaces == mPendingFaces) {
+            endFaceUpdate();
         }
-        return result;
     }
 
     /**
-     * 获取一个人脸关键点数据对象
-     * @return
+     * 清空所有人脸对象，需要在写入线程中调用，或者在检测停止之后调用
      */
-    public OneFace getOneFace(int index) {
-        OneFace oneFace = null;
-        synchronized (mSyncFence) {
-            oneFace = mFaceArrays.get(index);
-            if (oneFace == null) {
-                oneFace = new OneFace();
+    public void clearAll() {
+        beginFaceUpdate();
+        endFaceUpdate();
+    }
+
+    // ---------------------------------------- 读取端(渲染线程) ----------------------------------------
+
+    /**
+     * 设置当前渲染帧的时间戳，渲染线程在每帧绘制之前调用
+     * 取得最近发布的人脸数据，经过滤波器平滑并外推到渲染时间戳，本帧后续读取的都是这份数据
+     * @param timestamp 渲染时间戳，单位：纳秒，需要使用System.nanoTime，
+     *                  不能使用SurfaceTexture的时间戳，部分设备上相机时间戳的时钟包含休眠时间
+     */
+    public void setRenderTimestamp(long timestamp) {
+        LandmarkFilter filter = mLandmarkFilter;
+        if (filter != mActiveFilter) {
+            if (filter != null) {
+                filter.reset();
             }
+            mActiveFilter = filter;
+        }
+        if (filter != null) {
+            filter.apply(mFaceBuffer.acquire(), timestamp, mFilteredFrame);
         }
-        return oneFace;
     }
 
     /**
-     * 插入一个人脸关键点数据对象
-     * @param index
+     * 取得渲染线程当前使用的人脸数据
+     * @return
      */
-    public void putOneFace(int index, OneFace oneFace) {
-        synchronized (mSyncFence) {
-            mFaceArrays.put(index, oneFace);
+    private FaceFrame acquireFrame() {
+        if (mActiveFilter != null) {
+            return mFilteredFrame;
         }
+        return mFaceBuffer.acquire();
     }
 
     /**
-     * 获取人脸个数
+     * 获取当前渲染帧的人脸数据快照，只能在渲染线程中调用
      * @return
      */
-    public int getFaceSize() {
-        return mFaceArrays.size();
+    public FaceFrame getFaceFrame() {
+        return acquireFrame();
     }
 
     /**
-     * 获取人脸列表
+     * 是否存在人脸
      * @return
      */
-    public SparseArray<OneFace> getFaceArrays() {
-        return mFaceArrays;
+    public boolean hasFace() {
+        return acquireFrame().getFaceCount() > 0;
     }
 
     /**
-     * 清空所有人脸对象
+     * 获取一个人脸关键点数据对象，返回的对象在渲染线程中复用，不要长期持有
+     * @return
      */
-    public void clearAll() {
-        synchronized (mSyncFence) {
-            mFaceArrays.clear();
+    public OneFace getOneFace(int index) {
+        FaceFrame frame = acquireFrame();
+        if (index >= mReadFaces.length) {
+            OneFace[] faces = new OneFace[index + 1];
+            System.arraycopy(mReadFaces, 0, faces, 0, mReadFaces.length);
+            for (int i = mReadFaces.length; i < faces.length; i++) {
+                faces[i] = new OneFace();
+            }
+            mReadFaces = faces;
+        }
+        OneFace oneFace = mReadFaces[index];
+        if (index < frame.getFaceCount()) {
+            frame.copyTo(index, oneFace);
+        } else {
+            oneFace.confidence = 0;
         }
+        return oneFace;
+    }
+
+    /**
+     * 获取人脸个数
+     * @return
+     */
+    public int getFaceSize() {
+        return acquireFrame().getFaceCount();
     }
 
     /**
@@ -126,88 +219,36 @@ public final class LandmarkEngine {
      * @param index
      */
     public void calculateExtraFacePoints(float[] vertexPoints, int index) {
-        if (vertexPoints == null || index >= mFaceArrays.size() || mFaceArrays.get(index) == null
-                || mFaceArrays.get(index).vertexPoints.length + 8 * 2 > vertexPoints.length) {
+        FaceFrame frame = acquireFrame();
+        if (vertexPoints == null || index >= frame.getFaceCount()
+                || frame.getPointStride() != FaceVertexTable.LANDMARK_COUNT * 2
+                || frame.getPointStride() + 8 * 2 > vertexPoints.length) {
             return;
         }
-        OneFace oneFace = mFaceArrays.get(index);
         // 复制关键点的数据
-        System.arraycopy(oneFace.vertexPoints, 0, vertexPoints, 0, oneFace.vertexPoints.length);
-        // 新增的人脸关键点
-        float[] point = new float[2];
-        // 嘴唇中心
-        FacePointsUtils.getCenter(point,
-                vertexPoints[FaceLandmark.mouthUpperLipBottom * 2],
-                vertexPoints[FaceLandmark.mouthUpperLipBottom * 2 + 1],
-                vertexPoints[FaceLandmark.mouthLowerLipTop * 2],
-                vertexPoints[FaceLandmark.mouthLowerLipTop * 2 + 1]
-        );
-        vertexPoints[FaceLandmark.mouthCenter * 2] = point[0];
-        vertexPoints[FaceLandmark.mouthCenter * 2 + 1] = point[1];
-
-        // 左眉心
-        FacePointsUtils.getCenter(point,
-                vertexPoints[FaceLandmark.leftEyebrowUpperMiddle * 2],
-                vertexPoints[FaceLandmark.leftEyebrowUpperMiddle * 2 + 1],
-                vertexPoints[FaceLandmark.leftEyebrowLowerMiddle * 2],
-                vertexPoints[FaceLandmark.leftEyebrowLowerMiddle * 2 + 1]
-        );
-        vertexPoints[FaceLandmark.leftEyebrowCenter * 2] = point[0];
-        vertexPoints[FaceLandmark.leftEyebrowCenter * 2 + 1] = point[1];
-
-        // 右眉心
-        FacePointsUtils.getCenter(point,
-                vertexPoints[FaceLandmark.rightEyebrowUpperMiddle * 2],
-                vertexPoints[FaceLandmark.rightEyebrowUpperMiddle * 2 + 1],
-                vertexPoints[FaceLandmark.rightEyebrowLowerMiddle * 2],
-                vertexPoints[FaceLandmark.rightEyebrowLowerMiddle * 2 + 1]
-        );
-        vertexPoints[FaceLandmark.rightEyebrowCenter * 2] = point[0];
-        vertexPoints[FaceLandmark.rightEyebrowCenter * 2 + 1] = point[1];
-
-        // 额头中心
-        vertexPoints[FaceLandmark.headCenter * 2] = vertexPoints[FaceLandmark.eyeCenter * 2] * 2.0f - vertexPoints[FaceLandmark.noseLowerMiddle * 2];
-        vertexPoints[FaceLandmark.headCenter * 2 + 1] = vertexPoints[FaceLandmark.eyeCenter * 2 + 1] * 2.0f - vertexPoints[FaceLandmark.noseLowerMiddle * 2 + 1];
-
-        // 额头左侧，备注：这个点不太准确，后续优化
-        FacePointsUtils.getCenter(point,
-                vertexPoints[FaceLandmark.leftEyebrowLeftTopCorner * 2],
-                vertexPoints[FaceLandmark.leftEyebrowLeftTopCorner * 2 + 1],
-                vertexPoints[FaceLandmark.headCenter * 2],
-                vertexPoints[FaceLandmark.headCenter * 2 + 1]
-        );
-        vertexPoints[FaceLandmark.leftHead * 2] = point[0];
-        vertexPoints[FaceLandmark.leftHead * 2 + 1] = point[1];
-
-        // 额头右侧，备注：这个点不太准确，后续优化
-        FacePointsUtils.getCenter(point,
-                vertexPoints[FaceLandmark.rightEyebrowRightTopCorner * 2],
-                vertexPoints[FaceLandmark.rightEyebrowRightTopCorner * 2 + 1],
-                vertexPoints[FaceLandmark.headCenter * 2],
-                vertexPoints[FaceLandmark.headCenter * 2 + 1]
-        );
-        vertexPoints[FaceLandmark.rightHead * 2] = point[0];
-        vertexPoints[FaceLandmark.rightHead * 2 + 1] = point[1];
-
-        // 左脸颊中心
-        FacePointsUtils.getCenter(point,
-                vertexPoints[FaceLandmark.leftCheekEdgeCenter * 2],
-                vertexPoints[FaceLandmark.leftCheekEdgeCenter * 2 + 1],
-                vertexPoints[FaceLandmark.noseLeft * 2],
-                vertexPoints[FaceLandmark.noseLeft * 2 + 1]
-        );
-        vertexPoints[FaceLandmark.leftCheekCenter * 2] = point[0];
-        vertexPoints[FaceLandmark.leftCheekCenter * 2 + 1] = point[1];
-
-        // 右脸颊中心
-        FacePointsUtils.getCenter(point,
-                vertexPoints[FaceLandmark.rightCheekEdgeCenter * 2],
-                vertexPoints[FaceLandmark.rightCheekEdgeCenter * 2 + 1],
-                vertexPoints[FaceLandmark.noseRight * 2],
-                vertexPoints[FaceLandmark.noseRight * 2 + 1]
-        );
-        vertexPoints[FaceLandmark.rightCheekCenter * 2] = point[0];
-        vertexPoints[FaceLandmark.rightCheekCenter * 2 + 1] = point[1];
+        System.arraycopy(frame.getVertexPoints(), frame.getVertexOffset(index), vertexPoints, 0,
+                frame.getPointStride());
+        // 新增的人脸关键点，依次为嘴唇中心、左眉心、右眉心、额头左侧、额头中心、额头右侧、左脸颊中心、右脸颊中心
+        FaceVertexTable.EXTRA_POINTS.apply(frame.getVertexPoints(), frame.getVertexOffset(index),
+                vertexPoints, frame.getPointStride());
+    }
+
+    /**
+     * 根据索引表计算人脸顶点坐标
+     * @param table         顶点索引表
+     * @param vertexPoints  输出的顶点坐标
+     * @param faceIndex     人脸索引
+     * @return              是否计算成功
+     */
+    public boolean getFaceVertices(FaceVertexTable table, float[] vertexPoints, int faceIndex) {
+        FaceFrame frame = acquireFrame();
+        if (vertexPoints == null || vertexPoints.length < table.getVertexCount() * 2
+                || faceIndex >= frame.getFaceCount()
+                || frame.getPointStride() != FaceVertexTable.LANDMARK_COUNT * 2) {
+            return false;
+        }
+        table.apply(frame.getVertexPoints(), frame.getVertexOffset(faceIndex), vertexPoints, 0);
+        return true;
     }
 
     /**
@@ -329,59 +370,8 @@ public final class LandmarkEngine {
      * @param vertexPoints
      * @param faceIndex
      */
-    public synchronized void getEyeVertices(float[] vertexPoints, int faceIndex) {
-        if (vertexPoints == null || vertexPoints.length < 80
-                || faceIndex >= mFaceArrays.size() || mFaceArrays.get(faceIndex) == null) {
-            return;
-        }
-
-        // 关键点0 ~ 3，index = 0 ~ 3 4个
-        for (int i = 0; i < 4; i++) {
-            vertexPoints[i * 2] = mFaceArrays.get(faceIndex).vertexPoints[i * 2];
-            vertexPoints[i * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[i * 2 + 1];
-        }
-
-        // 关键点29 ~ 33，index = 4 ~ 8 5个
-        for (int i = 29; i < 34; i++) {
-            vertexPoints[(i - 29 + 4) * 2] = mFaceArrays.get(faceIndex).vertexPoints[i * 2];
-            vertexPoints[(i - 29 + 4) * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[i * 2 + 1];
-        }
-
-        // 关键点42 ~ 44，index = 9 ~ 11 3个
-        for (int i = 42; i < 45; i++) {
-            vertexPoints[(i - 42 + 9) * 2] = mFaceArrays.get(faceIndex).vertexPoints[i * 2];
-            vertexPoints[(i - 42 + 9) * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[i * 2 +  1];
-        }
-
-        // 关键点52 ~ 73，index = 12 ~ 33 22个
-        for (int i = 52; i < 74; i++) {
-            vertexPoints[(i - 52 + 12) * 2] = mFaceArrays.get(faceIndex).vertexPoints[i * 2];
-            vertexPoints[(i - 52 + 12) * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[i * 2 + 1];
-        }
-
-        // 右眼上中心
-        vertexPoints[34 * 2] = mFaceArrays.get(faceIndex).vertexPoints[75 * 2];
-        vertexPoints[34 * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[75 * 2 + 1];
-
-        // 右眼下中心
-        vertexPoints[35 * 2] = mFaceArrays.get(faceIndex).vertexPoints[76 * 2];
-        vertexPoints[35 * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[76 * 2 + 1];
-
-        // 关键点78
-        vertexPoints[36 * 2] = mFaceArrays.get(faceIndex).vertexPoints[78 * 2];
-        vertexPoints[36 * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[78 * 2 + 1];
-
-        // 关键点79
-        vertexPoints[37 * 2] = mFaceArrays.get(faceIndex).vertexPoints[79 * 2];
-        vertexPoints[37 * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[79 * 2 + 1];
-
-        // 左眉毛下方中心点
-        vertexPoints[38 * 2] = (mFaceArrays.get(faceIndex).vertexPoints[3 * 2] + mFaceArrays.get(faceIndex).vertexPoints[44 * 2]) * 0.5f;
-        vertexPoints[38 * 2 + 1] = (mFaceArrays.get(faceIndex).vertexPoints[3 * 2 + 1] + mFaceArrays.get(faceIndex).vertexPoints[44 * 2 + 1]) * 0.5f;
-
-        // 右眉毛下方中心点
-        vertexPoints[39 * 2] = (mFaceArrays.get(faceIndex).vertexPoints[29 * 2] + mFaceArrays.get(faceIndex).vertexPoints[44 * 2]) * 0.5f;
-        vertexPoints[39 * 2 + 1] = (mFaceArrays.get(faceIndex).vertexPoints[29 * 2 + 1] + mFaceArrays.get(faceIndex).vertexPoints[44 * 2 + 1]) * 0.5f;
+    public void getEyeVertices(float[] vertexPoints, int faceIndex) {
+        getFaceVertices(FaceVertexTable.EYE, vertexPoints, faceIndex);
     }
 
     /**
@@ -389,18 +379,9 @@ public final class LandmarkEngine {
      * @param vertexPoints  存放嘴唇顶点坐标
      * @param faceIndex     人脸索引
      */
-    public synchronized void getLipsVertices(float[] vertexPoints, int faceIndex) {
+    public void getLipsVertices(float[] vertexPoints, int faceIndex) {
         // 嘴唇一共20个顶点，大小必须为40
-        if (vertexPoints == null || vertexPoints.length < 40
-                || faceIndex >= mFaceArrays.size() || mFaceArrays.get(faceIndex) == null) {
-            return;
-        }
-        // 复制84 ~ 103共20个顶点坐标
-        for (int i = 0; i < 20; i++) {
-            // 顶点坐标
-            vertexPoints[i * 2] = mFaceArrays.get(faceIndex).vertexPoints[(84 + i) * 2];
-            vertexPoints[i * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[(84 + i) * 2 + 1];
-        }
+        getFaceVertices(FaceVertexTable.LIPS, vertexPoints, faceIndex);
     }
 
     /**
@@ -408,29 +389,8 @@ public final class LandmarkEngine {
      * @param vertexPoints
      * @param faceIndex
      */
-    public synchronized void getBrightEyeVertices(float[] vertexPoints, int faceIndex) {
-        if (vertexPoints == null || vertexPoints.length < 32
-                || faceIndex >= mFaceArrays.size() || mFaceArrays.get(faceIndex) == null) {
-            return;
-        }
-        // 眼睛边沿部分 index = 0 ~ 11
-        for (int i = 52; i < 64; i++) {
-            vertexPoints[(i - 52) * 2] = mFaceArrays.get(faceIndex).vertexPoints[i * 2];
-            vertexPoints[(i - 52) * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[i * 2 + 1];
-        }
-
-        vertexPoints[12 * 2] = mFaceArrays.get(faceIndex).vertexPoints[72 * 2];
-        vertexPoints[12 * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[72 * 2 + 1];
-
-        vertexPoints[13 * 2] = mFaceArrays.get(faceIndex).vertexPoints[73 * 2];
-        vertexPoints[13 * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[73 * 2 + 1];
-
-        vertexPoints[14 * 2] = mFaceArrays.get(faceIndex).vertexPoints[75 * 2];
-        vertexPoints[14 * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[75 * 2 + 1];
-
-        vertexPoints[15 * 2] = mFaceArrays.get(faceIndex).vertexPoints[76 * 2];
-        vertexPoints[15 * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[76 * 2 + 1];
-
+    public void getBrightEyeVertices(float[] vertexPoints, int faceIndex) {
+        getFaceVertices(FaceVertexTable.BRIGHT_EYE, vertexPoints, faceIndex);
     }
 
     /**
@@ -438,14 +398,7 @@ public final class LandmarkEngine {
      * @param vertexPoints
      * @param faceIndex
      */
-    public synchronized void getBeautyTeethVertices(float[] vertexPoints, int faceIndex) {
-        if (vertexPoints == null || vertexPoints.length < 24
-                || faceIndex >= mFaceArrays.size() || mFaceArrays.get(faceIndex) == null) {
-            return;
-        }
-        for (int i = 84; i < 96; i++) {
-            vertexPoints[(i - 84) * 2] = mFaceArrays.get(faceIndex).vertexPoints[i * 2];
-            vertexPoints[(i - 84) * 2 + 1] = mFaceArrays.get(faceIndex).vertexPoints[i * 2 + 1];
-        }
+    public void getBeautyTeethVertices(float[] vertexPoints, int faceIndex) {
+        getFaceVertices(FaceVertexTable.BEAUTY_TEETH, vertexPoints, faceIndex);
     }
 }
@@ -0,0 +1,194 @@
+package com.cgfay.landmark;
+
+/**
+ * 人脸关键点时域滤波器
+ * 检测帧率通常低于相机帧率，直接使用检测结果会导致美型、美妆抖动和滞后。
+ * 滤波器在每个人脸的关键点上维护位置和速度，新的检测结果到来时更新状态，
+ * 渲染时根据渲染时间戳外推到当前帧，使检测可以降低帧率运行而不产生明显的滞后。
+ * 状态全部保存在float数组中，只在渲染线程中使用，更新和预测都不分配内存(人脸数或关键点个数增加时除外)
+ */
+public abstract class LandmarkFilter {
+
+    // 默认最长外推时长，单位：纳秒，检测停顿时避免关键点被外推得太远
+    public static final long DEFAULT_MAX_PREDICTION_NANOS = 100_000_000L;
+
+    // 每个人脸的坐标个数(x、y分开计算)
+    protected int mStride;
+    // 滤波后的位置，第i个人脸从 i * mStride 开始
+    protected float[] mPosition = new float[0];
+    // 估计的速度，单位：坐标/秒
+    protected float[] mVelocity = new float[0];
+    // 每个人脸最近一次更新的时间戳，单位：纳秒
+    private long[] mTimestamp = new long[0];
+    // 每个人脸是否已经有状态
+    private boolean[] mValid = new boolean[0];
+
+    // 最长外推时长
+    private long mMaxPredictionNanos = DEFAULT_MAX_PREDICTION_NANOS;
+
+    // 最近一次输入的帧序号和人脸个数
+    private long mLastSequence = -1;
+    private int mLastFaceCount;
+
+    /**
+     * 设置最长外推时长，为0时不做外推，只做平滑
+     * @param nanos
+     */
+    public void setMaxPrediction(long nanos) {
+        mMaxPredictionNanos = Math.max(nanos, 0);
+    }
+
+    public long getMaxPrediction() {
+        return mMaxPredictionNanos;
+    }
+
+    /**
+     * 清空所有人脸的状态
+     */
+    public void reset() {
+        for (int i = 0; i < mValid.length; i++) {
+            mValid[i] = false;
+        }
+        mLastSequence = -1;
+        mLastFaceCount = 0;
+    }
+
+    /**
+     * 清空一个人脸的状态，人脸消失或者重新出现时调用
+     * @param faceIndex
+     */
+    public void reset(int faceIndex) {
+        if (faceIndex < mValid.length) {
+            mValid[faceIndex] = false;
+        }
+    }
+
+    /**
+     * 对一帧检测结果滤波，并输出渲染时间戳对应的关键点
+     * 同一帧检测结果只会更新一次状态，检测帧率低于渲染帧率时，后续的渲染帧只做外推
+     * @param input             检测结果
+     * @param renderTimestamp   渲染时间戳，单位：纳秒，需要与检测时间戳使用同一个时钟
+     * @param output            输出，人脸属性从input中复制，关键点为滤波后的结果
+     */
+    public void apply(FaceFrame input, long renderTimestamp, FaceFrame output) {
+        int faceCount = input.getFaceCount();
+        if (input.getSequence() != mLastSequence) {
+            mLastSequence = input.getSequence();
+            // 消失的人脸清空状态，重新出现时从检测结果开始
+            for (int i = faceCount; i < mLastFaceCount; i++) {
+                reset(i);
+            }
+            mLastFaceCount = faceCount;
+            for (int i = 0; i < faceCount; i++) {
+                update(i, input.getVertexPoints(), input.getVertexOffset(i), input.getPointStride(),
+                        input.getTimestamp());
+            }
+        }
+        output.copyFrom(input);
+        for (int i = 0; i < faceCount; i++) {
+            predict(i, renderTimestamp, output.getVertexPoints(), output.getVertexOffset(i));
+        }
+    }
+
+    /**
+     * 输入一个人脸的检测结果
+     * @param faceIndex 人脸索引
+     * @param points    关键点坐标
+     * @param offset    关键点在points中的起始位置
+     * @param stride    关键点坐标个数
+     * @param timestamp 检测时间戳，单位：纳秒
+     */
+    public void update(int faceIndex, float[] points, int offset, int stride, long timestamp) {
+        ensureCapacity(faceIndex + 1, stride);
+        int base = faceIndex * mStride;
+        long elapsed = timestamp - mTimestamp[faceIndex];
+        if (!mValid[faceIndex] || elapsed < 0) {
+            // 第一次出现或者时间戳回退，直接使用检测结果，速度清零
+            System.arraycopy(points, offset, mPosition, base, mStride);
+            for (int i = base; i < base + mStride; i++) {
+                mVelocity[i] = 0;
+            }
+            mTimestamp[faceIndex] = timestamp;
+            mValid[faceIndex] = true;
+            onReset(points, offset, base, mStride);
+            return;
+        }
+        if (elapsed == 0) {
+            // 同一时刻的重复结果，不更新速度
+            return;
+        }
+        onUpdate(points, offset, base, mStride, elapsed / 1e9f);
+        mTimestamp[faceIndex] = timestamp;
+    }
+
+    /**
+     * 输出一个人脸在timestamp时刻的关键点
+     * @param faceIndex 人脸索引
+     * @param timestamp 时间戳，单位：纳秒
+     * @param dst       输出
+     * @param dstOffset 输出的起始位置
+     * @return          该人脸没有状态时返回false，dst不做修改
+     */
+    public boolean predict(int faceIndex, long timestamp, float[] dst, int dstOffset) {
+        if (faceIndex >= mValid.length || !mValid[faceIndex]) {
+            return false;
+        }
+        // 渲染时间早于检测时间(时钟不一致)时不外推，检测停顿时最多外推mMaxPredictionNanos
+        long elapsed = Math.min(Math.max(timestamp - mTimestamp[faceIndex], 0), mMaxPredictionNanos);
+        float dt = elapsed / 1e9f;
+        int base = faceIndex * mStride;
+        for (int i = 0; i < mStride; i++) {
+            dst[dstOffset + i] = mPosition[base + i] + mVelocity[base + i] * dt;
+        }
+        return true;
+    }
+
+    /**
+     * 人脸第一次出现时回调，此时位置已经设置为检测结果，速度为0，子类可以在这里初始化自己的状态
+     * @param points    检测的关键点坐标
+     * @param offset    关键点在points中的起始位置
+     * @param base      状态在mPosition、mVelocity中的起始位置
+     * @param length    坐标个数
+     */
+    protected void onReset(float[] points, int offset, int base, int length) {
+
+    }
+
+    /**
+     * 使用新的检测结果更新位置和速度
+     * @param points    检测的关键点坐标
+     * @param offset    关键点在points中的起始位置
+     * @param base      状态在mPosition、mVelocity中的起始位置
+     * @param length    坐标个数
+     * @param dt        距离上一次更新的时长，单位：秒，大于0
+     */
+    protected abstract void onUpdate(float[] points, int offset, int base, int length, float dt);
+
+    /**
+     * 确保状态容量足够，关键点个数变化时清空所有状态
+     */
+    private void ensureCapacity(int faceCount, int stride) {
+        if (stride != mStride) {
+            mStride = stride;
+            mPosition = new float[Math.max(faceCount, mValid.length) * stride];
+            mVelocity = new float[mPosition.length];
+            for (int i = 0; i < mValid.length; i++) {
+                mValid[i] = false;
+            }
+        }
+        if (faceCount > mValid.length) {
+            float[] position = new float[faceCount * stride];
+            float[] velocity = new float[faceCount * stride];
+            System.arraycopy(mPosition, 0, position, 0, mPosition.length);
+            System.arraycopy(mVelocity, 0, velocity, 0, mVelocity.length);
+            mPosition = position;
+            mVelocity = velocity;
+            long[] timestamp = new long[faceCount];
+            boolean[] valid = new boolean[faceCount];
+            System.arraycopy(mTimestamp, 0, timestamp, 0, mTimestamp.length);
+            System.arraycopy(mValid, 0, valid, 0, mValid.length);
+            mTimestamp = timestamp;
+            mValid = valid;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.cgfay.landmark;
+
+/**
+ * One Euro滤波器
+ * 截止频率随速度自适应：静止时截止频率低，抑制抖动；快速移动时截止频率升高，降低滞后。
+ * 参考 Casiez et al. "1€ Filter: A Simple Speed-based Low-pass Filter for Noisy Input in Interactive Systems"
+ * 速度由相邻两次检测结果的差分平滑得到，用于调整截止频率以及外推到渲染时间戳。
+ * 关键点为OpenGL归一化坐标(-1 ~ 1)，默认参数按该坐标范围选取
+ */
+public class OneEuroLandmarkFilter extends LandmarkFilter {
+
+    // 最小截止频率，单位：Hz，越小静止时越平滑
+    private final float mMinCutoff;
+    // 速度系数，越大快速移动时滞后越小
+    private final float mBeta;
+    // 速度的截止频率，单位：Hz
+    private final float mDerivateCutoff;
+
+    // 上一次的检测结果，用于计算差分速度，与mPosition同样布局
+    private float[] mLastPoints = new float[0];
+
+    public OneEuroLandmarkFilter() {
+        this(1.0f, 10.0f, 1.0f);
+    }
+
+    /**
+     * @param minCutoff         最小截止频率，单位：Hz
+     * @param beta              速度系数
+     * @param derivateCutoff    速度的截止频率，单位：Hz
+     */
+    public OneEuroLandmarkFilter(float minCutoff, float beta, float derivateCutoff) {
+        if (minCutoff <= 0 || derivateCutoff <= 0 || beta < 0) {
+            throw new IllegalArgumentException("cutoff must be positive and beta non-negative");
+        }
+        mMinCutoff = minCutoff;
+        mBeta = beta;
+        mDerivateCutoff = derivateCutoff;
+    }
+
+    @Override
+    protected void onReset(float[] points, int offset, int base, int length) {
+        if (mLastPoints.length != mPosition.length) {
+            float[] lastPoints = new float[mPosition.length];
+            System.arraycopy(mLastPoints, 0, lastPoints, 0, Math.min(mLastPoints.length, lastPoints.length));
+            mLastPoints = lastPoints;
+        }
+        System.arraycopy(points, offset, mLastPoints, base, length);
+    }
+
+    @Override
+    protected void onUpdate(float[] points, int offset, int base, int length, float dt) {
+        float rate = 1.0f / dt;
+        float derivateAlpha = alpha(mDerivateCutoff, dt);
+        for (int i = 0; i < length; i++) {
+            float value = points[offset + i];
+            // 平滑速度
+            float velocity = mVelocity[base + i];
+            velocity += ((value - mLastPoints[base + i]) * rate - velocity) * derivateAlpha;
+            // 根据速度调整截止频率后平滑位置
+            float cutoff = mMinCutoff + mBeta * Math.abs(velocity);
+            float position = mPosition[base + i];
+            position += (value - position) * alpha(cutoff, dt);
+            mVelocity[base + i] = velocity;
+            mPosition[base + i] = position;
+            mLastPoints[base + i] = value;
+        }
+    }
+
+    /**
+     * 一阶低通滤波的平滑系数
+     * @param cutoff    截止频率，单位：Hz
+     * @param dt        采样间隔，单位：秒
+     * @return
+     */
+    private static float alpha(float cutoff, float dt) {
+        float tau = 1.0f / (2 * (float) Math.PI * cutoff);
+        return 1.0f / (1.0f + tau / dt);
+    }
+}
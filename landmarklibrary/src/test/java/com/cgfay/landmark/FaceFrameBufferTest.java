@@ -0,0 +1,179 @@
+package com.cgfay.landmark;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 人脸数据三缓冲测试，包括检测线程与渲染线程并发读写的压力测试
+ */
+public class FaceFrameBufferTest {
+
+    private static final int POINT_STRIDE = 106 * 2;
+
+    /**
+     * 写入一帧数据，所有数值都等于value，读取时可以据此判断是否读到了撕裂的数据
+     */
+    private static void fill(FaceFrame frame, int faceCount, float value, float[] scratch) {
+        for (int i = 0; i < scratch.length; i++) {
+            scratch[i] = value;
+        }
+        frame.setFaceCount(0);
+        for (int face = 0; face < faceCount; face++) {
+            frame.setFace(face, value, value, value, value, value, (int) value, scratch, 0);
+        }
+        frame.setTimestamp((long) value);
+    }
+
+    /**
+     * 校验一帧数据是否一致
+     */
+    private static String verify(FaceFrame frame) {
+        if (frame.getFaceCount() == 0) {
+            return null;
+        }
+        float value = frame.getConfidence(0);
+        if (frame.getTimestamp() != (long) value) {
+            return "timestamp " + frame.getTimestamp() + " != " + value;
+        }
+        if (frame.getFaceCount() != 1 + ((int) value) % 3) {
+            return "face count " + frame.getFaceCount() + " for value " + value;
+        }
+        float[] points = frame.getVertexPoints();
+        for (int face = 0; face < frame.getFaceCount(); face++) {
+            if (frame.getConfidence(face) != value || frame.getRoll(face) != value
+                    || frame.getGender(face) != (int) value) {
+                return "attributes torn at face " + face;
+            }
+            int offset = frame.getVertexOffset(face);
+            for (int i = 0; i < POINT_STRIDE; i++) {
+                if (points[offset + i] != value) {
+                    return "points torn at face " + face + " index " + i;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void readerSeesLatestPublishedFrame() {
+        FaceFrameBuffer buffer = new FaceFrameBuffer(2, POINT_STRIDE);
+        float[] scratch = new float[POINT_STRIDE];
+        assertEquals(0, buffer.acquire().getFaceCount());
+
+        fill(buffer.getBackFrame(), 1, 1, scratch);
+        buffer.publish();
+        fill(buffer.getBackFrame(), 2, 2, scratch);
+        buffer.publish();
+        assertTrue(buffer.hasNewFrame());
+
+        FaceFrame frame = buffer.acquire();
+        assertFalse(buffer.hasNewFrame());
+        assertEquals(2, frame.getFaceCount());
+        assertEquals(2f, frame.getY(1, 105), 0f);
+        assertEquals(2, frame.getSequence());
+        // 没有新数据时，读取端保持同一个快照
+        assertSame(frame, buffer.acquire());
+    }
+
+    @Test
+    public void snapshotIsStableWhileWriterContinues() {
+        FaceFrameBuffer buffer = new FaceFrameBuffer(2, POINT_STRIDE);
+        float[] scratch = new float[POINT_STRIDE];
+        fill(buffer.getBackFrame(), 1, 1, scratch);
+        buffer.publish();
+        FaceFrame frame = buffer.acquire();
+        for (int i = 2; i < 10; i++) {
+            fill(buffer.getBackFrame(), 1, i, scratch);
+            buffer.publish();
+            assertEquals(1f, frame.getX(0, 0), 0f);
+        }
+        assertEquals(9f, buffer.acquire().getX(0, 0), 0f);
+    }
+
+    @Test
+    public void growsBeyondInitialFaceCount() {
+        FaceFrame frame = new FaceFrame(1, 4);
+        frame.setFace(2, 0.9f, 0, 0, 0, 0, 0, new float[] { 1, 2, 3, 4 }, 0);
+        assertEquals(3, frame.getFaceCount());
+        assertEquals(3f, frame.getX(2, 1), 0f);
+
+        FaceFrame copy = new FaceFrame(1, 4);
+        copy.copyFrom(frame);
+        assertEquals(3, copy.getFaceCount());
+        assertEquals(4f, copy.getY(2, 1), 0f);
+        assertEquals(0.9f, copy.getConfidence(2), 0f);
+    }
+
+    @Test
+    public void copiesIntoOneFace() {
+        FaceFrame frame = new FaceFrame(1, 4);
+        frame.setFace(0, 0.8f, 1, 2, 3, 20, OneFace.GENDER_WOMAN, new float[] { 1, 2, 3, 4 }, 0);
+        OneFace oneFace = new OneFace();
+        frame.copyTo(0, oneFace);
+        float[] points = oneFace.vertexPoints;
+        assertArrayEquals(new float[] { 1, 2, 3, 4 }, points, 0f);
+        assertEquals(OneFace.GENDER_WOMAN, oneFace.gender);
+        frame.copyTo(0, oneFace);
+        assertSame(points, oneFace.vertexPoints);
+    }
+
+    @Test(timeout = 30000)
+    public void concurrentPublishAndAcquireNeverTears() throws Exception {
+        final FaceFrameBuffer buffer = new FaceFrameBuffer(3, POINT_STRIDE);
+        final int frames = 200000;
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                float[] scratch = new float[POINT_STRIDE];
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 1; i <= frames; i++) {
+                    fill(buffer.getBackFrame(), 1 + i % 3, i, scratch);
+                    buffer.publish();
+                }
+                done.set(true);
+            }
+        }, "detector");
+
+        writer.start();
+        start.countDown();
+        long lastSequence = 0;
+        long reads = 0;
+        while (failure.get() == null) {
+            boolean finished = done.get();
+            FaceFrame frame = buffer.acquire();
+            String error = verify(frame);
+            if (error != null) {
+                failure.set(error);
+                break;
+            }
+            if (frame.getSequence() < lastSequence) {
+                failure.set("sequence went backwards: " + frame.getSequence() + " < " + lastSequence);
+                break;
+            }
+            lastSequence = frame.getSequence();
+            reads++;
+            if (finished) {
+                break;
+            }
+        }
+        writer.join();
+        assertNull(failure.get(), failure.get());
+        assertTrue(reads > 0);
+        // 写入端结束后，读取端一定能拿到最后一帧
+        assertEquals(frames, buffer.acquire().getSequence());
+        assertEquals((float) frames, buffer.acquire().getConfidence(0), 0f);
+    }
+}
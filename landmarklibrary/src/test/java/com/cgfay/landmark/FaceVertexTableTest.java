@@ -0,0 +1,104 @@
+package com.cgfay.landmark;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 顶点索引表测试，与逐点计算的结果对比
+ */
+public class FaceVertexTableTest {
+
+    private static final float DELTA = 1e-5f;
+
+    private static float[] randomLandmarks(long seed) {
+        Random random = new Random(seed);
+        float[] points = new float[FaceVertexTable.LANDMARK_COUNT * 2];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = random.nextFloat() * 2.0f - 1.0f;
+        }
+        return points;
+    }
+
+    private static float x(float[] points, int index) {
+        return points[index * 2];
+    }
+
+    private static float y(float[] points, int index) {
+        return points[index * 2 + 1];
+    }
+
+    @Test
+    public void extraPointsMatchDirectComputation() {
+        float[] points = randomLandmarks(1);
+        float[] result = new float[8 * 2];
+        FaceVertexTable.EXTRA_POINTS.apply(points, 0, result, 0);
+
+        // 嘴唇中心
+        assertEquals((x(points, 98) + x(points, 102)) / 2, result[0], DELTA);
+        assertEquals((y(points, 98) + y(points, 102)) / 2, result[1], DELTA);
+        // 额头中心
+        float headX = x(points, 43) * 2 - x(points, 49);
+        float headY = y(points, 43) * 2 - y(points, 49);
+        assertEquals(headX, result[(FaceLandmark.headCenter - 106) * 2], DELTA);
+        assertEquals(headY, result[(FaceLandmark.headCenter - 106) * 2 + 1], DELTA);
+        // 额头左侧
+        assertEquals((x(points, 34) + headX) / 2, result[(FaceLandmark.leftHead - 106) * 2], DELTA);
+        assertEquals((y(points, 34) + headY) / 2, result[(FaceLandmark.leftHead - 106) * 2 + 1], DELTA);
+        // 额头右侧
+        assertEquals((x(points, 41) + headX) / 2, result[(FaceLandmark.rightHead - 106) * 2], DELTA);
+        // 右脸颊中心
+        assertEquals((y(points, 28) + y(points, 83)) / 2, result[(FaceLandmark.rightCheekCenter - 106) * 2 + 1], DELTA);
+    }
+
+    @Test
+    public void eyeTableMatchesLegacyLayout() {
+        float[] points = randomLandmarks(2);
+        float[] expected = new float[80];
+        int vertex = 0;
+        int[][] ranges = { { 0, 4 }, { 29, 34 }, { 42, 45 }, { 52, 74 } };
+        for (int[] range : ranges) {
+            for (int i = range[0]; i < range[1]; i++, vertex++) {
+                expected[vertex * 2] = x(points, i);
+                expected[vertex * 2 + 1] = y(points, i);
+            }
+        }
+        for (int i : new int[] { 75, 76, 78, 79 }) {
+            expected[vertex * 2] = x(points, i);
+            expected[vertex * 2 + 1] = y(points, i);
+            vertex++;
+        }
+        expected[38 * 2] = (x(points, 3) + x(points, 44)) * 0.5f;
+        expected[38 * 2 + 1] = (y(points, 3) + y(points, 44)) * 0.5f;
+        expected[39 * 2] = (x(points, 29) + x(points, 44)) * 0.5f;
+        expected[39 * 2 + 1] = (y(points, 29) + y(points, 44)) * 0.5f;
+
+        float[] result = new float[80];
+        assertEquals(40, FaceVertexTable.EYE.getVertexCount());
+        FaceVertexTable.EYE.apply(points, 0, result, 0);
+        assertArrayEquals(expected, result, DELTA);
+    }
+
+    @Test
+    public void copyTablesRespectOffsets() {
+        float[] points = randomLandmarks(3);
+        float[] src = new float[points.length + 10];
+        System.arraycopy(points, 0, src, 10, points.length);
+        float[] result = new float[42];
+        FaceVertexTable.LIPS.apply(src, 10, result, 2);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(x(points, 84 + i), result[2 + i * 2], 0f);
+            assertEquals(y(points, 84 + i), result[2 + i * 2 + 1], 0f);
+        }
+    }
+
+    @Test
+    public void vertexCounts() {
+        assertEquals(8, FaceVertexTable.EXTRA_POINTS.getVertexCount());
+        assertEquals(20, FaceVertexTable.LIPS.getVertexCount());
+        assertEquals(16, FaceVertexTable.BRIGHT_EYE.getVertexCount());
+        assertEquals(12, FaceVertexTable.BEAUTY_TEETH.getVertexCount());
+    }
+}
@@ -0,0 +1,96 @@
+package com.cgfay.landmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 人脸关键点引擎测试，多个人脸需要整帧发布
+ */
+public class LandmarkEngineTest {
+
+    private LandmarkEngine mEngine;
+
+    private static OneFace createFace(float value) {
+        OneFace oneFace = new OneFace();
+        oneFace.confidence = value;
+        oneFace.vertexPoints = new float[FaceVertexTable.LANDMARK_COUNT * 2];
+        for (int i = 0; i < oneFace.vertexPoints.length; i++) {
+            oneFace.vertexPoints[i] = value;
+        }
+        return oneFace;
+    }
+
+    @Before
+    public void setUp() {
+        mEngine = LandmarkEngine.getInstance();
+        mEngine.setLandmarkFilter(null);
+        mEngine.setRenderTimestamp(0);
+        mEngine.clearAll();
+    }
+
+    @After
+    public void tearDown() {
+        mEngine.clearAll();
+        mEngine.setLandmarkFilter(new ConstantVelocityLandmarkFilter());
+    }
+
+    @Test
+    public void multiFaceUpdateIsPublishedAsWholeFrame() {
+        mEngine.setFaceSize(2);
+        mEngine.putOneFace(0, createFace(1));
+        mEngine.putOneFace(1, createFace(1));
+        assertEquals(2, mEngine.getFaceSize());
+
+        // 写入过程中渲染线程仍然看到上一帧的完整数据
+        mEngine.setFaceSize(3);
+        mEngine.putOneFace(0, createFace(2));
+        mEngine.putOneFace(1, createFace(2));
+        assertEquals(2, mEngine.getFaceSize());
+        assertEquals(1f, mEngine.getOneFace(1).confidence, 0f);
+
+        mEngine.putOneFace(2, createFace(2));
+        assertEquals(3, mEngine.getFaceSize());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2f, mEngine.getOneFace(i).confidence, 0f);
+        }
+    }
+
+    @Test
+    public void fewerFacesDropStaleData() {
+        mEngine.setFaceSize(2);
+        mEngine.putOneFace(0, createFace(1));
+        mEngine.putOneFace(1, createFace(1));
+
+        mEngine.setFaceSize(1);
+        mEngine.putOneFace(0, createFace(3));
+        assertEquals(1, mEngine.getFaceSize());
+        assertEquals(3f, mEngine.getOneFace(0).confidence, 0f);
+
+        mEngine.setFaceSize(0);
+        assertFalse(mEngine.hasFace());
+    }
+
+    @Test
+    public void faceWithoutFrameIsIgnored() {
+        mEngine.putOneFace(0, createFace(1));
+        assertEquals(0, mEngine.getFaceSize());
+    }
+
+    @Test
+    public void beginEndPublishesOnce() {
+        FaceFrame frame = mEngine.beginFaceUpdate();
+        float[] points = createFace(4).vertexPoints;
+        frame.setFace(0, 4, 0, 0, 0, 0, 0, points, 0);
+        frame.setFace(1, 4, 0, 0, 0, 0, 0, points, 0);
+        assertEquals(0, mEngine.getFaceSize());
+        frame.setTimestamp(123);
+        mEngine.endFaceUpdate();
+
+        FaceFrame published = mEngine.getFaceFrame();
+        assertEquals(2, published.getFaceCount());
+        assertEquals(123, published.getTimestamp());
+    }
+}
@@ -0,0 +1,167 @@
+package com.cgfay.landmark;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 关键点时域滤波器测试，检测以15fps运行，渲染以30fps运行
+ */
+public class LandmarkFilterTest {
+
+    private static final int STRIDE = 4;
+    private static final long DETECT_INTERVAL = 66_666_666L;
+    private static final long RENDER_INTERVAL = DETECT_INTERVAL / 2;
+
+    private static float[] points(float value) {
+        float[] points = new float[STRIDE];
+        for (int i = 0; i < STRIDE; i++) {
+            points[i] = value;
+        }
+        return points;
+    }
+
+    @Test
+    public void constantVelocityTracksLinearMotionBetweenDetections() {
+        LandmarkFilter filter = new ConstantVelocityLandmarkFilter(1.0f, 1.0f);
+        // 0.3坐标/秒的匀速运动
+        float speed = 0.3f;
+        float[] out = new float[STRIDE];
+        for (int frame = 0; frame < 10; frame++) {
+            long timestamp = frame * DETECT_INTERVAL;
+            filter.update(0, points(speed * timestamp / 1e9f), 0, STRIDE, timestamp);
+        }
+        long detected = 9 * DETECT_INTERVAL;
+        assertTrue(filter.predict(0, detected + RENDER_INTERVAL, out, 0));
+        assertEquals(speed * (detected + RENDER_INTERVAL) / 1e9f, out[0], 1e-4f);
+    }
+
+    @Test
+    public void predictionIsClampedToMaxPrediction() {
+        LandmarkFilter filter = new ConstantVelocityLandmarkFilter(1.0f, 1.0f);
+        filter.setMaxPrediction(50_000_000L);
+        filter.update(0, points(0), 0, STRIDE, 0);
+        filter.update(0, points(1), 0, STRIDE, 1_000_000_000L);
+        float[] out = new float[STRIDE];
+        // 检测停顿1秒，最多外推50ms
+        filter.predict(0, 2_000_000_000L, out, 0);
+        assertEquals(1.05f, out[0], 1e-4f);
+        // 渲染时间早于检测时间时不外推
+        filter.predict(0, 500_000_000L, out, 0);
+        assertEquals(1.0f, out[0], 1e-4f);
+    }
+
+    @Test
+    public void oneEuroSuppressesJitterOfStillFace() {
+        assertSuppressesJitter(new OneEuroLandmarkFilter(), 4);
+    }
+
+    @Test
+    public void alphaBetaSuppressesJitterOfStillFace() {
+        assertSuppressesJitter(new ConstantVelocityLandmarkFilter(), 2);
+    }
+
+    /**
+     * 静止的人脸叠加检测噪声，滤波后的方差需要小于噪声方差的1 / ratio
+     */
+    private static void assertSuppressesJitter(LandmarkFilter filter, int ratio) {
+        filter.setMaxPrediction(0);
+        Random random = new Random(7);
+        float[] out = new float[STRIDE];
+        double inputVariance = 0;
+        double outputVariance = 0;
+        int samples = 0;
+        for (int frame = 0; frame < 300; frame++) {
+            float noise = (float) random.nextGaussian() * 0.005f;
+            filter.update(0, points(0.2f + noise), 0, STRIDE, frame * DETECT_INTERVAL);
+            filter.predict(0, frame * DETECT_INTERVAL, out, 0);
+            if (frame >= 30) {
+                inputVariance += noise * noise;
+                outputVariance += (out[0] - 0.2f) * (out[0] - 0.2f);
+                samples++;
+            }
+        }
+        assertTrue("output variance " + outputVariance / samples + " input " + inputVariance / samples,
+                outputVariance < inputVariance / ratio);
+    }
+
+    /**
+     * 以speed匀速运动，检测帧率为渲染帧率的一半，返回渲染时刻的平均误差
+     */
+    private static double trackingError(LandmarkFilter filter, float speed) {
+        float[] out = new float[STRIDE];
+        double error = 0;
+        for (int frame = 0; frame < 120; frame++) {
+            long renderTimestamp = frame * RENDER_INTERVAL;
+            if (frame % 2 == 0) {
+                filter.update(0, points(speed * renderTimestamp / 1e9f), 0, STRIDE, renderTimestamp);
+            }
+            filter.predict(0, renderTimestamp, out, 0);
+            if (frame >= 30) {
+                error += Math.abs(out[0] - speed * renderTimestamp / 1e9f);
+            }
+        }
+        return error / 90;
+    }
+
+    @Test
+    public void oneEuroPredictionReducesLagOfMovingFace() {
+        float speed = 0.5f;
+        LandmarkFilter smoothOnly = new OneEuroLandmarkFilter();
+        smoothOnly.setMaxPrediction(0);
+        double smoothError = trackingError(smoothOnly, speed);
+        double predictedError = trackingError(new OneEuroLandmarkFilter(), speed);
+        assertTrue("predicted " + predictedError + " smooth only " + smoothError,
+                predictedError < smoothError);
+    }
+
+    @Test
+    public void alphaBetaHasNoSteadyStateLag() {
+        float speed = 0.5f;
+        double rawError = speed * RENDER_INTERVAL / 2 / 1e9;
+        double error = trackingError(new ConstantVelocityLandmarkFilter(), speed);
+        assertTrue("alpha-beta " + error + " raw " + rawError, error < rawError / 10);
+    }
+
+    @Test
+    public void applyUpdatesOncePerDetectionAndResetsLostFaces() {
+        LandmarkFilter filter = new ConstantVelocityLandmarkFilter(1.0f, 1.0f);
+        FaceFrameBuffer buffer = new FaceFrameBuffer(2, STRIDE);
+        FaceFrame output = new FaceFrame(2, STRIDE);
+
+        FaceFrame back = buffer.getBackFrame();
+        back.setFaceCount(0);
+        back.setFace(0, 1, 0, 0, 0, 0, 0, points(0), 0);
+        back.setFace(1, 1, 0, 0, 0, 0, 0, points(5), 0);
+        back.setTimestamp(DETECT_INTERVAL);
+        buffer.publish();
+        filter.apply(buffer.acquire(), DETECT_INTERVAL, output);
+        assertEquals(2, output.getFaceCount());
+
+        back = buffer.getBackFrame();
+        back.setFaceCount(0);
+        back.setFace(0, 1, 0, 0, 0, 0, 0, points(1), 0);
+        back.setTimestamp(2 * DETECT_INTERVAL);
+        buffer.publish();
+        filter.apply(buffer.acquire(), 2 * DETECT_INTERVAL, output);
+        // 同一帧检测结果再次输入不会更新速度
+        filter.apply(buffer.acquire(), 2 * DETECT_INTERVAL + RENDER_INTERVAL, output);
+        assertEquals(1, output.getFaceCount());
+        assertEquals(1.5f, output.getX(0, 0), 1e-4f);
+
+        // 人脸1消失后状态被清空，重新出现时直接使用检测结果
+        float[] out = new float[STRIDE];
+        assertFalse(filter.predict(1, 2 * DETECT_INTERVAL, out, 0));
+        back = buffer.getBackFrame();
+        back.setFaceCount(0);
+        back.setFace(0, 1, 0, 0, 0, 0, 0, points(2), 0);
+        back.setFace(1, 1, 0, 0, 0, 0, 0, points(-3), 0);
+        back.setTimestamp(3 * DETECT_INTERVAL);
+        buffer.publish();
+        filter.apply(buffer.acquire(), 3 * DETECT_INTERVAL + RENDER_INTERVAL, output);
+        assertEquals(-3f, output.getX(1, 0), 1e-4f);
+        assertEquals(2.5f, output.getX(0, 0), 1e-4f);
+    }
+}
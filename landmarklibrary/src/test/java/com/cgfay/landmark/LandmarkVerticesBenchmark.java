@@ -0,0 +1,87 @@
+package com.cgfay.landmark;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 顶点计算基准：在1 ~ 5个人脸下测量美型、美妆顶点计算的吞吐量，并检查渲染线程上没有内存分配
+ * 内存分配通过com.sun.management.ThreadMXBean统计当前线程分配的字节数，结果输出到标准输出
+ */
+public class LandmarkVerticesBenchmark {
+
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 100000;
+
+    private final float[] mAdjustVertices = new float[122 * 2];
+    private final float[] mAdjustTextures = new float[122 * 2];
+    private final float[] mEyeVertices = new float[40 * 2];
+    private final float[] mLipsVertices = new float[20 * 2];
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void publishFaces(LandmarkEngine engine, int faceCount) {
+        Random random = new Random(faceCount);
+        float[] points = new float[FaceVertexTable.LANDMARK_COUNT * 2];
+        FaceFrame frame = engine.beginFaceUpdate();
+        try {
+            frame.setFaceCount(0);
+            for (int face = 0; face < faceCount; face++) {
+                for (int i = 0; i < points.length; i++) {
+                    points[i] = random.nextFloat() * 2.0f - 1.0f;
+                }
+                frame.setFace(face, 1.0f, 0, 0, 0, 0, 0, points, 0);
+            }
+        } finally {
+            engine.endFaceUpdate();
+        }
+    }
+
+    /**
+     * 模拟一帧中关键点滤波以及美型和美妆对所有人脸的顶点计算
+     */
+    private float renderFrame(LandmarkEngine engine, long timestamp) {
+        float checksum = 0;
+        engine.setRenderTimestamp(timestamp);
+        int faceCount = engine.getFaceSize();
+        for (int face = 0; face < faceCount; face++) {
+            engine.updateFaceAdjustPoints(mAdjustVertices, mAdjustTextures, face);
+            engine.getEyeVertices(mEyeVertices, face);
+            engine.getLipsVertices(mLipsVertices, face);
+            checksum += mAdjustVertices[FaceLandmark.headCenter * 2] + mEyeVertices[0] + mLipsVertices[0];
+        }
+        return checksum;
+    }
+
+    @Test
+    public void measureVertexComputation() {
+        LandmarkEngine engine = LandmarkEngine.getInstance();
+        float checksum = 0;
+        for (int faceCount = 1; faceCount <= 5; faceCount++) {
+            publishFaces(engine, faceCount);
+            for (int i = 0; i < WARMUP; i++) {
+                checksum += renderFrame(engine, System.nanoTime());
+            }
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                checksum += renderFrame(engine, System.nanoTime());
+            }
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBytes() - bytes;
+            System.out.println(String.format("faces=%d: %.0f frames/s, %.1f ns/face, %d bytes allocated",
+                    faceCount, ITERATIONS * 1e9 / elapsed, (double) elapsed / ITERATIONS / faceCount, allocated));
+            // 统计接口本身会分配少量内存，每帧分配不足1字节即说明计算过程没有分配对象
+            assertTrue("vertex computation allocated on the render thread: " + allocated,
+                    allocated < ITERATIONS);
+        }
+        engine.clearAll();
+        assertFalse(Float.isNaN(checksum));
+    }
+}
@@ -9,9 +9,11 @@ import android.os.HandlerThread;
 import androidx.annotation.NonNull;
 import android.util.Log;
 
+import com.cgfay.media.recorder.OfflineSpeedTranscoder;
 import com.cgfay.uitls.utils.FileUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.List;
@@ -67,6 +69,35 @@ public class CainCommandEditor {
         });
     }
 
+    /**
+     * 调整PCM/WAV音频速度，不经过ffmpeg，在进程内将音频分段后多线程处理，长音频的耗时受CPU核数限制
+     * 输出格式由dstPath的后缀决定，.wav输出WAV，否则输出PCM
+     * @param srcPath       16位PCM或者WAV文件
+     * @param dstPath       输出路径
+     * @param sampleRate    采样率
+     * @param channelCount  声道数
+     * @param speed         速度
+     * @param callback      处理回调，成功返回0，失败返回-1
+     */
+    public void adjustPcmSpeed(@NonNull String srcPath, @NonNull String dstPath, int sampleRate,
+                               int channelCount, float speed, CommandProcessCallback callback) {
+        mHandler.post(() -> {
+            int ret = 0;
+            try {
+                OfflineSpeedTranscoder transcoder = new OfflineSpeedTranscoder(sampleRate, channelCount);
+                transcoder.setSpeed(speed);
+                transcoder.transcode(new File(srcPath), new File(dstPath),
+                        dstPath.toLowerCase(Locale.ROOT).endsWith(".wav"));
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "adjustPcmSpeed: ", e);
+                ret = -1;
+            }
+            if (callback != null) {
+                callback.onProcessResult(ret);
+            }
+        });
+    }
+
     /**
      * 命令行执行回调
      */
@@ -4,7 +4,6 @@ import android.media.MediaCodec;
 import android.media.MediaCodecInfo;
 import android.media.MediaFormat;
 import android.media.MediaMuxer;
-import android.util.Log;
 
 import java.nio.ByteBuffer;
 
@@ -34,7 +33,7 @@ public class AudioEncoder {
 
     private String mOutputPath;
     private int mAudioTrackId;
-    private int mTotalBytesRead;
+    private long mTotalBytesRead;
     private long mPresentationTimeUs;   // 编码的时长
     private int mBufferSize = BUFFER_SIZE;
 
@@ -109,28 +108,54 @@ public class AudioEncoder {
     }
 
     /**
-     * 编码PCM数据
-     * @param data
-     * @param len
+     * 编码PCM数据，编码position到limit之间的数据，编码后position移动到limit
+     * 数据超出编码器输入缓冲大小时分多次送入编码器
+     * @param data PCM数据，为null时表示输入结束
      */
-    public void encodePCM(byte[] data, int len) {
-        int inputIndex;
-        inputIndex = mMediaCodec.dequeueInputBuffer(ENCODE_TIMEOUT);
-        if (inputIndex >= 0) {
-            ByteBuffer buffer = mInputBuffers[inputIndex];
-            buffer.clear();
-
-            if (len < 0) {
-                mMediaCodec.queueInputBuffer(inputIndex, 0, 0, (long) mPresentationTimeUs, 0);
-            } else {
-                mTotalBytesRead += len;
-                buffer.put(data, 0, len);
-                mMediaCodec.queueInputBuffer(inputIndex, 0, len, (long) mPresentationTimeUs, 0);
-                mPresentationTimeUs = 1000000L * (mTotalBytesRead / mChannelCount / 2) / mSampleRate;
-                Log.d(TAG, "encodePCM: presentationUs：" + mPresentationTimeUs + ", s: " + (mPresentationTimeUs / 1000000f));
-            }
+    public void encodePCM(ByteBuffer data) {
+        if (data == null) {
+            queuePCM(null);
+            drainEncoder();
+            return;
+        }
+        while (data.hasRemaining()) {
+            queuePCM(data);
+            drainEncoder();
         }
+    }
 
+    /**
+     * 将PCM数据送入一个编码器输入缓冲
+     * @param data PCM数据，为null时送入结束标志
+     */
+    private void queuePCM(ByteBuffer data) {
+        int inputIndex = mMediaCodec.dequeueInputBuffer(ENCODE_TIMEOUT);
+        if (inputIndex < 0) {
+            return;
+        }
+        ByteBuffer buffer = mInputBuffers[inputIndex];
+        buffer.clear();
+        if (data == null) {
+            mMediaCodec.queueInputBuffer(inputIndex, 0, 0, mPresentationTimeUs, 0);
+            return;
+        }
+        // 按帧对齐，避免一个采样被拆分到两个输入缓冲中
+        int frameSize = mChannelCount * 2;
+        int capacity = Math.max(buffer.remaining() / frameSize * frameSize, frameSize);
+        int len = Math.min(data.remaining(), capacity);
+        int limit = data.limit();
+        data.limit(data.position() + len);
+        buffer.put(data);
+        data.limit(limit);
+        mMediaCodec.queueInputBuffer(inputIndex, 0, len, mPresentationTimeUs, 0);
+        mTotalBytesRead += len;
+        mPresentationTimeUs = 1000000L * (mTotalBytesRead / frameSize) / mSampleRate;
+    }
+
+    /**
+     * 取出编码后的数据写入封装器
+     */
+    private void drainEncoder() {
         int outputIndex = 0;
         while (outputIndex != MediaCodec.INFO_TRY_AGAIN_LATER) {
             outputIndex = mMediaCodec.dequeueOutputBuffer(mBufferInfo, 0);
@@ -148,6 +173,8 @@ public class AudioEncoder {
                 mMediaFormat = mMediaCodec.getOutputFormat();
                 mAudioTrackId = mMediaMuxer.addTrack(mMediaFormat);
                 mMediaMuxer.start();
+            } else if (outputIndex == MediaCodec.INFO_OUTPUT_BUFFERS_CHANGED) {
+                mOutputBuffers = mMediaCodec.getOutputBuffers();
             }
         }
     }
@@ -8,7 +8,6 @@ import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 /**
  * 音频录制器
@@ -17,6 +16,9 @@ import java.nio.ByteOrder;
  */
 public final class AudioRecorder implements Runnable {
 
+    // 采集与编码之间的PCM缓冲个数
+    private static final int PCM_BUFFER_COUNT = 8;
+
     private int mBufferSize = AudioEncoder.BUFFER_SIZE;
 
     // 录音器
@@ -33,6 +35,10 @@ public final class AudioRecorder implements Runnable {
     private int minBufferSize;
     // 录制状态监听器
     private OnRecordListener mRecordListener;
+    // 编码器锁，录音器的判空与释放使用对象锁，采集线程读取数据时不持有任何锁
+    private final Object mEncoderLock = new Object();
+    // 采集线程，释放录音器之前需要等待它结束
+    private volatile Thread mCaptureThread;
 
     public MediaType getMediaType() {
         return MediaType.AUDIO;
@@ -102,24 +108,48 @@ public final class AudioRecorder implements Runnable {
     }
 
     /**
-     * 释放数据
+     * 释放数据，采集线程还在读取时先停止并等待它结束
      */
-    public synchronized void release() {
-        if (mAudioRecord != null) {
-            try {
-                mAudioRecord.release();
-            } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                mAudioRecord = null;
+    public void release() {
+        joinCaptureThread();
+        synchronized (this) {
+            if (mAudioRecord != null) {
+                try {
+                    mAudioRecord.release();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    mAudioRecord = null;
+                }
             }
         }
-        if (mAudioEncoder != null) {
-            mAudioEncoder.release();
-            mAudioEncoder = null;
+        synchronized (mEncoderLock) {
+            if (mAudioEncoder != null) {
+                mAudioEncoder.release();
+                mAudioEncoder = null;
+            }
         }
     }
 
+    /**
+     * 停止采集线程并等待结束
+     */
+    private void joinCaptureThread() {
+        Thread captureThread = mCaptureThread;
+        if (captureThread == null || captureThread == Thread.currentThread()) {
+            return;
+        }
+        mRecording = false;
+        // 采集线程可能阻塞在等待空闲缓冲上
+        captureThread.interrupt();
+        try {
+            captureThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mCaptureThread = null;
+    }
+
     @Override
     public void run() {
         long duration = 0;
@@ -141,66 +171,46 @@ public final class AudioRecorder implements Runnable {
                 SystemClock.sleep(10);
             }
 
-            byte[] pcmData = new byte[minBufferSize];
-            // 录制编码
-            while (mRecording) {
-                int size;
-                // 取出录音PCM数据
-                synchronized (this) {
-                    if (mAudioRecord == null) {
-                        break;
-                    }
-                    size = mAudioRecord.read(pcmData, 0, pcmData.length);
-                }
-                // 将音频送去转码处理
-                if (size > 0) {
-                    ByteBuffer inBuffer = ByteBuffer.wrap(pcmData,0,size).order(ByteOrder.LITTLE_ENDIAN);
-                    mAudioTranscoder.queueInput(inBuffer);
-                } else {
-                    Thread.sleep(100);
+            // 采集线程只负责读取PCM数据，转码和编码在当前线程中进行，两者通过缓冲池阻塞交接
+            final PcmBufferPool bufferPool = new PcmBufferPool(PCM_BUFFER_COUNT, minBufferSize);
+            Thread captureThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    capture(bufferPool);
                 }
+            }, "AudioCapture");
+            mCaptureThread = captureThread;
+            captureThread.start();
 
+            // 录制编码，直到采集线程提交结束标志
+            PcmBufferPool.PcmBuffer pcmBuffer;
+            while ((pcmBuffer = bufferPool.take()) != null) {
+                // 将音频送去转码处理，转码器会复制数据，处理完即可归还缓冲
+                mAudioTranscoder.queueInput(pcmBuffer.asShortBuffer());
+                bufferPool.recycle(pcmBuffer);
                 // 音频倍速转码输出
-                ByteBuffer outPut = mAudioTranscoder.getOutput();
-                if (outPut != null && outPut.hasRemaining()) {
-                    byte[] outData = new byte[outPut.remaining()];
-                    outPut.get(outData);
-                    synchronized (this) {
-                        if (mAudioEncoder == null) {
-                            break;
-                        }
-                        mAudioEncoder.encodePCM(outData, outData.length);
-                    }
-                } else {
-                    Thread.sleep(5);
+                if (!encodeOutput()) {
+                    break;
                 }
             }
 
             // 刷新缓冲区
-            synchronized (this) {
+            synchronized (mEncoderLock) {
                 if (mAudioTranscoder != null) {
                     mAudioTranscoder.endOfStream();
-                    ByteBuffer outBuffer = mAudioTranscoder.getOutput();
-                    if (outBuffer != null && outBuffer.hasRemaining()) {
-                        byte[] output = new byte[outBuffer.remaining()];
-                        outBuffer.get(output);
-                        synchronized (this) {
-                            if (mAudioEncoder != null) {
-                                mAudioEncoder.encodePCM(output, output.length);
-                            }
-                        }
-                    }
+                    encodeOutput();
                 }
                 if (mAudioEncoder != null) {
-                    mAudioEncoder.encodePCM(null, -1);
+                    mAudioEncoder.encodePCM(null);
+                    duration = mAudioEncoder.getDuration();
                 }
             }
-            if (mAudioEncoder != null) {
-                duration = mAudioEncoder.getDuration();
-            }
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
+            mRecording = false;
+            // 编码提前结束时，采集线程可能阻塞在等待空闲缓冲上
+            joinCaptureThread();
             try {
                 release();
             } catch (Exception e) {
@@ -214,4 +224,63 @@ public final class AudioRecorder implements Runnable {
         }
     }
 
+    /**
+     * 采集PCM数据，在采集线程中运行，停止录制或者读取出错时提交结束标志
+     * @param bufferPool
+     */
+    private void capture(PcmBufferPool bufferPool) {
+        try {
+            while (mRecording) {
+                // 编码跟不上时在这里阻塞，等待编码线程归还缓冲
+                PcmBufferPool.PcmBuffer pcmBuffer = bufferPool.obtain();
+                AudioRecord audioRecord;
+                synchronized (this) {
+                    audioRecord = mAudioRecord;
+                }
+                if (audioRecord == null) {
+                    bufferPool.recycle(pcmBuffer);
+                    break;
+                }
+                // 阻塞读取时不持有锁，release会等待采集线程结束之后再释放录音器
+                int size = audioRecord.read(pcmBuffer.data, bufferPool.getBufferCapacity());
+                if (size > 0) {
+                    pcmBuffer.data.limit(size);
+                    bufferPool.submit(pcmBuffer);
+                } else {
+                    bufferPool.recycle(pcmBuffer);
+                    if (size < 0) {
+                        break;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // 结束标志的位置是预留的，不会阻塞
+            try {
+                bufferPool.submitEndOfStream();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 将转码器的输出送去编码
+     * @return 编码器已经释放时返回false
+     */
+    private boolean encodeOutput() {
+        ByteBuffer output = mAudioTranscoder.getOutput();
+        if (output == null || !output.hasRemaining()) {
+            return true;
+        }
+        synchronized (mEncoderLock) {
+            if (mAudioEncoder == null) {
+                return false;
+            }
+            mAudioEncoder.encodePCM(output);
+        }
+        return true;
+    }
+
 }
@@ -215,13 +215,84 @@ public final class AudioTranscoder {
      * @param inputBuffer The input buffer to process.
      */
     public void queueInput(ByteBuffer inputBuffer) {
-        if (inputBuffer.hasRemaining()) {
-            ShortBuffer shortBuffer = inputBuffer.asShortBuffer();
-            int inputSize = inputBuffer.remaining();
-            inputBytes += inputSize;
-            sonic.queueInput(shortBuffer);
+        int inputSize = inputBuffer.remaining();
+        if (inputSize > 0) {
+            queueInput(inputBuffer.asShortBuffer());
             inputBuffer.position(inputBuffer.position() + inputSize);
+        } else {
+            drainSonicOutput();
+        }
+    }
+
+    /**
+     * Queues 16-bit samples between the position and limit of {@code inputBuffer} for processing,
+     * and advances its position past the consumed samples. Unlike {@link #queueInput(ByteBuffer)}
+     * no view buffer is created, so callers that keep a {@link ShortBuffer} view of their input
+     * (see {@link PcmBufferPool.PcmBuffer#asShortBuffer()}) can process audio without allocating.
+     * Calling this method invalidates any previous buffer returned by {@link #getOutput()}.
+     *
+     * @param inputBuffer The input samples to process.
+     */
+    public void queueInput(ShortBuffer inputBuffer) {
+        if (inputBuffer.hasRemaining()) {
+            inputBytes += inputBuffer.remaining() * 2;
+            sonic.queueInput(inputBuffer);
         }
+        drainSonicOutput();
+    }
+
+    /**
+     * Queues interleaved 16-bit samples from a {@code short[]} for processing. Output produced by
+     * this method stays inside the processor and must be read with
+     * {@link #getOutput(short[], int, int)}; do not mix the array methods with the buffer methods
+     * between calls to {@link #flush()}.
+     *
+     * @param samples The interleaved input samples.
+     * @param offset The index of the first sample in {@code samples}.
+     * @param length The number of shorts to queue.
+     * @return The number of shorts consumed, always a whole number of frames.
+     */
+    public int queueInput(short[] samples, int offset, int length) {
+        int consumed = sonic.queueInput(samples, offset, length);
+        inputBytes += consumed * 2;
+        return consumed;
+    }
+
+    /**
+     * Reads processed output produced by {@link #queueInput(short[], int, int)} or
+     * {@link #queueEndOfStreamInput()}.
+     *
+     * @param samples The array into which interleaved output samples are written.
+     * @param offset The index in {@code samples} of the first output sample.
+     * @param length The maximum number of shorts to write.
+     * @return The number of shorts written, always a whole number of frames.
+     */
+    public int getOutput(short[] samples, int offset, int length) {
+        int written = sonic.getOutput(samples, offset, length);
+        outputBytes += written * 2;
+        return written;
+    }
+
+    /**
+     * Returns the number of output shorts that can be read with {@link #getOutput(short[], int, int)}.
+     */
+    public int getOutputSamplesAvailable() {
+        return sonic.getSamplesAvailable() * channelCount;
+    }
+
+    /**
+     * Queues an end of stream signal for the array methods. Unlike {@link #endOfStream()} the
+     * remaining output is left inside the processor for {@link #getOutput(short[], int, int)}.
+     */
+    public void queueEndOfStreamInput() {
+        sonic.queueEndOfStream();
+        inputEnded = true;
+    }
+
+    /**
+     * Moves all available output of {@link Sonic} into the reusable output buffer.
+     */
+    private void drainSonicOutput() {
         int outputSize = sonic.getSamplesAvailable() * channelCount * 2;
         if (outputSize > 0) {
             if (buffer.capacity() < outputSize) {
@@ -248,6 +319,7 @@ public final class AudioTranscoder {
     public void endOfStream() {
         sonic.queueEndOfStream();
         inputEnded = true;
+        drainSonicOutput();
     }
 
     /**
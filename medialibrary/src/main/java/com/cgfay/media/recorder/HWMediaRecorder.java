@@ -47,6 +47,14 @@ public class HWMediaRecorder implements OnRecordListener {
         mAudioRecorder.release();
     }
 
+    /**
+     * 设置视频帧编码监听器，用于统计录制帧的编码延迟
+     * @param listener
+     */
+    public void setOnFrameEncodedListener(OnFrameEncodedListener listener) {
+        mVideoRecorder.setOnFrameEncodedListener(listener);
+    }
+
     /**
      * 设置是否允许音频录制
      * @param enable
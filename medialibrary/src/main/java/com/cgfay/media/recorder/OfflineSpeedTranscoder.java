@@ -0,0 +1,478 @@
+package com.cgfay.media.recorder;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 离线倍速转码器，用于已录制的PCM/WAV音频
+ * 将音频切分为若干段，每段带上前一段末尾的一小段重叠数据，在多个线程中分别经过Sonic处理，
+ * 再将相邻两段重叠部分的输出交叉淡化拼接，按顺序写出PCM或者WAV。
+ * 同时处理的段数不超过线程数，每段不超过MAX_SEGMENT_SECONDS，长音频不会整段读入内存。
+ * 长音频的处理时间受CPU核数限制，而不是单线程的ffmpeg，整个过程不依赖Android，可以在JVM上测试
+ */
+public final class OfflineSpeedTranscoder {
+
+    // WAV文件头长度
+    private static final int WAV_HEADER_SIZE = 44;
+    // 每次送入Sonic的帧数
+    private static final int CHUNK_FRAMES = 4096;
+    // 默认最短分段时长，单位：秒，短音频不值得拆分
+    private static final float DEFAULT_MIN_SEGMENT_SECONDS = 5.0f;
+    // 默认重叠时长，单位：秒，需要大于Sonic一次基音检测所需的数据(约30ms)
+    private static final float DEFAULT_OVERLAP_SECONDS = 0.1f;
+    // 最长分段时长，单位：秒，限制每段输出占用的内存
+    private static final float MAX_SEGMENT_SECONDS = 30.0f;
+
+    private final int mSampleRate;
+    private final int mChannelCount;
+    private float mSpeed = 1.0f;
+    private int mThreadCount = Runtime.getRuntime().availableProcessors();
+    private float mMinSegmentSeconds = DEFAULT_MIN_SEGMENT_SECONDS;
+    private float mOverlapSeconds = DEFAULT_OVERLAP_SECONDS;
+    private ExecutorService mExecutor;
+
+    /**
+     * @param sampleRate    采样率
+     * @param channelCount  声道数，16位交错存放
+     */
+    public OfflineSpeedTranscoder(int sampleRate, int channelCount) {
+        if (sampleRate <= 0 || channelCount <= 0) {
+            throw new IllegalArgumentException("sampleRate and channelCount must be positive");
+        }
+        mSampleRate = sampleRate;
+        mChannelCount = channelCount;
+    }
+
+    /**
+     * 设置速度，取值范围与AudioTranscoder一致
+     * @param speed
+     */
+    public void setSpeed(float speed) {
+        mSpeed = Math.max(AudioTranscoder.MINIMUM_SPEED, Math.min(speed, AudioTranscoder.MAXIMUM_SPEED));
+    }
+
+    public float getSpeed() {
+        return mSpeed;
+    }
+
+    /**
+     * 设置并行线程数，使用外部线程池时无效
+     * @param threadCount
+     */
+    public void setThreadCount(int threadCount) {
+        mThreadCount = Math.max(threadCount, 1);
+    }
+
+    /**
+     * 设置最短分段时长
+     * @param seconds
+     */
+    public void setMinSegmentDuration(float seconds) {
+        mMinSegmentSeconds = seconds;
+    }
+
+    /**
+     * 设置相邻分段的重叠时长
+     * @param seconds
+     */
+    public void setOverlapDuration(float seconds) {
+        mOverlapSeconds = seconds;
+    }
+
+    /**
+     * 使用外部线程池，为null时每次转码创建mThreadCount个线程
+     * @param executor
+     */
+    public void setExecutor(ExecutorService executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * 转码文件，输入为16位小端PCM或者WAV(根据RIFF头判断，WAV的采样率和声道数需要与构造参数一致)
+     * 输入文件映射到内存后直接按段读取，各段处理完按顺序拼接写入输出文件，
+     * 内存占用只跟同时处理的段数有关，与音频时长无关
+     * @param input     输入文件
+     * @param output    输出文件
+     * @param wav       是否输出WAV，否则输出PCM
+     * @return          输出的帧数
+     * @throws IOException
+     */
+    public long transcode(File input, File output, boolean wav) throws IOException {
+        FileInputStream inputStream = new FileInputStream(input);
+        FileOutputStream fileOutputStream = null;
+        try {
+            ShortBuffer samples = mapSamples(inputStream.getChannel());
+            fileOutputStream = new FileOutputStream(output);
+            final OutputStream outputStream = new BufferedOutputStream(fileOutputStream);
+            if (wav) {
+                // 先写入占位的文件头，数据长度在写完之后补上
+                outputStream.write(createWavHeader(0).array());
+            }
+            final ByteBuffer writeBuffer = ByteBuffer.allocate(CHUNK_FRAMES * 2).order(ByteOrder.LITTLE_ENDIAN);
+            long sampleCount = process(samples, new SampleSink() {
+                @Override
+                public void write(short[] data, int offset, int length) throws IOException {
+                    writeSamples(outputStream, writeBuffer, data, offset, length);
+                }
+            });
+            outputStream.flush();
+            if (wav) {
+                FileChannel channel = fileOutputStream.getChannel();
+                channel.position(0);
+                channel.write(createWavHeader(sampleCount));
+            }
+            return sampleCount / mChannelCount;
+        } finally {
+            inputStream.close();
+            if (fileOutputStream != null) {
+                fileOutputStream.close();
+            }
+        }
+    }
+
+    /**
+     * 转码交错存放的16位采样
+     * @param input     输入采样
+     * @param offset    起始位置
+     * @param length    采样个数(short)，不足一帧的部分忽略
+     * @return          输出采样
+     * @throws IOException  处理失败或者被中断
+     */
+    public short[] process(short[] input, int offset, int length) throws IOException {
+        final ArraySink sink = new ArraySink((int) (length / mSpeed) + CHUNK_FRAMES * mChannelCount);
+        process(ShortBuffer.wrap(input, offset, length).slice(), sink);
+        return sink.toArray();
+    }
+
+    /**
+     * 分段处理并按顺序输出，同时处理的段数不超过线程数，每段的输入直接从input中读取
+     * @param input     输入采样，position到limit之间的数据
+     * @param sink      输出
+     * @return          输出的采样个数(short)
+     */
+    private long process(ShortBuffer input, SampleSink sink) throws IOException {
+        int totalFrames = input.remaining() / mChannelCount;
+        int overlapFrames = Math.max((int) (mOverlapSeconds * mSampleRate), 1);
+        int minSegmentFrames = Math.max((int) (mMinSegmentSeconds * mSampleRate), overlapFrames * 2);
+        int maxSegmentFrames = Math.max((int) (MAX_SEGMENT_SECONDS * mSampleRate), minSegmentFrames);
+        int parallelism = mExecutor != null ? Math.max(mThreadCount, 2) : mThreadCount;
+        int segmentFrames;
+        if (parallelism <= 1 || totalFrames < minSegmentFrames * 2) {
+            // 单线程或者短音频时不拆分，整段流式处理
+            segmentFrames = Math.max(totalFrames, 1);
+        } else {
+            int frames = (totalFrames + parallelism - 1) / parallelism;
+            segmentFrames = Math.max(minSegmentFrames, Math.min(frames, maxSegmentFrames));
+        }
+        int segmentCount = Math.max(1, (totalFrames + segmentFrames - 1) / segmentFrames);
+        if (segmentCount == 1) {
+            return new SegmentTask(input, 0, totalFrames, 0, sink).call().written;
+        }
+
+        ExecutorService executor = mExecutor;
+        boolean ownExecutor = false;
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Math.min(parallelism, segmentCount));
+            ownExecutor = true;
+        }
+        int holdLength = (int) (overlapFrames / mSpeed) * mChannelCount;
+        Stitcher stitcher = new Stitcher(holdLength, sink);
+        ArrayDeque<Future<Segment>> pending = new ArrayDeque<>();
+        try {
+            int next = 0;
+            while (next < segmentCount || !pending.isEmpty()) {
+                // 按顺序提交，最多同时处理parallelism段，完成的段按顺序写出后再提交新的段
+                while (next < segmentCount && pending.size() < parallelism) {
+                    int start = next * segmentFrames;
+                    int end = Math.min(start + segmentFrames, totalFrames);
+                    // 除第一段外，每段都从前一段末尾的重叠位置开始处理
+                    int from = Math.max(start - (next > 0 ? overlapFrames : 0), 0);
+                    pending.add(executor.submit(new SegmentTask(input, from, end, start - from, null)));
+                    next++;
+                }
+                stitcher.append(pending.poll().get());
+            }
+            return stitcher.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("speed transcode interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("speed transcode failed", e.getCause());
+        } finally {
+            for (Future<Segment> future : pending) {
+                future.cancel(true);
+            }
+            if (ownExecutor) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 采样输出
+     */
+    private interface SampleSink {
+        void write(short[] samples, int offset, int length) throws IOException;
+    }
+
+    /**
+     * 输出到数组，用于内存中的转码
+     */
+    private static final class ArraySink implements SampleSink {
+
+        private short[] mSamples;
+        private int mLength;
+
+        ArraySink(int capacity) {
+            mSamples = new short[capacity];
+        }
+
+        @Override
+        public void write(short[] samples, int offset, int length) {
+            if (mLength + length > mSamples.length) {
+                mSamples = Arrays.copyOf(mSamples, Math.max(mLength + length, mSamples.length * 3 / 2));
+            }
+            System.arraycopy(samples, offset, mSamples, mLength, length);
+            mLength += length;
+        }
+
+        short[] toArray() {
+            return mSamples.length == mLength ? mSamples : Arrays.copyOf(mSamples, mLength);
+        }
+    }
+
+    /**
+     * 一段的处理结果
+     */
+    private static final class Segment {
+        // 输出采样
+        short[] samples;
+        // 有效的采样个数
+        int length;
+        // 开头属于重叠部分的输出采样个数
+        int overlapLength;
+        // 直接写到输出时已经写出的采样个数
+        long written;
+    }
+
+    /**
+     * 处理一段数据的任务，每个任务使用独立的Sonic
+     * 指定了输出时处理结果直接写出，不保留在Segment中
+     */
+    private final class SegmentTask implements Callable<Segment> {
+
+        private final ShortBuffer mInput;
+        private final int mFromFrame;
+        private final int mEndFrame;
+        private final int mOverlapFrames;
+        private final SampleSink mSink;
+
+        SegmentTask(ShortBuffer input, int fromFrame, int endFrame, int overlapFrames, SampleSink sink) {
+            // 各个任务使用独立的position和limit
+            mInput = input.duplicate();
+            mFromFrame = fromFrame;
+            mEndFrame = endFrame;
+            mOverlapFrames = overlapFrames;
+            mSink = sink;
+        }
+
+        @Override
+        public Segment call() throws IOException {
+            Sonic sonic = new Sonic(mSampleRate, mChannelCount, mSpeed, 1.0f, mSampleRate);
+            int frames = mEndFrame - mFromFrame;
+            int base = mInput.position();
+            Segment segment = new Segment();
+            segment.samples = new short[(mSink != null ? CHUNK_FRAMES * 2
+                    : (int) (frames / mSpeed) + CHUNK_FRAMES) * mChannelCount];
+            for (int frame = mFromFrame; frame < mEndFrame; frame += CHUNK_FRAMES) {
+                int chunk = Math.min(CHUNK_FRAMES, mEndFrame - frame);
+                mInput.limit(base + (frame + chunk) * mChannelCount);
+                mInput.position(base + frame * mChannelCount);
+                sonic.queueInput(mInput);
+                drain(sonic, segment);
+            }
+            sonic.queueEndOfStream();
+            drain(sonic, segment);
+            segment.overlapLength = Math.min((int) (mOverlapFrames / mSpeed) * mChannelCount, segment.length);
+            return segment;
+        }
+
+        private void drain(Sonic sonic, Segment segment) throws IOException {
+            int available = sonic.getSamplesAvailable() * mChannelCount;
+            if (mSink != null) {
+                while (available > 0) {
+                    int length = sonic.getOutput(segment.samples, 0, segment.samples.length);
+                    mSink.write(segment.samples, 0, length);
+                    segment.written += length;
+                    available -= length;
+                }
+                return;
+            }
+            if (segment.length + available > segment.samples.length) {
+                short[] samples = new short[(segment.length + available) * 3 / 2];
+                System.arraycopy(segment.samples, 0, samples, 0, segment.length);
+                segment.samples = samples;
+            }
+            segment.length += sonic.getOutput(segment.samples, segment.length, available);
+        }
+    }
+
+    /**
+     * 按顺序拼接各段的输出，相邻两段的重叠部分做线性交叉淡化
+     * 每段末尾保留一个重叠长度的输出，等下一段完成后淡化再写出，其余部分直接写出
+     */
+    private final class Stitcher {
+
+        private final SampleSink mSink;
+        private final short[] mTail;
+        private int mTailLength;
+        private boolean mStarted;
+        private long mWritten;
+
+        Stitcher(int holdLength, SampleSink sink) {
+            mTail = new short[holdLength];
+            mSink = sink;
+        }
+
+        void append(Segment segment) throws IOException {
+            int skip = 0;
+            if (mStarted) {
+                // 与前一段末尾的输出交叉淡化
+                int fadeLength = Math.min(segment.overlapLength, mTailLength) / mChannelCount * mChannelCount;
+                int fadeStart = mTailLength - fadeLength;
+                int fadeFrames = fadeLength / mChannelCount;
+                for (int frame = 0; frame < fadeFrames; frame++) {
+                    float weight = (frame + 0.5f) / fadeFrames;
+                    for (int channel = 0; channel < mChannelCount; channel++) {
+                        int index = frame * mChannelCount + channel;
+                        int previous = mTail[fadeStart + index];
+                        int current = segment.samples[index];
+                        mTail[fadeStart + index] = (short) (previous + (current - previous) * weight);
+                    }
+                }
+                write(mTail, 0, mTailLength);
+                skip = segment.overlapLength;
+            }
+            mStarted = true;
+            int length = segment.length - skip;
+            mTailLength = Math.min(mTail.length, length);
+            write(segment.samples, skip, length - mTailLength);
+            System.arraycopy(segment.samples, segment.length - mTailLength, mTail, 0, mTailLength);
+        }
+
+        long finish() throws IOException {
+            write(mTail, 0, mTailLength);
+            mTailLength = 0;
+            return mWritten;
+        }
+
+        private void write(short[] samples, int offset, int length) throws IOException {
+            if (length > 0) {
+                mSink.write(samples, offset, length);
+                mWritten += length;
+            }
+        }
+    }
+
+    /**
+     * 映射输入文件，返回16位小端采样，WAV文件跳过文件头
+     */
+    private ShortBuffer mapSamples(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("input too large: " + size);
+        }
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        int dataOffset = findWavData(buffer);
+        buffer.position(dataOffset);
+        return buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    }
+
+    /**
+     * 查找WAV的data块，不是WAV时返回0
+     * @param buffer    小端字节序的文件数据
+     * @return          采样数据的起始位置
+     * @throws IOException  WAV格式与转码参数不一致
+     */
+    private int findWavData(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < WAV_HEADER_SIZE || buffer.getInt(0) != 0x46464952 /* RIFF */
+                || buffer.getInt(8) != 0x45564157 /* WAVE */) {
+            return 0;
+        }
+        int position = 12;
+        while (position + 8 <= buffer.limit()) {
+            int chunkId = buffer.getInt(position);
+            int chunkSize = buffer.getInt(position + 4);
+            if (chunkId == 0x20746d66 /* fmt  */) {
+                int channels = buffer.getShort(position + 10);
+                int sampleRate = buffer.getInt(position + 12);
+                int bitsPerSample = buffer.getShort(position + 22);
+                if (channels != mChannelCount || sampleRate != mSampleRate || bitsPerSample != 16) {
+                    throw new IOException("unsupported wav format: " + sampleRate + " Hz, "
+                            + channels + " channels, " + bitsPerSample + " bits");
+                }
+            } else if (chunkId == 0x61746164 /* data */) {
+                buffer.limit((int) Math.min(buffer.limit(), (long) position + 8 + (chunkSize & 0xffffffffL)));
+                return position + 8;
+            }
+            position += 8 + chunkSize + (chunkSize & 1);
+        }
+        throw new IOException("wav data chunk not found");
+    }
+
+    /**
+     * 创建WAV文件头
+     * @param sampleCount   采样个数(short)
+     */
+    private ByteBuffer createWavHeader(long sampleCount) {
+        int dataSize = (int) Math.min(sampleCount * 2, Integer.MAX_VALUE - 36);
+        ByteBuffer header = ByteBuffer.allocate(WAV_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0x46464952);
+        header.putInt(36 + dataSize);
+        header.putInt(0x45564157);
+        header.putInt(0x20746d66);
+        header.putInt(16);
+        header.putShort((short) 1);
+        header.putShort((short) mChannelCount);
+        header.putInt(mSampleRate);
+        header.putInt(mSampleRate * mChannelCount * 2);
+        header.putShort((short) (mChannelCount * 2));
+        header.putShort((short) 16);
+        header.putInt(0x61746164);
+        header.putInt(dataSize);
+        header.flip();
+        return header;
+    }
+
+    /**
+     * 以16位小端格式写入采样
+     */
+    private static void writeSamples(OutputStream outputStream, ByteBuffer buffer, short[] samples,
+                                     int offset, int length) throws IOException {
+        int capacity = buffer.capacity() / 2;
+        int end = offset + length;
+        while (offset < end) {
+            int count = Math.min(capacity, end - offset);
+            buffer.clear();
+            buffer.asShortBuffer().put(samples, offset, count);
+            outputStream.write(buffer.array(), 0, count * 2);
+            offset += count;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.cgfay.media.recorder;
+
+/**
+ * 录制帧编码监听器
+ */
+public interface OnFrameEncodedListener {
+
+    // 一帧绘制到编码器之后在录制线程中回调，timestamp为frameAvailable传入的时间戳
+    void onFrameEncoded(long timestamp);
+}
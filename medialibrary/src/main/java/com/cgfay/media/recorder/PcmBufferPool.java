@@ -0,0 +1,124 @@
+package com.cgfay.media.recorder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * PCM缓冲池，预先分配固定个数的direct缓冲，在采集线程和编码线程之间循环使用
+ * 采集线程取出空闲缓冲写入PCM数据后提交，编码线程取出已提交的缓冲处理完后归还，
+ * 两端都是阻塞的，缓冲用完时采集线程等待编码线程归还，录制过程中不再分配内存
+ */
+public final class PcmBufferPool {
+
+    /**
+     * 池中的一个缓冲，data和shorts共享同一块内存
+     */
+    public static final class PcmBuffer {
+        // 字节视图，native字节序
+        public final ByteBuffer data;
+        // 16位采样视图，与data共享内存，避免每次调用asShortBuffer
+        private final ShortBuffer shorts;
+
+        PcmBuffer(int capacity) {
+            data = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+            shorts = data.asShortBuffer();
+        }
+
+        /**
+         * 返回与data的position和limit对应的采样视图
+         * @return
+         */
+        public ShortBuffer asShortBuffer() {
+            shorts.limit(data.limit() / 2);
+            shorts.position(data.position() / 2);
+            return shorts;
+        }
+    }
+
+    // 结束标志，不属于缓冲池
+    private final PcmBuffer mEndOfStream = new PcmBuffer(0);
+
+    private final BlockingQueue<PcmBuffer> mFreeBuffers;
+    private final BlockingQueue<PcmBuffer> mFilledBuffers;
+    private final int mBufferCapacity;
+
+    /**
+     * @param count     缓冲个数
+     * @param capacity  每个缓冲的字节数
+     */
+    public PcmBufferPool(int count, int capacity) {
+        if (count <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("count and capacity must be positive");
+        }
+        mBufferCapacity = capacity;
+        mFreeBuffers = new ArrayBlockingQueue<>(count);
+        // 多留一个位置给结束标志
+        mFilledBuffers = new ArrayBlockingQueue<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            mFreeBuffers.add(new PcmBuffer(capacity));
+        }
+    }
+
+    public int getBufferCapacity() {
+        return mBufferCapacity;
+    }
+
+    /**
+     * 取出一个空闲缓冲，没有空闲缓冲时阻塞，采集线程调用
+     * @return 已清空的缓冲
+     * @throws InterruptedException
+     */
+    public PcmBuffer obtain() throws InterruptedException {
+        PcmBuffer buffer = mFreeBuffers.take();
+        buffer.data.clear();
+        return buffer;
+    }
+
+    /**
+     * 提交写好数据的缓冲，数据为data的position到limit之间的部分，采集线程调用
+     * @param buffer
+     * @throws InterruptedException
+     */
+    public void submit(PcmBuffer buffer) throws InterruptedException {
+        mFilledBuffers.put(buffer);
+    }
+
+    /**
+     * 提交结束标志，编码线程取到之后结束处理，采集线程调用
+     * @throws InterruptedException
+     */
+    public void submitEndOfStream() throws InterruptedException {
+        mFilledBuffers.put(mEndOfStream);
+    }
+
+    /**
+     * 取出已提交的缓冲，没有数据时阻塞，编码线程调用
+     * @return 已提交的缓冲，结束时返回null
+     * @throws InterruptedException
+     */
+    public PcmBuffer take() throws InterruptedException {
+        PcmBuffer buffer = mFilledBuffers.take();
+        return buffer == mEndOfStream ? null : buffer;
+    }
+
+    /**
+     * 归还处理完的缓冲，编码线程调用
+     * @param buffer
+     */
+    public void recycle(PcmBuffer buffer) {
+        if (buffer != null && buffer != mEndOfStream) {
+            mFreeBuffers.offer(buffer);
+        }
+    }
+
+    /**
+     * 空闲缓冲个数
+     * @return
+     */
+    public int getFreeCount() {
+        return mFreeBuffers.size();
+    }
+}
@@ -80,13 +80,32 @@ import java.util.Arrays;
      */
     public void queueInput(ShortBuffer buffer) {
         int samplesToWrite = buffer.remaining() / numChannels;
-        int bytesToWrite = samplesToWrite * numChannels * 2;
+        int shortsToWrite = samplesToWrite * numChannels;
         enlargeInputBufferIfNeeded(samplesToWrite);
-        buffer.get(inputBuffer, numInputSamples * numChannels, bytesToWrite / 2);
+        buffer.get(inputBuffer, numInputSamples * numChannels, shortsToWrite);
         numInputSamples += samplesToWrite;
         processStreamInput();
     }
 
+    /**
+     * Queues interleaved samples from a {@code short[]} without going through a {@link ShortBuffer}.
+     *
+     * @param samples The interleaved input samples.
+     * @param offset The index of the first sample in {@code samples}.
+     * @param length The number of shorts to queue. Trailing shorts that do not form a whole frame
+     *     are ignored.
+     * @return The number of shorts consumed.
+     */
+    public int queueInput(short[] samples, int offset, int length) {
+        int samplesToWrite = length / numChannels;
+        int shortsToWrite = samplesToWrite * numChannels;
+        enlargeInputBufferIfNeeded(samplesToWrite);
+        System.arraycopy(samples, offset, inputBuffer, numInputSamples * numChannels, shortsToWrite);
+        numInputSamples += samplesToWrite;
+        processStreamInput();
+        return shortsToWrite;
+    }
+
     /**
      * Gets available output, outputting to the start of {@code buffer}. The buffer's position will be
      * advanced by the number of bytes written.
@@ -96,8 +115,28 @@ import java.util.Arrays;
     public void getOutput(ShortBuffer buffer) {
         int samplesToRead = Math.min(buffer.remaining() / numChannels, numOutputSamples);
         buffer.put(outputBuffer, 0, samplesToRead * numChannels);
-        numOutputSamples -= samplesToRead;
-        System.arraycopy(outputBuffer, samplesToRead * numChannels, outputBuffer, 0,
+        removeOutputSamples(samplesToRead);
+    }
+
+    /**
+     * Gets available output into a {@code short[]} without going through a {@link ShortBuffer}.
+     *
+     * @param samples The array into which interleaved output samples are written.
+     * @param offset The index in {@code samples} of the first output sample.
+     * @param length The maximum number of shorts to write.
+     * @return The number of shorts written, always a whole number of frames.
+     */
+    public int getOutput(short[] samples, int offset, int length) {
+        int samplesToRead = Math.min(length / numChannels, numOutputSamples);
+        int shortsToRead = samplesToRead * numChannels;
+        System.arraycopy(outputBuffer, 0, samples, offset, shortsToRead);
+        removeOutputSamples(samplesToRead);
+        return shortsToRead;
+    }
+
+    private void removeOutputSamples(int numSamples) {
+        numOutputSamples -= numSamples;
+        System.arraycopy(outputBuffer, numSamples * numChannels, outputBuffer, 0,
                 numOutputSamples * numChannels);
     }
 
@@ -178,17 +217,29 @@ import java.util.Arrays;
         // buffer. If numChannels is greater than one, mix the channels together as we down sample.
         int numSamples = maxRequired / skip;
         int samplesPerValue = numChannels * skip;
-        position *= numChannels;
+        int start = position * numChannels;
+        if (samplesPerValue == 1) {
+            System.arraycopy(samples, start, downSampleBuffer, 0, numSamples);
+            return;
+        }
         for (int i = 0; i < numSamples; i++) {
-            int value = 0;
-            for (int j = 0; j < samplesPerValue; j++) {
-                value += samples[position + i * samplesPerValue + j];
-            }
-            value /= samplesPerValue;
-            downSampleBuffer[i] = (short) value;
+            downSampleBuffer[i] = (short) (sum(samples, start + i * samplesPerValue, samplesPerValue)
+                    / samplesPerValue);
         }
     }
 
+    /**
+     * Sums {@code length} consecutive samples. Kept as a separate contiguous loop so that it can be
+     * vectorized.
+     */
+    private static int sum(short[] samples, int start, int length) {
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            value += samples[start + i];
+        }
+        return value;
+    }
+
     private int findPitchPeriodInRange(short[] samples, int position, int minPeriod, int maxPeriod) {
         // Find the best frequency match in the range, and given a sample skip multiple. For now, just
         // find the pitch of the first channel.
@@ -198,12 +249,7 @@ import java.util.Arrays;
         int maxDiff = 0;
         position *= numChannels;
         for (int period = minPeriod; period <= maxPeriod; period++) {
-            int diff = 0;
-            for (int i = 0; i < period; i++) {
-                short sVal = samples[position + i];
-                short pVal = samples[position + period + i];
-                diff += Math.abs(sVal - pVal);
-            }
+            int diff = absoluteDifferenceSum(samples, position, position + period, period);
             // Note that the highest number of samples we add into diff will be less than 256, since we
             // skip samples. Thus, diff is a 24 bit number, and we can safely multiply by numSamples
             // without overflow.
@@ -221,6 +267,19 @@ import java.util.Arrays;
         return bestPeriod;
     }
 
+    /**
+     * Returns the sum of absolute differences between {@code length} samples starting at
+     * {@code first} and {@code second} (the AMDF of one candidate period). The loop is a plain
+     * sum-of-absolute-differences over contiguous indices, which the JIT can vectorize.
+     */
+    static int absoluteDifferenceSum(short[] samples, int first, int second, int length) {
+        int diff = 0;
+        for (int i = 0; i < length; i++) {
+            diff += Math.abs(samples[first + i] - samples[second + i]);
+        }
+        return diff;
+    }
+
     /**
      * Returns whether the previous pitch period estimate is a better approximation, which can occur
      * at the abrupt end of voiced words.
@@ -425,8 +484,15 @@ import java.util.Arrays;
         }
     }
 
-    private static void overlapAdd(int numSamples, int numChannels, short[] out, int outPos,
-                                   short[] rampDown, int rampDownPos, short[] rampUp, int rampUpPos) {
+    static void overlapAdd(int numSamples, int numChannels, short[] out, int outPos,
+                           short[] rampDown, int rampDownPos, short[] rampUp, int rampUpPos) {
+        if (numSamples <= 0) {
+            return;
+        }
+        if (numChannels == 1) {
+            overlapAddMono(numSamples, out, outPos, rampDown, rampDownPos, rampUp, rampUpPos);
+            return;
+        }
         for (int i = 0; i < numChannels; i++) {
             int o = outPos * numChannels + i;
             int u = rampUpPos * numChannels + i;
@@ -440,5 +506,20 @@ import java.util.Arrays;
         }
     }
 
+    /**
+     * Mono overlap-add over contiguous samples. The ramp is computed from the loop index with a float
+     * reciprocal instead of an integer division per sample, so the loop carries no dependency and
+     * vectorizes; results differ from the integer version by at most one LSB.
+     */
+    private static void overlapAddMono(int numSamples, short[] out, int outPos,
+                                       short[] rampDown, int rampDownPos, short[] rampUp, int rampUpPos) {
+        float step = 1.0f / numSamples;
+        for (int t = 0; t < numSamples; t++) {
+            int down = rampDown[rampDownPos + t];
+            int up = rampUp[rampUpPos + t];
+            out[outPos + t] = (short) (down + (up - down) * (t * step));
+        }
+    }
+
 }
 
@@ -55,6 +55,8 @@ public final class VideoRecorder implements Runnable, VideoEncoder.OnEncodingLis
 
     // 录制监听器
     private OnRecordListener mRecordListener;
+    // 帧编码监听器
+    private volatile OnFrameEncodedListener mFrameEncodedListener;
 
     // 倍速录制索引你
     private int mDrawFrameIndex;  // 绘制帧索引，用于表示预览的渲染次数，用于大于1.0倍速录制的丢帧操作
@@ -68,6 +70,14 @@ public final class VideoRecorder implements Runnable, VideoEncoder.OnEncodingLis
         mRecordListener = listener;
     }
 
+    /**
+     * 设置帧编码监听器
+     * @param listener
+     */
+    public void setOnFrameEncodedListener(OnFrameEncodedListener listener) {
+        mFrameEncodedListener = listener;
+    }
+
     /**
      * 开始录制
      * @param params 录制参数
@@ -326,6 +336,10 @@ public final class VideoRecorder implements Runnable, VideoEncoder.OnEncodingLis
         mInputWindowSurface.setPresentationTime(getPTS(timestampNanos));
         mInputWindowSurface.swapBuffers();
         mVideoEncoder.drainEncoder(false);
+        OnFrameEncodedListener listener = mFrameEncodedListener;
+        if (listener != null) {
+            listener.onFrameEncoded(timestampNanos);
+        }
     }
 
 
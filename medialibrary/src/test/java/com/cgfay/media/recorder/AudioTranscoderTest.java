@@ -0,0 +1,147 @@
+package com.cgfay.media.recorder;
+
+import android.media.AudioFormat;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 使用合成的PCM数据驱动缓冲池和倍速转码器，检查输出长度、采集与编码之间的阻塞交接以及稳定状态下的内存分配
+ */
+public class AudioTranscoderTest {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int CHANNEL_COUNT = 1;
+    // 20ms一个缓冲，与AudioRecorder中的大小一致
+    private static final int BUFFER_SIZE = (int) (SAMPLE_RATE * 4 * 0.02);
+
+    private static AudioTranscoder createTranscoder(float speed) throws Exception {
+        AudioTranscoder transcoder = new AudioTranscoder();
+        transcoder.setSpeed(speed);
+        transcoder.configure(SAMPLE_RATE, CHANNEL_COUNT, AudioFormat.ENCODING_PCM_16BIT);
+        transcoder.setOutputSampleRateHz(SAMPLE_RATE);
+        transcoder.flush();
+        return transcoder;
+    }
+
+    /**
+     * 写入一段440Hz的正弦波，模拟AudioRecord.read
+     * @return 下一个采样的序号
+     */
+    private static long fillSine(ByteBuffer data, long sampleIndex) {
+        data.clear();
+        int samples = BUFFER_SIZE / 2 / CHANNEL_COUNT;
+        for (int i = 0; i < samples; i++, sampleIndex++) {
+            short value = (short) (Math.sin(2 * Math.PI * 440 * sampleIndex / SAMPLE_RATE) * 8000);
+            for (int channel = 0; channel < CHANNEL_COUNT; channel++) {
+                data.putShort(value);
+            }
+        }
+        data.flip();
+        return sampleIndex;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 在当前线程中完成采集、转码的一轮循环，返回转码输出的字节数
+     */
+    private static long process(PcmBufferPool pool, AudioTranscoder transcoder, int rounds, long[] sampleIndex)
+            throws InterruptedException {
+        long outputBytes = 0;
+        for (int i = 0; i < rounds; i++) {
+            PcmBufferPool.PcmBuffer buffer = pool.obtain();
+            sampleIndex[0] = fillSine(buffer.data, sampleIndex[0]);
+            pool.submit(buffer);
+            PcmBufferPool.PcmBuffer filled = pool.take();
+            transcoder.queueInput(filled.asShortBuffer());
+            pool.recycle(filled);
+            ByteBuffer output = transcoder.getOutput();
+            outputBytes += output.remaining();
+            output.position(output.limit());
+        }
+        return outputBytes;
+    }
+
+    @Test
+    public void outputLengthFollowsSpeed() throws Exception {
+        float[] speeds = { 0.5f, 1.0f, 2.0f };
+        int rounds = 500;
+        for (float speed : speeds) {
+            PcmBufferPool pool = new PcmBufferPool(4, BUFFER_SIZE);
+            AudioTranscoder transcoder = createTranscoder(speed);
+            long outputBytes = process(pool, transcoder, rounds, new long[1]);
+            transcoder.endOfStream();
+            outputBytes += transcoder.getOutput().remaining();
+            double expected = (double) rounds * BUFFER_SIZE / speed;
+            assertEquals("speed " + speed, expected, outputBytes, expected * 0.02);
+            assertEquals(4, pool.getFreeCount());
+        }
+    }
+
+    @Test
+    public void steadyStateTranscodingDoesNotAllocate() throws Exception {
+        PcmBufferPool pool = new PcmBufferPool(4, BUFFER_SIZE);
+        AudioTranscoder transcoder = createTranscoder(2.0f);
+        long[] sampleIndex = new long[1];
+        // 预热，转码器和Sonic内部的缓冲在这期间扩容到稳定大小
+        process(pool, transcoder, 2000, sampleIndex);
+
+        int rounds = 5000;
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        long outputBytes = process(pool, transcoder, rounds, sampleIndex);
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - bytes;
+        System.out.println(String.format("transcode: %d buffers (%.1f s of audio) in %.1f ms, %d bytes allocated",
+                rounds, rounds * 0.02, elapsed / 1e6, allocated));
+        assertTrue(outputBytes > 0);
+        // 统计接口本身会分配少量内存，每个缓冲不足1字节即说明处理过程没有分配对象
+        assertTrue("transcoding allocated " + allocated + " bytes", allocated < rounds);
+    }
+
+    @Test
+    public void blockingHandOffDeliversAllBuffersInOrder() throws Exception {
+        final PcmBufferPool pool = new PcmBufferPool(3, BUFFER_SIZE);
+        final int rounds = 2000;
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < rounds; i++) {
+                        PcmBufferPool.PcmBuffer buffer = pool.obtain();
+                        buffer.data.putInt(i);
+                        buffer.data.flip();
+                        pool.submit(buffer);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    try {
+                        pool.submitEndOfStream();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        producer.start();
+
+        int expected = 0;
+        PcmBufferPool.PcmBuffer buffer;
+        while ((buffer = pool.take()) != null) {
+            assertEquals(expected++, buffer.data.getInt(0));
+            pool.recycle(buffer);
+        }
+        producer.join();
+        assertEquals(rounds, expected);
+        assertEquals(3, pool.getFreeCount());
+    }
+}
@@ -0,0 +1,174 @@
+package com.cgfay.media.recorder;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 离线倍速转码测试，比较分段并行处理与单段处理的结果
+ */
+public class OfflineSpeedTranscoderTest {
+
+    private static final int SAMPLE_RATE = 44100;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private static short[] transcode(short[] input, int channels, float speed, int threads) throws IOException {
+        OfflineSpeedTranscoder transcoder = new OfflineSpeedTranscoder(SAMPLE_RATE, channels);
+        transcoder.setSpeed(speed);
+        transcoder.setThreadCount(threads);
+        transcoder.setMinSegmentDuration(2.0f);
+        return transcoder.process(input, 0, input.length);
+    }
+
+    /**
+     * 相邻采样的最大跳变，拼接处出现爆音时会明显变大
+     */
+    private static int maxStep(short[] samples, int channels) {
+        int max = 0;
+        for (int i = channels; i < samples.length; i++) {
+            max = Math.max(max, Math.abs(samples[i] - samples[i - channels]));
+        }
+        return max;
+    }
+
+    @Test
+    public void parallelSegmentsMatchSingleSegmentLength() throws IOException {
+        float[] speeds = { 0.5f, 1.5f, 2.0f, 3.0f };
+        for (int channels = 1; channels <= 2; channels++) {
+            short[] input = SonicTest.synthesize(SAMPLE_RATE, channels, SAMPLE_RATE * 12, channels);
+            for (float speed : speeds) {
+                short[] single = transcode(input, channels, speed, 1);
+                short[] parallel = transcode(input, channels, speed, 4);
+                String message = "channels " + channels + " speed " + speed;
+                assertEquals(message, 0, parallel.length % channels);
+                double expected = input.length / speed;
+                assertEquals(message, expected, single.length, expected * 0.01);
+                assertEquals(message, expected, parallel.length, expected * 0.01);
+                assertTrue(message, maxStep(parallel, channels) <= maxStep(single, channels) * 3 / 2);
+            }
+        }
+    }
+
+    @Test
+    public void shortClipIsNotSplit() throws IOException {
+        short[] input = SonicTest.synthesize(SAMPLE_RATE, 1, SAMPLE_RATE, 9);
+        assertArrayEquals(transcode(input, 1, 2.0f, 1), transcode(input, 1, 2.0f, 8));
+    }
+
+    @Test
+    public void externalExecutorIsNotShutDown() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            short[] input = SonicTest.synthesize(SAMPLE_RATE, 2, SAMPLE_RATE * 6, 3);
+            OfflineSpeedTranscoder transcoder = new OfflineSpeedTranscoder(SAMPLE_RATE, 2);
+            transcoder.setSpeed(2.0f);
+            transcoder.setMinSegmentDuration(1.0f);
+            transcoder.setExecutor(executor);
+            short[] output = transcoder.process(input, 0, input.length);
+            assertEquals(input.length / 2.0, output.length, input.length * 0.01);
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void transcodesWavFileToWav() throws IOException {
+        int channels = 2;
+        short[] input = SonicTest.synthesize(SAMPLE_RATE, channels, SAMPLE_RATE * 3, 11);
+        File source = mFolder.newFile("source.wav");
+        ByteBuffer data = ByteBuffer.allocate(44 + input.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(0x46464952).putInt(36 + input.length * 2).putInt(0x45564157);
+        data.putInt(0x20746d66).putInt(16).putShort((short) 1).putShort((short) channels)
+                .putInt(SAMPLE_RATE).putInt(SAMPLE_RATE * channels * 2)
+                .putShort((short) (channels * 2)).putShort((short) 16);
+        data.putInt(0x61746164).putInt(input.length * 2);
+        data.asShortBuffer().put(input);
+        FileOutputStream outputStream = new FileOutputStream(source);
+        outputStream.write(data.array());
+        outputStream.close();
+
+        File target = new File(mFolder.getRoot(), "target.wav");
+        OfflineSpeedTranscoder transcoder = new OfflineSpeedTranscoder(SAMPLE_RATE, channels);
+        transcoder.setSpeed(1.5f);
+        long frames = transcoder.transcode(source, target, true);
+
+        RandomAccessFile file = new RandomAccessFile(target, "r");
+        try {
+            byte[] header = new byte[44];
+            file.readFully(header);
+            ByteBuffer buffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(0x46464952, buffer.getInt(0));
+            assertEquals(channels, buffer.getShort(22));
+            assertEquals(SAMPLE_RATE, buffer.getInt(24));
+            assertEquals(frames * channels * 2, buffer.getInt(40));
+            assertEquals(44 + frames * channels * 2, file.length());
+        } finally {
+            file.close();
+        }
+        assertEquals(SAMPLE_RATE * 3 / 1.5, frames, SAMPLE_RATE * 0.03);
+    }
+
+    @Test
+    public void streamedFileMatchesInMemory() throws IOException {
+        int channels = 2;
+        short[] input = SonicTest.synthesize(SAMPLE_RATE, channels, SAMPLE_RATE * 10, 13);
+        File source = mFolder.newFile("source.pcm");
+        ByteBuffer data = ByteBuffer.allocate(input.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        data.asShortBuffer().put(input);
+        FileOutputStream outputStream = new FileOutputStream(source);
+        outputStream.write(data.array());
+        outputStream.close();
+
+        for (int threads : new int[] { 1, 4 }) {
+            OfflineSpeedTranscoder transcoder = new OfflineSpeedTranscoder(SAMPLE_RATE, channels);
+            transcoder.setSpeed(1.5f);
+            transcoder.setThreadCount(threads);
+            transcoder.setMinSegmentDuration(2.0f);
+            short[] expected = transcoder.process(input, 0, input.length);
+
+            File target = new File(mFolder.getRoot(), "target" + threads + ".pcm");
+            long frames = transcoder.transcode(source, target, false);
+            assertEquals(expected.length / channels, frames);
+            byte[] bytes = new byte[(int) target.length()];
+            RandomAccessFile file = new RandomAccessFile(target, "r");
+            try {
+                file.readFully(bytes);
+            } finally {
+                file.close();
+            }
+            short[] actual = new short[bytes.length / 2];
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(actual);
+            assertArrayEquals("threads " + threads, expected, actual);
+        }
+    }
+
+    @Test
+    public void measureParallelSpeedup() throws IOException {
+        // 两分钟的双声道音频
+        short[] input = SonicTest.synthesize(SAMPLE_RATE, 2, SAMPLE_RATE * 120, 5);
+        int threads = Runtime.getRuntime().availableProcessors();
+        transcode(input, 2, 2.0f, threads);
+        long start = System.nanoTime();
+        transcode(input, 2, 2.0f, 1);
+        long single = System.nanoTime() - start;
+        start = System.nanoTime();
+        transcode(input, 2, 2.0f, threads);
+        long parallel = System.nanoTime() - start;
+        System.out.println(String.format("120 s stereo at 2x: 1 thread %.0f ms, %d threads %.0f ms",
+                single / 1e6, threads, parallel / 1e6));
+    }
+}
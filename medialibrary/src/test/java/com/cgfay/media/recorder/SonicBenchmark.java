@@ -0,0 +1,67 @@
+package com.cgfay.media.recorder;
+
+import org.junit.Test;
+
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sonic倍速处理的实时倍率基准：处理的音频时长 / 实际耗时，分别测量ShortBuffer接口和short[]接口，
+ * 覆盖0.5x ~ 3x、单声道和双声道、44.1kHz和48kHz，结果输出到标准输出
+ */
+public class SonicBenchmark {
+
+    // 每次测量处理的音频时长，单位：秒
+    private static final int SECONDS = 10;
+    // 每次送入的帧数，20ms
+    private static final float CHUNK_SECONDS = 0.02f;
+
+    private static double measureBuffers(short[] input, int sampleRate, int channels, float speed) {
+        int chunk = (int) (sampleRate * CHUNK_SECONDS) * channels;
+        ShortBuffer output = ShortBuffer.allocate(chunk * 8);
+        long start = System.nanoTime();
+        Sonic sonic = new Sonic(sampleRate, channels, speed, 1.0f, sampleRate);
+        for (int offset = 0; offset < input.length; offset += chunk) {
+            sonic.queueInput(ShortBuffer.wrap(input, offset, Math.min(chunk, input.length - offset)));
+            output.clear();
+            sonic.getOutput(output);
+        }
+        return SECONDS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static double measureArrays(short[] input, int sampleRate, int channels, float speed) {
+        int chunk = (int) (sampleRate * CHUNK_SECONDS) * channels;
+        short[] output = new short[chunk * 8];
+        long start = System.nanoTime();
+        Sonic sonic = new Sonic(sampleRate, channels, speed, 1.0f, sampleRate);
+        for (int offset = 0; offset < input.length; offset += chunk) {
+            sonic.queueInput(input, offset, Math.min(chunk, input.length - offset));
+            sonic.getOutput(output, 0, output.length);
+        }
+        return SECONDS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    @Test
+    public void measureRealtimeFactor() {
+        float[] speeds = { 0.5f, 1.0f, 1.5f, 2.0f, 3.0f };
+        int[] sampleRates = { 44100, 48000 };
+        for (int sampleRate : sampleRates) {
+            for (int channels = 1; channels <= 2; channels++) {
+                short[] input = SonicTest.synthesize(sampleRate, channels, sampleRate * SECONDS, sampleRate);
+                for (float speed : speeds) {
+                    // 预热
+                    for (int i = 0; i < 2; i++) {
+                        measureBuffers(input, sampleRate, channels, speed);
+                        measureArrays(input, sampleRate, channels, speed);
+                    }
+                    double buffers = measureBuffers(input, sampleRate, channels, speed);
+                    double arrays = measureArrays(input, sampleRate, channels, speed);
+                    System.out.println(String.format("%d Hz, %d ch, %.1fx: ShortBuffer %.0fx realtime, short[] %.0fx realtime",
+                            sampleRate, channels, speed, buffers, arrays));
+                    assertTrue(arrays > 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.cgfay.media.recorder;
+
+import org.junit.Test;
+
+import java.nio.ShortBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sonic数组接口以及AMDF、overlap-add计算核心的测试
+ */
+public class SonicTest {
+
+    /**
+     * 生成带有基频和噪声的合成语音信号
+     */
+    static short[] synthesize(int sampleRate, int channels, int frames, long seed) {
+        Random random = new Random(seed);
+        short[] samples = new short[frames * channels];
+        for (int frame = 0; frame < frames; frame++) {
+            double pitch = 140 + 40 * Math.sin(2 * Math.PI * frame / sampleRate);
+            double value = Math.sin(2 * Math.PI * pitch * frame / sampleRate) * 6000
+                    + Math.sin(4 * Math.PI * pitch * frame / sampleRate) * 3000
+                    + random.nextGaussian() * 300;
+            for (int channel = 0; channel < channels; channel++) {
+                samples[frame * channels + channel] = (short) (value / (channel + 1));
+            }
+        }
+        return samples;
+    }
+
+    private static short[] processWithBuffers(short[] input, int sampleRate, int channels, float speed, int chunk) {
+        Sonic sonic = new Sonic(sampleRate, channels, speed, 1.0f, sampleRate);
+        ShortBuffer output = ShortBuffer.allocate(input.length * 4);
+        for (int offset = 0; offset < input.length; offset += chunk) {
+            sonic.queueInput(ShortBuffer.wrap(input, offset, Math.min(chunk, input.length - offset)));
+            sonic.getOutput(output);
+        }
+        sonic.queueEndOfStream();
+        sonic.getOutput(output);
+        short[] result = new short[output.position()];
+        output.flip();
+        output.get(result);
+        return result;
+    }
+
+    private static short[] processWithArrays(short[] input, int sampleRate, int channels, float speed, int chunk) {
+        Sonic sonic = new Sonic(sampleRate, channels, speed, 1.0f, sampleRate);
+        short[] output = new short[input.length * 4];
+        int written = 0;
+        for (int offset = 0; offset < input.length; offset += chunk) {
+            sonic.queueInput(input, offset, Math.min(chunk, input.length - offset));
+            written += sonic.getOutput(output, written, output.length - written);
+        }
+        sonic.queueEndOfStream();
+        written += sonic.getOutput(output, written, output.length - written);
+        short[] result = new short[written];
+        System.arraycopy(output, 0, result, 0, written);
+        return result;
+    }
+
+    @Test
+    public void arrayPathMatchesBufferPath() {
+        float[] speeds = { 0.5f, 0.8f, 1.0f, 1.5f, 2.0f, 3.0f };
+        for (int channels = 1; channels <= 2; channels++) {
+            short[] input = synthesize(44100, channels, 44100, channels);
+            int chunk = 882 * channels;
+            for (float speed : speeds) {
+                short[] expected = processWithBuffers(input, 44100, channels, speed, chunk);
+                short[] actual = processWithArrays(input, 44100, channels, speed, chunk);
+                assertArrayEquals("channels " + channels + " speed " + speed, expected, actual);
+                double expectedLength = input.length / speed;
+                assertEquals(expectedLength, actual.length, expectedLength * 0.02);
+            }
+        }
+    }
+
+    @Test
+    public void absoluteDifferenceSumMatchesNaiveLoop() {
+        short[] samples = synthesize(44100, 1, 4000, 3);
+        for (int period = 1; period < 600; period += 37) {
+            int expected = 0;
+            for (int i = 0; i < period; i++) {
+                expected += Math.abs(samples[100 + i] - samples[100 + period + i]);
+            }
+            assertEquals(expected, Sonic.absoluteDifferenceSum(samples, 100, 100 + period, period));
+        }
+    }
+
+    @Test
+    public void overlapAddStaysWithinOneLsbOfIntegerRamp() {
+        short[] down = synthesize(44100, 2, 2000, 4);
+        short[] up = synthesize(44100, 2, 2000, 5);
+        for (int channels = 1; channels <= 2; channels++) {
+            for (int numSamples : new int[] { 1, 7, 110, 441, 999 }) {
+                short[] out = new short[(numSamples + 3) * channels];
+                Sonic.overlapAdd(numSamples, channels, out, 3, down, 11, up, 500);
+                for (int t = 0; t < numSamples; t++) {
+                    for (int c = 0; c < channels; c++) {
+                        int d = down[(11 + t) * channels + c];
+                        int u = up[(500 + t) * channels + c];
+                        int expected = (d * (numSamples - t) + u * t) / numSamples;
+                        assertEquals(expected, out[(3 + t) * channels + c], 1);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -6,43 +6,36 @@ import androidx.annotation.DrawableRes;
 import androidx.annotation.NonNull;
 
 import android.net.Uri;
+import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.Priority;
 import com.bumptech.glide.request.RequestOptions;
 import com.cgfay.picker.loader.MediaLoader;
+import com.cgfay.picker.thumbnail.ThumbnailLoader;
 
 /**
- * 使用Glide加载缩略图
+ * 缩略图使用ThumbnailLoader加载，预览的大图和GIF使用Glide加载
  */
 class PickerMediaLoader implements MediaLoader {
 
+    // 没有指定尺寸时的缩略图边长
+    private static final int DEFAULT_THUMBNAIL_SIZE = 256;
+
+    private ThumbnailLoader mThumbnailLoader;
+
     @Override
     public void loadThumbnail(@NonNull Context context, @NonNull ImageView imageView,
                               @NonNull Uri uri, int placeholder, int error) {
-        Glide.with(context)
-                .asBitmap()
-                .load(uri)
-                .apply(new RequestOptions()
-                        .placeholder(placeholder)
-                        .error(error)
-                        .centerCrop())
-                .into(imageView);
+        getThumbnailLoader(context).load(imageView, uri, getThumbnailSize(imageView),
+                placeholder, error);
     }
 
     @Override
     public void loadThumbnail(Context context, @NonNull ImageView imageView, @NonNull Uri path,
                               int resize, @DrawableRes int placeholder, @DrawableRes int error) {
-        Glide.with(context)
-                .asBitmap()
-                .load(path)
-                .apply(new RequestOptions()
-                        .override(resize, resize)
-                        .placeholder(placeholder)
-                        .error(error)
-                        .centerCrop())
-                .into(imageView);
+        getThumbnailLoader(context).load(imageView, path, resize, placeholder, error);
     }
 
     @Override
@@ -61,15 +54,7 @@ class PickerMediaLoader implements MediaLoader {
     public void loadGifThumbnail(@NonNull Context context, @NonNull ImageView imageView,
                                  @NonNull Uri uri, int resize, @DrawableRes int placeholder,
                                  @DrawableRes int error) {
-        Glide.with(context)
-                .asBitmap()
-                .load(uri)
-                .apply(new RequestOptions()
-                        .override(resize, resize)
-                        .placeholder(placeholder)
-                        .error(error)
-                        .centerCrop())
-                .into(imageView);
+        getThumbnailLoader(context).load(imageView, uri, resize, placeholder, error);
     }
 
     @Override
@@ -84,4 +69,41 @@ class PickerMediaLoader implements MediaLoader {
                         .fitCenter())
                 .into(imageView);
     }
+
+    @Override
+    public void preloadThumbnail(@NonNull Context context, @NonNull Uri uri, int resize) {
+        getThumbnailLoader(context).prefetch(uri, resize);
+    }
+
+    @Override
+    public void cancelPreload() {
+        if (mThumbnailLoader != null) {
+            mThumbnailLoader.cancelPrefetch();
+        }
+    }
+
+    @Override
+    public void cancelThumbnail(@NonNull ImageView imageView) {
+        if (mThumbnailLoader != null) {
+            mThumbnailLoader.cancel(imageView);
+        }
+    }
+
+    private ThumbnailLoader getThumbnailLoader(@NonNull Context context) {
+        if (mThumbnailLoader == null) {
+            mThumbnailLoader = ThumbnailLoader.getInstance(context);
+        }
+        return mThumbnailLoader;
+    }
+
+    /**
+     * 没有指定尺寸时使用布局中的宽度
+     */
+    private static int getThumbnailSize(@NonNull ImageView imageView) {
+        ViewGroup.LayoutParams params = imageView.getLayoutParams();
+        if (params != null && params.width > 0) {
+            return params.width;
+        }
+        return DEFAULT_THUMBNAIL_SIZE;
+    }
 }
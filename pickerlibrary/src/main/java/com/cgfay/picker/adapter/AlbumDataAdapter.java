@@ -52,6 +52,12 @@ public class AlbumDataAdapter extends RecyclerView.Adapter<AlbumDataAdapter.Albu
         });
     }
 
+    @Override
+    public void onViewRecycled(@NonNull AlbumViewHolder holder) {
+        super.onViewRecycled(holder);
+        MediaPickerManager.getInstance().getMediaLoader().cancelThumbnail(holder.mAlbumThumbnail);
+    }
+
     @Override
     public int getItemCount() {
         return mAlbumDataList.size();
@@ -18,6 +18,8 @@ import com.cgfay.uitls.utils.StringUtils;
 import java.util.ArrayList;
 import java.util.List;
 
+import io.reactivex.disposables.Disposable;
+
 /**
  * 媒体列表适配器
  */
@@ -76,14 +78,11 @@ public class MediaDataAdapter extends RecyclerView.Adapter<MediaDataAdapter.Thum
             }
             holder.mLayoutCheckbox.setVisibility(mShowCheckbox ? View.VISIBLE : View.GONE);
             holder.mLayoutCheckbox.setOnClickListener(v -> {
-                if (mediaData.isImage()) {
-                    MediaMetadataUtils.buildImageMetadata(holder.itemView.getContext(), mediaData);
-                } else {
-                    MediaMetadataUtils.buildVideoMetadata(holder.itemView.getContext(), mediaData);
-                }
-                if (mMediaDataChangeListener != null) {
-                    mMediaDataChangeListener.onMediaSelectedChange(mediaData);
-                }
+                holder.buildMetadata(mediaData, () -> {
+                    if (mMediaDataChangeListener != null) {
+                        mMediaDataChangeListener.onMediaSelectedChange(mediaData);
+                    }
+                });
             });
             if (mMediaDataChangeListener != null) {
                 if (mMediaDataChangeListener.getSelectedIndex(mediaData) >= 0) {
@@ -96,18 +95,24 @@ public class MediaDataAdapter extends RecyclerView.Adapter<MediaDataAdapter.Thum
             }
 
             holder.itemView.setOnClickListener(v -> {
-                if (mediaData.isImage()) {
-                    MediaMetadataUtils.buildImageMetadata(holder.itemView.getContext(), mediaData);
-                } else {
-                    MediaMetadataUtils.buildVideoMetadata(holder.itemView.getContext(), mediaData);
-                }
-                if (mMediaDataChangeListener != null) {
-                    mMediaDataChangeListener.onMediaPreview(mediaData);
-                }
+                holder.buildMetadata(mediaData, () -> {
+                    if (mMediaDataChangeListener != null) {
+                        mMediaDataChangeListener.onMediaPreview(mediaData);
+                    }
+                });
             });
         }
     }
 
+    @Override
+    public void onViewRecycled(@NonNull ThumbnailViewHolder holder) {
+        super.onViewRecycled(holder);
+        // 条目被复用，不再回调之前的点击
+        holder.cancelMetadata();
+        // 条目滑出屏幕，取消还没完成的缩略图加载
+        MediaPickerManager.getInstance().getMediaLoader().cancelThumbnail(holder.mThumbnailView);
+    }
+
     @Override
     public int getItemCount() {
         return mMediaDataList.size();
@@ -134,6 +139,26 @@ public class MediaDataAdapter extends RecyclerView.Adapter<MediaDataAdapter.Thum
         return mMediaDataList;
     }
 
+    /**
+     * 移除媒体数据，比如视频无法解析时
+     * @param mediaData
+     */
+    public void removeMediaData(@NonNull MediaData mediaData) {
+        int index = -1;
+        synchronized (mLock) {
+            for (int i = 0; i < mMediaDataList.size(); i++) {
+                if (mMediaDataList.get(i) == mediaData) {
+                    index = i;
+                    mMediaDataList.remove(i);
+                    break;
+                }
+            }
+        }
+        if (index >= 0) {
+            notifyItemRemoved(index);
+        }
+    }
+
     /**
      * 将媒体数据追加到尾部
      * @param datas
@@ -169,6 +194,7 @@ public class MediaDataAdapter extends RecyclerView.Adapter<MediaDataAdapter.Thum
         View mLayoutCheckbox;
         TextView mCheckboxView;
         TextView mDurationView;
+        Disposable mMetadataDisposable;
 
         public ThumbnailViewHolder(View itemView) {
             super(itemView);
@@ -177,6 +203,25 @@ public class MediaDataAdapter extends RecyclerView.Adapter<MediaDataAdapter.Thum
             mCheckboxView = itemView.findViewById(R.id.tv_checkbox);
             mDurationView = itemView.findViewById(R.id.video_duration);
         }
+
+        /**
+         * 在后台解析宽高，完成后在主线程中回调，之前还没完成的点击不再回调
+         */
+        void buildMetadata(@NonNull MediaData mediaData, @NonNull Runnable callback) {
+            cancelMetadata();
+            mMetadataDisposable = MediaMetadataUtils.buildMetadataAsync(itemView.getContext(),
+                    mediaData, () -> {
+                        mMetadataDisposable = null;
+                        callback.run();
+                    });
+        }
+
+        void cancelMetadata() {
+            if (mMetadataDisposable != null) {
+                mMetadataDisposable.dispose();
+                mMetadataDisposable = null;
+            }
+        }
     }
 
     /**
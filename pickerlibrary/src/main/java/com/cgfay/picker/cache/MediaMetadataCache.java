@@ -0,0 +1,373 @@
+package com.cgfay.picker.cache;
+
+import android.content.Context;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 媒体信息磁盘缓存
+ * 视频时长、图片宽高等MediaStore中缺失的信息需要打开文件解析，这里把解析结果保存到磁盘，
+ * 下次打开选图器时，id、修改时间和文件大小都没有变化的媒体直接使用缓存，不再读取文件。
+ *
+ * 文件格式：头部为 魔数、格式版本、MediaStore版本，之后是追加写入的定长记录，每条记录带CRC校验。
+ * 同一个id的记录以最后一条为准，写到一半的记录在加载时截断。
+ * 内存中按LRU保留最多maxEntries条，日志中的失效记录超过有效记录的COMPACT_RATIO倍时重写整个文件。
+ * MediaStore版本变化(比如媒体库重建，id会被重新分配)时丢弃整个缓存。
+ * 所有方法线程安全，第一次访问时才读取文件，需要在工作线程中调用。
+ */
+public final class MediaMetadataCache {
+
+    private static final String TAG = "MediaMetadataCache";
+
+    private static final String FILE_NAME = "media_metadata";
+    private static final int DEFAULT_MAX_ENTRIES = 20000;
+
+    static final int MAGIC = 0x4d4d4443;
+    static final int FORMAT_VERSION = 1;
+    // id, dateModified, size, durationMs, width, height, orientation, crc
+    static final int RECORD_SIZE = 8 * 4 + 4 * 4;
+    private static final int PAYLOAD_SIZE = RECORD_SIZE - 4;
+    // 日志记录数超过有效记录数的倍数时压缩
+    static final int COMPACT_RATIO = 2;
+    // 记录数较少时不压缩
+    static final int MIN_COMPACT_RECORDS = 256;
+
+    private static volatile MediaMetadataCache sInstance;
+
+    /**
+     * 获取应用缓存目录下的共享实例
+     */
+    public static MediaMetadataCache getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            synchronized (MediaMetadataCache.class) {
+                if (sInstance == null) {
+                    Context appContext = context.getApplicationContext();
+                    String storeVersion = "";
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                        storeVersion = MediaStore.getVersion(appContext);
+                    }
+                    sInstance = new MediaMetadataCache(new File(appContext.getCacheDir(), FILE_NAME),
+                            storeVersion, DEFAULT_MAX_ENTRIES);
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * 缓存的媒体信息
+     */
+    public static final class Entry {
+        final long dateModified;
+        final long size;
+        public final long durationMs;
+        public final int width;
+        public final int height;
+        public final int orientation;
+
+        Entry(long dateModified, long size, long durationMs, int width, int height, int orientation) {
+            this.dateModified = dateModified;
+            this.size = size;
+            this.durationMs = durationMs;
+            this.width = width;
+            this.height = height;
+            this.orientation = orientation;
+        }
+
+        boolean matches(long dateModified, long size) {
+            return this.dateModified == dateModified && this.size == size;
+        }
+
+        boolean sameAs(Entry other) {
+            return matches(other.dateModified, other.size)
+                    && durationMs == other.durationMs
+                    && width == other.width
+                    && height == other.height
+                    && orientation == other.orientation;
+        }
+    }
+
+    private final File mFile;
+    private final String mStoreVersion;
+    private final int mMaxEntries;
+    private final LinkedHashMap<Long, Entry> mEntries;
+    private final ByteBuffer mRecord = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 mCrc = new CRC32();
+    private DataOutputStream mOutput;
+    // 日志文件中的记录数，包括已经失效的
+    private int mLogRecords;
+    private boolean mLoaded;
+
+    /**
+     * @param file          缓存文件
+     * @param storeVersion  MediaStore版本，与文件中的不一致时丢弃缓存
+     * @param maxEntries    最多保留的记录数
+     */
+    public MediaMetadataCache(@NonNull File file, @NonNull String storeVersion, int maxEntries) {
+        mFile = file;
+        mStoreVersion = storeVersion;
+        mMaxEntries = maxEntries;
+        mEntries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > mMaxEntries;
+            }
+        };
+    }
+
+    /**
+     * 查找缓存，修改时间或者文件大小不一致时说明文件已经变化，删除这一条
+     * @param id            媒体id
+     * @param dateModified  MediaStore中的修改时间
+     * @param size          文件大小
+     * @return 没有缓存时返回null
+     */
+    @Nullable
+    public synchronized Entry get(long id, long dateModified, long size) {
+        ensureLoaded();
+        Entry entry = mEntries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.matches(dateModified, size)) {
+            mEntries.remove(id);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * 写入缓存，追加到日志的缓冲中，调用flush之后才会写到磁盘
+     */
+    public synchronized void put(long id, long dateModified, long size,
+                                 long durationMs, int width, int height, int orientation) {
+        ensureLoaded();
+        Entry entry = new Entry(dateModified, size, durationMs, width, height, orientation);
+        Entry old = mEntries.put(id, entry);
+        if (old != null && old.sameAs(entry)) {
+            return;
+        }
+        try {
+            if (mOutput == null) {
+                openOutput();
+            }
+            writeRecord(mOutput, id, entry);
+            mLogRecords++;
+            if (mLogRecords > Math.max(mEntries.size() * COMPACT_RATIO, MIN_COMPACT_RECORDS)) {
+                compact();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "write cache failed", e);
+            closeOutput();
+        }
+    }
+
+    /**
+     * 把缓冲中的记录写到磁盘
+     */
+    public synchronized void flush() {
+        if (mOutput == null) {
+            return;
+        }
+        try {
+            mOutput.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "flush cache failed", e);
+            closeOutput();
+        }
+    }
+
+    /**
+     * 写入缓冲并关闭文件，之后仍可以继续使用
+     */
+    public synchronized void close() {
+        flush();
+        closeOutput();
+    }
+
+    /**
+     * 清空缓存并删除文件
+     */
+    public synchronized void clear() {
+        closeOutput();
+        mEntries.clear();
+        mLogRecords = 0;
+        mLoaded = true;
+        if (mFile.exists() && !mFile.delete()) {
+            Log.w(TAG, "delete cache failed: " + mFile);
+        }
+    }
+
+    /**
+     * 有效记录数
+     */
+    public synchronized int size() {
+        ensureLoaded();
+        return mEntries.size();
+    }
+
+    /**
+     * 日志文件中的记录数
+     */
+    synchronized int getLogRecordCount() {
+        ensureLoaded();
+        return mLogRecords;
+    }
+
+    /**
+     * 只保留有效记录重写日志，按LRU顺序从旧到新写入，重新加载后保持相同的淘汰顺序
+     */
+    synchronized void compact() throws IOException {
+        ensureLoaded();
+        closeOutput();
+        File temp = new File(mFile.getPath() + ".tmp");
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            writeHeader(output);
+            for (Map.Entry<Long, Entry> entry : mEntries.entrySet()) {
+                writeRecord(output, entry.getKey(), entry.getValue());
+            }
+        } finally {
+            output.close();
+        }
+        if (!temp.renameTo(mFile)) {
+            temp.delete();
+            throw new IOException("rename " + temp + " failed");
+        }
+        mLogRecords = mEntries.size();
+    }
+
+    private void ensureLoaded() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if (!mFile.exists()) {
+            return;
+        }
+        long validLength = 0;
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(mFile)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION
+                    || !mStoreVersion.equals(input.readUTF())) {
+                clear();
+                return;
+            }
+            validLength = headerLength();
+            byte[] record = mRecord.array();
+            while (true) {
+                try {
+                    input.readFully(record);
+                } catch (EOFException e) {
+                    break;
+                }
+                mRecord.clear();
+                long id = mRecord.getLong();
+                Entry entry = new Entry(mRecord.getLong(), mRecord.getLong(), mRecord.getLong(),
+                        mRecord.getInt(), mRecord.getInt(), mRecord.getInt());
+                if (mRecord.getInt() != crc(record)) {
+                    break;
+                }
+                // 重复的id先删除再插入，保持写入顺序
+                mEntries.remove(id);
+                mEntries.put(id, entry);
+                mLogRecords++;
+                validLength += RECORD_SIZE;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "read cache failed", e);
+            clear();
+            return;
+        }
+        // 截断写到一半或者校验失败的记录，后续追加的记录才能被读到
+        if (validLength < mFile.length()) {
+            try (RandomAccessFile file = new RandomAccessFile(mFile, "rw")) {
+                file.setLength(validLength);
+            } catch (IOException e) {
+                Log.w(TAG, "truncate cache failed", e);
+                clear();
+            }
+        }
+    }
+
+    private void openOutput() throws IOException {
+        boolean exists = mFile.exists() && mFile.length() > 0;
+        mOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(mFile, exists)));
+        if (!exists) {
+            writeHeader(mOutput);
+            mLogRecords = 0;
+        }
+    }
+
+    private void closeOutput() {
+        if (mOutput != null) {
+            try {
+                mOutput.close();
+            } catch (IOException e) {
+                Log.w(TAG, "close cache failed", e);
+            }
+            mOutput = null;
+        }
+    }
+
+    private void writeHeader(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeUTF(mStoreVersion);
+    }
+
+    private int headerLength() {
+        // writeUTF写入2字节长度加上修改过的UTF-8编码
+        int length = 0;
+        for (int i = 0; i < mStoreVersion.length(); i++) {
+            char c = mStoreVersion.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length += 1;
+            } else if (c > 0x07FF) {
+                length += 3;
+            } else {
+                length += 2;
+            }
+        }
+        return 4 + 4 + 2 + length;
+    }
+
+    private void writeRecord(DataOutputStream output, long id, Entry entry) throws IOException {
+        mRecord.clear();
+        mRecord.putLong(id)
+                .putLong(entry.dateModified)
+                .putLong(entry.size)
+                .putLong(entry.durationMs)
+                .putInt(entry.width)
+                .putInt(entry.height)
+                .putInt(entry.orientation);
+        mRecord.putInt(crc(mRecord.array()));
+        output.write(mRecord.array(), 0, RECORD_SIZE);
+    }
+
+    private int crc(byte[] record) {
+        mCrc.reset();
+        mCrc.update(record, 0, PAYLOAD_SIZE);
+        return (int) mCrc.getValue();
+    }
+}
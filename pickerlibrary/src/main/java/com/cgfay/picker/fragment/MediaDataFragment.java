@@ -21,6 +21,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.cgfay.picker.MediaPickerManager;
 import com.cgfay.picker.MediaPickerParam;
 import com.cgfay.picker.presenter.IMediaDataPresenter;
 import com.cgfay.picker.presenter.MediaDataPresenter;
@@ -31,6 +32,7 @@ import com.cgfay.picker.adapter.MediaDataAdapter;
 import com.cgfay.picker.model.AlbumData;
 import com.cgfay.picker.model.MediaData;
 import com.cgfay.picker.scanner.MediaDataScanner;
+import com.cgfay.picker.thumbnail.ThumbnailPrefetcher;
 import com.cgfay.uitls.utils.PermissionUtils;
 
 import java.lang.annotation.Retention;
@@ -50,6 +52,9 @@ public abstract class MediaDataFragment extends Fragment implements IMediaDataRe
 
     protected static final String TAG = "MediaDataFragment";
 
+    // 预取的缩略图行数
+    private static final int PREFETCH_ROWS = 3;
+
     public static final int TypeImage = 1;
     public static final int TypeVideo = 2;
     @RestrictTo(LIBRARY_GROUP)
@@ -70,6 +75,9 @@ public abstract class MediaDataFragment extends Fragment implements IMediaDataRe
 
     protected MediaDataScanner mDataScanner;
 
+    // 缩略图预取
+    private ThumbnailPrefetcher mThumbnailPrefetcher;
+
     protected Disposable mUpdateDisposable;
 
     protected IMediaDataPresenter mPresenter;
@@ -157,6 +165,10 @@ public abstract class MediaDataFragment extends Fragment implements IMediaDataRe
             mUpdateDisposable.dispose();
             mUpdateDisposable = null;
         }
+        if (mThumbnailPrefetcher != null) {
+            mThumbnailPrefetcher.reset();
+            mThumbnailPrefetcher = null;
+        }
         super.onDestroy();
     }
 
@@ -177,6 +189,17 @@ public abstract class MediaDataFragment extends Fragment implements IMediaDataRe
         mMediaDataAdapter = new MediaDataAdapter();
         mMediaDataAdapter.addOnMediaDataChangeListener(this);
         mMediaDataListView.setAdapter(mMediaDataAdapter);
+        // 预取滑动方向上即将可见的缩略图
+        mThumbnailPrefetcher = new ThumbnailPrefetcher(rootView.getContext(),
+                MediaPickerManager.getInstance().getMediaLoader(),
+                mMediaPickerParam.getSpanCount() * PREFETCH_ROWS, position -> {
+                    List<MediaData> mediaDataList = mMediaDataAdapter.getMediaDataList();
+                    if (position < 0 || position >= mediaDataList.size()) {
+                        return null;
+                    }
+                    return mediaDataList.get(position).getContentUri();
+                });
+        mMediaDataListView.addOnScrollListener(mThumbnailPrefetcher);
         setItemImageSize();
 
         // 滚动监听到了底部之后，添加从媒体数据提供者中取出缓存的数据
@@ -245,6 +268,7 @@ public abstract class MediaDataFragment extends Fragment implements IMediaDataRe
         int imageSize = getResources().getDisplayMetrics().widthPixels - divSize;
         int resize = imageSize / mMediaPickerParam.getSpanCount();
         mMediaDataAdapter.setThumbnailResize(resize);
+        mThumbnailPrefetcher.setThumbnailResize(resize);
     }
 
     public void setMediaPickerParam(MediaPickerParam pickerParam) {
@@ -374,6 +398,9 @@ public abstract class MediaDataFragment extends Fragment implements IMediaDataRe
     public void onMediaDataObserve(@NonNull List<MediaData> mediaDataList) {
         if (mMediaDataAdapter != null) {
             mMediaDataAdapter.setMediaData(mediaDataList);
+            if (mThumbnailPrefetcher != null) {
+                mThumbnailPrefetcher.reset();
+            }
             mMediaDataListView.post(() -> {
                 mMediaDataAdapter.notifyDataSetChanged();
             });
@@ -381,6 +408,39 @@ public abstract class MediaDataFragment extends Fragment implements IMediaDataRe
         checkBlankView();
     }
 
+    /**
+     * 媒体信息在后台解析完成，只刷新可见的条目，其它条目绑定时会读取新的数据
+     * @param mediaData
+     */
+    @Override
+    public void onMediaDataUpdate(@NonNull MediaData mediaData) {
+        if (mMediaDataAdapter != null && mMediaDataListView != null
+                && mMediaDataListView.getLayoutManager() instanceof GridLayoutManager) {
+            GridLayoutManager manager = (GridLayoutManager) mMediaDataListView.getLayoutManager();
+            List<MediaData> mediaDataList = mMediaDataAdapter.getMediaDataList();
+            int start = Math.max(manager.findFirstVisibleItemPosition(), 0);
+            int end = Math.min(manager.findLastVisibleItemPosition(), mediaDataList.size() - 1);
+            for (int i = start; i <= end; i++) {
+                if (mediaDataList.get(i) == mediaData) {
+                    mMediaDataAdapter.notifyItemChanged(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 视频无法解析，跟之前解析失败时一样不显示
+     * @param mediaData
+     */
+    @Override
+    public void onMediaDataRemove(@NonNull MediaData mediaData) {
+        if (mMediaDataAdapter != null) {
+            mMediaDataAdapter.removeMediaData(mediaData);
+            checkBlankView();
+        }
+    }
+
     @Override
     public int getSelectedIndex(@NonNull MediaData mediaData) {
         return mPresenter.getSelectedIndex(mediaData);
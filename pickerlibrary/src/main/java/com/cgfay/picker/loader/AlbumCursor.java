@@ -0,0 +1,149 @@
+package com.cgfay.picker.loader;
+
+import android.content.ContentUris;
+import android.database.AbstractCursor;
+import android.net.Uri;
+import android.provider.MediaStore;
+
+import androidx.annotation.NonNull;
+
+import com.cgfay.picker.model.AlbumData;
+import com.cgfay.picker.model.MimeType;
+
+/**
+ * 相册列表的Cursor，直接读取AlbumIndex的快照
+ * 第一行为全部相册，之后为快照中的相册，列与原来的MatrixCursor相同，字符串在读取时才生成。
+ */
+final class AlbumCursor extends AbstractCursor {
+
+    private static final int COLUMN_ID = 0;
+    private static final int COLUMN_BUCKET_ID = 1;
+    private static final int COLUMN_BUCKET_DISPLAY_NAME = 2;
+    private static final int COLUMN_MIME_TYPE = 3;
+    private static final int COLUMN_URI = 4;
+    private static final int COLUMN_COUNT = 5;
+
+    private final String[] mColumns;
+    private final AlbumIndex.Snapshot mSnapshot;
+
+    AlbumCursor(@NonNull String[] columns, @NonNull AlbumIndex.Snapshot snapshot) {
+        mColumns = columns;
+        mSnapshot = snapshot;
+    }
+
+    @Override
+    public int getCount() {
+        return mSnapshot.count + 1;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return mColumns;
+    }
+
+    @Override
+    public String getString(int column) {
+        int position = getPosition();
+        if (position == 0) {
+            switch (column) {
+                case COLUMN_ID:
+                case COLUMN_BUCKET_ID:
+                    return AlbumData.ALBUM_ID_ALL;
+                case COLUMN_BUCKET_DISPLAY_NAME:
+                    return AlbumData.ALBUM_NAME_ALL;
+                case COLUMN_URI:
+                    return mSnapshot.hasCover()
+                            ? getUri(mSnapshot.allCoverId, mSnapshot.allCoverMime).toString() : null;
+                case COLUMN_COUNT:
+                    return String.valueOf(mSnapshot.totalCount);
+                default:
+                    return null;
+            }
+        }
+        int row = position - 1;
+        switch (column) {
+            case COLUMN_ID:
+                return Long.toString(mSnapshot.coverIds[row]);
+            case COLUMN_BUCKET_ID:
+                return Long.toString(mSnapshot.bucketIds[row]);
+            case COLUMN_BUCKET_DISPLAY_NAME:
+                return mSnapshot.names[row];
+            case COLUMN_MIME_TYPE:
+                return mSnapshot.coverMimes[row];
+            case COLUMN_URI:
+                return getUri(mSnapshot.coverIds[row], mSnapshot.coverMimes[row]).toString();
+            case COLUMN_COUNT:
+                return Long.toString(mSnapshot.counts[row]);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public long getLong(int column) {
+        int position = getPosition();
+        if (position == 0) {
+            switch (column) {
+                case COLUMN_ID:
+                case COLUMN_BUCKET_ID:
+                    return Long.parseLong(AlbumData.ALBUM_ID_ALL);
+                case COLUMN_COUNT:
+                    return mSnapshot.totalCount;
+                default:
+                    return 0;
+            }
+        }
+        int row = position - 1;
+        switch (column) {
+            case COLUMN_ID:
+                return mSnapshot.coverIds[row];
+            case COLUMN_BUCKET_ID:
+                return mSnapshot.bucketIds[row];
+            case COLUMN_COUNT:
+                return mSnapshot.counts[row];
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return getLong(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        return getLong(column);
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return getString(column) == null;
+    }
+
+    /**
+     * 根据媒体类型生成封面的Uri
+     */
+    static Uri getUri(long id, String mimeType) {
+        Uri contentUri;
+        if (MimeType.isImage(mimeType)) {
+            contentUri = MediaStore.Images.Media.EXTERNAL_CONTENT_URI;
+        } else if (MimeType.isVideo(mimeType)) {
+            contentUri = MediaStore.Video.Media.EXTERNAL_CONTENT_URI;
+        } else {
+            // unknown
+            contentUri = MediaStore.Files.getContentUri("external");
+        }
+        return ContentUris.withAppendedId(contentUri, id);
+    }
+}
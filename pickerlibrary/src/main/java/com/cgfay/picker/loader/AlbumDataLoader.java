@@ -1,23 +1,14 @@
 package com.cgfay.picker.loader;
 
-import android.annotation.SuppressLint;
-import android.content.ContentUris;
 import android.content.Context;
 import android.database.Cursor;
-import android.database.MatrixCursor;
-import android.database.MergeCursor;
 import android.net.Uri;
 import android.provider.MediaStore;
 import androidx.annotation.NonNull;
+import androidx.core.os.OperationCanceledException;
 import androidx.loader.content.CursorLoader;
 
-import com.cgfay.picker.model.AlbumData;
-import com.cgfay.picker.model.MimeType;
-
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * 相册加载器
@@ -40,11 +31,22 @@ public class AlbumDataLoader extends CursorLoader {
             COLUMN_COUNT,
     };
 
-    private static final String[] PROJECTION_Q = {
+    private static final String COLUMN_DATE_TAKEN = "datetaken";
+
+    // 建立索引需要的列
+    private static final String[] PROJECTION_INDEX = {
             MediaStore.Files.FileColumns._ID,
             COLUMN_BUCKET_ID,
             COLUMN_BUCKET_DISPLAY_NAME,
-            MediaStore.MediaColumns.MIME_TYPE
+            MediaStore.MediaColumns.MIME_TYPE,
+            COLUMN_DATE_TAKEN,
+            MediaStore.MediaColumns.DATE_MODIFIED,
+    };
+
+    // 检查删除和移动只需要id和相册id
+    private static final String[] PROJECTION_SWEEP = {
+            MediaStore.Files.FileColumns._ID,
+            COLUMN_BUCKET_ID,
     };
 
     private static final String SELECTION_ALL_Q = "(" + MediaStore.Files.FileColumns.MEDIA_TYPE + "=?"
@@ -64,16 +66,28 @@ public class AlbumDataLoader extends CursorLoader {
         return new String[] { String.valueOf(mediaType) };
     }
 
-    private static final String NORMAL_ORDER_BY = "datetaken DESC";
-    // 优先排序Camera目录
-    private static final String BUCKET_ORDER_BY = "CASE bucket_display_name WHEN 'Camera' THEN 1 ELSE 100 END ASC, datetaken DESC";
+    private static final String SELECTION_DATE_MODIFIED =
+            " AND " + MediaStore.MediaColumns.DATE_MODIFIED + ">=?";
+    // 按id补充读取时每次查询的个数，SQLite的参数个数有上限
+    private static final int ID_CHUNK_SIZE = 500;
+
+    // 是否优先排序Camera目录
+    private final boolean mBucketSort;
+    private final ForceLoadContentObserver mObserver = new ForceLoadContentObserver();
+    private final Object mIndexLock = new Object();
+    // 相册索引，第一次加载时建立，之后媒体库变化时只更新变化的部分
+    private AlbumIndex mIndex;
+    // 已经同步到的最大修改时间(秒)
+    private long mSyncSeconds;
 
     private AlbumDataLoader(@NonNull Context context, String selection, String[] selectionArgs) {
-        super(context, QUERY_URI, PROJECTION_Q, selection, selectionArgs, BUCKET_ORDER_BY);
+        this(context, selection, selectionArgs, true);
     }
 
-    private AlbumDataLoader(@NonNull Context context, String selection, String[] selectionArgs, String order) {
-        super(context, QUERY_URI, PROJECTION_Q, selection, selectionArgs, order);
+    private AlbumDataLoader(@NonNull Context context, String selection, String[] selectionArgs,
+                            boolean bucketSort) {
+        super(context, QUERY_URI, PROJECTION_INDEX, selection, selectionArgs, null);
+        mBucketSort = bucketSort;
     }
 
     /**
@@ -83,7 +97,7 @@ public class AlbumDataLoader extends CursorLoader {
      */
     public static CursorLoader getImageLoaderWithoutBucketSort(@NonNull Context context) {
         return new AlbumDataLoader(context, SELECTION_FOR_SINGLE_MEDIA_TYPE_Q,
-                getSelectionArgsForSingleMediaType(MediaStore.Files.FileColumns.MEDIA_TYPE_IMAGE), NORMAL_ORDER_BY);
+                getSelectionArgsForSingleMediaType(MediaStore.Files.FileColumns.MEDIA_TYPE_IMAGE), false);
     }
 
     public static CursorLoader getImageLoader(@NonNull Context context) {
@@ -100,86 +114,136 @@ public class AlbumDataLoader extends CursorLoader {
         return new AlbumDataLoader(context, SELECTION_ALL_Q, SELECTION_ALL_ARGS);
     }
 
+    /**
+     * 第一次加载时读取所有媒体建立索引，之后媒体库变化时只读取变化的部分：
+     * 1. 修改时间不早于上次同步时间的媒体重新读取
+     * 2. 读取所有媒体的id和相册id，删除不存在的媒体，找出移动过相册或者修改时间没有变化的新增媒体
+     * 3. 按id补充读取第2步找出的媒体
+     * 相册列表由索引的快照生成，不再逐行生成String[]。
+     */
     @Override
     public Cursor loadInBackground() {
-        Cursor albums = super.loadInBackground();
-        MatrixCursor allAlbum = new MatrixCursor(COLUMNS);
-        int totalCount = 0;
-        Uri allAlbumCoverUri = null;
-
-        // Pseudo GROUP BY
-        @SuppressLint("UseSparseArrays")
-        Map<Long, Long> countMap = new HashMap<>();
-        if (albums != null) {
-            while (albums.moveToNext()) {
-                long bucketId = albums.getLong(albums.getColumnIndex(COLUMN_BUCKET_ID));
-                Long count = countMap.get(bucketId);
-                if (count == null) {
-                    count = 1L;
-                } else {
-                    count++;
+        synchronized (mIndexLock) {
+            if (mIndex == null) {
+                buildIndex();
+            } else {
+                try {
+                    updateIndex();
+                } catch (RuntimeException e) {
+                    // 中途取消时索引只更新了一部分，下次重新建立
+                    mIndex = null;
+                    throw e;
                 }
-                countMap.put(bucketId, count);
             }
+            AlbumCursor cursor = new AlbumCursor(COLUMNS, mIndex.snapshot());
+            cursor.setNotificationUri(getContext().getContentResolver(), getUri());
+            cursor.registerContentObserver(mObserver);
+            return cursor;
         }
+    }
 
-        // 支持的Cursor
-        MatrixCursor supportAlbums = new MatrixCursor(COLUMNS);
-        if (albums != null) {
-            if (albums.moveToFirst()) {
-                allAlbumCoverUri = getUri(albums);
-                Set<Long> done = new HashSet<>();
-                do {
-                    long bucketId = albums.getLong(albums.getColumnIndex(COLUMN_BUCKET_ID));
-                    if (done.contains(bucketId)) {
-                        continue;
-                    }
-                    long fileId = albums.getLong(
-                            albums.getColumnIndex(MediaStore.Files.FileColumns._ID));
-                    String bucketDisplayName = albums.getString(
-                            albums.getColumnIndex(COLUMN_BUCKET_DISPLAY_NAME));
-                    String mimeType = albums.getString(
-                            albums.getColumnIndex(MediaStore.MediaColumns.MIME_TYPE));
-                    Uri uri = getUri(albums);
-                    Long lCount = countMap.get(bucketId);
-                    long count = lCount != null ? lCount : 0;
-                    if (count > 1) {
-                        supportAlbums.addRow(new String[]{
-                                Long.toString(fileId),
-                                Long.toString(bucketId),
-                                bucketDisplayName,
-                                mimeType,
-                                uri.toString(),
-                                String.valueOf(count)});
-                        done.add(bucketId);
-                        totalCount += count;
-                    }
-                } while (albums.moveToNext());
+    private void buildIndex() {
+        mSyncSeconds = 0;
+        Cursor cursor = query(PROJECTION_INDEX, getSelection(), getSelectionArgs());
+        AlbumIndex index = new AlbumIndex(mBucketSort, cursor != null ? cursor.getCount() : 0);
+        if (cursor != null) {
+            try {
+                readRows(cursor, index);
+            } finally {
+                cursor.close();
+            }
+        }
+        mIndex = index;
+    }
+
+    private void updateIndex() {
+        String[] selectionArgs = getSelectionArgs();
+        Cursor changed = query(PROJECTION_INDEX, getSelection() + SELECTION_DATE_MODIFIED,
+                appendArgs(selectionArgs, String.valueOf(mSyncSeconds)));
+        if (changed != null) {
+            try {
+                readRows(changed, mIndex);
+            } finally {
+                changed.close();
             }
         }
 
-        // 所有照片
-        allAlbum.addRow(new String[]{
-                AlbumData.ALBUM_ID_ALL, AlbumData.ALBUM_ID_ALL, AlbumData.ALBUM_NAME_ALL, null,
-                allAlbumCoverUri == null ? null : allAlbumCoverUri.toString(),
-                String.valueOf(totalCount)});
+        long[] missing = new long[16];
+        int missingCount = 0;
+        Cursor ids = query(PROJECTION_SWEEP, getSelection(), selectionArgs);
+        if (ids == null) {
+            return;
+        }
+        try {
+            int idColumn = ids.getColumnIndexOrThrow(MediaStore.Files.FileColumns._ID);
+            int bucketColumn = ids.getColumnIndexOrThrow(COLUMN_BUCKET_ID);
+            mIndex.beginSweep();
+            while (ids.moveToNext()) {
+                long id = ids.getLong(idColumn);
+                if (!mIndex.mark(id, ids.getLong(bucketColumn))) {
+                    if (missingCount == missing.length) {
+                        missing = Arrays.copyOf(missing, missingCount * 2);
+                    }
+                    missing[missingCount++] = id;
+                }
+            }
+        } finally {
+            ids.close();
+        }
+        mIndex.sweep();
+
+        for (int start = 0; start < missingCount; start += ID_CHUNK_SIZE) {
+            int end = Math.min(start + ID_CHUNK_SIZE, missingCount);
+            StringBuilder selection = new StringBuilder(getSelection())
+                    .append(" AND ").append(MediaStore.Files.FileColumns._ID).append(" IN (");
+            String[] args = Arrays.copyOf(selectionArgs, selectionArgs.length + end - start);
+            for (int i = start; i < end; i++) {
+                selection.append(i == start ? "?" : ",?");
+                args[selectionArgs.length + i - start] = Long.toString(missing[i]);
+            }
+            selection.append(')');
+            Cursor cursor = query(PROJECTION_INDEX, selection.toString(), args);
+            if (cursor != null) {
+                try {
+                    readRows(cursor, mIndex);
+                } finally {
+                    cursor.close();
+                }
+            }
+        }
+    }
 
-        return new MergeCursor(new Cursor[]{allAlbum, supportAlbums});
+    /**
+     * 读取Cursor中的所有行写入索引，并记录最大的修改时间
+     */
+    private void readRows(@NonNull Cursor cursor, @NonNull AlbumIndex index) {
+        int idColumn = cursor.getColumnIndexOrThrow(MediaStore.Files.FileColumns._ID);
+        int bucketColumn = cursor.getColumnIndexOrThrow(COLUMN_BUCKET_ID);
+        int nameColumn = cursor.getColumnIndexOrThrow(COLUMN_BUCKET_DISPLAY_NAME);
+        int mimeColumn = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.MIME_TYPE);
+        int dateTakenColumn = cursor.getColumnIndexOrThrow(COLUMN_DATE_TAKEN);
+        int dateModifiedColumn = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_MODIFIED);
+        while (cursor.moveToNext()) {
+            index.put(cursor.getLong(idColumn),
+                    cursor.getLong(bucketColumn),
+                    cursor.getString(nameColumn),
+                    cursor.getString(mimeColumn),
+                    cursor.getLong(dateTakenColumn));
+            mSyncSeconds = Math.max(mSyncSeconds, cursor.getLong(dateModifiedColumn));
+        }
     }
 
-    private static Uri getUri(Cursor cursor) {
-        long id = cursor.getLong(cursor.getColumnIndex(MediaStore.Files.FileColumns._ID));
-        String mimeType = cursor.getString(
-                cursor.getColumnIndex(MediaStore.MediaColumns.MIME_TYPE));
-        Uri contentUri;
-        if (MimeType.isImage(mimeType)) {
-            contentUri = MediaStore.Images.Media.EXTERNAL_CONTENT_URI;
-        } else if (MimeType.isVideo(mimeType)) {
-            contentUri = MediaStore.Video.Media.EXTERNAL_CONTENT_URI;
-        } else {
-            // unknown
-            contentUri = MediaStore.Files.getContentUri("external");
+    private Cursor query(String[] projection, String selection, String[] selectionArgs) {
+        if (isLoadInBackgroundCanceled()) {
+            throw new OperationCanceledException();
         }
-        return ContentUris.withAppendedId(contentUri, id);
+        return getContext().getContentResolver().query(getUri(), projection, selection,
+                selectionArgs, null);
+    }
+
+    private static String[] appendArgs(String[] args, String arg) {
+        String[] result = Arrays.copyOf(args, args.length + 1);
+        result[args.length] = arg;
+        return result;
     }
 }
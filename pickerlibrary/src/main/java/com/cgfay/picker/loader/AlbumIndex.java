@@ -0,0 +1,371 @@
+package com.cgfay.picker.loader;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 相册索引，按相册(bucket)汇总媒体数量和封面
+ * 原来每次加载都遍历整个Cursor，用HashMap<Long, Long>统计数量再逐行生成String[]。
+ * 这里把媒体和相册都保存在按列排列的基本类型数组中，用LongIntMap从id找到下标，
+ * 媒体库变化时只增删变化的媒体，更新对应相册的数量和封面，不需要重新统计。
+ *
+ * 封面为相册中拍摄时间最新的媒体。删除封面时只标记相册，生成快照时一次遍历重新查找这些相册的封面。
+ * 与原来的查询结果保持一致：只列出至少有两个媒体的相册，排序为拍摄时间倒序，cameraFirst时Camera目录排在最前，
+ * 全部相册的封面为排序后第一个相册的封面。
+ * 非线程安全，由调用方加锁。
+ */
+public final class AlbumIndex {
+
+    // 相册名为Camera时排在最前
+    private static final String CAMERA_BUCKET = "Camera";
+    // 只列出媒体数大于该值的相册
+    private static final int MIN_ALBUM_COUNT = 1;
+    private static final long NO_COVER = Long.MIN_VALUE;
+
+    private final boolean mCameraFirst;
+
+    // 媒体，删除时用最后一个填补空位
+    private final LongIntMap mMediaSlots;
+    private long[] mMediaIds;
+    private long[] mMediaBuckets;
+    private long[] mMediaOrders;
+    private short[] mMediaMimes;
+    private int[] mMediaMarks;
+    private int mMediaCount;
+
+    // 相册
+    private final LongIntMap mBucketSlots = new LongIntMap(64);
+    private long[] mBucketIds = new long[16];
+    private String[] mBucketNames = new String[16];
+    private int[] mBucketCounts = new int[16];
+    private long[] mCoverIds = new long[16];
+    private long[] mCoverOrders = new long[16];
+    private short[] mCoverMimes = new short[16];
+    private boolean[] mBucketDirty = new boolean[16];
+    private int mBucketCount;
+    private int mDirtyCount;
+
+    // 媒体类型只有几种，保存下标，避免每一行保存一个字符串
+    private final List<String> mMimeTable = new ArrayList<>();
+    private final Map<String, Short> mMimeIndex = new HashMap<>();
+
+    // 标记清除的轮次
+    private int mSweep;
+
+    public AlbumIndex(boolean cameraFirst, int expectedSize) {
+        mCameraFirst = cameraFirst;
+        int capacity = Math.max(expectedSize, 16);
+        mMediaSlots = new LongIntMap(capacity);
+        mMediaIds = new long[capacity];
+        mMediaBuckets = new long[capacity];
+        mMediaOrders = new long[capacity];
+        mMediaMimes = new short[capacity];
+        mMediaMarks = new int[capacity];
+    }
+
+    /**
+     * 媒体数量
+     */
+    public int size() {
+        return mMediaCount;
+    }
+
+    /**
+     * 相册数量，包括只有一个媒体的相册
+     */
+    public int bucketCount() {
+        return mBucketCount;
+    }
+
+    /**
+     * 添加或者更新一个媒体
+     * @param id            媒体id
+     * @param bucketId      相册id
+     * @param bucketName    相册名
+     * @param mimeType      媒体类型
+     * @param order         排序依据，拍摄时间
+     */
+    public void put(long id, long bucketId, @Nullable String bucketName,
+                    @Nullable String mimeType, long order) {
+        remove(id);
+        int bucket = mBucketSlots.get(bucketId);
+        if (bucket == LongIntMap.MISSING) {
+            bucket = addBucket(bucketId, bucketName);
+        } else if (bucketName != null) {
+            mBucketNames[bucket] = bucketName;
+        }
+        short mime = mimeIndex(mimeType);
+        if (mMediaCount == mMediaIds.length) {
+            growMedia();
+        }
+        int slot = mMediaCount++;
+        mMediaIds[slot] = id;
+        mMediaBuckets[slot] = bucketId;
+        mMediaOrders[slot] = order;
+        mMediaMimes[slot] = mime;
+        mMediaMarks[slot] = mSweep;
+        mMediaSlots.put(id, slot);
+
+        mBucketCounts[bucket]++;
+        if (!mBucketDirty[bucket] && isNewer(order, id, mCoverOrders[bucket], mCoverIds[bucket])) {
+            mCoverIds[bucket] = id;
+            mCoverOrders[bucket] = order;
+            mCoverMimes[bucket] = mime;
+        }
+    }
+
+    /**
+     * 删除一个媒体
+     * @return 是否存在
+     */
+    public boolean remove(long id) {
+        int slot = mMediaSlots.remove(id);
+        if (slot == LongIntMap.MISSING) {
+            return false;
+        }
+        int bucket = mBucketSlots.get(mMediaBuckets[slot]);
+        if (--mBucketCounts[bucket] == 0) {
+            removeBucket(bucket);
+        } else if (mCoverIds[bucket] == id && !mBucketDirty[bucket]) {
+            mBucketDirty[bucket] = true;
+            mDirtyCount++;
+        }
+        int last = --mMediaCount;
+        if (slot != last) {
+            mMediaIds[slot] = mMediaIds[last];
+            mMediaBuckets[slot] = mMediaBuckets[last];
+            mMediaOrders[slot] = mMediaOrders[last];
+            mMediaMimes[slot] = mMediaMimes[last];
+            mMediaMarks[slot] = mMediaMarks[last];
+            mMediaSlots.put(mMediaIds[slot], slot);
+        }
+        return true;
+    }
+
+    /**
+     * 开始一轮标记，之后对仍然存在的媒体调用mark，最后调用sweep删除没有标记的媒体
+     */
+    public void beginSweep() {
+        mSweep++;
+    }
+
+    /**
+     * 标记媒体仍然存在
+     * @return 媒体已经在索引中并且相册没有变化时返回true，否则需要调用put更新
+     */
+    public boolean mark(long id, long bucketId) {
+        int slot = mMediaSlots.get(id);
+        if (slot == LongIntMap.MISSING || mMediaBuckets[slot] != bucketId) {
+            return false;
+        }
+        mMediaMarks[slot] = mSweep;
+        return true;
+    }
+
+    /**
+     * 删除这一轮没有标记的媒体
+     * @return 删除的个数
+     */
+    public int sweep() {
+        int removed = 0;
+        int slot = 0;
+        while (slot < mMediaCount) {
+            if (mMediaMarks[slot] != mSweep) {
+                // 最后一个媒体会移到当前位置，不移动下标
+                remove(mMediaIds[slot]);
+                removed++;
+            } else {
+                slot++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 生成相册列表的快照，快照不会随索引变化
+     */
+    @NonNull
+    public Snapshot snapshot() {
+        refreshCovers();
+        Integer[] order = new Integer[mBucketCount];
+        for (int i = 0; i < mBucketCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (lhs, rhs) -> {
+            if (mCameraFirst) {
+                boolean lhsCamera = CAMERA_BUCKET.equals(mBucketNames[lhs]);
+                boolean rhsCamera = CAMERA_BUCKET.equals(mBucketNames[rhs]);
+                if (lhsCamera != rhsCamera) {
+                    return lhsCamera ? -1 : 1;
+                }
+            }
+            if (mCoverOrders[lhs] != mCoverOrders[rhs]) {
+                return mCoverOrders[lhs] > mCoverOrders[rhs] ? -1 : 1;
+            }
+            return Long.compare(mCoverIds[rhs], mCoverIds[lhs]);
+        });
+
+        Snapshot snapshot = new Snapshot(mBucketCount);
+        if (mBucketCount > 0) {
+            snapshot.allCoverId = mCoverIds[order[0]];
+            snapshot.allCoverMime = mMimeTable.get(mCoverMimes[order[0]]);
+        }
+        for (int i = 0; i < mBucketCount; i++) {
+            int bucket = order[i];
+            if (mBucketCounts[bucket] <= MIN_ALBUM_COUNT) {
+                continue;
+            }
+            int row = snapshot.count++;
+            snapshot.bucketIds[row] = mBucketIds[bucket];
+            snapshot.names[row] = mBucketNames[bucket];
+            snapshot.coverIds[row] = mCoverIds[bucket];
+            snapshot.coverMimes[row] = mMimeTable.get(mCoverMimes[bucket]);
+            snapshot.counts[row] = mBucketCounts[bucket];
+            snapshot.totalCount += mBucketCounts[bucket];
+        }
+        return snapshot;
+    }
+
+    /**
+     * 一次遍历重新查找被删除了封面的相册的封面
+     */
+    private void refreshCovers() {
+        if (mDirtyCount == 0) {
+            return;
+        }
+        for (int i = 0; i < mBucketCount; i++) {
+            if (mBucketDirty[i]) {
+                mCoverIds[i] = NO_COVER;
+                mCoverOrders[i] = NO_COVER;
+            }
+        }
+        for (int slot = 0; slot < mMediaCount; slot++) {
+            int bucket = mBucketSlots.get(mMediaBuckets[slot]);
+            if (!mBucketDirty[bucket]) {
+                continue;
+            }
+            long id = mMediaIds[slot];
+            long order = mMediaOrders[slot];
+            if (isNewer(order, id, mCoverOrders[bucket], mCoverIds[bucket])) {
+                mCoverIds[bucket] = id;
+                mCoverOrders[bucket] = order;
+                mCoverMimes[bucket] = mMediaMimes[slot];
+            }
+        }
+        for (int i = 0; i < mBucketCount; i++) {
+            mBucketDirty[i] = false;
+        }
+        mDirtyCount = 0;
+    }
+
+    private static boolean isNewer(long order, long id, long coverOrder, long coverId) {
+        return order > coverOrder || (order == coverOrder && id > coverId);
+    }
+
+    private int addBucket(long bucketId, String bucketName) {
+        if (mBucketCount == mBucketIds.length) {
+            growBuckets();
+        }
+        int bucket = mBucketCount++;
+        mBucketIds[bucket] = bucketId;
+        mBucketNames[bucket] = bucketName;
+        mBucketCounts[bucket] = 0;
+        mCoverIds[bucket] = NO_COVER;
+        mCoverOrders[bucket] = NO_COVER;
+        mCoverMimes[bucket] = 0;
+        mBucketDirty[bucket] = false;
+        mBucketSlots.put(bucketId, bucket);
+        return bucket;
+    }
+
+    private void removeBucket(int bucket) {
+        mBucketSlots.remove(mBucketIds[bucket]);
+        if (mBucketDirty[bucket]) {
+            mDirtyCount--;
+        }
+        int last = --mBucketCount;
+        if (bucket != last) {
+            mBucketIds[bucket] = mBucketIds[last];
+            mBucketNames[bucket] = mBucketNames[last];
+            mBucketCounts[bucket] = mBucketCounts[last];
+            mCoverIds[bucket] = mCoverIds[last];
+            mCoverOrders[bucket] = mCoverOrders[last];
+            mCoverMimes[bucket] = mCoverMimes[last];
+            mBucketDirty[bucket] = mBucketDirty[last];
+            mBucketSlots.put(mBucketIds[bucket], bucket);
+        }
+        mBucketNames[last] = null;
+    }
+
+    private short mimeIndex(@Nullable String mimeType) {
+        Short index = mMimeIndex.get(mimeType);
+        if (index == null) {
+            index = (short) mMimeTable.size();
+            mMimeTable.add(mimeType);
+            mMimeIndex.put(mimeType, index);
+        }
+        return index;
+    }
+
+    private void growMedia() {
+        int capacity = mMediaIds.length * 2;
+        mMediaIds = Arrays.copyOf(mMediaIds, capacity);
+        mMediaBuckets = Arrays.copyOf(mMediaBuckets, capacity);
+        mMediaOrders = Arrays.copyOf(mMediaOrders, capacity);
+        mMediaMimes = Arrays.copyOf(mMediaMimes, capacity);
+        mMediaMarks = Arrays.copyOf(mMediaMarks, capacity);
+    }
+
+    private void growBuckets() {
+        int capacity = mBucketIds.length * 2;
+        mBucketIds = Arrays.copyOf(mBucketIds, capacity);
+        mBucketNames = Arrays.copyOf(mBucketNames, capacity);
+        mBucketCounts = Arrays.copyOf(mBucketCounts, capacity);
+        mCoverIds = Arrays.copyOf(mCoverIds, capacity);
+        mCoverOrders = Arrays.copyOf(mCoverOrders, capacity);
+        mCoverMimes = Arrays.copyOf(mCoverMimes, capacity);
+        mBucketDirty = Arrays.copyOf(mBucketDirty, capacity);
+    }
+
+    /**
+     * 相册列表快照，按显示顺序排列，不包括全部相册这一行
+     */
+    public static final class Snapshot {
+        final long[] bucketIds;
+        final String[] names;
+        final long[] coverIds;
+        final String[] coverMimes;
+        final long[] counts;
+        int count;
+        // 全部相册的封面，没有媒体时为NO_COVER
+        long allCoverId = NO_COVER;
+        String allCoverMime;
+        long totalCount;
+
+        Snapshot(int capacity) {
+            bucketIds = new long[capacity];
+            names = new String[capacity];
+            coverIds = new long[capacity];
+            coverMimes = new String[capacity];
+            counts = new long[capacity];
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public boolean hasCover() {
+            return allCoverId != NO_COVER;
+        }
+    }
+}
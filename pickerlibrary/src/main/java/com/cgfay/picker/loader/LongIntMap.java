@@ -0,0 +1,133 @@
+package com.cgfay.picker.loader;
+
+import java.util.Arrays;
+
+/**
+ * long到int的哈希表，开放寻址、线性探测，键和值都保存在基本类型数组中，不需要装箱
+ * 值必须是非负数，-1表示空位。删除时把后面同一簇的元素往前移，不留墓碑。
+ * 非线程安全。
+ */
+final class LongIntMap {
+
+    static final int MISSING = -1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] mKeys;
+    private int[] mValues;
+    private int mMask;
+    private int mSize;
+    private int mThreshold;
+
+    LongIntMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new long[capacity];
+        mValues = new int[capacity];
+        Arrays.fill(mValues, MISSING);
+        mMask = capacity - 1;
+        mThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mMask;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    /**
+     * @return 对应的值，不存在时返回MISSING
+     */
+    int get(long key) {
+        int index = slot(key);
+        while (mValues[index] != MISSING) {
+            if (mKeys[index] == key) {
+                return mValues[index];
+            }
+            index = (index + 1) & mMask;
+        }
+        return MISSING;
+    }
+
+    void put(long key, int value) {
+        int index = slot(key);
+        while (mValues[index] != MISSING) {
+            if (mKeys[index] == key) {
+                mValues[index] = value;
+                return;
+            }
+            index = (index + 1) & mMask;
+        }
+        mKeys[index] = key;
+        mValues[index] = value;
+        if (++mSize > mThreshold) {
+            rehash(mKeys.length << 1);
+        }
+    }
+
+    /**
+     * @return 删除的值，不存在时返回MISSING
+     */
+    int remove(long key) {
+        int index = slot(key);
+        while (mValues[index] != MISSING) {
+            if (mKeys[index] == key) {
+                int value = mValues[index];
+                shiftBack(index);
+                mSize--;
+                return value;
+            }
+            index = (index + 1) & mMask;
+        }
+        return MISSING;
+    }
+
+    void clear() {
+        Arrays.fill(mValues, MISSING);
+        mSize = 0;
+    }
+
+    private void shiftBack(int hole) {
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mMask;
+            if (mValues[index] == MISSING) {
+                break;
+            }
+            int home = slot(mKeys[index]);
+            // 元素的理想位置不在(hole, index]之间时，可以移到空位上
+            boolean movable = hole <= index ? (home <= hole || home > index) : (home <= hole && home > index);
+            if (movable) {
+                mKeys[hole] = mKeys[index];
+                mValues[hole] = mValues[index];
+                hole = index;
+            }
+        }
+        mValues[hole] = MISSING;
+    }
+
+    private void rehash(int capacity) {
+        long[] keys = mKeys;
+        int[] values = mValues;
+        allocate(capacity);
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != MISSING) {
+                int index = slot(keys[i]);
+                while (mValues[index] != MISSING) {
+                    index = (index + 1) & mMask;
+                }
+                mKeys[index] = keys[i];
+                mValues[index] = values[i];
+            }
+        }
+    }
+}
@@ -36,6 +36,7 @@ public class MediaDataLoader extends CursorLoader {
             MediaStore.MediaColumns.WIDTH,
             MediaStore.MediaColumns.HEIGHT,
             MediaStore.MediaColumns.SIZE,
+            MediaStore.MediaColumns.DATE_MODIFIED,
     };
 
     private final static String[] PROJECTION_IMAGE = new String[]{
@@ -44,6 +45,7 @@ public class MediaDataLoader extends CursorLoader {
             MediaStore.MediaColumns.WIDTH,
             MediaStore.MediaColumns.HEIGHT,
             MediaStore.MediaColumns.SIZE,
+            MediaStore.MediaColumns.DATE_MODIFIED,
     };
 
     private final static String[] PROJECTION_VIDEO = new String[]{
@@ -52,6 +54,7 @@ public class MediaDataLoader extends CursorLoader {
             MediaStore.MediaColumns.WIDTH,
             MediaStore.MediaColumns.HEIGHT,
             MediaStore.MediaColumns.SIZE,
+            MediaStore.MediaColumns.DATE_MODIFIED,
             "duration",
     };
 
@@ -62,6 +65,7 @@ public class MediaDataLoader extends CursorLoader {
             MediaStore.MediaColumns.WIDTH,
             MediaStore.MediaColumns.HEIGHT,
             MediaStore.MediaColumns.SIZE,
+            MediaStore.MediaColumns.DATE_MODIFIED,
             MediaStore.MediaColumns.DURATION,
     };
 
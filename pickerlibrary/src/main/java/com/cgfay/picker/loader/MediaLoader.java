@@ -61,4 +61,29 @@ public interface MediaLoader {
      * @param uri           uri路径
      */
     void loadGif(@NonNull Context context, int width, int height, @NonNull ImageView imageView, @NonNull Uri uri);
+
+    /**
+     * 预取缩略图，列表滑动时预取即将可见的条目，默认不处理
+     * @param context
+     * @param uri           uri路径
+     * @param resize        尺寸，需要与加载缩略图时的一致
+     */
+    default void preloadThumbnail(@NonNull Context context, @NonNull Uri uri, int resize) {
+
+    }
+
+    /**
+     * 取消之前的预取，默认不处理
+     */
+    default void cancelPreload() {
+
+    }
+
+    /**
+     * 取消widget上还没完成的缩略图加载，条目被回收时调用，默认不处理
+     * @param imageView     显示的widget
+     */
+    default void cancelThumbnail(@NonNull ImageView imageView) {
+
+    }
 }
@@ -2,11 +2,9 @@ package com.cgfay.picker.model;
 
 import android.content.ContentUris;
 import android.content.Context;
-import android.database.Cursor;
 import android.media.MediaExtractor;
 import android.media.MediaFormat;
 import android.net.Uri;
-import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.provider.MediaStore;
@@ -14,19 +12,13 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import android.text.TextUtils;
-import android.util.Log;
-
-import com.cgfay.picker.utils.MediaMetadataUtils;
-import com.cgfay.picker.utils.UriToPathUtils;
 
 /**
  * 媒体数据对象
  */
 public class MediaData implements Parcelable {
 
-    private static final String TAG = "MediaData";
     private static final String EXTERNAL = "external";
-    private static final String KEY_DURATION = "duration";
     private static final int KILO = 1000;
     private static final int DEFAULT_HASHCODE = 31;
 
@@ -46,17 +38,20 @@ public class MediaData implements Parcelable {
     private final String mimeType;
     private final Uri uri;
     private final long size;
+    private final long dateModified;
     private long durationMs;
     private int width;
     private int height;
     private int orientation;
 
-    public MediaData(@NonNull Context context, @NonNull Cursor cursor) throws Exception {
-        id = cursor.getInt(cursor.getColumnIndexOrThrow(MediaStore.Files.FileColumns._ID));
-        mimeType = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.MIME_TYPE));
-        width = cursor.getInt(cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.WIDTH));
-        height = cursor.getInt(cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.HEIGHT));
-        size = cursor.getLong(cursor.getColumnIndex(MediaStore.MediaColumns.SIZE));
+    public MediaData(long id, @Nullable String mimeType, int width, int height, long size,
+                     long durationMs, long dateModified) {
+        this.id = id;
+        this.mimeType = mimeType;
+        this.width = width;
+        this.height = height;
+        this.size = size;
+        this.dateModified = dateModified;
         Uri contentUri;
         if (isImage()) {
             contentUri = MediaStore.Images.Media.EXTERNAL_CONTENT_URI;
@@ -66,27 +61,22 @@ public class MediaData implements Parcelable {
             contentUri = MediaStore.Files.getContentUri(EXTERNAL);
         }
         this.uri = ContentUris.withAppendedId(contentUri, id);
-        if (isVideo()) {
-            int durationId;
-            if (Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.Q) {
-                durationId = cursor.getColumnIndexOrThrow(MediaStore.Video.VideoColumns.DURATION);
-            } else {
-                durationId = cursor.getColumnIndexOrThrow(KEY_DURATION);
-            }
-            durationMs = cursor.getLong(durationId);
-            if (durationMs == 0) {
-                extractVideoMetadata(context);
-            }
-        } else {
-            durationMs = 0;
-        }
-        Log.d(TAG, "MediaData: " + toString());
+        this.durationMs = isVideo() ? durationMs : 0;
     }
 
     /**
-     * 解析视频时长
+     * 视频是否缺少时长，需要打开文件解析
      */
-    private void extractVideoMetadata(@NonNull Context context) throws Exception {
+    public boolean isVideoMetadataMissing() {
+        return isVideo() && durationMs == 0;
+    }
+
+    /**
+     * 解析视频时长和宽高，不修改当前对象，可以在后台线程中调用
+     * @return {时长(ms), 宽度, 高度}，没有视频轨道时返回null
+     */
+    @Nullable
+    public long[] extractVideoMetadata(@NonNull Context context) throws Exception {
         MediaExtractor extractor = new MediaExtractor();
         try {
             extractor.setDataSource(context, uri, null);
@@ -95,18 +85,33 @@ public class MediaData implements Parcelable {
                 if (format.containsKey(MediaFormat.KEY_MIME)) {
                     String mime = format.getString(MediaFormat.KEY_MIME);
                     if (!TextUtils.isEmpty(mime) && mime.startsWith("video/")) {
-                        durationMs = format.getLong(MediaFormat.KEY_DURATION) / KILO;
+                        long duration = format.getLong(MediaFormat.KEY_DURATION) / KILO;
+                        long videoWidth = width;
+                        long videoHeight = height;
                         if (width == 0 || height == 0) {
-                            width = format.getInteger(MediaFormat.KEY_WIDTH);
-                            height = format.getInteger(MediaFormat.KEY_HEIGHT);
+                            videoWidth = format.getInteger(MediaFormat.KEY_WIDTH);
+                            videoHeight = format.getInteger(MediaFormat.KEY_HEIGHT);
                         }
-                        break;
+                        return new long[] {duration, videoWidth, videoHeight};
                     }
                 }
             }
         } finally {
             extractor.release();
         }
+        return null;
+    }
+
+    /**
+     * 设置解析出来的视频信息，需要在主线程中调用
+     * @param durationMs    时长
+     * @param width         宽度
+     * @param height        高度
+     */
+    public void setVideoMetadata(long durationMs, int width, int height) {
+        this.durationMs = durationMs;
+        this.width = width;
+        this.height = height;
     }
 
     private MediaData(Parcel source) {
@@ -114,22 +119,13 @@ public class MediaData implements Parcelable {
         mimeType = source.readString();
         uri = source.readParcelable(Uri.class.getClassLoader());
         size = source.readLong();
+        dateModified = source.readLong();
         durationMs = source.readLong();
         width = source.readInt();
         height = source.readInt();
         orientation = source.readInt();
     }
 
-    public static MediaData valueOf(@NonNull Context context, @NonNull Cursor cursor) {
-        MediaData mediaData = null;
-        try {
-            mediaData = new MediaData(context, cursor);
-        } catch (Exception ignored) {
-            // do nothing to ignored error media data
-        }
-        return mediaData;
-    }
-
     @Override
     public int describeContents() {
         return 0;
@@ -141,12 +137,17 @@ public class MediaData implements Parcelable {
         dest.writeString(mimeType);
         dest.writeParcelable(uri, 0);
         dest.writeLong(size);
+        dest.writeLong(dateModified);
         dest.writeLong(durationMs);
         dest.writeInt(width);
         dest.writeInt(height);
         dest.writeInt(orientation);
     }
 
+    public long getId() {
+        return id;
+    }
+
     @NonNull
     public String getMimeType() {
         return mimeType;
@@ -160,6 +161,13 @@ public class MediaData implements Parcelable {
         return size;
     }
 
+    /**
+     * MediaStore中的修改时间，与id和大小一起判断文件是否变化
+     */
+    public long getDateModified() {
+        return dateModified;
+    }
+
     public long getDurationMs() {
         return durationMs;
     }
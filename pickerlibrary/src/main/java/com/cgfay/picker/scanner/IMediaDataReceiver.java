@@ -9,4 +9,10 @@ import java.util.List;
 public interface IMediaDataReceiver {
 
     void onMediaDataObserve(@NonNull List<MediaData> mediaDataList);
+
+    // 媒体信息在后台解析完成后更新
+    void onMediaDataUpdate(@NonNull MediaData mediaData);
+
+    // 视频无法解析，从列表中移除
+    void onMediaDataRemove(@NonNull MediaData mediaData);
 }
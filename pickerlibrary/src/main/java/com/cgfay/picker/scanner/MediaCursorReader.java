@@ -0,0 +1,68 @@
+package com.cgfay.picker.scanner;
+
+import android.database.Cursor;
+import android.provider.MediaStore;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 媒体Cursor读取器
+ * 创建时解析一次列索引，之后整页读取到MediaPage中，不再为每一行查找列名
+ */
+public final class MediaCursorReader {
+
+    // 视频时长的列名，Q之前的版本没有常量，但列名相同
+    private static final String COLUMN_DURATION = "duration";
+
+    private final Cursor mCursor;
+    private final int mIdColumn;
+    private final int mMimeTypeColumn;
+    private final int mWidthColumn;
+    private final int mHeightColumn;
+    private final int mSizeColumn;
+    private final int mDateModifiedColumn;
+    // 图片查询中没有时长列，为-1
+    private final int mDurationColumn;
+
+    public MediaCursorReader(@NonNull Cursor cursor) {
+        mCursor = cursor;
+        mIdColumn = cursor.getColumnIndexOrThrow(MediaStore.Files.FileColumns._ID);
+        mMimeTypeColumn = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.MIME_TYPE);
+        mWidthColumn = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.WIDTH);
+        mHeightColumn = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.HEIGHT);
+        mSizeColumn = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.SIZE);
+        mDateModifiedColumn = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_MODIFIED);
+        mDurationColumn = cursor.getColumnIndex(COLUMN_DURATION);
+    }
+
+    /**
+     * 是否为指定Cursor创建的读取器
+     * @param cursor
+     * @return
+     */
+    public boolean isReading(Cursor cursor) {
+        return mCursor == cursor;
+    }
+
+    /**
+     * 从Cursor的当前位置往后读取最多maxRows行，追加到page中
+     * @param page      输出的一页数据
+     * @param maxRows   最多读取的行数
+     * @return 读取的行数，已经读到末尾或者Cursor已关闭时返回0
+     */
+    public int read(@NonNull MediaPage page, int maxRows) {
+        int rows = 0;
+        // 先判断行数再移动，避免页边界上的一行被跳过
+        while (rows < maxRows && !mCursor.isClosed() && mCursor.moveToNext()) {
+            page.add(mCursor.getLong(mIdColumn),
+                    mCursor.getString(mMimeTypeColumn),
+                    mCursor.getInt(mWidthColumn),
+                    mCursor.getInt(mHeightColumn),
+                    mCursor.getLong(mSizeColumn),
+                    mDurationColumn >= 0 ? mCursor.getLong(mDurationColumn) : 0,
+                    mCursor.getLong(mDateModifiedColumn));
+            rows++;
+        }
+        return rows;
+    }
+}
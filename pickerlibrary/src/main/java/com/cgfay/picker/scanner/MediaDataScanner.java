@@ -11,12 +11,14 @@ import androidx.loader.app.LoaderManager;
 import androidx.loader.content.Loader;
 import android.util.Log;
 
+import com.cgfay.picker.cache.MediaMetadataCache;
 import com.cgfay.picker.loader.MediaDataLoader;
 import com.cgfay.picker.model.AlbumData;
 import com.cgfay.picker.model.MediaData;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import io.reactivex.Observable;
@@ -36,6 +38,8 @@ public abstract class MediaDataScanner implements LoaderManager.LoaderCallbacks<
     protected static final int MAX_CACHE_SIZE = PAGE_SIZE * 3;
     protected static final int VIDEO_LOADER_ID = 2;
     protected static final int IMAGE_LOADER_ID = 3;
+    // 等待解析时长的视频个数上限
+    protected static final int MAX_METADATA_QUEUE_SIZE = PAGE_SIZE * 2;
 
     protected final Context mContext;
     protected AlbumData mCurrentAlbum;
@@ -49,7 +53,15 @@ public abstract class MediaDataScanner implements LoaderManager.LoaderCallbacks<
     protected boolean mUserVisible;
 
     protected WeakReference<Cursor> mWeakCursor;
+    // 当前Cursor的读取器，列索引只解析一次
+    protected MediaCursorReader mCursorReader;
+    // 解析过的媒体信息缓存
+    protected final MediaMetadataCache mMetadataCache;
+    // 缺少时长的视频在后台解析
+    protected final VideoMetadataQueue mMetadataQueue;
     protected List<MediaData> mCacheMediaData = new ArrayList<>();
+    // 解析队列已满时还没提交的视频，下次扫描时重新提交
+    protected final List<MediaData> mPendingMetadata = new ArrayList<>();
     protected boolean mPageScan;
 
     public MediaDataScanner(@NonNull Context context, @NonNull LoaderManager manager, IMediaDataReceiver dataReceiver) {
@@ -61,6 +73,26 @@ public abstract class MediaDataScanner implements LoaderManager.LoaderCallbacks<
         mUserVisible = false;
         mWeakCursor = null;
         mPageScan = false;
+        mMetadataCache = MediaMetadataCache.getInstance(context);
+        mMetadataQueue = new VideoMetadataQueue(context, mMetadataCache, MAX_METADATA_QUEUE_SIZE,
+                new VideoMetadataQueue.OnMetadataListener() {
+                    @Override
+                    public void onMetadataUpdate(@NonNull MediaData mediaData) {
+                        if (mDataReceiver != null) {
+                            mDataReceiver.onMediaDataUpdate(mediaData);
+                        }
+                    }
+
+                    @Override
+                    public void onMetadataFailed(@NonNull MediaData mediaData) {
+                        synchronized (mLock) {
+                            mCacheMediaData.remove(mediaData);
+                        }
+                        if (mDataReceiver != null) {
+                            mDataReceiver.onMediaDataRemove(mediaData);
+                        }
+                    }
+                });
     }
 
     public void setUserVisible(boolean visible) {
@@ -98,6 +130,8 @@ public abstract class MediaDataScanner implements LoaderManager.LoaderCallbacks<
         }
         mDataReceiver = null;
         mMainHandler.removeCallbacksAndMessages(null);
+        mMetadataQueue.release();
+        mMetadataCache.flush();
     }
 
     public void loadAlbumMedia(@NonNull AlbumData album) {
@@ -120,7 +154,9 @@ public abstract class MediaDataScanner implements LoaderManager.LoaderCallbacks<
             }
             synchronized (mLock) {
                 mCacheMediaData.clear();
+                mPendingMetadata.clear();
             }
+            mMetadataQueue.clear();
             mLoaderManager.restartLoader(getLoaderId(), bundle, this);
         }
     }
@@ -221,11 +257,11 @@ public abstract class MediaDataScanner implements LoaderManager.LoaderCallbacks<
     private List<MediaData> scanAllMediaData(@NonNull Cursor cursor) {
         List<MediaData> mediaDatas = new ArrayList<>();
         try {
-            while (isCursorEnable(cursor) && cursor.moveToNext()) {
-                MediaData media = buildMediaData(mContext, cursor);
-                if (media != null) {
-                    mediaDatas.add(media);
-                }
+            if (isCursorEnable(cursor)) {
+                MediaPage page = new MediaPage(cursor.getCount());
+                getCursorReader(cursor).read(page, Integer.MAX_VALUE);
+                page.toMediaData(mediaDatas);
+                enqueueMissingMetadata(applyCachedMetadata(mediaDatas));
             }
         } catch (Throwable e) {
             e.printStackTrace();
@@ -235,22 +271,20 @@ public abstract class MediaDataScanner implements LoaderManager.LoaderCallbacks<
 
     private int scanPageMediaData(@NonNull Cursor cursor) {
         try {
-            List<MediaData> mediaDataList = new ArrayList<>();
-            int size = 0;
-            while (isCursorEnable(cursor) && cursor.moveToNext() && size < PAGE_SIZE) {
-                MediaData media = buildMediaData(mContext, cursor);
-                if (media != null) {
-                    mediaDataList.add(media);
-                }
-                size++;
-            }
+            List<MediaData> mediaDataList = new ArrayList<>(PAGE_SIZE);
+            MediaPage page = new MediaPage(PAGE_SIZE);
+            getCursorReader(cursor).read(page, PAGE_SIZE);
+            page.toMediaData(mediaDataList);
+            List<MediaData> missingList = applyCachedMetadata(mediaDataList);
             mMainHandler.post(() -> {
                 if (mDataReceiver != null) {
                     mDataReceiver.onMediaDataObserve(mediaDataList);
                 }
             });
+            // 第一页先显示，再解析缺少的时长
+            enqueueMissingMetadata(missingList);
             if (mUserVisible) {
-                if (isCursorEnable(cursor) && !cursor.isLast()) {
+                if (isCursorEnable(cursor)) {
                     preScanMediaData(cursor);
                 }
             }
@@ -261,24 +295,73 @@ public abstract class MediaDataScanner implements LoaderManager.LoaderCallbacks<
     }
 
     private int preScanMediaData(@NonNull Cursor cursor) {
-        List<MediaData> mediaDataList = new ArrayList<>();
-        int size = 0;
-        while (isCursorEnable(cursor) && cursor.moveToNext() && size < PAGE_SIZE * 2) {
-            MediaData media = buildMediaData(mContext, cursor);
-            if (media != null) {
-                mediaDataList.add(media);
-            }
-            size++;
+        List<MediaData> mediaDataList = new ArrayList<>(PAGE_SIZE * 2);
+        List<MediaData> missingList = new ArrayList<>();
+        if (isCursorEnable(cursor)) {
+            MediaPage page = new MediaPage(PAGE_SIZE * 2);
+            getCursorReader(cursor).read(page, PAGE_SIZE * 2);
+            page.toMediaData(mediaDataList);
+            missingList = applyCachedMetadata(mediaDataList);
         }
 
         synchronized (mLock) {
             mCacheMediaData.addAll(mediaDataList);
         }
+        enqueueMissingMetadata(missingList);
         return 0;
     }
 
-    private MediaData buildMediaData(@NonNull Context context, @NonNull Cursor cursor) {
-        return MediaData.valueOf(context, cursor);
+    /**
+     * 获取Cursor的读取器，Cursor变化时重新解析列索引
+     */
+    private MediaCursorReader getCursorReader(@NonNull Cursor cursor) {
+        synchronized (mLock) {
+            if (mCursorReader == null || !mCursorReader.isReading(cursor)) {
+                mCursorReader = new MediaCursorReader(cursor);
+            }
+            return mCursorReader;
+        }
+    }
+
+    /**
+     * 缺少时长的视频先从缓存中查找，需要在交给界面之前调用
+     * 缓存中记录为无法解析的视频从列表中移除，跟原来解析失败时不显示一致
+     * @return 缓存中没有记录、需要后台解析的视频
+     */
+    private List<MediaData> applyCachedMetadata(@NonNull List<MediaData> mediaDataList) {
+        List<MediaData> missingList = new ArrayList<>();
+        Iterator<MediaData> iterator = mediaDataList.iterator();
+        while (iterator.hasNext()) {
+            MediaData mediaData = iterator.next();
+            if (!mediaData.isVideoMetadataMissing()) {
+                continue;
+            }
+            MediaMetadataCache.Entry entry = mMetadataCache.get(mediaData.getId(),
+                    mediaData.getDateModified(), mediaData.getSize());
+            if (entry == null) {
+                missingList.add(mediaData);
+            } else if (entry.durationMs == VideoMetadataQueue.DURATION_UNREADABLE) {
+                iterator.remove();
+            } else if (entry.durationMs > 0) {
+                mediaData.setVideoMetadata(entry.durationMs, entry.width, entry.height);
+            }
+        }
+        return missingList;
+    }
+
+    /**
+     * 缺少时长的视频交给后台解析，队列满时不等待，
+     * 没提交的留到下次扫描时先于新的视频重新提交
+     */
+    private void enqueueMissingMetadata(@NonNull List<MediaData> mediaDataList) {
+        synchronized (mLock) {
+            mPendingMetadata.addAll(mediaDataList);
+            int count = 0;
+            while (count < mPendingMetadata.size() && mMetadataQueue.offer(mPendingMetadata.get(count))) {
+                count++;
+            }
+            mPendingMetadata.subList(0, count).clear();
+        }
     }
 
     public List<MediaData> getCacheMediaData() {
@@ -0,0 +1,128 @@
+package com.cgfay.picker.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.cgfay.picker.model.MediaData;
+
+import java.util.List;
+
+/**
+ * 一页媒体数据，按列保存在基本类型数组中
+ * 扫描线程从Cursor中整页读取，数组在多次读取之间复用，需要交给界面时再转换为MediaData
+ */
+public final class MediaPage {
+
+    private long[] mIds;
+    private String[] mMimeTypes;
+    private int[] mWidths;
+    private int[] mHeights;
+    private long[] mSizes;
+    private long[] mDurations;
+    private long[] mDateModified;
+    private int mCount;
+
+    public MediaPage(int capacity) {
+        mIds = new long[capacity];
+        mMimeTypes = new String[capacity];
+        mWidths = new int[capacity];
+        mHeights = new int[capacity];
+        mSizes = new long[capacity];
+        mDurations = new long[capacity];
+        mDateModified = new long[capacity];
+    }
+
+    /**
+     * 清空数据，保留数组
+     */
+    public void clear() {
+        for (int i = 0; i < mCount; i++) {
+            mMimeTypes[i] = null;
+        }
+        mCount = 0;
+    }
+
+    /**
+     * 追加一行
+     */
+    void add(long id, String mimeType, int width, int height, long size, long duration, long dateModified) {
+        if (mCount == mIds.length) {
+            grow();
+        }
+        int row = mCount++;
+        mIds[row] = id;
+        mMimeTypes[row] = mimeType;
+        mWidths[row] = width;
+        mHeights[row] = height;
+        mSizes[row] = size;
+        mDurations[row] = duration;
+        mDateModified[row] = dateModified;
+    }
+
+    private void grow() {
+        int capacity = Math.max(mIds.length * 2, 16);
+        long[] ids = new long[capacity];
+        String[] mimeTypes = new String[capacity];
+        int[] widths = new int[capacity];
+        int[] heights = new int[capacity];
+        long[] sizes = new long[capacity];
+        long[] durations = new long[capacity];
+        long[] dateModified = new long[capacity];
+        System.arraycopy(mIds, 0, ids, 0, mCount);
+        System.arraycopy(mMimeTypes, 0, mimeTypes, 0, mCount);
+        System.arraycopy(mWidths, 0, widths, 0, mCount);
+        System.arraycopy(mHeights, 0, heights, 0, mCount);
+        System.arraycopy(mSizes, 0, sizes, 0, mCount);
+        System.arraycopy(mDurations, 0, durations, 0, mCount);
+        System.arraycopy(mDateModified, 0, dateModified, 0, mCount);
+        mIds = ids;
+        mMimeTypes = mimeTypes;
+        mWidths = widths;
+        mHeights = heights;
+        mSizes = sizes;
+        mDurations = durations;
+        mDateModified = dateModified;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public long getId(int row) {
+        return mIds[row];
+    }
+
+    public String getMimeType(int row) {
+        return mMimeTypes[row];
+    }
+
+    public int getWidth(int row) {
+        return mWidths[row];
+    }
+
+    public int getHeight(int row) {
+        return mHeights[row];
+    }
+
+    public long getSize(int row) {
+        return mSizes[row];
+    }
+
+    public long getDuration(int row) {
+        return mDurations[row];
+    }
+
+    public long getDateModified(int row) {
+        return mDateModified[row];
+    }
+
+    /**
+     * 把这一页转换为MediaData，追加到列表中
+     * @param out   输出列表
+     */
+    public void toMediaData(@NonNull List<MediaData> out) {
+        for (int i = 0; i < mCount; i++) {
+            out.add(new MediaData(mIds[i], mMimeTypes[i], mWidths[i], mHeights[i],
+                    mSizes[i], mDurations[i], mDateModified[i]));
+        }
+    }
+}
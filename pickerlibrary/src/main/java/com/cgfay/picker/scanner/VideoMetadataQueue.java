@@ -0,0 +1,183 @@
+package com.cgfay.picker.scanner;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.cgfay.picker.cache.MediaMetadataCache;
+import com.cgfay.picker.model.MediaData;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * 视频信息解析队列
+ * MediaStore中没有时长的视频需要打开文件解析，原来在扫描线程中逐个同步解析，会拖慢第一页的显示。
+ * 这里放到单独的后台线程中按扫描顺序解析，解析完成后在主线程中更新MediaData并回调。
+ * 队列有容量上限，满了之后offer返回false，扫描线程不等待，由调用方在之后重新提交。
+ * 解析结果写入MediaMetadataCache，队列空闲时写到磁盘，下次打开选图器时不再解析。
+ * 无法解析的视频同样写入缓存，时长记为DURATION_UNREADABLE，回调后从列表中移除，下次打开时直接过滤。
+ */
+public final class VideoMetadataQueue {
+
+    private static final String TAG = "VideoMetadataQueue";
+
+    // 缓存中无法解析的视频的时长，原来解析失败的视频不在列表中显示
+    public static final long DURATION_UNREADABLE = -1;
+
+    /**
+     * 解析完成监听器，在主线程中回调
+     */
+    public interface OnMetadataListener {
+
+        void onMetadataUpdate(@NonNull MediaData mediaData);
+
+        // 视频无法解析，需要从列表中移除
+        void onMetadataFailed(@NonNull MediaData mediaData);
+    }
+
+    /**
+     * 视频信息解析
+     */
+    interface Extractor {
+        /**
+         * @return {时长(ms), 宽度, 高度}，没有视频轨道时返回null
+         */
+        @Nullable
+        long[] extract(@NonNull MediaData mediaData) throws Exception;
+    }
+
+    private final MediaMetadataCache mCache;
+    private final BlockingQueue<MediaData> mQueue;
+    private final Extractor mExtractor;
+    private final Executor mCallbackExecutor;
+    private final OnMetadataListener mListener;
+    private Thread mWorker;
+    private volatile boolean mReleased;
+
+    public VideoMetadataQueue(@NonNull Context context, @NonNull MediaMetadataCache cache, int capacity,
+                              @NonNull OnMetadataListener listener) {
+        this(cache, capacity, createExtractor(context.getApplicationContext()),
+                new Handler(Looper.getMainLooper())::post, listener);
+    }
+
+    VideoMetadataQueue(@NonNull MediaMetadataCache cache, int capacity, @NonNull Extractor extractor,
+                       @NonNull Executor callbackExecutor, @NonNull OnMetadataListener listener) {
+        mCache = cache;
+        mQueue = new ArrayBlockingQueue<>(capacity);
+        mExtractor = extractor;
+        mCallbackExecutor = callbackExecutor;
+        mListener = listener;
+    }
+
+    private static Extractor createExtractor(@NonNull Context context) {
+        return mediaData -> mediaData.extractVideoMetadata(context);
+    }
+
+    /**
+     * 添加需要解析的视频，不阻塞调用线程
+     * @param mediaData
+     * @return 队列已满时返回false，调用方需要之后重新提交；已经释放时直接丢弃并返回true
+     */
+    public boolean offer(@NonNull MediaData mediaData) {
+        if (mReleased) {
+            return true;
+        }
+        startWorker();
+        return mQueue.offer(mediaData);
+    }
+
+    /**
+     * 等待解析的视频个数
+     */
+    public int getPendingCount() {
+        return mQueue.size();
+    }
+
+    /**
+     * 丢弃还没有解析的视频，比如切换相册时
+     */
+    public void clear() {
+        mQueue.clear();
+    }
+
+    /**
+     * 停止解析线程
+     */
+    public synchronized void release() {
+        mReleased = true;
+        mQueue.clear();
+        if (mWorker != null) {
+            mWorker.interrupt();
+            mWorker = null;
+        }
+    }
+
+    private synchronized void startWorker() {
+        if (mWorker != null || mReleased) {
+            return;
+        }
+        mWorker = new Thread(this::processQueue, TAG);
+        mWorker.setDaemon(true);
+        mWorker.start();
+    }
+
+    private void processQueue() {
+        android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+        while (!mReleased) {
+            MediaData next = mQueue.poll();
+            if (next == null) {
+                // 一批解析完成，写到磁盘
+                mCache.flush();
+                try {
+                    next = mQueue.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            final MediaData mediaData = next;
+            long[] metadata;
+            try {
+                metadata = mExtractor.extract(mediaData);
+            } catch (Exception e) {
+                if (mReleased) {
+                    // 释放时中断的解析不算失败
+                    break;
+                }
+                Log.w(TAG, "extract metadata failed: " + mediaData.getContentUri(), e);
+                // 记录失败，下次打开时不再解析
+                mCache.put(mediaData.getId(), mediaData.getDateModified(), mediaData.getSize(),
+                        DURATION_UNREADABLE, 0, 0, mediaData.getOrientation());
+                mCallbackExecutor.execute(() -> {
+                    if (!mReleased) {
+                        mListener.onMetadataFailed(mediaData);
+                    }
+                });
+                continue;
+            }
+            if (metadata == null) {
+                // 没有视频轨道，跟原来一样保留在列表中，时长记为0，下次打开时不再解析
+                mCache.put(mediaData.getId(), mediaData.getDateModified(), mediaData.getSize(),
+                        0, mediaData.getWidth(), mediaData.getHeight(), mediaData.getOrientation());
+                continue;
+            }
+            final long durationMs = metadata[0];
+            final int width = (int) metadata[1];
+            final int height = (int) metadata[2];
+            mCache.put(mediaData.getId(), mediaData.getDateModified(), mediaData.getSize(),
+                    durationMs, width, height, mediaData.getOrientation());
+            mCallbackExecutor.execute(() -> {
+                if (mReleased) {
+                    return;
+                }
+                mediaData.setVideoMetadata(durationMs, width, height);
+                mListener.onMetadataUpdate(mediaData);
+            });
+        }
+    }
+}
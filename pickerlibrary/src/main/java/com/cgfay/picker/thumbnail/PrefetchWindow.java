@@ -0,0 +1,90 @@
+package com.cgfay.picker.thumbnail;
+
+/**
+ * 预取区域，根据可见区域和滑动方向计算接下来需要预取的位置
+ * 向下滑动时预取最后一个可见条目之后的若干个，向上滑动时预取第一个可见条目之前的若干个，
+ * 两个方向都按离可见区域由近到远排列。区域没有变化时不重复预取。
+ */
+public final class PrefetchWindow {
+
+    public static final int DIRECTION_NONE = 0;
+    public static final int DIRECTION_FORWARD = 1;
+    public static final int DIRECTION_BACKWARD = -1;
+
+    private final int mCount;
+    private int mDirection = DIRECTION_NONE;
+    // 上一次预取的起点(包含)和终点(不包含)，按离可见区域由近到远
+    private int mStart = -1;
+    private int mEnd = -1;
+
+    /**
+     * @param count 每次预取的条目数
+     */
+    public PrefetchWindow(int count) {
+        mCount = count;
+    }
+
+    /**
+     * 更新可见区域
+     * @param firstVisible  第一个可见位置
+     * @param lastVisible   最后一个可见位置
+     * @param itemCount     条目总数
+     * @param direction     滑动方向
+     * @return 区域是否变化，变化时通过getPositions获取新的预取位置
+     */
+    public boolean update(int firstVisible, int lastVisible, int itemCount, int direction) {
+        if (direction == DIRECTION_NONE || firstVisible < 0 || lastVisible < firstVisible) {
+            return false;
+        }
+        int start;
+        int end;
+        if (direction == DIRECTION_FORWARD) {
+            start = lastVisible + 1;
+            end = Math.min(itemCount, start + mCount);
+        } else {
+            start = firstVisible - 1;
+            end = Math.max(-1, start - mCount);
+        }
+        if (start == end) {
+            start = -1;
+            end = -1;
+        }
+        if (direction == mDirection && start == mStart && end == mEnd) {
+            return false;
+        }
+        mDirection = direction;
+        mStart = start;
+        mEnd = end;
+        return true;
+    }
+
+    /**
+     * 滑动方向是否与上一次不同
+     */
+    public boolean isDirectionChanged(int direction) {
+        return mDirection != DIRECTION_NONE && direction != DIRECTION_NONE && direction != mDirection;
+    }
+
+    /**
+     * 预取的个数
+     */
+    public int size() {
+        return Math.abs(mEnd - mStart);
+    }
+
+    /**
+     * 第index个预取位置，按离可见区域由近到远
+     */
+    public int getPosition(int index) {
+        return mDirection == DIRECTION_FORWARD ? mStart + index : mStart - index;
+    }
+
+    /**
+     * 重置，比如数据变化时
+     */
+    public void reset() {
+        mDirection = DIRECTION_NONE;
+        mStart = -1;
+        mEnd = -1;
+    }
+}
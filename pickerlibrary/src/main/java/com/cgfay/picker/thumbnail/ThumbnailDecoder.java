@@ -0,0 +1,166 @@
+package com.cgfay.picker.thumbnail;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.text.TextUtils;
+import android.util.Size;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.cgfay.picker.utils.MediaMetadataUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 缩略图解码，结果为居中裁剪的正方形
+ * Q及以上使用系统的缩略图接口，系统有自己的缩略图缓存，也支持视频；
+ * 之前的版本图片按采样率解码并根据EXIF旋转，视频取一帧画面。
+ */
+final class ThumbnailDecoder {
+
+    private ThumbnailDecoder() {
+
+    }
+
+    /**
+     * 解码缩略图
+     * @param context
+     * @param uri   媒体uri
+     * @param size  缩略图边长
+     * @return 解码失败时返回null
+     */
+    @Nullable
+    static Bitmap decode(@NonNull Context context, @NonNull Uri uri, int size) throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+        Bitmap source;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            source = resolver.loadThumbnail(uri, new Size(size, size), null);
+        } else if (isVideo(resolver, uri)) {
+            source = decodeVideoFrame(context, uri);
+        } else {
+            source = decodeImage(context, uri, size);
+        }
+        if (source == null) {
+            return null;
+        }
+        return centerCrop(source, size);
+    }
+
+    private static boolean isVideo(@NonNull ContentResolver resolver, @NonNull Uri uri) {
+        if (uri.toString().startsWith(MediaStore.Video.Media.EXTERNAL_CONTENT_URI.toString())) {
+            return true;
+        }
+        String type = resolver.getType(uri);
+        return type != null && type.startsWith("video");
+    }
+
+    @Nullable
+    private static Bitmap decodeVideoFrame(@NonNull Context context, @NonNull Uri uri) {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(context, uri);
+            return retriever.getFrameAtTime();
+        } catch (RuntimeException e) {
+            return null;
+        } finally {
+            retriever.release();
+        }
+    }
+
+    @Nullable
+    private static Bitmap decodeImage(@NonNull Context context, @NonNull Uri uri, int size)
+            throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream input = resolver.openInputStream(uri)) {
+            BitmapFactory.decodeStream(input, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        // 采样后短边不小于缩略图边长
+        int sampleSize = 1;
+        int shortSide = Math.min(options.outWidth, options.outHeight);
+        while (shortSide / (sampleSize * 2) >= size) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap bitmap;
+        try (InputStream input = resolver.openInputStream(uri)) {
+            bitmap = BitmapFactory.decodeStream(input, null, options);
+        }
+        if (bitmap == null) {
+            return null;
+        }
+        int degrees = getRotation(context, uri);
+        if (degrees == 0) {
+            return bitmap;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postRotate(degrees);
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(),
+                matrix, true);
+        if (rotated != bitmap) {
+            bitmap.recycle();
+        }
+        return rotated;
+    }
+
+    private static int getRotation(@NonNull Context context, @NonNull Uri uri) {
+        String path = MediaMetadataUtils.getPath(context, uri);
+        if (TextUtils.isEmpty(path)) {
+            return 0;
+        }
+        try {
+            ExifInterface exif = new ExifInterface(path);
+            switch (exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 缩放并居中裁剪为边长size的正方形
+     */
+    @NonNull
+    private static Bitmap centerCrop(@NonNull Bitmap source, int size) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (width == size && height == size) {
+            return source;
+        }
+        float scale = Math.max(size / (float) width, size / (float) height);
+        int cropWidth = Math.min(width, Math.round(size / scale));
+        int cropHeight = Math.min(height, Math.round(size / scale));
+        Matrix matrix = new Matrix();
+        matrix.setScale(scale, scale);
+        Bitmap result = Bitmap.createBitmap(source, (width - cropWidth) / 2, (height - cropHeight) / 2,
+                cropWidth, cropHeight, matrix, true);
+        if (result != source) {
+            source.recycle();
+        }
+        return result;
+    }
+}
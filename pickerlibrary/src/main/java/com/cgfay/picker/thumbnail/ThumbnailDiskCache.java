@@ -0,0 +1,199 @@
+package com.cgfay.picker.thumbnail;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缩略图磁盘缓存，每个缩略图一个文件，文件名为key的MD5
+ * 按总字节数限制大小，超过时删除最久没有使用的文件。使用顺序保存在内存中，
+ * 第一次访问时按文件的修改时间恢复，命中时更新修改时间，下次打开时仍能保持大致的LRU顺序。
+ * 写入先写临时文件再重命名，不会读到写了一半的文件。所有方法线程安全，需要在工作线程中调用。
+ */
+public final class ThumbnailDiskCache {
+
+    private static final String TAG = "ThumbnailDiskCache";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * 写入缩略图数据
+     */
+    public interface Writer {
+        void write(@NonNull OutputStream output) throws IOException;
+    }
+
+    private final File mDirectory;
+    private final long mMaxBytes;
+    // 文件名 -> 文件大小，按访问顺序排列
+    private final LinkedHashMap<String, Long> mFiles = new LinkedHashMap<>(64, 0.75f, true);
+    private long mTotalBytes;
+    private boolean mLoaded;
+
+    public ThumbnailDiskCache(@NonNull File directory, long maxBytes) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * 查找缓存文件
+     * @return 不存在时返回null
+     */
+    @Nullable
+    public synchronized File get(@NonNull String key) {
+        ensureLoaded();
+        String name = fileName(key);
+        if (mFiles.get(name) == null) {
+            return null;
+        }
+        File file = new File(mDirectory, name);
+        if (!file.exists()) {
+            remove(name);
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * 写入缓存，写入失败时不保留文件
+     * @return 是否写入成功
+     */
+    public boolean put(@NonNull String key, @NonNull Writer writer) {
+        synchronized (this) {
+            ensureLoaded();
+        }
+        String name = fileName(key);
+        File temp = new File(mDirectory, name + "." + Thread.currentThread().getId() + TEMP_SUFFIX);
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temp))) {
+            writer.write(output);
+        } catch (IOException e) {
+            Log.w(TAG, "write thumbnail failed: " + key, e);
+            temp.delete();
+            return false;
+        }
+        synchronized (this) {
+            File file = new File(mDirectory, name);
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return false;
+            }
+            Long old = mFiles.put(name, file.length());
+            if (old != null) {
+                mTotalBytes -= old;
+            }
+            mTotalBytes += file.length();
+            trimToSize();
+        }
+        return true;
+    }
+
+    /**
+     * 缓存的总字节数
+     */
+    public synchronized long getTotalBytes() {
+        ensureLoaded();
+        return mTotalBytes;
+    }
+
+    /**
+     * 缓存的文件数
+     */
+    public synchronized int size() {
+        ensureLoaded();
+        return mFiles.size();
+    }
+
+    /**
+     * 删除所有缓存
+     */
+    public synchronized void clear() {
+        ensureLoaded();
+        for (String name : mFiles.keySet()) {
+            new File(mDirectory, name).delete();
+        }
+        mFiles.clear();
+        mTotalBytes = 0;
+    }
+
+    private void remove(String name) {
+        Long length = mFiles.remove(name);
+        if (length != null) {
+            mTotalBytes -= length;
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> iterator = mFiles.entrySet().iterator();
+        while (mTotalBytes > mMaxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            new File(mDirectory, eldest.getKey()).delete();
+            mTotalBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            Log.w(TAG, "create directory failed: " + mDirectory);
+            return;
+        }
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        // 按修改时间从旧到新插入，恢复LRU顺序
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (lhs, rhs) -> Long.compare(modified[lhs], modified[rhs]));
+        for (Integer index : order) {
+            File file = files[index];
+            if (file.getName().endsWith(TEMP_SUFFIX)) {
+                // 上次写到一半的临时文件
+                file.delete();
+                continue;
+            }
+            long length = file.length();
+            mFiles.put(file.getName(), length);
+            mTotalBytes += length;
+        }
+        trimToSize();
+    }
+
+    static String fileName(@NonNull String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] bytes = digest.digest(key.getBytes(Charset.forName("UTF-8")));
+            char[] chars = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+                chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(key.hashCode()) + "_" + key.length();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.cgfay.picker.thumbnail;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * 选择器缩略图加载，两级缓存
+ * 内存缓存按位图占用的字节数限制大小，磁盘缓存保存缩小后的缩略图，避免每次都解码原图；
+ * 解码在ThumbnailScheduler的线程池中进行，可见的请求优先于预取的请求，
+ * 条目滑出屏幕被复用时取消还没开始的请求。
+ * 除了构造之外的方法都需要在主线程中调用。
+ */
+public final class ThumbnailLoader {
+
+    private static final String TAG = "ThumbnailLoader";
+
+    private static final String DISK_CACHE_DIR = "picker_thumbnails";
+    private static final long DISK_CACHE_SIZE = 64 * 1024 * 1024;
+    private static final int JPEG_QUALITY = 85;
+
+    private static volatile ThumbnailLoader sInstance;
+
+    private final Context mContext;
+    private final LruCache<String, Bitmap> mMemoryCache;
+    private final ThumbnailDiskCache mDiskCache;
+    private final ThumbnailScheduler mScheduler;
+    private final Handler mMainHandler;
+
+    // 等待结果的ImageView -> 请求的key，只在主线程访问
+    private final WeakHashMap<ImageView, String> mViewKeys = new WeakHashMap<>();
+    // 正在进行的请求，只在主线程访问
+    private final HashMap<String, Request> mRequests = new HashMap<>();
+
+    public static ThumbnailLoader getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            synchronized (ThumbnailLoader.class) {
+                if (sInstance == null) {
+                    sInstance = new ThumbnailLoader(context.getApplicationContext());
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    private ThumbnailLoader(@NonNull Context context) {
+        mContext = context;
+        // 内存缓存使用最大堆内存的1/8
+        int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);
+        mMemoryCache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+        };
+        mDiskCache = new ThumbnailDiskCache(new File(context.getCacheDir(), DISK_CACHE_DIR),
+                DISK_CACHE_SIZE);
+        mScheduler = new ThumbnailScheduler(ThumbnailScheduler.defaultThreadCount(), runnable ->
+                new Thread(() -> {
+                    android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, TAG));
+        mMainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * 加载缩略图
+     * @param imageView     显示的widget
+     * @param uri           媒体uri
+     * @param size          缩略图边长
+     * @param placeholder   占位图
+     * @param error         加载失败时显示的图片
+     */
+    public void load(@NonNull ImageView imageView, @NonNull Uri uri, int size,
+                     @DrawableRes int placeholder, @DrawableRes int error) {
+        String key = getKey(uri, size);
+        detach(imageView, key);
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap != null) {
+            mViewKeys.remove(imageView);
+            imageView.setImageBitmap(bitmap);
+            return;
+        }
+        if (placeholder != 0) {
+            imageView.setImageResource(placeholder);
+        } else {
+            imageView.setImageDrawable(null);
+        }
+        mViewKeys.put(imageView, key);
+        Request request = mRequests.get(key);
+        if (request == null) {
+            request = new Request(key, uri, size, ThumbnailTask.PRIORITY_VISIBLE);
+            mRequests.put(key, request);
+            mScheduler.submit(request);
+        } else {
+            // 已经在预取，提升为可见优先级
+            mScheduler.promote(request);
+        }
+        request.addTarget(imageView, error);
+    }
+
+    /**
+     * 预取缩略图到内存缓存中
+     * @param uri   媒体uri
+     * @param size  缩略图边长
+     */
+    public void prefetch(@NonNull Uri uri, int size) {
+        String key = getKey(uri, size);
+        if (mRequests.containsKey(key) || mMemoryCache.get(key) != null) {
+            return;
+        }
+        Request request = new Request(key, uri, size, ThumbnailTask.PRIORITY_PREFETCH);
+        mRequests.put(key, request);
+        mScheduler.submit(request);
+    }
+
+    /**
+     * 取消ImageView的请求，比如条目被回收时
+     */
+    public void cancel(@NonNull ImageView imageView) {
+        detach(imageView, null);
+    }
+
+    /**
+     * 取消之前提交的预取请求，滑动方向变化或者页面销毁时调用
+     */
+    public void cancelPrefetch() {
+        mScheduler.cancelPrefetch();
+    }
+
+    /**
+     * 解除ImageView与之前请求的关联，请求不再有ImageView等待时取消
+     */
+    private void detach(@NonNull ImageView imageView, @Nullable String key) {
+        String oldKey = mViewKeys.get(imageView);
+        if (oldKey == null || oldKey.equals(key)) {
+            return;
+        }
+        mViewKeys.remove(imageView);
+        Request request = mRequests.get(oldKey);
+        if (request == null) {
+            return;
+        }
+        request.removeTarget(imageView);
+        if (!request.hasTarget()) {
+            mScheduler.cancel(request);
+            mRequests.remove(oldKey);
+        }
+    }
+
+    /**
+     * 在主线程中分发解码结果
+     */
+    private void deliver(@NonNull Request request, @Nullable Bitmap bitmap) {
+        if (mRequests.get(request.mKey) == request) {
+            mRequests.remove(request.mKey);
+        }
+        for (Target target : request.mTargets) {
+            ImageView imageView = target.mView.get();
+            if (imageView == null || !request.mKey.equals(mViewKeys.get(imageView))) {
+                continue;
+            }
+            mViewKeys.remove(imageView);
+            if (bitmap != null) {
+                imageView.setImageBitmap(bitmap);
+            } else if (target.mError != 0) {
+                imageView.setImageResource(target.mError);
+            }
+        }
+    }
+
+    /**
+     * 请求没有执行，还有ImageView等待时重新以可见优先级提交
+     */
+    private void onRequestSkipped(@NonNull Request request) {
+        if (mRequests.get(request.mKey) != request) {
+            return;
+        }
+        if (request.hasTarget() && !request.isCancelled()) {
+            request.mPriority = ThumbnailTask.PRIORITY_VISIBLE;
+            mScheduler.submit(request);
+        } else {
+            mRequests.remove(request.mKey);
+        }
+    }
+
+    /**
+     * 读取磁盘缓存
+     */
+    @Nullable
+    private Bitmap decodeDiskCache(@NonNull Request request) {
+        File file = mDiskCache.get(request.mKey);
+        if (file == null) {
+            return null;
+        }
+        return BitmapFactory.decodeFile(file.getPath());
+    }
+
+    /**
+     * 从原图解码
+     */
+    @Nullable
+    private Bitmap decodeSource(@NonNull Request request) {
+        try {
+            return ThumbnailDecoder.decode(mContext, request.mUri, request.mSize);
+        } catch (Exception e) {
+            Log.w(TAG, "decode thumbnail failed: " + request.mUri, e);
+            return null;
+        }
+    }
+
+    private void writeDiskCache(@NonNull Request request, @NonNull Bitmap bitmap) {
+        mDiskCache.put(request.mKey, output -> bitmap.compress(getCompressFormat(),
+                JPEG_QUALITY, output));
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat getCompressFormat() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return Bitmap.CompressFormat.WEBP_LOSSY;
+        }
+        return Bitmap.CompressFormat.JPEG;
+    }
+
+    private static String getKey(@NonNull Uri uri, int size) {
+        return uri.toString() + "_" + size;
+    }
+
+    /**
+     * 等待结果的ImageView
+     */
+    private static final class Target {
+
+        final WeakReference<ImageView> mView;
+        final int mError;
+
+        Target(@NonNull ImageView view, int error) {
+            mView = new WeakReference<>(view);
+            mError = error;
+        }
+    }
+
+    /**
+     * 解码请求，同一个key的多个ImageView共用一个请求
+     */
+    private final class Request extends ThumbnailTask {
+
+        final String mKey;
+        final Uri mUri;
+        final int mSize;
+        // 只在主线程访问
+        final List<Target> mTargets = new ArrayList<>(1);
+
+        Request(@NonNull String key, @NonNull Uri uri, int size, int priority) {
+            super(priority);
+            mKey = key;
+            mUri = uri;
+            mSize = size;
+        }
+
+        void addTarget(@NonNull ImageView view, int error) {
+            removeTarget(view);
+            mTargets.add(new Target(view, error));
+        }
+
+        void removeTarget(@NonNull ImageView view) {
+            for (int i = mTargets.size() - 1; i >= 0; i--) {
+                ImageView target = mTargets.get(i).mView.get();
+                if (target == null || target == view) {
+                    mTargets.remove(i);
+                }
+            }
+        }
+
+        boolean hasTarget() {
+            return !mTargets.isEmpty();
+        }
+
+        @Override
+        protected void execute() {
+            Bitmap cached = decodeDiskCache(this);
+            // 磁盘缓存没有命中，等待期间被取消时不再解码原图
+            final Bitmap bitmap = cached != null || isCancelled() ? cached : decodeSource(this);
+            if (bitmap != null) {
+                mMemoryCache.put(mKey, bitmap);
+            }
+            mMainHandler.post(() -> deliver(this, bitmap));
+            // 先显示再写磁盘缓存
+            if (cached == null && bitmap != null) {
+                writeDiskCache(this, bitmap);
+            }
+        }
+
+        @Override
+        protected void onSkipped() {
+            mMainHandler.post(() -> onRequestSkipped(this));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.cgfay.picker.thumbnail;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.cgfay.picker.loader.MediaLoader;
+
+/**
+ * 列表滑动时预取滑动方向上即将可见的缩略图
+ * 滑动方向变化时取消之前方向上的预取，避免解码线程被用不到的缩略图占满。
+ */
+public class ThumbnailPrefetcher extends RecyclerView.OnScrollListener {
+
+    /**
+     * 根据位置获取媒体uri
+     */
+    public interface UriProvider {
+
+        @Nullable
+        Uri getUri(int position);
+    }
+
+    private final Context mContext;
+    private final MediaLoader mMediaLoader;
+    private final UriProvider mUriProvider;
+    private final PrefetchWindow mWindow;
+    private int mResize;
+
+    /**
+     * @param context
+     * @param loader    缩略图加载器
+     * @param count     每次预取的条目数
+     * @param provider  uri获取
+     */
+    public ThumbnailPrefetcher(@NonNull Context context, @NonNull MediaLoader loader, int count,
+                               @NonNull UriProvider provider) {
+        mContext = context;
+        mMediaLoader = loader;
+        mUriProvider = provider;
+        mWindow = new PrefetchWindow(count);
+    }
+
+    /**
+     * 设置缩略图的大小，需要与加载时的大小一致
+     * @param resize
+     */
+    public void setThumbnailResize(int resize) {
+        mResize = resize;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy == 0 || mResize <= 0
+                || !(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) {
+            return;
+        }
+        LinearLayoutManager manager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int direction = dy > 0 ? PrefetchWindow.DIRECTION_FORWARD : PrefetchWindow.DIRECTION_BACKWARD;
+        if (mWindow.isDirectionChanged(direction)) {
+            mMediaLoader.cancelPreload();
+        }
+        if (!mWindow.update(manager.findFirstVisibleItemPosition(),
+                manager.findLastVisibleItemPosition(), manager.getItemCount(), direction)) {
+            return;
+        }
+        for (int i = 0; i < mWindow.size(); i++) {
+            Uri uri = mUriProvider.getUri(mWindow.getPosition(i));
+            if (uri != null) {
+                mMediaLoader.preloadThumbnail(mContext, uri, mResize);
+            }
+        }
+    }
+
+    /**
+     * 数据变化时重置预取区域
+     */
+    public void reset() {
+        mWindow.reset();
+        mMediaLoader.cancelPreload();
+    }
+}
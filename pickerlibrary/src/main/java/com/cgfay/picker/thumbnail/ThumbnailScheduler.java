@@ -0,0 +1,102 @@
+package com.cgfay.picker.thumbnail;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缩略图解码线程池
+ * 线程数不超过CPU核数，留一个核给主线程；任务放在优先级队列中，参考ThumbnailTask的排序。
+ * 预取任务带有提交时的批次，滑动方向变化时调用cancelPrefetch，之前批次的预取任务出队后直接跳过。
+ * 核心线程预先启动且不超时回收，线程池不会把任务直接交给新建的线程，所有任务都经过优先级队列。
+ */
+public final class ThumbnailScheduler {
+
+    // 线程数上限，解码主要受限于IO和内存带宽，线程太多没有收益
+    private static final int MAX_THREADS = 4;
+
+    private final PriorityBlockingQueue<Runnable> mQueue = new PriorityBlockingQueue<>();
+    private final ThreadPoolExecutor mExecutor;
+    private final AtomicLong mSequence = new AtomicLong();
+    private final AtomicInteger mGeneration = new AtomicInteger();
+
+    /**
+     * 根据CPU核数计算解码线程数
+     */
+    public static int defaultThreadCount() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(cores - 1, MAX_THREADS));
+    }
+
+    public ThumbnailScheduler(int threads, @NonNull ThreadFactory threadFactory) {
+        mExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                mQueue, threadFactory);
+        // 线程数不足核心线程数时execute会把任务交给新线程直接执行，跳过优先级队列
+        mExecutor.prestartAllCoreThreads();
+    }
+
+    /**
+     * 提交任务
+     */
+    public void submit(@NonNull ThumbnailTask task) {
+        task.mScheduler = this;
+        task.mSequence = mSequence.incrementAndGet();
+        task.mGeneration = mGeneration.get();
+        mExecutor.execute(task);
+    }
+
+    /**
+     * 把排队中的任务提升为可见优先级
+     * @return 任务还在排队时返回true，已经开始执行时返回false
+     */
+    public boolean promote(@NonNull ThumbnailTask task) {
+        if (task.mPriority == ThumbnailTask.PRIORITY_VISIBLE) {
+            return true;
+        }
+        if (!mQueue.remove(task)) {
+            return false;
+        }
+        task.mPriority = ThumbnailTask.PRIORITY_VISIBLE;
+        submit(task);
+        return true;
+    }
+
+    /**
+     * 取消任务，还在排队时从队列中移除
+     * @return 是否从队列中移除
+     */
+    public boolean cancel(@NonNull ThumbnailTask task) {
+        task.cancel();
+        return mQueue.remove(task);
+    }
+
+    /**
+     * 之前提交的预取任务全部过期
+     */
+    public void cancelPrefetch() {
+        mGeneration.incrementAndGet();
+    }
+
+    boolean isStale(@NonNull ThumbnailTask task) {
+        return task.mGeneration != mGeneration.get();
+    }
+
+    /**
+     * 排队中的任务数
+     */
+    public int getQueuedCount() {
+        return mQueue.size();
+    }
+
+    /**
+     * 停止线程池
+     */
+    public void shutdown() {
+        mExecutor.shutdownNow();
+    }
+}
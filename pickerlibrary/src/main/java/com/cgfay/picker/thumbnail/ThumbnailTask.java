@@ -0,0 +1,74 @@
+package com.cgfay.picker.thumbnail;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 缩略图解码任务，在ThumbnailScheduler的线程池中按优先级执行
+ * 可见的请求先于预取的请求执行；可见请求后提交的先执行，快速滑动时优先解码当前停留位置的缩略图；
+ * 预取请求按提交顺序执行，提交时已经按离可见区域的距离排好序。
+ * 任务排队时不能修改优先级，需要先从队列中移除，参考ThumbnailScheduler.promote。
+ */
+public abstract class ThumbnailTask implements Runnable, Comparable<ThumbnailTask> {
+
+    // 当前可见的条目
+    public static final int PRIORITY_VISIBLE = 0;
+    // 滑动方向上即将可见的条目
+    public static final int PRIORITY_PREFETCH = 1;
+
+    volatile int mPriority;
+    volatile long mSequence;
+    volatile int mGeneration;
+    volatile boolean mCancelled;
+    ThumbnailScheduler mScheduler;
+
+    protected ThumbnailTask(int priority) {
+        mPriority = priority;
+    }
+
+    public int getPriority() {
+        return mPriority;
+    }
+
+    /**
+     * 取消任务，还没有开始执行时不再执行
+     */
+    public void cancel() {
+        mCancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public final void run() {
+        if (mCancelled || (mPriority == PRIORITY_PREFETCH && mScheduler.isStale(this))) {
+            onSkipped();
+            return;
+        }
+        execute();
+    }
+
+    /**
+     * 在工作线程中执行解码
+     */
+    protected abstract void execute();
+
+    /**
+     * 任务被取消或者预取已经过期，没有执行，在工作线程中回调
+     */
+    protected void onSkipped() {
+
+    }
+
+    @Override
+    public int compareTo(@NonNull ThumbnailTask other) {
+        if (mPriority != other.mPriority) {
+            return mPriority < other.mPriority ? -1 : 1;
+        }
+        if (mPriority == PRIORITY_VISIBLE) {
+            return Long.compare(other.mSequence, mSequence);
+        }
+        return Long.compare(mSequence, other.mSequence);
+    }
+}
@@ -13,11 +13,13 @@ import android.media.MediaFormat;
 import android.net.Uri;
 import android.provider.MediaStore;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import android.text.TextUtils;
 import android.util.DisplayMetrics;
 import android.util.Log;
 
+import com.cgfay.picker.cache.MediaMetadataCache;
 import com.cgfay.picker.model.MediaData;
 
 import java.io.BufferedInputStream;
@@ -32,6 +34,11 @@ import java.text.NumberFormat;
 import java.util.Locale;
 import java.util.Objects;
 
+import io.reactivex.Completable;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+
 public final class MediaMetadataUtils {
     private static final String TAG = MediaMetadataUtils.class.getSimpleName();
     private static final int MAX_WIDTH = 2160;
@@ -42,13 +49,47 @@ public final class MediaMetadataUtils {
     }
 
     /**
-     * 构建图片宽高信息
+     * 在后台线程中构建宽高信息，完成后在主线程中回调
+     * 读写缓存和解析文件都不在主线程中进行，已经有宽高时直接回调
+     * @param context
+     * @param mediaData
+     * @param callback  主线程回调，解析失败时同样回调
+     * @return 还没完成的任务，条目被复用时需要取消；直接回调时返回null
+     */
+    @Nullable
+    public static Disposable buildMetadataAsync(@NonNull Context context, @NonNull MediaData mediaData,
+                                                @NonNull Runnable callback) {
+        if (mediaData.getWidth() > 0 && mediaData.getHeight() > 0) {
+            callback.run();
+            return null;
+        }
+        Context appContext = context.getApplicationContext();
+        return Completable.fromAction(() -> {
+                    if (mediaData.isImage()) {
+                        buildImageMetadata(appContext, mediaData);
+                    } else {
+                        buildVideoMetadata(appContext, mediaData);
+                    }
+                })
+                .subscribeOn(Schedulers.io())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(callback::run, throwable -> {
+                    Log.w(TAG, "build metadata failed: " + mediaData.getContentUri(), throwable);
+                    callback.run();
+                });
+    }
+
+    /**
+     * 构建图片宽高信息，优先使用缓存，需要在工作线程中调用
      * @param mediaData
      */
     public static void buildImageMetadata(@NonNull Context context, @NonNull MediaData mediaData) {
         if (mediaData.getWidth() > 0 && mediaData.getHeight() > 0) {
             return;
         }
+        if (applyCachedSize(context, mediaData)) {
+            return;
+        }
         String path = getPath(context.getContentResolver(), mediaData.getContentUri());
         if (TextUtils.isEmpty(path)) {
             return;
@@ -62,6 +103,7 @@ public final class MediaMetadataUtils {
             BitmapFactory.decodeStream(bis, null, options);
             mediaData.setWidth(options.outWidth);
             mediaData.setHeight(options.outHeight);
+            cacheSize(context, mediaData);
         } catch (FileNotFoundException e) {
             Log.w(TAG, Objects.requireNonNull(e.getLocalizedMessage()));
         } finally {
@@ -76,16 +118,48 @@ public final class MediaMetadataUtils {
     }
 
     /**
-     * 构建视频宽高信息
+     * 构建视频宽高信息，优先使用缓存，需要在工作线程中调用
      * @param mediaData
      */
     public static void buildVideoMetadata(@NonNull Context context, @NonNull MediaData mediaData) {
         if (mediaData.getWidth() > 0 && mediaData.getHeight() > 0) {
             return;
         }
+        if (applyCachedSize(context, mediaData)) {
+            return;
+        }
         int[] size = getDimensions(getPath(context.getContentResolver(), mediaData.getContentUri()));
         mediaData.setWidth(size[0]);
         mediaData.setHeight(size[1]);
+        cacheSize(context, mediaData);
+    }
+
+    /**
+     * 从缓存中读取宽高
+     * @return 缓存中有宽高时返回true
+     */
+    private static boolean applyCachedSize(@NonNull Context context, @NonNull MediaData mediaData) {
+        MediaMetadataCache.Entry entry = MediaMetadataCache.getInstance(context)
+                .get(mediaData.getId(), mediaData.getDateModified(), mediaData.getSize());
+        if (entry == null || entry.width <= 0 || entry.height <= 0) {
+            return false;
+        }
+        mediaData.setWidth(entry.width);
+        mediaData.setHeight(entry.height);
+        return true;
+    }
+
+    /**
+     * 把解析出来的宽高写入缓存，不单独写磁盘，跟解析队列空闲或者扫描结束时一起写入
+     */
+    private static void cacheSize(@NonNull Context context, @NonNull MediaData mediaData) {
+        if (mediaData.getWidth() <= 0 || mediaData.getHeight() <= 0) {
+            return;
+        }
+        MediaMetadataCache cache = MediaMetadataCache.getInstance(context);
+        cache.put(mediaData.getId(), mediaData.getDateModified(), mediaData.getSize(),
+                mediaData.getDurationMs(), mediaData.getWidth(), mediaData.getHeight(),
+                mediaData.getOrientation());
     }
 
     private static int[] getDimensions(String path) {
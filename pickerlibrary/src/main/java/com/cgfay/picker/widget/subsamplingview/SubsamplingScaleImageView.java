@@ -44,6 +44,7 @@ import android.net.Uri;
 import android.os.AsyncTask;
 import android.os.Build.VERSION;
 import android.os.Handler;
+import android.os.Looper;
 import android.os.Message;
 import android.provider.MediaStore;
 import androidx.annotation.NonNull;
@@ -59,8 +60,12 @@ import com.cgfay.picker.widget.subsamplingview.decoder.CompatDecoderFactory;
 import com.cgfay.picker.widget.subsamplingview.decoder.DecoderFactory;
 import com.cgfay.picker.widget.subsamplingview.decoder.ImageDecoder;
 import com.cgfay.picker.widget.subsamplingview.decoder.ImageRegionDecoder;
+import com.cgfay.picker.widget.subsamplingview.decoder.RegionDecoderPool;
 import com.cgfay.picker.widget.subsamplingview.decoder.SkiaImageDecoder;
 import com.cgfay.picker.widget.subsamplingview.decoder.SkiaImageRegionDecoder;
+import com.cgfay.picker.widget.subsamplingview.tile.TileCache;
+import com.cgfay.picker.widget.subsamplingview.tile.TileRequest;
+import com.cgfay.picker.widget.subsamplingview.tile.TileScheduler;
 import com.cgfay.scan.BuildConfig;
 import com.cgfay.scan.R;
 
@@ -175,6 +180,25 @@ public class SubsamplingScaleImageView extends View {
   private static final List<Integer> VALID_SCALE_TYPES = Arrays.asList(SCALE_TYPE_CENTER_CROP,
       SCALE_TYPE_CENTER_INSIDE, SCALE_TYPE_CUSTOM);
 
+  // Fraction of the heap used to keep decoded tiles that are not displayed, shared by all views
+  private static final int TILE_CACHE_DIVISOR = 16;
+
+  // Decoded tiles that are off screen or at another zoom level. Shared so that several views,
+  // such as the pages of a preview pager, stay within one budget. Tiles are keyed by instance,
+  // each view evicts its own tiles on reset. UI thread only.
+  private static final TileCache<Tile, Bitmap> sharedTileCache =
+      new TileCache<Tile, Bitmap>(Runtime.getRuntime().maxMemory() / TILE_CACHE_DIVISOR) {
+        @Override
+        protected long sizeOf(@NonNull Bitmap value) {
+          return value.getAllocationByteCount();
+        }
+
+        @Override
+        protected void onEvicted(@NonNull Tile key, @NonNull Bitmap value) {
+          value.recycle();
+        }
+      };
+
   // Bitmap (preview or full image)
   private Bitmap bitmap;
 
@@ -266,7 +290,9 @@ public class SubsamplingScaleImageView extends View {
 
   // Tile and image decoding
   private ImageRegionDecoder decoder;
-  private final Object decoderLock = new Object();
+  // Region decoders over the same source, one per decode thread
+  private RegionDecoderPool decoderPool;
+  private final TileScheduler tileScheduler = TileScheduler.getDefault();
   private DecoderFactory<? extends ImageDecoder> bitmapDecoderFactory =
       new CompatDecoderFactory<ImageDecoder>(SkiaImageDecoder.class);
   private DecoderFactory<? extends ImageRegionDecoder> regionDecoderFactory =
@@ -544,11 +570,14 @@ public class SubsamplingScaleImageView extends View {
     sRect = null;
     if (newImage) {
       uri = null;
-      if (decoder != null) {
-        synchronized (decoderLock) {
-          decoder.recycle();
-          decoder = null;
-        }
+      if (decoderPool != null) {
+        // The pool owns the decoder and recycles busy decoders when their tile is done
+        decoderPool.recycle();
+        decoderPool = null;
+        decoder = null;
+      } else if (decoder != null) {
+        decoder.recycle();
+        decoder = null;
       }
       if (bitmap != null && !bitmapIsCached) {
         bitmap.recycle();
@@ -567,11 +596,20 @@ public class SubsamplingScaleImageView extends View {
     if (tileMap != null) {
       for (Map.Entry<Integer, List<Tile>> tileMapEntry : tileMap.entrySet()) {
         for (Tile tile : tileMapEntry.getValue()) {
+          if (tile.request != null) {
+            tileScheduler.cancel(tile.request);
+            tile.request = null;
+          }
+          tile.discarded = true;
           tile.visible = false;
           if (tile.bitmap != null) {
             tile.bitmap.recycle();
             tile.bitmap = null;
           }
+          Bitmap cached = sharedTileCache.remove(tile);
+          if (cached != null) {
+            cached.recycle();
+          }
         }
       }
       tileMap = null;
@@ -1258,11 +1296,14 @@ public class SubsamplingScaleImageView extends View {
     } else {
 
       initialiseTileMap(maxTileDimensions);
+      if (decoderPool == null) {
+        decoderPool = new RegionDecoderPool(getContext(), uri, regionDecoderFactory, decoder,
+            tileScheduler.getThreadCount());
+      }
 
       List<Tile> baseGrid = tileMap.get(fullImageSampleSize);
       for (Tile baseTile : baseGrid) {
-        TileLoadTask task = new TileLoadTask(this, decoder, baseTile);
-        execute(task);
+        loadTile(baseTile);
       }
       refreshRequiredTiles(true);
 
@@ -1273,11 +1314,11 @@ public class SubsamplingScaleImageView extends View {
   /**
    * Loads the optimum tiles for display at the current scale and translate, so the screen can be
    * filled with tiles
-   * that are at least as high resolution as the screen. Frees up bitmaps that are now off the
-   * screen.
+   * that are at least as high resolution as the screen. Tiles that are now off the screen are
+   * cancelled if still queued, and their bitmaps are moved to the tile cache.
    *
    * @param load Whether to load the new tiles needed. Use false while scrolling/panning for
-   *          performance.
+   *          performance. Cached tiles are restored either way.
    */
   private void refreshRequiredTiles(boolean load) {
     if (decoder == null || tileMap == null) {
@@ -1285,8 +1326,9 @@ public class SubsamplingScaleImageView extends View {
     }
 
     int sampleSize = Math.min(fullImageSampleSize, calculateInSampleSize(scale));
+    boolean restored = false;
 
-    // Load tiles of the correct sample size that are on screen. Discard tiles off screen, and those
+    // Load tiles of the correct sample size that are on screen. Release tiles off screen, and those
     // that are higher
     // resolution than required, or lower res than required but not the base layer, so the base
     // layer is always present.
@@ -1295,33 +1337,100 @@ public class SubsamplingScaleImageView extends View {
         if (tile.sampleSize < sampleSize
             || (tile.sampleSize > sampleSize && tile.sampleSize != fullImageSampleSize)) {
           tile.visible = false;
-          if (tile.bitmap != null) {
-            tile.bitmap.recycle();
-            tile.bitmap = null;
-          }
+          releaseTile(tile);
         }
         if (tile.sampleSize == sampleSize) {
           if (tileVisible(tile)) {
             tile.visible = true;
-            if (!tile.loading && tile.bitmap == null && load) {
-              TileLoadTask task = new TileLoadTask(this, decoder, tile);
-              execute(task);
+            if (tile.bitmap == null) {
+              restored |= restoreTile(tile);
+              if (tile.bitmap == null && load) {
+                loadTile(tile);
+              }
             }
           } else if (tile.sampleSize != fullImageSampleSize) {
             tile.visible = false;
-            if (tile.bitmap != null) {
-              tile.bitmap.recycle();
-              tile.bitmap = null;
-            }
+            releaseTile(tile);
           }
         } else if (tile.sampleSize == fullImageSampleSize) {
           tile.visible = true;
         }
       }
     }
+    if (restored) {
+      invalidate();
+    }
 
   }
 
+  /**
+   * Queue a tile for decoding, or update the priority of its queued request. Base layer tiles go
+   * first, then visible tiles nearest to the center of the view. Tiles that failed to decode are
+   * not retried.
+   */
+  private void loadTile(Tile tile) {
+    int priority = tile.sampleSize == fullImageSampleSize
+        ? TileRequest.PRIORITY_BASE : TileRequest.PRIORITY_VISIBLE;
+    double distance = tileDistance(tile);
+    if (tile.request != null) {
+      tileScheduler.update(tile.request, priority, distance);
+      return;
+    }
+    if (tile.loading || tile.bitmap != null || decoderPool == null) {
+      return;
+    }
+    tile.request = new TileLoadTask(this, decoderPool, tile, priority, distance);
+    tile.loading = true;
+    tileScheduler.submit(tile.request);
+  }
+
+  /**
+   * Take the tile bitmap back from the tile cache.
+   *
+   * @return true if the tile was cached.
+   */
+  private boolean restoreTile(Tile tile) {
+    if (tile.request != null) {
+      return false;
+    }
+    Bitmap cached = sharedTileCache.remove(tile);
+    if (cached == null) {
+      return false;
+    }
+    tile.bitmap = cached;
+    return true;
+  }
+
+  /**
+   * Cancel the queued request of a tile that is no longer required and move its bitmap to the
+   * tile cache.
+   */
+  private void releaseTile(Tile tile) {
+    if (tile.request != null) {
+      tileScheduler.cancel(tile.request);
+      tile.request = null;
+      tile.loading = false;
+    }
+    if (tile.bitmap != null) {
+      sharedTileCache.put(tile, tile.bitmap);
+      tile.bitmap = null;
+    }
+  }
+
+  /**
+   * Squared distance in source pixels from the tile center to the viewport center.
+   */
+  private double tileDistance(Tile tile) {
+    float sCenterX = viewToSourceX(getWidth() / 2f);
+    float sCenterY = viewToSourceY(getHeight() / 2f);
+    if (Float.isNaN(sCenterX) || Float.isNaN(sCenterY)) {
+      return 0;
+    }
+    double dx = tile.sRect.exactCenterX() - sCenterX;
+    double dy = tile.sRect.exactCenterY() - sCenterY;
+    return dx * dx + dy * dy;
+  }
+
   /**
    * Determine whether tile is visible.
    */
@@ -1523,7 +1632,6 @@ public class SubsamplingScaleImageView extends View {
               x == xTiles - 1 ? sWidth() : (x + 1) * sTileWidth,
               y == yTiles - 1 ? sHeight() : (y + 1) * sTileHeight);
           tile.vRect = new Rect(0, 0, 0, 0);
-          tile.fileSRect = new Rect(tile.sRect);
           tileGrid.add(tile);
         }
       }
@@ -1622,6 +1730,11 @@ public class SubsamplingScaleImageView extends View {
         bitmapIsCached = false;
       }
     }
+    if (decoderPool != null) {
+      // Pool was built around the previous decoder
+      decoderPool.recycle();
+      decoderPool = null;
+    }
     this.decoder = decoder;
     this.sWidth = sWidth;
     this.sHeight = sHeight;
@@ -1633,66 +1746,103 @@ public class SubsamplingScaleImageView extends View {
   }
 
   /**
-   * Async task used to load images without blocking the UI thread.
+   * Tile decode request run by the {@link TileScheduler}, the result is delivered on the UI
+   * thread. Queued requests only hold weak references, so they never keep a view alive.
    */
-  private static class TileLoadTask extends AsyncTask<Void, Void, Bitmap> {
+  private static class TileLoadTask extends TileRequest {
+    // The view's own handler has a callback referencing the view
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
     private final WeakReference<SubsamplingScaleImageView> viewRef;
-    private final WeakReference<ImageRegionDecoder> decoderRef;
+    private final WeakReference<RegionDecoderPool> decoderPoolRef;
     private final WeakReference<Tile> tileRef;
-    private Exception exception;
+    private final Rect fileSRect = new Rect();
 
-    public TileLoadTask(SubsamplingScaleImageView view,
-        ImageRegionDecoder decoder, Tile tile) {
-      this.viewRef =
-          new WeakReference<SubsamplingScaleImageView>(view);
-      this.decoderRef = new WeakReference<ImageRegionDecoder>(decoder);
+    public TileLoadTask(SubsamplingScaleImageView view, RegionDecoderPool decoderPool, Tile tile,
+        int priority, double distance) {
+      super(priority, distance);
+      this.viewRef = new WeakReference<SubsamplingScaleImageView>(view);
+      this.decoderPoolRef = new WeakReference<RegionDecoderPool>(decoderPool);
       this.tileRef = new WeakReference<Tile>(tile);
-      tile.loading = true;
     }
 
-    @SuppressLint("WrongThread")
     @Override
-    protected Bitmap doInBackground(Void... params) {
+    protected void execute() {
+      Bitmap bitmap = null;
+      Exception exception = null;
+      SubsamplingScaleImageView view = viewRef.get();
+      RegionDecoderPool decoderPool = decoderPoolRef.get();
+      Tile tile = tileRef.get();
+      if (view == null || decoderPool == null || tile == null) {
+        return;
+      }
+      ImageRegionDecoder decoder = null;
       try {
-        SubsamplingScaleImageView view = viewRef.get();
-        ImageRegionDecoder decoder = decoderRef.get();
-        Tile tile = tileRef.get();
-        if (decoder != null && tile != null && view != null && decoder.isReady() && tile.visible) {
-          synchronized (view.decoderLock) {
-            // Update tile's file sRect according to rotation
-            view.fileSRect(tile.sRect, tile.fileSRect);
-            if (view.sRegion != null) {
-              tile.fileSRect.offset(view.sRegion.left, view.sRegion.top);
-            }
-            Log.d(TAG, "TileLoadTask load" + tile.fileSRect);
-            return decoder.decodeRegion(tile.fileSRect, tile.sampleSize);
+        decoder = decoderPool.acquire();
+        if (decoder != null && decoder.isReady() && !isCancelled()) {
+          // Update tile's file sRect according to rotation
+          view.fileSRect(tile.sRect, fileSRect);
+          if (view.sRegion != null) {
+            fileSRect.offset(view.sRegion.left, view.sRegion.top);
           }
-        } else if (tile != null) {
-          tile.loading = false;
+          Log.d(TAG, "TileLoadTask load" + fileSRect);
+          bitmap = decoder.decodeRegion(fileSRect, tile.sampleSize);
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       } catch (Exception e) {
         Log.e(TAG, "Failed to decode tile", e);
-        this.exception = e;
+        exception = e;
       } catch (OutOfMemoryError e) {
         Log.e(TAG, "Failed to decode tile - OutOfMemoryError", e);
-        this.exception = new RuntimeException(e);
+        exception = new RuntimeException(e);
+      } finally {
+        if (decoder != null) {
+          decoderPool.release(decoder);
+        }
       }
-      return null;
+      final Bitmap result = bitmap;
+      final Exception error = exception;
+      mainHandler.post(() -> {
+        SubsamplingScaleImageView target = viewRef.get();
+        Tile targetTile = tileRef.get();
+        if (target != null && targetTile != null) {
+          target.onTileDecoded(this, targetTile, result, error);
+        } else if (result != null) {
+          result.recycle();
+        }
+      });
     }
+  }
 
-    @Override
-    protected void onPostExecute(Bitmap bitmap) {
-      final SubsamplingScaleImageView subsamplingScaleImageView =
-          viewRef.get();
-      final Tile tile = tileRef.get();
-      if (subsamplingScaleImageView != null && tile != null) {
-        if (bitmap != null) {
-          tile.bitmap = bitmap;
-          tile.loading = false;
-          subsamplingScaleImageView.onTileLoaded();
-        } else if (exception != null && subsamplingScaleImageView.onImageEventListener != null) {
-          subsamplingScaleImageView.onImageEventListener.onTileLoadError(exception);
-        }
+  /**
+   * Called on the UI thread when a tile request has finished.
+   */
+  private void onTileDecoded(TileLoadTask task, Tile tile, Bitmap bitmap, Exception exception) {
+    if (tile.request == task) {
+      tile.request = null;
+      if (bitmap != null) {
+        tile.bitmap = bitmap;
+        tile.loading = false;
+        onTileLoaded();
+      } else if (exception != null && onImageEventListener != null) {
+        onImageEventListener.onTileLoadError(exception);
+      } else if (exception == null) {
+        // Decoder was recycled or the request was interrupted, allow loading again
+        tile.loading = false;
+      }
+    } else if (bitmap != null) {
+      // Cancelled while decoding, keep the result unless the tile map is gone
+      if (tile.discarded) {
+        bitmap.recycle();
+      } else if (tile.visible && tile.bitmap == null && tile.request == null) {
+        tile.bitmap = bitmap;
+        tile.loading = false;
+        onTileLoaded();
+      } else if (tile.bitmap == null) {
+        sharedTileCache.put(tile, bitmap);
+      } else {
+        bitmap.recycle();
       }
     }
   }
@@ -1912,10 +2062,13 @@ public class SubsamplingScaleImageView extends View {
     private Bitmap bitmap;
     private boolean loading;
     private boolean visible;
+    // Queued or running decode request
+    private TileLoadTask request;
+    // Tile map was reset, results for this tile are dropped
+    private boolean discarded;
 
     // Volatile fields instantiated once then updated before use to reduce GC.
     private Rect vRect;
-    private Rect fileSRect;
 
   }
 
@@ -2773,6 +2926,9 @@ public class SubsamplingScaleImageView extends View {
    * is a possibility that it will make the tile loading unreliable, but it reduces the chances of
    * an app's background processes blocking loading.
    *
+   * Tiles are always decoded by the {@link TileScheduler}, one region decoder per thread, so
+   * this only affects loading the image details and full size bitmaps.
+   *
    * @param parallelLoadingEnabled Whether to run AsyncTasks using a thread pool executor.
    */
   public void setParallelLoadingEnabled(boolean parallelLoadingEnabled) {
@@ -27,9 +27,8 @@ public interface ImageRegionDecoder {
 
     /**
      * Decode a region of the image with the given sample size. This method is called off the UI thread so it can safely
-     * load the image on the current thread. It is called from an {@link android.os.AsyncTask} running in a single
-     * threaded executor, and while a synchronization lock is held on this object, so will never be called concurrently
-     * even if the decoder implementation supports it.
+     * load the image on the current thread. Tiles are decoded on several threads through a
+     * {@link RegionDecoderPool} holding one instance per thread, so an instance is never called concurrently.
      * @param sRect Source image rectangle to decode.
      * @param sampleSize Sample size.
      * @return The decoded region. I t is safe to return null if decoding fails.
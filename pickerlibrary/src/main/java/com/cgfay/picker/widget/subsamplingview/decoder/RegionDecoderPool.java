@@ -0,0 +1,123 @@
+package com.cgfay.picker.widget.subsamplingview.decoder;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+
+/**
+ * A pool of region decoders over the same source, so tiles can be decoded on several threads.
+ * Each decoder is used by one thread at a time. The first decoder is the one created when the
+ * image was initialised, the others are created lazily on the worker threads the first time the
+ * pool runs dry, up to the maximum size.
+ */
+public class RegionDecoderPool {
+
+  private static final String TAG = RegionDecoderPool.class.getSimpleName();
+
+  private final Context context;
+  private final Uri uri;
+  private final DecoderFactory<? extends ImageRegionDecoder> factory;
+  private final ArrayDeque<ImageRegionDecoder> idle = new ArrayDeque<>();
+  private int maxSize;
+  private int created;
+  private boolean recycled;
+
+  /**
+   * @param decoder The initialised decoder, owned by the pool from now on.
+   * @param maxSize Maximum number of decoders, usually the number of decode threads.
+   */
+  public RegionDecoderPool(@NonNull Context context, @NonNull Uri uri,
+      @NonNull DecoderFactory<? extends ImageRegionDecoder> factory,
+      @NonNull ImageRegionDecoder decoder, int maxSize) {
+    this.context = context.getApplicationContext();
+    this.uri = uri;
+    this.factory = factory;
+    this.maxSize = Math.max(1, maxSize);
+    idle.add(decoder);
+    created = 1;
+  }
+
+  /**
+   * Take a decoder, creating one or waiting for one to be released if none is idle.
+   *
+   * @return null if the pool has been recycled.
+   */
+  @Nullable
+  public ImageRegionDecoder acquire() throws InterruptedException {
+    synchronized (this) {
+      while (true) {
+        if (recycled) {
+          return null;
+        }
+        if (!idle.isEmpty()) {
+          return idle.poll();
+        }
+        if (created < maxSize) {
+          created++;
+          break;
+        }
+        wait();
+      }
+    }
+    // Create outside the lock, initialising a decoder reads the source
+    ImageRegionDecoder decoder = null;
+    try {
+      decoder = factory.make();
+      decoder.init(context, uri);
+      return decoder;
+    } catch (Exception e) {
+      Log.w(TAG, "Failed to create an additional region decoder", e);
+      if (decoder != null) {
+        decoder.recycle();
+      }
+      synchronized (this) {
+        // Don't try again, keep using the decoders that work
+        created--;
+        maxSize = created;
+      }
+      return acquire();
+    }
+  }
+
+  /**
+   * Return a decoder taken with {@link #acquire()}.
+   */
+  public void release(@NonNull ImageRegionDecoder decoder) {
+    synchronized (this) {
+      if (!recycled) {
+        idle.add(decoder);
+        notify();
+        return;
+      }
+    }
+    decoder.recycle();
+  }
+
+  /**
+   * Whether the pool can still decode.
+   */
+  public synchronized boolean isReady() {
+    return !recycled;
+  }
+
+  /**
+   * Recycle the idle decoders now and the busy ones when they are released.
+   */
+  public void recycle() {
+    ImageRegionDecoder[] decoders;
+    synchronized (this) {
+      recycled = true;
+      decoders = idle.toArray(new ImageRegionDecoder[0]);
+      idle.clear();
+      notifyAll();
+    }
+    for (ImageRegionDecoder decoder : decoders) {
+      decoder.recycle();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.cgfay.picker.widget.subsamplingview.tile;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Byte bounded LRU of decoded tiles that are currently not displayed, so panning back or
+ * zooming back to a previous level does not decode the same region again.
+ * Values are owned by the cache until removed; evicted values are handed to
+ * {@link #onEvicted(Object, Object)} to be released. Not thread safe, use from the UI thread.
+ *
+ * @param <K> Tile key.
+ * @param <V> Decoded tile, usually a Bitmap.
+ */
+public abstract class TileCache<K, V> {
+
+  private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final long maxBytes;
+  private long bytes;
+
+  public TileCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Size of a value in bytes.
+   */
+  protected abstract long sizeOf(@NonNull V value);
+
+  /**
+   * Release a value dropped by the cache.
+   */
+  protected abstract void onEvicted(@NonNull K key, @NonNull V value);
+
+  /**
+   * Add a value, evicting the least recently used ones when over the limit. A value larger than
+   * the whole cache is evicted immediately.
+   */
+  public void put(@NonNull K key, @NonNull V value) {
+    V previous = entries.put(key, value);
+    if (previous != null) {
+      bytes -= sizeOf(previous);
+      if (previous != value) {
+        onEvicted(key, previous);
+      }
+    }
+    bytes += sizeOf(value);
+    trimToSize(maxBytes);
+  }
+
+  /**
+   * Take a value out of the cache. The caller becomes responsible for releasing it.
+   */
+  @Nullable
+  public V remove(@NonNull K key) {
+    V value = entries.remove(key);
+    if (value != null) {
+      bytes -= sizeOf(value);
+    }
+    return value;
+  }
+
+  public boolean contains(@NonNull K key) {
+    return entries.containsKey(key);
+  }
+
+  /**
+   * Evict every value.
+   */
+  public void evictAll() {
+    trimToSize(-1);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  private void trimToSize(long limit) {
+    Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+    while (bytes > limit && iterator.hasNext()) {
+      Map.Entry<K, V> eldest = iterator.next();
+      iterator.remove();
+      bytes -= sizeOf(eldest.getValue());
+      onEvicted(eldest.getKey(), eldest.getValue());
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.cgfay.picker.widget.subsamplingview.tile;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A tile decode request queued in a {@link TileScheduler}. Base layer tiles are decoded first
+ * because nothing can be drawn without them, then visible tiles nearest to the viewport center.
+ * Requests with the same priority and distance run in submission order.
+ * Priority and distance must not change while the request is queued, use
+ * {@link TileScheduler#update(TileRequest, int, double)} instead.
+ */
+public abstract class TileRequest implements Runnable, Comparable<TileRequest> {
+
+  // Lowest resolution layer covering the whole image
+  public static final int PRIORITY_BASE = 0;
+  // Tile at the current sample size inside the viewport
+  public static final int PRIORITY_VISIBLE = 1;
+
+  volatile int priority;
+  volatile double distance;
+  volatile long sequence;
+  private volatile boolean cancelled;
+
+  /**
+   * @param priority One of the PRIORITY constants.
+   * @param distance Squared distance from the tile center to the viewport center.
+   */
+  protected TileRequest(int priority, double distance) {
+    this.priority = priority;
+    this.distance = distance;
+  }
+
+  public int getPriority() {
+    return priority;
+  }
+
+  public double getDistance() {
+    return distance;
+  }
+
+  /**
+   * Cancel the request. It will be skipped if it has not started yet, a running decode is
+   * not interrupted.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  @Override
+  public final void run() {
+    if (cancelled) {
+      onCancelled();
+      return;
+    }
+    execute();
+  }
+
+  /**
+   * Decode the tile on a worker thread.
+   */
+  protected abstract void execute();
+
+  /**
+   * Called on a worker thread when a cancelled request is dequeued without being executed.
+   */
+  protected void onCancelled() {}
+
+  @Override
+  public int compareTo(@NonNull TileRequest other) {
+    if (priority != other.priority) {
+      return priority < other.priority ? -1 : 1;
+    }
+    int result = Double.compare(distance, other.distance);
+    if (result != 0) {
+      return result;
+    }
+    return Long.compare(sequence, other.sequence);
+  }
+}
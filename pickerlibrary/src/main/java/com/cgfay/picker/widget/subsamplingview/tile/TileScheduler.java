@@ -0,0 +1,116 @@
+package com.cgfay.picker.widget.subsamplingview.tile;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs tile decode requests on a fixed number of worker threads, ordered by
+ * {@link TileRequest#compareTo(TileRequest)}. Queued requests can be cancelled or re-prioritised
+ * when the viewport changes so tiles that scrolled off screen never reach the decoder.
+ * The worker count should match the number of region decoders available to the requests.
+ * Core threads are started up front and never time out; below its core size the pool would hand
+ * new requests straight to a fresh worker, bypassing the priority queue.
+ */
+public class TileScheduler {
+
+  // Each region decoder keeps its own copy of the source index, so cap the number of decoders
+  private static final int MAX_THREADS = 4;
+
+  private static volatile TileScheduler defaultScheduler;
+
+  private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+  private final ThreadPoolExecutor executor;
+  private final AtomicLong sequence = new AtomicLong();
+  private final int threadCount;
+
+  /**
+   * Shared scheduler with one worker per core.
+   */
+  public static TileScheduler getDefault() {
+    if (defaultScheduler == null) {
+      synchronized (TileScheduler.class) {
+        if (defaultScheduler == null) {
+          final AtomicInteger count = new AtomicInteger();
+          defaultScheduler = new TileScheduler(defaultThreadCount(), runnable ->
+              new Thread(() -> {
+                android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+              }, "TileDecoder-" + count.incrementAndGet()));
+        }
+      }
+    }
+    return defaultScheduler;
+  }
+
+  /**
+   * One worker per core, up to {@link #MAX_THREADS}.
+   */
+  public static int defaultThreadCount() {
+    return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS));
+  }
+
+  public TileScheduler(int threadCount, @NonNull ThreadFactory threadFactory) {
+    this.threadCount = threadCount;
+    executor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.SECONDS, queue,
+        threadFactory);
+    executor.prestartAllCoreThreads();
+  }
+
+  public int getThreadCount() {
+    return threadCount;
+  }
+
+  /**
+   * Queue a request.
+   */
+  public void submit(@NonNull TileRequest request) {
+    request.sequence = sequence.incrementAndGet();
+    executor.execute(request);
+  }
+
+  /**
+   * Change the priority and distance of a queued request.
+   *
+   * @return false if the request is no longer queued, either running or finished.
+   */
+  public boolean update(@NonNull TileRequest request, int priority, double distance) {
+    if (request.priority == priority && request.distance == distance) {
+      return queue.contains(request);
+    }
+    if (!queue.remove(request)) {
+      return false;
+    }
+    request.priority = priority;
+    request.distance = distance;
+    // Keep the original order among requests that compare equal
+    executor.execute(request);
+    return true;
+  }
+
+  /**
+   * Cancel a request and remove it from the queue.
+   *
+   * @return true if the request was still queued and will never run.
+   */
+  public boolean cancel(@NonNull TileRequest request) {
+    request.cancel();
+    return queue.remove(request);
+  }
+
+  public int getQueuedCount() {
+    return queue.size();
+  }
+
+  /**
+   * Stop the worker threads. Queued requests are dropped.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
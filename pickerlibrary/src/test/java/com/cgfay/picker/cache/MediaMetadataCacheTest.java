@@ -0,0 +1,203 @@
+package com.cgfay.picker.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 媒体信息缓存测试，缓存文件放在临时目录中
+ */
+public class MediaMetadataCacheTest {
+
+    private static final String VERSION = "store-1";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File cacheFile() {
+        return new File(mFolder.getRoot(), "media_metadata");
+    }
+
+    private static long headerLength() {
+        return 4 + 4 + 2 + VERSION.length();
+    }
+
+    @Test
+    public void entriesSurviveReopen() {
+        MediaMetadataCache cache = new MediaMetadataCache(cacheFile(), VERSION, 100);
+        cache.put(1, 1000, 2048, 15000, 1920, 1080, 90);
+        cache.put(2, 2000, 4096, 0, 4000, 3000, 0);
+        cache.close();
+        assertEquals(headerLength() + 2 * MediaMetadataCache.RECORD_SIZE, cacheFile().length());
+
+        MediaMetadataCache reopened = new MediaMetadataCache(cacheFile(), VERSION, 100);
+        assertEquals(2, reopened.size());
+        MediaMetadataCache.Entry entry = reopened.get(1, 1000, 2048);
+        assertNotNull(entry);
+        assertEquals(15000, entry.durationMs);
+        assertEquals(1920, entry.width);
+        assertEquals(1080, entry.height);
+        assertEquals(90, entry.orientation);
+        entry = reopened.get(2, 2000, 4096);
+        assertNotNull(entry);
+        assertEquals(4000, entry.width);
+        assertNull(reopened.get(3, 0, 0));
+    }
+
+    @Test
+    public void changedFileIsInvalidated() {
+        MediaMetadataCache cache = new MediaMetadataCache(cacheFile(), VERSION, 100);
+        cache.put(1, 1000, 2048, 15000, 1920, 1080, 0);
+        cache.put(2, 1000, 2048, 15000, 1920, 1080, 0);
+        // 修改时间或者文件大小变化时不命中，并删除旧记录
+        assertNull(cache.get(1, 1001, 2048));
+        assertNull(cache.get(1, 1000, 2048));
+        assertNull(cache.get(2, 1000, 2049));
+        assertEquals(0, cache.size());
+
+        // 重新写入后以最后一条为准
+        cache.put(1, 1001, 2048, 16000, 1280, 720, 0);
+        cache.close();
+        MediaMetadataCache reopened = new MediaMetadataCache(cacheFile(), VERSION, 100);
+        assertEquals(3, reopened.getLogRecordCount());
+        MediaMetadataCache.Entry entry = reopened.get(1, 1001, 2048);
+        assertNotNull(entry);
+        assertEquals(16000, entry.durationMs);
+        assertNull(reopened.get(1, 1000, 2048));
+    }
+
+    @Test
+    public void storeVersionChangeDropsCache() {
+        MediaMetadataCache cache = new MediaMetadataCache(cacheFile(), VERSION, 100);
+        cache.put(1, 1000, 2048, 15000, 1920, 1080, 0);
+        cache.close();
+
+        MediaMetadataCache rebuilt = new MediaMetadataCache(cacheFile(), "store-2", 100);
+        assertNull(rebuilt.get(1, 1000, 2048));
+        assertTrue(!cacheFile().exists());
+        rebuilt.put(1, 1000, 2048, 3000, 640, 480, 0);
+        rebuilt.close();
+
+        MediaMetadataCache reopened = new MediaMetadataCache(cacheFile(), "store-2", 100);
+        assertEquals(3000, reopened.get(1, 1000, 2048).durationMs);
+    }
+
+    @Test
+    public void tornRecordIsTruncated() throws IOException {
+        MediaMetadataCache cache = new MediaMetadataCache(cacheFile(), VERSION, 100);
+        cache.put(1, 1000, 2048, 15000, 1920, 1080, 0);
+        cache.put(2, 1000, 2048, 15000, 1920, 1080, 0);
+        cache.close();
+        long length = cacheFile().length();
+        // 最后一条只写了一半
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile(), "rw")) {
+            file.setLength(length - MediaMetadataCache.RECORD_SIZE / 2);
+        }
+
+        MediaMetadataCache reopened = new MediaMetadataCache(cacheFile(), VERSION, 100);
+        assertEquals(1, reopened.size());
+        assertNull(reopened.get(2, 1000, 2048));
+        assertEquals(length - MediaMetadataCache.RECORD_SIZE, cacheFile().length());
+        // 截断之后追加的记录可以正常读到
+        reopened.put(3, 1000, 2048, 5000, 1920, 1080, 0);
+        reopened.close();
+        MediaMetadataCache again = new MediaMetadataCache(cacheFile(), VERSION, 100);
+        assertEquals(2, again.size());
+        assertEquals(5000, again.get(3, 1000, 2048).durationMs);
+    }
+
+    @Test
+    public void corruptedRecordStopsLoading() throws IOException {
+        MediaMetadataCache cache = new MediaMetadataCache(cacheFile(), VERSION, 100);
+        cache.put(1, 1000, 2048, 15000, 1920, 1080, 0);
+        cache.put(2, 1000, 2048, 15000, 1920, 1080, 0);
+        cache.close();
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile(), "rw")) {
+            long offset = headerLength() + MediaMetadataCache.RECORD_SIZE + 30;
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value ^ 0xff);
+        }
+        MediaMetadataCache reopened = new MediaMetadataCache(cacheFile(), VERSION, 100);
+        assertEquals(1, reopened.size());
+        assertNotNull(reopened.get(1, 1000, 2048));
+        assertNull(reopened.get(2, 1000, 2048));
+    }
+
+    @Test
+    public void lruEvictionKeepsRecentEntries() {
+        MediaMetadataCache cache = new MediaMetadataCache(cacheFile(), VERSION, 3);
+        cache.put(1, 1, 1, 1, 1, 1, 0);
+        cache.put(2, 2, 2, 2, 2, 2, 0);
+        cache.put(3, 3, 3, 3, 3, 3, 0);
+        // 访问1之后，最久没有使用的是2
+        assertNotNull(cache.get(1, 1, 1));
+        cache.put(4, 4, 4, 4, 4, 4, 0);
+        assertEquals(3, cache.size());
+        assertNull(cache.get(2, 2, 2));
+        assertNotNull(cache.get(1, 1, 1));
+        assertNotNull(cache.get(3, 3, 3));
+        assertNotNull(cache.get(4, 4, 4));
+        cache.close();
+
+        // 日志中不记录访问顺序，重新加载时保留最后写入的3条
+        MediaMetadataCache reopened = new MediaMetadataCache(cacheFile(), VERSION, 3);
+        assertEquals(3, reopened.size());
+        assertNull(reopened.get(1, 1, 1));
+        assertNotNull(reopened.get(2, 2, 2));
+    }
+
+    @Test
+    public void compactionKeepsAccessOrder() throws IOException {
+        MediaMetadataCache cache = new MediaMetadataCache(cacheFile(), VERSION, 3);
+        cache.put(1, 1, 1, 1, 1, 1, 0);
+        cache.put(2, 2, 2, 2, 2, 2, 0);
+        cache.put(3, 3, 3, 3, 3, 3, 0);
+        assertNotNull(cache.get(1, 1, 1));
+        cache.compact();
+        assertEquals(3, cache.getLogRecordCount());
+        cache.close();
+
+        // 压缩后按访问顺序写入，最久没有使用的是2
+        MediaMetadataCache reopened = new MediaMetadataCache(cacheFile(), VERSION, 3);
+        reopened.put(4, 4, 4, 4, 4, 4, 0);
+        assertNull(reopened.get(2, 2, 2));
+        assertNotNull(reopened.get(1, 1, 1));
+        assertNotNull(reopened.get(3, 3, 3));
+    }
+
+    @Test
+    public void compactionRewritesLiveEntries() {
+        int maxEntries = 50;
+        MediaMetadataCache cache = new MediaMetadataCache(cacheFile(), VERSION, maxEntries);
+        int writes = MediaMetadataCache.MIN_COMPACT_RECORDS * 4;
+        for (int i = 0; i < writes; i++) {
+            cache.put(i, i, i, i, i, i, 0);
+            assertTrue(cache.getLogRecordCount() <= MediaMetadataCache.MIN_COMPACT_RECORDS);
+        }
+        // 相同的数据不重复写入
+        int records = cache.getLogRecordCount();
+        cache.put(writes - 1, writes - 1, writes - 1, writes - 1, writes - 1, writes - 1, 0);
+        assertEquals(records, cache.getLogRecordCount());
+        cache.close();
+        assertEquals(headerLength() + (long) records * MediaMetadataCache.RECORD_SIZE,
+                cacheFile().length());
+
+        MediaMetadataCache reopened = new MediaMetadataCache(cacheFile(), VERSION, maxEntries);
+        assertEquals(maxEntries, reopened.size());
+        for (int i = writes - maxEntries; i < writes; i++) {
+            assertEquals(i, reopened.get(i, i, i).durationMs);
+        }
+        assertNull(reopened.get(writes - maxEntries - 1, writes - maxEntries - 1, writes - maxEntries - 1));
+    }
+}
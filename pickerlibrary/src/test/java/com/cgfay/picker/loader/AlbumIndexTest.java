@@ -0,0 +1,343 @@
+package com.cgfay.picker.loader;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 相册索引测试，结果与原来按SQL排序后逐行统计的结果对比
+ */
+public class AlbumIndexTest {
+
+    private static final int ROWS = 100000;
+    private static final int BUCKETS = 300;
+    private static final int CAMERA_BUCKET = 7;
+
+    /**
+     * 一行媒体数据
+     */
+    private static final class Row {
+        final long id;
+        final long bucketId;
+        final String name;
+        final String mime;
+        final long dateTaken;
+
+        Row(long id, long bucketId, String name, String mime, long dateTaken) {
+            this.id = id;
+            this.bucketId = bucketId;
+            this.name = name;
+            this.mime = mime;
+            this.dateTaken = dateTaken;
+        }
+    }
+
+    private static Row randomRow(Random random, long id) {
+        int bucket = random.nextInt(BUCKETS);
+        String name = bucket == CAMERA_BUCKET ? "Camera" : "Bucket" + bucket;
+        String mime = random.nextInt(5) == 0 ? "video/mp4" : "image/jpeg";
+        return new Row(id, 1000 + bucket, name, mime, random.nextInt(ROWS * 10));
+    }
+
+    private static List<Row> randomRows(Random random, int count) {
+        List<Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(randomRow(random, i + 1));
+        }
+        return rows;
+    }
+
+    private static AlbumIndex buildIndex(List<Row> rows, boolean cameraFirst) {
+        AlbumIndex index = new AlbumIndex(cameraFirst, rows.size());
+        for (Row row : rows) {
+            index.put(row.id, row.bucketId, row.name, row.mime, row.dateTaken);
+        }
+        return index;
+    }
+
+    /**
+     * 原来的做法：按SQL的顺序排序后统计数量，每个相册取第一行作为封面，逐行生成String[]
+     */
+    private static List<String[]> legacyAlbums(List<Row> rows, boolean cameraFirst) {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort((lhs, rhs) -> {
+            if (cameraFirst) {
+                int lhsRank = "Camera".equals(lhs.name) ? 1 : 100;
+                int rhsRank = "Camera".equals(rhs.name) ? 1 : 100;
+                if (lhsRank != rhsRank) {
+                    return Integer.compare(lhsRank, rhsRank);
+                }
+            }
+            if (lhs.dateTaken != rhs.dateTaken) {
+                return Long.compare(rhs.dateTaken, lhs.dateTaken);
+            }
+            return Long.compare(rhs.id, lhs.id);
+        });
+        Map<Long, Long> countMap = new HashMap<>();
+        for (Row row : sorted) {
+            Long count = countMap.get(row.bucketId);
+            countMap.put(row.bucketId, count == null ? 1L : count + 1);
+        }
+        List<String[]> albums = new ArrayList<>();
+        long totalCount = 0;
+        Set<Long> done = new HashSet<>();
+        for (Row row : sorted) {
+            if (done.contains(row.bucketId)) {
+                continue;
+            }
+            long count = countMap.get(row.bucketId);
+            if (count > 1) {
+                albums.add(new String[] {
+                        Long.toString(row.id),
+                        Long.toString(row.bucketId),
+                        row.name,
+                        row.mime,
+                        String.valueOf(count)});
+                done.add(row.bucketId);
+                totalCount += count;
+            }
+        }
+        albums.add(0, new String[] {
+                sorted.isEmpty() ? null : Long.toString(sorted.get(0).id),
+                null, null,
+                sorted.isEmpty() ? null : sorted.get(0).mime,
+                String.valueOf(totalCount)});
+        return albums;
+    }
+
+    private static List<String[]> snapshotAlbums(AlbumIndex.Snapshot snapshot) {
+        List<String[]> albums = new ArrayList<>();
+        albums.add(new String[] {
+                snapshot.hasCover() ? Long.toString(snapshot.allCoverId) : null,
+                null, null,
+                snapshot.hasCover() ? snapshot.allCoverMime : null,
+                String.valueOf(snapshot.getTotalCount())});
+        for (int i = 0; i < snapshot.getCount(); i++) {
+            albums.add(new String[] {
+                    Long.toString(snapshot.coverIds[i]),
+                    Long.toString(snapshot.bucketIds[i]),
+                    snapshot.names[i],
+                    snapshot.coverMimes[i],
+                    String.valueOf(snapshot.counts[i])});
+        }
+        return albums;
+    }
+
+    private static void assertSameAlbums(List<String[]> expected, List<String[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("row " + i, Arrays.asList(expected.get(i)), Arrays.asList(actual.get(i)));
+        }
+    }
+
+    @Test
+    public void matchesLegacyAggregation() {
+        Random random = new Random(1);
+        List<Row> rows = randomRows(random, 5000);
+        for (boolean cameraFirst : new boolean[] {true, false}) {
+            AlbumIndex index = buildIndex(rows, cameraFirst);
+            assertEquals(rows.size(), index.size());
+            assertSameAlbums(legacyAlbums(rows, cameraFirst), snapshotAlbums(index.snapshot()));
+        }
+    }
+
+    @Test
+    public void singleMediaAlbumsAreHidden() {
+        AlbumIndex index = new AlbumIndex(true, 0);
+        index.put(1, 10, "A", "image/jpeg", 100);
+        index.put(2, 20, "B", "image/jpeg", 300);
+        index.put(3, 20, "B", "video/mp4", 200);
+        AlbumIndex.Snapshot snapshot = index.snapshot();
+        assertEquals(2, index.bucketCount());
+        assertEquals(1, snapshot.getCount());
+        assertEquals(20, snapshot.bucketIds[0]);
+        assertEquals(2, snapshot.getTotalCount());
+        // 全部相册的封面是最新的媒体，即使它所在的相册没有列出
+        assertEquals(2, snapshot.allCoverId);
+
+        AlbumIndex empty = new AlbumIndex(true, 0);
+        assertFalse(empty.snapshot().hasCover());
+        assertEquals(0, empty.snapshot().getTotalCount());
+    }
+
+    @Test
+    public void deltasMatchFullRebuild() {
+        Random random = new Random(2);
+        List<Row> rows = randomRows(random, 5000);
+        AlbumIndex index = buildIndex(rows, true);
+        index.snapshot();
+        long nextId = rows.size() + 1;
+        for (int round = 0; round < 20; round++) {
+            // 删除，包括各个相册的封面
+            for (int i = 0; i < 50; i++) {
+                Row removed = rows.remove(random.nextInt(rows.size()));
+                assertTrue(index.remove(removed.id));
+            }
+            AlbumIndex.Snapshot snapshot = index.snapshot();
+            for (int i = 0; i < Math.min(5, snapshot.getCount()); i++) {
+                long coverId = snapshot.coverIds[i];
+                for (int j = 0; j < rows.size(); j++) {
+                    if (rows.get(j).id == coverId) {
+                        rows.remove(j);
+                        assertTrue(index.remove(coverId));
+                        break;
+                    }
+                }
+            }
+            // 新增和移动相册
+            for (int i = 0; i < 50; i++) {
+                Row row = randomRow(random, nextId++);
+                rows.add(row);
+                index.put(row.id, row.bucketId, row.name, row.mime, row.dateTaken);
+            }
+            for (int i = 0; i < 20; i++) {
+                int position = random.nextInt(rows.size());
+                Row moved = randomRow(random, rows.get(position).id);
+                rows.set(position, moved);
+                index.put(moved.id, moved.bucketId, moved.name, moved.mime, moved.dateTaken);
+            }
+            assertFalse(index.remove(-1));
+            assertEquals(rows.size(), index.size());
+            assertSameAlbums(legacyAlbums(rows, true), snapshotAlbums(index.snapshot()));
+        }
+    }
+
+    @Test
+    public void sweepRemovesUnmarkedMedia() {
+        Random random = new Random(3);
+        List<Row> rows = randomRows(random, 2000);
+        AlbumIndex index = buildIndex(rows, true);
+        index.snapshot();
+
+        List<Row> remaining = new ArrayList<>();
+        List<Row> moved = new ArrayList<>();
+        index.beginSweep();
+        for (Row row : rows) {
+            int choice = random.nextInt(10);
+            if (choice == 0) {
+                // 已删除，不标记
+                continue;
+            }
+            if (choice == 1) {
+                // 移动到其他相册，需要重新读取
+                Row target = new Row(row.id, 5000, "Moved", row.mime, row.dateTaken);
+                assertFalse(index.mark(target.id, target.bucketId));
+                moved.add(target);
+                continue;
+            }
+            assertTrue(index.mark(row.id, row.bucketId));
+            remaining.add(row);
+        }
+        // 新增的媒体不在索引中
+        assertFalse(index.mark(ROWS * 100, 1000));
+        index.sweep();
+        assertEquals(remaining.size(), index.size());
+        for (Row row : moved) {
+            index.put(row.id, row.bucketId, row.name, row.mime, row.dateTaken);
+        }
+        remaining.addAll(moved);
+        assertSameAlbums(legacyAlbums(remaining, true), snapshotAlbums(index.snapshot()));
+    }
+
+    @Test
+    public void longIntMapMatchesHashMap() {
+        Random random = new Random(4);
+        LongIntMap map = new LongIntMap(0);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            // 键的范围较小，产生大量冲突和删除
+            long key = random.nextInt(5000) * 1024L - 100000;
+            if (random.nextInt(3) == 0) {
+                Integer value = expected.remove(key);
+                assertEquals(value == null ? LongIntMap.MISSING : value, map.remove(key));
+            } else {
+                int value = random.nextInt(Integer.MAX_VALUE);
+                expected.put(key, value);
+                map.put(key, value);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(LongIntMap.MISSING, map.get(expected.keySet().iterator().next()));
+    }
+
+    /**
+     * 10万行数据上的耗时对比：原来的全量统计、索引全量建立、以及每次变化100行时的增量更新
+     * 只检查增量更新比全量建立快，具体耗时打印出来参考
+     */
+    @Test
+    public void benchmark100kRows() {
+        Random random = new Random(5);
+        List<Row> rows = randomRows(random, ROWS);
+        int changes = 100;
+
+        long legacyNanos = Long.MAX_VALUE;
+        long buildNanos = Long.MAX_VALUE;
+        long deltaNanos = Long.MAX_VALUE;
+        long sweepNanos = Long.MAX_VALUE;
+        AlbumIndex index = null;
+        long nextId = ROWS + 1;
+        for (int iteration = 0; iteration < 7; iteration++) {
+            long start = System.nanoTime();
+            legacyAlbums(rows, true);
+            legacyNanos = Math.min(legacyNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            index = buildIndex(rows, true);
+            index.snapshot();
+            buildNanos = Math.min(buildNanos, System.nanoTime() - start);
+
+            // 增量：删除changes行，其中包括封面，再新增changes行
+            long[] removed = new long[changes];
+            for (int i = 0; i < changes; i++) {
+                removed[i] = rows.get(random.nextInt(rows.size())).id;
+            }
+            Row[] added = new Row[changes];
+            for (int i = 0; i < changes; i++) {
+                added[i] = randomRow(random, nextId++);
+            }
+            start = System.nanoTime();
+            for (long id : removed) {
+                index.remove(id);
+            }
+            for (Row row : added) {
+                index.put(row.id, row.bucketId, row.name, row.mime, row.dateTaken);
+            }
+            index.snapshot();
+            deltaNanos = Math.min(deltaNanos, System.nanoTime() - start);
+
+            // 加载器在变化时还要对所有id做一次标记清除
+            start = System.nanoTime();
+            index.beginSweep();
+            for (Row row : rows) {
+                index.mark(row.id, row.bucketId);
+            }
+            for (Row row : added) {
+                index.mark(row.id, row.bucketId);
+            }
+            index.sweep();
+            index.snapshot();
+            sweepNanos = Math.min(sweepNanos, System.nanoTime() - start);
+        }
+        System.out.println(String.format("AlbumIndex %d rows: legacy %.2f ms, build %.2f ms, "
+                        + "delta(%d) %.3f ms, sweep %.2f ms",
+                ROWS, legacyNanos / 1e6, buildNanos / 1e6, changes, deltaNanos / 1e6, sweepNanos / 1e6));
+        assertTrue(index.size() > 0);
+        assertTrue("delta " + deltaNanos + " build " + buildNanos, deltaNanos < buildNanos);
+    }
+}
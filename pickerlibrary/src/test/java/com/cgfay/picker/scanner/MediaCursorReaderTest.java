@@ -0,0 +1,156 @@
+package com.cgfay.picker.scanner;
+
+import android.database.Cursor;
+import android.provider.MediaStore;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Cursor读取测试，Cursor用动态代理模拟，只实现读取器用到的方法
+ */
+public class MediaCursorReaderTest {
+
+    private static final String COLUMN_DURATION = "duration";
+
+    /**
+     * 按行保存数据的Cursor，记录列索引的查询次数
+     */
+    private static class FakeCursor {
+        final List<String> columns;
+        final Object[][] rows;
+        int position = -1;
+        int columnLookups;
+        boolean closed;
+
+        FakeCursor(List<String> columns, Object[][] rows) {
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        Cursor asCursor() {
+            return (Cursor) Proxy.newProxyInstance(Cursor.class.getClassLoader(),
+                    new Class<?>[]{Cursor.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getColumnIndex":
+                                columnLookups++;
+                                return columns.indexOf((String) args[0]);
+                            case "getColumnIndexOrThrow": {
+                                columnLookups++;
+                                int index = columns.indexOf((String) args[0]);
+                                if (index < 0) {
+                                    throw new IllegalArgumentException((String) args[0]);
+                                }
+                                return index;
+                            }
+                            case "moveToNext":
+                                if (position < rows.length) {
+                                    position++;
+                                }
+                                return position < rows.length;
+                            case "isClosed":
+                                return closed;
+                            case "getCount":
+                                return rows.length;
+                            case "getLong":
+                                return ((Number) rows[position][(Integer) args[0]]).longValue();
+                            case "getInt":
+                                return ((Number) rows[position][(Integer) args[0]]).intValue();
+                            case "getString":
+                                return (String) rows[position][(Integer) args[0]];
+                            case "close":
+                                closed = true;
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+
+    private static FakeCursor videoCursor(int count) {
+        List<String> columns = Arrays.asList(MediaStore.Files.FileColumns._ID,
+                MediaStore.MediaColumns.MIME_TYPE, MediaStore.MediaColumns.WIDTH,
+                MediaStore.MediaColumns.HEIGHT, MediaStore.MediaColumns.SIZE,
+                MediaStore.MediaColumns.DATE_MODIFIED, COLUMN_DURATION);
+        Object[][] rows = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            rows[i] = new Object[]{(long) i, "video/mp4", 1920, 1080, 1000L + i, 2000L + i, 100L * i};
+        }
+        return new FakeCursor(columns, rows);
+    }
+
+    @Test
+    public void columnIndicesResolvedOnce() {
+        FakeCursor fake = videoCursor(10);
+        MediaCursorReader reader = new MediaCursorReader(fake.asCursor());
+        int lookups = fake.columnLookups;
+        assertEquals(7, lookups);
+
+        MediaPage page = new MediaPage(4);
+        while (reader.read(page, 4) > 0) {
+            // 读取多页不再查找列索引
+        }
+        assertEquals(10, page.getCount());
+        assertEquals(lookups, fake.columnLookups);
+    }
+
+    @Test
+    public void pagesContinueAcrossBoundaries() {
+        FakeCursor fake = videoCursor(7);
+        Cursor cursor = fake.asCursor();
+        MediaCursorReader reader = new MediaCursorReader(cursor);
+        MediaPage page = new MediaPage(3);
+        int[] expected = {3, 3, 1, 0};
+        long nextId = 0;
+        for (int rows : expected) {
+            page.clear();
+            assertEquals(rows, reader.read(page, 3));
+            assertEquals(rows, page.getCount());
+            // 页边界上的行既不重复也不跳过
+            for (int i = 0; i < rows; i++, nextId++) {
+                assertEquals(nextId, page.getId(i));
+                assertEquals("video/mp4", page.getMimeType(i));
+                assertEquals(1920, page.getWidth(i));
+                assertEquals(1080, page.getHeight(i));
+                assertEquals(1000 + nextId, page.getSize(i));
+                assertEquals(2000 + nextId, page.getDateModified(i));
+                assertEquals(100 * nextId, page.getDuration(i));
+            }
+        }
+        assertEquals(7, nextId);
+        assertEquals(true, reader.isReading(cursor));
+    }
+
+    @Test
+    public void missingDurationColumnReadsZero() {
+        List<String> columns = Arrays.asList(MediaStore.Files.FileColumns._ID,
+                MediaStore.MediaColumns.MIME_TYPE, MediaStore.MediaColumns.WIDTH,
+                MediaStore.MediaColumns.HEIGHT, MediaStore.MediaColumns.SIZE,
+                MediaStore.MediaColumns.DATE_MODIFIED);
+        FakeCursor fake = new FakeCursor(columns, new Object[][]{
+                {1L, "image/jpeg", 4000, 3000, 4096L, 10L}
+        });
+        MediaCursorReader reader = new MediaCursorReader(fake.asCursor());
+        MediaPage page = new MediaPage(1);
+        assertEquals(1, reader.read(page, 10));
+        assertEquals(0, page.getDuration(0));
+        assertEquals(4000, page.getWidth(0));
+    }
+
+    @Test
+    public void closedCursorReadsNothing() {
+        FakeCursor fake = videoCursor(5);
+        MediaCursorReader reader = new MediaCursorReader(fake.asCursor());
+        MediaPage page = new MediaPage(5);
+        assertEquals(2, reader.read(page, 2));
+        fake.closed = true;
+        assertEquals(0, reader.read(page, 2));
+        assertEquals(2, page.getCount());
+    }
+}
@@ -0,0 +1,192 @@
+package com.cgfay.picker.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.cgfay.picker.cache.MediaMetadataCache;
+import com.cgfay.picker.model.MediaData;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 视频信息解析队列测试，解析由测试控制，回调直接在解析线程中执行
+ */
+public class VideoMetadataQueueTest {
+
+    private static final int CAPACITY = 2;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    /**
+     * 每次解析前先通知开始，再等待测试放行
+     */
+    private static class BlockingExtractor implements VideoMetadataQueue.Extractor {
+        final BlockingQueue<MediaData> started = new LinkedBlockingQueue<>();
+        final CountDownLatch gate = new CountDownLatch(1);
+        final List<MediaData> extracted = new CopyOnWriteArrayList<>();
+
+        @Override
+        public long[] extract(@NonNull MediaData mediaData) throws Exception {
+            started.put(mediaData);
+            gate.await();
+            extracted.add(mediaData);
+            if (mediaData.getId() < 0) {
+                throw new IllegalStateException("unreadable");
+            }
+            if (mediaData.getId() == 0) {
+                return null;
+            }
+            return new long[]{mediaData.getId() * 1000, 1280, 720};
+        }
+    }
+
+    private static class Listener implements VideoMetadataQueue.OnMetadataListener {
+        final BlockingQueue<MediaData> updated = new LinkedBlockingQueue<>();
+        final BlockingQueue<MediaData> failed = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onMetadataUpdate(@NonNull MediaData mediaData) {
+            updated.add(mediaData);
+        }
+
+        @Override
+        public void onMetadataFailed(@NonNull MediaData mediaData) {
+            failed.add(mediaData);
+        }
+    }
+
+    private static MediaData video(long id) {
+        return new MediaData(id, "video/mp4", 0, 0, 4096, 0, 100);
+    }
+
+    private MediaMetadataCache newCache() {
+        return new MediaMetadataCache(new File(mFolder.getRoot(), "media_metadata"), "test", 100);
+    }
+
+    private static VideoMetadataQueue newQueue(MediaMetadataCache cache, int capacity,
+                                               VideoMetadataQueue.Extractor extractor,
+                                               Listener listener) {
+        return new VideoMetadataQueue(cache, capacity, extractor, Runnable::run, listener);
+    }
+
+    @Test
+    public void offerDoesNotBlockWhenFull() throws Exception {
+        BlockingExtractor extractor = new BlockingExtractor();
+        Listener listener = new Listener();
+        VideoMetadataQueue queue = newQueue(newCache(), CAPACITY, extractor, listener);
+
+        assertTrue(queue.offer(video(1)));
+        // 第一个视频被解析线程取走后，队列中还能放CAPACITY个
+        assertNotNull(extractor.started.poll(5, TimeUnit.SECONDS));
+        assertTrue(queue.offer(video(2)));
+        assertTrue(queue.offer(video(3)));
+        long start = System.nanoTime();
+        assertFalse(queue.offer(video(4)));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(CAPACITY, queue.getPendingCount());
+
+        extractor.gate.countDown();
+        for (int i = 1; i <= 3; i++) {
+            MediaData mediaData = listener.updated.poll(5, TimeUnit.SECONDS);
+            assertNotNull(mediaData);
+            assertEquals(i, mediaData.getId());
+            assertEquals(i * 1000, mediaData.getDurationMs());
+        }
+        queue.release();
+    }
+
+    @Test
+    public void clearDropsPendingVideos() throws Exception {
+        BlockingExtractor extractor = new BlockingExtractor();
+        Listener listener = new Listener();
+        VideoMetadataQueue queue = newQueue(newCache(), CAPACITY, extractor, listener);
+
+        queue.offer(video(1));
+        assertNotNull(extractor.started.poll(5, TimeUnit.SECONDS));
+        queue.offer(video(2));
+        queue.offer(video(3));
+        queue.clear();
+        assertEquals(0, queue.getPendingCount());
+
+        extractor.gate.countDown();
+        assertNotNull(listener.updated.poll(5, TimeUnit.SECONDS));
+        // 清空之后可以继续添加
+        assertTrue(queue.offer(video(4)));
+        MediaData mediaData = listener.updated.poll(5, TimeUnit.SECONDS);
+        assertNotNull(mediaData);
+        assertEquals(4, mediaData.getId());
+        assertEquals(2, extractor.extracted.size());
+        queue.release();
+    }
+
+    @Test
+    public void releaseStopsWorkerAndCallbacks() throws Exception {
+        BlockingExtractor extractor = new BlockingExtractor();
+        Listener listener = new Listener();
+        VideoMetadataQueue queue = newQueue(newCache(), CAPACITY, extractor, listener);
+
+        MediaData first = video(1);
+        queue.offer(first);
+        assertNotNull(extractor.started.poll(5, TimeUnit.SECONDS));
+        queue.offer(video(2));
+        queue.release();
+        assertEquals(0, queue.getPendingCount());
+        // 释放之后不再入队
+        assertTrue(queue.offer(video(3)));
+        assertEquals(0, queue.getPendingCount());
+
+        extractor.gate.countDown();
+        assertNull(listener.updated.poll(200, TimeUnit.MILLISECONDS));
+        assertNull(extractor.started.poll(200, TimeUnit.MILLISECONDS));
+        // 正在解析的视频不再更新
+        assertEquals(0, first.getDurationMs());
+    }
+
+    @Test
+    public void failuresAreCached() throws Exception {
+        BlockingExtractor extractor = new BlockingExtractor();
+        extractor.gate.countDown();
+        Listener listener = new Listener();
+        MediaMetadataCache cache = newCache();
+        VideoMetadataQueue queue = newQueue(cache, 3, extractor, listener);
+
+        MediaData unreadable = video(-1);
+        assertTrue(queue.offer(unreadable));
+        assertTrue(queue.offer(video(0)));
+        assertTrue(queue.offer(video(5)));
+        assertTrue(listener.failed.poll(5, TimeUnit.SECONDS) == unreadable);
+        assertNotNull(listener.updated.poll(5, TimeUnit.SECONDS));
+        queue.release();
+
+        MediaMetadataCache.Entry entry = cache.get(-1, 100, 4096);
+        assertNotNull(entry);
+        assertEquals(VideoMetadataQueue.DURATION_UNREADABLE, entry.durationMs);
+        // 没有视频轨道时记为0，下次不再解析
+        entry = cache.get(0, 100, 4096);
+        assertNotNull(entry);
+        assertEquals(0, entry.durationMs);
+        entry = cache.get(5, 100, 4096);
+        assertNotNull(entry);
+        assertEquals(5000, entry.durationMs);
+        assertEquals(1280, entry.width);
+        // 没有视频轨道的视频不回调
+        assertTrue(listener.updated.isEmpty());
+        assertTrue(listener.failed.isEmpty());
+    }
+}
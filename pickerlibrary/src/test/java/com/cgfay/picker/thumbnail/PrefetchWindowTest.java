@@ -0,0 +1,79 @@
+package com.cgfay.picker.thumbnail;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 预取区域测试
+ */
+public class PrefetchWindowTest {
+
+    private static void assertPositions(PrefetchWindow window, int... positions) {
+        assertEquals(positions.length, window.size());
+        for (int i = 0; i < positions.length; i++) {
+            assertEquals(positions[i], window.getPosition(i));
+        }
+    }
+
+    @Test
+    public void forwardPrefetchesAfterLastVisible() {
+        PrefetchWindow window = new PrefetchWindow(6);
+        assertTrue(window.update(10, 19, 100, PrefetchWindow.DIRECTION_FORWARD));
+        assertPositions(window, 20, 21, 22, 23, 24, 25);
+
+        // 可见区域没变时不重复预取
+        assertFalse(window.update(10, 19, 100, PrefetchWindow.DIRECTION_FORWARD));
+
+        assertTrue(window.update(13, 22, 100, PrefetchWindow.DIRECTION_FORWARD));
+        assertPositions(window, 23, 24, 25, 26, 27, 28);
+    }
+
+    @Test
+    public void backwardPrefetchesBeforeFirstVisibleNearestFirst() {
+        PrefetchWindow window = new PrefetchWindow(6);
+        assertTrue(window.update(10, 19, 100, PrefetchWindow.DIRECTION_BACKWARD));
+        assertPositions(window, 9, 8, 7, 6, 5, 4);
+    }
+
+    @Test
+    public void clampsToItemRange() {
+        PrefetchWindow window = new PrefetchWindow(6);
+        assertTrue(window.update(88, 97, 100, PrefetchWindow.DIRECTION_FORWARD));
+        assertPositions(window, 98, 99);
+
+        assertTrue(window.update(90, 99, 100, PrefetchWindow.DIRECTION_FORWARD));
+        assertPositions(window);
+
+        assertTrue(window.update(2, 11, 100, PrefetchWindow.DIRECTION_BACKWARD));
+        assertPositions(window, 1, 0);
+    }
+
+    @Test
+    public void directionChange() {
+        PrefetchWindow window = new PrefetchWindow(6);
+        assertFalse(window.isDirectionChanged(PrefetchWindow.DIRECTION_FORWARD));
+        window.update(10, 19, 100, PrefetchWindow.DIRECTION_FORWARD);
+        assertFalse(window.isDirectionChanged(PrefetchWindow.DIRECTION_FORWARD));
+        assertTrue(window.isDirectionChanged(PrefetchWindow.DIRECTION_BACKWARD));
+
+        // 同一位置反向滑动也需要重新预取
+        assertTrue(window.update(10, 19, 100, PrefetchWindow.DIRECTION_BACKWARD));
+        assertPositions(window, 9, 8, 7, 6, 5, 4);
+    }
+
+    @Test
+    public void ignoresInvalidRangeAndReset() {
+        PrefetchWindow window = new PrefetchWindow(6);
+        assertFalse(window.update(10, 19, 100, PrefetchWindow.DIRECTION_NONE));
+        assertFalse(window.update(-1, -1, 0, PrefetchWindow.DIRECTION_FORWARD));
+
+        window.update(10, 19, 100, PrefetchWindow.DIRECTION_FORWARD);
+        window.reset();
+        assertEquals(0, window.size());
+        assertFalse(window.isDirectionChanged(PrefetchWindow.DIRECTION_BACKWARD));
+        assertTrue(window.update(10, 19, 100, PrefetchWindow.DIRECTION_FORWARD));
+    }
+}
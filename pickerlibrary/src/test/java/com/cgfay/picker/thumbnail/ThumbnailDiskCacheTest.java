@@ -0,0 +1,129 @@
+package com.cgfay.picker.thumbnail;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 缩略图磁盘缓存测试，缓存目录放在临时目录中
+ */
+public class ThumbnailDiskCacheTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File cacheDir() {
+        return new File(mFolder.getRoot(), "thumbnails");
+    }
+
+    private static boolean put(ThumbnailDiskCache cache, String key, int length, int value) {
+        return cache.put(key, output -> {
+            for (int i = 0; i < length; i++) {
+                output.write(value);
+            }
+        });
+    }
+
+    private static int readFirst(File file) throws IOException {
+        try (InputStream input = new FileInputStream(file)) {
+            return input.read();
+        }
+    }
+
+    @Test
+    public void putThenGet() throws IOException {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(cacheDir(), 1000);
+        assertNull(cache.get("a"));
+        assertTrue(put(cache, "a", 100, 7));
+
+        File file = cache.get("a");
+        assertNotNull(file);
+        assertEquals(100, file.length());
+        assertEquals(7, readFirst(file));
+        assertEquals(1, cache.size());
+        assertEquals(100, cache.getTotalBytes());
+
+        // 覆盖写入时更新总大小
+        assertTrue(put(cache, "a", 60, 8));
+        assertEquals(60, cache.getTotalBytes());
+        assertEquals(8, readFirst(cache.get("a")));
+    }
+
+    @Test
+    public void trimsLeastRecentlyUsed() {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(cacheDir(), 250);
+        put(cache, "a", 100, 1);
+        put(cache, "b", 100, 2);
+        assertNotNull(cache.get("a"));
+        put(cache, "c", 100, 3);
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(200, cache.getTotalBytes());
+        assertEquals(2, cacheDir().list().length);
+    }
+
+    @Test
+    public void reloadRestoresOrderFromLastModified() {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(cacheDir(), 1000);
+        put(cache, "a", 100, 1);
+        put(cache, "b", 100, 2);
+        put(cache, "c", 100, 3);
+        long now = System.currentTimeMillis();
+        new File(cacheDir(), ThumbnailDiskCache.fileName("a")).setLastModified(now - 1000);
+        new File(cacheDir(), ThumbnailDiskCache.fileName("b")).setLastModified(now - 3000);
+        new File(cacheDir(), ThumbnailDiskCache.fileName("c")).setLastModified(now - 2000);
+
+        // 重新打开时容量变小，先删除修改时间最早的
+        ThumbnailDiskCache reopened = new ThumbnailDiskCache(cacheDir(), 250);
+        assertEquals(2, reopened.size());
+        assertNull(reopened.get("b"));
+        assertNotNull(reopened.get("a"));
+        assertNotNull(reopened.get("c"));
+    }
+
+    @Test
+    public void failedWriteLeavesNoFile() {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(cacheDir(), 1000);
+        assertFalse(cache.put("a", output -> {
+            output.write(1);
+            throw new IOException("compress failed");
+        }));
+        assertNull(cache.get("a"));
+        assertEquals(0, cacheDir().list().length);
+    }
+
+    @Test
+    public void deletesTempFilesOnLoad() throws IOException {
+        assertTrue(cacheDir().mkdirs());
+        File temp = new File(cacheDir(), ThumbnailDiskCache.fileName("a") + ".1.tmp");
+        assertTrue(temp.createNewFile());
+
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(cacheDir(), 1000);
+        assertEquals(0, cache.size());
+        assertFalse(temp.exists());
+    }
+
+    @Test
+    public void clearRemovesFiles() {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(cacheDir(), 1000);
+        put(cache, "a", 100, 1);
+        put(cache, "b", 100, 2);
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getTotalBytes());
+        assertEquals(0, cacheDir().list().length);
+    }
+}
@@ -0,0 +1,182 @@
+package com.cgfay.picker.thumbnail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 缩略图解码调度测试，单线程执行，第一个任务阻塞线程，其余任务排队后检查执行顺序
+ * 阻塞任务同样经过优先级队列，需要等它开始执行之后再提交其余任务
+ */
+public class ThumbnailSchedulerTest {
+
+    private ThumbnailScheduler mScheduler;
+    private final List<String> mLog = Collections.synchronizedList(new ArrayList<>());
+    private CountDownLatch mRelease = new CountDownLatch(1);
+    private CountDownLatch mDone;
+
+    @Before
+    public void setUp() {
+        mScheduler = new ThumbnailScheduler(1, Thread::new);
+    }
+
+    @After
+    public void tearDown() {
+        mRelease.countDown();
+        mScheduler.shutdown();
+    }
+
+    private class RecordingTask extends ThumbnailTask {
+
+        final String mName;
+
+        RecordingTask(String name, int priority) {
+            super(priority);
+            mName = name;
+        }
+
+        @Override
+        protected void execute() {
+            mLog.add(mName);
+            mDone.countDown();
+        }
+
+        @Override
+        protected void onSkipped() {
+            mLog.add("skip:" + mName);
+            mDone.countDown();
+        }
+    }
+
+    /**
+     * 阻塞唯一的解码线程，直到release
+     */
+    private ThumbnailTask block(int priority) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = mRelease;
+        ThumbnailTask blocker = new ThumbnailTask(priority) {
+            @Override
+            protected void execute() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        mScheduler.submit(blocker);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private RecordingTask submit(String name, int priority) {
+        RecordingTask task = new RecordingTask(name, priority);
+        mScheduler.submit(task);
+        return task;
+    }
+
+    private void releaseAndAwait(int count) throws InterruptedException {
+        mDone = new CountDownLatch(count);
+        mRelease.countDown();
+        assertTrue(mDone.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void visibleRunsBeforePrefetchAndNewestVisibleFirst() throws InterruptedException {
+        block(ThumbnailTask.PRIORITY_VISIBLE);
+        submit("p1", ThumbnailTask.PRIORITY_PREFETCH);
+        submit("v1", ThumbnailTask.PRIORITY_VISIBLE);
+        submit("p2", ThumbnailTask.PRIORITY_PREFETCH);
+        submit("v2", ThumbnailTask.PRIORITY_VISIBLE);
+        assertEquals(4, mScheduler.getQueuedCount());
+
+        releaseAndAwait(4);
+        assertEquals(Arrays.asList("v2", "v1", "p1", "p2"), mLog);
+    }
+
+    @Test
+    public void promoteMovesQueuedPrefetchAhead() throws InterruptedException {
+        ThumbnailTask blocker = block(ThumbnailTask.PRIORITY_PREFETCH);
+        submit("p1", ThumbnailTask.PRIORITY_PREFETCH);
+        submit("p2", ThumbnailTask.PRIORITY_PREFETCH);
+        RecordingTask p3 = submit("p3", ThumbnailTask.PRIORITY_PREFETCH);
+
+        assertTrue(mScheduler.promote(p3));
+        assertEquals(ThumbnailTask.PRIORITY_VISIBLE, p3.getPriority());
+        assertEquals(3, mScheduler.getQueuedCount());
+        // 已经在执行的任务不能再提升
+        assertFalse(mScheduler.promote(blocker));
+
+        releaseAndAwait(3);
+        assertEquals(Arrays.asList("p3", "p1", "p2"), mLog);
+    }
+
+    @Test
+    public void cancelRemovesQueuedTask() throws InterruptedException {
+        block(ThumbnailTask.PRIORITY_VISIBLE);
+        RecordingTask v1 = submit("v1", ThumbnailTask.PRIORITY_VISIBLE);
+        submit("v2", ThumbnailTask.PRIORITY_VISIBLE);
+
+        assertTrue(mScheduler.cancel(v1));
+        assertTrue(v1.isCancelled());
+        assertEquals(1, mScheduler.getQueuedCount());
+
+        releaseAndAwait(1);
+        assertEquals(Collections.singletonList("v2"), mLog);
+    }
+
+    @Test
+    public void cancelPrefetchSkipsStalePrefetchOnly() throws InterruptedException {
+        block(ThumbnailTask.PRIORITY_VISIBLE);
+        submit("p1", ThumbnailTask.PRIORITY_PREFETCH);
+        submit("v1", ThumbnailTask.PRIORITY_VISIBLE);
+        submit("p2", ThumbnailTask.PRIORITY_PREFETCH);
+        mScheduler.cancelPrefetch();
+        submit("p3", ThumbnailTask.PRIORITY_PREFETCH);
+
+        releaseAndAwait(4);
+        // 可见任务不受批次影响，过期的预取出队后跳过
+        assertEquals(Arrays.asList("v1", "skip:p1", "skip:p2", "p3"), mLog);
+    }
+
+    @Test
+    public void priorityHoldsAfterIdle() throws InterruptedException {
+        block(ThumbnailTask.PRIORITY_VISIBLE);
+        submit("p1", ThumbnailTask.PRIORITY_PREFETCH);
+        releaseAndAwait(1);
+        // 线程空闲一段时间之后提交的任务仍然按优先级执行
+        Thread.sleep(100);
+        mLog.clear();
+        mRelease = new CountDownLatch(1);
+        block(ThumbnailTask.PRIORITY_PREFETCH);
+        submit("p2", ThumbnailTask.PRIORITY_PREFETCH);
+        submit("v1", ThumbnailTask.PRIORITY_VISIBLE);
+
+        releaseAndAwait(2);
+        assertEquals(Arrays.asList("v1", "p2"), mLog);
+    }
+
+    @Test
+    public void promotedPrefetchIsNotStale() throws InterruptedException {
+        block(ThumbnailTask.PRIORITY_VISIBLE);
+        RecordingTask p1 = submit("p1", ThumbnailTask.PRIORITY_PREFETCH);
+        submit("p2", ThumbnailTask.PRIORITY_PREFETCH);
+        mScheduler.cancelPrefetch();
+        assertTrue(mScheduler.promote(p1));
+
+        releaseAndAwait(2);
+        assertEquals(Arrays.asList("p1", "skip:p2"), mLog);
+    }
+}
@@ -0,0 +1,94 @@
+package com.cgfay.picker.widget.subsamplingview.tile;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Byte bounded tile cache, values are byte arrays sized by their length.
+ */
+public class TileCacheTest {
+
+  private final List<String> evicted = new ArrayList<>();
+
+  private TileCache<String, byte[]> newCache(long maxBytes) {
+    return new TileCache<String, byte[]>(maxBytes) {
+      @Override
+      protected long sizeOf(@NonNull byte[] value) {
+        return value.length;
+      }
+
+      @Override
+      protected void onEvicted(@NonNull String key, @NonNull byte[] value) {
+        evicted.add(key);
+      }
+    };
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedOverLimit() {
+    TileCache<String, byte[]> cache = newCache(300);
+    cache.put("a", new byte[100]);
+    cache.put("b", new byte[100]);
+    cache.put("c", new byte[100]);
+    assertEquals(300, cache.getBytes());
+
+    cache.put("d", new byte[150]);
+    assertEquals(Arrays.asList("a", "b"), evicted);
+    assertEquals(250, cache.getBytes());
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void removeTransfersOwnership() {
+    TileCache<String, byte[]> cache = newCache(300);
+    byte[] tile = new byte[100];
+    cache.put("a", tile);
+
+    assertTrue(cache.remove("a") == tile);
+    assertNull(cache.remove("a"));
+    assertFalse(cache.contains("a"));
+    assertEquals(0, cache.getBytes());
+    assertTrue(evicted.isEmpty());
+  }
+
+  @Test
+  public void replacingEvictsPreviousValue() {
+    TileCache<String, byte[]> cache = newCache(300);
+    cache.put("a", new byte[100]);
+    cache.put("a", new byte[50]);
+    assertEquals(Arrays.asList("a"), evicted);
+    assertEquals(50, cache.getBytes());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void oversizedValueIsEvictedImmediately() {
+    TileCache<String, byte[]> cache = newCache(100);
+    cache.put("a", new byte[50]);
+    cache.put("huge", new byte[200]);
+    assertEquals(Arrays.asList("a", "huge"), evicted);
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getBytes());
+  }
+
+  @Test
+  public void evictAllReleasesEverything() {
+    TileCache<String, byte[]> cache = newCache(300);
+    cache.put("a", new byte[100]);
+    cache.put("b", new byte[100]);
+    cache.evictAll();
+    assertEquals(Arrays.asList("a", "b"), evicted);
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getBytes());
+  }
+}
@@ -0,0 +1,200 @@
+package com.cgfay.picker.widget.subsamplingview.tile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tile scheduling order. A single worker is blocked by the first request so the others queue up,
+ * then the execution order is checked once it is released. The blocker goes through the queue
+ * like every other request, so each test only submits once it is running.
+ */
+public class TileSchedulerTest {
+
+  private TileScheduler scheduler;
+  private final List<String> log = Collections.synchronizedList(new ArrayList<>());
+  private CountDownLatch release;
+  private CountDownLatch done;
+
+  @Before
+  public void setUp() throws InterruptedException {
+    scheduler = new TileScheduler(1, Thread::new);
+    block();
+  }
+
+  /**
+   * Occupy the only worker until {@link #releaseAndAwait(int)}.
+   */
+  private void block() throws InterruptedException {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch blocked = new CountDownLatch(1);
+    release = blocked;
+    scheduler.submit(new TileRequest(TileRequest.PRIORITY_BASE, 0) {
+      @Override
+      protected void execute() {
+        started.countDown();
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    scheduler.shutdown();
+  }
+
+  private class RecordingRequest extends TileRequest {
+
+    private final String name;
+
+    RecordingRequest(String name, int priority, double distance) {
+      super(priority, distance);
+      this.name = name;
+    }
+
+    @Override
+    protected void execute() {
+      log.add(name);
+      done.countDown();
+    }
+
+    @Override
+    protected void onCancelled() {
+      log.add("cancelled:" + name);
+      done.countDown();
+    }
+  }
+
+  private RecordingRequest submit(String name, int priority, double distance) {
+    RecordingRequest request = new RecordingRequest(name, priority, distance);
+    scheduler.submit(request);
+    return request;
+  }
+
+  private void releaseAndAwait(int count) throws InterruptedException {
+    done = new CountDownLatch(count);
+    release.countDown();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void baseLayerThenVisibleByDistance() throws InterruptedException {
+    submit("far", TileRequest.PRIORITY_VISIBLE, 900);
+    submit("base", TileRequest.PRIORITY_BASE, 2500);
+    submit("center", TileRequest.PRIORITY_VISIBLE, 0);
+    submit("near", TileRequest.PRIORITY_VISIBLE, 100);
+    assertEquals(4, scheduler.getQueuedCount());
+
+    releaseAndAwait(4);
+    assertEquals(Arrays.asList("base", "center", "near", "far"), log);
+  }
+
+  @Test
+  public void equalDistanceRunsInSubmissionOrder() throws InterruptedException {
+    submit("a", TileRequest.PRIORITY_VISIBLE, 100);
+    submit("b", TileRequest.PRIORITY_VISIBLE, 100);
+    submit("c", TileRequest.PRIORITY_VISIBLE, 100);
+
+    releaseAndAwait(3);
+    assertEquals(Arrays.asList("a", "b", "c"), log);
+  }
+
+  @Test
+  public void updateReordersAfterPan() throws InterruptedException {
+    RecordingRequest left = submit("left", TileRequest.PRIORITY_VISIBLE, 100);
+    RecordingRequest middle = submit("middle", TileRequest.PRIORITY_VISIBLE, 400);
+    RecordingRequest right = submit("right", TileRequest.PRIORITY_VISIBLE, 900);
+
+    // Viewport moved right, the right tile is now the nearest
+    assertTrue(scheduler.update(left, TileRequest.PRIORITY_VISIBLE, 900));
+    assertTrue(scheduler.update(middle, TileRequest.PRIORITY_VISIBLE, 100));
+    assertTrue(scheduler.update(right, TileRequest.PRIORITY_VISIBLE, 0));
+    assertEquals(3, scheduler.getQueuedCount());
+    assertEquals(0, right.getDistance(), 0);
+
+    releaseAndAwait(3);
+    assertEquals(Arrays.asList("right", "middle", "left"), log);
+  }
+
+  @Test
+  public void cancelledRequestsNeverDecode() throws InterruptedException {
+    RecordingRequest offscreen = submit("offscreen", TileRequest.PRIORITY_VISIBLE, 0);
+    submit("onscreen", TileRequest.PRIORITY_VISIBLE, 100);
+
+    assertTrue(scheduler.cancel(offscreen));
+    assertTrue(offscreen.isCancelled());
+    assertFalse(scheduler.update(offscreen, TileRequest.PRIORITY_VISIBLE, 50));
+    assertEquals(1, scheduler.getQueuedCount());
+
+    releaseAndAwait(1);
+    assertEquals(Collections.singletonList("onscreen"), log);
+  }
+
+  @Test
+  public void cancelledAfterDequeueIsSkipped() throws InterruptedException {
+    RecordingRequest request = new RecordingRequest("late", TileRequest.PRIORITY_VISIBLE, 0);
+    // Cancelled without being removed from the queue, as when cancel races with a worker
+    request.cancel();
+    scheduler.submit(request);
+    submit("next", TileRequest.PRIORITY_VISIBLE, 10);
+
+    releaseAndAwait(2);
+    assertEquals(Arrays.asList("cancelled:late", "next"), log);
+  }
+
+  @Test
+  public void orderHoldsAfterIdle() throws InterruptedException {
+    submit("first", TileRequest.PRIORITY_VISIBLE, 0);
+    releaseAndAwait(1);
+    // Requests submitted to an idle pool still go through the queue
+    Thread.sleep(100);
+    log.clear();
+    block();
+    submit("far", TileRequest.PRIORITY_VISIBLE, 900);
+    submit("near", TileRequest.PRIORITY_VISIBLE, 100);
+
+    releaseAndAwait(2);
+    assertEquals(Arrays.asList("near", "far"), log);
+  }
+
+  @Test
+  public void updateOfRunningRequestFails() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    TileScheduler idle = new TileScheduler(1, Thread::new);
+    TileRequest running = new TileRequest(TileRequest.PRIORITY_VISIBLE, 100) {
+      @Override
+      protected void execute() {
+        started.countDown();
+        try {
+          finish.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    idle.submit(running);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertFalse(idle.update(running, TileRequest.PRIORITY_VISIBLE, 0));
+    assertFalse(idle.cancel(running));
+    finish.countDown();
+    idle.shutdown();
+  }
+}
@@ -0,0 +1,141 @@
+package com.cgfay.uitls.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Bitmap复用池，解码时通过BitmapFactory.Options.inBitmap复用已上传到纹理的Bitmap，
+ * 用于预览过程中反复解码素材的场景，避免每帧分配新的Bitmap
+ */
+public final class BitmapPool extends SizeBucketedPool<Bitmap> {
+
+    private static final String TAG = "BitmapPool";
+
+    // 复用时允许的最大倍数
+    private static final int MAX_SIZE_MULTIPLE = 2;
+    // 默认字节预算占最大堆内存的比例
+    private static final int DEFAULT_MEMORY_FRACTION = 16;
+
+    private static class BitmapPoolHolder {
+        public static final BitmapPool instance = new BitmapPool(
+                Runtime.getRuntime().maxMemory() / DEFAULT_MEMORY_FRACTION);
+    }
+
+    public static BitmapPool getInstance() {
+        return BitmapPoolHolder.instance;
+    }
+
+    public BitmapPool(long maxBytes) {
+        super(maxBytes, MAX_SIZE_MULTIPLE);
+    }
+
+    @Override
+    protected int getSize(Bitmap value) {
+        if (value.isRecycled() || !value.isMutable()) {
+            return 0;
+        }
+        return value.getAllocationByteCount();
+    }
+
+    @Override
+    protected void onEvicted(Bitmap value) {
+        if (!value.isRecycled()) {
+            value.recycle();
+        }
+    }
+
+    /**
+     * 从文件中解码图片，优先复用池中的Bitmap
+     * @param path
+     * @return
+     */
+    public Bitmap decodeFile(String path) {
+        if (!new File(path).exists()) {
+            return null;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(path, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        Bitmap inBitmap = prepareOptions(options);
+        try {
+            return restoreOnFailure(BitmapFactory.decodeFile(path, options), inBitmap);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "decodeFile: unable to reuse bitmap", e);
+            put(inBitmap);
+            options.inBitmap = null;
+            return BitmapFactory.decodeFile(path, options);
+        }
+    }
+
+    /**
+     * 从输入流中解码图片，输入流需要支持mark/reset才能先读取尺寸，否则不做复用
+     * @param inputStream
+     * @return
+     */
+    public Bitmap decodeStream(InputStream inputStream) {
+        if (!inputStream.markSupported()) {
+            return BitmapFactory.decodeStream(inputStream);
+        }
+        try {
+            inputStream.mark(Integer.MAX_VALUE);
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeStream(inputStream, null, options);
+            inputStream.reset();
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                return null;
+            }
+            Bitmap inBitmap = prepareOptions(options);
+            inputStream.mark(Integer.MAX_VALUE);
+            try {
+                return restoreOnFailure(BitmapFactory.decodeStream(inputStream, null, options), inBitmap);
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "decodeStream: unable to reuse bitmap", e);
+                put(inBitmap);
+                inputStream.reset();
+                options.inBitmap = null;
+                return BitmapFactory.decodeStream(inputStream, null, options);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "decodeStream: ", e);
+            return null;
+        }
+    }
+
+    /**
+     * 解码失败时，复用的Bitmap仍然可用，放回池中
+     * @param result    解码结果
+     * @param inBitmap  复用的Bitmap
+     * @return
+     */
+    private Bitmap restoreOnFailure(Bitmap result, Bitmap inBitmap) {
+        if (result == null && inBitmap != null) {
+            put(inBitmap);
+        }
+        return result;
+    }
+
+    /**
+     * 根据图片尺寸从池中取出可复用的Bitmap，并设置解码参数
+     * @param options   已读取尺寸的解码参数
+     * @return          复用的Bitmap，没有时返回null
+     */
+    private Bitmap prepareOptions(BitmapFactory.Options options) {
+        options.inJustDecodeBounds = false;
+        // 使用inBitmap时，inSampleSize得设置为1，并且需要可变的Bitmap
+        options.inSampleSize = 1;
+        options.inMutable = true;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap inBitmap = get(options.outWidth * options.outHeight * 4);
+        options.inBitmap = inBitmap;
+        return inBitmap;
+    }
+}
@@ -0,0 +1,200 @@
+package com.cgfay.uitls.utils;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 按字节大小分桶的复用池，超出字节预算时按照LRU顺序淘汰
+ * 取出时返回不小于所需大小的最小对象，且不超过所需大小的maxSizeMultiple倍，避免大对象被小请求占用
+ * @param <T> 复用对象
+ */
+public abstract class SizeBucketedPool<T> {
+
+    /**
+     * LRU链表节点
+     */
+    private static final class Node<T> {
+        T value;
+        int size;
+        Node<T> prev;
+        Node<T> next;
+    }
+
+    // 字节预算
+    private final long mMaxBytes;
+    // 复用时允许的最大倍数
+    private final int mMaxSizeMultiple;
+    // 按大小分桶，每个桶中按放入的先后排列
+    private final TreeMap<Integer, ArrayDeque<Node<T>>> mBuckets = new TreeMap<>();
+    // LRU链表头，最久未使用
+    private Node<T> mHead;
+    // LRU链表尾，最近放入
+    private Node<T> mTail;
+    // 当前占用的字节数
+    private long mCurrentBytes;
+
+    // 命中次数
+    private int mHitCount;
+    // 未命中次数
+    private int mMissCount;
+    // 淘汰次数
+    private int mEvictionCount;
+
+    /**
+     * @param maxBytes          字节预算
+     * @param maxSizeMultiple   复用时允许的最大倍数
+     */
+    protected SizeBucketedPool(long maxBytes, int maxSizeMultiple) {
+        if (maxBytes <= 0 || maxSizeMultiple < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive and maxSizeMultiple at least 1");
+        }
+        mMaxBytes = maxBytes;
+        mMaxSizeMultiple = maxSizeMultiple;
+    }
+
+    /**
+     * 对象占用的字节数
+     * @param value
+     * @return
+     */
+    protected abstract int getSize(T value);
+
+    /**
+     * 对象被淘汰或者无法放入池中时回调，用于释放资源
+     * @param value
+     */
+    protected abstract void onEvicted(T value);
+
+    /**
+     * 取出一个不小于size字节的对象
+     * @param size  所需的字节数
+     * @return      复用对象，没有合适的对象时返回null
+     */
+    public synchronized T get(int size) {
+        long maxSize = (long) size * mMaxSizeMultiple;
+        Map.Entry<Integer, ArrayDeque<Node<T>>> entry = mBuckets.ceilingEntry(size);
+        if (entry == null || entry.getKey() > maxSize) {
+            mMissCount++;
+            return null;
+        }
+        ArrayDeque<Node<T>> bucket = entry.getValue();
+        // 取同一个桶中最近放入的对象，最久未使用的留给淘汰
+        Node<T> node = bucket.pollLast();
+        if (bucket.isEmpty()) {
+            mBuckets.remove(entry.getKey());
+        }
+        unlink(node);
+        mCurrentBytes -= node.size;
+        mHitCount++;
+        return node.value;
+    }
+
+    /**
+     * 放回对象，超出预算时淘汰最久未使用的对象
+     * @param value
+     */
+    public void put(T value) {
+        if (value == null) {
+            return;
+        }
+        int size = getSize(value);
+        if (size <= 0 || size > mMaxBytes) {
+            onEvicted(value);
+            return;
+        }
+        synchronized (this) {
+            Node<T> node = new Node<>();
+            node.value = value;
+            node.size = size;
+            ArrayDeque<Node<T>> bucket = mBuckets.get(size);
+            if (bucket == null) {
+                bucket = new ArrayDeque<>();
+                mBuckets.put(size, bucket);
+            }
+            bucket.addLast(node);
+            linkLast(node);
+            mCurrentBytes += size;
+            trimToSize(mMaxBytes);
+        }
+    }
+
+    /**
+     * 清空复用池
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * 淘汰对象直到占用的字节数不超过maxBytes
+     * @param maxBytes
+     */
+    public synchronized void trimToSize(long maxBytes) {
+        while (mCurrentBytes > maxBytes && mHead != null) {
+            Node<T> node = mHead;
+            // 最久未使用的节点一定是所在桶中最早放入的节点
+            ArrayDeque<Node<T>> bucket = mBuckets.get(node.size);
+            bucket.pollFirst();
+            if (bucket.isEmpty()) {
+                mBuckets.remove(node.size);
+            }
+            unlink(node);
+            mCurrentBytes -= node.size;
+            mEvictionCount++;
+            onEvicted(node.value);
+        }
+    }
+
+    public synchronized long getCurrentBytes() {
+        return mCurrentBytes;
+    }
+
+    public long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return getClass().getSimpleName() + "{bytes=" + mCurrentBytes + "/" + mMaxBytes
+                + ", hit=" + mHitCount + ", miss=" + mMissCount + ", evicted=" + mEvictionCount + "}";
+    }
+
+    private void linkLast(Node<T> node) {
+        node.prev = mTail;
+        node.next = null;
+        if (mTail != null) {
+            mTail.next = node;
+        } else {
+            mHead = node;
+        }
+        mTail = node;
+    }
+
+    private void unlink(Node<T> node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            mHead = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            mTail = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+}
@@ -0,0 +1,116 @@
+package com.cgfay.uitls.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分桶复用池测试，使用byte数组代替Bitmap
+ */
+public class SizeBucketedPoolTest {
+
+    private static class ArrayPool extends SizeBucketedPool<byte[]> {
+
+        final List<byte[]> evicted = new ArrayList<>();
+
+        ArrayPool(long maxBytes) {
+            super(maxBytes, 2);
+        }
+
+        @Override
+        protected int getSize(byte[] value) {
+            return value.length;
+        }
+
+        @Override
+        protected void onEvicted(byte[] value) {
+            evicted.add(value);
+        }
+    }
+
+    @Test
+    public void returnsSmallestFittingEntry() {
+        ArrayPool pool = new ArrayPool(1000);
+        byte[] small = new byte[100];
+        byte[] medium = new byte[150];
+        byte[] large = new byte[300];
+        pool.put(large);
+        pool.put(small);
+        pool.put(medium);
+        assertSame(medium, pool.get(120));
+        assertSame(small, pool.get(100));
+        assertEquals(300, pool.getCurrentBytes());
+        assertEquals(2, pool.getHitCount());
+    }
+
+    @Test
+    public void rejectsEntriesBeyondSizeMultiple() {
+        ArrayPool pool = new ArrayPool(1000);
+        byte[] large = new byte[300];
+        pool.put(large);
+        assertNull(pool.get(100));
+        assertNull(pool.get(400));
+        assertEquals(2, pool.getMissCount());
+        assertSame(large, pool.get(150));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOverBudget() {
+        ArrayPool pool = new ArrayPool(300);
+        byte[] first = new byte[100];
+        byte[] second = new byte[100];
+        byte[] third = new byte[100];
+        byte[] fourth = new byte[150];
+        pool.put(first);
+        pool.put(second);
+        pool.put(third);
+        assertTrue(pool.evicted.isEmpty());
+        pool.put(fourth);
+        assertEquals(2, pool.evicted.size());
+        assertSame(first, pool.evicted.get(0));
+        assertSame(second, pool.evicted.get(1));
+        assertEquals(250, pool.getCurrentBytes());
+        assertSame(third, pool.get(100));
+        assertSame(fourth, pool.get(150));
+        assertEquals(0, pool.getCurrentBytes());
+    }
+
+    @Test
+    public void reusesMostRecentEntryOfBucket() {
+        ArrayPool pool = new ArrayPool(1000);
+        byte[] older = new byte[100];
+        byte[] newer = new byte[100];
+        pool.put(older);
+        pool.put(newer);
+        assertSame(newer, pool.get(100));
+        // 剩下的旧对象依然是最先淘汰的对象
+        pool.trimToSize(0);
+        assertSame(older, pool.evicted.get(0));
+    }
+
+    @Test
+    public void oversizedEntriesAreEvictedImmediately() {
+        ArrayPool pool = new ArrayPool(100);
+        byte[] huge = new byte[200];
+        pool.put(huge);
+        assertEquals(0, pool.getCurrentBytes());
+        assertSame(huge, pool.evicted.get(0));
+    }
+
+    @Test
+    public void clearEvictsEverything() {
+        ArrayPool pool = new ArrayPool(1000);
+        pool.put(new byte[10]);
+        pool.put(new byte[20]);
+        pool.put(new byte[20]);
+        pool.clear();
+        assertEquals(3, pool.evicted.size());
+        assertEquals(0, pool.getCurrentBytes());
+        assertNull(pool.get(10));
+        pool.put(new byte[10]);
+        assertNotNull(pool.get(10));
+    }
+}